@@ -117,6 +117,8 @@ public class DataCenterConfig
 
     private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
 
+    private boolean isStreamingEnabled;
+
     @NotNull
     public URI getConnectionUrl()
     {
@@ -803,4 +805,24 @@ public class DataCenterConfig
         this.maxIdleConnections = maxIdleConnectionsParameter;
         return this;
     }
+
+    public boolean isStreamingEnabled()
+    {
+        return this.isStreamingEnabled;
+    }
+
+    /**
+     * set streaming enabled.
+     *
+     * @param isStreamingEnabledParameter streaming enabled or not.
+     * @return DataCenterConfig object
+     */
+    @Config("dc.http-streaming.enabled")
+    @ConfigDescription("Fetch the results of the remote data center as a binary stream of pages instead of polling them "
+            + "as JSON, the remote data center must support it")
+    public DataCenterConfig setStreamingEnabled(boolean isStreamingEnabledParameter)
+    {
+        this.isStreamingEnabled = isStreamingEnabledParameter;
+        return this;
+    }
 }
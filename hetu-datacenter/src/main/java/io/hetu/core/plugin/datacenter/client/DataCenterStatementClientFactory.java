@@ -87,6 +87,7 @@ public class DataCenterStatementClientFactory
                 .withClientTimeout(config.getClientTimeout())
                 .withMaxAnticipatedDelay(config.getMaxAnticipatedDelay())
                 .withCompression(config.isCompressionEnabled())
+                .withStreaming(config.isStreamingEnabled())
                 .withProperties(properties)
                 .withTypeManager(typeManager);
         return builder.build();
@@ -110,6 +111,7 @@ public class DataCenterStatementClientFactory
                 .withClientTimeout(config.getClientTimeout())
                 .withMaxAnticipatedDelay(config.getMaxAnticipatedDelay())
                 .withCompression(config.isCompressionEnabled())
+                .withStreaming(config.isStreamingEnabled())
                 .withCatalog(client.getSetCatalog().orElse(null))
                 .withSchema(client.getSetSchema().orElse(null))
                 .withPath(client.getSetPath().orElse(null))
@@ -26,8 +26,8 @@ import io.prestosql.spi.dynamicfilter.DynamicFilter;
 import okhttp3.OkHttpClient;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -44,12 +44,12 @@ public class DataCenterPageSource
 {
     private static final Logger LOGGER = Logger.get(DataCenterPageSource.class);
 
-    private final long startTime;
+    private long readTimeNanos;
     private final int numberOfColumns;
     private DataCenterStatementClient client;
     private long readBytes;
     private long lastMemoryUsage;
-    private Queue<Page> pages = new LinkedList<>();
+    private Queue<Page> pages = new ArrayDeque<>();
     private final Supplier<Map<ColumnHandle, DynamicFilter>> dynamicFilterSupplier;
     private final Set<String> appliedDynamicFilters = new HashSet<>();
 
@@ -71,7 +71,6 @@ public class DataCenterPageSource
     public DataCenterPageSource(OkHttpClient httpClient, DataCenterClientSession clientSession, String sql,
             String queryId, List<ColumnHandle> columns, Supplier<Map<ColumnHandle, DynamicFilter>> dynamicFilterSupplier)
     {
-        this.startTime = System.nanoTime();
         this.client = DataCenterStatementClient.newStatementClient(httpClient, clientSession, sql, queryId);
         this.numberOfColumns = columns.size();
         this.dynamicFilterSupplier = dynamicFilterSupplier;
@@ -86,7 +85,7 @@ public class DataCenterPageSource
     @Override
     public long getReadTimeNanos()
     {
-        return System.nanoTime() - this.startTime;
+        return this.readTimeNanos;
     }
 
     @Override
@@ -111,7 +110,10 @@ public class DataCenterPageSource
                 this.update(pageList);
                 this.pages.addAll(pageList);
             }
+            // time waited for the data center, either polling or reading the result stream
+            long start = System.nanoTime();
             this.client.advance();
+            this.readTimeNanos += System.nanoTime() - start;
         }
         return null;
     }
@@ -66,7 +66,8 @@ public class TestDataCenterConfig
                 .setMetadataCacheEnabled(true)
                 .setCompressionEnabled(false)
                 .setMaxAnticipatedDelay(new Duration(10, TimeUnit.MINUTES))
-                .setMaxIdleConnections(20));
+                .setMaxIdleConnections(20)
+                .setStreamingEnabled(false));
     }
 
     @Test
@@ -105,6 +106,7 @@ public class TestDataCenterConfig
                 .put("dc.http-compression", "true")
                 .put("dc.max.anticipated.delay", "5s")
                 .put("dc.httpclient.maximum.idle.connections", "10")
+                .put("dc.http-streaming.enabled", "true")
                 .build();
 
         DataCenterConfig expected = new DataCenterConfig().setConnectionUrl(URI.create("http://127.0.0.1:9002"))
@@ -138,7 +140,8 @@ public class TestDataCenterConfig
                 .setMetadataCacheEnabled(false)
                 .setCompressionEnabled(true)
                 .setMaxAnticipatedDelay(new Duration(5, TimeUnit.SECONDS))
-                .setMaxIdleConnections(10);
+                .setMaxIdleConnections(10)
+                .setStreamingEnabled(true);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -15,239 +15,127 @@
 
 package io.hetu.core.heuristicindex.bitmap;
 
-import com.fasterxml.jackson.databind.InjectableValues;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 import io.airlift.slice.Slice;
 import io.hetu.core.spi.heuristicindex.Index;
 import io.hetu.core.spi.heuristicindex.Operator;
+import io.hetu.core.spi.heuristicindex.UnsupportedIndexFormatException;
 import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.Marker;
 import io.prestosql.spi.predicate.Range;
 import io.prestosql.spi.predicate.SortedRangeSet;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.druid.collections.bitmap.ImmutableBitmap;
-import org.apache.druid.data.input.MapBasedInputRow;
-import org.apache.druid.data.input.impl.DimensionsSpec;
-import org.apache.druid.data.input.impl.StringDimensionSchema;
-import org.apache.druid.data.input.impl.TimestampSpec;
-import org.apache.druid.jackson.DefaultObjectMapper;
-import org.apache.druid.java.util.common.granularity.Granularities;
-import org.apache.druid.math.expr.ExprMacroTable;
-import org.apache.druid.query.BitmapResultFactory;
-import org.apache.druid.query.DefaultBitmapResultFactory;
-import org.apache.druid.query.filter.BoundDimFilter;
-import org.apache.druid.query.filter.DimFilter;
-import org.apache.druid.query.filter.Filter;
-import org.apache.druid.query.filter.InDimFilter;
-import org.apache.druid.query.filter.NotDimFilter;
-import org.apache.druid.query.filter.OrDimFilter;
-import org.apache.druid.query.filter.SelectorDimFilter;
-import org.apache.druid.query.ordering.StringComparator;
-import org.apache.druid.query.ordering.StringComparators;
-import org.apache.druid.segment.ColumnSelectorBitmapIndexSelector;
-import org.apache.druid.segment.IndexIO;
-import org.apache.druid.segment.IndexMergerV9;
-import org.apache.druid.segment.IndexSpec;
-import org.apache.druid.segment.QueryableIndex;
-import org.apache.druid.segment.VirtualColumns;
-import org.apache.druid.segment.filter.AndFilter;
-import org.apache.druid.segment.filter.TrueFilter;
-import org.apache.druid.segment.incremental.IncrementalIndex;
-import org.apache.druid.segment.incremental.IncrementalIndexSchema;
-import org.apache.druid.segment.incremental.IndexSizeExceededException;
-import org.apache.druid.segment.writeout.OffHeapMemorySegmentWriteOutMediumFactory;
+import io.prestosql.spi.predicate.ValueSet;
+import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.Decimals;
+import io.prestosql.spi.type.RealType;
+import io.prestosql.spi.type.Type;
 import org.roaringbitmap.IntIterator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.buffer.BufferFastAggregation;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.PrimitiveIterator;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Pattern;
 
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Float.intBitsToFloat;
 
 /**
- * This BitMapIndexV2 will create and apply the filter for only one column data
- * Therefore, one druid segment class should be enough to hold the data.
+ * Bitmap index on the values of one column of a stripe, made of one Roaring bitmap of row numbers per distinct value.
+ * <p>
+ * The distinct values are kept sorted, so a predicate is applied by searching the values of each of its ranges
+ * and combining the bitmaps of these values. The index file is laid out as:
+ * <pre>
+ * magic, version, key kind, row count, key count
+ * sorted keys
+ * bitmap offsets (key count + 2 ints, the bitmap after the last key holds the null rows)
+ * bitmaps (portable Roaring format)
+ * </pre>
+ * The bitmaps are never deserialized, they are read in place from the buffer of the index file,
+ * which can also be a memory mapped file, see {@link #load(ByteBuffer)}.
  * <p>
- * The soomsh file can support upto 2GB,
- * however, for Druid to operate well under heavy query load, it is important
- * for the segment file size to be within the recommended range of 300mb-700mb.
- * (https://druid.apache.org/docs/latest/design/segments.html)
- * If your segment files are larger than this range, then consider either
- * changing the granularity of the time interval or partitioning your data
- * and tweaking the targetPartitionSize in your partitionsSpec (a good
- * starting point for this parameter is 5 million rows).
+ * Row numbers of several columns can be combined without boxing with the Roaring operators
+ * ({@link ImmutableRoaringBitmap#and}, {@link ImmutableRoaringBitmap#or}) and {@link #not}.
  */
 public class BitMapIndex<T>
         implements Index<T>
 {
-    private static final Logger LOG = LoggerFactory.getLogger(BitMapIndex.class);
-
-    private static final String COLUMN_NAME = "column";
     private static final String ID = "BITMAP";
-    private static final Charset CHARSET = StandardCharsets.ISO_8859_1;
-    private static final char HEADER_TERMINATOR = '#';
-    private static final String HEADER_FILE_INFO_SEPARATOR = ",";
-    private static final String HEADER_FILE_INFO_PROPERTY_SEPARATOR = ":";
-    private static final String SETTINGS = " {\n" +
-            " \t\"bitmap\": {\n" +
-            " \t\t\"type\": \"roaring\"\n" +
-            " \t},\n" +
-            " \t\"dimensionCompression\": \"lz4\",\n" +
-            " \t\"metricCompression\": \"lz4\",\n" +
-            " \t\"longEncoding\": \"longs\"\n" +
-            " }";
-
-    private IndexSpec indexSpec;
-    private IncrementalIndex incrementalIndex;
-    private QueryableIndex queryIndex;
-    private IndexIO indexIo;
-    private IndexMergerV9 indexMergerV9;
-    private AtomicLong rows = new AtomicLong();
-
-    public BitMapIndex()
-            throws IOException
-    {
-        ObjectMapper jsonMapper = new DefaultObjectMapper();
-        InjectableValues.Std injectableValues = new InjectableValues.Std();
-        injectableValues.addValue(ExprMacroTable.class, ExprMacroTable.nil());
-        jsonMapper.setInjectableValues(injectableValues);
-
-        indexIo = new IndexIO(jsonMapper, () -> 0);
-        indexMergerV9 = new IndexMergerV9(jsonMapper, indexIo, OffHeapMemorySegmentWriteOutMediumFactory.instance());
-
-        /*initial incrementalIndex*/
-        initIncrementalIndex();
-
-        ObjectMapper objectMapper = new ObjectMapper();
-        indexSpec = objectMapper.readValue(SETTINGS, IndexSpec.class);
-    }
+    private static final int MAGIC = 0x48424d49;
+    private static final byte VERSION = 1;
+    // indexes written before version 1 are Druid segments, starting with a header listing the segment files
+    // with their sizes, e.g. "meta.smoosh:97,version.bin:4,00000.smoosh:3350#"
+    private static final Pattern LEGACY_HEADER = Pattern.compile("[^:,#]+:\\d+(,[^:,#]+:\\d+)*#");
+    private static final int LEGACY_HEADER_MAX_LENGTH = 4096;
+
+    private final List<T[]> addedValues = new ArrayList<>();
+    private int addedRowCount;
+
+    // loaded index
+    private KeyKind keyKind;
+    private int rowCount;
+    private int keyCount;
+    private long[] longKeys;
+    private double[] doubleKeys;
+    private Slice[] sliceKeys;
+    private int[] bitmapOffsets;
+    private ByteBuffer bitmaps;
 
     /**
-     * 1. get the type of the column
-     * 2. initialize dimensionSchemas
-     * 3. initialize the IncrementalIndex for this segment
-     * TODO: try to remove it while in the first time bitmap
-     * construction
+     * Representation of the distinct values, values of the column are converted to the most specific kind all of them fit
      */
-    private void initIncrementalIndex()
+    private enum KeyKind
     {
-        incrementalIndex = new IncrementalIndex.Builder()
-                .setIndexSchema(
-                        new IncrementalIndexSchema.Builder()
-                                .withTimestampSpec(new TimestampSpec("timestamp", "iso", null))
-                                .withQueryGranularity(Granularities.NONE)
-                                .withDimensionsSpec(new DimensionsSpec(Collections.singletonList(new StringDimensionSchema(COLUMN_NAME))))
-                                .withRollup(false)
-                                .build())
-                .setMaxRowCount(1000000000)
-                .buildOnheap();
-    }
+        LONG, DOUBLE, SLICE;
 
-    @Override
-    public <I> Iterator<I> getMatches(Object filter)
-    {
-        Map<Index, Object> self = new HashMap<>();
-        self.put(this, filter);
-
-        return getMatches(self);
-    }
-
-    // Multiple predicates only support AND operation
-    // operator support IN, Between……And, >=, >, <=, <, !=, Not IN
-    private List<DimFilter> predicateToFilter(Domain predicate)
-    {
-        List<String> in = new ArrayList<>();
-        List<DimFilter> orFilters = new ArrayList<>();
-        List<DimFilter> filterList = new ArrayList<>();
-        DimFilter newFilter;
-        String lower;
-        String upper;
-        Boolean lowerStrict;
-        Boolean upperStrict;
-        List<Range> ranges = ((SortedRangeSet) (predicate.getValues())).getOrderedRanges();
-        Class<?> javaType = predicate.getValues().getType().getJavaType();
-
-        StringComparator comparator = (javaType == long.class || javaType == double.class) ?
-                new StringComparators.AlphanumericComparator() :
-                new StringComparators.LexicographicComparator();
-
-        for (Range range : ranges) {
-            // unique value(for example: id=1, id in (1,2)), bound: EXACTLY
-            if (range.isSingleValue()) {
-                String dimensionValue;
-                dimensionValue = String.valueOf(getRangeValue(range.getSingleValue(), javaType));
-                in.add(dimensionValue);
+        static KeyKind of(Object value)
+        {
+            if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long
+                    || value instanceof Boolean || value instanceof Float) {
+                return LONG;
             }
-            // with upper/lower value, bound: ABOVE/BELOW
-            else {
-                lower = (range.getLow().getValueBlock().isPresent()) ?
-                        String.valueOf(getRangeValue(range.getLow().getValue(), javaType)) : null;
-                upper = (range.getHigh().getValueBlock().isPresent()) ?
-                        String.valueOf(getRangeValue(range.getHigh().getValue(), javaType)) : null;
-                lowerStrict = (lower != null) ? range.getLow().getBound() == Marker.Bound.ABOVE : null;
-                upperStrict = (upper != null) ? range.getHigh().getBound() == Marker.Bound.BELOW : null;
-
-                // dimension is not null(druid is not support int is not null, return all)
-                newFilter = (lower == null && upper == null) ?
-                        new NotDimFilter(new SelectorDimFilter(COLUMN_NAME, null, null)) :
-                        new BoundDimFilter(COLUMN_NAME, lower, upper, lowerStrict, upperStrict, null, null, comparator);
-
-                filterList.add(newFilter);
-                // NOT IN (3,4), there are three boundDimFilters ("id < 3", "3 < id < 4", "id > 4")
-                // != 3, three are two boundDimFilters ("id < 3", "id > 3")
-                if (newFilter instanceof BoundDimFilter) {
-                    orFilters.add(newFilter);
+            if (value instanceof Number) {
+                return DOUBLE;
+            }
+            if (value instanceof String) {
+                // numbers of columns read as text are compared as numbers, the same way as predicates on numeric columns
+                String string = (String) value;
+                try {
+                    Long.parseLong(string);
+                    return LONG;
+                }
+                catch (NumberFormatException e) {
+                    // not an integer
+                }
+                try {
+                    Double.parseDouble(string);
+                    return DOUBLE;
+                }
+                catch (NumberFormatException e) {
+                    // not a number
                 }
             }
+            return SLICE;
         }
-
-        // operate is IN / =
-        if (in.size() != 0) {
-            newFilter = new InDimFilter(COLUMN_NAME, in, null);
-            filterList.add(newFilter);
-        }
-
-        // NOT IN (3,4) become "id < 3" or "3 < id < 4" or "id > 4"
-        // != 3 become "id < 3" or "id > 3"
-        if (orFilters.size() > 1) {
-            filterList.removeAll(orFilters);
-            filterList.add(new OrDimFilter(orFilters));
-        }
-
-        // operate IS NULL (druid is not support int is null)
-        if (ranges.isEmpty() && javaType == Slice.class) {
-            newFilter = new SelectorDimFilter(COLUMN_NAME, null, null);
-            filterList.add(newFilter);
-        }
-
-        return filterList;
-    }
-
-    private String getRangeValue(Object object, Class<?> javaType)
-    {
-        return javaType == Slice.class ? ((Slice) object).toStringUtf8() : object.toString();
     }
 
     @Override
@@ -257,25 +145,15 @@ public class BitMapIndex<T>
     }
 
     /**
-     * input as one column values
+     * input as one column values, the position of a value over all the calls is its row number
      *
      * @param values values to add
      */
     @Override
     public void addValues(T[] values)
     {
-        for (int i = 0; i < values.length; i++) {
-            Map<String, Object> events = Maps.newLinkedHashMap();
-            events.put(COLUMN_NAME, values[i]);
-            MapBasedInputRow mapBasedInputRow = new MapBasedInputRow(rows.get(), Collections.singletonList(COLUMN_NAME), events);
-            try {
-                incrementalIndex.add(mapBasedInputRow);
-            }
-            catch (IndexSizeExceededException e) {
-                throw new RuntimeException(e);
-            }
-            rows.incrementAndGet();
-        }
+        addedValues.add(values);
+        addedRowCount = Math.addExact(addedRowCount, values.length);
     }
 
     /**
@@ -283,23 +161,16 @@ public class BitMapIndex<T>
      * of operation is being performed, therefore the operator parameter is not required.
      *
      * @param operator not required since value should be a Domain
-     * @return
+     * @return true if any row matches the Domain
      */
     @Override
     public boolean matches(Object value, Operator operator)
             throws IllegalArgumentException
     {
         if (!(value instanceof Domain)) {
-            throw new IllegalArgumentException(String.format("Value must be a Domain."));
-        }
-
-        Iterator iterator = getMatches(value);
-
-        if (iterator == null) {
-            throw new IllegalArgumentException(String.format("Operation not supported."));
+            throw new IllegalArgumentException("Value must be a Domain.");
         }
-
-        return iterator.hasNext();
+        return !getMatchingRows((Domain) value).isEmpty();
     }
 
     @Override
@@ -318,182 +189,596 @@ public class BitMapIndex<T>
     }
 
     @Override
-    public void persist(OutputStream out) throws IOException
+    public <I> Iterator<I> getMatches(Object filter)
     {
-        File tmpDir = new File(FileUtils.getTempDirectory(), "bitmapsIndexTmp_" + UUID.randomUUID());
-        try {
-            File indexOutDir = new File(tmpDir, "indexOutDir");
-            if (!indexOutDir.exists()) {
-                indexOutDir.mkdirs();
-            }
-            // write index files to directory
-            indexMergerV9.persist(incrementalIndex, indexOutDir, indexSpec, null);
+        return getMatches(Collections.<Index, Object>singletonMap(this, filter));
+    }
 
-            // convert the files in the directory into a single stream
-            combineDirIntoStream(out, indexOutDir);
+    /**
+     * Intersect the rows matching the predicates of several columns of the same stripe.
+     * The row numbers are returned in ascending order by a {@link PrimitiveIterator.OfInt}.
+     */
+    @Override
+    public <I> Iterator<I> getMatches(Map<Index, Object> indexToPredicate)
+    {
+        ImmutableRoaringBitmap matchingRows = null;
+        for (Map.Entry<Index, Object> entry : indexToPredicate.entrySet()) {
+            ImmutableRoaringBitmap rows = ((BitMapIndex<?>) entry.getKey()).getMatchingRows((Domain) entry.getValue());
+            matchingRows = matchingRows == null ? rows : ImmutableRoaringBitmap.and(matchingRows, rows);
         }
-        finally {
-            FileUtils.deleteDirectory(tmpDir);
+        if (matchingRows == null) {
+            return Collections.emptyIterator();
         }
+
+        IntIterator rows = matchingRows.getIntIterator();
+        return (Iterator<I>) new PrimitiveIterator.OfInt()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return rows.hasNext();
+            }
+
+            @Override
+            public int nextInt()
+            {
+                return rows.next();
+            }
+        };
     }
 
-    @Override
-    public void load(InputStream in) throws IOException
+    /**
+     * Get the rows of the stripe matching the predicate, the result is a superset of the matching rows
+     * for predicates the index can not evaluate exactly, e.g. ranges of a text predicate on numbers
+     *
+     * @param predicate predicate on the indexed column
+     * @return row numbers of the matching rows
+     */
+    public ImmutableRoaringBitmap getMatchingRows(Domain predicate)
     {
-        File tmpDir = new File(FileUtils.getTempDirectory(), "bitmapsIndexTmp_" + UUID.randomUUID());
-        try {
-            File indexExtractDir = new File(tmpDir, "indexExtractDir");
-            if (!indexExtractDir.exists()) {
-                indexExtractDir.mkdirs();
+        checkState(bitmaps != null, "index is not loaded");
+        if (predicate.isNone()) {
+            return new MutableRoaringBitmap();
+        }
+        if (predicate.isAll()) {
+            return allRows();
+        }
+
+        List<ImmutableRoaringBitmap> matchingBitmaps = new ArrayList<>();
+        if (predicate.isNullAllowed()) {
+            matchingBitmaps.add(getBitmap(keyCount));
+        }
+        ValueSet values = predicate.getValues();
+        if (values.isAll()) {
+            matchingBitmaps.add(not(getBitmap(keyCount)));
+        }
+        else if (!(values instanceof SortedRangeSet)) {
+            return allRows();
+        }
+        else {
+            for (Range range : values.getRanges().getOrderedRanges()) {
+                if (!addMatchingBitmaps(range, predicate.getType(), matchingBitmaps)) {
+                    return allRows();
+                }
             }
-            extractInputStreamToDir(in, indexExtractDir);
-            queryIndex = indexIo.loadIndex(indexExtractDir);
         }
-        finally {
-            FileUtils.deleteDirectory(tmpDir);
+        if (matchingBitmaps.size() == 1) {
+            return matchingBitmaps.get(0);
         }
+        return BufferFastAggregation.or(matchingBitmaps.iterator());
+    }
+
+    /**
+     * Get the rows of the stripe which are not part of the given rows
+     */
+    public MutableRoaringBitmap not(ImmutableRoaringBitmap rows)
+    {
+        return ImmutableRoaringBitmap.flip(rows, 0L, rowCount);
+    }
+
+    public int getRowCount()
+    {
+        return rowCount;
     }
 
+    /**
+     * Size of the keys and bitmaps of the loaded index, the bitmaps are counted even when they are mapped from a file
+     */
     @Override
-    public <I> Iterator<I> getMatches(Map<Index, Object> indexToPredicate)
+    public long getMemorySize()
     {
-        // indexToPredicate contains a mapping from BitMapIndex to predicates
-        // it will do an intersection on the results of applying the predicate using the
-        // corresponding index
-        // the map should also include this current object itself
-        // technically this is more like a utility method that should be static in the interface
-        // however, each index implementation may have a more efficient way of
-        // intersecting results, that's why each Index implementation will implement this method
-        Map<BitMapIndex, Domain> bitMapIndexDomainMap = indexToPredicate.entrySet().stream()
-                .collect(toMap(e -> (BitMapIndex) e.getKey(), e -> (Domain) e.getValue()));
-
-        ImmutableBitmap lastBm = null;
-        for (Map.Entry<BitMapIndex, Domain> entry : bitMapIndexDomainMap.entrySet()) {
-            BitMapIndex bitMapIndex = entry.getKey();
-            Domain predicate = entry.getValue();
-            List<DimFilter> dimFilters = bitMapIndex.predicateToFilter(predicate);
-
-            List<Filter> filters = dimFilters.stream()
-                    .map(filter -> filter.toFilter()).collect(toList());
-
-            ColumnSelectorBitmapIndexSelector bitmapIndexSelector = new ColumnSelectorBitmapIndexSelector(
-                    bitMapIndex.queryIndex.getBitmapFactoryForDimensions(),
-                    VirtualColumns.nullToEmpty(null),
-                    bitMapIndex.queryIndex);
-            BitmapResultFactory<?> bitmapResultFactory = new DefaultBitmapResultFactory(bitmapIndexSelector.getBitmapFactory());
-
-            if (filters.size() == 0) {
-                filters.add(new TrueFilter());
+        if (keyKind == null) {
+            // not loaded, the index is only being built
+            return Index.super.getMemorySize();
+        }
+        long size = sizeOf(longKeys) + sizeOf(doubleKeys) + sizeOf(sliceKeys) + sizeOf(bitmapOffsets) + bitmaps.capacity();
+        if (sliceKeys != null) {
+            for (Slice key : sliceKeys) {
+                size += key.getRetainedSize();
             }
+        }
+        return size;
+    }
 
-            ImmutableBitmap bm = AndFilter.getBitmapIndex(bitmapIndexSelector, bitmapResultFactory, filters);
+    private MutableRoaringBitmap allRows()
+    {
+        MutableRoaringBitmap allRows = new MutableRoaringBitmap();
+        allRows.add(0L, rowCount);
+        return allRows;
+    }
 
-            if (lastBm == null) {
-                lastBm = bm;
+    /**
+     * Add the bitmaps of the keys in the range
+     *
+     * @return false if the keys can not be compared with the values of the range
+     */
+    private boolean addMatchingBitmaps(Range range, Type type, List<ImmutableRoaringBitmap> matchingBitmaps)
+    {
+        Marker low = range.getLow();
+        Marker high = range.getHigh();
+        if (type.equals(RealType.REAL) && keyKind == KeyKind.LONG) {
+            // real values are indexed by their bits: the positive values are sorted in ascending order after the negative values,
+            // which are sorted in descending order
+            IntPredicate belowLow = low.isLowerUnbounded() ? i -> false : below(floatComparator(low.getValue()), low.getBound() == Marker.Bound.EXACTLY);
+            IntPredicate aboveHigh = high.isUpperUnbounded() ? i -> false : above(floatComparator(high.getValue()), high.getBound() == Marker.Bound.EXACTLY);
+            int firstPositive = lowerBound(0, keyCount, i -> longKeys[i] < 0);
+            addKeyRange(0, firstPositive, true, belowLow, aboveHigh, matchingBitmaps);
+            addKeyRange(firstPositive, keyCount, false, belowLow, aboveHigh, matchingBitmaps);
+            return true;
+        }
+
+        IntUnaryOperator lowComparator = null;
+        IntUnaryOperator highComparator = null;
+        if (!low.isLowerUnbounded()) {
+            lowComparator = keyComparator(low.getValue(), type, range.isSingleValue());
+            if (lowComparator == null) {
+                return false;
             }
-            else {
-                lastBm = lastBm.intersection(bm);
+        }
+        if (!high.isUpperUnbounded()) {
+            highComparator = range.isSingleValue() ? lowComparator : keyComparator(high.getValue(), type, false);
+            if (highComparator == null) {
+                return false;
             }
         }
+        IntPredicate belowLow = lowComparator == null ? i -> false : below(lowComparator, low.getBound() == Marker.Bound.EXACTLY);
+        IntPredicate aboveHigh = highComparator == null ? i -> false : above(highComparator, high.getBound() == Marker.Bound.EXACTLY);
+        addKeyRange(0, keyCount, false, belowLow, aboveHigh, matchingBitmaps);
+        return true;
+    }
 
-        if (lastBm == null) {
-            return Collections.emptyIterator();
+    private void addKeyRange(int from, int to, boolean descending, IntPredicate belowLow, IntPredicate aboveHigh, List<ImmutableRoaringBitmap> matchingBitmaps)
+    {
+        int start;
+        int end;
+        if (descending) {
+            start = lowerBound(from, to, aboveHigh);
+            end = lowerBound(start, to, belowLow.negate());
         }
+        else {
+            start = lowerBound(from, to, belowLow);
+            end = lowerBound(start, to, aboveHigh.negate());
+        }
+        for (int i = start; i < end; i++) {
+            matchingBitmaps.add(getBitmap(i));
+        }
+    }
 
-        IntIterator intIterator = lastBm.iterator();
+    private static IntPredicate below(IntUnaryOperator comparator, boolean inclusive)
+    {
+        return inclusive ? i -> comparator.applyAsInt(i) < 0 : i -> comparator.applyAsInt(i) <= 0;
+    }
 
-        return (Iterator<I>) new Iterator<Integer>()
-        {
-            @Override
-            public boolean hasNext()
-            {
-                return intIterator.hasNext();
-            }
+    private static IntPredicate above(IntUnaryOperator comparator, boolean inclusive)
+    {
+        return inclusive ? i -> comparator.applyAsInt(i) > 0 : i -> comparator.applyAsInt(i) >= 0;
+    }
 
-            @Override
-            public Integer next()
-            {
-                return intIterator.next();
+    /**
+     * Get the first index in [from, to) for which the predicate is false, the predicate must be true for a prefix of the range
+     */
+    private static int lowerBound(int from, int to, IntPredicate predicate)
+    {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (predicate.test(middle)) {
+                low = middle + 1;
             }
-        };
+            else {
+                high = middle;
+            }
+        }
+        return low;
     }
 
     /**
-     * Reads the files from the provided dir and writes them to the output stream
+     * Create a function comparing the key at an index with the value
      *
-     * A header is added at the start to provide file info
-     *
-     * file1Name:file1Length,file2Name:file2Length#
-     * file1Content
-     * file2Content
-     * @param outputStream
-     * @param dir
-     * @throws IOException
+     * @return null if the keys can not be compared with the value
      */
-    private void combineDirIntoStream(OutputStream outputStream, File dir) throws IOException
+    private IntUnaryOperator keyComparator(Object value, Type type, boolean singleValue)
     {
-        File[] files = dir.listFiles();
+        if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            BigDecimal decimal = value instanceof Slice ?
+                    new BigDecimal(Decimals.decodeUnscaledValue((Slice) value), decimalType.getScale()) :
+                    BigDecimal.valueOf((long) value, decimalType.getScale());
+            return doubleComparator(decimal.doubleValue());
+        }
+        if (type.equals(RealType.REAL)) {
+            return doubleComparator(intBitsToFloat((int) (long) value));
+        }
+        if (value instanceof Slice) {
+            if (keyKind == KeyKind.SLICE) {
+                Slice slice = (Slice) value;
+                return i -> sliceKeys[i].compareTo(slice);
+            }
+            if (!singleValue) {
+                // text ordering is not the numeric ordering of the keys
+                return null;
+            }
+            try {
+                return doubleComparator(Double.parseDouble(((Slice) value).toStringUtf8()));
+            }
+            catch (NumberFormatException e) {
+                // all keys are numbers, so no key is equal to the value
+                return i -> 1;
+            }
+        }
+        if (value instanceof Boolean) {
+            return keyKind == KeyKind.LONG ? longComparator((Boolean) value ? 1 : 0) : null;
+        }
+        if (value instanceof Long) {
+            return keyKind == KeyKind.LONG ? longComparator((long) value) : doubleComparator((long) value);
+        }
+        if (value instanceof Double) {
+            return doubleComparator((double) value);
+        }
+        return null;
+    }
 
-        // first create the header line
-        // this will contain the names and sizes for all the files being written to the stream
-        StringBuilder header = new StringBuilder();
-        for (int i = 0; i < files.length; i++) {
-            File file = files[i];
-            header.append(file.getName())
-                    .append(HEADER_FILE_INFO_PROPERTY_SEPARATOR)
-                    .append(file.length());
-
-            if (i + 1 < files.length) {
-                header.append(HEADER_FILE_INFO_SEPARATOR);
+    private IntUnaryOperator longComparator(long value)
+    {
+        return i -> Long.compare(longKeys[i], value);
+    }
+
+    private IntUnaryOperator doubleComparator(double value)
+    {
+        switch (keyKind) {
+            case LONG:
+                return i -> compareDouble(longKeys[i], value);
+            case DOUBLE:
+                return i -> compareDouble(doubleKeys[i], value);
+            default:
+                return null;
+        }
+    }
+
+    private IntUnaryOperator floatComparator(Object value)
+    {
+        float bound = intBitsToFloat((int) (long) value);
+        return i -> compareDouble(intBitsToFloat((int) longKeys[i]), bound);
+    }
+
+    /**
+     * Compare with the SQL semantics for zeros, NaN is sorted after all other values
+     */
+    private static int compareDouble(double key, double value)
+    {
+        if (key < value) {
+            return -1;
+        }
+        if (key > value) {
+            return 1;
+        }
+        if (key == value) {
+            return 0;
+        }
+        return Double.isNaN(key) ? 1 : -1;
+    }
+
+    private ImmutableRoaringBitmap getBitmap(int index)
+    {
+        ByteBuffer bitmap = bitmaps.duplicate();
+        bitmap.position(bitmapOffsets[index]);
+        bitmap.limit(bitmapOffsets[index + 1]);
+        return new ImmutableRoaringBitmap(bitmap.slice());
+    }
+
+    @Override
+    public void persist(OutputStream out)
+            throws IOException
+    {
+        KeyKind kind = KeyKind.LONG;
+        for (T[] values : addedValues) {
+            for (T value : values) {
+                if (value != null) {
+                    KeyKind valueKind = KeyKind.of(value);
+                    if (valueKind.compareTo(kind) > 0) {
+                        kind = valueKind;
+                    }
+                }
+            }
+        }
+
+        // key index of each row, -1 for null values
+        int[] rowKeys = new int[addedRowCount];
+        DataOutputStream output = new DataOutputStream(out);
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeByte(kind.ordinal());
+        output.writeInt(addedRowCount);
+        int distinctKeyCount;
+        switch (kind) {
+            case LONG:
+                distinctKeyCount = writeLongKeys(output, rowKeys);
+                break;
+            case DOUBLE:
+                distinctKeyCount = writeDoubleKeys(output, rowKeys);
+                break;
+            default:
+                distinctKeyCount = writeSliceKeys(output, rowKeys);
+                break;
+        }
+        writeBitmaps(output, rowKeys, distinctKeyCount);
+        output.flush();
+    }
+
+    private int writeLongKeys(DataOutputStream output, int[] rowKeys)
+            throws IOException
+    {
+        long[] values = new long[addedRowCount];
+        int valueCount = 0;
+        for (T[] rows : addedValues) {
+            for (T value : rows) {
+                if (value != null) {
+                    values[valueCount++] = toLong(value);
+                }
+            }
+        }
+        long[] keys = Arrays.copyOf(values, valueCount);
+        Arrays.sort(keys);
+        int distinctKeyCount = distinct(keys.length, (i, j) -> keys[i] == keys[j], (i, j) -> keys[i] = keys[j]);
+
+        output.writeInt(distinctKeyCount);
+        for (int i = 0; i < distinctKeyCount; i++) {
+            output.writeLong(keys[i]);
+        }
+        int row = 0;
+        for (T[] rows : addedValues) {
+            for (T value : rows) {
+                rowKeys[row++] = value == null ? -1 : Arrays.binarySearch(keys, 0, distinctKeyCount, toLong(value));
             }
         }
-        header.append(HEADER_TERMINATOR);
+        return distinctKeyCount;
+    }
 
-        // write the header then all the file contents in order
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, CHARSET))) {
-            writer.write(header.toString());
+    private int writeDoubleKeys(DataOutputStream output, int[] rowKeys)
+            throws IOException
+    {
+        double[] values = new double[addedRowCount];
+        int valueCount = 0;
+        for (T[] rows : addedValues) {
+            for (T value : rows) {
+                if (value != null) {
+                    values[valueCount++] = toDouble(value);
+                }
+            }
+        }
+        double[] keys = Arrays.copyOf(values, valueCount);
+        Arrays.sort(keys);
+        int distinctKeyCount = distinct(keys.length, (i, j) -> Double.compare(keys[i], keys[j]) == 0, (i, j) -> keys[i] = keys[j]);
 
-            for (File f : files) {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(f), CHARSET))) {
-                    IOUtils.copy(reader, writer);
+        output.writeInt(distinctKeyCount);
+        for (int i = 0; i < distinctKeyCount; i++) {
+            output.writeDouble(keys[i]);
+        }
+        int row = 0;
+        for (T[] rows : addedValues) {
+            for (T value : rows) {
+                rowKeys[row++] = value == null ? -1 : Arrays.binarySearch(keys, 0, distinctKeyCount, toDouble(value));
+            }
+        }
+        return distinctKeyCount;
+    }
+
+    private int writeSliceKeys(DataOutputStream output, int[] rowKeys)
+            throws IOException
+    {
+        Slice[] values = new Slice[addedRowCount];
+        int valueCount = 0;
+        for (T[] rows : addedValues) {
+            for (T value : rows) {
+                if (value != null) {
+                    values[valueCount++] = toSlice(value);
                 }
             }
         }
+        Slice[] keys = Arrays.copyOf(values, valueCount);
+        Arrays.sort(keys);
+        int distinctKeyCount = distinct(keys.length, (i, j) -> keys[i].equals(keys[j]), (i, j) -> keys[i] = keys[j]);
+
+        output.writeInt(distinctKeyCount);
+        for (int i = 0; i < distinctKeyCount; i++) {
+            output.writeInt(keys[i].length());
+            output.write(keys[i].getBytes());
+        }
+        int row = 0;
+        for (T[] rows : addedValues) {
+            for (T value : rows) {
+                rowKeys[row++] = value == null ? -1 : Arrays.binarySearch(keys, 0, distinctKeyCount, toSlice(value));
+            }
+        }
+        return distinctKeyCount;
+    }
+
+    private interface IndexPairPredicate
+    {
+        boolean test(int left, int right);
+    }
+
+    private interface IndexPairConsumer
+    {
+        void accept(int target, int source);
     }
 
     /**
-     * Corresponding method to combineDirIntoStream()
+     * Move the distinct keys of a sorted array to its start
      *
-     * Extracts the files from the stream and write them to the output dir
-     * @param inputStream
-     * @param outputDir
-     * @throws IOException
+     * @return number of distinct keys
      */
-    private void extractInputStreamToDir(InputStream inputStream, File outputDir)
+    private static int distinct(int length, IndexPairPredicate equal, IndexPairConsumer move)
+    {
+        int distinctCount = 0;
+        for (int i = 0; i < length; i++) {
+            if (distinctCount == 0 || !equal.test(distinctCount - 1, i)) {
+                move.accept(distinctCount++, i);
+            }
+        }
+        return distinctCount;
+    }
+
+    /**
+     * Write the bitmap of every key followed by the bitmap of the null rows. The rows are grouped by key first,
+     * so only one bitmap is built at a time even for columns with many distinct values.
+     */
+    private void writeBitmaps(DataOutputStream output, int[] rowKeys, int distinctKeyCount)
             throws IOException
     {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, CHARSET));
+        int nullKey = distinctKeyCount;
+        int[] keyRowStarts = new int[distinctKeyCount + 2];
+        for (int rowKey : rowKeys) {
+            keyRowStarts[(rowKey < 0 ? nullKey : rowKey) + 1]++;
+        }
+        for (int i = 1; i < keyRowStarts.length; i++) {
+            keyRowStarts[i] += keyRowStarts[i - 1];
+        }
+        int[] rowsByKey = new int[rowKeys.length];
+        int[] nextPositions = Arrays.copyOf(keyRowStarts, keyRowStarts.length - 1);
+        for (int row = 0; row < rowKeys.length; row++) {
+            rowsByKey[nextPositions[rowKeys[row] < 0 ? nullKey : rowKeys[row]]++] = row;
+        }
 
-        // read the header
-        StringBuilder header = new StringBuilder();
-        int c = reader.read();
-        while (c != -1 && (char) c != HEADER_TERMINATOR) {
-            header.append((char) c);
-            c = reader.read();
-        }
-
-        // read each file from the stream and write it out
-        String[] fileInfos = header.toString().split(HEADER_FILE_INFO_SEPARATOR);
-        for (int i = 0; i < fileInfos.length; i++) {
-            String[] properties = fileInfos[i].split(HEADER_FILE_INFO_PROPERTY_SEPARATOR);
-            int len = Integer.parseInt(properties[1]);
-            File file = new File(outputDir, properties[0]);
-
-            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CHARSET))) {
-                for (int j = 0; j < len; j++) {
-                    writer.write(reader.read());
+        int[] offsets = new int[distinctKeyCount + 2];
+        ByteArrayOutputStream bitmapsOutput = new ByteArrayOutputStream();
+        DataOutputStream bitmapsDataOutput = new DataOutputStream(bitmapsOutput);
+        for (int key = 0; key <= nullKey; key++) {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            for (int i = keyRowStarts[key]; i < keyRowStarts[key + 1]; i++) {
+                bitmap.add(rowsByKey[i]);
+            }
+            bitmap.runOptimize();
+            bitmap.serialize(bitmapsDataOutput);
+            offsets[key + 1] = bitmapsDataOutput.size();
+        }
+
+        for (int offset : offsets) {
+            output.writeInt(offset);
+        }
+        bitmapsOutput.writeTo(output);
+    }
+
+    private static long toLong(Object value)
+    {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value instanceof Float) {
+            // same representation as the values of real predicates
+            return Float.floatToRawIntBits((Float) value);
+        }
+        if (value instanceof String) {
+            return Long.parseLong((String) value);
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static double toDouble(Object value)
+    {
+        if (value instanceof String) {
+            return Double.parseDouble((String) value);
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    private static Slice toSlice(Object value)
+    {
+        if (value instanceof Slice) {
+            return (Slice) value;
+        }
+        return utf8Slice(String.valueOf(value));
+    }
+
+    @Override
+    public void load(InputStream in)
+            throws IOException
+    {
+        load(ByteBuffer.wrap(ByteStreams.toByteArray(in)));
+    }
+
+    /**
+     * Load the index from a buffer holding a persisted index, e.g. a memory mapped index file.
+     * The bitmaps are read in place, the buffer must not be modified afterwards.
+     *
+     * @param buffer buffer positioned at the start of the index
+     * @throws IOException if the buffer does not hold a bitmap index
+     */
+    @Override
+    public void load(ByteBuffer buffer)
+            throws IOException
+    {
+        ByteBuffer input = buffer.slice();
+        if (input.remaining() < 14 || input.getInt(0) != MAGIC) {
+            if (isLegacyFormat(input)) {
+                throw new UnsupportedIndexFormatException("Bitmap index in the legacy Druid format, it must be recreated");
+            }
+            throw new IOException("Invalid bitmap index");
+        }
+        input.getInt();
+        if (input.get() != VERSION) {
+            throw new IOException("Invalid bitmap index");
+        }
+        keyKind = KeyKind.values()[input.get()];
+        rowCount = input.getInt();
+        keyCount = input.getInt();
+        switch (keyKind) {
+            case LONG:
+                longKeys = new long[keyCount];
+                input.asLongBuffer().get(longKeys);
+                input.position(input.position() + keyCount * Long.BYTES);
+                break;
+            case DOUBLE:
+                doubleKeys = new double[keyCount];
+                input.asDoubleBuffer().get(doubleKeys);
+                input.position(input.position() + keyCount * Double.BYTES);
+                break;
+            default:
+                sliceKeys = new Slice[keyCount];
+                for (int i = 0; i < keyCount; i++) {
+                    byte[] bytes = new byte[input.getInt()];
+                    input.get(bytes);
+                    sliceKeys[i] = wrappedBuffer(bytes);
                 }
+                break;
+        }
+        bitmapOffsets = new int[keyCount + 2];
+        input.asIntBuffer().get(bitmapOffsets);
+        input.position(input.position() + bitmapOffsets.length * Integer.BYTES);
+        bitmaps = input.slice();
+    }
+
+    private static boolean isLegacyFormat(ByteBuffer input)
+    {
+        StringBuilder header = new StringBuilder();
+        while (input.hasRemaining() && header.length() < LEGACY_HEADER_MAX_LENGTH) {
+            char c = (char) (input.get() & 0xFF);
+            header.append(c);
+            if (c == '#') {
+                return LEGACY_HEADER.matcher(header).matches();
             }
         }
+        return false;
     }
 }
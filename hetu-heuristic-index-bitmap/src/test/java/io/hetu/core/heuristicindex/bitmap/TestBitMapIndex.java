@@ -14,25 +14,34 @@
  */
 package io.hetu.core.heuristicindex.bitmap;
 
+import io.hetu.core.spi.heuristicindex.Index;
+import io.hetu.core.spi.heuristicindex.UnsupportedIndexFormatException;
 import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.ValueSet;
+import io.prestosql.spi.type.BigintType;
 import io.prestosql.spi.type.CharType;
 import io.prestosql.spi.type.IntegerType;
 import io.prestosql.spi.type.RealType;
 import io.prestosql.spi.type.Type;
 import org.apache.commons.io.FileUtils;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Random;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -42,8 +51,11 @@ import static io.prestosql.spi.predicate.Range.equal;
 import static io.prestosql.spi.predicate.Range.greaterThan;
 import static io.prestosql.spi.predicate.Range.greaterThanOrEqual;
 import static io.prestosql.spi.predicate.Range.lessThan;
+import static io.prestosql.spi.predicate.Range.range;
 import static io.prestosql.spi.type.VarcharType.createUnboundedVarcharType;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 public class TestBitMapIndex
@@ -286,4 +298,78 @@ public class TestBitMapIndex
         assertEquals(grtOrEqResultSet.size(), 6);
         assertTrue(grtOrEqResultSet.containsAll(Arrays.asList(0, 3, 4, 6, 8, 11)));
     }
+
+    @Test
+    public void testMultipleColumns()
+            throws IOException
+    {
+        BitMapIndex<Long> idIndex = new BitMapIndex<>();
+        idIndex.addValues(new Long[] {1L, 2L, 3L, 4L, 5L, 6L});
+        BitMapIndex<String> nameIndex = new BitMapIndex<>();
+        nameIndex.addValues(new String[] {"a", "b", null, "a", "b", "a"});
+
+        File tmp = File.createTempFile(getClass().getSimpleName(), "multipleColumns");
+        tmp.deleteOnExit();
+        try (OutputStream outputStream = new FileOutputStream(tmp)) {
+            idIndex.persist(outputStream);
+        }
+        // the bitmaps are read in place from the mapped file
+        try (RandomAccessFile file = new RandomAccessFile(tmp, "r")) {
+            idIndex.load(file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()));
+        }
+        try (OutputStream outputStream = new FileOutputStream(tmp)) {
+            nameIndex.persist(outputStream);
+        }
+        nameIndex.load(new FileInputStream(tmp));
+
+        Domain idPredicate = Domain.create(ValueSet.ofRanges(range(BigintType.BIGINT, 2L, true, 5L, false)), false);
+        Domain namePredicate = Domain.create(ValueSet.ofRanges(equal(createUnboundedVarcharType(), utf8Slice("a"))), true);
+        Map<Index, Object> indexToPredicate = new HashMap<>();
+        indexToPredicate.put(idIndex, idPredicate);
+        indexToPredicate.put(nameIndex, namePredicate);
+
+        Iterator<Integer> res = idIndex.getMatches(indexToPredicate);
+        assertTrue(res instanceof PrimitiveIterator.OfInt);
+        PrimitiveIterator.OfInt rows = (PrimitiveIterator.OfInt) res;
+        assertEquals(rows.nextInt(), 2);
+        assertEquals(rows.nextInt(), 3);
+        assertFalse(rows.hasNext());
+
+        ImmutableRoaringBitmap either = ImmutableRoaringBitmap.or(idIndex.getMatchingRows(idPredicate), nameIndex.getMatchingRows(namePredicate));
+        assertEquals(either.toArray(), new int[] {0, 1, 2, 3, 5});
+        assertEquals(nameIndex.not(either).toArray(), new int[] {4});
+        assertEquals(nameIndex.getMatchingRows(Domain.notNull(createUnboundedVarcharType())).getCardinality(), 5);
+        assertEquals(nameIndex.getMatchingRows(Domain.onlyNull(createUnboundedVarcharType())).toArray(), new int[] {2});
+    }
+
+    @Test(expectedExceptions = UnsupportedIndexFormatException.class)
+    public void testLoadLegacyFormat()
+            throws IOException
+    {
+        // header of an index written as a Druid segment, followed by the segment files
+        byte[] legacyIndex = "meta.smoosh:3,version.bin:4#abc\0\0\0\t".getBytes(ISO_8859_1);
+        new BitMapIndex<String>().load(ByteBuffer.wrap(legacyIndex));
+    }
+
+    @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "Invalid bitmap index")
+    public void testLoadInvalid()
+            throws IOException
+    {
+        new BitMapIndex<String>().load(ByteBuffer.wrap("not a bitmap index".getBytes(ISO_8859_1)));
+    }
+
+    @Test
+    public void testMemorySize()
+            throws IOException
+    {
+        BitMapIndex<String> index = new BitMapIndex<>();
+        index.addValues(new String[] {"a", "bc", null, "a", "def"});
+        ByteArrayOutputStream persisted = new ByteArrayOutputStream();
+        index.persist(persisted);
+
+        BitMapIndex<String> loaded = new BitMapIndex<>();
+        loaded.load(ByteBuffer.wrap(persisted.toByteArray()));
+        assertTrue(loaded.getMemorySize() > 0);
+        assertTrue(loaded.getMemorySize() < persisted.size() + 1024);
+    }
 }
@@ -57,20 +57,25 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -308,9 +313,46 @@ public class HdfsOrcDataSource
         return result.build();
     }
 
+    /**
+     * The values of each stripe are collected and passed to the callback at once
+     */
     @Override
     public void readSplits(String database, String table, String[] columns, String[] partitions, Callback callback)
             throws IOException
+    {
+        Map<String, List<Object>> splitValues = new ConcurrentHashMap<>();
+        readSplits(database, table, columns, partitions, (uri, lastModified) -> true, new SplitCallback()
+        {
+            @Override
+            public void addValues(String column, Object[] values, String uri, long splitStart, long lastModified)
+            {
+                splitValues.computeIfAbsent(column + "#" + uri + "#" + splitStart, key -> new ArrayList<>())
+                        .addAll(Arrays.asList(values));
+            }
+
+            @Override
+            public void splitRead(String column, String uri, long splitStart, long lastModified)
+            {
+                List<Object> values = splitValues.remove(column + "#" + uri + "#" + splitStart);
+                callback.call(column, values == null ? new Object[0] : values.toArray(new Object[0]), uri, splitStart, lastModified);
+            }
+        });
+    }
+
+    /**
+     * <pre>
+     * Reads the stripes of the files accepted by the fileFilter in parallel, one task per stripe,
+     * using up to {@link #getConcurrency()} threads.
+     *
+     * The values of each page read from a stripe are passed to the callback as soon as the page is read,
+     * and the callback is notified once all the stripes of a file have been read, or once they have all
+     * been attempted if some of them could not be read.
+     * </pre>
+     */
+    @Override
+    public void readSplits(String database, String table, String[] columns, String[] partitions, FileFilter fileFilter,
+            SplitCallback callback)
+            throws IOException
     {
         requireNonNull(columns, "no columns specified");
 
@@ -339,35 +381,66 @@ public class HdfsOrcDataSource
         Path tablePath = new Path(tableLocation);
         boolean isTransactional = AcidUtils.isTransactionalTable(tableMetadata.getTable().getParameters());
         boolean isFullAcid = AcidUtils.isFullAcidTable(tableMetadata.getTable().getParameters());
-        List<FileStatus> files = HadoopUtil.getFiles(getFs(), tablePath, partitions, isTransactional);
-        // schedule reading of each file
-        ExecutorService executorServices = new ThreadPoolExecutor(getConcurrency(), getConcurrency(), 0L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(10240));
+        List<FileStatus> files = HadoopUtil.getFiles(getFs(), tablePath, partitions, isTransactional).stream()
+                .filter(file -> fileFilter.accept(file.getPath().toString(), file.getModificationTime()))
+                .collect(Collectors.toList());
+        // the tasks of the stripes are only submitted once the stripes of all the files are known,
+        // so the queue is not bounded
+        ExecutorService executorServices = new ThreadPoolExecutor(getConcurrency(), getConcurrency(), 0L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
         try {
-            List<Future> jobs = files.parallelStream().map(file -> executorServices.submit(() -> {
-                        String path = file.getPath().toString();
-                        long lastModified = file.getModificationTime();
+            // read the stripes of each file
+            Map<FileStatus, Future<List<StripeInformation>>> fileStripes = new LinkedHashMap<>();
+            for (FileStatus file : files) {
+                fileStripes.put(file, executorServices.submit(() -> {
+                    String path = file.getPath().toString();
+                    try (OrcDataSource source = openFile(file)) {
+                        return createOrcReader(source).getFooter().getStripes().stream()
+                                .sorted(comparingLong(StripeInformation::getOffset))
+                                .collect(Collectors.toList());
+                    }
+                    catch (Exception e) {
+                        LOG.error(String.format(ENGLISH, "Error reading file: %s. Skipping.", path), e);
+                        return Collections.<StripeInformation>emptyList();
+                    }
+                }));
+            }
 
-                        FSDataInputStream in;
-                        try {
-                            in = getFs().open(new Path(path));
+            // schedule reading of each stripe
+            List<Future> jobs = new ArrayList<>();
+            for (Map.Entry<FileStatus, Future<List<StripeInformation>>> entry : fileStripes.entrySet()) {
+                FileStatus file = entry.getKey();
+                List<StripeInformation> stripes = entry.getValue().get();
+                String path = file.getPath().toString();
+                long lastModified = file.getModificationTime();
+                AtomicInteger remainingStripes = new AtomicInteger(stripes.size());
+                AtomicBoolean failed = new AtomicBoolean();
+
+                for (StripeInformation stripe : stripes) {
+                    jobs.add(executorServices.submit(() -> {
+                        try (OrcDataSource source = openFile(file)) {
+                            readStripe(createOrcReader(source), stripe, path, isFullAcid, columnTypes, columnNames, lastModified, callback);
                         }
                         catch (Exception e) {
-                            LOG.error(String.format(ENGLISH, "Unable to open file: %s. Skipping.", path), e);
-                            return;
+                            failed.set(true);
+                            LOG.error(String.format(ENGLISH, "Error reading stripe at %s of file: %s. Skipping.", stripe.getOffset(), path), e);
                         }
 
-                        // HdfsOrcDataSource will close the inputstream
-                        try (OrcDataSource source = new io.prestosql.plugin.hive.orc.HdfsOrcDataSource(
-                                new OrcDataSourceId(path), file.getLen(),
-                                new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE),
-                                true, in, new FileFormatDataSourceStats())) {
-                            readOrcFile(source, path, isFullAcid, columnTypes, columnNames, lastModified, callback);
-                        }
-                        catch (Exception e) {
-                            LOG.error(String.format(ENGLISH, "Error reading file: %s. Skipping.", path), e);
+                        if (remainingStripes.decrementAndGet() == 0) {
+                            try {
+                                if (failed.get()) {
+                                    callback.fileFailed(path);
+                                }
+                                else {
+                                    callback.fileRead(path, lastModified);
+                                }
+                            }
+                            catch (Exception e) {
+                                LOG.error(String.format(ENGLISH, "Error completing file: %s.", path), e);
+                            }
                         }
-                    }
-            )).collect(Collectors.toList());
+                    }));
+                }
+            }
 
             for (Future jobFuture : jobs) {
                 jobFuture.get();
@@ -381,24 +454,41 @@ public class HdfsOrcDataSource
         }
     }
 
-    protected void readOrcFile(
-            OrcDataSource source,
+    private OrcDataSource openFile(FileStatus file)
+            throws IOException
+    {
+        String path = file.getPath().toString();
+        FSDataInputStream in = getFs().open(new Path(path));
+
+        // HdfsOrcDataSource will close the inputstream
+        return new io.prestosql.plugin.hive.orc.HdfsOrcDataSource(
+                new OrcDataSourceId(path), file.getLen(),
+                new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE),
+                true, in, new FileFormatDataSourceStats());
+    }
+
+    private static OrcReader createOrcReader(OrcDataSource source)
+            throws IOException
+    {
+        return new OrcReader(source, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE),
+                new DataSize(1, MEGABYTE));
+    }
+
+    /**
+     * Read a stripe page by page, the values of the index columns are passed to the callback for each page
+     * so that the values of the whole stripe are never materialized
+     */
+    protected void readStripe(
+            OrcReader orcReader,
+            StripeInformation stripeInfo,
             String path,
             boolean isFullAcid,
             Map<Integer, Type> columnTypes,
             Map<Integer, String> columnNames,
             long lastModified,
-            Callback callback)
+            SplitCallback callback)
             throws IOException
     {
-        OrcReader orcReader = new OrcReader(source, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE),
-                new DataSize(1, MEGABYTE));
-
-        Map<Integer, List<Object>> data = columnTypes.keySet().stream()
-                .collect(Collectors.toMap(
-                        Function.identity(),
-                        key -> new LinkedList<>()));
-
         List<OrcColumn> fileColumns = orcReader.getRootColumn().getNestedColumns();
         List<OrcColumn> fileReadColumns = isFullAcid ? new ArrayList<>(columnNames.size() + 3) : new ArrayList<>(columnNames.size());
         List<Type> fileReadTypes = isFullAcid ? new ArrayList<>(columnNames.size() + 3) : new ArrayList<>(columnNames.size());
@@ -427,22 +517,19 @@ public class HdfsOrcDataSource
             columnIdxMap.put(fileColumns.get(index), index);
         }
 
-        List<StripeInformation> stripes = orcReader.getFooter().getStripes().stream()
-                .sorted(comparingLong(StripeInformation::getOffset))
-                .collect(Collectors.toList());
-        for (StripeInformation stripeInfo : stripes) {
-            int rowCounter = 0;
-            // Read the next stripe
-            OrcRecordReader reader = orcReader.createRecordReader(
-                    fileReadColumns,
-                    fileReadTypes,
-                    OrcPredicate.TRUE,
-                    stripeInfo.getOffset(),
-                    stripeInfo.getDataLength(),
-                    DateTimeZone.UTC,
-                    newSimpleAggregatedMemoryContext(),
-                    INITIAL_BATCH_SIZE,
-                    RuntimeException::new);
+        int rowCounter = 0;
+        // Read the stripe
+        OrcRecordReader reader = orcReader.createRecordReader(
+                fileReadColumns,
+                fileReadTypes,
+                OrcPredicate.TRUE,
+                stripeInfo.getOffset(),
+                stripeInfo.getDataLength(),
+                DateTimeZone.UTC,
+                newSimpleAggregatedMemoryContext(),
+                INITIAL_BATCH_SIZE,
+                RuntimeException::new);
+        try {
             Page page;
             while ((page = reader.nextPage()) != null) {
                 page = page.getLoadedPage();
@@ -456,30 +543,27 @@ public class HdfsOrcDataSource
                     Block block = page.getBlock(pos);
                     int columnIdx = columnIdxMap.get(fileReadColumns.get(pos));
                     Type type = columnTypes.get(columnIdx);
-                    for (int position = 0; position < block.getPositionCount(); ++position) {
-                        data.get(columnIdx).add(
-                                getNativeValue(type, block, position));
+                    Object[] values = new Object[block.getPositionCount()];
+                    for (int position = 0; position < values.length; ++position) {
+                        values[position] = getNativeValue(type, block, position);
                     }
+                    callback.addValues(columnNames.get(columnIdx), values, path, stripeInfo.getOffset(), lastModified);
                 }
             }
+        }
+        finally {
+            reader.close();
+        }
 
-            // finished reading current stripe
-            if (rowCounter != stripeInfo.getNumberOfRows()) {
-                throw new RuntimeException(String.format("Read rows %s did not match expected stripe rows %s",
-                        rowCounter, stripeInfo.getNumberOfRows()));
-            }
+        // finished reading current stripe
+        if (rowCounter != stripeInfo.getNumberOfRows()) {
+            throw new RuntimeException(String.format("Read rows %s did not match expected stripe rows %s",
+                    rowCounter, stripeInfo.getNumberOfRows()));
+        }
 
-            // call callback method for current stripe
-            for (Map.Entry<Integer, String> entry : columnNames.entrySet()) {
-                List<Object> columnValues = data.get(entry.getKey());
-                callback.call(
-                        entry.getValue(),
-                        columnValues.toArray(new Object[0]),
-                        path,
-                        stripeInfo.getOffset(),
-                        lastModified);
-                columnValues.clear();
-            }
+        // call callback method for current stripe
+        for (String columnName : columnNames.values()) {
+            callback.splitRead(columnName, path, stripeInfo.getOffset(), lastModified);
         }
     }
 
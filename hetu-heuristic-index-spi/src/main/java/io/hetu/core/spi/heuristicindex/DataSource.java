@@ -64,6 +64,40 @@ public interface DataSource
     void readSplits(String schema, String table, String[] columns, String[] partitions, Callback callback)
             throws IOException;
 
+    /**
+     * <pre>
+     * Reads the column values for the specified table like
+     * {@link #readSplits(String, String, String[], String[], Callback)}, but only
+     * reads the files accepted by the fileFilter and passes the values of each split
+     * to the callback in batches, so that the values of a whole split never need
+     * to be held in memory at once.
+     *
+     * The default implementation reads every split with the Callback and filters
+     * the files afterwards. DataSources should override it to skip the files
+     * before reading them.
+     * </pre>
+     *
+     * @param schema     schema of the table
+     * @param table      table to read
+     * @param columns    columns to read
+     * @param partitions only read the specified partitions, set to null to read all
+     *                   partitions
+     * @param fileFilter decides which files are read
+     * @param callback   called with each batch of values read
+     * @throws IOException When reading split from filesystem failed (ie, hetu does not have permission, etc)
+     */
+    default void readSplits(String schema, String table, String[] columns, String[] partitions, FileFilter fileFilter,
+            SplitCallback callback)
+            throws IOException
+    {
+        readSplits(schema, table, columns, partitions, (column, values, uri, splitStart, lastModified) -> {
+            if (fileFilter.accept(uri, lastModified)) {
+                callback.addValues(column, values, uri, splitStart, lastModified);
+                callback.splitRead(column, uri, splitStart, lastModified);
+            }
+        });
+    }
+
     /**
      * <pre>
      * These properties may be used as configs for the DataSource to connect
@@ -114,4 +148,56 @@ public interface DataSource
          */
         void call(String column, Object[] values, String uri, long splitStart, long lastModified);
     }
+
+    /**
+     * Used by the DataSource to decide which files need to be read.
+     */
+    interface FileFilter
+    {
+        /**
+         * @param uri          uri of the file or source
+         * @param lastModified last modified time of the file
+         * @return true if the file must be read
+         */
+        boolean accept(String uri, long lastModified);
+    }
+
+    /**
+     * Used by the DataSource to stream the values of the splits.
+     * The batches of a split are passed in order by a single thread,
+     * different splits may be read in parallel.
+     */
+    interface SplitCallback
+    {
+        /**
+         * Called with each batch of values read from a split
+         *
+         * @param column     column that was read
+         * @param values     batch of values of the column
+         * @param uri        uri of the file or source that was read
+         * @param splitStart the split offset
+         * @param lastModified last modified time of the file
+         */
+        void addValues(String column, Object[] values, String uri, long splitStart, long lastModified);
+
+        /**
+         * Called once all the values of a column of a split have been passed to {@link #addValues}
+         */
+        void splitRead(String column, String uri, long splitStart, long lastModified);
+
+        /**
+         * Called once all the splits of a file have been read, if the DataSource reads the splits file by file
+         */
+        default void fileRead(String uri, long lastModified)
+        {
+        }
+
+        /**
+         * Called once all the splits of a file have been attempted, if the DataSource reads the splits file by file
+         * and some of them could not be read. The values already passed for the file must be discarded.
+         */
+        default void fileFailed(String uri)
+        {
+        }
+    }
 }
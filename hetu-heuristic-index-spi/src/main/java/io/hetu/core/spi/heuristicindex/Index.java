@@ -15,9 +15,12 @@
 
 package io.hetu.core.spi.heuristicindex;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
@@ -89,6 +92,9 @@ public interface Index<T>
      * have a filter applied on it.
      * <p>
      * The Index objects provided should all be the same type.
+     * <p>
+     * Indexes on row numbers return the rows in ascending order, preferably as a
+     * {@link java.util.PrimitiveIterator.OfInt} so the rows can be read without boxing.
      *
      * @param indexToPredicate list of indexes and their predicates
      * @param <I>              type of list to return
@@ -133,6 +139,55 @@ public interface Index<T>
      */
     void load(InputStream in) throws IOException;
 
+    /**
+     * Load the index from the remaining bytes of the buffer, e.g. a slice of a memory mapped index file.
+     * <p>
+     * By default the bytes are copied and read with {@link #load(InputStream)}, implementations able to
+     * read the index in place should override it, in which case the buffer must not be modified afterwards.
+     *
+     * @param buffer buffer positioned at the start of the index
+     * @throws IOException if the buffer does not hold a valid index
+     */
+    default void load(ByteBuffer buffer) throws IOException
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        load(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Approximate number of bytes held by the loaded index, used to bound index caches by memory.
+     * <p>
+     * By default this is the size of the persisted index, implementations should override it
+     * when the size is known without serializing the index.
+     *
+     * @return size of the index in bytes
+     */
+    default long getMemorySize()
+    {
+        long[] size = new long[1];
+        try {
+            persist(new OutputStream()
+            {
+                @Override
+                public void write(int b)
+                {
+                    size[0]++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len)
+                {
+                    size[0] += len;
+                }
+            });
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return size[0];
+    }
+
     /**
      * <pre>
      * Returns the properties of the Index.
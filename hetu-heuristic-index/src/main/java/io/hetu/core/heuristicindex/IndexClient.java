@@ -21,6 +21,7 @@ import io.hetu.core.spi.heuristicindex.Index;
 import io.hetu.core.spi.heuristicindex.IndexStore;
 import io.hetu.core.spi.heuristicindex.SplitIndexMetadata;
 import io.hetu.core.spi.heuristicindex.SplitMetadata;
+import io.hetu.core.spi.heuristicindex.UnsupportedIndexFormatException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -205,19 +206,16 @@ public class IndexClient
                 }
             }
 
-            Index index = indexTypesMap.get(indexType);
+            Index index = newIndex(indexType);
             if (index != null) {
-                try {
-                    Constructor<? extends Index> constructor = index.getClass().getConstructor();
-                    index = constructor.newInstance();
-                }
-                catch (InstantiationException | IllegalAccessException | InvocationTargetException
-                        | NoSuchMethodException e) {
-                    throw new IOException(e);
-                }
                 try (InputStream is = indexStore.read(child)) {
                     index.load(is);
                 }
+                catch (UnsupportedIndexFormatException e) {
+                    // the split is read without this index until the index is recreated
+                    LOG.warn("Skipping index {}: {}", child, e.getMessage());
+                    continue;
+                }
                 LOG.debug("Loaded {} index from {}.", index.getId(), child);
                 result.put(child, index);
             }
@@ -228,6 +226,29 @@ public class IndexClient
         return resultMap;
     }
 
+    /**
+     * Creates an empty index of the given type, ready to be loaded
+     *
+     * @param indexType id of the index type, case insensitive
+     * @return new index instance, null if the index type is not supported
+     * @throws IOException if the index cannot be instantiated
+     */
+    public Index newIndex(String indexType) throws IOException
+    {
+        Index index = indexTypesMap.get(indexType.toLowerCase(Locale.ENGLISH));
+        if (index == null) {
+            return null;
+        }
+        try {
+            Constructor<? extends Index> constructor = index.getClass().getConstructor();
+            return constructor.newInstance();
+        }
+        catch (InstantiationException | IllegalAccessException | InvocationTargetException
+                | NoSuchMethodException e) {
+            throw new IOException(e);
+        }
+    }
+
     /**
      * Searches the path for lastModified file and returns the value as a long.
      * The filename is expected to be in the form: lastModified=123456.
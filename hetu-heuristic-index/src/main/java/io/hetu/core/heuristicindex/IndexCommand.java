@@ -57,6 +57,7 @@ import static java.util.Objects.requireNonNull;
                 "$ ./index -v ---disableLocking c ../etc --table hive.schema.table --column column1,column2 --type bloom,minmax,bitmap --partition p=part1 create\n\n" +
                 "One machine 2:\n" +
                 "$ ./index -v --disableLocking -c ../etc --table hive.schema.table --column column1,column2 --type bloom,minmax,bitmap --partition p=part2 create\n\n" +
+                "To only index the files added or modified since the index was last created, set the --incremental flag.\n\n" +
                 "Examples:\n\n" +
                 "1) Create index\n\n" +
                     "$ ./index -v -c ../etc --table hive.schema.table --column column1,column2 --type bloom,minmax,bitmap --partition p=part1 create\n\n" +
@@ -133,6 +134,12 @@ public class IndexCommand
                     "or partitions in parallel is allowed)")
     boolean disableLocking;
 
+    @CommandLine.Option(
+            names = {"-i", "--incremental"},
+            description = "only create index for the files modified since their index was created, the index of " +
+                    "the other files is kept")
+    boolean incremental; // disabled by default
+
     @CommandLine.Option(
             names = {"-d", "--debug"},
             description = "if debug is enabled the original data for each split will also be written to a file " +
@@ -179,7 +186,7 @@ public class IndexCommand
                     requireNonNull(indexTypes, "No index type specified for create command");
                     requireNonNull(columns, "No columns specified for create command");
                     IndexWriter writer = factory.getIndexWriter(table, configDirPath);
-                    writer.createIndex(table, columns, partitions, indexTypes, !disableLocking, debugEnabled);
+                    writer.createIndex(table, columns, partitions, indexTypes, !disableLocking, debugEnabled, incremental);
                     break;
                 case delete:
                     IndexClient deleteClient = factory.getIndexClient(configDirPath);
@@ -40,6 +40,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Objects.requireNonNull;
 
@@ -53,6 +54,7 @@ public class IndexWriter
     private static final Logger LOG = LoggerFactory.getLogger(IndexWriter.class);
 
     private static final String PART_FILE_SUFFIX = ".part";
+    private static final String EXPIRED_FILE_SUFFIX = ".expired";
 
     /**
      * Used for getting the database name from an array of ['catalog', 'schema', 'table']
@@ -88,6 +90,17 @@ public class IndexWriter
         createIndex(table, columns, partitions, indexTypes, true, false);
     }
 
+    /**
+     * Creates the index for the specified columns, all the files are indexed again.
+     *
+     * @see #createIndex(String, String[], String[], String[], boolean, boolean, boolean)
+     */
+    public void createIndex(String table, String[] columns, String[] partitions, String[] indexTypes, boolean lockingEnabled, boolean debugEnabled)
+            throws IOException
+    {
+        createIndex(table, columns, partitions, indexTypes, lockingEnabled, debugEnabled, false);
+    }
+
     /**
      * <pre>
      * Creates the index for the specified columns. Filters on partitions if specified.
@@ -116,6 +129,12 @@ public class IndexWriter
      * index file = 20190904_221627_00003_ygvh9_1e9b8c7c-cbe8-4ff2-a1d5-73e3fecd1138#0.bloom
      *
      * the index file is of type bloom and the splt has a start of 0
+     *
+     * The values of each split are added to the indexes batch by batch as the DataSource
+     * reads them. The indexes of a source file are moved from the part dir to the index dir
+     * as soon as the file has been read, so an interrupted run keeps the indexes of the files
+     * already read. In incremental mode, the source files whose indexes of all the requested
+     * types were created for their current lastModifiedTime are not read again.
      * </pre>
      *
      * @param table          fully qualified table name
@@ -124,24 +143,24 @@ public class IndexWriter
      * @param indexTypes     type of the index to be created (its string ID returned from {@link Index#getId()})
      * @param lockingEnabled if enabled, the table will be locked and multiple callers can't create index for the table in parallel
      * @param debugEnabled   writes the raw split data to a file alongside the index file
+     * @param incremental    only index the source files modified since their indexes were created
      * @throws IOException thrown during index creation
      */
-    public void createIndex(String table, String[] columns, String[] partitions, String[] indexTypes, boolean lockingEnabled, boolean debugEnabled)
+    public void createIndex(String table, String[] columns, String[] partitions, String[] indexTypes, boolean lockingEnabled,
+            boolean debugEnabled, boolean incremental)
             throws IOException
     {
         requireNonNull(table, "no table specified");
         requireNonNull(columns, "no columns specified");
         requireNonNull(indexTypes, "no index types specified");
 
-        LOG.info("Creating index for: table={} columns={} partitions={}", table, Arrays.toString(columns),
-                partitions == null ? "all" : Arrays.toString(partitions));
+        LOG.info("Creating index for: table={} columns={} partitions={} incremental={}", table, Arrays.toString(columns),
+                partitions == null ? "all" : Arrays.toString(partitions), incremental);
 
         String[] parts = IndexServiceUtils.getTableParts(table);
         String databaseName = parts[DATABASE_NAME_INDEX];
         String tableName = parts[TABLE_NAME_INDEX];
 
-        Set<String> indexedColumns = ConcurrentHashMap.newKeySet();
-
         // the index files will first be stored in partFiles so that a file is
         // not modified while it is being read
         Set<String> partFiles = ConcurrentHashMap.newKeySet();
@@ -168,165 +187,62 @@ public class IndexWriter
             lockFile.lock();
         }
 
-        // Each datasource will read the specified table's column and will use the callback when a split has been read.
-        // The datasource will determine what a split is, for example for ORC, the datasource may read the file
-        // and create a split for stripe
-        // The callback will also provide the values read from the split, these values will then be added to the index.
+        // Each datasource will read the specified table's column and will use the callback for each batch of values
+        // read from a split. The datasource will determine what a split is, for example for ORC, the datasource may
+        // read the file and create a split for stripe
+        // The values of each batch are added to the indexes of the split, which are written once the split has been read.
         // The datasource will also return the lastModified date of the split that was read
         try {
-            dataSource.readSplits(databaseName, tableName, columns, partitions,
-                    (column, values, uri, splitStart, lastModified) -> {
-                        LOG.debug("split read: column={}; uri={}; splitOffset={}", column, uri, splitStart);
-
-                        if (values == null) {
-                            LOG.debug("values were null, skipping column={}; uri={}; splitOffset={}", column, uri, splitStart);
-                            return;
-                        }
-
-                        String columnIndexDirPath = Paths.get(tableIndexDirPath, column).toString();
-                        indexedColumns.add(column);
-
-                        // save the indexes in a.part dir first, it will be moved later
-                        URI uriObj = URI.create(uri);
-                        String uriIndexDirPath = Paths.get(
-                                columnIndexDirPath, uriObj.getPath()).toString();
-                        partFiles.add(uriIndexDirPath); // store the path without the part suffix
-                        uriIndexDirPath += PART_FILE_SUFFIX; // append the part suffix
-
-                        String indexFileNamePrefix = Paths.get(uri).getFileName() + "#" + splitStart + ".";
-
-                        // write the source last modified time
-                        String lastModifiedFileName = ConstantHelper.LAST_MODIFIED_FILE_PREFIX + lastModified;
-                        String lastModifiedFilePath = Paths.get(uriIndexDirPath, lastModifiedFileName).toString();
-                        try (OutputStream outputStream = indexStore.getOutputStream(lastModifiedFilePath, true)) {
-                            outputStream.write(0);
-                        }
-                        catch (IOException e) {
-                            LOG.error(String.format(Locale.ENGLISH,
-                                    "error writing lastModified file: %s", lastModifiedFilePath), e);
-                            throw new UncheckedIOException("error writing lastModified file: " + lastModifiedFilePath, e);
-                        }
-
-                        // write index files
-                        for (String indexType : indexTypes) {
-                            // the indexTypesMap contains all the supported index types
-                            // the instances in the map are the "base" instances bc they have their properties set
-                            // we need to create a new Index instance for each split and copy the properties the base has
-                            Index indexTypeBaseObj = indexTypesMap.get(indexType);
-                            if (indexTypeBaseObj == null) {
-                                String msg = String.format(Locale.ENGLISH, "Index type %s not supported.", indexType);
-                                LOG.error(msg);
-                                throw new IllegalArgumentException(msg);
-                            }
-
-                            Index splitIndex;
-                            try {
-                                Constructor<? extends Index> constructor = indexTypeBaseObj.getClass().getConstructor();
-                                splitIndex = constructor.newInstance();
-                                splitIndex.setProperties(indexTypeBaseObj.getProperties());
-                                LOG.debug("creating split index: {}", splitIndex.getId());
-                            }
-                            catch (InstantiationException
-                                    | IllegalAccessException
-                                    | NoSuchMethodException
-                                    | InvocationTargetException e) {
-                                LOG.error("unable to create instance of index: ", e);
-                                throw new IllegalStateException("unable to create instance of index: " + indexType, e);
-                            }
-
-                            String indexFileName = indexFileNamePrefix + splitIndex.getId().toLowerCase(Locale.ENGLISH);
-                            String indexFilePath = Paths.get(uriIndexDirPath, indexFileName).toString();
-
-                            splitIndex.addValues(values);
-
-                            LOG.debug("writing split index to: {}", indexFilePath);
-                            try (OutputStream outputStream = indexStore.getOutputStream(indexFilePath, true)) {
-                                splitIndex.persist(outputStream);
-                            }
-                            catch (IOException e) {
-                                LOG.error(String.format(Locale.ENGLISH,
-                                        "error writing index file: %s", indexFilePath), e);
-                                throw new UncheckedIOException("error writing index file: " + indexFilePath, e);
-                            }
-
-                            if (debugEnabled) {
-                                String dataFileName = indexFileNamePrefix + "data";
-                                String dataFilePath = Paths.get(uriIndexDirPath, dataFileName).toString();
-                                LOG.debug("writing split data to: {}", dataFilePath);
-                                try (OutputStream outputStream = indexStore.getOutputStream(dataFilePath, true)) {
-                                    for (int i = 0; i < values.length; i++) {
-                                        outputStream.write(values[i] == null ? "NULL".getBytes() : values[i].toString().getBytes());
-                                        outputStream.write('\n');
-                                    }
-                                }
-                                catch (IOException e) {
-                                    LOG.error(String.format(Locale.ENGLISH,
-                                            "error writing data file: %s", dataFilePath), e);
-                                    throw new UncheckedIOException("error writing data file: " + dataFilePath, e);
-                                }
-                            }
-                        }
-                    });
-
-            if (partFiles.isEmpty()) {
-                String msg = "No index was created. Table may be empty.";
-                LOG.error(msg);
-                throw new IllegalStateException(msg);
+            for (String indexType : indexTypes) {
+                if (!indexTypesMap.containsKey(indexType.toLowerCase(Locale.ENGLISH))) {
+                    String msg = String.format(Locale.ENGLISH, "Index type %s not supported.", indexType);
+                    LOG.error(msg);
+                    throw new IllegalArgumentException(msg);
+                }
             }
 
-            // move all part dirs
-            // originalDir will be something like: /tmp/indicies/catalog.schema.table/UT_test_column/UT_test
-            // partDir will be something like: /tmp/indicies/catalog.schema.table/UT_test_column/UT_test.part
-            // 1. if original does not exist, simply rename part dir
-            // i.e. /tmp/indicies/catalog.schema.table/UT_test_column/UT_test.part -> /tmp/indicies/catalog.schema.table/UT_test_column/UT_test
-            // 2. if original exists but has a different lastModifiedTime, delete original and replace it
-            // this is because if the original dir's lastModifiedTime is different, the indexes in the dir are no long valid
-            // 3. if original exists and has same lastModifiedTime, merge the two dirs
-            // i.e. move the files from /tmp/indicies/catalog.schema.table/UT_test_column/UT_test.part to
-            // /tmp/indicies/catalog.schema.table/UT_test_column/UT_test
-            for (String originalDir : partFiles) {
-                String partDir = originalDir + PART_FILE_SUFFIX;
+            AtomicInteger skippedFiles = new AtomicInteger();
+            DataSource.FileFilter fileFilter = (uri, lastModified) -> {
+                if (incremental && isIndexed(tableIndexDirPath, columns, indexTypes, uri, lastModified)) {
+                    LOG.debug("index is up to date, skipping uri={}", uri);
+                    skippedFiles.incrementAndGet();
+                    return false;
+                }
+                return true;
+            };
+            IndexingCallback callback = new IndexingCallback(tableIndexDirPath, indexTypes, partFiles, debugEnabled);
+            dataSource.readSplits(databaseName, tableName, columns, partitions, fileFilter, callback);
 
-                if (!indexStore.exists(partDir)) {
-                    continue;
+            // the indexes of the files not reported as read by the datasource are moved now,
+            // the indexes of the files reported as failed are left to be deleted
+            for (String originalDir : partFiles) {
+                if (!callback.isFailed(originalDir)) {
+                    commitPartDir(originalDir);
                 }
+            }
 
-                // 1. no original
-                if (!indexStore.exists(originalDir)) {
-                    indexStore.renameTo(partDir, originalDir);
+            if (callback.getIndexedFiles().isEmpty()) {
+                if (!callback.getFailedFiles().isEmpty()) {
+                    String msg = String.format(Locale.ENGLISH, "No index was created. %d files could not be read.", callback.getFailedFiles().size());
+                    LOG.error(msg);
+                    throw new IllegalStateException(msg);
                 }
-                else {
-                    long previousLastModifiedTime = getLastModifiedTime(originalDir);
-                    long newLastModifiedTime = getLastModifiedTime(partDir);
-
-                    // 2. expired original
-                    if (previousLastModifiedTime != newLastModifiedTime) {
-                        if (indexStore.exists(originalDir)) {
-                            LOG.debug("Removing expired index at {}.", originalDir);
-                            indexStore.delete(originalDir);
-                        }
-                        indexStore.renameTo(partDir, originalDir);
-                    }
-                    else {
-                        // 3. merge
-                        for (String childPath : indexStore.listChildren(partDir, false)) {
-                            String childName = Paths.get(childPath).getFileName().toString();
-                            String newPath = Paths.get(originalDir, childName).toString();
-                            LOG.debug("Moving {} to {}.", childPath, newPath);
-                            indexStore.renameTo(childPath, newPath);
-                        }
-
-                        // should be empty now
-                        indexStore.delete(partDir);
-                    }
+                if (skippedFiles.get() == 0) {
+                    String msg = "No index was created. Table may be empty.";
+                    LOG.error(msg);
+                    throw new IllegalStateException(msg);
                 }
-
-                LOG.debug("Created index at {}.", originalDir);
+                LOG.info("Index is up to date, {} files skipped.", skippedFiles.get());
+                return;
             }
 
-            for (String indexedColumn : indexedColumns) {
+            for (String indexedColumn : callback.getIndexedColumns()) {
                 LOG.info("Created index for column {}.", indexedColumn);
             }
+            LOG.info("Indexed {} files, {} files skipped.", callback.getIndexedFiles().size(), skippedFiles.get());
+            if (!callback.getFailedFiles().isEmpty()) {
+                LOG.warn("{} files could not be read and were not indexed: {}", callback.getFailedFiles().size(), callback.getFailedFiles());
+            }
         }
         finally {
             cleanPartFiles(partFiles);
@@ -337,6 +253,129 @@ public class IndexWriter
         }
     }
 
+    /**
+     * Check whether the indexes of all the requested types of a source file were created for its current lastModifiedTime
+     */
+    private boolean isIndexed(String tableIndexDirPath, String[] columns, String[] indexTypes, String uri, long lastModified)
+    {
+        try {
+            for (String column : columns) {
+                // datasources may report the column names in lowercase
+                String uriIndexDirPath = Paths.get(tableIndexDirPath, column, URI.create(uri).getPath()).toString();
+                if (!indexStore.exists(uriIndexDirPath)) {
+                    uriIndexDirPath = Paths.get(tableIndexDirPath, column.toLowerCase(Locale.ENGLISH), URI.create(uri).getPath()).toString();
+                }
+                if (!indexStore.exists(uriIndexDirPath) || getLastModifiedTime(uriIndexDirPath) != lastModified) {
+                    return false;
+                }
+
+                Collection<String> children = indexStore.listChildren(uriIndexDirPath, false);
+                for (String indexType : indexTypes) {
+                    String suffix = "." + indexType.toLowerCase(Locale.ENGLISH);
+                    if (children.stream().noneMatch(child -> child.toLowerCase(Locale.ENGLISH).endsWith(suffix))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.debug("unable to check the index of uri={}, it will be indexed again", uri, e);
+            return false;
+        }
+    }
+
+    /**
+     * <pre>
+     * move a part dir
+     * originalDir will be something like: /tmp/indicies/catalog.schema.table/UT_test_column/UT_test
+     * partDir will be something like: /tmp/indicies/catalog.schema.table/UT_test_column/UT_test.part
+     * 1. if original does not exist, simply rename part dir
+     * i.e. /tmp/indicies/catalog.schema.table/UT_test_column/UT_test.part -> /tmp/indicies/catalog.schema.table/UT_test_column/UT_test
+     * 2. if original exists but has a different lastModifiedTime, replace it and delete it
+     * this is because if the original dir's lastModifiedTime is different, the indexes in the dir are no long valid
+     * the original dir is renamed aside first, so it is restored if the part dir can't be renamed
+     * 3. if original exists and has same lastModifiedTime, merge the two dirs
+     * i.e. move the files from /tmp/indicies/catalog.schema.table/UT_test_column/UT_test.part to
+     * /tmp/indicies/catalog.schema.table/UT_test_column/UT_test
+     * </pre>
+     */
+    private void commitPartDir(String originalDir)
+            throws IOException
+    {
+        String partDir = originalDir + PART_FILE_SUFFIX;
+
+        if (!indexStore.exists(partDir)) {
+            return;
+        }
+
+        // 1. no original
+        if (!indexStore.exists(originalDir)) {
+            indexStore.renameTo(partDir, originalDir);
+        }
+        else {
+            long previousLastModifiedTime = getLastModifiedTime(originalDir);
+            long newLastModifiedTime = getLastModifiedTime(partDir);
+
+            // 2. expired original
+            if (previousLastModifiedTime != newLastModifiedTime) {
+                String expiredDir = originalDir + EXPIRED_FILE_SUFFIX;
+                if (indexStore.exists(expiredDir)) {
+                    indexStore.delete(expiredDir);
+                }
+                if (!indexStore.renameTo(originalDir, expiredDir)) {
+                    throw new IOException("unable to move the expired index dir: " + originalDir);
+                }
+                if (!indexStore.renameTo(partDir, originalDir)) {
+                    indexStore.renameTo(expiredDir, originalDir);
+                    throw new IOException("unable to move the index dir: " + partDir);
+                }
+                LOG.debug("Removing expired index at {}.", originalDir);
+                indexStore.delete(expiredDir);
+            }
+            else {
+                // 3. merge
+                for (String childPath : indexStore.listChildren(partDir, false)) {
+                    String childName = Paths.get(childPath).getFileName().toString();
+                    String newPath = Paths.get(originalDir, childName).toString();
+                    LOG.debug("Moving {} to {}.", childPath, newPath);
+                    // not all index stores replace an existing file on rename
+                    if (indexStore.exists(newPath)) {
+                        indexStore.delete(newPath);
+                    }
+                    indexStore.renameTo(childPath, newPath);
+                }
+
+                // should be empty now
+                indexStore.delete(partDir);
+            }
+        }
+
+        LOG.debug("Created index at {}.", originalDir);
+    }
+
+    private Index newIndex(String indexType)
+    {
+        // the indexTypesMap contains all the supported index types
+        // the instances in the map are the "base" instances bc they have their properties set
+        // we need to create a new Index instance for each split and copy the properties the base has
+        Index indexTypeBaseObj = indexTypesMap.get(indexType.toLowerCase(Locale.ENGLISH));
+        try {
+            Constructor<? extends Index> constructor = indexTypeBaseObj.getClass().getConstructor();
+            Index splitIndex = constructor.newInstance();
+            splitIndex.setProperties(indexTypeBaseObj.getProperties());
+            LOG.debug("creating split index: {}", splitIndex.getId());
+            return splitIndex;
+        }
+        catch (InstantiationException
+                | IllegalAccessException
+                | NoSuchMethodException
+                | InvocationTargetException e) {
+            LOG.error("unable to create instance of index: ", e);
+            throw new IllegalStateException("unable to create instance of index: " + indexType, e);
+        }
+    }
+
     private void cleanPartFiles(Collection<String> partFiles)
     {
         if (!isCleanedUp) {
@@ -382,4 +421,276 @@ public class IndexWriter
 
         return 0;
     }
+
+    /**
+     * Adds the values read by the datasource to the indexes of each split, writes the indexes of a split
+     * to its part dir once the split has been read, and moves the part dirs of a file once the file has been read
+     */
+    private class IndexingCallback
+            implements DataSource.SplitCallback
+    {
+        private final String tableIndexDirPath;
+        private final String[] indexTypes;
+        private final Set<String> partFiles;
+        private final boolean debugEnabled;
+
+        private final Map<String, SplitIndexes> splits = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> fileIndexDirs = new ConcurrentHashMap<>();
+        private final Set<String> indexedColumns = ConcurrentHashMap.newKeySet();
+        private final Set<String> indexedFiles = ConcurrentHashMap.newKeySet();
+        private final Set<String> failedFiles = ConcurrentHashMap.newKeySet();
+        private final Set<String> failedDirs = ConcurrentHashMap.newKeySet();
+
+        IndexingCallback(String tableIndexDirPath, String[] indexTypes, Set<String> partFiles, boolean debugEnabled)
+        {
+            this.tableIndexDirPath = tableIndexDirPath;
+            this.indexTypes = indexTypes;
+            this.partFiles = partFiles;
+            this.debugEnabled = debugEnabled;
+        }
+
+        Set<String> getIndexedColumns()
+        {
+            return indexedColumns;
+        }
+
+        Set<String> getIndexedFiles()
+        {
+            return indexedFiles;
+        }
+
+        Set<String> getFailedFiles()
+        {
+            return failedFiles;
+        }
+
+        boolean isFailed(String originalDir)
+        {
+            return failedDirs.contains(originalDir);
+        }
+
+        @Override
+        public void addValues(String column, Object[] values, String uri, long splitStart, long lastModified)
+        {
+            if (values == null) {
+                LOG.debug("values were null, skipping column={}; uri={}; splitOffset={}", column, uri, splitStart);
+                return;
+            }
+
+            SplitIndexes split = splits.computeIfAbsent(getSplitKey(column, uri, splitStart),
+                    key -> createSplitIndexes(column, uri, splitStart, lastModified));
+            split.addValues(values);
+        }
+
+        @Override
+        public void splitRead(String column, String uri, long splitStart, long lastModified)
+        {
+            LOG.debug("split read: column={}; uri={}; splitOffset={}", column, uri, splitStart);
+
+            SplitIndexes split = splits.remove(getSplitKey(column, uri, splitStart));
+            if (split != null) {
+                split.write();
+            }
+        }
+
+        @Override
+        public void fileRead(String uri, long lastModified)
+        {
+            Set<String> originalDirs = fileIndexDirs.remove(uri);
+            if (originalDirs == null) {
+                return;
+            }
+
+            for (String originalDir : originalDirs) {
+                try {
+                    commitPartDir(originalDir);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException("error moving index dir: " + originalDir, e);
+                }
+                partFiles.remove(originalDir);
+            }
+        }
+
+        @Override
+        public void fileFailed(String uri)
+        {
+            LOG.warn("Unable to read all the splits of uri={}, its indexes will not be created", uri);
+            failedFiles.add(uri);
+            indexedFiles.remove(uri);
+
+            // the splits of the file that were not completely read
+            splits.values().removeIf(split -> {
+                if (split.getUri().equals(uri)) {
+                    split.discard();
+                    return true;
+                }
+                return false;
+            });
+
+            Set<String> originalDirs = fileIndexDirs.remove(uri);
+            if (originalDirs == null) {
+                return;
+            }
+
+            // the part dirs that can't be deleted now are deleted with the other part files in the end
+            for (String originalDir : originalDirs) {
+                failedDirs.add(originalDir);
+                String partDir = originalDir + PART_FILE_SUFFIX;
+                try {
+                    if (!indexStore.exists(partDir) || indexStore.delete(partDir)) {
+                        partFiles.remove(originalDir);
+                    }
+                }
+                catch (IOException e) {
+                    LOG.debug("unable to delete part dir: {}", partDir, e);
+                }
+            }
+        }
+
+        private SplitIndexes createSplitIndexes(String column, String uri, long splitStart, long lastModified)
+        {
+            String columnIndexDirPath = Paths.get(tableIndexDirPath, column).toString();
+            indexedColumns.add(column);
+            indexedFiles.add(uri);
+
+            // save the indexes in a.part dir first, it will be moved later
+            URI uriObj = URI.create(uri);
+            String originalDirPath = Paths.get(columnIndexDirPath, uriObj.getPath()).toString();
+            partFiles.add(originalDirPath); // store the path without the part suffix
+            fileIndexDirs.computeIfAbsent(uri, key -> ConcurrentHashMap.newKeySet()).add(originalDirPath);
+            String uriIndexDirPath = originalDirPath + PART_FILE_SUFFIX; // append the part suffix
+
+            // write the source last modified time
+            String lastModifiedFileName = ConstantHelper.LAST_MODIFIED_FILE_PREFIX + lastModified;
+            String lastModifiedFilePath = Paths.get(uriIndexDirPath, lastModifiedFileName).toString();
+            try (OutputStream outputStream = indexStore.getOutputStream(lastModifiedFilePath, true)) {
+                outputStream.write(0);
+            }
+            catch (IOException e) {
+                LOG.error(String.format(Locale.ENGLISH,
+                        "error writing lastModified file: %s", lastModifiedFilePath), e);
+                throw new UncheckedIOException("error writing lastModified file: " + lastModifiedFilePath, e);
+            }
+
+            String indexFileNamePrefix = Paths.get(uri).getFileName() + "#" + splitStart + ".";
+            Index[] indexes = new Index[indexTypes.length];
+            for (int i = 0; i < indexTypes.length; i++) {
+                indexes[i] = newIndex(indexTypes[i]);
+            }
+            return new SplitIndexes(uri, uriIndexDirPath, indexFileNamePrefix, indexes, debugEnabled);
+        }
+
+        private String getSplitKey(String column, String uri, long splitStart)
+        {
+            return column + "#" + uri + "#" + splitStart;
+        }
+    }
+
+    /**
+     * Indexes of a split being read
+     */
+    private class SplitIndexes
+    {
+        private final String uri;
+        private final String uriIndexDirPath;
+        private final String indexFileNamePrefix;
+        private final Index[] indexes;
+        private final OutputStream debugOutputStream;
+
+        SplitIndexes(String uri, String uriIndexDirPath, String indexFileNamePrefix, Index[] indexes, boolean debugEnabled)
+        {
+            this.uri = uri;
+            this.uriIndexDirPath = uriIndexDirPath;
+            this.indexFileNamePrefix = indexFileNamePrefix;
+            this.indexes = indexes;
+
+            if (debugEnabled) {
+                String dataFilePath = Paths.get(uriIndexDirPath, indexFileNamePrefix + "data").toString();
+                LOG.debug("writing split data to: {}", dataFilePath);
+                try {
+                    debugOutputStream = indexStore.getOutputStream(dataFilePath, true);
+                }
+                catch (IOException e) {
+                    LOG.error(String.format(Locale.ENGLISH,
+                            "error writing data file: %s", dataFilePath), e);
+                    throw new UncheckedIOException("error writing data file: " + dataFilePath, e);
+                }
+            }
+            else {
+                debugOutputStream = null;
+            }
+        }
+
+        String getUri()
+        {
+            return uri;
+        }
+
+        synchronized void addValues(Object[] values)
+        {
+            for (Index index : indexes) {
+                index.addValues(values);
+            }
+
+            if (debugOutputStream != null) {
+                try {
+                    for (int i = 0; i < values.length; i++) {
+                        debugOutputStream.write(values[i] == null ? "NULL".getBytes() : values[i].toString().getBytes());
+                        debugOutputStream.write('\n');
+                    }
+                }
+                catch (IOException e) {
+                    LOG.error(String.format(Locale.ENGLISH,
+                            "error writing data file in: %s", uriIndexDirPath), e);
+                    throw new UncheckedIOException("error writing data file in: " + uriIndexDirPath, e);
+                }
+            }
+        }
+
+        synchronized void write()
+        {
+            for (Index splitIndex : indexes) {
+                String indexFileName = indexFileNamePrefix + splitIndex.getId().toLowerCase(Locale.ENGLISH);
+                String indexFilePath = Paths.get(uriIndexDirPath, indexFileName).toString();
+
+                LOG.debug("writing split index to: {}", indexFilePath);
+                try (OutputStream outputStream = indexStore.getOutputStream(indexFilePath, true)) {
+                    splitIndex.persist(outputStream);
+                }
+                catch (IOException e) {
+                    LOG.error(String.format(Locale.ENGLISH,
+                            "error writing index file: %s", indexFilePath), e);
+                    throw new UncheckedIOException("error writing index file: " + indexFilePath, e);
+                }
+            }
+
+            closeDebugOutputStream();
+        }
+
+        /**
+         * Drops the values of a split that could not be read completely
+         */
+        synchronized void discard()
+        {
+            try {
+                closeDebugOutputStream();
+            }
+            catch (UncheckedIOException e) {
+                LOG.debug("error discarding split in: {}", uriIndexDirPath, e);
+            }
+        }
+
+        private void closeDebugOutputStream()
+        {
+            if (debugOutputStream != null) {
+                try {
+                    debugOutputStream.close();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException("error closing data file in: " + uriIndexDirPath, e);
+                }
+            }
+        }
+    }
 }
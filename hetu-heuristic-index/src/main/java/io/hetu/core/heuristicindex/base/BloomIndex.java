@@ -17,18 +17,27 @@ package io.hetu.core.heuristicindex.base;
 
 import com.google.common.hash.BloomFilter;
 import com.google.common.hash.Funnels;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.XxHash64;
 import io.hetu.core.spi.heuristicindex.Index;
 import io.hetu.core.spi.heuristicindex.Operator;
+import io.prestosql.spi.util.SplitBlockBloomFilter;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.nio.charset.Charset;
 import java.util.Locale;
 import java.util.Properties;
 
+import static io.airlift.slice.Slices.utf8Slice;
+
 /**
- * Bloom index implementation
+ * Bloom index implementation, values are added and probed by the hash of their String representation.
+ * Indexes persisted with the former Guava bloom filter format can still be loaded.
  *
  * @param <T> type to be indexed on
  */
@@ -42,8 +51,12 @@ public class BloomIndex<T>
     private static final double DEFAULT_FPP = 0.05;
     private static final int DEFAULT_EXPECTED_SIZE = 200000;
 
+    // first byte of the persisted index, the Guava format starts with the ordinal of its hashing strategy instead
+    private static final int SPLIT_BLOCK_FORMAT = 0x53;
+
     private Properties properties;
-    private BloomFilter<String> filter;
+    private SplitBlockBloomFilter filter;
+    private BloomFilter<String> legacyFilter;
     private double fpp = DEFAULT_FPP;
     private int expectedSize = DEFAULT_EXPECTED_SIZE;
 
@@ -57,8 +70,14 @@ public class BloomIndex<T>
     public void addValues(T[] values)
     {
         for (T value : values) {
-            if (value != null) {
-                getFilter().put(value.toString());
+            if (value == null) {
+                continue;
+            }
+            if (legacyFilter != null) {
+                legacyFilter.put(value.toString());
+            }
+            else {
+                getFilter().put(hash(value));
             }
         }
     }
@@ -82,7 +101,10 @@ public class BloomIndex<T>
         }
 
         if (operator == Operator.EQUAL) {
-            return getFilter().mightContain(value.toString());
+            if (legacyFilter != null) {
+                return legacyFilter.mightContain(value.toString());
+            }
+            return getFilter().mightContain(hash(value));
         }
         else {
             throw new IllegalArgumentException(String.format(Locale.ENGLISH, "Unsupported operator %s.", operator));
@@ -98,13 +120,46 @@ public class BloomIndex<T>
     @Override
     public void persist(OutputStream out) throws IOException
     {
-        getFilter().writeTo(out);
+        if (legacyFilter != null) {
+            legacyFilter.writeTo(out);
+            return;
+        }
+        out.write(SPLIT_BLOCK_FORMAT);
+        OutputStreamSliceOutput output = new OutputStreamSliceOutput(out);
+        getFilter().writeTo(output);
+        output.flush();
     }
 
     @Override
     public void load(InputStream in) throws IOException
     {
-        filter = BloomFilter.readFrom(in, Funnels.stringFunnel(Charset.defaultCharset()));
+        PushbackInputStream input = new PushbackInputStream(in);
+        int format = input.read();
+        if (format == -1) {
+            throw new EOFException("Bloom index is empty");
+        }
+        if (format != SPLIT_BLOCK_FORMAT) {
+            input.unread(format);
+            legacyFilter = BloomFilter.readFrom(input, Funnels.stringFunnel(Charset.defaultCharset()));
+            filter = null;
+            return;
+        }
+        try {
+            filter = SplitBlockBloomFilter.readFrom(new InputStreamSliceInput(input));
+            legacyFilter = null;
+        }
+        catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid bloom index", e);
+        }
+    }
+
+    @Override
+    public long getMemorySize()
+    {
+        if (legacyFilter != null) {
+            return Index.super.getMemorySize();
+        }
+        return getFilter().getRetainedSizeInBytes();
     }
 
     @Override
@@ -139,12 +194,17 @@ public class BloomIndex<T>
         return expectedSize;
     }
 
-    private BloomFilter<String> getFilter()
+    private SplitBlockBloomFilter getFilter()
     {
         if (filter == null) {
-            filter = BloomFilter.create(Funnels.stringFunnel(Charset.defaultCharset()), getExpectedSize(), getFpp());
+            filter = SplitBlockBloomFilter.create(getExpectedSize(), getFpp());
         }
 
         return filter;
     }
+
+    private static long hash(Object value)
+    {
+        return XxHash64.hash(utf8Slice(value.toString()));
+    }
 }
@@ -26,6 +26,8 @@ import java.io.OutputStream;
 import java.util.Locale;
 import java.util.Objects;
 
+import static io.airlift.slice.SizeOf.sizeOfCharArray;
+
 /**
  * MinMax index implementation. It can be used to check whether a value is in or out of the given range.
  *
@@ -36,6 +38,10 @@ public class MinMaxIndex<T>
 {
     public static final String ID = "MINMAX";
 
+    // approximate sizes: header and two references, header and value of a boxed or small value
+    private static final long INSTANCE_SIZE = 24;
+    private static final long VALUE_SIZE = 24;
+
     private Comparable min;
     private Comparable max;
 
@@ -135,6 +141,26 @@ public class MinMaxIndex<T>
         }
     }
 
+    /**
+     * Smallest value added to the index
+     *
+     * @return min value, null if no value was added
+     */
+    public Comparable getMin()
+    {
+        return min;
+    }
+
+    /**
+     * Largest value added to the index
+     *
+     * @return max value, null if no value was added
+     */
+    public Comparable getMax()
+    {
+        return max;
+    }
+
     /**
      * Returns whether the provided value is within the min max values.
      *
@@ -227,6 +253,23 @@ public class MinMaxIndex<T>
         }
     }
 
+    @Override
+    public long getMemorySize()
+    {
+        return INSTANCE_SIZE + getValueSize(min) + getValueSize(max);
+    }
+
+    private static long getValueSize(Comparable value)
+    {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return VALUE_SIZE + sizeOfCharArray(((String) value).length());
+        }
+        return VALUE_SIZE;
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -117,7 +117,7 @@ public class TestIndexCommand
                 "--table=catalog.schema.table", "--column=column", "--type=bloom", "create"};
         IndexCommand.main(args);
 
-        verify(writer, times(1)).createIndex(any(), any(), any(), any(), eq(true), eq(false));
+        verify(writer, times(1)).createIndex(any(), any(), any(), any(), eq(true), eq(false), eq(false));
     }
 
     @Test
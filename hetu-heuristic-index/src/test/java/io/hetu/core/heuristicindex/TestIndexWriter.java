@@ -33,6 +33,8 @@ import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.mockito.Mockito.mock;
@@ -266,6 +268,158 @@ public class TestIndexWriter
         assertEquals(files.size(), 3);
     }
 
+    /**
+     * create a bloom index incrementally three times
+     *
+     * the second time the lastModifiedTime of the datasource split is the same, the split
+     * should not be indexed again, the third time it changed and the split should be indexed again
+     * @throws IOException
+     */
+    @Test
+    public void testIncremental() throws IOException
+    {
+        AtomicLong lastModifiedTime = new AtomicLong(123);
+        AtomicInteger indexedSplits = new AtomicInteger();
+        DataSource ds = new DataSource()
+        {
+            @Override
+            public String getId()
+            {
+                return "test";
+            }
+
+            @Override
+            public void readSplits(String schema, String table, String[] columns, String[] partitions, DataSource.Callback
+                    callback)
+            {
+                Object[] values = new Object[]{"test", "dsfdfs", "random"};
+                callback.call("UT_test_column", values, "UT_test", 100, lastModifiedTime.get());
+            }
+
+            @Override
+            public void readSplits(String schema, String table, String[] columns, String[] partitions, FileFilter fileFilter,
+                    SplitCallback callback)
+                    throws IOException
+            {
+                if (fileFilter.accept("UT_test", lastModifiedTime.get())) {
+                    indexedSplits.incrementAndGet();
+                    callback.addValues("UT_test_column", new Object[]{"test", "dsfdfs"}, "UT_test", 100, lastModifiedTime.get());
+                    callback.addValues("UT_test_column", new Object[]{"random"}, "UT_test", 100, lastModifiedTime.get());
+                    callback.splitRead("UT_test_column", "UT_test", 100, lastModifiedTime.get());
+                    callback.fileRead("UT_test", lastModifiedTime.get());
+                }
+            }
+        };
+
+        IndexStore is = createTestIndexStore();
+
+        Set<Index> indices = new HashSet<>();
+        indices.add(new BloomIndex());
+
+        IndexWriter writer = new IndexWriter(ds, indices, is);
+        String tableName = "catalog.schema.table";
+        String[] columns = new String[]{"UT_test_column"};
+        File indexFolder = new File(is.getProperties().getProperty(IndexStore.ROOT_URI_KEY) + "/" + tableName);
+
+        writer.createIndex(tableName, columns, new String[]{}, new String[]{"bloom"}, true, false, true);
+        assertEquals(indexedSplits.get(), 1);
+        Set<Path> previousFiles = Files.walk(Paths.get(indexFolder.getAbsolutePath()))
+                .filter(Files::isRegularFile).collect(Collectors.toSet());
+        // should be the bloom index file and lastmodified file
+        assertEquals(previousFiles.size(), 2);
+
+        // up to date, nothing is read
+        writer.createIndex(tableName, columns, new String[]{}, new String[]{"bloom"}, true, false, true);
+        assertEquals(indexedSplits.get(), 1);
+        assertEquals(Files.walk(Paths.get(indexFolder.getAbsolutePath()))
+                .filter(Files::isRegularFile).collect(Collectors.toSet()), previousFiles);
+
+        // modified, indexed again
+        lastModifiedTime.set(456);
+        writer.createIndex(tableName, columns, new String[]{}, new String[]{"bloom"}, true, false, true);
+        assertEquals(indexedSplits.get(), 2);
+        Set<Path> newFiles = Files.walk(Paths.get(indexFolder.getAbsolutePath()))
+                .filter(Files::isRegularFile).collect(Collectors.toSet());
+        assertEquals(newFiles.size(), 2);
+        assertTrue(newFiles.stream().anyMatch(file -> file.getFileName().toString().endsWith("=456")));
+    }
+
+    @Test
+    public void testFailedStripe() throws IOException
+    {
+        AtomicInteger readFiles = new AtomicInteger();
+        AtomicInteger failedStripes = new AtomicInteger(1);
+        DataSource ds = new DataSource()
+        {
+            @Override
+            public String getId()
+            {
+                return "test";
+            }
+
+            @Override
+            public void readSplits(String schema, String table, String[] columns, String[] partitions, DataSource.Callback
+                    callback)
+            {
+            }
+
+            @Override
+            public void readSplits(String schema, String table, String[] columns, String[] partitions, FileFilter fileFilter,
+                    SplitCallback callback)
+                    throws IOException
+            {
+                if (fileFilter.accept("UT_test_good", 123)) {
+                    readFiles.incrementAndGet();
+                    callback.addValues("UT_test_column", new Object[]{"test", "dsfdfs"}, "UT_test_good", 100, 123);
+                    callback.splitRead("UT_test_column", "UT_test_good", 100, 123);
+                    callback.fileRead("UT_test_good", 123);
+                }
+                if (fileFilter.accept("UT_test_bad", 123)) {
+                    readFiles.incrementAndGet();
+                    // the first stripe is read, the second one fails after a batch of values
+                    callback.addValues("UT_test_column", new Object[]{"test"}, "UT_test_bad", 100, 123);
+                    callback.splitRead("UT_test_column", "UT_test_bad", 100, 123);
+                    callback.addValues("UT_test_column", new Object[]{"random"}, "UT_test_bad", 200, 123);
+                    if (failedStripes.getAndDecrement() > 0) {
+                        callback.fileFailed("UT_test_bad");
+                        return;
+                    }
+                    callback.splitRead("UT_test_column", "UT_test_bad", 200, 123);
+                    callback.fileRead("UT_test_bad", 123);
+                }
+            }
+        };
+
+        IndexStore is = createTestIndexStore();
+
+        Set<Index> indices = new HashSet<>();
+        indices.add(new BloomIndex());
+
+        IndexWriter writer = new IndexWriter(ds, indices, is);
+        String tableName = "catalog.schema.table";
+        String[] columns = new String[]{"UT_test_column"};
+        File indexFolder = new File(is.getProperties().getProperty(IndexStore.ROOT_URI_KEY) + "/" + tableName);
+
+        // only the indexes of the file that was read completely are created
+        writer.createIndex(tableName, columns, new String[]{}, new String[]{"bloom"}, true, false, true);
+        assertEquals(readFiles.get(), 2);
+        Set<String> files = Files.walk(Paths.get(indexFolder.getAbsolutePath()))
+                .filter(Files::isRegularFile).map(file -> file.getFileName().toString()).collect(Collectors.toSet());
+        assertEquals(files.size(), 2);
+        assertTrue(files.contains("UT_test_good#100.bloom"));
+        assertFalse(Files.walk(Paths.get(indexFolder.getAbsolutePath()))
+                .anyMatch(file -> file.getFileName().toString().startsWith("UT_test_bad")));
+
+        // the failed file is not up to date, so it is read again
+        writer.createIndex(tableName, columns, new String[]{}, new String[]{"bloom"}, true, false, true);
+        assertEquals(readFiles.get(), 3);
+        files = Files.walk(Paths.get(indexFolder.getAbsolutePath()))
+                .filter(Files::isRegularFile).map(file -> file.getFileName().toString()).collect(Collectors.toSet());
+        assertEquals(files.size(), 5);
+        assertTrue(files.contains("UT_test_bad#100.bloom"));
+        assertTrue(files.contains("UT_test_bad#200.bloom"));
+    }
+
     private void assertIndexWriterCleanUp(IndexStore is, String tableName) throws IOException
     {
         File indexFolder = new File(is.getProperties().getProperty(IndexStore.ROOT_URI_KEY) + "/" + tableName);
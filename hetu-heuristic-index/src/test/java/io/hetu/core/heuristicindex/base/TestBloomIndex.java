@@ -14,6 +14,8 @@
  */
 package io.hetu.core.heuristicindex.base;
 
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
 import io.hetu.core.spi.heuristicindex.Operator;
 import io.prestosql.spi.filesystem.TempFolder;
 import org.testng.annotations.Test;
@@ -23,6 +25,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.Properties;
 
 import static org.testng.Assert.assertEquals;
@@ -166,6 +169,30 @@ public class TestBloomIndex
         }
     }
 
+    @Test
+    public void testLoadLegacyFormat() throws IOException
+    {
+        try (TempFolder folder = new TempFolder()) {
+            folder.create();
+            File testFile = folder.newFile();
+
+            BloomFilter<String> legacyFilter = BloomFilter.create(Funnels.stringFunnel(Charset.defaultCharset()), 1000, 0.05);
+            legacyFilter.put("a");
+            legacyFilter.put("ab");
+            try (FileOutputStream fo = new FileOutputStream(testFile)) {
+                legacyFilter.writeTo(fo);
+            }
+
+            BloomIndex<String> readBloomIndex = new BloomIndex<>();
+            try (FileInputStream fi = new FileInputStream(testFile)) {
+                readBloomIndex.load(fi);
+            }
+            assertTrue(readBloomIndex.mightContain("a"));
+            assertTrue(readBloomIndex.mightContain("ab"));
+            assertFalse(readBloomIndex.mightContain("abc"));
+        }
+    }
+
     @Test
     public void testGetProperties()
     {
@@ -180,6 +180,14 @@ public class TestMinMaxIndex
         assertFalse(index.supports(Operator.NOT_EQUAL));
     }
 
+    @Test
+    public void testMemorySize()
+    {
+        long numbers = new MinMaxIndex<>(1L, 100L).getMemorySize();
+        assertTrue(numbers > 0);
+        assertTrue(new MinMaxIndex<>("a", "abcdefghij").getMemorySize() > numbers);
+    }
+
     @Test
     public void testUnsupportedOperator()
     {
@@ -14,9 +14,12 @@
  */
 package io.hetu.core.hive.dynamicfunctions;
 
+import com.google.common.collect.ImmutableList;
 import io.hetu.core.hive.dynamicfunctions.utils.HetuTypeUtil;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.annotation.UsedByGeneratedCode;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.classloader.ThreadContextClassLoader;
 import io.prestosql.spi.function.DynamicSqlScalarFunction;
 import io.prestosql.spi.function.FunctionKind;
@@ -33,22 +36,27 @@ import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
+import static com.google.common.base.Throwables.throwIfUnchecked;
 import static io.hetu.core.hive.dynamicfunctions.utils.HetuTypeUtil.getTypeSignature;
 import static io.hetu.core.hive.dynamicfunctions.utils.HetuTypeUtil.getTypeSignatures;
-import static io.hetu.core.hive.dynamicfunctions.utils.HiveObjectTranslator.translateFromHiveObject;
-import static io.hetu.core.hive.dynamicfunctions.utils.HiveObjectTranslator.translateToHiveObject;
+import static io.hetu.core.hive.dynamicfunctions.utils.HiveObjectTranslator.getFromHiveObjectTranslator;
+import static io.hetu.core.hive.dynamicfunctions.utils.HiveObjectTranslator.getToHiveObjectTranslator;
+import static io.prestosql.spi.StandardErrorCode.EXCEEDED_TIME_LIMIT;
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.prestosql.spi.StandardErrorCode.NOT_FOUND;
 import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
 import static io.prestosql.spi.function.ScalarFunctionImplementation.ArgumentProperty.valueTypeArgumentProperty;
 import static io.prestosql.spi.function.ScalarFunctionImplementation.NullConvention.RETURN_NULL_ON_NULL;
 import static io.prestosql.spi.function.ScalarFunctionImplementation.NullConvention.USE_BOXED_TYPE;
+import static io.prestosql.spi.type.TypeUtils.readNativeValue;
+import static io.prestosql.spi.type.TypeUtils.writeNativeValue;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class DynamicHiveScalarFunction
         extends DynamicSqlScalarFunction
@@ -64,6 +72,12 @@ public class DynamicHiveScalarFunction
     private Type evalReturnHetuType;
     private ClassLoader classLoader;
     private long maxFuncRunningTimeInSec;
+    private List<Function<Object, Object>> evalParamTranslators;
+    private Function<Object, Object> evalReturnTranslator;
+    // evaluate method spread as (instance, Object[] arguments)
+    private MethodHandle evalMethodHandle;
+    // Hive functions are not thread safe, each thread uses its own instance
+    private ThreadLocal<Object> instances;
 
     public DynamicHiveScalarFunction(FunctionMetadata funcMetadata)
     {
@@ -118,8 +132,25 @@ public class DynamicHiveScalarFunction
         this.evalParamHetuTypes = getTypeSignatures(evalParamJavaTypes).stream().map(HetuTypeUtil::getType)
                 .toArray(Type[]::new);
         this.evalReturnHetuType = HetuTypeUtil.getType(getTypeSignature(evalReturnJavaTypes));
-        return new ScalarFunctionImplementation(true, getNullableArgumentProperties(), getMethodHandle(),
-                isDeterministic());
+        List<Function<Object, Object>> paramTranslators = new ArrayList<>(evalParamHetuTypes.length);
+        for (int i = 0; i < evalParamHetuTypes.length; i++) {
+            paramTranslators.add(getToHiveObjectTranslator(evalParamHetuTypes[i], evalParamJavaTypes[i]));
+        }
+        this.evalParamTranslators = paramTranslators;
+        this.evalReturnTranslator = getFromHiveObjectTranslator(evalReturnHetuType);
+        if (evalParamHetuTypes.length <= EVALUATE_METHOD_PARAM_LENGTH) {
+            this.evalMethodHandle = getEvaluateMethodHandle(evalParamHetuTypes.length);
+        }
+        this.instances = ThreadLocal.withInitial(funcMetadata::getInstance);
+        if (evalMethodHandle == null) {
+            return new ScalarFunctionImplementation(true, getNullableArgumentProperties(), getMethodHandle(),
+                    isDeterministic());
+        }
+        return new ScalarFunctionImplementation(
+                ImmutableList.of(new ScalarFunctionImplementation.ScalarImplementationChoice(true,
+                        getNullableArgumentProperties(), getMethodHandle(), Optional.empty())),
+                isDeterministic(),
+                Optional.of(this::evaluateBatch));
     }
 
     private List<ScalarFunctionImplementation.ArgumentProperty> getNullableArgumentProperties()
@@ -199,14 +230,68 @@ public class DynamicHiveScalarFunction
         }
         Object[] hiveObjs = new Object[objs.length];
         for (int i = 0; i < objs.length; i++) {
-            hiveObjs[i] = translateToHiveObject(this.evalParamHetuTypes[i], objs[i], this.evalParamJavaTypes[i]);
+            hiveObjs[i] = objs[i] == null ? null : this.evalParamTranslators.get(i).apply(objs[i]);
+        }
+        Object result = invokeWithTimeLimit(deadline -> {
+            try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+                return invokeFunction(this.instances.get(), hiveObjs);
+            }
+        });
+        return result == null ? null : this.evalReturnTranslator.apply(result);
+    }
+
+    /**
+     * Evaluate the function over a batch of positions, switching the class loader and resolving
+     * the function instance once for the whole batch. The nulls follow the conventions of the row
+     * by row evaluation: a null argument of a primitive type is passed to the function, the others
+     * return null without invoking the function. The whole batch is handed to the function thread
+     * at once, with the time limit applied to each invocation.
+     */
+    private Block evaluateBatch(List<Block> arguments, int[] positions, int offset, int length)
+    {
+        return invokeWithTimeLimit(deadline -> {
+            int argumentCount = arguments.size();
+            Object[] hiveObjs = new Object[argumentCount];
+            BlockBuilder output = this.evalReturnHetuType.createBlockBuilder(null, length);
+            try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+                Object instance = this.instances.get();
+                for (int i = 0; i < length; i++) {
+                    int position = positions == null ? offset + i : positions[offset + i];
+                    boolean isNullResult = false;
+                    for (int j = 0; j < argumentCount; j++) {
+                        Block block = arguments.get(j);
+                        if (block.isNull(position)) {
+                            hiveObjs[j] = null;
+                            isNullResult |= !this.evalParamHetuTypes[j].getJavaType().isPrimitive();
+                        }
+                        else {
+                            hiveObjs[j] = this.evalParamTranslators.get(j).apply(readNativeValue(this.evalParamHetuTypes[j], block, position));
+                        }
+                    }
+                    Object result = null;
+                    if (!isNullResult) {
+                        deadline.start();
+                        result = invokeFunction(instance, hiveObjs);
+                    }
+                    writeNativeValue(this.evalReturnHetuType, output, result == null ? null : this.evalReturnTranslator.apply(result));
+                }
+            }
+            return output.build();
+        });
+    }
+
+    private MethodHandle getEvaluateMethodHandle(int paramNum)
+    {
+        Method method = getEvaluateMethod(paramNum);
+        try {
+            return MethodHandles.publicLookup().unreflect(method)
+                    .asType(MethodType.genericMethodType(paramNum + 1))
+                    .asSpreader(Object[].class, paramNum);
         }
-        Method method = getEvaluateMethod(objs.length);
-        Object result;
-        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
-            result = invokeFunction(method, hiveObjs);
+        catch (IllegalAccessException e) {
+            throw new PrestoException(NOT_SUPPORTED, format("Cannot access %s for function %s, with exception: %s.",
+                    EVALUATE_METHOD_NAME, funcMetadata.getClassName(), e));
         }
-        return translateFromHiveObject(this.evalReturnHetuType, result);
     }
 
     private Method getEvaluateMethod(int paramNum)
@@ -227,26 +312,44 @@ public class DynamicHiveScalarFunction
         }
     }
 
-    private Object invokeFunction(Method method, Object[] hiveObjs)
+    private <T> T invokeWithTimeLimit(HiveFunctionExecutor.Invocations<T> invocations)
     {
-        ExecutorService executor = Executors.newFixedThreadPool(1);
-        Future<Object> future = executor.submit(() -> {
-            try {
-                return method.invoke(this.funcMetadata.getInstance(), hiveObjs);
-            }
-            catch (Exception e) {
-                throw new PrestoException(GENERIC_INTERNAL_ERROR, format("Cannot invoke %s for function %s," +
-                        " with exception: %s.", EVALUATE_METHOD_NAME, funcMetadata.getInstance(), e));
-            }
-        });
-        executor.shutdown();
         try {
-            return future.get(this.maxFuncRunningTimeInSec, TimeUnit.SECONDS);
+            return HiveFunctionExecutor.execute(invocations, SECONDS.toNanos(this.maxFuncRunningTimeInSec));
+        }
+        catch (TimeoutException e) {
+            throw timeLimitExceeded();
         }
-        catch (Exception e) {
-            throw new PrestoException(GENERIC_INTERNAL_ERROR, format("Failed to get results for method %s of" +
-                    "  function %s, with exception: %s.", EVALUATE_METHOD_NAME, funcMetadata.getInstance(), e));
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, format("Interrupted while invoking %s for function %s.",
+                    EVALUATE_METHOD_NAME, funcMetadata.getClassName()));
         }
+        catch (ExecutionException e) {
+            throwIfUnchecked(e.getCause());
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, format("Cannot invoke %s for function %s," +
+                    " with exception: %s.", EVALUATE_METHOD_NAME, funcMetadata.getClassName(), e.getCause()));
+        }
+    }
+
+    private Object invokeFunction(Object instance, Object[] hiveObjs)
+    {
+        try {
+            return (Object) this.evalMethodHandle.invokeExact(instance, hiveObjs);
+        }
+        catch (Throwable t) {
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, format("Cannot invoke %s for function %s," +
+                    " with exception: %s.", EVALUATE_METHOD_NAME, funcMetadata.getClassName(), t));
+        }
+    }
+
+    private PrestoException timeLimitExceeded()
+    {
+        return new PrestoException(EXCEEDED_TIME_LIMIT, format("Method %s of function %s exceeded the time limit of %s seconds.",
+                EVALUATE_METHOD_NAME, funcMetadata.getClassName(), this.maxFuncRunningTimeInSec));
     }
 
     @Override
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.hive.dynamicfunctions;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Enforces the time limit of the Hive function invocations. The invocations run on a shared pool of
+ * threads, so the calling thread gets control back when an invocation runs past its deadline, even if
+ * the function ignores the interrupt. A pool thread stuck in such a function is abandoned to it and
+ * the pool starts a new thread for the next invocations.
+ */
+final class HiveFunctionExecutor
+{
+    private static final ExecutorService EXECUTOR = newCachedThreadPool(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("hive-function-%s")
+            .build());
+
+    private HiveFunctionExecutor()
+    {
+    }
+
+    /**
+     * Run the invocations of a Hive function on a pool thread and wait for their result.
+     * Each invocation must start its deadline, so a batch of invocations is only limited
+     * by the running time of the longest invocation.
+     *
+     * @param invocations the invocations to run
+     * @param timeoutNanos the time limit of each invocation
+     * @return the result of the invocations
+     * @throws TimeoutException if an invocation ran past its deadline, it is then interrupted
+     * @throws ExecutionException if the invocations failed
+     * @throws InterruptedException if the calling thread was interrupted, the invocations are then interrupted
+     */
+    static <T> T execute(Invocations<T> invocations, long timeoutNanos)
+            throws TimeoutException, ExecutionException, InterruptedException
+    {
+        Deadline deadline = new Deadline(timeoutNanos);
+        deadline.start();
+        Future<T> future = EXECUTOR.submit(() -> invocations.run(deadline));
+        try {
+            while (true) {
+                try {
+                    return future.get(deadline.remainingNanos(), NANOSECONDS);
+                }
+                catch (TimeoutException e) {
+                    // the next invocation of a batch may have started a new deadline
+                    if (deadline.remainingNanos() <= 0) {
+                        throw e;
+                    }
+                }
+            }
+        }
+        finally {
+            future.cancel(true);
+        }
+    }
+
+    interface Invocations<T>
+    {
+        T run(Deadline deadline)
+                throws Exception;
+    }
+
+    /**
+     * The deadline of the current invocation of a batch
+     */
+    static final class Deadline
+    {
+        private final long timeoutNanos;
+        private volatile long deadline;
+
+        private Deadline(long timeoutNanos)
+        {
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        /**
+         * Start the deadline of the next invocation
+         */
+        void start()
+        {
+            deadline = System.nanoTime() + timeoutNanos;
+        }
+
+        private long remainingNanos()
+        {
+            return deadline - System.nanoTime();
+        }
+    }
+}
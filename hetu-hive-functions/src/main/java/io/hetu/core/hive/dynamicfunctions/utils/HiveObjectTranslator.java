@@ -45,6 +45,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import static io.hetu.core.hive.dynamicfunctions.utils.HiveTypeTranslator.translateFromHivePrimitiveTypeInfo;
 import static io.hetu.core.hive.dynamicfunctions.utils.HiveTypeTranslator.translateToHiveTypeInfo;
@@ -71,7 +72,23 @@ public class HiveObjectTranslator
         if (obj == null) {
             return null;
         }
-        return translateToHiveObject(getInspector(type), obj, javaType);
+        return getToHiveObjectTranslator(type, javaType).apply(obj);
+    }
+
+    /**
+     * Get the translator of Hetu objects to Hive objects, whose ObjectInspector is resolved once for all the objects
+     *
+     * @param type : Hetu type of the objects
+     * @param javaType: Java type of the objects
+     * @return a translator of non-null Hetu objects
+     */
+    public static Function<Object, Object> getToHiveObjectTranslator(Type type, java.lang.reflect.Type javaType)
+    {
+        ObjectInspector inspector = getInspector(type);
+        if (inspector instanceof PrimitiveObjectInspector) {
+            return getToPrimitiveHiveObjectTranslator(inspector);
+        }
+        return obj -> translateToHiveObject(inspector, obj, javaType);
     }
 
     private static Object translateToHiveObject(ObjectInspector inspector, Object obj, java.lang.reflect.Type javaType)
@@ -89,27 +106,31 @@ public class HiveObjectTranslator
     }
 
     private static Object translateToPrimitiveHiveObject(ObjectInspector inspector, Object obj)
+    {
+        return getToPrimitiveHiveObjectTranslator(inspector).apply(obj);
+    }
+
+    private static Function<Object, Object> getToPrimitiveHiveObjectTranslator(ObjectInspector inspector)
     {
         if (inspector instanceof StringObjectInspector) {
-            return ((Slice) obj).toStringUtf8();
+            return obj -> ((Slice) obj).toStringUtf8();
         }
         else if (inspector instanceof ByteObjectInspector) {
-            return ((Long) obj).byteValue();
+            return obj -> ((Long) obj).byteValue();
         }
         else if (inspector instanceof ShortObjectInspector) {
-            return ((Long) obj).shortValue();
+            return obj -> ((Long) obj).shortValue();
         }
         else if (inspector instanceof IntObjectInspector) {
-            return ((Long) obj).intValue();
+            return obj -> ((Long) obj).intValue();
         }
         else if (inspector instanceof FloatObjectInspector) {
-            int value = ((Long) obj).intValue();
-            return intBitsToFloat(value);
+            return obj -> intBitsToFloat(((Long) obj).intValue());
         }
         else if (inspector instanceof BinaryObjectInspector) {
-            return ((Slice) obj).toByteBuffer();
+            return obj -> ((Slice) obj).toByteBuffer();
         }
-        return obj;
+        return Function.identity();
     }
 
     private static Object translateToListHiveObject(ObjectInspector inspector, Object obj, java.lang.reflect.Type type)
@@ -185,49 +206,62 @@ public class HiveObjectTranslator
         if (obj == null) {
             return null;
         }
+        return getFromHiveObjectTranslator(type).apply(obj);
+    }
+
+    /**
+     * Get the translator of Hive objects to Hetu objects, whose ObjectInspector is resolved once for all the objects
+     *
+     * @param type: Hetu type of the objects
+     * @return a translator of non-null Hive objects
+     */
+    public static Function<Object, Object> getFromHiveObjectTranslator(Type type)
+    {
         ObjectInspector inspector = getInspector(type);
         if (inspector instanceof PrimitiveObjectInspector) {
-            return translateFromPrimitiveHiveObject(inspector, obj);
+            return getFromPrimitiveHiveObjectTranslator(inspector);
         }
         if (inspector instanceof ListObjectInspector) {
-            return translateFromListHiveObject(inspector, obj);
+            return obj -> translateFromListHiveObject(inspector, obj);
         }
         if (inspector instanceof MapObjectInspector) {
-            return translateFromMapHiveObject(inspector, obj, type);
+            return obj -> translateFromMapHiveObject(inspector, obj, type);
         }
-        throw new PrestoException(NOT_SUPPORTED,
-                String.format("Unsupported Hive Type: %s", inspector.getTypeName()));
+        return obj -> {
+            throw new PrestoException(NOT_SUPPORTED,
+                    String.format("Unsupported Hive Type: %s", inspector.getTypeName()));
+        };
     }
 
-    private static Object translateFromPrimitiveHiveObject(ObjectInspector inspector, Object obj)
+    private static Function<Object, Object> getFromPrimitiveHiveObjectTranslator(ObjectInspector inspector)
     {
         if (inspector instanceof BooleanObjectInspector ||
                 inspector instanceof LongObjectInspector ||
                 inspector instanceof DoubleObjectInspector) {
-            return ((PrimitiveObjectInspector) inspector).getPrimitiveJavaObject(obj);
+            return obj -> ((PrimitiveObjectInspector) inspector).getPrimitiveJavaObject(obj);
         }
         else if (inspector instanceof IntObjectInspector) {
-            return (long) ((IntObjectInspector) inspector).get(obj);
+            return obj -> (long) ((IntObjectInspector) inspector).get(obj);
         }
         else if (inspector instanceof ShortObjectInspector) {
-            return (long) ((ShortObjectInspector) inspector).get(obj);
+            return obj -> (long) ((ShortObjectInspector) inspector).get(obj);
         }
         else if (inspector instanceof FloatObjectInspector) {
-            float value = ((FloatObjectInspector) inspector).get(obj);
-            int intBits = Float.floatToIntBits(value);
-            return Long.valueOf(intBits);
+            return obj -> (long) Float.floatToIntBits(((FloatObjectInspector) inspector).get(obj));
         }
         else if (inspector instanceof ByteObjectInspector) {
-            return (long) ((ByteObjectInspector) inspector).get(obj);
+            return obj -> (long) ((ByteObjectInspector) inspector).get(obj);
         }
         else if (inspector instanceof StringObjectInspector) {
-            return Slices.utf8Slice(((StringObjectInspector) inspector).getPrimitiveJavaObject(obj));
+            return obj -> Slices.utf8Slice(((StringObjectInspector) inspector).getPrimitiveJavaObject(obj));
         }
         else if (inspector instanceof BinaryObjectInspector) {
-            return Slices.wrappedBuffer(((BinaryObjectInspector) inspector).getPrimitiveJavaObject(obj));
+            return obj -> Slices.wrappedBuffer(((BinaryObjectInspector) inspector).getPrimitiveJavaObject(obj));
         }
-        throw new PrestoException(NOT_SUPPORTED,
-                String.format("Unsupported Hive Type: %s.", inspector.getTypeName()));
+        return obj -> {
+            throw new PrestoException(NOT_SUPPORTED,
+                    String.format("Unsupported Hive Type: %s.", inspector.getTypeName()));
+        };
     }
 
     private static Object translateFromListHiveObject(ObjectInspector inspector, Object obj)
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.hive.dynamicfunctions;
+
+import io.airlift.slice.Slice;
+import io.hetu.core.hive.dynamicfunctions.examples.udf.IntTwoArgsUDF;
+import io.hetu.core.hive.dynamicfunctions.examples.udf.IsEqualUDF;
+import io.prestosql.type.IntegerOperators;
+import io.prestosql.type.VarcharOperators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import org.testng.annotations.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.spi.util.Reflection.methodHandle;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Compares the invocation of Hive functions with the equivalent native functions
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(2)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkDynamicHiveScalarFunction
+{
+    private static final int POSITIONS = 10_000;
+
+    private final long[] lefts = new long[POSITIONS];
+    private final long[] rights = new long[POSITIONS];
+    private final Slice[] leftSlices = new Slice[POSITIONS];
+    private final Slice[] rightSlices = new Slice[POSITIONS];
+
+    private MethodHandle hiveSubtract;
+    private MethodHandle nativeSubtract;
+    private MethodHandle hiveEqual;
+    private MethodHandle nativeEqual;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        for (int i = 0; i < POSITIONS; i++) {
+            lefts[i] = random.nextInt(1000);
+            rights[i] = random.nextInt(1000);
+            leftSlices[i] = utf8Slice("value_" + random.nextInt(10));
+            rightSlices[i] = utf8Slice("value_" + random.nextInt(10));
+        }
+
+        hiveSubtract = new DynamicHiveScalarFunction(new FunctionMetadata("hive_subtract " + IntTwoArgsUDF.class.getName()))
+                .specialize()
+                .getMethodHandle();
+        nativeSubtract = methodHandle(IntegerOperators.class, "subtract", long.class, long.class);
+        hiveEqual = new DynamicHiveScalarFunction(new FunctionMetadata("hive_equal " + IsEqualUDF.class.getName()))
+                .specialize()
+                .getMethodHandle();
+        nativeEqual = methodHandle(VarcharOperators.class, "equal", Slice.class, Slice.class);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long hiveSubtract()
+            throws Throwable
+    {
+        long sum = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            sum += (Long) hiveSubtract.invokeExact((Long) lefts[i], (Long) rights[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long nativeSubtract()
+            throws Throwable
+    {
+        long sum = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            sum += (long) nativeSubtract.invokeExact(lefts[i], rights[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int hiveEqual()
+            throws Throwable
+    {
+        int count = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            if ((Boolean) hiveEqual.invokeExact(leftSlices[i], rightSlices[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int nativeEqual()
+            throws Throwable
+    {
+        int count = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            if ((Boolean) nativeEqual.invokeExact(leftSlices[i], rightSlices[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void verify()
+            throws Throwable
+    {
+        BenchmarkDynamicHiveScalarFunction benchmark = new BenchmarkDynamicHiveScalarFunction();
+        benchmark.setup();
+        assertEquals(benchmark.hiveSubtract(), benchmark.nativeSubtract());
+        assertEquals(benchmark.hiveEqual(), benchmark.nativeEqual());
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkDynamicHiveScalarFunction.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -15,8 +15,13 @@
 
 package io.hetu.core.hive.dynamicfunctions;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.prestosql.plugin.memory.MemoryPlugin;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.function.BatchScalarFunction;
 import io.prestosql.testing.QueryRunner;
 import io.prestosql.tests.DistributedQueryRunner;
 import org.testng.annotations.AfterClass;
@@ -29,11 +34,18 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.airlift.testing.Closeables.closeAllSuppress;
+import static io.prestosql.spi.StandardErrorCode.EXCEEDED_TIME_LIMIT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static io.prestosql.testing.TestingSession.testSessionBuilder;
 import static io.prestosql.testing.assertions.Assert.assertEquals;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class TestDynamicHiveScalarFunction
 {
@@ -539,4 +551,73 @@ public class TestDynamicHiveScalarFunction
                 "timeout io.hetu.core.hive.dynamicfunctions.examples.udf.TimeOutUDF"), 1)));
         queryRunner.execute("select timeout(1)");
     }
+
+    @Test
+    public void testRunawayFunctionTimeLimit()
+    {
+        queryRunner.getMetadata().addFunctions(Arrays.asList(new DynamicHiveScalarFunction(new FunctionMetadata(
+                "spinning io.hetu.core.hive.dynamicfunctions.examples.udf.SpinningUDF"), 1)));
+        long start = System.nanoTime();
+        try {
+            queryRunner.execute("select spinning(1)");
+            fail("expected the time limit to be exceeded");
+        }
+        catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("exceeded the time limit"), e.getMessage());
+        }
+        // the function spins for 10 seconds, the query fails as soon as its time limit is reached
+        assertTrue(System.nanoTime() - start < SECONDS.toNanos(8));
+    }
+
+    @Test
+    public void testBatchEvaluationTimeLimit()
+    {
+        BlockBuilder values = INTEGER.createBlockBuilder(null, 2);
+        INTEGER.writeLong(values, 1);
+        INTEGER.writeLong(values, 2);
+        List<Block> arguments = ImmutableList.of(values.build());
+
+        for (String className : ImmutableList.of("TimeOutUDF", "SpinningUDF")) {
+            BatchScalarFunction function = new DynamicHiveScalarFunction(new FunctionMetadata(
+                    "udf io.hetu.core.hive.dynamicfunctions.examples.udf." + className), 1).specialize().getBatchFunction().get();
+            long start = System.nanoTime();
+            try {
+                function.evaluate(arguments, null, 0, 2);
+                fail("expected the time limit to be exceeded");
+            }
+            catch (PrestoException e) {
+                assertEquals(e.getErrorCode(), EXCEEDED_TIME_LIMIT.toErrorCode());
+            }
+            assertTrue(System.nanoTime() - start < SECONDS.toNanos(2), className);
+        }
+    }
+
+    @Test
+    public void testBatchEvaluation()
+    {
+        BatchScalarFunction subtract = new DynamicHiveScalarFunction(new FunctionMetadata(
+                "intudf io.hetu.core.hive.dynamicfunctions.examples.udf.IntTwoArgsUDF")).specialize().getBatchFunction().get();
+        BlockBuilder left = INTEGER.createBlockBuilder(null, 3);
+        BlockBuilder right = INTEGER.createBlockBuilder(null, 3);
+        for (int i = 0; i < 3; i++) {
+            INTEGER.writeLong(left, 10 * i);
+            INTEGER.writeLong(right, i);
+        }
+        Block result = subtract.evaluate(ImmutableList.of(left.build(), right.build()), new int[] {2, 0}, 0, 2);
+        assertEquals(result.getPositionCount(), 2);
+        assertEquals(INTEGER.getLong(result, 0), 18L);
+        assertEquals(INTEGER.getLong(result, 1), 0L);
+
+        BatchScalarFunction isEqual = new DynamicHiveScalarFunction(new FunctionMetadata(
+                "isequaludf io.hetu.core.hive.dynamicfunctions.examples.udf.IsEqualUDF")).specialize().getBatchFunction().get();
+        BlockBuilder strings = VARCHAR.createBlockBuilder(null, 3);
+        VARCHAR.writeSlice(strings, utf8Slice("a"));
+        strings.appendNull();
+        VARCHAR.writeSlice(strings, utf8Slice("b"));
+        Block stringBlock = strings.build();
+        result = isEqual.evaluate(ImmutableList.of(stringBlock, stringBlock), null, 1, 2);
+        assertEquals(result.getPositionCount(), 2);
+        assertTrue(result.isNull(0));
+        assertTrue(BOOLEAN.getBoolean(result, 1));
+    }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.hetu.core.hive.dynamicfunctions.examples.udf;
+
+import java.util.concurrent.TimeUnit;
+
+public class SpinningUDF
+        extends HiveFunction
+{
+    public int evaluate(int x)
+    {
+        // keeps the CPU busy and ignores interrupts
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        long count = 0;
+        while (System.nanoTime() < end) {
+            count++;
+        }
+        return count < 0 ? -x : x;
+    }
+}
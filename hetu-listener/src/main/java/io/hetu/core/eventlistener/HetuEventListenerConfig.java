@@ -36,6 +36,12 @@ public class HetuEventListenerConfig
 
     private int logFileCount = 1;
 
+    private boolean isLogAsync;
+
+    private int logQueueSize = 10000;
+
+    private LogFormat logFormat = LogFormat.TEXT;
+
     public BaseEventListener.Type getType()
     {
         return type;
@@ -172,4 +178,68 @@ public class HetuEventListenerConfig
         this.logFileLimit = logFileLimit;
         return this;
     }
+
+    public boolean isLogAsync()
+    {
+        return isLogAsync;
+    }
+
+    /**
+     * set isLogAsync
+     *
+     * @param isLogAsync isLogAsync from properties file
+     * @return config object
+     */
+    @Config("hetu.event.listener.logger.async")
+    @ConfigDescription("Write the events to the log file from a background thread, split events are dropped first when it falls behind")
+    public HetuEventListenerConfig setLogAsync(boolean isLogAsync)
+    {
+        this.isLogAsync = isLogAsync;
+        return this;
+    }
+
+    @Min(1)
+    public int getLogQueueSize()
+    {
+        return logQueueSize;
+    }
+
+    /**
+     * set logQueueSize
+     *
+     * @param logQueueSize logQueueSize from properties file
+     * @return config object
+     */
+    @Config("hetu.event.listener.logger.queue.size")
+    @ConfigDescription("Maximum number of events waiting to be written by the asynchronous logger")
+    public HetuEventListenerConfig setLogQueueSize(int logQueueSize)
+    {
+        this.logQueueSize = logQueueSize;
+        return this;
+    }
+
+    public LogFormat getLogFormat()
+    {
+        return logFormat;
+    }
+
+    /**
+     * set logFormat
+     *
+     * @param logFormat logFormat from properties file
+     * @return config object
+     */
+    @Config("hetu.event.listener.logger.format")
+    @ConfigDescription("Format of the logged events: TEXT or JSON, one compact JSON object per line")
+    public HetuEventListenerConfig setLogFormat(LogFormat logFormat)
+    {
+        this.logFormat = logFormat;
+        return this;
+    }
+
+    public enum LogFormat
+    {
+        TEXT,
+        JSON
+    }
 }
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.eventlistener.listeners;
+
+import io.airlift.log.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Writes the events to rotating log files from a background thread, a batch of events at a time.
+ * Events are queued without locking and formatted by the writer thread, so that the event dispatch
+ * is not held back by the file system. When the writer falls behind, split events are dropped once the
+ * queue is half full, and the other events once it is full.
+ */
+class AsyncEventLogWriter
+        implements EventLogWriterMBean, Closeable
+{
+    private static final Logger log = Logger.get(AsyncEventLogWriter.class);
+    private static final String OBJECT_NAME = "io.hetu.core.eventlistener:name=EventLogWriter";
+    private static final int BATCH_SIZE = 1024;
+    private static final long IDLE_WAIT_NANOS = MILLISECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(UTF_8);
+
+    private final Path path;
+    private final long limit;
+    private final int count;
+    private final int capacity;
+    private final Queue<Supplier<String>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong writtenEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong droppedSplitEvents = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private final AtomicLong writeBatches = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean closed;
+    private OutputStream output;
+    private long fileSize;
+
+    /**
+     * Create the writer and start its thread
+     *
+     * @param path log file path
+     * @param limit maximum number of bytes of a file, 0 for no limit
+     * @param count number of files to rotate through
+     * @param capacity maximum number of queued events
+     * @throws IOException if the log file cannot be opened
+     */
+    AsyncEventLogWriter(Path path, long limit, int count, int capacity)
+            throws IOException
+    {
+        checkArgument(count >= 1, "count must be at least 1");
+        checkArgument(capacity >= 1, "capacity must be at least 1");
+        this.path = requireNonNull(path, "path is null").toAbsolutePath();
+        this.limit = limit;
+        this.count = count;
+        this.capacity = capacity;
+        openFile(false);
+        this.writerThread = new Thread(this::run, "hetu-event-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queue an event to be written
+     *
+     * @param message formats the event, called by the writer thread
+     * @param isSplitEvent whether the event may be dropped first
+     * @return false if the event was dropped
+     */
+    boolean offer(Supplier<String> message, boolean isSplitEvent)
+    {
+        int depth = queueDepth.incrementAndGet();
+        if (closed || depth > capacity || (isSplitEvent && depth > capacity / 2)) {
+            queueDepth.decrementAndGet();
+            if (isSplitEvent) {
+                droppedSplitEvents.incrementAndGet();
+            }
+            else {
+                droppedEvents.incrementAndGet();
+            }
+            return false;
+        }
+        queue.add(message);
+        return true;
+    }
+
+    /**
+     * Export the metrics of the writer to the platform MBean server
+     */
+    void export()
+    {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new StandardMBean(this, EventLogWriterMBean.class), name);
+        }
+        catch (JMException e) {
+            log.warn(e, "Failed to export the metrics of the event log writer");
+        }
+    }
+
+    /**
+     * Stop the writer thread once the queued events are written
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run()
+    {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            Supplier<String> message;
+            while (batch.size() < BATCH_SIZE && (message = queue.poll()) != null) {
+                queueDepth.decrementAndGet();
+                try {
+                    batch.add(message.get());
+                }
+                catch (RuntimeException e) {
+                    writeFailures.incrementAndGet();
+                    log.warn(e, "Failed to format an event");
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+            else if (closed) {
+                break;
+            }
+            else {
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+            }
+        }
+        try {
+            output.close();
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to close %s", path);
+        }
+    }
+
+    private void write(List<String> batch)
+    {
+        long start = System.nanoTime();
+        try {
+            for (String message : batch) {
+                byte[] bytes = message.getBytes(UTF_8);
+                long size = bytes.length + LINE_SEPARATOR.length;
+                if (limit > 0 && fileSize > 0 && fileSize + size > limit) {
+                    rotate();
+                }
+                output.write(bytes);
+                output.write(LINE_SEPARATOR);
+                fileSize += size;
+            }
+            output.flush();
+            writtenEvents.addAndGet(batch.size());
+        }
+        catch (IOException e) {
+            writeFailures.addAndGet(batch.size());
+            log.error(e, "Failed to write %s events to %s", batch.size(), path);
+        }
+        long elapsed = System.nanoTime() - start;
+        writeBatches.incrementAndGet();
+        writeNanos.addAndGet(elapsed);
+        maxWriteNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    /**
+     * Shift the files as FileHandler does, the current file becomes path.1 and the oldest one is deleted
+     */
+    private void rotate()
+            throws IOException
+    {
+        output.close();
+        for (int generation = count - 1; generation > 0; generation--) {
+            Path source = generation == 1 ? path : rotatedPath(generation - 1);
+            if (Files.exists(source)) {
+                Files.move(source, rotatedPath(generation), REPLACE_EXISTING);
+            }
+        }
+        openFile(true);
+    }
+
+    private Path rotatedPath(int generation)
+    {
+        return Paths.get(path + "." + generation);
+    }
+
+    private void openFile(boolean truncate)
+            throws IOException
+    {
+        output = new BufferedOutputStream(Files.newOutputStream(path, CREATE, WRITE, truncate ? TRUNCATE_EXISTING : APPEND), 64 * 1024);
+        fileSize = truncate ? 0 : Files.size(path);
+    }
+
+    @Override
+    public int getQueueDepth()
+    {
+        return queueDepth.get();
+    }
+
+    @Override
+    public int getQueueCapacity()
+    {
+        return capacity;
+    }
+
+    @Override
+    public long getWrittenEvents()
+    {
+        return writtenEvents.get();
+    }
+
+    @Override
+    public long getDroppedEvents()
+    {
+        return droppedEvents.get();
+    }
+
+    @Override
+    public long getDroppedSplitEvents()
+    {
+        return droppedSplitEvents.get();
+    }
+
+    @Override
+    public long getWriteFailures()
+    {
+        return writeFailures.get();
+    }
+
+    @Override
+    public double getAverageWriteLatencyMillis()
+    {
+        long batches = writeBatches.get();
+        return batches == 0 ? 0 : NANOSECONDS.toMicros(writeNanos.get() / batches) / 1000.0;
+    }
+
+    @Override
+    public double getMaxWriteLatencyMillis()
+    {
+        return NANOSECONDS.toMicros(maxWriteNanos.get()) / 1000.0;
+    }
+}
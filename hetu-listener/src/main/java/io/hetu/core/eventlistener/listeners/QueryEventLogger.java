@@ -29,19 +29,33 @@ import java.nio.file.Paths;
 import java.util.logging.FileHandler;
 import java.util.logging.SimpleFormatter;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.hetu.core.eventlistener.HetuEventListenerConfig.LogFormat.JSON;
+
 class QueryEventLogger
         extends BaseEventListener
 {
     private final Logger logger;
+    private final AsyncEventLogWriter asyncWriter;
+    private final boolean isJson;
 
     QueryEventLogger(HetuEventListenerConfig config)
     {
         super(config);
-        if (config.getLogFile() != null) {
-            // Airlift logger is using java.util.logging.Logger underneath.
-            // Creating a java.util.logging.Logger using the same name will make the airlift logger to reuse it
-            java.util.logging.Logger log = createLogger(Paths.get(config.getLogFile()), config.getLogFileLimit(),
-                    config.getLogFileCount());
+        this.isJson = config.getLogFormat() == JSON;
+        if (config.isLogAsync()) {
+            checkArgument(config.getLogFile() != null, "hetu.event.listener.logger.file is required by the asynchronous logger");
+            this.asyncWriter = createAsyncWriter(Paths.get(config.getLogFile()), config.getLogFileLimit(),
+                    config.getLogFileCount(), config.getLogQueueSize());
+        }
+        else {
+            this.asyncWriter = null;
+            if (config.getLogFile() != null) {
+                // Airlift logger is using java.util.logging.Logger underneath.
+                // Creating a java.util.logging.Logger using the same name will make the airlift logger to reuse it
+                java.util.logging.Logger log = createLogger(Paths.get(config.getLogFile()), config.getLogFileLimit(),
+                        config.getLogFileCount());
+            }
         }
         this.logger = Logger.get(QueryEventLogger.class);
     }
@@ -62,21 +76,51 @@ class QueryEventLogger
         }
     }
 
+    private static AsyncEventLogWriter createAsyncWriter(Path filePath, int limit, int count, int queueSize)
+    {
+        try {
+            AsyncEventLogWriter writer = new AsyncEventLogWriter(filePath, limit, count, queueSize);
+            writer.export();
+            // the event listeners are never closed, the queued events are written when the server stops
+            Runtime.getRuntime().addShutdownHook(new Thread(writer::close, "hetu-event-log-writer-shutdown"));
+            return writer;
+        }
+        catch (IOException ex) {
+            throw new PrestoException(ListenerErrorCode.LOCAL_FILE_FILESYSTEM_ERROR,
+                    "failed to create logger writing to " + filePath.toAbsolutePath(), ex);
+        }
+    }
+
     @Override
     protected void onQueryCreatedEvent(QueryCreatedEvent queryCreatedEvent)
     {
-        logger.info(EventUtility.toString(queryCreatedEvent));
+        if (asyncWriter != null) {
+            asyncWriter.offer(() -> isJson ? EventUtility.toJson(queryCreatedEvent) : EventUtility.toString(queryCreatedEvent), false);
+        }
+        else {
+            logger.info(isJson ? EventUtility.toJson(queryCreatedEvent) : EventUtility.toString(queryCreatedEvent));
+        }
     }
 
     @Override
     protected void onQueryCompletedEvent(QueryCompletedEvent queryCompletedEvent)
     {
-        logger.info(EventUtility.toString(queryCompletedEvent));
+        if (asyncWriter != null) {
+            asyncWriter.offer(() -> isJson ? EventUtility.toJson(queryCompletedEvent) : EventUtility.toString(queryCompletedEvent), false);
+        }
+        else {
+            logger.info(isJson ? EventUtility.toJson(queryCompletedEvent) : EventUtility.toString(queryCompletedEvent));
+        }
     }
 
     @Override
     protected void onSplitCompletedEvent(SplitCompletedEvent splitCompletedEvent)
     {
-        logger.info(EventUtility.toString(splitCompletedEvent));
+        if (asyncWriter != null) {
+            asyncWriter.offer(() -> isJson ? EventUtility.toJson(splitCompletedEvent) : EventUtility.toString(splitCompletedEvent), true);
+        }
+        else {
+            logger.info(isJson ? EventUtility.toJson(splitCompletedEvent) : EventUtility.toString(splitCompletedEvent));
+        }
     }
 }
@@ -105,6 +105,45 @@ public class EventUtility
         return joiner.toString();
     }
 
+    /**
+     * convert a query complete event to a compact JSON object
+     *
+     * @param event event object
+     * @return single line JSON represents the event
+     */
+    public static String toJson(QueryCompletedEvent event)
+    {
+        JsonLine json = new JsonLine("Query Completed");
+        visit(event, json::add);
+        return json.toString();
+    }
+
+    /**
+     * convert a query created event to a compact JSON object
+     *
+     * @param event event object
+     * @return single line JSON represents the event
+     */
+    public static String toJson(QueryCreatedEvent event)
+    {
+        JsonLine json = new JsonLine("Query Created");
+        visit(event, json::add);
+        return json.toString();
+    }
+
+    /**
+     * convert a split complete event to a compact JSON object
+     *
+     * @param event event object
+     * @return single line JSON represents the event
+     */
+    public static String toJson(SplitCompletedEvent event)
+    {
+        JsonLine json = new JsonLine("Split Completed");
+        visit(event, json::add);
+        return json.toString();
+    }
+
     private static void visit(QueryCreatedEvent event, BiConsumer<String, Object> consumer)
     {
         QueryMetadata metadata = event.getMetadata();
@@ -163,4 +202,69 @@ public class EventUtility
         consumer.accept("Completed Positions", statistics.getCompletedPositions());
         consumer.accept("Completed Data Size", statistics.getCompletedDataSizeBytes());
     }
+
+    private static class JsonLine
+    {
+        private final StringBuilder builder = new StringBuilder(256);
+
+        JsonLine(String event)
+        {
+            builder.append('{');
+            appendString("Event");
+            builder.append(':');
+            appendString(event);
+        }
+
+        void add(String key, Object value)
+        {
+            builder.append(',');
+            appendString(key);
+            builder.append(':');
+            if (value instanceof Number || value instanceof Boolean) {
+                builder.append(value);
+            }
+            else {
+                appendString(String.valueOf(value));
+            }
+        }
+
+        private void appendString(String value)
+        {
+            builder.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        builder.append("\\\"");
+                        break;
+                    case '\\':
+                        builder.append("\\\\");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    case '\t':
+                        builder.append("\\t");
+                        break;
+                    default:
+                        if (c < ' ') {
+                            builder.append(String.format("\\u%04x", (int) c));
+                        }
+                        else {
+                            builder.append(c);
+                        }
+                }
+            }
+            builder.append('"');
+        }
+
+        @Override
+        public String toString()
+        {
+            return builder.append('}').toString();
+        }
+    }
 }
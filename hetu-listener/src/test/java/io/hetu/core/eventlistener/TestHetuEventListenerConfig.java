@@ -35,7 +35,10 @@ public class TestHetuEventListenerConfig
                 .setListenSplitCompletion(false)
                 .setLogFile(null)
                 .setLogFileLimit(0)
-                .setLogFileCount(1));
+                .setLogFileCount(1)
+                .setLogAsync(false)
+                .setLogQueueSize(10000)
+                .setLogFormat(HetuEventListenerConfig.LogFormat.TEXT));
     }
 
     @Test
@@ -49,6 +52,9 @@ public class TestHetuEventListenerConfig
                 .put("hetu.event.listener.logger.file", "/var/hetu-events.log")
                 .put("hetu.event.listener.logger.count", "10")
                 .put("hetu.event.listener.logger.limit", "1024")
+                .put("hetu.event.listener.logger.async", "true")
+                .put("hetu.event.listener.logger.queue.size", "100")
+                .put("hetu.event.listener.logger.format", "JSON")
                 .build();
 
         HetuEventListenerConfig expected = new HetuEventListenerConfig().setType(BaseEventListener.Type.LOGGER)
@@ -57,7 +63,10 @@ public class TestHetuEventListenerConfig
                 .setListenSplitCompletion(true)
                 .setLogFile("/var/hetu-events.log")
                 .setLogFileCount(10)
-                .setLogFileLimit(1024);
+                .setLogFileLimit(1024)
+                .setLogAsync(true)
+                .setLogQueueSize(100)
+                .setLogFormat(HetuEventListenerConfig.LogFormat.JSON);
 
         assertFullMapping(properties, expected);
     }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.eventlistener.listeners;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestAsyncEventLogWriter
+{
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        directory = Files.createTempDirectory("hetu-event-log");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testWrite()
+            throws IOException
+    {
+        Path path = directory.resolve("events.log");
+        AsyncEventLogWriter writer = new AsyncEventLogWriter(path, 0, 1, 100);
+        assertTrue(writer.offer(() -> "event 1", false));
+        assertTrue(writer.offer(() -> "event 2", true));
+        writer.close();
+
+        assertEquals(Files.readAllLines(path, UTF_8), ImmutableList.of("event 1", "event 2"));
+        assertEquals(writer.getWrittenEvents(), 2);
+        assertEquals(writer.getQueueDepth(), 0);
+        assertFalse(writer.offer(() -> "event 3", false));
+    }
+
+    @Test
+    public void testRotation()
+            throws IOException
+    {
+        Path path = directory.resolve("events.log");
+        String separator = System.lineSeparator();
+        AsyncEventLogWriter writer = new AsyncEventLogWriter(path, 2 * ("event 1".length() + separator.length()), 2, 100);
+        for (int i = 1; i <= 5; i++) {
+            String message = "event " + i;
+            writer.offer(() -> message, false);
+        }
+        writer.close();
+
+        assertEquals(Files.readAllLines(path, UTF_8), ImmutableList.of("event 5"));
+        assertEquals(Files.readAllLines(Paths.get(path + ".1"), UTF_8), ImmutableList.of("event 3", "event 4"));
+        assertFalse(Files.exists(Paths.get(path + ".2")));
+    }
+
+    @Test
+    public void testDropEvents()
+            throws Exception
+    {
+        Path path = directory.resolve("events.log");
+        AsyncEventLogWriter writer = new AsyncEventLogWriter(path, 0, 1, 4);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer.offer(() -> {
+            writing.countDown();
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "blocked";
+        }, false);
+        writing.await();
+
+        // split events are dropped once the queue is half full
+        assertTrue(writer.offer(() -> "split 1", true));
+        assertTrue(writer.offer(() -> "split 2", true));
+        assertFalse(writer.offer(() -> "split 3", true));
+        assertTrue(writer.offer(() -> "query 1", false));
+        assertTrue(writer.offer(() -> "query 2", false));
+        assertFalse(writer.offer(() -> "query 3", false));
+        assertEquals(writer.getQueueDepth(), 4);
+        assertEquals(writer.getDroppedSplitEvents(), 1);
+        assertEquals(writer.getDroppedEvents(), 1);
+
+        release.countDown();
+        writer.close();
+        assertEquals(Files.readAllLines(path, UTF_8), ImmutableList.of("blocked", "split 1", "split 2", "query 1", "query 2"));
+    }
+}
@@ -334,6 +334,44 @@ public class OracleClient
                         new String[] {"TABLE", "SYNONYM", "VIEW"});
     }
 
+    /**
+     * Tables without a range split column are split on the hash of their ROWID. Each split still scans
+     * the whole table on the Oracle side, but the rows are transferred and decoded in parallel.
+     *
+     * @param connection connection
+     * @param tableHandle tableHandle
+     * @return the split predicates
+     * @throws SQLException when the table cannot be queried
+     */
+    @Override
+    protected List<String> getSplitPredicates(Connection connection, JdbcTableHandle tableHandle)
+            throws SQLException
+    {
+        List<String> predicates = super.getSplitPredicates(connection, tableHandle);
+        if (!predicates.isEmpty() || !isTable(connection, tableHandle)) {
+            return predicates;
+        }
+        ImmutableList.Builder<String> rowIdPredicates = ImmutableList.builder();
+        for (int i = 0; i < splitCount; i++) {
+            rowIdPredicates.add(format("ORA_HASH(ROWID, %d) = %d", splitCount - 1, i));
+        }
+        return rowIdPredicates.build();
+    }
+
+    private boolean isTable(Connection connection, JdbcTableHandle tableHandle)
+            throws SQLException
+    {
+        // views and synonyms may have no ROWID
+        try (ResultSet resultSet = getTables(connection, Optional.ofNullable(tableHandle.getSchemaName()), Optional.of(tableHandle.getTableName()))) {
+            while (resultSet.next()) {
+                if (tableHandle.getTableName().equals(resultSet.getString(Constants.TABLE_NAME))) {
+                    return "TABLE".equals(resultSet.getString("TABLE_TYPE"));
+                }
+            }
+        }
+        return false;
+    }
+
     @Nullable
     @Override
     public Optional<JdbcTableHandle> getTableHandle(JdbcIdentity identity, SchemaTableName schemaTableName)
@@ -17,9 +17,15 @@ package io.hetu.core.statestore;
 import com.google.common.collect.ImmutableMap;
 import io.prestosql.spi.statestore.CipherService;
 import io.prestosql.spi.statestore.StateMap;
+import io.prestosql.spi.statestore.listener.EntryAddedListener;
+import io.prestosql.spi.statestore.listener.EntryEvent;
+import io.prestosql.spi.statestore.listener.EntryRemovedListener;
+import io.prestosql.spi.statestore.listener.EntryUpdatedListener;
+import io.prestosql.spi.statestore.listener.MapListener;
 
 import java.io.Serializable;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
@@ -134,6 +140,18 @@ public class EncryptedStateMap<K, V extends Serializable>
         return encryptedValues.keySet();
     }
 
+    @Override
+    public Optional<String> addEntryListener(MapListener listener)
+    {
+        return encryptedValues.addEntryListener(new DecryptingListener<>(listener, cipherService));
+    }
+
+    @Override
+    public void removeEntryListener(String listenerId)
+    {
+        encryptedValues.removeEntryListener(listenerId);
+    }
+
     @Override
     public String getName()
     {
@@ -169,4 +187,62 @@ public class EncryptedStateMap<K, V extends Serializable>
     {
         encryptedValues.destroy();
     }
+
+    /**
+     * Listener decrypting the values of the events before passing them to the wrapped listener
+     */
+    private static class DecryptingListener<K, V extends Serializable>
+            implements EntryAddedListener<K, String>, EntryUpdatedListener<K, String>, EntryRemovedListener<K, String>
+    {
+        private final MapListener listener;
+        private final CipherService<V> cipherService;
+
+        DecryptingListener(MapListener listener, CipherService<V> cipherService)
+        {
+            this.listener = requireNonNull(listener, "listener is null");
+            this.cipherService = requireNonNull(cipherService, "cipherService is null");
+        }
+
+        @Override
+        public void entryAdded(EntryEvent<K, String> event)
+        {
+            if (listener instanceof EntryAddedListener) {
+                ((EntryAddedListener<K, V>) listener).entryAdded(decrypt(event));
+            }
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<K, String> event)
+        {
+            if (listener instanceof EntryUpdatedListener) {
+                ((EntryUpdatedListener<K, V>) listener).entryUpdated(decrypt(event));
+            }
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<K, String> event)
+        {
+            if (listener instanceof EntryRemovedListener) {
+                ((EntryRemovedListener<K, V>) listener).entryRemoved(decrypt(event));
+            }
+        }
+
+        private EntryEvent<K, V> decrypt(EntryEvent<K, String> event)
+        {
+            return new EntryEvent<>(
+                    event.getMember(),
+                    event.getEventType().getTypeId(),
+                    event.getKey(),
+                    decrypt(event.getOldValue()),
+                    decrypt(event.getValue()));
+        }
+
+        private V decrypt(String value)
+        {
+            if (value == null) {
+                return null;
+            }
+            return cipherService.decrypt(value);
+        }
+    }
 }
@@ -22,11 +22,17 @@ import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.listener.MapListener;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 /**
  * HazelcastStateMap Class
  *
@@ -41,6 +47,8 @@ public class HazelcastStateMap<K, V>
     private final String name;
 
     private IMap<K, V> hzMap;
+    // a state store listener may be registered as several Hazelcast listeners
+    private final Map<String, List<UUID>> listenerRegistrations = new ConcurrentHashMap<>();
 
     /**
      * Create HazelcastStateMap
@@ -145,6 +153,26 @@ public class HazelcastStateMap<K, V>
         return hzMap.keySet();
     }
 
+    @Override
+    public Optional<String> addEntryListener(MapListener listener)
+    {
+        List<UUID> registrations = ListenerAdapter.toHazelcastListeners(listener).stream()
+                .map(hazelcastListener -> hzMap.addEntryListener(hazelcastListener, true))
+                .collect(toImmutableList());
+        String listenerId = UUID.randomUUID().toString();
+        listenerRegistrations.put(listenerId, registrations);
+        return Optional.of(listenerId);
+    }
+
+    @Override
+    public void removeEntryListener(String listenerId)
+    {
+        List<UUID> registrations = listenerRegistrations.remove(listenerId);
+        if (registrations != null) {
+            registrations.forEach(hzMap::removeEntryListener);
+        }
+    }
+
     @Override
     public void clear()
     {
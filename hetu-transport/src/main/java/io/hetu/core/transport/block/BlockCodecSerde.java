@@ -0,0 +1,466 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.transport.block;
+
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.DictionaryId;
+import io.prestosql.spi.block.LongArrayBlock;
+import io.prestosql.spi.block.LongArrayBlockEncoding;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+import io.prestosql.spi.block.VariableWidthBlock;
+import io.prestosql.spi.block.VariableWidthBlockEncoding;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.hetu.core.transport.block.BlockSerdeUtil.bitWidth;
+import static io.hetu.core.transport.block.BlockSerdeUtil.readBitPacked;
+import static io.hetu.core.transport.block.BlockSerdeUtil.writeBitPacked;
+import static io.prestosql.spi.block.DictionaryId.randomDictionaryId;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
+
+/**
+ * Writes the blocks of a page with an encoding chosen by the shape of their data, each block being
+ * prefixed by the id of its codec:
+ * <ul>
+ * <li>run-length encoded blocks are written as their value and position count</li>
+ * <li>dictionary blocks are written as their dictionary and bit-packed ids, and a dictionary shared by
+ * several blocks of the page is only written once</li>
+ * <li>long blocks are bit-packed, relative to their minimum value or as the differences between consecutive values</li>
+ * <li>variable width blocks have their data compressed with zstd</li>
+ * </ul>
+ * Blocks which none of these codecs makes smaller are written with the {@link BlockEncodingSerde}.
+ */
+@NotThreadSafe
+public class BlockCodecSerde
+{
+    private static final byte RAW = 0;
+    private static final byte RUN_LENGTH = 1;
+    private static final byte DICTIONARY = 2;
+    private static final byte DICTIONARY_REFERENCE = 3;
+    private static final byte BIT_PACKED_LONG = 4;
+    private static final byte ZSTD_VARIABLE_WIDTH = 5;
+
+    private static final byte FRAME_OF_REFERENCE = 0;
+    private static final byte DELTA = 1;
+
+    // long blocks needing more bits per value are not worth packing
+    private static final int MAXIMUM_PACKED_BIT_WIDTH = 48;
+    private static final int MINIMUM_ZSTD_INPUT_SIZE = 512;
+    private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    // scratch buffers grown beyond this size by large blocks are released after use
+    private static final int MAXIMUM_RETAINED_SCRATCH_SIZE = 4 * 1024 * 1024;
+
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final ZstdCompressor compressor = new ZstdCompressor();
+    private final ZstdDecompressor decompressor = new ZstdDecompressor();
+
+    private long[] values = new long[0];
+    private long[] deltas = new long[0];
+    private byte[] compressionBuffer = new byte[0];
+    private DynamicSliceOutput variableWidthBuffer;
+
+    public BlockCodecSerde(BlockEncodingSerde blockEncodingSerde)
+    {
+        this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+    }
+
+    public void writeBlocks(SliceOutput output, Block[] blocks)
+    {
+        // dictionaries referenced by several blocks are written with the first of them
+        Map<Block, Integer> dictionaryUses = new IdentityHashMap<>();
+        for (Block block : blocks) {
+            Block loaded = block.getLoadedBlock();
+            if (loaded instanceof DictionaryBlock) {
+                dictionaryUses.merge(((DictionaryBlock) loaded).getDictionary(), 1, Integer::sum);
+            }
+        }
+
+        Map<Block, Integer> writtenDictionaries = new IdentityHashMap<>();
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Block block = blocks[channel].getLoadedBlock();
+            if (block instanceof DictionaryBlock && dictionaryUses.get(((DictionaryBlock) block).getDictionary()) > 1) {
+                DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+                Block dictionary = dictionaryBlock.getDictionary();
+                Integer dictionaryChannel = writtenDictionaries.get(dictionary);
+                if (dictionaryChannel == null) {
+                    writtenDictionaries.put(dictionary, channel);
+                    output.writeByte(DICTIONARY);
+                    writeDictionary(output, dictionaryBlock);
+                }
+                else {
+                    output.writeByte(DICTIONARY_REFERENCE);
+                    output.writeInt(dictionaryChannel);
+                    writeDictionaryIds(output, dictionaryBlock);
+                }
+            }
+            else {
+                writeBlock(output, block);
+            }
+        }
+
+        if (variableWidthBuffer != null && variableWidthBuffer.getRetainedSize() > MAXIMUM_RETAINED_SCRATCH_SIZE) {
+            variableWidthBuffer = null;
+        }
+        if (compressionBuffer.length > MAXIMUM_RETAINED_SCRATCH_SIZE) {
+            compressionBuffer = new byte[0];
+        }
+    }
+
+    public Block[] readBlocks(SliceInput input, int blockCount)
+    {
+        Block[] blocks = new Block[blockCount];
+        for (int channel = 0; channel < blockCount; channel++) {
+            byte codec = input.readByte();
+            if (codec == DICTIONARY_REFERENCE) {
+                int dictionaryChannel = input.readInt();
+                checkState(dictionaryChannel < channel && blocks[dictionaryChannel] instanceof DictionaryBlock, "invalid dictionary reference: %s", dictionaryChannel);
+                DictionaryBlock dictionaryBlock = (DictionaryBlock) blocks[dictionaryChannel];
+                // blocks sharing a dictionary are read with the same dictionary id, so that their dictionary is processed once
+                DictionaryId dictionaryId = dictionaryBlock.getDictionarySourceId();
+                blocks[channel] = readDictionaryIds(input, dictionaryBlock.getDictionary(), dictionaryId);
+            }
+            else {
+                blocks[channel] = readBlock(input, codec);
+            }
+        }
+        return blocks;
+    }
+
+    private void writeBlock(SliceOutput output, Block block)
+    {
+        block = block.getLoadedBlock();
+        if (block instanceof RunLengthEncodedBlock) {
+            output.writeByte(RUN_LENGTH);
+            output.writeInt(block.getPositionCount());
+            writeBlock(output, ((RunLengthEncodedBlock) block).getValue());
+            return;
+        }
+        if (block instanceof DictionaryBlock) {
+            output.writeByte(DICTIONARY);
+            // the dictionary is only referenced by this block, keep the entries it uses
+            writeDictionary(output, ((DictionaryBlock) block).compact());
+            return;
+        }
+        if (block.getEncodingName().equals(LongArrayBlockEncoding.NAME) && writeBitPackedLongs(output, block)) {
+            return;
+        }
+        if (block.getEncodingName().equals(VariableWidthBlockEncoding.NAME) && writeCompressedVariableWidth(output, block)) {
+            return;
+        }
+        output.writeByte(RAW);
+        blockEncodingSerde.writeBlock(output, block);
+    }
+
+    private Block readBlock(SliceInput input)
+    {
+        return readBlock(input, input.readByte());
+    }
+
+    private Block readBlock(SliceInput input, byte codec)
+    {
+        switch (codec) {
+            case RAW:
+                return blockEncodingSerde.readBlock(input);
+            case RUN_LENGTH:
+                int positionCount = input.readInt();
+                return new RunLengthEncodedBlock(readBlock(input), positionCount);
+            case DICTIONARY:
+                Block dictionary = readBlock(input);
+                return readDictionaryIds(input, dictionary, randomDictionaryId());
+            case BIT_PACKED_LONG:
+                return readBitPackedLongs(input);
+            case ZSTD_VARIABLE_WIDTH:
+                return readCompressedVariableWidth(input);
+            default:
+                throw new IllegalStateException("Unknown block codec: " + codec);
+        }
+    }
+
+    private void writeDictionary(SliceOutput output, DictionaryBlock block)
+    {
+        writeBlock(output, block.getDictionary());
+        writeDictionaryIds(output, block);
+    }
+
+    private void writeDictionaryIds(SliceOutput output, DictionaryBlock block)
+    {
+        int positionCount = block.getPositionCount();
+        long[] ids = ensureCapacity(values, positionCount);
+        values = ids;
+        for (int position = 0; position < positionCount; position++) {
+            ids[position] = block.getId(position);
+        }
+        int bitWidth = bitWidth(block.getDictionary().getPositionCount() - 1);
+        output.writeInt(positionCount);
+        output.writeByte(bitWidth);
+        writeBitPacked(output, ids, positionCount, bitWidth);
+    }
+
+    private Block readDictionaryIds(SliceInput input, Block dictionary, DictionaryId dictionaryId)
+    {
+        int positionCount = input.readInt();
+        int bitWidth = input.readByte();
+        long[] packed = ensureCapacity(values, positionCount);
+        values = packed;
+        readBitPacked(input, packed, positionCount, bitWidth);
+        int[] ids = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            ids[position] = (int) packed[position];
+        }
+        return new DictionaryBlock(positionCount, dictionary, ids, dictionaryId);
+    }
+
+    private boolean writeBitPackedLongs(SliceOutput output, Block block)
+    {
+        int positionCount = block.getPositionCount();
+        long[] nonNullValues = ensureCapacity(values, positionCount);
+        values = nonNullValues;
+        int count = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int position = 0; position < positionCount; position++) {
+            if (!block.isNull(position)) {
+                long value = block.getLong(position, 0);
+                nonNullValues[count++] = value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+
+        // zig-zag encoded differences between consecutive values, which are small for sorted or clustered values
+        long[] differences = ensureCapacity(deltas, count);
+        deltas = differences;
+        long maxDifference = 0;
+        for (int i = 1; i < count; i++) {
+            long difference = nonNullValues[i] - nonNullValues[i - 1];
+            differences[i - 1] = (difference << 1) ^ (difference >> 63);
+            maxDifference |= differences[i - 1];
+        }
+
+        int frameOfReferenceWidth = bitWidth(max - min);
+        int deltaWidth = bitWidth(maxDifference);
+        if (Math.min(frameOfReferenceWidth, deltaWidth) > MAXIMUM_PACKED_BIT_WIDTH) {
+            return false;
+        }
+
+        output.writeByte(BIT_PACKED_LONG);
+        output.writeInt(positionCount);
+        writeNulls(output, block, count < positionCount);
+        output.writeInt(count);
+        if (deltaWidth < frameOfReferenceWidth) {
+            output.writeByte(DELTA);
+            output.writeLong(nonNullValues[0]);
+            output.writeByte(deltaWidth);
+            writeBitPacked(output, differences, count - 1, deltaWidth);
+        }
+        else {
+            for (int i = 0; i < count; i++) {
+                nonNullValues[i] -= min;
+            }
+            output.writeByte(FRAME_OF_REFERENCE);
+            output.writeLong(min);
+            output.writeByte(frameOfReferenceWidth);
+            writeBitPacked(output, nonNullValues, count, frameOfReferenceWidth);
+        }
+        return true;
+    }
+
+    private Block readBitPackedLongs(SliceInput input)
+    {
+        int positionCount = input.readInt();
+        Optional<boolean[]> valueIsNull = readNulls(input, positionCount);
+        int count = input.readInt();
+        byte mode = input.readByte();
+        long base = input.readLong();
+        int bitWidth = input.readByte();
+
+        long[] blockValues = new long[positionCount];
+        if (mode == DELTA) {
+            readBitPacked(input, blockValues, count - 1, bitWidth);
+            // the difference to the next value is replaced in place by the current value
+            long value = base;
+            for (int i = 0; i < count; i++) {
+                long zigZag = i < count - 1 ? blockValues[i] : 0;
+                blockValues[i] = value;
+                value += (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        else {
+            checkState(mode == FRAME_OF_REFERENCE, "Unknown long packing: %s", mode);
+            readBitPacked(input, blockValues, count, bitWidth);
+            for (int i = 0; i < count; i++) {
+                blockValues[i] += base;
+            }
+        }
+
+        if (valueIsNull.isPresent()) {
+            // spread the non null values to their positions
+            boolean[] isNull = valueIsNull.get();
+            int valueIndex = count - 1;
+            for (int position = positionCount - 1; position >= 0; position--) {
+                blockValues[position] = isNull[position] ? 0 : blockValues[valueIndex--];
+            }
+        }
+        return new LongArrayBlock(positionCount, valueIsNull, blockValues);
+    }
+
+    private boolean writeCompressedVariableWidth(SliceOutput output, Block block)
+    {
+        int positionCount = block.getPositionCount();
+        long[] lengths = ensureCapacity(values, positionCount);
+        values = lengths;
+        long dataSize = 0;
+        long maxLength = 0;
+        boolean mayHaveNull = false;
+        for (int position = 0; position < positionCount; position++) {
+            if (block.isNull(position)) {
+                mayHaveNull = true;
+                lengths[position] = 0;
+            }
+            else {
+                lengths[position] = block.getSliceLength(position);
+                dataSize += lengths[position];
+                maxLength = Math.max(maxLength, lengths[position]);
+            }
+        }
+        if (dataSize < MINIMUM_ZSTD_INPUT_SIZE) {
+            return false;
+        }
+
+        if (variableWidthBuffer == null) {
+            variableWidthBuffer = new DynamicSliceOutput(toIntExact(dataSize));
+        }
+        else {
+            variableWidthBuffer.reset();
+        }
+        DynamicSliceOutput data = variableWidthBuffer;
+        for (int position = 0; position < positionCount; position++) {
+            if (lengths[position] > 0) {
+                data.writeBytes(block.getSlice(position, 0, (int) lengths[position]));
+            }
+        }
+        Slice uncompressed = data.slice();
+
+        int maxCompressedLength = compressor.maxCompressedLength(uncompressed.length());
+        if (compressionBuffer.length < maxCompressedLength) {
+            compressionBuffer = new byte[maxCompressedLength];
+        }
+        int compressedSize = compressor.compress(
+                (byte[]) uncompressed.getBase(),
+                (int) (uncompressed.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                uncompressed.length(),
+                compressionBuffer,
+                0,
+                compressionBuffer.length);
+        if ((((double) compressedSize) / uncompressed.length()) > MINIMUM_COMPRESSION_RATIO) {
+            return false;
+        }
+
+        output.writeByte(ZSTD_VARIABLE_WIDTH);
+        output.writeInt(positionCount);
+        writeNulls(output, block, mayHaveNull);
+        int lengthWidth = bitWidth(maxLength);
+        output.writeByte(lengthWidth);
+        writeBitPacked(output, lengths, positionCount, lengthWidth);
+        output.writeInt(uncompressed.length());
+        output.writeInt(compressedSize);
+        output.writeBytes(compressionBuffer, 0, compressedSize);
+        return true;
+    }
+
+    private Block readCompressedVariableWidth(SliceInput input)
+    {
+        int positionCount = input.readInt();
+        Optional<boolean[]> valueIsNull = readNulls(input, positionCount);
+        int lengthWidth = input.readByte();
+        long[] lengths = ensureCapacity(values, positionCount);
+        values = lengths;
+        readBitPacked(input, lengths, positionCount, lengthWidth);
+        int[] offsets = new int[positionCount + 1];
+        for (int position = 0; position < positionCount; position++) {
+            offsets[position + 1] = offsets[position] + (int) lengths[position];
+        }
+
+        int uncompressedSize = input.readInt();
+        int compressedSize = input.readInt();
+        Slice compressed = input.readSlice(compressedSize);
+        byte[] uncompressed = new byte[uncompressedSize];
+        checkState(decompressor.decompress(
+                (byte[]) compressed.getBase(),
+                (int) (compressed.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                compressedSize,
+                uncompressed,
+                0,
+                uncompressedSize) == uncompressedSize);
+        return new VariableWidthBlock(positionCount, Slices.wrappedBuffer(uncompressed), offsets, valueIsNull);
+    }
+
+    private static void writeNulls(SliceOutput output, Block block, boolean mayHaveNull)
+    {
+        output.writeBoolean(mayHaveNull);
+        if (!mayHaveNull) {
+            return;
+        }
+        int positionCount = block.getPositionCount();
+        for (int position = 0; position < positionCount; position += Byte.SIZE) {
+            int value = 0;
+            for (int bit = 0; bit < Byte.SIZE && position + bit < positionCount; bit++) {
+                if (block.isNull(position + bit)) {
+                    value |= 1 << bit;
+                }
+            }
+            output.writeByte(value);
+        }
+    }
+
+    private static Optional<boolean[]> readNulls(SliceInput input, int positionCount)
+    {
+        if (!input.readBoolean()) {
+            return Optional.empty();
+        }
+        boolean[] valueIsNull = new boolean[positionCount];
+        for (int position = 0; position < positionCount; position += Byte.SIZE) {
+            int value = input.readByte();
+            for (int bit = 0; bit < Byte.SIZE && position + bit < positionCount; bit++) {
+                valueIsNull[position + bit] = (value & (1 << bit)) != 0;
+            }
+        }
+        return Optional.of(valueIsNull);
+    }
+
+    private static long[] ensureCapacity(long[] buffer, int capacity)
+    {
+        return buffer.length < capacity ? new long[capacity] : buffer;
+    }
+}
@@ -20,7 +20,9 @@ import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockEncodingSerde;
 
 import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static io.prestosql.spi.util.Reflection.methodHandle;
 
 public final class BlockSerdeUtil
@@ -45,4 +47,87 @@ public final class BlockSerdeUtil
     {
         blockEncodingSerde.writeBlock(output, block);
     }
+
+    /**
+     * Number of bits needed to store the given value, read as unsigned
+     */
+    public static int bitWidth(long value)
+    {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Writes the lowest {@code bitWidth} bits of the first {@code count} values, packed in little endian order.
+     * The last partial word is written with as few bytes as possible.
+     */
+    public static void writeBitPacked(SliceOutput output, long[] values, int count, int bitWidth)
+    {
+        checkArgument(bitWidth >= 0 && bitWidth <= Long.SIZE, "invalid bit width: %s", bitWidth);
+        if (bitWidth == 0) {
+            return;
+        }
+
+        long buffer = 0;
+        int bufferedBits = 0;
+        for (int i = 0; i < count; i++) {
+            long value = values[i];
+            buffer |= value << bufferedBits;
+            int freeBits = Long.SIZE - bufferedBits;
+            if (bitWidth >= freeBits) {
+                output.writeLong(buffer);
+                buffer = freeBits == Long.SIZE ? 0 : value >>> freeBits;
+                bufferedBits = bitWidth - freeBits;
+            }
+            else {
+                bufferedBits += bitWidth;
+            }
+        }
+        for (int written = 0; written < bufferedBits; written += Byte.SIZE) {
+            output.writeByte((int) (buffer >>> written));
+        }
+    }
+
+    /**
+     * Reads {@code count} values written by {@link #writeBitPacked}
+     */
+    public static void readBitPacked(SliceInput input, long[] values, int count, int bitWidth)
+    {
+        checkArgument(bitWidth >= 0 && bitWidth <= Long.SIZE, "invalid bit width: %s", bitWidth);
+        if (bitWidth == 0) {
+            Arrays.fill(values, 0, count, 0);
+            return;
+        }
+
+        long totalBits = (long) count * bitWidth;
+        long fullWords = totalBits / Long.SIZE;
+        int tailBytes = (int) ((totalBits % Long.SIZE + Byte.SIZE - 1) / Byte.SIZE);
+        long mask = bitWidth == Long.SIZE ? -1L : (1L << bitWidth) - 1;
+
+        long buffer = 0;
+        int bufferedBits = 0;
+        for (int i = 0; i < count; i++) {
+            if (bufferedBits >= bitWidth) {
+                values[i] = buffer & mask;
+                buffer = bitWidth == Long.SIZE ? 0 : buffer >>> bitWidth;
+                bufferedBits -= bitWidth;
+                continue;
+            }
+
+            long word;
+            if (fullWords > 0) {
+                word = input.readLong();
+                fullWords--;
+            }
+            else {
+                word = 0;
+                for (int shift = 0; shift < tailBytes * Byte.SIZE; shift += Byte.SIZE) {
+                    word |= (input.readByte() & 0xFFL) << shift;
+                }
+            }
+            int missingBits = bitWidth - bufferedBits;
+            values[i] = (buffer | (word << bufferedBits)) & mask;
+            buffer = missingBits == Long.SIZE ? 0 : word >>> missingBits;
+            bufferedBits = Long.SIZE - missingBits;
+        }
+    }
 }
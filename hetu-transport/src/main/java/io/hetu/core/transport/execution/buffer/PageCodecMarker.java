@@ -26,7 +26,9 @@ import static com.google.common.base.Preconditions.checkArgument;
 public enum PageCodecMarker
 {
     COMPRESSED(1),
-    ENCRYPTED(2);
+    ENCRYPTED(2),
+    // the blocks are written by BlockCodecSerde, each with the codec chosen for its data
+    BLOCK_ENCODED(3);
 
     private final int mask;
 
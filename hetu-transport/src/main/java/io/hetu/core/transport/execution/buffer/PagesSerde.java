@@ -19,6 +19,7 @@ import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
+import io.hetu.core.transport.block.BlockCodecSerde;
 import io.hetu.core.transport.execution.buffer.PageCodecMarker.MarkerSet;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.BlockEncodingSerde;
@@ -30,74 +31,126 @@ import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.hetu.core.transport.execution.buffer.PageCodecMarker.BLOCK_ENCODED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.COMPRESSED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.ENCRYPTED;
+import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.readBlockEncodedPage;
 import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.readRawPage;
+import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.writeBlockEncodedPage;
 import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.writeRawPage;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 
+/**
+ * Serializes pages, encoding their blocks by the shape of their data, compressing and encrypting them if configured.
+ * The intermediate results are written to scratch buffers reused by the following pages, the only array allocated
+ * for a serialized page is the one holding its final content. A deserialized page references the array it is read
+ * from, so only the decryption of a compressed page goes through a scratch buffer.
+ */
 @NotThreadSafe
 public class PagesSerde
 {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    private static final int INITIAL_SERIALIZATION_BUFFER_SIZE = 4096;
+    // scratch buffers grown beyond this size by large pages are released after use
+    private static final int MAXIMUM_RETAINED_SCRATCH_SIZE = 4 * 1024 * 1024;
 
     private final BlockEncodingSerde blockEncodingSerde;
     private final Optional<Compressor> compressor;
     private final Optional<Decompressor> decompressor;
     private final Optional<SpillCipher> spillCipher;
+    private final boolean blockEncodingEnabled;
+    private final PagesSerdeStats stats;
+
+    private BlockCodecSerde blockCodecSerde;
+    private DynamicSliceOutput serializationBuffer;
+    private byte[] compressionBuffer;
+    private byte[] encryptionBuffer;
+    private byte[] decryptionBuffer;
 
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor, Optional<SpillCipher> spillCipher)
+    {
+        this(blockEncodingSerde, compressor, decompressor, spillCipher, new PagesSerdeStats());
+    }
+
+    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor, Optional<SpillCipher> spillCipher, PagesSerdeStats stats)
+    {
+        this(blockEncodingSerde, compressor, decompressor, spillCipher, false, stats);
+    }
+
+    /**
+     * @param blockEncodingEnabled whether the blocks are written with the codecs of {@link BlockCodecSerde} rather than
+     * with their block encoding. Pages are read in either format.
+     */
+    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor, Optional<SpillCipher> spillCipher, boolean blockEncodingEnabled, PagesSerdeStats stats)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
         this.compressor = requireNonNull(compressor, "compressor is null");
         this.decompressor = requireNonNull(decompressor, "decompressor is null");
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
+        this.blockEncodingEnabled = blockEncodingEnabled;
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    public PagesSerdeStats getStats()
+    {
+        return stats;
     }
 
     public SerializedPage serialize(Page page)
     {
-        SliceOutput serializationBuffer = new DynamicSliceOutput(toIntExact(page.getSizeInBytes() + Integer.BYTES)); // block length is an int
-        writeRawPage(page, serializationBuffer, blockEncodingSerde);
+        long start = System.nanoTime();
+        SliceOutput serializationBuffer = getSerializationBuffer(toIntExact(page.getSizeInBytes() + Integer.BYTES)); // block length is an int
+        long retainedSize = serializationBuffer.getRetainedSize();
+        MarkerSet markers = MarkerSet.empty();
+        if (blockEncodingEnabled) {
+            writeBlockEncodedPage(page, serializationBuffer, getBlockCodecSerde());
+            markers.add(BLOCK_ENCODED);
+        }
+        else {
+            writeRawPage(page, serializationBuffer, blockEncodingSerde);
+        }
+        stats.recordAllocation(serializationBuffer.getRetainedSize() - retainedSize);
         Slice slice = serializationBuffer.slice();
         int uncompressedSize = serializationBuffer.size();
-        MarkerSet markers = MarkerSet.empty();
 
         if (compressor.isPresent()) {
-            byte[] compressed = new byte[compressor.get().maxCompressedLength(uncompressedSize)];
+            compressionBuffer = ensureCapacity(compressionBuffer, compressor.get().maxCompressedLength(uncompressedSize));
             int compressedSize = compressor.get().compress(
                     (byte[]) slice.getBase(),
                     (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
                     uncompressedSize,
-                    compressed,
+                    compressionBuffer,
                     0,
-                    compressed.length);
+                    compressionBuffer.length);
 
             if ((((double) compressedSize) / uncompressedSize) <= MINIMUM_COMPRESSION_RATIO) {
-                slice = Slices.wrappedBuffer(compressed, 0, compressedSize);
+                slice = Slices.wrappedBuffer(compressionBuffer, 0, compressedSize);
                 markers.add(COMPRESSED);
             }
         }
 
         if (spillCipher.isPresent()) {
-            byte[] encrypted = new byte[spillCipher.get().encryptedMaxLength(slice.length())];
+            encryptionBuffer = ensureCapacity(encryptionBuffer, spillCipher.get().encryptedMaxLength(slice.length()));
             int encryptedSize = spillCipher.get().encrypt(
                     (byte[]) slice.getBase(),
                     (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
                     slice.length(),
-                    encrypted,
+                    encryptionBuffer,
                     0);
 
-            slice = Slices.wrappedBuffer(encrypted, 0, encryptedSize);
+            slice = Slices.wrappedBuffer(encryptionBuffer, 0, encryptedSize);
             markers.add(ENCRYPTED);
         }
 
-        if (!slice.isCompact()) {
-            slice = Slices.copyOf(slice);
-        }
+        // the serialized page owns its content, the scratch buffers are reused by the next page
+        slice = Slices.copyOf(slice);
+        stats.recordAllocation(slice.length());
+        releaseOversizedBuffers();
 
+        stats.recordSerialization(uncompressedSize, slice.length(), System.nanoTime() - start);
         return new SerializedPage(slice, markers, page.getPositionCount(), uncompressedSize);
     }
 
@@ -105,12 +158,23 @@ public class PagesSerde
     {
         checkArgument(serializedPage != null, "serializedPage is null");
 
+        long start = System.nanoTime();
         Slice slice = serializedPage.getSlice();
 
         if (serializedPage.isEncrypted()) {
             checkState(spillCipher.isPresent(), "Page is encrypted, but spill cipher is missing");
 
-            byte[] decrypted = new byte[spillCipher.get().decryptedMaxLength(slice.length())];
+            // the decrypted content is only referenced by the page if it is not compressed
+            int decryptedMaxLength = spillCipher.get().decryptedMaxLength(slice.length());
+            byte[] decrypted;
+            if (serializedPage.isCompressed()) {
+                decryptionBuffer = ensureCapacity(decryptionBuffer, decryptedMaxLength);
+                decrypted = decryptionBuffer;
+            }
+            else {
+                decrypted = new byte[decryptedMaxLength];
+                stats.recordAllocation(decryptedMaxLength);
+            }
             int decryptedSize = spillCipher.get().decrypt(
                     (byte[]) slice.getBase(),
                     (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
@@ -126,6 +190,7 @@ public class PagesSerde
 
             int uncompressedSize = serializedPage.getUncompressedSizeInBytes();
             byte[] decompressed = new byte[uncompressedSize];
+            stats.recordAllocation(uncompressedSize);
             checkState(decompressor.get().decompress(
                     (byte[]) slice.getBase(),
                     (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
@@ -136,7 +201,61 @@ public class PagesSerde
 
             slice = Slices.wrappedBuffer(decompressed);
         }
+        releaseOversizedBuffers();
+
+        Page page;
+        if (serializedPage.isBlockEncoded()) {
+            page = readBlockEncodedPage(serializedPage.getPositionCount(), slice.getInput(), getBlockCodecSerde());
+        }
+        else {
+            page = readRawPage(serializedPage.getPositionCount(), slice.getInput(), blockEncodingSerde);
+        }
+        stats.recordDeserialization(serializedPage.getUncompressedSizeInBytes(), System.nanoTime() - start);
+        return page;
+    }
+
+    private BlockCodecSerde getBlockCodecSerde()
+    {
+        if (blockCodecSerde == null) {
+            blockCodecSerde = new BlockCodecSerde(blockEncodingSerde);
+        }
+        return blockCodecSerde;
+    }
+
+    private SliceOutput getSerializationBuffer(int estimatedSize)
+    {
+        if (serializationBuffer == null) {
+            int initialSize = Math.min(Math.max(estimatedSize, INITIAL_SERIALIZATION_BUFFER_SIZE), MAXIMUM_RETAINED_SCRATCH_SIZE);
+            serializationBuffer = new DynamicSliceOutput(initialSize);
+            stats.recordAllocation(serializationBuffer.getRetainedSize());
+        }
+        else {
+            serializationBuffer.reset();
+        }
+        return serializationBuffer;
+    }
+
+    private byte[] ensureCapacity(byte[] buffer, int capacity)
+    {
+        if (buffer == null || buffer.length < capacity) {
+            stats.recordAllocation(capacity);
+            return new byte[capacity];
+        }
+        return buffer;
+    }
 
-        return readRawPage(serializedPage.getPositionCount(), slice.getInput(), blockEncodingSerde);
+    private void releaseOversizedBuffers()
+    {
+        if (serializationBuffer != null && serializationBuffer.getRetainedSize() > MAXIMUM_RETAINED_SCRATCH_SIZE) {
+            serializationBuffer = null;
+        }
+        compressionBuffer = releaseIfOversized(compressionBuffer);
+        encryptionBuffer = releaseIfOversized(encryptionBuffer);
+        decryptionBuffer = releaseIfOversized(decryptionBuffer);
+    }
+
+    private static byte[] releaseIfOversized(byte[] buffer)
+    {
+        return buffer != null && buffer.length > MAXIMUM_RETAINED_SCRATCH_SIZE ? null : buffer;
     }
 }
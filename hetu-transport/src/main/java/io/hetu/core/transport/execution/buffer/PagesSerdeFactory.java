@@ -26,11 +26,41 @@ public class PagesSerdeFactory
 {
     private final BlockEncodingSerde blockEncodingSerde;
     private final boolean compressionEnabled;
+    private final boolean blockEncodingEnabled;
+    private final PagesSerdeStats stats;
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled)
+    {
+        this(blockEncodingSerde, compressionEnabled, false);
+    }
+
+    public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled, boolean blockEncodingEnabled)
+    {
+        this(blockEncodingSerde, compressionEnabled, blockEncodingEnabled, Optional.empty());
+    }
+
+    /**
+     * @param nodeStats stats the counters of this factory are added to
+     */
+    public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled, boolean blockEncodingEnabled, PagesSerdeStats nodeStats)
+    {
+        this(blockEncodingSerde, compressionEnabled, blockEncodingEnabled, Optional.of(requireNonNull(nodeStats, "nodeStats is null")));
+    }
+
+    private PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled, boolean blockEncodingEnabled, Optional<PagesSerdeStats> nodeStats)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         this.compressionEnabled = compressionEnabled;
+        this.blockEncodingEnabled = blockEncodingEnabled;
+        this.stats = nodeStats.map(PagesSerdeStats::new).orElseGet(PagesSerdeStats::new);
+    }
+
+    /**
+     * Counters shared by all the serdes created by this factory
+     */
+    public PagesSerdeStats getStats()
+    {
+        return stats;
     }
 
     public PagesSerde createPagesSerde()
@@ -46,9 +76,9 @@ public class PagesSerdeFactory
     private PagesSerde createPagesSerdeInternal(Optional<SpillCipher> spillCipher)
     {
         if (compressionEnabled) {
-            return new PagesSerde(blockEncodingSerde, Optional.of(new Lz4Compressor()), Optional.of(new Lz4Decompressor()), spillCipher);
+            return new PagesSerde(blockEncodingSerde, Optional.of(new Lz4Compressor()), Optional.of(new Lz4Decompressor()), spillCipher, blockEncodingEnabled, stats);
         }
 
-        return new PagesSerde(blockEncodingSerde, Optional.empty(), Optional.empty(), spillCipher);
+        return new PagesSerde(blockEncodingSerde, Optional.empty(), Optional.empty(), spillCipher, blockEncodingEnabled, stats);
     }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.transport.execution.buffer;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Counters of the pages serialized and deserialized by the {@link PagesSerde} instances sharing them,
+ * including the bytes of the arrays the serdes had to allocate. The counters are also added to the parent stats if any,
+ * e.g. to aggregate the stats of all the serde factories of a node.
+ */
+public class PagesSerdeStats
+{
+    private final Optional<PagesSerdeStats> parent;
+    private final LongAdder serializedPages = new LongAdder();
+    private final LongAdder serializedBytes = new LongAdder();
+    private final LongAdder serializedOutputBytes = new LongAdder();
+    private final LongAdder serializationTimeNanos = new LongAdder();
+    private final LongAdder deserializedPages = new LongAdder();
+    private final LongAdder deserializedBytes = new LongAdder();
+    private final LongAdder deserializationTimeNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    public PagesSerdeStats()
+    {
+        this.parent = Optional.empty();
+    }
+
+    public PagesSerdeStats(PagesSerdeStats parent)
+    {
+        this.parent = Optional.of(requireNonNull(parent, "parent is null"));
+    }
+
+    void recordSerialization(long uncompressedBytes, long outputBytes, long nanos)
+    {
+        serializedPages.increment();
+        serializedBytes.add(uncompressedBytes);
+        serializedOutputBytes.add(outputBytes);
+        serializationTimeNanos.add(nanos);
+        parent.ifPresent(stats -> stats.recordSerialization(uncompressedBytes, outputBytes, nanos));
+    }
+
+    void recordDeserialization(long uncompressedBytes, long nanos)
+    {
+        deserializedPages.increment();
+        deserializedBytes.add(uncompressedBytes);
+        deserializationTimeNanos.add(nanos);
+        parent.ifPresent(stats -> stats.recordDeserialization(uncompressedBytes, nanos));
+    }
+
+    void recordAllocation(long bytes)
+    {
+        allocatedBytes.add(bytes);
+        parent.ifPresent(stats -> stats.recordAllocation(bytes));
+    }
+
+    public long getSerializedPages()
+    {
+        return serializedPages.sum();
+    }
+
+    /**
+     * Size of the serialized pages before compression and encryption
+     */
+    public long getSerializedBytes()
+    {
+        return serializedBytes.sum();
+    }
+
+    /**
+     * Size of the serialized pages after compression and encryption
+     */
+    public long getSerializedOutputBytes()
+    {
+        return serializedOutputBytes.sum();
+    }
+
+    public long getSerializationTimeNanos()
+    {
+        return serializationTimeNanos.sum();
+    }
+
+    public long getDeserializedPages()
+    {
+        return deserializedPages.sum();
+    }
+
+    /**
+     * Size of the deserialized pages after decryption and decompression
+     */
+    public long getDeserializedBytes()
+    {
+        return deserializedBytes.sum();
+    }
+
+    public long getDeserializationTimeNanos()
+    {
+        return deserializationTimeNanos.sum();
+    }
+
+    /**
+     * Bytes of the arrays allocated to serialize and deserialize pages, including the arrays owned by the
+     * resulting pages and the growth of the scratch buffers
+     */
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("serializedPages", getSerializedPages())
+                .add("serializedBytes", getSerializedBytes())
+                .add("serializedOutputBytes", getSerializedOutputBytes())
+                .add("serializationTimeNanos", getSerializationTimeNanos())
+                .add("deserializedPages", getDeserializedPages())
+                .add("deserializedBytes", getDeserializedBytes())
+                .add("deserializationTimeNanos", getDeserializationTimeNanos())
+                .add("allocatedBytes", getAllocatedBytes())
+                .toString();
+    }
+}
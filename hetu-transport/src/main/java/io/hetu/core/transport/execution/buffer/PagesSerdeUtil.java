@@ -17,6 +17,7 @@ import com.google.common.collect.AbstractIterator;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
+import io.hetu.core.transport.block.BlockCodecSerde;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockEncodingSerde;
@@ -43,6 +44,22 @@ public class PagesSerdeUtil
         }
     }
 
+    static void writeBlockEncodedPage(Page page, SliceOutput output, BlockCodecSerde blockCodecSerde)
+    {
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel);
+        }
+        output.writeInt(blocks.length);
+        blockCodecSerde.writeBlocks(output, blocks);
+    }
+
+    static Page readBlockEncodedPage(int positionCount, SliceInput input, BlockCodecSerde blockCodecSerde)
+    {
+        int numberOfBlocks = input.readInt();
+        return new Page(positionCount, blockCodecSerde.readBlocks(input, numberOfBlocks));
+    }
+
     static Page readRawPage(int positionCount, SliceInput input, BlockEncodingSerde blockEncodingSerde)
     {
         int numberOfBlocks = input.readInt();
@@ -63,7 +80,7 @@ public class PagesSerdeUtil
         output.writeBytes(page.getSlice());
     }
 
-    private static SerializedPage readSerializedPage(SliceInput sliceInput)
+    public static SerializedPage readSerializedPage(SliceInput sliceInput)
     {
         int positionCount = sliceInput.readInt();
         PageCodecMarker.MarkerSet markers = PageCodecMarker.MarkerSet.fromByteValue(sliceInput.readByte());
@@ -21,6 +21,7 @@ import org.openjdk.jol.info.ClassLayout;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.hetu.core.transport.execution.buffer.PageCodecMarker.BLOCK_ENCODED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.COMPRESSED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.ENCRYPTED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.MarkerSet.fromByteValue;
@@ -116,6 +117,11 @@ public class SerializedPage
         return ENCRYPTED.isSet(pageCodecMarkers);
     }
 
+    public boolean isBlockEncoded()
+    {
+        return BLOCK_ENCODED.isSet(pageCodecMarkers);
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.transport.execution.buffer;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.TestingBlockEncodingSerde;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OperationsPerInvocation(BenchmarkPagesSerde.PAGE_COUNT)
+public class BenchmarkPagesSerde
+{
+    static final int PAGE_COUNT = 100;
+    private static final int POSITION_COUNT = 4096;
+
+    @Benchmark
+    public List<SerializedPage> serialize(BenchmarkData data)
+    {
+        List<SerializedPage> serializedPages = new ArrayList<>(PAGE_COUNT);
+        for (Page page : data.pages) {
+            serializedPages.add(data.serde.serialize(page));
+        }
+        return serializedPages;
+    }
+
+    /**
+     * Serialize every page with a new serde, so that no scratch buffer is reused
+     */
+    @Benchmark
+    public List<SerializedPage> serializeWithoutReuse(BenchmarkData data)
+    {
+        List<SerializedPage> serializedPages = new ArrayList<>(PAGE_COUNT);
+        for (Page page : data.pages) {
+            serializedPages.add(data.serdeFactory.createPagesSerde().serialize(page));
+        }
+        return serializedPages;
+    }
+
+    @Benchmark
+    public List<Page> deserialize(BenchmarkData data)
+    {
+        List<Page> pages = new ArrayList<>(PAGE_COUNT);
+        for (SerializedPage serializedPage : data.serializedPages) {
+            pages.add(data.serde.deserialize(serializedPage));
+        }
+        return pages;
+    }
+
+    @Test
+    public void verify()
+    {
+        BenchmarkData data = new BenchmarkData();
+        data.compressed = true;
+        data.blockEncoded = true;
+        data.setup();
+
+        List<SerializedPage> serializedPages = serialize(data);
+        assertEquals(serializedPages.size(), PAGE_COUNT);
+        List<Page> pages = deserialize(data);
+        for (int i = 0; i < PAGE_COUNT; i++) {
+            assertEquals(pages.get(i).getPositionCount(), data.pages.get(i).getPositionCount());
+            assertEquals(pages.get(i).getSizeInBytes(), data.pages.get(i).getSizeInBytes());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"true", "false"})
+        private boolean compressed;
+
+        @Param({"true", "false"})
+        private boolean blockEncoded;
+
+        private final List<Page> pages = new ArrayList<>(PAGE_COUNT);
+        private final List<SerializedPage> serializedPages = new ArrayList<>(PAGE_COUNT);
+        private PagesSerdeFactory serdeFactory;
+        private PagesSerde serde;
+
+        @Setup
+        public void setup()
+        {
+            serdeFactory = new PagesSerdeFactory(new TestingBlockEncodingSerde(), compressed, blockEncoded);
+            serde = serdeFactory.createPagesSerde();
+
+            Random random = new Random(0);
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                BlockBuilder bigints = BIGINT.createBlockBuilder(null, POSITION_COUNT);
+                BlockBuilder varchars = VARCHAR.createBlockBuilder(null, POSITION_COUNT);
+                for (int position = 0; position < POSITION_COUNT; position++) {
+                    BIGINT.writeLong(bigints, random.nextInt(1000));
+                    VARCHAR.writeString(varchars, "value_" + random.nextInt(1000));
+                }
+                Page page = new Page(bigints.build(), varchars.build());
+                pages.add(page);
+                serializedPages.add(serde.serialize(page));
+            }
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        // assure the benchmarks are valid before running
+        new BenchmarkPagesSerde().verify();
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkPagesSerde.class.getSimpleName() + ".*")
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -13,7 +13,9 @@
  */
 package io.prestosql.plugin.jdbc;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
@@ -39,12 +41,17 @@ import io.prestosql.spi.type.VarcharType;
 
 import javax.annotation.PreDestroy;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -55,11 +62,13 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongFunction;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
@@ -122,6 +131,9 @@ public class BaseJdbcClient
     protected final Cache<RemoteTableNameCacheKey, Map<String, String>> remoteTableNames;
     // Hetu: JDBC fetch size configuration
     protected final int fetchSize;
+    // Hetu: number of range splits of the table scans, and the columns they are split on
+    protected final int splitCount;
+    private final Map<SchemaTableName, String> splitColumns;
 
     public BaseJdbcClient(BaseJdbcConfig config, String identifierQuote, ConnectionFactory connectionFactory)
     {
@@ -130,7 +142,9 @@ public class BaseJdbcClient
                 connectionFactory,
                 requireNonNull(config, "config is null").isCaseInsensitiveNameMatching(),
                 config.getCaseInsensitiveNameMatchingCacheTtl(),
-                config.getFetchSize()); // Hetu: Read JDBC fetch size configuration
+                config.getFetchSize(), // Hetu: Read JDBC fetch size configuration
+                config.getSplitCount(),
+                parseSplitColumns(config.getSplitColumns()));
     }
 
     public BaseJdbcClient(
@@ -157,6 +171,18 @@ public class BaseJdbcClient
             boolean caseInsensitiveNameMatching,
             Duration caseInsensitiveNameMatchingCacheTtl,
             int fetchSize)
+    {
+        this(identifierQuote, connectionFactory, caseInsensitiveNameMatching, caseInsensitiveNameMatchingCacheTtl, fetchSize, 1, ImmutableMap.of());
+    }
+
+    private BaseJdbcClient(
+            String identifierQuote,
+            ConnectionFactory connectionFactory,
+            boolean caseInsensitiveNameMatching,
+            Duration caseInsensitiveNameMatchingCacheTtl,
+            int fetchSize,
+            int splitCount,
+            Map<SchemaTableName, String> splitColumns)
     {
         this.identifierQuote = requireNonNull(identifierQuote, "identifierQuote is null");
         this.connectionFactory = requireNonNull(connectionFactory, "connectionFactory is null");
@@ -168,6 +194,22 @@ public class BaseJdbcClient
         this.remoteSchemaNames = remoteNamesCacheBuilder.build();
         this.remoteTableNames = remoteNamesCacheBuilder.build();
         this.fetchSize = fetchSize;
+        this.splitCount = splitCount;
+        this.splitColumns = requireNonNull(splitColumns, "splitColumns is null");
+    }
+
+    private static Map<SchemaTableName, String> parseSplitColumns(String splitColumns)
+    {
+        if (isNullOrEmpty(splitColumns)) {
+            return ImmutableMap.of();
+        }
+        ImmutableMap.Builder<SchemaTableName, String> columns = ImmutableMap.builder();
+        for (String splitColumn : Splitter.on(',').trimResults().omitEmptyStrings().split(splitColumns)) {
+            List<String> parts = Splitter.on('.').splitToList(splitColumn);
+            checkArgument(parts.size() == 3, "Invalid split column, expected schema.table.column: %s", splitColumn);
+            columns.put(new SchemaTableName(parts.get(0), parts.get(1)), parts.get(2));
+        }
+        return columns.build();
     }
 
     @PreDestroy
@@ -299,7 +341,167 @@ public class BaseJdbcClient
     @Override
     public ConnectorSplitSource getSplits(JdbcIdentity identity, JdbcTableHandle tableHandle)
     {
-        return new FixedSplitSource(ImmutableList.of(new JdbcSplit(Optional.empty())));
+        JdbcSplit singleSplit = new JdbcSplit(Optional.empty());
+        // a pushed down limit is applied by each split, so such scans are not split
+        if (splitCount <= 1 || tableHandle.getSubQuery() != null || tableHandle.getLimit().isPresent()) {
+            return new FixedSplitSource(ImmutableList.of(singleSplit));
+        }
+        List<String> predicates;
+        try (Connection connection = connectionFactory.openConnection(identity)) {
+            predicates = getSplitPredicates(connection, tableHandle);
+        }
+        catch (SQLException e) {
+            log.warn(e, "Failed to split table %s, it is read with a single split", tableHandle.getSchemaTableName());
+            predicates = ImmutableList.of();
+        }
+        if (predicates.isEmpty()) {
+            return new FixedSplitSource(ImmutableList.of(singleSplit));
+        }
+        return new FixedSplitSource(predicates.stream()
+                .map(predicate -> new JdbcSplit(Optional.of(predicate)))
+                .collect(toImmutableList()));
+    }
+
+    /**
+     * Hetu: get the predicates dividing the rows of a table into splits, which together must select every row exactly once.
+     * The table is split into ranges of the configured split column, or else of its single column primary key,
+     * when that column is an integer or a date.
+     *
+     * @param connection the connection
+     * @param tableHandle the table to split
+     * @return the predicates of the splits, or an empty list to read the table with a single split
+     * @throws SQLException when the table cannot be queried
+     */
+    protected List<String> getSplitPredicates(Connection connection, JdbcTableHandle tableHandle)
+            throws SQLException
+    {
+        DatabaseMetaData metadata = connection.getMetaData();
+        Optional<String> splitColumn = Optional.ofNullable(splitColumns.get(tableHandle.getSchemaTableName()));
+        if (!splitColumn.isPresent()) {
+            splitColumn = getSinglePrimaryKeyColumn(metadata, tableHandle);
+        }
+        if (!splitColumn.isPresent()) {
+            return ImmutableList.of();
+        }
+
+        String columnName = null;
+        int jdbcType = Types.NULL;
+        int decimalDigits = 0;
+        try (ResultSet resultSet = getColumns(tableHandle, metadata)) {
+            while (resultSet.next()) {
+                if (resultSet.getString("COLUMN_NAME").equalsIgnoreCase(splitColumn.get())) {
+                    columnName = resultSet.getString("COLUMN_NAME");
+                    jdbcType = resultSet.getInt("DATA_TYPE");
+                    decimalDigits = resultSet.getInt("DECIMAL_DIGITS");
+                    break;
+                }
+            }
+        }
+        boolean isDate = jdbcType == Types.DATE;
+        if (columnName == null || !(isDate || isIntegerType(jdbcType, decimalDigits))) {
+            return ImmutableList.of();
+        }
+
+        String column = quoted(columnName);
+        String sql = format("SELECT MIN(%s), MAX(%s) FROM %s", column, column, quoted(tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName()));
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(sql)) {
+            if (!resultSet.next()) {
+                return ImmutableList.of();
+            }
+            if (isDate) {
+                Date min = resultSet.getDate(1);
+                Date max = resultSet.getDate(2);
+                if (min == null || max == null) {
+                    return ImmutableList.of();
+                }
+                return getRangeSplitPredicates(column, min.toLocalDate().toEpochDay(), max.toLocalDate().toEpochDay(), splitCount,
+                        day -> toDateLiteral(LocalDate.ofEpochDay(day)));
+            }
+            BigDecimal min = resultSet.getBigDecimal(1);
+            BigDecimal max = resultSet.getBigDecimal(2);
+            if (min == null || max == null) {
+                return ImmutableList.of();
+            }
+            try {
+                return getRangeSplitPredicates(column, min.longValueExact(), max.longValueExact(), splitCount, Long::toString);
+            }
+            catch (ArithmeticException e) {
+                // beyond the range of bigint
+                return ImmutableList.of();
+            }
+        }
+    }
+
+    /**
+     * Hetu: the literal of a date bound of the range splits
+     *
+     * @param date the date
+     * @return the SQL literal
+     */
+    protected String toDateLiteral(LocalDate date)
+    {
+        return format("DATE '%s'", date);
+    }
+
+    private static Optional<String> getSinglePrimaryKeyColumn(DatabaseMetaData metadata, JdbcTableHandle tableHandle)
+            throws SQLException
+    {
+        List<String> columns = new ArrayList<>();
+        try (ResultSet resultSet = metadata.getPrimaryKeys(tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName())) {
+            while (resultSet.next()) {
+                columns.add(resultSet.getString("COLUMN_NAME"));
+            }
+        }
+        return columns.size() == 1 ? Optional.of(columns.get(0)) : Optional.empty();
+    }
+
+    private static boolean isIntegerType(int jdbcType, int decimalDigits)
+    {
+        switch (jdbcType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return true;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return decimalDigits == 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Divide the values between min and max into ranges of about the same size. The first range also selects
+     * the nulls and the values below min, and the last one the values above max, so that rows written after
+     * the bounds were read are selected by a split as well.
+     */
+    @VisibleForTesting
+    static List<String> getRangeSplitPredicates(String column, long min, long max, int splitCount, LongFunction<String> toLiteral)
+    {
+        BigInteger low = BigInteger.valueOf(min);
+        BigInteger range = BigInteger.valueOf(max).subtract(low).add(BigInteger.ONE);
+        int count = range.compareTo(BigInteger.valueOf(splitCount)) < 0 ? range.intValue() : splitCount;
+        if (count <= 1) {
+            return ImmutableList.of();
+        }
+
+        ImmutableList.Builder<String> predicates = ImmutableList.builder();
+        String previous = null;
+        for (int i = 1; i < count; i++) {
+            long bound = low.add(range.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(count))).longValueExact();
+            String literal = toLiteral.apply(bound);
+            if (previous == null) {
+                predicates.add(format("(%s < %s OR %s IS NULL)", column, literal, column));
+            }
+            else {
+                predicates.add(format("(%s >= %s AND %s < %s)", column, previous, column, literal));
+            }
+            previous = literal;
+        }
+        predicates.add(format("%s >= %s", column, previous));
+        return predicates.build();
     }
 
     @Override
@@ -52,6 +52,8 @@ public class BaseJdbcConfig
     private boolean jmxEnabled = true;
     // Hetu: JDBC fetch size configuration
     private int fetchSize;
+    private int splitCount = 1;
+    private String splitColumns;
 
     public boolean isLifo()
     {
@@ -364,4 +366,44 @@ public class BaseJdbcConfig
         this.fetchSize = fetchSize;
         return this;
     }
+
+    @Min(1)
+    public int getSplitCount()
+    {
+        return splitCount;
+    }
+
+    /**
+     * Number of range splits a table scan is divided into, each split being read over its own connection.
+     *
+     * @param splitCount the split count, 1 reads each table with a single split
+     * @return the BaseJdbcConfig
+     */
+    @Config("split-count")
+    @ConfigDescription("Number of range splits, and so of concurrent connections, a table scan is divided into")
+    public BaseJdbcConfig setSplitCount(int splitCount)
+    {
+        this.splitCount = splitCount;
+        return this;
+    }
+
+    @Nullable
+    public String getSplitColumns()
+    {
+        return splitColumns;
+    }
+
+    /**
+     * Columns the tables are split on, tables not listed are split on their single column primary key.
+     *
+     * @param splitColumns comma separated list of schema.table.column
+     * @return the BaseJdbcConfig
+     */
+    @Config("split-columns")
+    @ConfigDescription("Comma separated list of schema.table.column the tables are split on, other tables are split on their single column primary key")
+    public BaseJdbcConfig setSplitColumns(String splitColumns)
+    {
+        this.splitColumns = splitColumns;
+        return this;
+    }
 }
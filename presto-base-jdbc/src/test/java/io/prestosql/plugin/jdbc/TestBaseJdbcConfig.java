@@ -36,6 +36,8 @@ public class TestBaseJdbcConfig
                 .setPasswordCredentialName(null)
                 .setCaseInsensitiveNameMatching(false)
                 .setFetchSize(0)
+                .setSplitCount(1)
+                .setSplitColumns(null)
                 .setUseConnectionPool(false)
                 .setBlockWhenExhausted(false)
                 .setFairness(false)
@@ -68,6 +70,8 @@ public class TestBaseJdbcConfig
                 .put("case-insensitive-name-matching", "true")
                 .put("case-insensitive-name-matching.cache-ttl", "1s")
                 .put("fetch-size", "1000")
+                .put("split-count", "4")
+                .put("split-columns", "example.numbers.value")
                 .put("jdbc.connection.pool.lifo", "false")
                 .put("jdbc.connection.pool.fairness", "true")
                 .put("jdbc.connection.pool.maxWaitMillis", "1000")
@@ -94,6 +98,8 @@ public class TestBaseJdbcConfig
                 .setPasswordCredentialName("bar")
                 .setCaseInsensitiveNameMatching(true)
                 .setFetchSize(1000)
+                .setSplitCount(4)
+                .setSplitColumns("example.numbers.value")
                 .setUseConnectionPool(true)
                 .setBlockWhenExhausted(false)
                 .setFairness(true)
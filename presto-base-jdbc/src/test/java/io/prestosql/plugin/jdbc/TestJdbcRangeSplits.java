@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.jdbc;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.connector.ConnectorSplit;
+import io.prestosql.spi.connector.ConnectorSplitSource;
+import io.prestosql.spi.connector.SchemaTableName;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.prestosql.plugin.jdbc.BaseJdbcClient.getRangeSplitPredicates;
+import static io.prestosql.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static io.prestosql.testing.TestingConnectorSession.SESSION;
+import static org.testng.Assert.assertEquals;
+
+@Test(singleThreaded = true)
+public class TestJdbcRangeSplits
+{
+    private TestingDatabase database;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        database = new TestingDatabase(new BaseJdbcConfig()
+                .setSplitCount(3)
+                .setSplitColumns("example.numbers.value"));
+        try (Statement statement = database.getConnection().createStatement()) {
+            statement.execute("INSERT INTO tpch.orders(orderkey, custkey) VALUES (1, 1), (2, 1), (3, 2), (4, 2), (5, 3), (6, 3), (7, 4)");
+        }
+        database.getConnection().commit();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        database.close();
+    }
+
+    @Test
+    public void testRangeSplitPredicates()
+    {
+        assertEquals(getRangeSplitPredicates("x", 1, 12, 3, Long::toString), ImmutableList.of(
+                "(x < 5 OR x IS NULL)",
+                "(x >= 5 AND x < 9)",
+                "x >= 9"));
+        assertEquals(getRangeSplitPredicates("x", 5, 6, 4, Long::toString), ImmutableList.of(
+                "(x < 6 OR x IS NULL)",
+                "x >= 6"));
+        assertEquals(getRangeSplitPredicates("x", 7, 7, 4, Long::toString), ImmutableList.of());
+        assertEquals(getRangeSplitPredicates("x", Long.MIN_VALUE, Long.MAX_VALUE, 2, Long::toString), ImmutableList.of(
+                "(x < 0 OR x IS NULL)",
+                "x >= 0"));
+    }
+
+    @Test
+    public void testConfiguredSplitColumn()
+            throws SQLException
+    {
+        List<String> predicates = getSplitPredicates(new SchemaTableName("example", "numbers"));
+        assertEquals(predicates, ImmutableList.of(
+                "(\"VALUE\" < 5 OR \"VALUE\" IS NULL)",
+                "(\"VALUE\" >= 5 AND \"VALUE\" < 9)",
+                "\"VALUE\" >= 9"));
+        assertEquals(countRows("example.numbers", predicates), ImmutableList.of(3L, 0L, 3L));
+    }
+
+    @Test
+    public void testPrimaryKeySplitColumn()
+            throws SQLException
+    {
+        List<String> predicates = getSplitPredicates(new SchemaTableName("tpch", "orders"));
+        assertEquals(predicates.size(), 3);
+        assertEquals(countRows("tpch.orders", predicates), ImmutableList.of(2L, 2L, 3L));
+    }
+
+    @Test
+    public void testSingleSplit()
+    {
+        // empty table
+        assertEquals(getSplitPredicates(new SchemaTableName("tpch", "lineitem")), ImmutableList.of(""));
+        // varchar primary key
+        assertEquals(getSplitPredicates(new SchemaTableName("exa_ple", "num_ers")), ImmutableList.of(""));
+        // no primary key
+        assertEquals(getSplitPredicates(new SchemaTableName("exa_ple", "table_with_float_col")), ImmutableList.of(""));
+    }
+
+    private List<String> getSplitPredicates(SchemaTableName table)
+    {
+        ConnectorSplitSource splitSource = database.getJdbcClient().getSplits(JdbcIdentity.from(SESSION), database.getTableHandle(SESSION, table));
+        List<ConnectorSplit> splits = getFutureValue(splitSource.getNextBatch(NOT_PARTITIONED, 1000)).getSplits();
+        return splits.stream()
+                .map(split -> ((JdbcSplit) split).getAdditionalPredicate())
+                .map(predicate -> predicate.orElse(""))
+                .collect(toImmutableList());
+    }
+
+    private List<Long> countRows(String table, List<String> predicates)
+            throws SQLException
+    {
+        ImmutableList.Builder<Long> counts = ImmutableList.builder();
+        try (Statement statement = database.getConnection().createStatement()) {
+            for (String predicate : predicates) {
+                try (ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM " + table + " WHERE " + predicate)) {
+                    resultSet.next();
+                    counts.add(resultSet.getLong(1));
+                }
+            }
+        }
+        return counts.build();
+    }
+}
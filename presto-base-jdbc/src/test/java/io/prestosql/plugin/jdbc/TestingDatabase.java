@@ -40,10 +40,16 @@ public final class TestingDatabase
 
     public TestingDatabase()
             throws SQLException
+    {
+        this(new BaseJdbcConfig());
+    }
+
+    public TestingDatabase(BaseJdbcConfig config)
+            throws SQLException
     {
         String connectionUrl = "jdbc:h2:mem:test" + System.nanoTime() + ThreadLocalRandom.current().nextLong();
         jdbcClient = new BaseJdbcClient(
-                new BaseJdbcConfig(),
+                config,
                 "\"",
                 new DriverConnectionFactory(new Driver(), connectionUrl, Optional.empty(), Optional.empty(), new Properties()));
 
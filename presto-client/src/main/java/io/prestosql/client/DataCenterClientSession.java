@@ -32,13 +32,15 @@ public class DataCenterClientSession
 {
     private final Duration maxAnticipatedDelay;
     private final boolean compressionEnabled;
+    private final boolean streamingEnabled;
     private TypeManager typeManager;
 
-    private DataCenterClientSession(URI server, String user, String source, Optional<String> traceToken, Set<String> clientTags, String clientInfo, String catalog, String schema, String path, ZoneId timeZone, Locale locale, Map<String, String> resourceEstimates, Map<String, String> properties, Map<String, String> preparedStatements, Map<String, ClientSelectedRole> roles, Map<String, String> extraCredentials, String transactionId, Duration clientRequestTimeout, Duration maxAnticipatedDelay, boolean compressionEnabled, TypeManager typeManager)
+    private DataCenterClientSession(URI server, String user, String source, Optional<String> traceToken, Set<String> clientTags, String clientInfo, String catalog, String schema, String path, ZoneId timeZone, Locale locale, Map<String, String> resourceEstimates, Map<String, String> properties, Map<String, String> preparedStatements, Map<String, ClientSelectedRole> roles, Map<String, String> extraCredentials, String transactionId, Duration clientRequestTimeout, Duration maxAnticipatedDelay, boolean compressionEnabled, boolean streamingEnabled, TypeManager typeManager)
     {
         super(server, user, source, traceToken, clientTags, clientInfo, catalog, schema, path, timeZone, locale, resourceEstimates, properties, preparedStatements, roles, extraCredentials, transactionId, clientRequestTimeout);
         this.maxAnticipatedDelay = maxAnticipatedDelay;
         this.compressionEnabled = compressionEnabled;
+        this.streamingEnabled = streamingEnabled;
         this.typeManager = typeManager;
     }
 
@@ -62,6 +64,11 @@ public class DataCenterClientSession
         return compressionEnabled;
     }
 
+    public boolean isStreamingEnabled()
+    {
+        return streamingEnabled;
+    }
+
     public TypeManager getTypeManager()
     {
         return typeManager;
@@ -92,6 +99,7 @@ public class DataCenterClientSession
         private Duration clientRequestTimeout;
         private Duration maxAnticipatedDelay;
         private boolean compressionEnabled;
+        private boolean streamingEnabled;
         private TypeManager typeManager;
 
         private Builder(URI server, String user)
@@ -130,6 +138,7 @@ public class DataCenterClientSession
             clientRequestTimeout = clientSession.getClientRequestTimeout();
             maxAnticipatedDelay = clientSession.getMaxAnticipatedDelay();
             compressionEnabled = clientSession.isCompressionEnabled();
+            streamingEnabled = clientSession.isStreamingEnabled();
             typeManager = clientSession.getTypeManager();
         }
 
@@ -199,6 +208,12 @@ public class DataCenterClientSession
             return this;
         }
 
+        public Builder withStreaming(boolean enabled)
+        {
+            this.streamingEnabled = enabled;
+            return this;
+        }
+
         public Builder withSource(String source)
         {
             this.source = source;
@@ -264,6 +279,7 @@ public class DataCenterClientSession
                     clientRequestTimeout,
                     maxAnticipatedDelay,
                     compressionEnabled,
+                    streamingEnabled,
                     typeManager);
         }
     }
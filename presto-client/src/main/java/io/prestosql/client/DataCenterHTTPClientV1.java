@@ -22,6 +22,8 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.SliceInput;
 import io.airlift.units.Duration;
 import io.hetu.core.transport.execution.buffer.PagesSerde;
 import io.hetu.core.transport.execution.buffer.PagesSerdeFactory;
@@ -36,6 +38,7 @@ import okhttp3.Headers;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.Response;
 
 import javax.annotation.Nullable;
 
@@ -81,6 +84,7 @@ public class DataCenterHTTPClientV1
     private static final Logger log = Logger.get(DataCenterHTTPClientV1.class);
 
     private static final String ROOT_URL = "/v1/dc/statement/";
+    private static final String STREAM_URL = "/v1/dc/stream/";
     private static final JsonCodec<DataCenterResponse> DATA_CENTER_RESPONSE_JSON_CODEC = jsonCodec(DataCenterResponse.class);
     private static final JsonCodec<DataCenterQueryResults> DATA_CENTER_QUERY_RESULTS_JSON_CODEC = jsonCodec(DataCenterQueryResults.class);
     private static final JsonCodec<CrossRegionDynamicFilterResponse> CRDF_RESPONSE_JSON_CODEC = jsonCodec(CrossRegionDynamicFilterResponse.class);
@@ -112,6 +116,9 @@ public class DataCenterHTTPClientV1
     private final PagesSerde serde;
     private final DataCenterClientSession session;
     private TypeManager typeManager;
+    private final boolean streaming;
+    private Response streamResponse;
+    private SliceInput streamInput;
 
     public DataCenterHTTPClientV1(OkHttpClient httpClient, DataCenterClientSession session, String query, String queryId)
     {
@@ -124,6 +131,7 @@ public class DataCenterHTTPClientV1
         this.clientId = UUID.randomUUID().toString();
         this.serverURI = session.getServer();
         this.typeManager = session.getTypeManager();
+        this.streaming = session.isStreamingEnabled();
         this.serde = new PagesSerdeFactory(new ExternalBlockEncodingSerde(this.typeManager),
                 true).createPagesSerde();
 
@@ -198,6 +206,13 @@ public class DataCenterHTTPClientV1
                 .encodedPath(ROOT_URL + DataCenterResponseType.HTTP_PULL + "/" + this.clientId + "/" + this.queryId + "/" + this.slug + "/" + this.token).build();
     }
 
+    private HttpUrl streamURL()
+    {
+        return HttpUrl.get(this.serverURI)
+                .newBuilder()
+                .encodedPath(STREAM_URL + this.clientId + "/" + this.queryId + "/" + this.slug).build();
+    }
+
     @Override
     public String getQuery()
     {
@@ -377,6 +392,9 @@ public class DataCenterHTTPClientV1
             state.compareAndSet(State.RUNNING, State.FINISHED);
             return false;
         }
+        if (this.streaming) {
+            return advanceStream();
+        }
         Request request = prepareRequest(this.nextURL(), this.session).build();
 
         Exception cause = null;
@@ -439,6 +457,82 @@ public class DataCenterHTTPClientV1
         }
     }
 
+    /**
+     * Read the next results from the binary stream of pages, opening the stream on the first call.
+     * Unlike polling, a broken stream cannot be resumed, since the results already sent are gone from the server.
+     */
+    private boolean advanceStream()
+    {
+        byte frameType;
+        List<SerializedPage> pages;
+        try {
+            if (this.streamInput == null) {
+                openStream();
+            }
+            frameType = DataCenterPageStream.readFrameType(this.streamInput);
+            pages = frameType == DataCenterPageStream.PAGES ? DataCenterPageStream.readPages(this.streamInput) : ImmutableList.of();
+        }
+        catch (IOException | RuntimeException e) {
+            closeStream();
+            if (isClientAborted()) {
+                return false;
+            }
+            state.compareAndSet(State.RUNNING, State.CLIENT_ERROR);
+            throw new RuntimeException("Error reading the result stream of the data center", e);
+        }
+
+        if (frameType == DataCenterPageStream.FAILED) {
+            closeStream();
+            if (isClientAborted()) {
+                return false;
+            }
+            state.compareAndSet(State.RUNNING, State.CLIENT_ERROR);
+            throw new RuntimeException("Query failed in the data center");
+        }
+        boolean finished = frameType == DataCenterPageStream.FINISHED;
+        if (finished) {
+            closeStream();
+        }
+        this.token++;
+        currentResults.set(new DataCenterQueryResults(
+                this.queryId,
+                this.serverURI,
+                null,
+                finished ? null : URI.create(""),
+                ImmutableList.of(),
+                pages,
+                StatementStats.builder()
+                        .setState(finished ? State.FINISHED.toString() : State.RUNNING.toString())
+                        .build(),
+                null,
+                ImmutableList.of(),
+                null,
+                false));
+        return true;
+    }
+
+    private void openStream()
+            throws IOException
+    {
+        Request request = prepareRequest(this.streamURL(), this.session).build();
+        Response response = httpClient.newCall(request).execute();
+        if (response.code() != HTTP_OK || response.body() == null) {
+            response.close();
+            throw new IOException(format("Failed to open the result stream: HTTP %s", response.code()));
+        }
+        this.streamResponse = response;
+        this.streamInput = new InputStreamSliceInput(response.body().byteStream());
+    }
+
+    private synchronized void closeStream()
+    {
+        if (this.streamResponse != null) {
+            this.streamResponse.close();
+            this.streamResponse = null;
+        }
+        this.streamInput = null;
+    }
+
     private void processResponse(Headers headers, DataCenterQueryResults results)
     {
         this.token++;
@@ -517,6 +611,7 @@ public class DataCenterHTTPClientV1
                 httpDelete(uri);
             }
         }
+        closeStream();
     }
 
     private void httpDelete(URI uri)
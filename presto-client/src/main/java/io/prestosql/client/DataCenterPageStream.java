@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.client;
+
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.hetu.core.transport.execution.buffer.SerializedPage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.readSerializedPage;
+import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.writeSerializedPages;
+
+/**
+ * Framing of the binary stream of query results sent by a data center.
+ * The stream is a sequence of PAGES frames, each one holding the pages of one query results, and ends with
+ * a FINISHED or a FAILED frame. A PAGES frame without any page is sent to keep an idle stream alive.
+ */
+public final class DataCenterPageStream
+{
+    public static final String DATA_CENTER_PAGES = "application/X-hetu-dc-pages";
+
+    public static final byte PAGES = 1;
+    public static final byte FINISHED = 2;
+    public static final byte FAILED = 3;
+
+    private DataCenterPageStream()
+    {
+    }
+
+    /**
+     * Write a PAGES frame
+     *
+     * @param output the stream output
+     * @param pages the serialized pages
+     * @return the size of the pages in bytes
+     */
+    public static long writePages(SliceOutput output, List<SerializedPage> pages)
+    {
+        output.writeByte(PAGES);
+        output.writeInt(pages.size());
+        return writeSerializedPages(output, pages);
+    }
+
+    public static void writeEnd(SliceOutput output, boolean failed)
+    {
+        output.writeByte(failed ? FAILED : FINISHED);
+    }
+
+    public static byte readFrameType(SliceInput input)
+    {
+        byte frameType = input.readByte();
+        if (frameType != PAGES && frameType != FINISHED && frameType != FAILED) {
+            throw new IllegalStateException("Invalid data center stream frame: " + frameType);
+        }
+        return frameType;
+    }
+
+    /**
+     * Read the pages of a PAGES frame, after its frame type
+     *
+     * @param input the stream input
+     * @return the serialized pages
+     */
+    public static List<SerializedPage> readPages(SliceInput input)
+    {
+        int count = input.readInt();
+        List<SerializedPage> pages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pages.add(readSerializedPage(input));
+        }
+        return pages;
+    }
+}
@@ -24,8 +24,8 @@ import io.prestosql.client.DataCenterClientSession;
 import io.prestosql.client.DataCenterRequest;
 import io.prestosql.client.DataCenterResponseType;
 import io.prestosql.client.PrestoHeaders;
-import io.prestosql.spi.dynamicfilter.BloomFilterDynamicFilter;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.Request;
@@ -154,8 +154,8 @@ public class HttpUtil
         }
         url = url.newBuilder().encodedPath(DYNAMIC_FILTER_URL + queryId).build();
 
-        Map<String, byte[]> bloomFilters = dynamicFilters.entrySet().stream().filter(entry -> entry.getValue() instanceof BloomFilterDynamicFilter)
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> ((BloomFilterDynamicFilter) entry.getValue()).getBloomFilterSerialized()));
+        Map<String, byte[]> bloomFilters = dynamicFilters.entrySet().stream().filter(entry -> entry.getValue() instanceof TypedDynamicFilter)
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> ((TypedDynamicFilter) entry.getValue()).serialize()));
 
         CrossRegionDynamicFilterRequest request = new CrossRegionDynamicFilterRequest(queryId, clientId, bloomFilters);
 
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.client;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.Slices;
+import io.hetu.core.transport.execution.buffer.PageCodecMarker;
+import io.hetu.core.transport.execution.buffer.SerializedPage;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static io.prestosql.client.DataCenterPageStream.FAILED;
+import static io.prestosql.client.DataCenterPageStream.FINISHED;
+import static io.prestosql.client.DataCenterPageStream.PAGES;
+import static io.prestosql.client.DataCenterPageStream.readFrameType;
+import static io.prestosql.client.DataCenterPageStream.readPages;
+import static io.prestosql.client.DataCenterPageStream.writeEnd;
+import static io.prestosql.client.DataCenterPageStream.writePages;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestDataCenterPageStream
+{
+    @Test
+    public void testRoundTrip()
+    {
+        SerializedPage first = new SerializedPage(Slices.copiedBuffer("first", UTF_8), PageCodecMarker.MarkerSet.empty(), 3, 5);
+        SerializedPage second = new SerializedPage(Slices.copiedBuffer("second page", UTF_8), PageCodecMarker.MarkerSet.of(PageCodecMarker.COMPRESSED), 7, 20);
+
+        DynamicSliceOutput output = new DynamicSliceOutput(64);
+        assertEquals(writePages(output, ImmutableList.of(first, second)), 16);
+        writePages(output, ImmutableList.of());
+        writeEnd(output, false);
+
+        SliceInput input = output.slice().getInput();
+        assertEquals(readFrameType(input), PAGES);
+        List<SerializedPage> pages = readPages(input);
+        assertEquals(pages.size(), 2);
+        assertPage(pages.get(0), first);
+        assertPage(pages.get(1), second);
+
+        assertEquals(readFrameType(input), PAGES);
+        assertEquals(readPages(input).size(), 0);
+        assertEquals(readFrameType(input), FINISHED);
+        assertFalse(input.isReadable());
+
+        output = new DynamicSliceOutput(1);
+        writeEnd(output, true);
+        assertEquals(readFrameType(output.slice().getInput()), FAILED);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testInvalidFrame()
+    {
+        readFrameType(Slices.wrappedBuffer((byte) 42).getInput());
+    }
+
+    private static void assertPage(SerializedPage actual, SerializedPage expected)
+    {
+        assertEquals(actual.getSlice(), expected.getSlice());
+        assertEquals(actual.getPageCodecMarkers(), expected.getPageCodecMarkers());
+        assertEquals(actual.getPositionCount(), expected.getPositionCount());
+        assertEquals(actual.getUncompressedSizeInBytes(), expected.getUncompressedSizeInBytes());
+    }
+}
@@ -40,6 +40,7 @@ import java.util.Optional;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
@@ -144,6 +145,12 @@ public class HiveConfig
     private boolean orcRowDataCacheEnabled;
     private Duration orcRowDataCacheTtl = new Duration(30, MINUTES);
     private DataSize orcRowDataCacheMaximumWeight = new DataSize(500, MEGABYTE);
+    private boolean orcRowDataCacheOffHeapEnabled;
+
+    private boolean localBlockCacheEnabled;
+    private String localBlockCacheDirectory;
+    private DataSize localBlockCacheMaximumSize = new DataSize(10, GIGABYTE);
+    private DataSize localBlockCacheBlockSize = new DataSize(1, MEGABYTE);
 
     private boolean rcfileWriterValidate;
 
@@ -1554,6 +1561,76 @@ public class HiveConfig
         return this;
     }
 
+    public boolean isOrcRowDataCacheOffHeapEnabled()
+    {
+        return orcRowDataCacheOffHeapEnabled;
+    }
+
+    @Config("hive.orc.row-data.block.cache.off-heap.enabled")
+    @ConfigDescription("Keep the Orc row data block cache serialized in direct memory, with frequency based admission")
+    public HiveConfig setOrcRowDataCacheOffHeapEnabled(boolean orcRowDataCacheOffHeapEnabled)
+    {
+        this.orcRowDataCacheOffHeapEnabled = orcRowDataCacheOffHeapEnabled;
+        return this;
+    }
+
+    public boolean isLocalBlockCacheEnabled()
+    {
+        return localBlockCacheEnabled;
+    }
+
+    @Config("hive.local-block-cache.enabled")
+    @ConfigDescription("Cache the blocks of the ORC and Parquet files read from the remote file system on local disk")
+    public HiveConfig setLocalBlockCacheEnabled(boolean localBlockCacheEnabled)
+    {
+        this.localBlockCacheEnabled = localBlockCacheEnabled;
+        return this;
+    }
+
+    @Nullable
+    public String getLocalBlockCacheDirectory()
+    {
+        return localBlockCacheDirectory;
+    }
+
+    @Config("hive.local-block-cache.directory")
+    @ConfigDescription("Local directory holding the cached file blocks, preferably on SSD")
+    public HiveConfig setLocalBlockCacheDirectory(String localBlockCacheDirectory)
+    {
+        this.localBlockCacheDirectory = localBlockCacheDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getLocalBlockCacheMaximumSize()
+    {
+        return localBlockCacheMaximumSize;
+    }
+
+    @Config("hive.local-block-cache.max-size")
+    @ConfigDescription("Maximum size of the cached file blocks on local disk")
+    public HiveConfig setLocalBlockCacheMaximumSize(DataSize localBlockCacheMaximumSize)
+    {
+        this.localBlockCacheMaximumSize = localBlockCacheMaximumSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("64kB")
+    @MaxDataSize("64MB")
+    public DataSize getLocalBlockCacheBlockSize()
+    {
+        return localBlockCacheBlockSize;
+    }
+
+    @Config("hive.local-block-cache.block-size")
+    @ConfigDescription("Size of the file blocks cached on local disk, only the blocks fully read from the remote file system are cached")
+    public HiveConfig setLocalBlockCacheBlockSize(DataSize localBlockCacheBlockSize)
+    {
+        this.localBlockCacheBlockSize = localBlockCacheBlockSize;
+        return this;
+    }
+
     @Config("hive.transaction-heartbeat-interval")
     @ConfigDescription("Interval after which heartbeat is sent for open Hive transaction")
     public HiveConfig setHiveTransactionHeartbeatInterval(Duration interval)
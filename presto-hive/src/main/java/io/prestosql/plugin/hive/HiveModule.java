@@ -104,7 +104,12 @@ public class HiveModule
         binder.bind(FileFormatDataSourceStats.class).in(Scopes.SINGLETON);
         newExporter(binder).export(FileFormatDataSourceStats.class).withGeneratedName();
 
+        binder.bind(LocalBlockCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(LocalBlockCache.class).withGeneratedName();
+
         Multibinder<HivePageSourceFactory> pageSourceFactoryBinder = newSetBinder(binder, HivePageSourceFactory.class);
+        binder.bind(OrcPageSourceFactory.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(OrcPageSourceFactory.class).withGeneratedName();
         pageSourceFactoryBinder.addBinding().to(OrcPageSourceFactory.class).in(Scopes.SINGLETON);
         pageSourceFactoryBinder.addBinding().to(ParquetPageSourceFactory.class).in(Scopes.SINGLETON);
         pageSourceFactoryBinder.addBinding().to(RcFilePageSourceFactory.class).in(Scopes.SINGLETON);
@@ -44,7 +44,6 @@ import io.prestosql.spi.type.DecimalType;
 import io.prestosql.spi.type.MapType;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.TypeManager;
-import io.prestosql.spi.type.TypeUtils;
 import io.prestosql.spi.type.VarcharType;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.apache.hadoop.hive.serde2.typeinfo.ListTypeInfo;
@@ -630,39 +629,30 @@ public class HivePageSource
         return new Page(page.getPositionCount(), blocks);
     }
 
-    // This function filters rows based on the bloom filter,
-    // it does a row by row comparison, sees
-    // if the row is contained in the Dynamic Filter,
-    // and if not, it would filter the row out
+    // This function filters rows based on the dynamic filters,
+    // each dynamic filter checks a whole column of the remaining
+    // rows at a time, and rows whose value is not contained in
+    // the Dynamic Filter are filtered out
     private IntArrayList filterRows(Page page)
     {
-        Map<Integer, String> eligibleColumns = new HashMap<>();
-        for (int channel = 0; channel < page.getChannelCount(); channel++) {
-            HiveColumnHandle columnHandle = columnMappings.get(channel).getHiveColumnHandle();
-            if (dynamicFilter.containsKey(columnHandle.getName())) {
-                eligibleColumns.put(channel, columnHandle.getName());
-            }
+        int[] positions = new int[page.getPositionCount()];
+        int positionCount = page.getPositionCount();
+        for (int position = 0; position < positionCount; position++) {
+            positions[position] = position;
         }
 
-        IntArrayList ids = new IntArrayList(page.getPositionCount());
-        for (int position = 0; position < page.getPositionCount(); position++) {
-            boolean shouldKeep = true;
-            for (Map.Entry<Integer, String> column : eligibleColumns.entrySet()) {
-                Block block = page.getBlock(column.getKey()).getLoadedBlock();
-
-                String nativeValue = TypeUtils.readNativeValueForDynamicFilter(types[column.getKey()], block, position);
-
-                if (nativeValue != null && dynamicFilter.get(column.getValue()) != null && !dynamicFilter.get(column.getValue()).contains(nativeValue)) {
-                    shouldKeep = false;
-                    break;
-                }
-            }
-            if (shouldKeep) {
-                ids.add(position);
+        for (int channel = 0; channel < page.getChannelCount() && positionCount > 0; channel++) {
+            HiveColumnHandle columnHandle = columnMappings.get(channel).getHiveColumnHandle();
+            DynamicFilter filter = dynamicFilter.get(columnHandle.getName());
+            if (filter == null) {
+                continue;
             }
+
+            Block block = page.getBlock(channel).getLoadedBlock();
+            positionCount = filter.filter(types[channel], block, positions, positionCount, positions);
         }
 
-        return ids;
+        return IntArrayList.wrap(positions, positionCount);
     }
 
     public static class BucketAdapter
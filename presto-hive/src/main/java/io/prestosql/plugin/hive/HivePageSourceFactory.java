@@ -46,4 +46,43 @@ public interface HivePageSourceFactory
             Optional<Long> startRowOffsetOfFile,
             Optional<List<SplitIndexMetadata>> indexes,
             boolean splitCacheable);
+
+    /**
+     * @param lastModifiedTime modification time of the file, identifies the version of the file read
+     */
+    default Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            long lastModifiedTime,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            TupleDomain<HiveColumnHandle> effectivePredicate,
+            DateTimeZone hiveStorageTimeZone,
+            Map<ColumnHandle, DynamicFilter> dynamicFilter,
+            Optional<DeleteDeltaLocations> deleteDeltaLocations,
+            Optional<Long> startRowOffsetOfFile,
+            Optional<List<SplitIndexMetadata>> indexes,
+            boolean splitCacheable)
+    {
+        return createPageSource(
+                configuration,
+                session,
+                path,
+                start,
+                length,
+                fileSize,
+                schema,
+                columns,
+                effectivePredicate,
+                hiveStorageTimeZone,
+                dynamicFilter,
+                deleteDeltaLocations,
+                startRowOffsetOfFile,
+                indexes,
+                splitCacheable);
+    }
 }
@@ -56,6 +56,7 @@ import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Maps.uniqueIndex;
 import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static io.prestosql.plugin.hive.HivePageSourceProvider.ColumnMapping.toColumnHandles;
+import static io.prestosql.plugin.hive.HiveUtil.getDynamicFilterPredicate;
 import static io.prestosql.plugin.hive.HiveUtil.isPartitionFiltered;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -123,6 +124,13 @@ public class HivePageSourceProvider
             return new FixedPageSource(ImmutableList.of());
         }
 
+        // Value ranges of dynamic filters let the file readers skip files, stripes and row groups using their statistics
+        TupleDomain<HiveColumnHandle> effectivePredicate = hiveTable.getCompactEffectivePredicate()
+                .intersect(getDynamicFilterPredicate(dynamicFilters, hiveSplit.getColumnCoercions(), typeManager));
+        if (effectivePredicate.isNone()) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+
         Configuration configuration = hdfsEnvironment.getConfiguration(
                 new HdfsEnvironment.HdfsContext(session, hiveSplit.getDatabase(), hiveSplit.getTable()), path);
 
@@ -146,8 +154,9 @@ public class HivePageSourceProvider
                 hiveSplit.getStart(),
                 hiveSplit.getLength(),
                 hiveSplit.getFileSize(),
+                hiveSplit.getLastModifiedTime(),
                 hiveSplit.getSchema(),
-                hiveTable.getCompactEffectivePredicate(),
+                effectivePredicate,
                 hiveColumns,
                 hiveSplit.getPartitionKeys(),
                 hiveStorageTimeZone,
@@ -176,6 +185,7 @@ public class HivePageSourceProvider
             long start,
             long length,
             long fileSize,
+            long lastModifiedTime,
             Properties schema,
             TupleDomain<HiveColumnHandle> effectivePredicate,
             List<HiveColumnHandle> hiveColumns,
@@ -228,6 +238,7 @@ public class HivePageSourceProvider
                     start,
                     length,
                     fileSize,
+                    lastModifiedTime,
                     schema,
                     toColumnHandles(regularAndInterimColumnMappings, true),
                     effectivePredicate,
@@ -94,6 +94,7 @@ public class HiveSplitManager
     private final int maxSplitsPerSecond;
     private final boolean recursiveDfsWalkerEnabled;
     private final CounterStat highMemorySplitSourceCounter;
+    private final CounterStat dynamicFilterPrunedSplitCounter = new CounterStat();
 
     @Inject
     public HiveSplitManager(
@@ -251,6 +252,7 @@ public class HiveSplitManager
                         hiveSplitLoader,
                         executor,
                         new CounterStat(),
+                        dynamicFilterPrunedSplitCounter,
                         dynamicFilterSupplier,
                         userDefinedCachePredicates);
                 break;
@@ -266,6 +268,7 @@ public class HiveSplitManager
                         hiveSplitLoader,
                         executor,
                         new CounterStat(),
+                        dynamicFilterPrunedSplitCounter,
                         dynamicFilterSupplier,
                         userDefinedCachePredicates);
                 break;
@@ -289,6 +292,13 @@ public class HiveSplitManager
         return highMemorySplitSourceCounter;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getDynamicFilterPrunedSplits()
+    {
+        return dynamicFilterPrunedSplitCounter;
+    }
+
     private Iterable<HivePartitionMetadata> getPartitionMetadata(SemiTransactionalHiveMetastore metastore, Table table, SchemaTableName tableName, List<HivePartition> hivePartitions, Optional<HiveBucketProperty> bucketProperty)
     {
         if (hivePartitions.isEmpty()) {
@@ -98,6 +98,7 @@ class HiveSplitSource
 
     private final CounterStat highMemorySplitSourceCounter;
     private final AtomicBoolean loggedHighMemoryWarning = new AtomicBoolean();
+    private final CounterStat dynamicFilterPrunedSplitCounter;
 
     private final Supplier<Set<DynamicFilter>> dynamicFilterSupplier;
     private final Set<TupleDomain<ColumnMetadata>> userDefinedCachePredicates;
@@ -113,6 +114,7 @@ class HiveSplitSource
             HiveSplitLoader splitLoader,
             AtomicReference<State> stateReference,
             CounterStat highMemorySplitSourceCounter,
+            CounterStat dynamicFilterPrunedSplitCounter,
             Supplier<Set<DynamicFilter>> dynamicFilterSupplier,
             Set<TupleDomain<ColumnMetadata>> userDefinedCachedPredicates)
     {
@@ -125,6 +127,7 @@ class HiveSplitSource
         this.splitLoader = requireNonNull(splitLoader, "splitLoader is null");
         this.stateReference = requireNonNull(stateReference, "stateReference is null");
         this.highMemorySplitSourceCounter = requireNonNull(highMemorySplitSourceCounter, "highMemorySplitSourceCounter is null");
+        this.dynamicFilterPrunedSplitCounter = requireNonNull(dynamicFilterPrunedSplitCounter, "dynamicFilterPrunedSplitCounter is null");
 
         this.maxSplitSize = getMaxSplitSize(session);
         this.maxInitialSplitSize = getMaxInitialSplitSize(session);
@@ -146,6 +149,7 @@ class HiveSplitSource
             HiveSplitLoader splitLoader,
             Executor executor,
             CounterStat highMemorySplitSourceCounter,
+            CounterStat dynamicFilterPrunedSplitCounter,
             Supplier<Set<DynamicFilter>> dynamicFilterSupplier,
             Set<TupleDomain<ColumnMetadata>> userDefinedCachePredicates)
     {
@@ -190,6 +194,7 @@ class HiveSplitSource
                 splitLoader,
                 stateReference,
                 highMemorySplitSourceCounter,
+                dynamicFilterPrunedSplitCounter,
                 dynamicFilterSupplier,
                 userDefinedCachePredicates);
     }
@@ -205,6 +210,7 @@ class HiveSplitSource
             HiveSplitLoader splitLoader,
             Executor executor,
             CounterStat highMemorySplitSourceCounter,
+            CounterStat dynamicFilterPrunedSplitCounter,
             Supplier<Set<DynamicFilter>> dynamicFilterSupplier,
             Set<TupleDomain<ColumnMetadata>> userDefinedCachePredicates)
     {
@@ -269,6 +275,7 @@ class HiveSplitSource
                 splitLoader,
                 stateReference,
                 highMemorySplitSourceCounter,
+                dynamicFilterPrunedSplitCounter,
                 dynamicFilterSupplier,
                 userDefinedCachePredicates);
     }
@@ -426,9 +433,12 @@ class HiveSplitSource
 
             // Filter out splits if dynamic filter is available
             if (dynamicFilterSupplier != null && isSplitFilteringEnabled) {
+                int splitCount = splits.size();
+                Set<DynamicFilter> dynamicFilters = dynamicFilterSupplier.get();
                 splits = splits.stream()
-                        .filter(split -> !isPartitionFiltered(HiveSplitWrapper.getOnlyHiveSplit(split).getPartitionKeys(), dynamicFilterSupplier.get()))
+                        .filter(split -> !isPartitionFiltered(HiveSplitWrapper.getOnlyHiveSplit(split).getPartitionKeys(), dynamicFilters))
                         .collect(Collectors.toList());
+                dynamicFilterPrunedSplitCounter.update(splitCount - splits.size());
             }
 
             if (noMoreSplits) {
@@ -19,6 +19,7 @@ import com.google.common.base.Splitter;
 import com.google.common.base.VerifyException;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.compress.lzo.LzoCodec;
 import io.airlift.compress.lzo.LzopCodec;
 import io.airlift.json.JsonCodec;
@@ -38,16 +39,21 @@ import io.prestosql.spi.ErrorCodeSupplier;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.block.SortOrder;
+import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.ConnectorViewDefinition;
 import io.prestosql.spi.connector.RecordCursor;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
+import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.NullableValue;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.CharType;
 import io.prestosql.spi.type.DecimalType;
 import io.prestosql.spi.type.Decimals;
 import io.prestosql.spi.type.StandardTypes;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.TypeManager;
 import io.prestosql.spi.type.VarcharType;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -1019,6 +1025,36 @@ public final class HiveUtil
         return false;
     }
 
+    /**
+     * Convert the value ranges of the dynamic filters on regular columns into a predicate, so that file readers can
+     * skip whole files, stripes and row groups whose statistics do not overlap with the build side values.
+     * Columns read with a coercion are skipped as their file statistics are of a different type.
+     *
+     * @param dynamicFilters dynamic filters of the table scan, can be null
+     * @param columnCoercions coercions of the split, keyed by hive column index
+     * @param typeManager type manager
+     * @return predicate on the columns with a usable value range
+     */
+    public static TupleDomain<HiveColumnHandle> getDynamicFilterPredicate(Map<ColumnHandle, DynamicFilter> dynamicFilters, Map<Integer, HiveType> columnCoercions, TypeManager typeManager)
+    {
+        if (dynamicFilters == null || dynamicFilters.isEmpty()) {
+            return TupleDomain.all();
+        }
+
+        ImmutableMap.Builder<HiveColumnHandle, Domain> domains = ImmutableMap.builder();
+        for (Map.Entry<ColumnHandle, DynamicFilter> entry : dynamicFilters.entrySet()) {
+            HiveColumnHandle column = (HiveColumnHandle) entry.getKey();
+            if (!(entry.getValue() instanceof TypedDynamicFilter)
+                    || column.getColumnType() != HiveColumnHandle.ColumnType.REGULAR
+                    || columnCoercions.containsKey(column.getHiveColumnIndex())) {
+                continue;
+            }
+            Optional<Domain> domain = ((TypedDynamicFilter) entry.getValue()).getDomain(typeManager.getType(column.getTypeSignature()));
+            domain.ifPresent(value -> domains.put(column, value));
+        }
+        return TupleDomain.withColumnDomains(domains.build());
+    }
+
     public static Iterator<Page> getMergeSortedPages(List<ConnectorPageSource> pageSources,
                                                      List<Type> columnTypes, List<Integer> sortFields,
                                                      List<SortOrder> sortOrders)
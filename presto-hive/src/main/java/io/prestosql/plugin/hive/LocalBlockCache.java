@@ -0,0 +1,549 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.lang.Math.toIntExact;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Worker local cache of the blocks of the files read from the remote file system, kept on local disk.
+ * <p>
+ * Files are split in fixed size blocks, and a block is stored in a file named after the hash of the file path,
+ * modification time, size and block index, so a rewritten file never hits the blocks of its previous version.
+ * Only the blocks fully read from the remote file system are cached, they are written asynchronously and
+ * a block is checked against its checksum on every read, a corrupted block is dropped and read again remotely.
+ * Blocks are evicted in least recently used order once the cache exceeds its maximum size.
+ */
+public class LocalBlockCache
+{
+    private static final Logger log = Logger.get(LocalBlockCache.class);
+
+    private static final int MAGIC = 0x48424331;
+    // magic, block length and checksum
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+    private static final HashFunction CHECKSUM = Hashing.crc32c();
+    private static final HashFunction CONTENT_ADDRESS = Hashing.sha256();
+    private static final int BLOCK_NAME_LENGTH = 64;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    // blocks waiting to be written, further blocks are not cached until the writer catches up
+    private static final int MAXIMUM_PENDING_BLOCKS = 64;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maximumBytes;
+    private final int blockSize;
+    private final ExecutorService populationExecutor;
+    private final Set<String> pendingBlocks = ConcurrentHashMap.newKeySet();
+
+    // access ordered, block name to size of the block file, guarded by this
+    private final LinkedHashMap<String, Long> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    // guarded by this
+    private long cachedBytes;
+
+    private final AtomicLong hitBytes = new AtomicLong();
+    private final AtomicLong missBytes = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong corruptedBlockCount = new AtomicLong();
+    private final AtomicLong populationFailureCount = new AtomicLong();
+    private final Cache<String, AtomicLong> queryBytesFromCache = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(1, HOURS)
+            .build();
+
+    @Inject
+    public LocalBlockCache(HiveConfig config)
+    {
+        this(config.isLocalBlockCacheEnabled(), config.getLocalBlockCacheDirectory(), config.getLocalBlockCacheMaximumSize(), config.getLocalBlockCacheBlockSize());
+    }
+
+    public LocalBlockCache(boolean enabled, String directory, DataSize maximumSize, DataSize blockSize)
+    {
+        this.enabled = enabled;
+        this.maximumBytes = requireNonNull(maximumSize, "maximumSize is null").toBytes();
+        this.blockSize = toIntExact(requireNonNull(blockSize, "blockSize is null").toBytes());
+        checkArgument(this.blockSize > 0, "blockSize must be positive");
+        if (enabled) {
+            checkArgument(directory != null, "hive.local-block-cache.directory must be set when the local block cache is enabled");
+            this.directory = Paths.get(directory);
+            this.populationExecutor = newSingleThreadExecutor(daemonThreadsNamed("hive-local-block-cache-%s"));
+            loadBlocks();
+        }
+        else {
+            this.directory = null;
+            this.populationExecutor = null;
+        }
+    }
+
+    public static LocalBlockCache disabled()
+    {
+        return new LocalBlockCache(false, null, new DataSize(0, DataSize.Unit.BYTE), new DataSize(1, DataSize.Unit.MEGABYTE));
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        if (populationExecutor != null) {
+            populationExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @param path path of the file on the remote file system
+     * @param lastModifiedTime modification time of the file, the file is not cached if it is unknown
+     * @param queryId query reading the file, to account for the bytes it reads from the cache
+     * @return reader of the file going through the cache, or empty if the file is not cached
+     */
+    public Optional<CachedFile> getCachedFile(String path, long lastModifiedTime, long fileSize, String queryId)
+    {
+        if (!enabled || lastModifiedTime <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new CachedFile(path, lastModifiedTime, fileSize, queryId));
+    }
+
+    @Managed
+    public long getHitBytes()
+    {
+        return hitBytes.get();
+    }
+
+    @Managed
+    public long getMissBytes()
+    {
+        return missBytes.get();
+    }
+
+    @Managed
+    public synchronized long getCachedBytes()
+    {
+        return cachedBytes;
+    }
+
+    @Managed
+    public synchronized long getBlockCount()
+    {
+        return blocks.size();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
+    @Managed
+    public long getCorruptedBlockCount()
+    {
+        return corruptedBlockCount.get();
+    }
+
+    @Managed
+    public long getPopulationFailureCount()
+    {
+        return populationFailureCount.get();
+    }
+
+    @Managed
+    public long getPendingBlockCount()
+    {
+        return pendingBlocks.size();
+    }
+
+    /**
+     * @return bytes the query read from the local cache instead of the remote file system, in the last hour
+     */
+    @Managed
+    public long getQueryBytesFromCache(String queryId)
+    {
+        AtomicLong bytes = queryBytesFromCache.getIfPresent(queryId);
+        return bytes == null ? 0 : bytes.get();
+    }
+
+    @VisibleForTesting
+    void awaitPopulation()
+            throws InterruptedException, ExecutionException
+    {
+        populationExecutor.submit(() -> {}).get();
+    }
+
+    private boolean readBlock(String name, int blockLength, int blockOffset, byte[] buffer, int offset, int length)
+    {
+        synchronized (this) {
+            if (blocks.get(name) == null) {
+                return false;
+            }
+        }
+
+        // read whole blocks in place, the target is overwritten by the remote read if the block is corrupted
+        boolean wholeBlock = blockOffset == 0 && length == blockLength;
+        byte[] target = wholeBlock ? buffer : new byte[blockLength];
+        int targetOffset = wholeBlock ? offset : 0;
+        try (FileChannel channel = FileChannel.open(blockPath(name), READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != blockLength) {
+                throw new IOException("Invalid header of cached block " + name);
+            }
+            int checksum = header.getInt();
+            readFully(channel, ByteBuffer.wrap(target, targetOffset, blockLength));
+            if (CHECKSUM.hashBytes(target, targetOffset, blockLength).asInt() != checksum) {
+                throw new IOException("Checksum mismatch of cached block " + name);
+            }
+        }
+        catch (NoSuchFileException e) {
+            // evicted concurrently
+            remove(name);
+            return false;
+        }
+        catch (IOException e) {
+            log.warn(e, "Dropping cached block %s", name);
+            corruptedBlockCount.incrementAndGet();
+            remove(name);
+            return false;
+        }
+
+        if (!wholeBlock) {
+            System.arraycopy(target, blockOffset, buffer, offset, length);
+        }
+        hitBytes.addAndGet(length);
+        return true;
+    }
+
+    private void populate(String name, byte[] buffer, int offset, int length)
+    {
+        synchronized (this) {
+            if (blocks.containsKey(name)) {
+                return;
+            }
+        }
+        if (pendingBlocks.size() >= MAXIMUM_PENDING_BLOCKS || !pendingBlocks.add(name)) {
+            return;
+        }
+
+        byte[] block = Arrays.copyOfRange(buffer, offset, offset + length);
+        try {
+            populationExecutor.execute(() -> {
+                try {
+                    writeBlock(name, block);
+                }
+                finally {
+                    pendingBlocks.remove(name);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            pendingBlocks.remove(name);
+        }
+    }
+
+    private void writeBlock(String name, byte[] block)
+    {
+        Path file = blockPath(name);
+        Path temporary = file.resolveSibling(name + "." + randomUUID() + TEMPORARY_SUFFIX);
+        try {
+            Files.createDirectories(file.getParent());
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(block.length)
+                    .putInt(CHECKSUM.hashBytes(block).asInt());
+            header.flip();
+            try (FileChannel channel = FileChannel.open(temporary, CREATE_NEW, WRITE)) {
+                writeFully(channel, header);
+                writeFully(channel, ByteBuffer.wrap(block));
+            }
+            Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to cache block %s", file);
+            populationFailureCount.incrementAndGet();
+            deleteQuietly(temporary);
+            return;
+        }
+
+        for (String evicted : add(name, HEADER_SIZE + block.length)) {
+            deleteQuietly(blockPath(evicted));
+        }
+    }
+
+    /**
+     * @return names of the blocks evicted to make room for the block
+     */
+    private synchronized List<String> add(String name, long size)
+    {
+        Long previous = blocks.put(name, size);
+        if (previous != null) {
+            cachedBytes -= previous;
+        }
+        cachedBytes += size;
+
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = blocks.entrySet().iterator();
+        while (cachedBytes > maximumBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+            cachedBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+        }
+        evictionCount.addAndGet(evicted.size());
+        return evicted;
+    }
+
+    private void remove(String name)
+    {
+        synchronized (this) {
+            Long size = blocks.remove(name);
+            if (size == null) {
+                return;
+            }
+            cachedBytes -= size;
+        }
+        deleteQuietly(blockPath(name));
+    }
+
+    /**
+     * Restore the blocks cached before a restart, the least recently written blocks are evicted first
+     */
+    private void loadBlocks()
+    {
+        List<Path> files;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> stream = Files.walk(directory, 2)) {
+                files = stream.filter(Files::isRegularFile).collect(toList());
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to load the local block cache from " + directory, e);
+        }
+
+        files.sort(comparingLong(file -> file.toFile().lastModified()));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(TEMPORARY_SUFFIX)) {
+                deleteQuietly(file);
+            }
+            else if (isBlockName(name) && file.equals(blockPath(name))) {
+                for (String evicted : add(name, file.toFile().length())) {
+                    deleteQuietly(blockPath(evicted));
+                }
+            }
+        }
+        log.info("Loaded %s cached blocks, %s bytes, from %s", getBlockCount(), getCachedBytes(), directory);
+    }
+
+    private Path blockPath(String name)
+    {
+        return directory.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private void recordBytesFromCache(String queryId, long bytes)
+    {
+        try {
+            queryBytesFromCache.get(queryId, AtomicLong::new).addAndGet(bytes);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isBlockName(String name)
+    {
+        return name.length() == BLOCK_NAME_LENGTH && name.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer)
+            throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of cached block");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer)
+            throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void deleteQuietly(Path file)
+    {
+        File toDelete = file.toFile();
+        if (toDelete.exists() && !toDelete.delete()) {
+            log.warn("Failed to delete %s", file);
+        }
+    }
+
+    public interface RemoteReader
+    {
+        void readFully(long position, byte[] buffer, int offset, int length)
+                throws IOException;
+    }
+
+    /**
+     * Reader of a version of a remote file going through the cache, not thread safe
+     */
+    public final class CachedFile
+    {
+        private final String path;
+        private final long lastModifiedTime;
+        private final long fileSize;
+        private final String queryId;
+        private long bytesFromCache;
+
+        private CachedFile(String path, long lastModifiedTime, long fileSize, String queryId)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.lastModifiedTime = lastModifiedTime;
+            this.fileSize = fileSize;
+            this.queryId = requireNonNull(queryId, "queryId is null");
+        }
+
+        /**
+         * Read the range from the cached blocks, the missing parts are read with the remote reader
+         * and the blocks they fully cover are cached in the background
+         */
+        public void readFully(long position, byte[] buffer, int offset, int length, RemoteReader remoteReader)
+                throws IOException
+        {
+            long end = position + length;
+            if (end > fileSize) {
+                // let the remote file system report the invalid read
+                remoteReader.readFully(position, buffer, offset, length);
+                return;
+            }
+
+            long current = position;
+            long missStart = -1;
+            while (current < end) {
+                long blockIndex = current / blockSize;
+                long blockStart = blockIndex * blockSize;
+                long blockEnd = Math.min(blockStart + blockSize, fileSize);
+                int chunkLength = toIntExact(Math.min(blockEnd, end) - current);
+                int chunkOffset = offset + toIntExact(current - position);
+                if (readBlock(blockName(blockIndex), toIntExact(blockEnd - blockStart), toIntExact(current - blockStart), buffer, chunkOffset, chunkLength)) {
+                    if (missStart >= 0) {
+                        readRemote(missStart, current, position, buffer, offset, remoteReader);
+                        missStart = -1;
+                    }
+                    bytesFromCache += chunkLength;
+                    recordBytesFromCache(queryId, chunkLength);
+                }
+                else if (missStart < 0) {
+                    missStart = current;
+                }
+                current += chunkLength;
+            }
+            if (missStart >= 0) {
+                readRemote(missStart, end, position, buffer, offset, remoteReader);
+            }
+        }
+
+        /**
+         * @return bytes of this file read from the cache
+         */
+        public long getBytesFromCache()
+        {
+            return bytesFromCache;
+        }
+
+        private void readRemote(long start, long end, long position, byte[] buffer, int offset, RemoteReader remoteReader)
+                throws IOException
+        {
+            int remoteOffset = offset + toIntExact(start - position);
+            remoteReader.readFully(start, buffer, remoteOffset, toIntExact(end - start));
+            missBytes.addAndGet(end - start);
+
+            for (long blockIndex = (start + blockSize - 1) / blockSize; blockIndex * blockSize < end; blockIndex++) {
+                long blockStart = blockIndex * blockSize;
+                long blockEnd = Math.min(blockStart + blockSize, fileSize);
+                if (blockEnd > end) {
+                    break;
+                }
+                populate(blockName(blockIndex), buffer, remoteOffset + toIntExact(blockStart - start), toIntExact(blockEnd - blockStart));
+            }
+        }
+
+        private String blockName(long blockIndex)
+        {
+            return CONTENT_ADDRESS.newHasher()
+                    .putString(path, UTF_8)
+                    .putLong(lastModifiedTime)
+                    .putLong(fileSize)
+                    .putInt(blockSize)
+                    .putLong(blockIndex)
+                    .hash()
+                    .toString();
+        }
+    }
+}
@@ -18,11 +18,13 @@ import io.prestosql.orc.AbstractOrcDataSource;
 import io.prestosql.orc.OrcDataSourceId;
 import io.prestosql.plugin.hive.FileFormatDataSourceStats;
 import io.prestosql.plugin.hive.HiveErrorCode;
+import io.prestosql.plugin.hive.LocalBlockCache.CachedFile;
 import io.prestosql.spi.PrestoException;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.hdfs.BlockMissingException;
 
 import java.io.IOException;
+import java.util.Optional;
 
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -32,6 +34,7 @@ public class HdfsOrcDataSource
 {
     private final FSDataInputStream inputStream;
     private final FileFormatDataSourceStats stats;
+    private final Optional<CachedFile> cachedFile;
 
     public HdfsOrcDataSource(
             OrcDataSourceId id,
@@ -42,10 +45,25 @@ public class HdfsOrcDataSource
             boolean lazyReadSmallRanges,
             FSDataInputStream inputStream,
             FileFormatDataSourceStats stats)
+    {
+        this(id, size, maxMergeDistance, maxReadSize, streamBufferSize, lazyReadSmallRanges, inputStream, stats, Optional.empty());
+    }
+
+    public HdfsOrcDataSource(
+            OrcDataSourceId id,
+            long size,
+            DataSize maxMergeDistance,
+            DataSize maxReadSize,
+            DataSize streamBufferSize,
+            boolean lazyReadSmallRanges,
+            FSDataInputStream inputStream,
+            FileFormatDataSourceStats stats,
+            Optional<CachedFile> cachedFile)
     {
         super(id, size, maxMergeDistance, maxReadSize, streamBufferSize, lazyReadSmallRanges);
         this.inputStream = requireNonNull(inputStream, "inputStream is null");
         this.stats = requireNonNull(stats, "stats is null");
+        this.cachedFile = requireNonNull(cachedFile, "cachedFile is null");
     }
 
     @Override
@@ -60,7 +78,12 @@ public class HdfsOrcDataSource
     {
         try {
             long readStart = System.nanoTime();
-            inputStream.readFully(position, buffer, bufferOffset, bufferLength);
+            if (cachedFile.isPresent()) {
+                cachedFile.get().readFully(position, buffer, bufferOffset, bufferLength, inputStream::readFully);
+            }
+            else {
+                inputStream.readFully(position, buffer, bufferOffset, bufferLength);
+            }
             stats.readDataBytesPerSecond(bufferLength, System.nanoTime() - readStart);
         }
         catch (PrestoException e) {
@@ -19,6 +19,8 @@ import com.google.common.collect.Maps;
 import io.airlift.units.DataSize;
 import io.hetu.core.spi.heuristicindex.SplitIndexMetadata;
 import io.prestosql.memory.context.AggregatedMemoryContext;
+import io.prestosql.orc.OffHeapOrcRowDataCache;
+import io.prestosql.orc.OrcBlockEncodingSerde;
 import io.prestosql.orc.OrcCacheProperties;
 import io.prestosql.orc.OrcCacheStore;
 import io.prestosql.orc.OrcColumn;
@@ -38,6 +40,8 @@ import io.prestosql.plugin.hive.HiveConfig;
 import io.prestosql.plugin.hive.HivePageSourceFactory;
 import io.prestosql.plugin.hive.HiveType;
 import io.prestosql.plugin.hive.HiveUtil;
+import io.prestosql.plugin.hive.LocalBlockCache;
+import io.prestosql.plugin.hive.LocalBlockCache.CachedFile;
 import io.prestosql.plugin.hive.orc.OrcPageSource.ColumnAdaptation;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.connector.ColumnHandle;
@@ -61,6 +65,7 @@ import org.apache.hadoop.hive.ql.io.AcidUtils;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
 import org.apache.hadoop.hive.serde2.typeinfo.StructTypeInfo;
 import org.joda.time.DateTimeZone;
+import org.weakref.jmx.Managed;
 
 import javax.inject.Inject;
 
@@ -107,6 +112,7 @@ import static java.lang.String.format;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toMap;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_NAME;
 import static org.apache.hadoop.hive.ql.io.AcidUtils.isFullAcidTable;
 
 public class OrcPageSourceFactory
@@ -126,15 +132,22 @@ public class OrcPageSourceFactory
     private final HdfsEnvironment hdfsEnvironment;
     private final FileFormatDataSourceStats stats;
     private final OrcCacheStore orcCacheStore;
+    private final LocalBlockCache localBlockCache;
 
-    @Inject
     public OrcPageSourceFactory(TypeManager typeManager, HiveConfig config, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats)
+    {
+        this(typeManager, config, hdfsEnvironment, stats, LocalBlockCache.disabled());
+    }
+
+    @Inject
+    public OrcPageSourceFactory(TypeManager typeManager, HiveConfig config, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats, LocalBlockCache localBlockCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         requireNonNull(config, "config is null");
         this.useOrcColumnNames = config.isUseOrcColumnNames();
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.stats = requireNonNull(stats, "stats is null");
+        this.localBlockCache = requireNonNull(localBlockCache, "localBlockCache is null");
         this.orcCacheStore = OrcCacheStore.builder().newCacheStore(
                 config.getOrcFileTailCacheLimit(), Duration.ofMillis(config.getOrcFileTailCacheTtl().toMillis()),
                 config.getOrcStripeFooterCacheLimit(),
@@ -142,7 +155,81 @@ public class OrcPageSourceFactory
                 config.getOrcRowIndexCacheLimit(), Duration.ofMillis(config.getOrcRowIndexCacheTtl().toMillis()),
                 config.getOrcBloomFiltersCacheLimit(),
                 Duration.ofMillis(config.getOrcBloomFiltersCacheTtl().toMillis()),
-                config.getOrcRowDataCacheMaximumWeight(), Duration.ofMillis(config.getOrcRowDataCacheTtl().toMillis()));
+                config.getOrcRowDataCacheMaximumWeight(), Duration.ofMillis(config.getOrcRowDataCacheTtl().toMillis()),
+                config.isOrcRowDataCacheOffHeapEnabled(), new OrcBlockEncodingSerde(typeManager));
+    }
+
+    @Managed
+    public long getRowDataCacheHitCount()
+    {
+        return orcCacheStore.getRowDataCache().stats().hitCount();
+    }
+
+    @Managed
+    public long getRowDataCacheMissCount()
+    {
+        return orcCacheStore.getRowDataCache().stats().missCount();
+    }
+
+    @Managed
+    public long getRowDataCacheEvictionCount()
+    {
+        return orcCacheStore.getRowDataCache().stats().evictionCount();
+    }
+
+    @Managed
+    public long getRowDataCacheSize()
+    {
+        return orcCacheStore.getRowDataCache().size();
+    }
+
+    /**
+     * Size of the cached row data, only known for the off-heap cache
+     */
+    @Managed
+    public long getRowDataCacheBytes()
+    {
+        if (orcCacheStore.getRowDataCache() instanceof OffHeapOrcRowDataCache) {
+            return ((OffHeapOrcRowDataCache) orcCacheStore.getRowDataCache()).getCachedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * Blocks not cached because the admission policy favored the cached blocks, only for the off-heap cache
+     */
+    @Managed
+    public long getRowDataCacheRejectionCount()
+    {
+        if (orcCacheStore.getRowDataCache() instanceof OffHeapOrcRowDataCache) {
+            return ((OffHeapOrcRowDataCache) orcCacheStore.getRowDataCache()).getStats().getRejectionCount();
+        }
+        return 0;
+    }
+
+    /**
+     * Size of the cached row data served instead of being read again, only for the off-heap cache
+     */
+    @Managed
+    public long getRowDataCacheBytesSaved()
+    {
+        if (orcCacheStore.getRowDataCache() instanceof OffHeapOrcRowDataCache) {
+            return ((OffHeapOrcRowDataCache) orcCacheStore.getRowDataCache()).getStats().getBytesSaved();
+        }
+        return 0;
+    }
+
+    /**
+     * @param tableName table name in schema.table format
+     * @return hits, misses, evictions, rejections and bytes saved for the row data of the table
+     */
+    @Managed
+    public String getRowDataCacheTableStats(String tableName)
+    {
+        if (orcCacheStore.getRowDataCache() instanceof OffHeapOrcRowDataCache) {
+            return ((OffHeapOrcRowDataCache) orcCacheStore.getRowDataCache()).getTableStats(tableName).toString();
+        }
+        return "Table statistics are only collected by the off-heap row data cache";
     }
 
     @Override
@@ -162,6 +249,44 @@ public class OrcPageSourceFactory
             Optional<Long> startRowOffsetOfFile,
             Optional<List<SplitIndexMetadata>> indexes,
             boolean splitCacheable)
+    {
+        return createPageSource(
+                configuration,
+                session,
+                path,
+                start,
+                length,
+                fileSize,
+                0,
+                schema,
+                columns,
+                effectivePredicate,
+                hiveStorageTimeZone,
+                dynamicFilter,
+                deleteDeltaLocations,
+                startRowOffsetOfFile,
+                indexes,
+                splitCacheable);
+    }
+
+    @Override
+    public Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            long lastModifiedTime,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            TupleDomain<HiveColumnHandle> effectivePredicate,
+            DateTimeZone hiveStorageTimeZone,
+            Map<ColumnHandle, DynamicFilter> dynamicFilter,
+            Optional<DeleteDeltaLocations> deleteDeltaLocations,
+            Optional<Long> startRowOffsetOfFile,
+            Optional<List<SplitIndexMetadata>> indexes,
+            boolean splitCacheable)
     {
         if (!HiveUtil.isDeserializerClass(schema, OrcSerde.class)) {
             return Optional.empty();
@@ -176,7 +301,8 @@ public class OrcPageSourceFactory
                 isOrcStripeFooterCacheEnabled(session),
                 isOrcRowIndexCacheEnabled(session),
                 isOrcBloomFiltersCacheEnabled(session),
-                isOrcRowDataCacheEnabled(session) && splitCacheable);
+                isOrcRowDataCacheEnabled(session) && splitCacheable,
+                schema.getProperty(META_TABLE_NAME));
         return Optional.of(createOrcPageSource(
                 hdfsEnvironment,
                 session.getUser(),
@@ -204,7 +330,8 @@ public class OrcPageSourceFactory
                 startRowOffsetOfFile,
                 indexes,
                 orcCacheStore,
-                orcCacheProperties));
+                orcCacheProperties,
+                localBlockCache.getCachedFile(path.toString(), lastModifiedTime, fileSize, session.getQueryId())));
     }
 
     public static OrcPageSource createOrcPageSource(
@@ -234,7 +361,8 @@ public class OrcPageSourceFactory
             Optional<Long> startRowOffsetOfFile,
             Optional<List<SplitIndexMetadata>> indexes,
             OrcCacheStore orcCacheStore,
-            OrcCacheProperties orcCacheProperties)
+            OrcCacheProperties orcCacheProperties,
+            Optional<CachedFile> cachedFile)
     {
         for (HiveColumnHandle column : columns) {
             checkArgument(
@@ -258,7 +386,8 @@ public class OrcPageSourceFactory
                     streamBufferSize,
                     lazyReadSmallRanges,
                     inputStream,
-                    stats);
+                    stats,
+                    cachedFile);
         }
         catch (Exception e) {
             if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
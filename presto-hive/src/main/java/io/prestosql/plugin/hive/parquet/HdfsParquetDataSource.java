@@ -16,11 +16,13 @@ package io.prestosql.plugin.hive.parquet;
 import io.prestosql.parquet.ParquetDataSource;
 import io.prestosql.parquet.ParquetDataSourceId;
 import io.prestosql.plugin.hive.FileFormatDataSourceStats;
+import io.prestosql.plugin.hive.LocalBlockCache.CachedFile;
 import io.prestosql.spi.PrestoException;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.Path;
 
 import java.io.IOException;
+import java.util.Optional;
 
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
 import static java.lang.String.format;
@@ -35,13 +37,20 @@ public class HdfsParquetDataSource
     private long readTimeNanos;
     private long readBytes;
     private final FileFormatDataSourceStats stats;
+    private final Optional<CachedFile> cachedFile;
 
     public HdfsParquetDataSource(ParquetDataSourceId id, long size, FSDataInputStream inputStream, FileFormatDataSourceStats stats)
+    {
+        this(id, size, inputStream, stats, Optional.empty());
+    }
+
+    public HdfsParquetDataSource(ParquetDataSourceId id, long size, FSDataInputStream inputStream, FileFormatDataSourceStats stats, Optional<CachedFile> cachedFile)
     {
         this.id = requireNonNull(id, "id is null");
         this.size = size;
         this.inputStream = inputStream;
         this.stats = stats;
+        this.cachedFile = requireNonNull(cachedFile, "cachedFile is null");
     }
 
     @Override
@@ -97,7 +106,12 @@ public class HdfsParquetDataSource
     private void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
     {
         try {
-            inputStream.readFully(position, buffer, bufferOffset, bufferLength);
+            if (cachedFile.isPresent()) {
+                cachedFile.get().readFully(position, buffer, bufferOffset, bufferLength, inputStream::readFully);
+            }
+            else {
+                inputStream.readFully(position, buffer, bufferOffset, bufferLength);
+            }
         }
         catch (PrestoException e) {
             // just in case there is a Presto wrapper or hook
@@ -110,6 +124,11 @@ public class HdfsParquetDataSource
 
     public static HdfsParquetDataSource buildHdfsParquetDataSource(FSDataInputStream inputStream, Path path, long fileSize, FileFormatDataSourceStats stats)
     {
-        return new HdfsParquetDataSource(new ParquetDataSourceId(path.toString()), fileSize, inputStream, stats);
+        return buildHdfsParquetDataSource(inputStream, path, fileSize, stats, Optional.empty());
+    }
+
+    public static HdfsParquetDataSource buildHdfsParquetDataSource(FSDataInputStream inputStream, Path path, long fileSize, FileFormatDataSourceStats stats, Optional<CachedFile> cachedFile)
+    {
+        return new HdfsParquetDataSource(new ParquetDataSourceId(path.toString()), fileSize, inputStream, stats, cachedFile);
     }
 }
@@ -30,6 +30,8 @@ import io.prestosql.plugin.hive.FileFormatDataSourceStats;
 import io.prestosql.plugin.hive.HdfsEnvironment;
 import io.prestosql.plugin.hive.HiveColumnHandle;
 import io.prestosql.plugin.hive.HivePageSourceFactory;
+import io.prestosql.plugin.hive.LocalBlockCache;
+import io.prestosql.plugin.hive.LocalBlockCache.CachedFile;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorPageSource;
@@ -96,13 +98,57 @@ public class ParquetPageSourceFactory
     private final TypeManager typeManager;
     private final HdfsEnvironment hdfsEnvironment;
     private final FileFormatDataSourceStats stats;
+    private final LocalBlockCache localBlockCache;
 
-    @Inject
     public ParquetPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats)
+    {
+        this(typeManager, hdfsEnvironment, stats, LocalBlockCache.disabled());
+    }
+
+    @Inject
+    public ParquetPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats, LocalBlockCache localBlockCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.stats = requireNonNull(stats, "stats is null");
+        this.localBlockCache = requireNonNull(localBlockCache, "localBlockCache is null");
+    }
+
+    @Override
+    public Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            TupleDomain<HiveColumnHandle> effectivePredicate,
+            DateTimeZone hiveStorageTimeZone,
+            Map<ColumnHandle, DynamicFilter> dynamicFilter,
+            Optional<DeleteDeltaLocations> deleteDeltaLocations,
+            Optional<Long> startRowOffsetOfFile,
+            Optional<List<SplitIndexMetadata>> indexes,
+            boolean splitCacheable)
+    {
+        return createPageSource(
+                configuration,
+                session,
+                path,
+                start,
+                length,
+                fileSize,
+                0,
+                schema,
+                columns,
+                effectivePredicate,
+                hiveStorageTimeZone,
+                dynamicFilter,
+                deleteDeltaLocations,
+                startRowOffsetOfFile,
+                indexes,
+                splitCacheable);
     }
 
     @Override
@@ -113,6 +159,7 @@ public class ParquetPageSourceFactory
             long start,
             long length,
             long fileSize,
+            long lastModifiedTime,
             Properties schema,
             List<HiveColumnHandle> columns,
             TupleDomain<HiveColumnHandle> effectivePredicate,
@@ -144,7 +191,8 @@ public class ParquetPageSourceFactory
                 getParquetMaxReadBlockSize(session),
                 typeManager,
                 effectivePredicate,
-                stats));
+                stats,
+                localBlockCache.getCachedFile(path.toString(), lastModifiedTime, fileSize, session.getQueryId())));
     }
 
     public static ParquetPageSource createParquetPageSource(
@@ -162,7 +210,8 @@ public class ParquetPageSourceFactory
             DataSize maxReadBlockSize,
             TypeManager typeManager,
             TupleDomain<HiveColumnHandle> effectivePredicate,
-            FileFormatDataSourceStats stats)
+            FileFormatDataSourceStats stats,
+            Optional<CachedFile> cachedFile)
     {
         AggregatedMemoryContext systemMemoryContext = newSimpleAggregatedMemoryContext();
 
@@ -173,7 +222,7 @@ public class ParquetPageSourceFactory
             ParquetMetadata parquetMetadata = MetadataReader.readFooter(inputStream, path, fileSize);
             FileMetaData fileMetaData = parquetMetadata.getFileMetaData();
             MessageType fileSchema = fileMetaData.getSchema();
-            dataSource = buildHdfsParquetDataSource(inputStream, path, fileSize, stats);
+            dataSource = buildHdfsParquetDataSource(inputStream, path, fileSize, stats, cachedFile);
 
             List<org.apache.parquet.schema.Type> fields = columns.stream()
                     .filter(column -> column.getColumnType() == REGULAR)
@@ -769,6 +769,7 @@ public class TestBackgroundHiveSplitLoader
                 hiveSplitLoader,
                 EXECUTOR,
                 new CounterStat(),
+                new CounterStat(),
                 null,
                 null);
     }
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.prestosql.plugin.hive.TestHiveUtil.nonDefaultTimeZone;
 
@@ -97,7 +98,11 @@ public class TestHiveConfig
                 .setOrcStripeFooterCacheEnabled(false).setOrcStripeFooterCacheTtl(new Duration(30, TimeUnit.MINUTES)).setOrcStripeFooterCacheLimit(25_000)
                 .setOrcRowIndexCacheEnabled(false).setOrcRowIndexCacheTtl(new Duration(30, TimeUnit.MINUTES)).setOrcRowIndexCacheLimit(50_000)
                 .setOrcBloomFiltersCacheEnabled(false).setOrcBloomFiltersCacheTtl(new Duration(30, TimeUnit.MINUTES)).setOrcBloomFiltersCacheLimit(50_000)
-                .setOrcRowDataCacheEnabled(false).setOrcRowDataCacheTtl(new Duration(30, TimeUnit.MINUTES)).setOrcRowDataCacheMaximumWeight(new DataSize(500, MEGABYTE))
+                .setOrcRowDataCacheEnabled(false).setOrcRowDataCacheTtl(new Duration(30, TimeUnit.MINUTES)).setOrcRowDataCacheMaximumWeight(new DataSize(500, MEGABYTE)).setOrcRowDataCacheOffHeapEnabled(false)
+                .setLocalBlockCacheEnabled(false)
+                .setLocalBlockCacheDirectory(null)
+                .setLocalBlockCacheMaximumSize(new DataSize(10, GIGABYTE))
+                .setLocalBlockCacheBlockSize(new DataSize(1, MEGABYTE))
                 .setOrcLazyReadSmallRanges(true)
                 .setRcfileWriterValidate(false)
                 .setOrcWriteLegacyVersion(false)
@@ -210,6 +215,11 @@ public class TestHiveConfig
                 .put("hive.orc.row-data.block.cache.enabled", "true")
                 .put("hive.orc.row-data.block.cache.ttl", "1h")
                 .put("hive.orc.row-data.block.cache.max.weight", "1MB")
+                .put("hive.orc.row-data.block.cache.off-heap.enabled", "true")
+                .put("hive.local-block-cache.enabled", "true")
+                .put("hive.local-block-cache.directory", "/mnt/ssd/presto-cache")
+                .put("hive.local-block-cache.max-size", "100GB")
+                .put("hive.local-block-cache.block-size", "4MB")
                 .put("hive.orc.lazy-read-small-ranges", "false")
                 .put("hive.rcfile.writer.validate", "true")
                 .put("hive.orc.writer.use-legacy-version-number", "true")
@@ -307,7 +317,11 @@ public class TestHiveConfig
                 .setOrcStripeFooterCacheEnabled(true).setOrcStripeFooterCacheTtl(new Duration(1, TimeUnit.HOURS)).setOrcStripeFooterCacheLimit(100)
                 .setOrcRowIndexCacheEnabled(true).setOrcRowIndexCacheTtl(new Duration(1, TimeUnit.HOURS)).setOrcRowIndexCacheLimit(100)
                 .setOrcBloomFiltersCacheEnabled(true).setOrcBloomFiltersCacheTtl(new Duration(1, TimeUnit.HOURS)).setOrcBloomFiltersCacheLimit(100)
-                .setOrcRowDataCacheEnabled(true).setOrcRowDataCacheTtl(new Duration(1, TimeUnit.HOURS)).setOrcRowDataCacheMaximumWeight(new DataSize(1, MEGABYTE))
+                .setOrcRowDataCacheEnabled(true).setOrcRowDataCacheTtl(new Duration(1, TimeUnit.HOURS)).setOrcRowDataCacheMaximumWeight(new DataSize(1, MEGABYTE)).setOrcRowDataCacheOffHeapEnabled(true)
+                .setLocalBlockCacheEnabled(true)
+                .setLocalBlockCacheDirectory("/mnt/ssd/presto-cache")
+                .setLocalBlockCacheMaximumSize(new DataSize(100, GIGABYTE))
+                .setLocalBlockCacheBlockSize(new DataSize(4, MEGABYTE))
                 .setOrcLazyReadSmallRanges(false)
                 .setRcfileWriterValidate(true)
                 .setOrcWriteLegacyVersion(true)
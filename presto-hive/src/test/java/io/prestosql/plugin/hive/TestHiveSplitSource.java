@@ -65,6 +65,7 @@ public class TestHiveSplitSource
                 new TestingHiveSplitLoader(),
                 Executors.newFixedThreadPool(5),
                 new CounterStat(),
+                new CounterStat(),
                 null,
                 null);
 
@@ -101,6 +102,7 @@ public class TestHiveSplitSource
                 new TestingHiveSplitLoader(),
                 Executors.newFixedThreadPool(5),
                 new CounterStat(),
+                new CounterStat(),
                 null,
                 null);
 
@@ -161,6 +163,7 @@ public class TestHiveSplitSource
                 new TestingHiveSplitLoader(),
                 Executors.newFixedThreadPool(5),
                 new CounterStat(),
+                new CounterStat(),
                 null,
                 null);
 
@@ -222,6 +225,7 @@ public class TestHiveSplitSource
                 new TestingHiveSplitLoader(),
                 Executors.newFixedThreadPool(5),
                 new CounterStat(),
+                new CounterStat(),
                 null,
                 null);
         int testSplitSizeInBytes = new TestSplit(0).getEstimatedSizeInBytes();
@@ -261,6 +265,7 @@ public class TestHiveSplitSource
                 new TestingHiveSplitLoader(),
                 Executors.newFixedThreadPool(5),
                 new CounterStat(),
+                new CounterStat(),
                 null,
                 null);
         hiveSplitSource.addToQueue(new TestSplit(0, OptionalInt.of(2)));
@@ -288,6 +293,7 @@ public class TestHiveSplitSource
                 new TestingHiveSplitLoader(),
                 Executors.newFixedThreadPool(5),
                 new CounterStat(),
+                new CounterStat(),
                 createTestDynamicFilterSupplier("pt_d", ImmutableList.of("0")),
                 null);
 
@@ -321,6 +327,7 @@ public class TestHiveSplitSource
                 new TestingHiveSplitLoader(),
                 Executors.newFixedThreadPool(5),
                 new CounterStat(),
+                new CounterStat(),
                 null,
                 cachePredicates);
 
@@ -14,12 +14,20 @@
 package io.prestosql.plugin.hive;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.hash.BloomFilter;
 import com.google.common.hash.Funnels;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.dynamicfilter.BloomFilterDynamicFilter;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.DynamicFilterRange;
 import io.prestosql.spi.dynamicfilter.HashSetDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedHashSetDynamicFilter;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.type.Type;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.metastore.Warehouse;
 import org.apache.hadoop.hive.metastore.api.MetaException;
@@ -36,6 +44,7 @@ import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
@@ -43,9 +52,11 @@ import java.util.Set;
 import static io.airlift.testing.Assertions.assertInstanceOf;
 import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.PARTITION_KEY;
 import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static io.prestosql.plugin.hive.HiveTestUtils.TYPE_MANAGER;
 import static io.prestosql.plugin.hive.HiveType.HIVE_INT;
 import static io.prestosql.plugin.hive.HiveType.HIVE_STRING;
 import static io.prestosql.plugin.hive.HiveUtil.getDeserializer;
+import static io.prestosql.plugin.hive.HiveUtil.getDynamicFilterPredicate;
 import static io.prestosql.plugin.hive.HiveUtil.isPartitionFiltered;
 import static io.prestosql.plugin.hive.HiveUtil.parseHiveTimestamp;
 import static io.prestosql.plugin.hive.HiveUtil.toPartitionValues;
@@ -141,6 +152,41 @@ public class TestHiveUtil
         assertFalse(isPartitionFiltered(partitions, dynamicFilters), "Should not filter partition if dynamicFilter is on non-partition column");
     }
 
+    @Test
+    public void testGetDynamicFilterPredicate()
+    {
+        assertEquals(getDynamicFilterPredicate(null, ImmutableMap.of(), TYPE_MANAGER), TupleDomain.all());
+
+        HiveColumnHandle idColumn = new HiveColumnHandle("id", HIVE_INT, parseTypeSignature(INTEGER), 0, REGULAR, Optional.empty());
+        HiveColumnHandle coercedColumn = new HiveColumnHandle("coerced", HIVE_INT, parseTypeSignature(INTEGER), 1, REGULAR, Optional.empty());
+        HiveColumnHandle dayColumn = new HiveColumnHandle("pt_d", HIVE_INT, parseTypeSignature(INTEGER), 2, PARTITION_KEY, Optional.empty());
+        HiveColumnHandle nameColumn = new HiveColumnHandle("name", HIVE_STRING, parseTypeSignature(VARCHAR), 3, REGULAR, Optional.empty());
+
+        Map<ColumnHandle, DynamicFilter> dynamicFilters = ImmutableMap.of(
+                idColumn, longFilter(idColumn, 3, 1, 7),
+                coercedColumn, longFilter(coercedColumn, 1),
+                dayColumn, longFilter(dayColumn, 1),
+                nameColumn, new HashSetDynamicFilter("4", nameColumn, ImmutableSet.of("Alice"), DynamicFilter.Type.GLOBAL));
+        TupleDomain<HiveColumnHandle> predicate = getDynamicFilterPredicate(dynamicFilters, ImmutableMap.of(1, HIVE_STRING), TYPE_MANAGER);
+
+        // only the typed filter on the regular column without coercion can be used for statistics
+        Type integerType = TYPE_MANAGER.getType(parseTypeSignature(INTEGER));
+        assertEquals(predicate, TupleDomain.withColumnDomains(ImmutableMap.of(idColumn, Domain.multipleValues(integerType, ImmutableList.<Object>of(1L, 3L, 7L)))));
+    }
+
+    private static TypedDynamicFilter longFilter(HiveColumnHandle column, long... values)
+    {
+        DynamicFilterRange range = new DynamicFilterRange(TypedDynamicFilter.ValueKind.LONG);
+        long[] hashes = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            range.addLong(values[i]);
+            hashes[i] = TypedDynamicFilter.hashLong(values[i]);
+        }
+        TypedDynamicFilter filter = new TypedHashSetDynamicFilter(column.getName(), column, TypedDynamicFilter.ValueKind.LONG, hashes, DynamicFilter.Type.GLOBAL);
+        filter.setValueRange(range);
+        return filter;
+    }
+
     private static void assertToPartitionValues(String partitionName)
             throws MetaException
     {
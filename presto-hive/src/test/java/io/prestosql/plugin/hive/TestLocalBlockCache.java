@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive;
+
+import com.google.common.io.Files;
+import io.airlift.units.DataSize;
+import io.prestosql.plugin.hive.LocalBlockCache.CachedFile;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalBlockCache
+{
+    private static final int BLOCK_SIZE = 1024;
+    private static final byte[] DATA = new byte[10 * BLOCK_SIZE + 300];
+
+    static {
+        new Random(42).nextBytes(DATA);
+    }
+
+    private File tempDir;
+    private final AtomicLong remoteBytes = new AtomicLong();
+
+    @BeforeMethod
+    public void setUp()
+    {
+        tempDir = Files.createTempDir();
+        remoteBytes.set(0);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testReadThroughCache()
+            throws Exception
+    {
+        LocalBlockCache cache = createCache(new DataSize(1, MEGABYTE));
+        try {
+            assertRead(file(cache, 1, "query1"), 0, DATA.length);
+            assertEquals(remoteBytes.get(), DATA.length);
+            cache.awaitPopulation();
+            assertEquals(cache.getBlockCount(), 11);
+
+            CachedFile cachedFile = file(cache, 1, "query2");
+            assertRead(cachedFile, 0, DATA.length);
+            assertRead(cachedFile, 1000, 3000);
+            assertEquals(remoteBytes.get(), DATA.length);
+            assertEquals(cachedFile.getBytesFromCache(), DATA.length + 3000);
+            assertEquals(cache.getQueryBytesFromCache("query2"), DATA.length + 3000);
+            assertEquals(cache.getQueryBytesFromCache("query1"), 0);
+
+            // a new version of the file does not hit the blocks of the previous one
+            assertRead(file(cache, 2, "query3"), 0, BLOCK_SIZE);
+            assertEquals(remoteBytes.get(), DATA.length + BLOCK_SIZE);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testPartialBlocks()
+            throws Exception
+    {
+        LocalBlockCache cache = createCache(new DataSize(1, MEGABYTE));
+        try {
+            // no block is fully read
+            assertRead(file(cache, 1, "query"), 100, 1500);
+            cache.awaitPopulation();
+            assertEquals(cache.getBlockCount(), 0);
+
+            // only the second block is fully read
+            assertRead(file(cache, 1, "query"), 100, 2000);
+            cache.awaitPopulation();
+            assertEquals(cache.getBlockCount(), 1);
+
+            // the cached block is read from the cache, the ranges around it remotely
+            remoteBytes.set(0);
+            assertRead(file(cache, 1, "query"), 1000, 1100);
+            assertEquals(remoteBytes.get(), 1100 - BLOCK_SIZE);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testCorruptedBlock()
+            throws Exception
+    {
+        LocalBlockCache cache = createCache(new DataSize(1, MEGABYTE));
+        try {
+            assertRead(file(cache, 1, "query"), 0, BLOCK_SIZE);
+            cache.awaitPopulation();
+            List<File> blockFiles = listBlockFiles();
+            assertEquals(blockFiles.size(), 1);
+
+            try (RandomAccessFile blockFile = new RandomAccessFile(blockFiles.get(0), "rw")) {
+                blockFile.seek(blockFile.length() - 1);
+                int last = blockFile.read();
+                blockFile.seek(blockFile.length() - 1);
+                blockFile.write(last ^ 0xff);
+            }
+
+            remoteBytes.set(0);
+            assertRead(file(cache, 1, "query"), 0, BLOCK_SIZE);
+            assertEquals(remoteBytes.get(), BLOCK_SIZE);
+            assertEquals(cache.getCorruptedBlockCount(), 1);
+
+            // the block read again is cached again
+            cache.awaitPopulation();
+            assertEquals(cache.getBlockCount(), 1);
+            assertRead(file(cache, 1, "query"), 0, BLOCK_SIZE);
+            assertEquals(remoteBytes.get(), BLOCK_SIZE);
+            assertEquals(cache.getCorruptedBlockCount(), 1);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testEviction()
+            throws Exception
+    {
+        LocalBlockCache cache = createCache(new DataSize(3 * (BLOCK_SIZE + 12), BYTE));
+        try {
+            assertRead(file(cache, 1, "query"), 0, 5 * BLOCK_SIZE);
+            cache.awaitPopulation();
+            assertEquals(cache.getBlockCount(), 3);
+            assertEquals(cache.getEvictionCount(), 2);
+            assertEquals(listBlockFiles().size(), 3);
+            assertTrue(cache.getCachedBytes() <= 3 * (BLOCK_SIZE + 12));
+
+            // the first blocks were evicted
+            remoteBytes.set(0);
+            assertRead(file(cache, 1, "query"), 2 * BLOCK_SIZE, 3 * BLOCK_SIZE);
+            assertEquals(remoteBytes.get(), 0);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testRestart()
+            throws Exception
+    {
+        LocalBlockCache cache = createCache(new DataSize(1, MEGABYTE));
+        try {
+            assertRead(file(cache, 1, "query"), 0, DATA.length);
+            cache.awaitPopulation();
+        }
+        finally {
+            cache.destroy();
+        }
+
+        LocalBlockCache restarted = createCache(new DataSize(1, MEGABYTE));
+        try {
+            assertEquals(restarted.getBlockCount(), 11);
+            remoteBytes.set(0);
+            assertRead(file(restarted, 1, "query"), 0, DATA.length);
+            assertEquals(remoteBytes.get(), 0);
+        }
+        finally {
+            restarted.destroy();
+        }
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        assertFalse(LocalBlockCache.disabled().getCachedFile("file", 1, DATA.length, "query").isPresent());
+        // the version of the file is unknown
+        LocalBlockCache cache = createCache(new DataSize(1, MEGABYTE));
+        try {
+            assertFalse(cache.getCachedFile("file", 0, DATA.length, "query").isPresent());
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    private LocalBlockCache createCache(DataSize maximumSize)
+    {
+        return new LocalBlockCache(true, tempDir.getAbsolutePath(), maximumSize, new DataSize(BLOCK_SIZE, BYTE));
+    }
+
+    private static CachedFile file(LocalBlockCache cache, long lastModifiedTime, String queryId)
+    {
+        return cache.getCachedFile("hdfs://cluster/table/file", lastModifiedTime, DATA.length, queryId).get();
+    }
+
+    private void assertRead(CachedFile file, int position, int length)
+            throws IOException
+    {
+        byte[] buffer = new byte[length + 10];
+        file.readFully(position, buffer, 10, length, (remotePosition, remoteBuffer, offset, remoteLength) -> {
+            remoteBytes.addAndGet(remoteLength);
+            System.arraycopy(DATA, (int) remotePosition, remoteBuffer, offset, remoteLength);
+        });
+        assertEquals(Arrays.copyOfRange(buffer, 10, buffer.length), Arrays.copyOfRange(DATA, position, position + length));
+    }
+
+    private List<File> listBlockFiles()
+            throws IOException
+    {
+        try (Stream<Path> files = java.nio.file.Files.walk(tempDir.toPath())) {
+            return files.map(Path::toFile)
+                    .filter(File::isFile)
+                    .collect(toImmutableList());
+        }
+    }
+}
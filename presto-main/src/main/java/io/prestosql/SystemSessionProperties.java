@@ -43,6 +43,7 @@ import static io.prestosql.spi.session.PropertyMetadata.integerProperty;
 import static io.prestosql.spi.session.PropertyMetadata.stringProperty;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
 import static io.prestosql.spi.type.IntegerType.INTEGER;
 import static io.prestosql.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.ELIMINATE_CROSS_JOINS;
 import static io.prestosql.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.NONE;
@@ -101,6 +102,7 @@ public final class SystemSessionProperties
     public static final String ITERATIVE_OPTIMIZER_TIMEOUT = "iterative_optimizer_timeout";
     public static final String ENABLE_FORCED_EXCHANGE_BELOW_GROUP_ID = "enable_forced_exchange_below_group_id";
     public static final String EXCHANGE_COMPRESSION = "exchange_compression";
+    public static final String EXCHANGE_BLOCK_ENCODING = "exchange_block_encoding";
     public static final String LEGACY_TIMESTAMP = "legacy_timestamp";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
@@ -133,8 +135,10 @@ public final class SystemSessionProperties
     public static final String PUSH_LIMIT_DOWN = "push_limit_down";
     public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_VALUE_COUNT = "dynamic_filtering_max_per_driver_value_count";
     public static final String DYNAMIC_FILTERING_WAIT_TIME = "dynamic_filtering_wait_time";
+    public static final String DYNAMIC_FILTERING_SPLIT_SCHEDULING_WAIT_TIME = "dynamic_filtering_split_scheduling_wait_time";
     public static final String DYNAMIC_FILTERING_DATA_STRUCTURE = "dynamic_filtering_data_structure";
     public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_SIZE = "dynamic_filtering_max_per_driver_size";
+    public static final String DYNAMIC_FILTERING_BLOOM_FILTER_FPP = "dynamic_filtering_bloom_filter_fpp";
     public static final String ENABLE_EXECUTION_PLAN_CACHE = "enable_execution_plan_cache";
     public static final String ENABLE_CROSS_REGION_DYNAMIC_FILTER = "cross-region-dynamic-filter-enabled";
 
@@ -477,6 +481,11 @@ public final class SystemSessionProperties
                         "Enable compression in exchanges",
                         featuresConfig.isExchangeCompressionEnabled(),
                         false),
+                booleanProperty(
+                        EXCHANGE_BLOCK_ENCODING,
+                        "Encode the blocks of exchanged pages with codecs chosen by their data",
+                        featuresConfig.isExchangeBlockEncodingEnabled(),
+                        false),
                 booleanProperty(
                         LEGACY_TIMESTAMP,
                         "Use legacy TIME & TIMESTAMP semantics (warning: this will be removed)",
@@ -601,6 +610,11 @@ public final class SystemSessionProperties
                         "Maximum waiting time for dynamic filter to be ready",
                         new Duration(0, TimeUnit.MILLISECONDS),
                         false),
+                durationProperty(
+                        DYNAMIC_FILTERING_SPLIT_SCHEDULING_WAIT_TIME,
+                        "Experimental: maximum time the split scheduling of a probe side scan waits for its dynamic filters",
+                        featuresConfig.getDynamicFilteringSplitSchedulingWaitTime(),
+                        false),
                 integerProperty(
                         DYNAMIC_FILTERING_MAX_PER_DRIVER_VALUE_COUNT,
                         "Experimental: maximum number of build-side rows to be collected for dynamic filtering per-driver",
@@ -608,7 +622,7 @@ public final class SystemSessionProperties
                         false),
                 integerProperty(
                         DYNAMIC_FILTERING_DATA_STRUCTURE,
-                        "Experimental: Data structure for choosing the datas tructure of the dynamic filter (0 for BloomFilter, 1 for HashSet)",
+                        "Experimental: Data structure for choosing the datas tructure of the dynamic filter (0 for BloomFilter, 1 for HashSet, 2 for choosing it from the build side values)",
                         featuresConfig.getDynamicFilteringDataStructure(),
                         false),
                 dataSizeProperty(
@@ -616,6 +630,21 @@ public final class SystemSessionProperties
                         "Experimental: maximum number of bytes to be collected for dynamic filtering per-driver",
                         featuresConfig.getDynamicFilteringMaxPerDriverSize(),
                         false),
+                new PropertyMetadata<>(
+                        DYNAMIC_FILTERING_BLOOM_FILTER_FPP,
+                        "Experimental: expected false positive probability of bloom filter dynamic filters",
+                        DOUBLE,
+                        Double.class,
+                        featuresConfig.getDynamicFilteringBloomFilterFpp(),
+                        false,
+                        value -> {
+                            double doubleValue = ((Number) requireNonNull(value, "value is null")).doubleValue();
+                            if (doubleValue <= 0 || doubleValue >= 1) {
+                                throw new PrestoException(INVALID_SESSION_PROPERTY, format("%s must be between 0 and 1 exclusive: %s", DYNAMIC_FILTERING_BLOOM_FILTER_FPP, doubleValue));
+                            }
+                            return doubleValue;
+                        },
+                        value -> value),
                 booleanProperty(
                         ENABLE_EXECUTION_PLAN_CACHE,
                         "Enable execution plan caching",
@@ -932,6 +961,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_COMPRESSION, Boolean.class);
     }
 
+    public static boolean isExchangeBlockEncodingEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_BLOCK_ENCODING, Boolean.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -1089,11 +1123,21 @@ public final class SystemSessionProperties
         return session.getSystemProperty(DYNAMIC_FILTERING_MAX_PER_DRIVER_SIZE, DataSize.class);
     }
 
+    public static double getDynamicFilteringBloomFilterFpp(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_BLOOM_FILTER_FPP, Double.class);
+    }
+
     public static Duration getDynamicFilteringWaitTime(Session session)
     {
         return session.getSystemProperty(DYNAMIC_FILTERING_WAIT_TIME, Duration.class);
     }
 
+    public static Duration getDynamicFilteringSplitSchedulingWaitTime(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_SPLIT_SCHEDULING_WAIT_TIME, Duration.class);
+    }
+
     public static boolean isExecutionPlanCacheEnabled(Session session)
     {
         return session.getSystemProperty(ENABLE_EXECUTION_PLAN_CACHE, Boolean.class);
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.datacenter;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+import io.hetu.core.transport.execution.buffer.SerializedPage;
+import io.prestosql.client.DataCenterPageStream;
+import io.prestosql.client.DataCenterQueryResults;
+import io.prestosql.server.protocol.PagePublisherQueryManager;
+import io.prestosql.server.protocol.PageSubscriber;
+import io.prestosql.server.protocol.Query;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.EOFException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Streams the results of a split of a data center query as framed serialized pages, see {@link DataCenterPageStream}.
+ * The next results are only taken from the query once the previous ones were written to the client,
+ * so a slow client holds back the query instead of the results piling up on the coordinator.
+ * While no results are available, the streamer waits for the page consumer of the client to be given new ones.
+ */
+public class DataCenterPageStreamer
+        implements StreamingOutput
+{
+    private static final Logger log = Logger.get(DataCenterPageStreamer.class);
+
+    private static final long HEARTBEAT_INTERVAL_NANOS = SECONDS.toNanos(1);
+
+    private final PagePublisherQueryManager queryManager;
+    private final String globalQueryId;
+    private final String slug;
+    private final String clientId;
+    private final DataCenterStreamingStats stats;
+    private long token;
+    private DataCenterQueryResults results;
+
+    public DataCenterPageStreamer(PagePublisherQueryManager queryManager, String globalQueryId, String slug, String clientId, DataCenterStreamingStats stats)
+    {
+        this.queryManager = requireNonNull(queryManager, "queryManager is null");
+        this.globalQueryId = requireNonNull(globalQueryId, "globalQueryId is null");
+        this.slug = requireNonNull(slug, "slug is null");
+        this.clientId = requireNonNull(clientId, "clientId is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        // Fetched before the response is committed, so that an unknown query is still answered with an error status
+        this.results = fetchResults();
+    }
+
+    @Override
+    public void write(OutputStream output)
+    {
+        SliceOutput sliceOutput = new OutputStreamSliceOutput(output);
+        long start = System.nanoTime();
+        long lastWrite = start;
+        long waitStart = start;
+        long totalBytes = 0;
+        boolean firstPage = true;
+        boolean finished = false;
+        stats.streamStarted();
+        try {
+            while (true) {
+                List<SerializedPage> pages = results.getData();
+                boolean hasPages = pages != null && !pages.isEmpty();
+                if (hasPages) {
+                    long now = System.nanoTime();
+                    if (firstPage) {
+                        stats.recordFirstPage(now - start);
+                        firstPage = false;
+                    }
+                    long size = DataCenterPageStream.writePages(sliceOutput, pages);
+                    stats.recordPages(pages.size(), size, now - waitStart);
+                    totalBytes += size;
+                }
+
+                boolean failed = "FAILED".equals(results.getStats().getState());
+                if (failed || results.getNextUri() == null) {
+                    DataCenterPageStream.writeEnd(sliceOutput, failed);
+                    sliceOutput.flush();
+                    finished = !failed;
+                    return;
+                }
+
+                if (!hasPages && System.nanoTime() - lastWrite > HEARTBEAT_INTERVAL_NANOS) {
+                    // keep the stream alive within the read timeout of the client
+                    DataCenterPageStream.writePages(sliceOutput, ImmutableList.of());
+                    hasPages = true;
+                }
+                if (hasPages) {
+                    // blocks while the client is not reading
+                    sliceOutput.flush();
+                    lastWrite = System.nanoTime();
+                    waitStart = lastWrite;
+                }
+                else {
+                    waitForResults(HEARTBEAT_INTERVAL_NANOS - (System.nanoTime() - lastWrite));
+                }
+                results = fetchResults();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeFailure(sliceOutput);
+        }
+        catch (WebApplicationException e) {
+            // the query is gone
+            writeFailure(sliceOutput);
+        }
+        catch (UncheckedIOException e) {
+            // EOF exception occurs when the client disconnects while writing data,
+            // the consumer of the split then expires as for a client which stopped polling
+            if (!(e.getCause() instanceof EOFException)) {
+                throw e;
+            }
+            log.debug("Client %s of query %s disconnected", clientId, globalQueryId);
+        }
+        finally {
+            stats.streamFinished(totalBytes, System.nanoTime() - start, !finished);
+        }
+    }
+
+    private void waitForResults(long timeoutNanos)
+            throws InterruptedException
+    {
+        try {
+            queryManager.whenResultsChanged(globalQueryId, clientId).get(Math.max(timeoutNanos, 0), NANOSECONDS);
+        }
+        catch (TimeoutException e) {
+            // a heartbeat is due
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("waiting for results failed", e);
+        }
+    }
+
+    private DataCenterQueryResults fetchResults()
+    {
+        ResultsSubscriber subscriber = new ResultsSubscriber(token++);
+        queryManager.add(globalQueryId, slug, clientId, subscriber);
+        return subscriber.getResults();
+    }
+
+    private static void writeFailure(SliceOutput sliceOutput)
+    {
+        DataCenterPageStream.writeEnd(sliceOutput, true);
+        sliceOutput.flush();
+    }
+
+    private static class ResultsSubscriber
+            implements PageSubscriber
+    {
+        private final long token;
+        private DataCenterQueryResults results;
+
+        ResultsSubscriber(long token)
+        {
+            this.token = token;
+        }
+
+        @Override
+        public String getId()
+        {
+            return "";
+        }
+
+        @Override
+        public boolean isActive()
+        {
+            return true;
+        }
+
+        @Override
+        public long getToken()
+        {
+            return token;
+        }
+
+        @Override
+        public void send(Query query, DataCenterQueryResults results)
+        {
+            this.results = results;
+        }
+
+        DataCenterQueryResults getResults()
+        {
+            // results are sent synchronously while the subscriber is added
+            checkState(results != null, "no results were sent");
+            return results;
+        }
+    }
+}
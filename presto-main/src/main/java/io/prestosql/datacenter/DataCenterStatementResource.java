@@ -54,7 +54,9 @@ import javax.ws.rs.core.UriInfo;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static io.prestosql.client.DataCenterPageStream.DATA_CENTER_PAGES;
 import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
@@ -65,6 +67,7 @@ public class DataCenterStatementResource
 {
     private final PagePublisherQueryManager queryManager;
     private final int splitCount;
+    private final DataCenterStreamingStats streamingStats;
 
     @Inject
     public DataCenterStatementResource(
@@ -75,7 +78,8 @@ public class DataCenterStatementResource
             ExchangeClientSupplier exchangeClientSupplier,
             @ForStatementResource BoundedExecutor responseExecutor,
             @ForStatementResource ScheduledExecutorService timeoutExecutor,
-            StateStoreProvider stateStoreProvider)
+            StateStoreProvider stateStoreProvider,
+            DataCenterStreamingStats streamingStats)
     {
         this.queryManager = new PagePublisherQueryManager(dispatchManager,
                 queryManager,
@@ -88,6 +92,7 @@ public class DataCenterStatementResource
         int noOfSplits = hetuConfig.getDataCenterSplits();
         // If the config value is out of range, use 5 as the default count
         this.splitCount = noOfSplits > 0 && noOfSplits <= 100 ? noOfSplits : 5;
+        this.streamingStats = requireNonNull(streamingStats, "streamingStats is null");
     }
 
     @PreDestroy
@@ -172,6 +177,18 @@ public class DataCenterStatementResource
         this.queryManager.add(globalQueryId, slug, clientId, subscriber);
     }
 
+    @GET
+    @Path("/v1/dc/stream/{clientId}/{globalQueryId}/{slug}")
+    @Produces(DATA_CENTER_PAGES)
+    public Response streamQueryResults(
+            @PathParam("clientId") String clientId,
+            @PathParam("globalQueryId") String globalQueryId,
+            @PathParam("slug") String slug)
+    {
+        // every split of the query opens its own stream, so the splits are transferred in parallel
+        return Response.ok(new DataCenterPageStreamer(this.queryManager, globalQueryId, slug, clientId, this.streamingStats)).build();
+    }
+
     @DELETE
     @Path("/v1/dc/statement/{globalQueryId}/{slug}")
     @Produces(APPLICATION_JSON)
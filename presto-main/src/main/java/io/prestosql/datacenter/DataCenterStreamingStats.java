@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.datacenter;
+
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.DistributionStat;
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Statistics of the binary result streams sent to other data centers
+ */
+public class DataCenterStreamingStats
+{
+    private final AtomicLong activeStreams = new AtomicLong();
+    private final CounterStat streams = new CounterStat();
+    private final CounterStat failedStreams = new CounterStat();
+    private final CounterStat pages = new CounterStat();
+    private final CounterStat bytes = new CounterStat();
+    private final TimeStat timeToFirstPage = new TimeStat();
+    private final TimeStat resultsWaitTime = new TimeStat();
+    private final DistributionStat throughput = new DistributionStat();
+
+    public void streamStarted()
+    {
+        activeStreams.incrementAndGet();
+        streams.update(1);
+    }
+
+    public void streamFinished(long bytes, long elapsedNanos, boolean failed)
+    {
+        activeStreams.decrementAndGet();
+        if (failed) {
+            failedStreams.update(1);
+        }
+        if (elapsedNanos > 0) {
+            throughput.add((long) (bytes / (elapsedNanos / 1_000_000_000.0)));
+        }
+    }
+
+    public void recordFirstPage(long nanos)
+    {
+        timeToFirstPage.add(nanos, NANOSECONDS);
+    }
+
+    public void recordPages(int count, long size, long waitNanos)
+    {
+        pages.update(count);
+        bytes.update(size);
+        resultsWaitTime.add(waitNanos, NANOSECONDS);
+    }
+
+    @Managed
+    public long getActiveStreams()
+    {
+        return activeStreams.get();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStreams()
+    {
+        return streams;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getFailedStreams()
+    {
+        return failedStreams;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getPages()
+    {
+        return pages;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBytes()
+    {
+        return bytes;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getTimeToFirstPage()
+    {
+        return timeToFirstPage;
+    }
+
+    /**
+     * Time waited for the query to produce each results sent
+     */
+    @Managed
+    @Nested
+    public TimeStat getResultsWaitTime()
+    {
+        return resultsWaitTime;
+    }
+
+    /**
+     * Bytes per second of each finished stream
+     */
+    @Managed
+    @Nested
+    public DistributionStat getThroughput()
+    {
+        return throughput;
+    }
+}
@@ -16,6 +16,7 @@ package io.prestosql.dispatcher;
 import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.log.Logger;
+import io.airlift.units.Duration;
 import io.prestosql.Session;
 import io.prestosql.execution.QueryIdGenerator;
 import io.prestosql.execution.QueryInfo;
@@ -41,6 +42,7 @@ import io.prestosql.statestore.StateCacheStore;
 import io.prestosql.statestore.StateFetcher;
 import io.prestosql.statestore.StateStoreConstants;
 import io.prestosql.statestore.StateStoreProvider;
+import io.prestosql.statestore.StateSyncStats;
 import io.prestosql.statestore.StateUpdater;
 import io.prestosql.transaction.TransactionManager;
 import io.prestosql.utils.HetuConfig;
@@ -71,8 +73,10 @@ import static io.prestosql.spi.StandardErrorCode.QUERY_TEXT_TOO_LARGE;
 import static io.prestosql.util.StatementUtils.getQueryType;
 import static io.prestosql.util.StatementUtils.isTransactionControlStatement;
 import static io.prestosql.utils.StateUtils.isMultiCoordinatorEnabled;
+import static java.lang.Math.max;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class DispatchManager
 {
@@ -91,6 +95,7 @@ public class DispatchManager
     private final StateStoreProvider stateStoreProvider;
     private StateUpdater stateUpdater;
     private StateFetcher stateFetcher;
+    private final StateSyncStats stateSyncStats;
     private final HetuConfig hetuConfig;
     private final int maxQueryLength;
 
@@ -114,6 +119,7 @@ public class DispatchManager
             QueryManagerConfig queryManagerConfig,
             DispatchExecutor dispatchExecutor,
             StateStoreProvider stateStoreProvider,
+            StateSyncStats stateSyncStats,
             HetuConfig hetuConfig)
     {
         this.queryIdGenerator = requireNonNull(queryIdGenerator, "queryIdGenerator is null");
@@ -127,6 +133,7 @@ public class DispatchManager
         this.sessionPropertyDefaults = requireNonNull(sessionPropertyDefaults, "sessionPropertyDefaults is null");
         // StateStoreProvider and load HetuConfig
         this.stateStoreProvider = requireNonNull(stateStoreProvider, "stateStoreProvider is null");
+        this.stateSyncStats = requireNonNull(stateSyncStats, "stateSyncStats is null");
         this.hetuConfig = requireNonNull(hetuConfig, "hetuConfig is null");
         PropertyService.setProperty(HetuConstant.MULTI_COORDINATOR_ENABLED, hetuConfig.isMultipleCoordinatorEnabled());
 
@@ -372,11 +379,15 @@ public class DispatchManager
         }
 
         if (stateUpdater == null) {
-            stateUpdater = new StateUpdater(stateStoreProvider, hetuConfig.getStateUpdateInterval());
+            // unchanged states are written again well before the other coordinators consider them expired
+            Duration heartbeatInterval = new Duration(
+                    max(hetuConfig.getStateUpdateInterval().toMillis(), hetuConfig.getStateExpireTime().toMillis() / 4),
+                    MILLISECONDS);
+            stateUpdater = new StateUpdater(stateStoreProvider, hetuConfig.getStateUpdateInterval(), heartbeatInterval, stateSyncStats);
         }
 
         if (stateFetcher == null) {
-            stateFetcher = new StateFetcher(stateStoreProvider, hetuConfig.getStateFetchInterval(), hetuConfig.getStateExpireTime());
+            stateFetcher = new StateFetcher(stateStoreProvider, hetuConfig.getStateFetchInterval(), hetuConfig.getStateExpireTime(), stateSyncStats);
         }
 
         // Start state updater
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.dynamicfilter;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.log.Logger;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.DynamicFilterFactory;
+import io.prestosql.spi.statestore.StateCollection;
+import io.prestosql.spi.statestore.StateMap;
+import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.sql.planner.PlanFragment;
+import io.prestosql.sql.planner.SubPlan;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.plan.ExchangeNode;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.OutputNode;
+import io.prestosql.sql.planner.plan.PlanFragmentId;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import io.prestosql.sql.planner.plan.RemoteSourceNode;
+import io.prestosql.sql.planner.plan.SortNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.SymbolReference;
+import io.prestosql.statestore.StateStoreProvider;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.prestosql.statestore.StateStoreConstants.CROSS_REGION_DYNAMIC_FILTER_COLLECTION;
+import static io.prestosql.statestore.StateStoreConstants.CROSS_REGION_DYNAMIC_FILTER_SCAN_COLUMNS;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Dynamic filters sent by another data center for the output columns of a query, applied to a table scan producing
+ * some of these columns so that its connector can prune splits, partitions and rows before they are read.
+ * <p>
+ * The coordinator traces the output columns down to the table scan columns when planning the query, see
+ * {@link #register}, and publishes them in the state store for the workers, see {@link #forTableScan}, until the
+ * query is done, see {@link #unregister}.
+ * Only columns passed through unchanged are traced: a filter below a limit or an aggregation would change the results.
+ */
+public class CrossRegionDynamicFilters
+{
+    private static final Logger log = Logger.get(CrossRegionDynamicFilters.class);
+
+    private final StateStoreProvider stateStoreProvider;
+    private final String queryId;
+    // output column name to the table scan column
+    private final Map<String, ColumnHandle> columns;
+    private final Set<String> loadedColumns = new HashSet<>();
+    private final Map<ColumnHandle, DynamicFilter> dynamicFilters = new HashMap<>();
+    private int receivedCount;
+
+    public CrossRegionDynamicFilters(StateStoreProvider stateStoreProvider, String queryId, Map<String, ColumnHandle> columns)
+    {
+        this.stateStoreProvider = requireNonNull(stateStoreProvider, "stateStoreProvider is null");
+        this.queryId = requireNonNull(queryId, "queryId is null");
+        this.columns = ImmutableMap.copyOf(requireNonNull(columns, "columns is null"));
+    }
+
+    /**
+     * Trace the output columns of a query to its table scans and publish them for the workers
+     *
+     * @return the dynamic filters of each table scan producing output columns
+     */
+    public static Map<PlanNodeId, CrossRegionDynamicFilters> register(StateStoreProvider stateStoreProvider, String queryId, SubPlan plan)
+    {
+        StateStore stateStore = stateStoreProvider.getStateStore();
+        PlanNode root = plan.getFragment().getRoot();
+        if (stateStore == null || !(root instanceof OutputNode)) {
+            return ImmutableMap.of();
+        }
+
+        Map<PlanFragmentId, PlanFragment> fragments = plan.getAllFragments().stream()
+                .collect(toImmutableMap(PlanFragment::getId, Function.identity()));
+        Map<PlanNodeId, Map<Symbol, String>> scanColumns = new HashMap<>();
+        OutputNode output = (OutputNode) root;
+        for (int i = 0; i < output.getOutputSymbols().size(); i++) {
+            traceColumn(output.getSource(), output.getOutputSymbols().get(i), output.getColumnNames().get(i), fragments, scanColumns);
+        }
+        if (scanColumns.isEmpty()) {
+            return ImmutableMap.of();
+        }
+
+        Map<PlanNodeId, TableScanNode> scans = fragments.values().stream()
+                .flatMap(fragment -> searchFrom(fragment.getRoot()).where(TableScanNode.class::isInstance).<TableScanNode>findAll().stream())
+                .collect(toImmutableMap(TableScanNode::getId, Function.identity()));
+        ImmutableMap.Builder<PlanNodeId, CrossRegionDynamicFilters> result = ImmutableMap.builder();
+        Map<String, String> published = new HashMap<>();
+        scanColumns.forEach((nodeId, symbols) -> {
+            TableScanNode scan = scans.get(nodeId);
+            Map<String, ColumnHandle> columns = new HashMap<>();
+            symbols.forEach((symbol, columnName) -> {
+                columns.put(columnName, scan.getAssignments().get(symbol));
+                published.put(getKey(nodeId, symbol), columnName);
+            });
+            result.put(nodeId, new CrossRegionDynamicFilters(stateStoreProvider, queryId, columns));
+        });
+
+        String collectionName = queryId + CROSS_REGION_DYNAMIC_FILTER_SCAN_COLUMNS;
+        StateMap<String, String> collection = (StateMap<String, String>) stateStore.getStateCollection(collectionName);
+        if (collection == null) {
+            collection = (StateMap<String, String>) stateStore.createStateCollection(collectionName, StateCollection.Type.MAP);
+        }
+        collection.putAll(published);
+        return result.build();
+    }
+
+    /**
+     * Remove the table scan columns published for a query, once the query is done
+     */
+    public static void unregister(StateStoreProvider stateStoreProvider, String queryId)
+    {
+        StateStore stateStore = stateStoreProvider.getStateStore();
+        if (stateStore == null) {
+            return;
+        }
+        String collectionName = queryId + CROSS_REGION_DYNAMIC_FILTER_SCAN_COLUMNS;
+        StateCollection collection = stateStore.getStateCollection(collectionName);
+        if (collection != null) {
+            collection.destroy();
+            stateStore.removeStateCollection(collectionName);
+        }
+    }
+
+    /**
+     * Get the dynamic filters of a table scan published by the coordinator, see {@link #register}
+     */
+    public static Optional<CrossRegionDynamicFilters> forTableScan(StateStoreProvider stateStoreProvider, String queryId, TableScanNode node)
+    {
+        StateStore stateStore = stateStoreProvider.getStateStore();
+        if (stateStore == null) {
+            return Optional.empty();
+        }
+        StateMap<String, String> published = (StateMap<String, String>) stateStore.getStateCollection(queryId + CROSS_REGION_DYNAMIC_FILTER_SCAN_COLUMNS);
+        if (published == null) {
+            return Optional.empty();
+        }
+
+        Map<String, Symbol> keys = node.getAssignments().keySet().stream()
+                .collect(toImmutableMap(symbol -> getKey(node.getId(), symbol), Function.identity()));
+        Map<String, ColumnHandle> columns = new HashMap<>();
+        published.getAll(keys.keySet()).forEach((key, columnName) -> columns.put(columnName, node.getAssignments().get(keys.get(key))));
+        if (columns.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new CrossRegionDynamicFilters(stateStoreProvider, queryId, columns));
+    }
+
+    public synchronized Map<ColumnHandle, DynamicFilter> getDynamicFilters()
+    {
+        if (loadedColumns.size() < columns.size()) {
+            loadDynamicFilters();
+        }
+        return ImmutableMap.copyOf(dynamicFilters);
+    }
+
+    public Set<DynamicFilter> getDynamicFilterSet()
+    {
+        return ImmutableSet.copyOf(getDynamicFilters().values());
+    }
+
+    private void loadDynamicFilters()
+    {
+        StateStore stateStore = stateStoreProvider.getStateStore();
+        if (stateStore == null) {
+            return;
+        }
+        StateMap<String, byte[]> received = (StateMap<String, byte[]>) stateStore.getStateCollection(queryId + CROSS_REGION_DYNAMIC_FILTER_COLLECTION);
+        // filters are only ever added while the query runs
+        if (received == null || received.size() == receivedCount) {
+            return;
+        }
+        receivedCount = received.size();
+
+        for (Map.Entry<String, ColumnHandle> column : columns.entrySet()) {
+            String columnName = column.getKey();
+            if (loadedColumns.contains(columnName)) {
+                continue;
+            }
+            byte[] serialized = received.get(columnName);
+            if (serialized == null) {
+                continue;
+            }
+            loadedColumns.add(columnName);
+            try {
+                dynamicFilters.putIfAbsent(column.getValue(), DynamicFilterFactory.createTyped(columnName, column.getValue(), serialized, DynamicFilter.Type.GLOBAL));
+            }
+            catch (RuntimeException e) {
+                // the filter is still applied to the query output if it can be deserialized there
+                log.debug(e, "Failed to load dynamic filter %s of query %s", columnName, queryId);
+            }
+        }
+    }
+
+    private static void traceColumn(PlanNode node, Symbol symbol, String columnName, Map<PlanFragmentId, PlanFragment> fragments, Map<PlanNodeId, Map<Symbol, String>> scanColumns)
+    {
+        if (node instanceof TableScanNode) {
+            if (((TableScanNode) node).getAssignments().containsKey(symbol)) {
+                scanColumns.computeIfAbsent(node.getId(), id -> new HashMap<>()).put(symbol, columnName);
+            }
+        }
+        else if (node instanceof ProjectNode) {
+            Expression expression = ((ProjectNode) node).getAssignments().get(symbol);
+            if (expression instanceof SymbolReference) {
+                traceColumn(((ProjectNode) node).getSource(), Symbol.from(expression), columnName, fragments, scanColumns);
+            }
+        }
+        else if (node instanceof FilterNode || node instanceof SortNode) {
+            traceColumn(node.getSources().get(0), symbol, columnName, fragments, scanColumns);
+        }
+        else if (node instanceof ExchangeNode) {
+            ExchangeNode exchange = (ExchangeNode) node;
+            int index = exchange.getOutputSymbols().indexOf(symbol);
+            for (int i = 0; index >= 0 && i < exchange.getSources().size(); i++) {
+                traceColumn(exchange.getSources().get(i), exchange.getInputs().get(i).get(index), columnName, fragments, scanColumns);
+            }
+        }
+        else if (node instanceof RemoteSourceNode) {
+            RemoteSourceNode remoteSource = (RemoteSourceNode) node;
+            int index = remoteSource.getOutputSymbols().indexOf(symbol);
+            for (PlanFragmentId fragmentId : remoteSource.getSourceFragmentIds()) {
+                PlanFragment fragment = fragments.get(fragmentId);
+                if (index < 0 || fragment == null) {
+                    continue;
+                }
+                traceColumn(fragment.getRoot(), fragment.getPartitioningScheme().getOutputLayout().get(index), columnName, fragments, scanColumns);
+            }
+        }
+    }
+
+    private static String getKey(PlanNodeId nodeId, Symbol symbol)
+    {
+        return nodeId + "/" + symbol.getName();
+    }
+}
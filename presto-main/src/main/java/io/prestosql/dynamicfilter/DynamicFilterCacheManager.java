@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.dynamicfilter;
+
+import com.google.inject.Inject;
+import io.prestosql.spi.statestore.StateCollection;
+import io.prestosql.spi.statestore.StateMap;
+import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.spi.statestore.listener.EntryAddedListener;
+import io.prestosql.spi.statestore.listener.EntryEvent;
+import io.prestosql.spi.statestore.listener.EntryRemovedListener;
+import io.prestosql.spi.statestore.listener.EntryUpdatedListener;
+import io.prestosql.statestore.StateStoreProvider;
+import io.prestosql.utils.DynamicFilterUtils;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps track of the merged global dynamic filters published in the state store, so the tasks
+ * of a worker only read a merged filter from the state store once it is available. The keys are
+ * kept up to date by a single listener on the merged filters map, and dropped when their query
+ * is removed from the worker.
+ */
+public class DynamicFilterCacheManager
+{
+    private final StateStoreProvider stateStoreProvider;
+
+    // query id -> keys of the merged global dynamic filters of the query in the state store
+    private final Map<String, Set<String>> mergedFilters = new ConcurrentHashMap<>();
+
+    @GuardedBy("this")
+    private boolean listenerRegistered;
+
+    @Inject
+    public DynamicFilterCacheManager(StateStoreProvider stateStoreProvider)
+    {
+        this.stateStoreProvider = requireNonNull(stateStoreProvider, "stateStoreProvider is null");
+    }
+
+    /**
+     * Check whether the merged global dynamic filter has been published in the state store
+     *
+     * @param filterId id of the dynamic filter
+     * @param queryId id of the query
+     * @return true if the merged filter can be read from the state store
+     */
+    public boolean isMergedFilterAvailable(String filterId, String queryId)
+    {
+        StateStore stateStore = stateStoreProvider.getStateStore();
+        if (stateStore == null) {
+            return false;
+        }
+        registerListener(stateStore);
+
+        Set<String> keys = mergedFilters.get(queryId);
+        return keys != null && keys.contains(DynamicFilterUtils.createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId));
+    }
+
+    /**
+     * Drop the keys of the merged filters of a query which has no task left on the worker
+     *
+     * @param queryId id of the query
+     */
+    public void removeQuery(String queryId)
+    {
+        mergedFilters.remove(queryId);
+    }
+
+    /**
+     * Register the listener tracking merged global dynamic filters, the filters merged before the registration are added from the state store
+     */
+    private synchronized void registerListener(StateStore stateStore)
+    {
+        if (listenerRegistered) {
+            return;
+        }
+        stateStore.createStateMap(DynamicFilterUtils.MERGEMAP, new MergedDynamicFiltersListener());
+        StateCollection collection = stateStore.getStateCollection(DynamicFilterUtils.MERGEMAP);
+        if (collection != null) {
+            ((StateMap<String, Object>) collection).keySet().forEach(this::addKey);
+        }
+        listenerRegistered = true;
+    }
+
+    private void addKey(String key)
+    {
+        mergedFilters.computeIfAbsent(getQueryId(key), queryId -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private void removeKey(String key)
+    {
+        mergedFilters.computeIfPresent(getQueryId(key), (queryId, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * The keys are created by {@link DynamicFilterUtils#createKey(String, String, String)}, and query ids do not contain '-'
+     */
+    private static String getQueryId(String key)
+    {
+        return key.substring(key.lastIndexOf('-') + 1);
+    }
+
+    private class MergedDynamicFiltersListener
+            implements EntryAddedListener<String, Object>, EntryUpdatedListener<String, Object>, EntryRemovedListener<String, Object>
+    {
+        @Override
+        public void entryAdded(EntryEvent<String, Object> event)
+        {
+            addKey(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, Object> event)
+        {
+            addKey(event.getKey());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<String, Object> event)
+        {
+            removeKey(event.getKey());
+        }
+    }
+}
@@ -16,75 +16,102 @@ package io.prestosql.dynamicfilter;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.hash.BloomFilter;
-import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import io.prestosql.Session;
 import io.prestosql.execution.StageStateMachine;
 import io.prestosql.execution.TaskId;
 import io.prestosql.metadata.InternalNode;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.connector.ColumnHandle;
-import io.prestosql.spi.dynamicfilter.BloomFilterDynamicFilter;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
-import io.prestosql.spi.dynamicfilter.HashSetDynamicFilter;
+import io.prestosql.spi.dynamicfilter.DynamicFilterRange;
+import io.prestosql.spi.dynamicfilter.TypedBloomFilterDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedHashSetDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedRangeDynamicFilter;
 import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.StateSet;
 import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.spi.statestore.listener.EntryAddedListener;
+import io.prestosql.spi.statestore.listener.EntryEvent;
+import io.prestosql.spi.statestore.listener.EntryUpdatedListener;
 import io.prestosql.sql.DynamicFilters;
+import io.prestosql.sql.planner.SubPlan;
 import io.prestosql.sql.planner.Symbol;
 import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.sql.tree.Expression;
 import io.prestosql.sql.tree.SymbolReference;
 import io.prestosql.statestore.StateStoreProvider;
 import io.prestosql.utils.DynamicFilterUtils;
 
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.charset.Charset;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.Threads.threadsNamed;
+import static io.prestosql.SystemSessionProperties.getDynamicFilteringBloomFilterFpp;
 import static io.prestosql.spi.dynamicfilter.DynamicFilter.Type;
 import static io.prestosql.spi.dynamicfilter.DynamicFilter.Type.GLOBAL;
 import static io.prestosql.spi.dynamicfilter.DynamicFilter.Type.LOCAL;
 import static io.prestosql.sql.planner.plan.JoinNode.DistributionType;
 import static io.prestosql.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public class DynamicFilterService
 {
     private static final Logger log = Logger.get(DynamicFilterService.class);
     private static final double EXPECTED_FPP = 0.25;
+    // merged filters of adaptive type with more values are turned into bloom filters
+    private static final int MAX_MERGED_HASH_SET_SIZE = 4096;
     private final ScheduledExecutorService filterMergeExecutor;
     private static final int THREAD_POOL_SIZE = 3;
-    private static final int updateInterval = 50;
+    // filters are merged when the finish events arrive, the periodic check only covers lost events
+    private static final int updateInterval = 500;
     private ScheduledFuture<?> backgroundTask;
-    private boolean initialized;
+    private volatile boolean initialized;
 
     private Map<String, Map<String, DynamicFilterRegistryInfo>> dynamicFilters = new ConcurrentHashMap<>();
     private Map<String, CopyOnWriteArrayList<String>> dynamicFiltersToWorker = new ConcurrentHashMap<>();
-    private static Map<String, Map<String, DynamicFilter>> cachedDynamicFilters = new HashMap<>();
+    private Map<String, DynamicFilterRegistryInfo> finishKeysToFilters = new ConcurrentHashMap<>();
+    private static Map<String, Map<String, DynamicFilter>> cachedDynamicFilters = new ConcurrentHashMap<>();
+    // completed once a dynamic filter is merged or dropped, split scheduling of probe side scans can wait on them
+    private Map<String, Map<String, SettableFuture<?>>> filterDoneFutures = new ConcurrentHashMap<>();
+
+    private final TimeStat timeToFilterAvailability = new TimeStat(MILLISECONDS);
+    private final CounterStat mergedDynamicFilters = new CounterStat();
+    private final CounterStat droppedDynamicFilters = new CounterStat();
+    private final TimeStat splitSchedulingWaitTime = new TimeStat(MILLISECONDS);
+    private final CounterStat splitSchedulingWaitTimeouts = new CounterStat();
 
     private final StateStoreProvider stateStoreProvider;
 
@@ -117,7 +144,7 @@ public class DynamicFilterService
             catch (NullPointerException e) {
                 log.error("Error updating query states: " + e.getMessage());
             }
-        }, updateInterval, updateInterval, TimeUnit.MILLISECONDS);
+        }, updateInterval, updateInterval, MILLISECONDS);
     }
 
     /**
@@ -130,113 +157,204 @@ public class DynamicFilterService
     }
 
     /**
-     * Global Dynamic Filter merging, periodically looks for dynamic filters that can be merged and merges them
+     * Global Dynamic Filter merging, periodically looks for dynamic filters whose finish events were missed and merges them
      */
     private void mergeDynamicFilters()
     {
-        for (Map.Entry<String, Map<String, DynamicFilterRegistryInfo>> outerEntry : dynamicFilters.entrySet()) {
-            String queryId = outerEntry.getKey();
-            for (Map.Entry<String, DynamicFilterRegistryInfo> entry : outerEntry.getValue().entrySet()) {
-                String filterId = entry.getKey();
-                Symbol column = entry.getValue().getSymbol();
-                String filterKey = DynamicFilterUtils.createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId);
-
-                if (hasMergeCondition(filterId, queryId)) {
-                    Collection<Object> results = ((StateSet) stateStoreProvider.getStateStore()
-                            .getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.PARTIALPREFIX, filterId, queryId))).getAll();
-
-                    Iterator filterIterator = results.iterator();
-                    String typeKey = DynamicFilterUtils.createKey(DynamicFilterUtils.TYPEPREFIX, entry.getKey(), queryId);
-                    String type = (String) ((StateMap) stateStoreProvider.getStateStore()
-                            .getStateCollection(DynamicFilterUtils.DFTYPEMAP)).get(typeKey);
-                    if (type != null) {
-                        if (type.equals(DynamicFilterUtils.BLOOMFILTERTYPEGLOBAL) || type.equals(DynamicFilterUtils.BLOOMFILTERTYPELOCAL)) {
-                            BloomFilter mergedFilter = mergeBloomFilters(filterIterator);
-
-                            if (mergedFilter.expectedFpp() > EXPECTED_FPP) {
-                                log.info("FPP too high: " + mergedFilter.expectedFpp());
-                                clearPartialResults(filterId, queryId);
-                                return;
-                            }
-
-                            if (!cachedDynamicFilters.containsKey(queryId)) {
-                                cachedDynamicFilters.put(queryId, new ConcurrentHashMap<>());
-                            }
-
-                            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-                                mergedFilter.writeTo(out);
-                                byte[] filter = out.toByteArray();
-                                cachedDynamicFilters.get(queryId).put(filterId, new BloomFilterDynamicFilter(filterKey, null, filter, DynamicFilter.Type.GLOBAL));
-                                ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGEMAP)).put(filterKey, filter);
-                                // remove the filter so we don't need to monitor it anymore
-                                outerEntry.getValue().remove(filterId);
-                                log.info("Merged dynamic filter id: " + filterId + "-" + queryId + " type: " + type + ", column: " + column + ", item count: " + mergedFilter.approximateElementCount() + ", fpp: " + mergedFilter.expectedFpp());
-                                clearPartialResults(filterId, queryId);
-                            }
-                            catch (IOException e) {
-                                log.error(e);
-                            }
-                        }
-                        else if (type.equals(DynamicFilterUtils.HASHSETTYPEGLOBAL) || type.equals(DynamicFilterUtils.HASHSETTYPELOCAL)) {
-                            Set merged = mergeHashSets(results);
-                            if (!cachedDynamicFilters.containsKey(queryId)) {
-                                cachedDynamicFilters.put(queryId, new ConcurrentHashMap<>());
-                            }
-                            try {
-                                cachedDynamicFilters.get(queryId).put(filterId, new HashSetDynamicFilter(filterKey, null, merged, DynamicFilter.Type.GLOBAL));
-                                ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGEMAP)).put(filterKey, merged);
-                                // remove the filter so we don't need to monitor it anymore
-                                outerEntry.getValue().remove(filterId);
-                                log.info("Merged dynamic filter id using stringsets: " + entry.getKey() + "-" + queryId + " type: " + type + ", column: " + entry.getValue() + ", item count: " + merged.size());
-                                clearPartialResults(entry.getKey(), queryId);
-                            }
-                            catch (NullPointerException e) {
-                                log.error(e);
-                            }
-                        }
-                    }
-                }
+        for (Map<String, DynamicFilterRegistryInfo> filters : dynamicFilters.values()) {
+            for (DynamicFilterRegistryInfo info : filters.values()) {
+                mergeDynamicFilter(info);
             }
         }
     }
 
-    private BloomFilter mergeBloomFilters(Iterator filterIterator)
+    /**
+     * Invoked when a build side driver has published its partial result of a dynamic filter
+     *
+     * @param finishKey key of the finished dynamic filter task in the finish notification map
+     */
+    private void onDynamicFilterTaskFinished(String finishKey)
     {
-        BloomFilter mergedFilter = null;
-        while (filterIterator.hasNext()) {
-            try (java.io.ByteArrayInputStream bis = new java.io.ByteArrayInputStream((byte[]) filterIterator.next())) {
-                BloomFilter filter = BloomFilter.readFrom(bis, Funnels.stringFunnel(Charset.defaultCharset()));
-                if (mergedFilter == null) {
-                    mergedFilter = filter;
+        DynamicFilterRegistryInfo info = finishKeysToFilters.get(finishKey);
+        if (info != null) {
+            filterMergeExecutor.execute(() -> {
+                try {
+                    mergeDynamicFilter(info);
                 }
-                else {
-                    if (!mergedFilter.isCompatible(filter)) {
-                        log.warn("Bloomfilters not compatible");
-                        break;
-                    }
-                    mergedFilter.putAll(filter);
+                catch (RuntimeException e) {
+                    log.error(e, "Error merging dynamic filter: " + finishKey);
                 }
+            });
+        }
+    }
+
+    /**
+     * Merge the partial results of a dynamic filter once all its build side drivers have finished
+     */
+    private void mergeDynamicFilter(DynamicFilterRegistryInfo info)
+    {
+        String queryId = info.getQueryId();
+        String filterId = info.getFilterId();
+        if (!hasMergeCondition(filterId, queryId)) {
+            return;
+        }
+
+        String typeKey = DynamicFilterUtils.createKey(DynamicFilterUtils.TYPEPREFIX, filterId, queryId);
+        String type = (String) ((StateMap) stateStoreProvider.getStateStore()
+                .getStateCollection(DynamicFilterUtils.DFTYPEMAP)).get(typeKey);
+        Map<String, DynamicFilterRegistryInfo> filters = dynamicFilters.get(queryId);
+        // remove the filter so we don't need to monitor it anymore, only one of the concurrent merges can succeed
+        if (type == null || filters == null || !filters.remove(filterId, info)) {
+            return;
+        }
+        // the filter is no longer monitored, so it must be marked as done even if the merge fails
+        boolean merged = false;
+        try {
+            finishKeysToFilters.remove(info.getFinishKey());
+            removeFinishNotification(info.getFinishKey());
+
+            String filterKey = DynamicFilterUtils.createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId);
+            Collection<Object> results = ((StateSet) stateStoreProvider.getStateStore()
+                    .getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.PARTIALPREFIX, filterId, queryId))).getAll();
+            TypedDynamicFilter mergedFilter = mergeTypedFilters(filterKey, results);
+            if (mergedFilter != null && (type.equals(DynamicFilterUtils.ADAPTIVETYPEGLOBAL) || type.equals(DynamicFilterUtils.ADAPTIVETYPELOCAL))) {
+                mergedFilter = chooseRepresentation(mergedFilter, info.getBloomFilterFpp());
+            }
+            if (mergedFilter == null) {
+                // no usable partial results, or a build side driver gave up collecting the values
+                return;
             }
-            catch (IOException e) {
-                log.error(e);
+
+            if (mergedFilter instanceof TypedBloomFilterDynamicFilter && ((TypedBloomFilterDynamicFilter) mergedFilter).expectedFpp() > EXPECTED_FPP) {
+                log.info("FPP too high: " + ((TypedBloomFilterDynamicFilter) mergedFilter).expectedFpp());
+                return;
             }
+
+            cachedDynamicFilters.computeIfAbsent(queryId, key -> new ConcurrentHashMap<>()).put(filterId, mergedFilter);
+            ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGEMAP)).put(filterKey, mergedFilter.serialize());
+            merged = true;
+
+            Duration availabilityTime = new Duration(System.nanoTime() - info.getRegisteredNanos(), NANOSECONDS).convertToMostSuccinctTimeUnit();
+            timeToFilterAvailability.add(availabilityTime);
+            mergedDynamicFilters.update(1);
+            log.info("Merged dynamic filter id: " + filterId + "-" + queryId + " type: " + type + ", column: " + info.getSymbol() + ", item count: " + mergedFilter.getSize() +
+                    ", available after: " + availabilityTime);
+        }
+        finally {
+            if (!merged) {
+                droppedDynamicFilters.update(1);
+            }
+            getFilterDoneFuture(queryId, filterId).set(null);
+            clearPartialResults(filterId, queryId);
         }
-        return mergedFilter;
     }
 
-    private Set mergeHashSets(Collection<Object> results)
+    private SettableFuture<?> getFilterDoneFuture(String queryId, String filterId)
     {
-        HashSet<String> merged = new HashSet<>();
-        for (Object o : results) {
-            try {
-                HashSet<String> s = (HashSet<String>) o;
-                merged.addAll(s);
+        return filterDoneFutures.computeIfAbsent(queryId, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(filterId, key -> SettableFuture.create());
+    }
+
+    /**
+     * Get a future that completes once all the given dynamic filters of a query are merged or dropped,
+     * or once the maximum wait time is over. The future never fails.
+     *
+     * @param queryId query id of the dynamic filters
+     * @param filterIds ids of the dynamic filters to wait for
+     * @param maxWait maximum time to wait for the dynamic filters
+     * @return future that completes when the dynamic filters are done or the wait times out
+     */
+    public ListenableFuture<?> waitForDynamicFilters(String queryId, Collection<String> filterIds, Duration maxWait)
+    {
+        ListenableFuture<?> filtersDone = Futures.allAsList(filterIds.stream()
+                .map(filterId -> getFilterDoneFuture(queryId, filterId))
+                .collect(toImmutableList()));
+        if (filtersDone.isDone()) {
+            return filtersDone;
+        }
+
+        long start = System.nanoTime();
+        SettableFuture<?> result = SettableFuture.create();
+        ScheduledFuture<?> timeout = filterMergeExecutor.schedule(() -> {
+            if (result.set(null)) {
+                splitSchedulingWaitTimeouts.update(1);
+                splitSchedulingWaitTime.add(System.nanoTime() - start, NANOSECONDS);
             }
-            catch (NullPointerException e) {
-                log.error(e);
+        }, maxWait.toMillis(), MILLISECONDS);
+        filtersDone.addListener(() -> {
+            if (result.set(null)) {
+                timeout.cancel(false);
+                splitSchedulingWaitTime.add(System.nanoTime() - start, NANOSECONDS);
+            }
+        }, directExecutor());
+        return result;
+    }
+
+    private TypedDynamicFilter mergeTypedFilters(String filterKey, Collection<Object> results)
+    {
+        TypedDynamicFilter mergedFilter = null;
+        for (Object result : results) {
+            byte[] serialized = (byte[]) result;
+            if (serialized.length == 0) {
+                // the values of a build side driver were too large to be collected
+                return null;
+            }
+            TypedDynamicFilter filter = TypedDynamicFilter.deserialize(filterKey, null, serialized, GLOBAL);
+            if (mergedFilter == null) {
+                mergedFilter = filter;
+            }
+            else {
+                try {
+                    mergedFilter = union(mergedFilter, filter);
+                }
+                catch (IllegalArgumentException e) {
+                    log.warn("Dynamic filters not compatible: " + e.getMessage());
+                    return null;
+                }
             }
         }
-        return merged;
+        return mergedFilter;
+    }
+
+    /**
+     * Union two partial results, drivers choosing the representation at runtime can publish ranges and hash sets for the same filter
+     */
+    private static TypedDynamicFilter union(TypedDynamicFilter left, TypedDynamicFilter right)
+    {
+        if (right instanceof TypedRangeDynamicFilter && !(left instanceof TypedRangeDynamicFilter)) {
+            return union(right, left);
+        }
+        if (left instanceof TypedRangeDynamicFilter && right instanceof TypedHashSetDynamicFilter
+                && left.getSize() + right.getSize() <= MAX_MERGED_HASH_SET_SIZE) {
+            // keep the merged filter exact while it is small
+            TypedHashSetDynamicFilter hashSet = ((TypedRangeDynamicFilter) left).toHashSet();
+            hashSet.union(right);
+            return hashSet;
+        }
+        left.union(right);
+        return left;
+    }
+
+    /**
+     * Pick the representation of a merged adaptive filter from its number of values: the range when the integer
+     * values are dense, the exact hash set for few values, otherwise a bloom filter sized for the actual number of values
+     */
+    private static TypedDynamicFilter chooseRepresentation(TypedDynamicFilter filter, double bloomFilterFpp)
+    {
+        if (!(filter instanceof TypedHashSetDynamicFilter)) {
+            return filter;
+        }
+        Optional<DynamicFilterRange> valueRange = filter.getValueRange();
+        if (valueRange.isPresent() && TypedRangeDynamicFilter.isDense(valueRange.get(), filter.getSize())) {
+            return new TypedRangeDynamicFilter(filter.getFilterId(), null, valueRange.get(), GLOBAL);
+        }
+        if (filter.getSize() <= MAX_MERGED_HASH_SET_SIZE) {
+            return filter;
+        }
+        TypedBloomFilterDynamicFilter bloomFilter = TypedBloomFilterDynamicFilter.create(filter.getFilterId(), null, filter.getValueKind(), filter.getSize(), bloomFilterFpp, GLOBAL);
+        ((TypedHashSetDynamicFilter) filter).forEachHash(bloomFilter::put);
+        bloomFilter.setValueRange(valueRange.orElse(null));
+        return bloomFilter;
     }
 
     private boolean hasMergeCondition(String filterkey, String queryId)
@@ -282,6 +400,7 @@ public class DynamicFilterService
         if (!initialized) {
             stateStoreProvider.getStateStore().createStateCollection(DynamicFilterUtils.MERGEMAP, StateCollection.Type.MAP);
             stateStoreProvider.getStateStore().createStateCollection(DynamicFilterUtils.DFTYPEMAP, StateCollection.Type.MAP);
+            stateStoreProvider.getStateStore().createStateMap(DynamicFilterUtils.FINISHMAP, new DynamicFilterFinishListener());
             initialized = true;
         }
 
@@ -296,7 +415,8 @@ public class DynamicFilterService
 
                 dynamicFilters.putIfAbsent(queryId, new ConcurrentHashMap<>());
                 Map<String, DynamicFilterRegistryInfo> filters = dynamicFilters.get(queryId);
-                filters.put(filterId, extractDynamicFilterRegistryInfo(node));
+                DynamicFilterRegistryInfo info = filters.computeIfAbsent(filterId, key -> extractDynamicFilterRegistryInfo(node, stateMachine.getSession(), filterId));
+                finishKeysToFilters.put(info.getFinishKey(), info);
 
                 dynamicFiltersToWorker.putIfAbsent(filterId + "-" + queryId, new CopyOnWriteArrayList<>());
                 CopyOnWriteArrayList workersSet = dynamicFiltersToWorker.get(filterId + "-" + queryId);
@@ -322,6 +442,8 @@ public class DynamicFilterService
                 String filterId = entry.getKey();
                 clearPartialResults(entry.getKey(), queryId);
                 dynamicFiltersToWorker.remove(filterId + "-" + queryId);
+                finishKeysToFilters.remove(entry.getValue().getFinishKey());
+                removeFinishNotification(entry.getValue().getFinishKey());
 
                 // Clear cached dynamic filters in state store
                 String filterKey = DynamicFilterUtils.createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId);
@@ -332,6 +454,66 @@ public class DynamicFilterService
 
         // Clear cached dynamic filters locally
         cachedDynamicFilters.remove(queryId);
+
+        // Release split scheduling still waiting on dynamic filters of the query
+        Map<String, SettableFuture<?>> doneFutures = filterDoneFutures.remove(queryId);
+        if (doneFutures != null) {
+            doneFutures.values().forEach(future -> future.set(null));
+        }
+
+        CrossRegionDynamicFilters.unregister(stateStoreProvider, queryId);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getTimeToFilterAvailability()
+    {
+        return timeToFilterAvailability;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMergedDynamicFilters()
+    {
+        return mergedDynamicFilters;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getDroppedDynamicFilters()
+    {
+        return droppedDynamicFilters;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getSplitSchedulingWaitTime()
+    {
+        return splitSchedulingWaitTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSplitSchedulingWaitTimeouts()
+    {
+        return splitSchedulingWaitTimeouts;
+    }
+
+    @Managed
+    public long getPendingDynamicFilters()
+    {
+        return finishKeysToFilters.size();
+    }
+
+    private void removeFinishNotification(String finishKey)
+    {
+        StateStore stateStore = stateStoreProvider.getStateStore();
+        if (stateStore != null) {
+            StateCollection finishMap = stateStore.getStateCollection(DynamicFilterUtils.FINISHMAP);
+            if (finishMap != null) {
+                ((StateMap) finishMap).remove(finishKey);
+            }
+        }
     }
 
     /**
@@ -361,6 +543,18 @@ public class DynamicFilterService
         stateStore.removeStateCollection(stateCollectionName);
     }
 
+    /**
+     * Push the dynamic filters sent by another data center for the output of a query down to its table scans
+     *
+     * @param queryId the query id
+     * @param plan the fragmented plan of the query
+     * @return the dynamic filters of each table scan producing output columns
+     */
+    public Map<PlanNodeId, CrossRegionDynamicFilters> registerCrossRegionDynamicFilters(QueryId queryId, SubPlan plan)
+    {
+        return CrossRegionDynamicFilters.register(stateStoreProvider, queryId.getId(), plan);
+    }
+
     /**
      * Create a supplier that supplies available dynamic filters for a query
      * based on dynamic filter descriptor created in logical plan
@@ -414,16 +608,37 @@ public class DynamicFilterService
         return resultBuilder.build();
     }
 
-    private static DynamicFilterRegistryInfo extractDynamicFilterRegistryInfo(JoinNode node)
+    private static DynamicFilterRegistryInfo extractDynamicFilterRegistryInfo(JoinNode node, Session session, String filterId)
     {
         Symbol symbol = node.getCriteria().get(0).getLeft();
         DistributionType joinType = node.getDistributionType().orElse(PARTITIONED);
+        String queryId = session.getQueryId().toString();
+        double bloomFilterFpp = getDynamicFilteringBloomFilterFpp(session);
 
         if (joinType == PARTITIONED) {
-            return new DynamicFilterRegistryInfo(symbol, GLOBAL);
+            return new DynamicFilterRegistryInfo(symbol, GLOBAL, queryId, filterId, bloomFilterFpp);
         }
         else {
-            return new DynamicFilterRegistryInfo(symbol, LOCAL);
+            return new DynamicFilterRegistryInfo(symbol, LOCAL, queryId, filterId, bloomFilterFpp);
+        }
+    }
+
+    /**
+     * Merges a dynamic filter as soon as a build side driver reports that it has finished
+     */
+    private class DynamicFilterFinishListener
+            implements EntryAddedListener<String, String>, EntryUpdatedListener<String, String>
+    {
+        @Override
+        public void entryAdded(EntryEvent<String, String> event)
+        {
+            onDynamicFilterTaskFinished(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, String> event)
+        {
+            onDynamicFilterTaskFinished(event.getKey());
         }
     }
 
@@ -431,11 +646,19 @@ public class DynamicFilterService
     {
         private Symbol symbol;
         private Type type;
+        private final String queryId;
+        private final String filterId;
+        private final long registeredNanos;
+        private final double bloomFilterFpp;
 
-        public DynamicFilterRegistryInfo(Symbol symbol, Type type)
+        public DynamicFilterRegistryInfo(Symbol symbol, Type type, String queryId, String filterId, double bloomFilterFpp)
         {
             this.symbol = symbol;
             this.type = type;
+            this.queryId = queryId;
+            this.filterId = filterId;
+            this.registeredNanos = System.nanoTime();
+            this.bloomFilterFpp = bloomFilterFpp;
         }
 
         public Symbol getSymbol()
@@ -447,5 +670,30 @@ public class DynamicFilterService
         {
             return type;
         }
+
+        public String getQueryId()
+        {
+            return queryId;
+        }
+
+        public String getFilterId()
+        {
+            return filterId;
+        }
+
+        public long getRegisteredNanos()
+        {
+            return registeredNanos;
+        }
+
+        public double getBloomFilterFpp()
+        {
+            return bloomFilterFpp;
+        }
+
+        public String getFinishKey()
+        {
+            return DynamicFilterUtils.createKey(DynamicFilterUtils.FINISHREFIX, filterId, queryId);
+        }
     }
 }
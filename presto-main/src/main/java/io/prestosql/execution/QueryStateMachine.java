@@ -89,6 +89,7 @@ import static io.prestosql.spi.StandardErrorCode.USER_CANCELED;
 import static io.prestosql.util.Failures.toFailure;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 @ThreadSafe
 public class QueryStateMachine
@@ -121,6 +122,9 @@ public class QueryStateMachine
     private final AtomicLong peakTaskRevocableMemory = new AtomicLong();
     private final AtomicLong peakTaskTotalMemory = new AtomicLong();
 
+    private final AtomicBoolean planCacheHit = new AtomicBoolean();
+    private final AtomicLong planningTimeSaved = new AtomicLong();
+
     private final QueryStateTimer queryStateTimer;
 
     private final StateMachine<QueryState> queryState;
@@ -447,6 +451,7 @@ public class QueryStateMachine
         long totalScheduledTime = 0;
         long totalCpuTime = 0;
         long totalBlockedTime = 0;
+        double totalSplitFilterTime = 0;
 
         long physicalInputDataSize = 0;
         long physicalInputPositions = 0;
@@ -491,6 +496,8 @@ public class QueryStateMachine
             totalScheduledTime += stageStats.getTotalScheduledTime().roundTo(MILLISECONDS);
             totalCpuTime += stageStats.getTotalCpuTime().roundTo(MILLISECONDS);
             totalBlockedTime += stageStats.getTotalBlockedTime().roundTo(MILLISECONDS);
+            // the split filter distribution records nanoseconds
+            totalSplitFilterTime += stageStats.getSplitFilterDistribution().getTotal();
             if (!stageInfo.getState().isDone()) {
                 fullyBlocked &= stageStats.isFullyBlocked();
                 blockedReasons.addAll(stageStats.getBlockedReasons());
@@ -541,6 +548,8 @@ public class QueryStateMachine
                 queryStateTimer.getAnalysisTime(),
                 queryStateTimer.getDistributedPlanningTime(),
                 queryStateTimer.getPlanningTime(),
+                planCacheHit.get(),
+                new Duration(planningTimeSaved.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
                 queryStateTimer.getFinishingTime(),
 
                 totalTasks,
@@ -569,6 +578,7 @@ public class QueryStateMachine
                 new Duration(totalScheduledTime, MILLISECONDS).convertToMostSuccinctTimeUnit(),
                 new Duration(totalCpuTime, MILLISECONDS).convertToMostSuccinctTimeUnit(),
                 new Duration(totalBlockedTime, MILLISECONDS).convertToMostSuccinctTimeUnit(),
+                new Duration(totalSplitFilterTime, NANOSECONDS).convertToMostSuccinctTimeUnit(),
                 fullyBlocked,
                 blockedReasons,
 
@@ -718,6 +728,17 @@ public class QueryStateMachine
         this.updateType.set(updateType);
     }
 
+    /**
+     * Record that the plan of the query was taken from the execution plan cache
+     *
+     * @param savedPlanningNanos time taken to plan the cached plan originally
+     */
+    public void setPlanCacheHit(long savedPlanningNanos)
+    {
+        planCacheHit.set(true);
+        planningTimeSaved.set(savedPlanningNanos);
+    }
+
     public QueryState getQueryState()
     {
         return queryState.get();
@@ -1067,6 +1088,8 @@ public class QueryStateMachine
                 queryStats.getAnalysisTime(),
                 queryStats.getDistributedPlanningTime(),
                 queryStats.getTotalPlanningTime(),
+                queryStats.isPlanCacheHit(),
+                queryStats.getPlanningTimeSaved(),
                 queryStats.getFinishingTime(),
                 queryStats.getTotalTasks(),
                 queryStats.getRunningTasks(),
@@ -1090,6 +1113,7 @@ public class QueryStateMachine
                 queryStats.getTotalScheduledTime(),
                 queryStats.getTotalCpuTime(),
                 queryStats.getTotalBlockedTime(),
+                queryStats.getTotalSplitFilterTime(),
                 queryStats.isFullyBlocked(),
                 queryStats.getBlockedReasons(),
                 queryStats.getPhysicalInputDataSize(),
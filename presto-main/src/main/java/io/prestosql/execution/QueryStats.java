@@ -52,6 +52,8 @@ public class QueryStats
     private final Duration analysisTime;
     private final Duration distributedPlanningTime;
     private final Duration totalPlanningTime;
+    private final boolean planCacheHit;
+    private final Duration planningTimeSaved;
     private final Duration finishingTime;
 
     private final int totalTasks;
@@ -79,6 +81,7 @@ public class QueryStats
     private final Duration totalScheduledTime;
     private final Duration totalCpuTime;
     private final Duration totalBlockedTime;
+    private final Duration totalSplitFilterTime;
     private final boolean fullyBlocked;
     private final Set<BlockedReason> blockedReasons;
 
@@ -118,6 +121,8 @@ public class QueryStats
             @JsonProperty("analysisTime") Duration analysisTime,
             @JsonProperty("distributedPlanningTime") Duration distributedPlanningTime,
             @JsonProperty("totalPlanningTime") Duration totalPlanningTime,
+            @JsonProperty("planCacheHit") boolean planCacheHit,
+            @JsonProperty("planningTimeSaved") Duration planningTimeSaved,
             @JsonProperty("finishingTime") Duration finishingTime,
 
             @JsonProperty("totalTasks") int totalTasks,
@@ -145,6 +150,7 @@ public class QueryStats
             @JsonProperty("totalScheduledTime") Duration totalScheduledTime,
             @JsonProperty("totalCpuTime") Duration totalCpuTime,
             @JsonProperty("totalBlockedTime") Duration totalBlockedTime,
+            @JsonProperty("totalSplitFilterTime") Duration totalSplitFilterTime,
             @JsonProperty("fullyBlocked") boolean fullyBlocked,
             @JsonProperty("blockedReasons") Set<BlockedReason> blockedReasons,
 
@@ -182,6 +188,8 @@ public class QueryStats
         this.analysisTime = requireNonNull(analysisTime, "analysisTime is null");
         this.distributedPlanningTime = requireNonNull(distributedPlanningTime, "distributedPlanningTime is null");
         this.totalPlanningTime = requireNonNull(totalPlanningTime, "totalPlanningTime is null");
+        this.planCacheHit = planCacheHit;
+        this.planningTimeSaved = requireNonNull(planningTimeSaved, "planningTimeSaved is null");
         this.finishingTime = requireNonNull(finishingTime, "finishingTime is null");
 
         checkArgument(totalTasks >= 0, "totalTasks is negative");
@@ -216,6 +224,7 @@ public class QueryStats
         this.totalScheduledTime = requireNonNull(totalScheduledTime, "totalScheduledTime is null");
         this.totalCpuTime = requireNonNull(totalCpuTime, "totalCpuTime is null");
         this.totalBlockedTime = requireNonNull(totalBlockedTime, "totalBlockedTime is null");
+        this.totalSplitFilterTime = requireNonNull(totalSplitFilterTime, "totalSplitFilterTime is null");
         this.fullyBlocked = fullyBlocked;
         this.blockedReasons = ImmutableSet.copyOf(requireNonNull(blockedReasons, "blockedReasons is null"));
 
@@ -319,6 +328,24 @@ public class QueryStats
         return totalPlanningTime;
     }
 
+    /**
+     * Whether the plan of the query was taken from the execution plan cache
+     */
+    @JsonProperty
+    public boolean isPlanCacheHit()
+    {
+        return planCacheHit;
+    }
+
+    /**
+     * Time the cached plan took to be planned originally, saved by this query
+     */
+    @JsonProperty
+    public Duration getPlanningTimeSaved()
+    {
+        return planningTimeSaved;
+    }
+
     @JsonProperty
     public Duration getFinishingTime()
     {
@@ -457,6 +484,15 @@ public class QueryStats
         return totalBlockedTime;
     }
 
+    /**
+     * Time spent by the coordinator filtering the splits of all the stages with the heuristic indices
+     */
+    @JsonProperty
+    public Duration getTotalSplitFilterTime()
+    {
+        return totalSplitFilterTime;
+    }
+
     @JsonProperty
     public boolean isFullyBlocked()
     {
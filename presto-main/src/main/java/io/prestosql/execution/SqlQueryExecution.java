@@ -16,6 +16,7 @@ package io.prestosql.execution;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.SetThreadName;
 import io.airlift.log.Logger;
@@ -43,6 +44,8 @@ import io.prestosql.metadata.TableHandle;
 import io.prestosql.operator.ForScheduler;
 import io.prestosql.query.CachedSqlQueryExecution;
 import io.prestosql.query.CachedSqlQueryExecutionPlan;
+import io.prestosql.query.ExecutionPlanCacheStats;
+import io.prestosql.query.SharedPlanCache;
 import io.prestosql.security.AccessControl;
 import io.prestosql.server.BasicQueryInfo;
 import io.prestosql.spi.PrestoException;
@@ -90,6 +93,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.succinctBytes;
+import static io.prestosql.SystemSessionProperties.isCrossRegionDynamicFilterEnabled;
 import static io.prestosql.SystemSessionProperties.isEnableDynamicFiltering;
 import static io.prestosql.execution.buffer.OutputBuffers.BROADCAST_PARTITION_ID;
 import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
@@ -186,7 +190,7 @@ public class SqlQueryExecution
 
             // clear dynamic filter tasks and data created for this query
             stateMachine.addStateChangeListener(state -> {
-                if (isEnableDynamicFiltering(stateMachine.getSession()) && state.isDone()) {
+                if ((isEnableDynamicFiltering(stateMachine.getSession()) || isCrossRegionDynamicFilterEnabled(stateMachine.getSession())) && state.isDone()) {
                     dynamicFilterService.clearDynamicFiltersForQuery(stateMachine.getQueryId().getId());
                 }
             });
@@ -458,7 +462,7 @@ public class SqlQueryExecution
         stateMachine.beginDistributedPlanning();
 
         // plan the execution on the active nodes
-        DistributedExecutionPlanner distributedPlanner = new DistributedExecutionPlanner(splitManager, metadata);
+        DistributedExecutionPlanner distributedPlanner = new DistributedExecutionPlanner(splitManager, metadata, dynamicFilterService);
         StageExecutionPlan outputStageExecutionPlan = distributedPlanner.plan(plan.getRoot(), stateMachine.getSession());
         stateMachine.endDistributedPlanning();
 
@@ -691,7 +695,9 @@ public class SqlQueryExecution
         private final StatsCalculator statsCalculator;
         private final CostCalculator costCalculator;
         private final DynamicFilterService dynamicFilterService;
-        private final Optional<Cache<Integer, CachedSqlQueryExecutionPlan>> cache;
+        private final Optional<Cache<HashCode, CachedSqlQueryExecutionPlan>> cache;
+        private final Optional<SharedPlanCache> sharedCache;
+        private final ExecutionPlanCacheStats planCacheStats;
 
         @Inject
         SqlQueryExecutionFactory(QueryManagerConfig config,
@@ -715,7 +721,9 @@ public class SqlQueryExecution
                 SplitSchedulerStats schedulerStats,
                 StatsCalculator statsCalculator,
                 CostCalculator costCalculator,
-                DynamicFilterService dynamicFilterService)
+                DynamicFilterService dynamicFilterService,
+                ExecutionPlanCacheStats planCacheStats,
+                SharedPlanCache sharedPlanCache)
         {
             requireNonNull(config, "config is null");
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
@@ -739,6 +747,7 @@ public class SqlQueryExecution
             this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
             this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
             this.dynamicFilterService = requireNonNull(dynamicFilterService, "dynamicFilterService is null");
+            this.planCacheStats = requireNonNull(planCacheStats, "planCacheStats is null");
             this.loadConfigToService(hetuConfig);
             if (hetuConfig.isExecutionPlanCacheEnabled()) {
                 this.cache = Optional.of(CacheBuilder.newBuilder()
@@ -749,6 +758,12 @@ public class SqlQueryExecution
             else {
                 this.cache = Optional.empty();
             }
+            if (hetuConfig.isExecutionPlanCacheEnabled() && hetuConfig.isExecutionPlanCacheSharedEnabled() && hetuConfig.isMultipleCoordinatorEnabled()) {
+                this.sharedCache = Optional.of(requireNonNull(sharedPlanCache, "sharedPlanCache is null"));
+            }
+            else {
+                this.sharedCache = Optional.empty();
+            }
         }
 
         // Loading properties into PropertyService for later reference
@@ -759,6 +774,17 @@ public class SqlQueryExecution
                 requireNonNull(hetuConfig.getMaxIndicesInCache(), String.format(Locale.ENGLISH,
                         "%s is required when %s is true", HetuConstant.FILTER_MAX_INDICES_IN_CACHE, HetuConstant.FILTER_ENABLED));
                 PropertyService.setProperty(HetuConstant.FILTER_MAX_INDICES_IN_CACHE, hetuConfig.getMaxIndicesInCache());
+                if (hetuConfig.getIndexCacheMaxMemory() != null) {
+                    PropertyService.setProperty(HetuConstant.FILTER_CACHE_MAX_MEMORY, hetuConfig.getIndexCacheMaxMemory().toBytes());
+                }
+                PropertyService.setProperty(HetuConstant.FILTER_CACHE_TTL, hetuConfig.getIndexCacheTtl());
+                PropertyService.setProperty(HetuConstant.FILTER_CACHE_LOADING_DELAY, hetuConfig.getIndexCacheLoadingDelay());
+                if (hetuConfig.getIndexCacheLocalDirectory() != null) {
+                    PropertyService.setProperty(HetuConstant.FILTER_CACHE_LOCAL_DIRECTORY, hetuConfig.getIndexCacheLocalDirectory());
+                }
+                if (hetuConfig.getIndexCachePreloadTables() != null) {
+                    PropertyService.setProperty(HetuConstant.FILTER_CACHE_PRELOAD_INDICES, hetuConfig.getIndexCachePreloadTables());
+                }
 
                 requireNonNull(hetuConfig.getFilterPlugins(), String.format(Locale.ENGLISH,
                         "%s is required when %s is true", HetuConstant.FILTER_PLUGINS, HetuConstant.FILTER_ENABLED));
@@ -860,7 +886,9 @@ public class SqlQueryExecution
                     costCalculator,
                     warningCollector,
                     dynamicFilterService,
-                    this.cache);
+                    this.cache,
+                    sharedCache,
+                    planCacheStats);
         }
     }
 }
@@ -14,11 +14,9 @@
 package io.prestosql.execution;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Ordering;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.ThreadPoolExecutorMBean;
-import io.airlift.json.ObjectMapperProvider;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.prestosql.ExceededCpuLimitException;
@@ -34,6 +32,7 @@ import io.prestosql.spi.QueryId;
 import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.sql.planner.Plan;
 import io.prestosql.statestore.SharedQueryState;
+import io.prestosql.statestore.SharedQueryStateCodec;
 import io.prestosql.statestore.StateCacheStore;
 import io.prestosql.statestore.StateStoreConstants;
 import io.prestosql.statestore.StateStoreProvider;
@@ -370,10 +369,9 @@ public class SqlQueryManager
             if (((SharedQueryExecution) query).isGettingKilled()) {
                 StateMap stateMap = (StateMap<String, String>) stateStoreProvider.getStateStore().getStateCollection(StateStoreConstants.OOM_QUERY_STATE_COLLECTION_NAME);
                 if (stateMap != null) {
-                    ObjectMapper mapper = new ObjectMapperProvider().get();
                     try {
-                        String stateJson = mapper.writeValueAsString(queryStates.get(queryExecution.getQueryId().getId()));
-                        stateMap.put(queryExecution.getQueryId().getId(), stateJson);
+                        String encodedState = SharedQueryStateCodec.encode(queryStates.get(queryExecution.getQueryId().getId()), 0);
+                        stateMap.put(queryExecution.getQueryId().getId(), encodedState);
                     }
                     catch (JsonProcessingException e) {
                         log.warn("Query %s state serialization failed: %s", queryExecution.getQueryId().getId(), e.getMessage());
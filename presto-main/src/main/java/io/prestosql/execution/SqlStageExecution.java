@@ -502,6 +502,11 @@ public final class SqlStageExecution
         stateMachine.recordGetSplitTime(start);
     }
 
+    public void recordSplitFilterTime(long start)
+    {
+        stateMachine.recordSplitFilterTime(start);
+    }
+
     private static Split createRemoteSplitFor(TaskId taskId, URI taskLocation)
     {
         // Fetch the results from the buffer assigned to the task based on id
@@ -27,6 +27,7 @@ import io.airlift.stats.GcMonitor;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.prestosql.Session;
+import io.prestosql.dynamicfilter.DynamicFilterCacheManager;
 import io.prestosql.event.SplitMonitor;
 import io.prestosql.execution.StateMachine.StateChangeListener;
 import io.prestosql.execution.buffer.BufferResult;
@@ -56,9 +57,11 @@ import javax.annotation.concurrent.GuardedBy;
 import javax.inject.Inject;
 
 import java.io.Closeable;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -97,6 +100,7 @@ public class SqlTaskManager
     private final LocalMemoryManager localMemoryManager;
     private final LoadingCache<QueryId, QueryContext> queryContexts;
     private final LoadingCache<TaskId, SqlTask> tasks;
+    private final DynamicFilterCacheManager dynamicFilterCacheManager;
 
     private final SqlTaskIoStats cachedStats = new SqlTaskIoStats();
     private final SqlTaskIoStats finishedTaskStats = new SqlTaskIoStats();
@@ -121,12 +125,14 @@ public class SqlTaskManager
             NodeMemoryConfig nodeMemoryConfig,
             LocalSpillManager localSpillManager,
             NodeSpillConfig nodeSpillConfig,
-            GcMonitor gcMonitor)
+            GcMonitor gcMonitor,
+            DynamicFilterCacheManager dynamicFilterCacheManager)
     {
         requireNonNull(nodeInfo, "nodeInfo is null");
         requireNonNull(config, "config is null");
         infoCacheTime = config.getInfoMaxAge();
         clientTimeout = config.getClientTimeout();
+        this.dynamicFilterCacheManager = requireNonNull(dynamicFilterCacheManager, "dynamicFilterCacheManager is null");
 
         DataSize maxBufferSize = config.getSinkMaxBufferSize();
 
@@ -413,18 +419,28 @@ public class SqlTaskManager
     public void removeOldTasks()
     {
         DateTime oldestAllowedTask = DateTime.now().minus(infoCacheTime.toMillis());
+        Set<QueryId> removedQueries = new HashSet<>();
         for (TaskInfo taskInfo : filter(transform(tasks.asMap().values(), SqlTask::getTaskInfo), notNull())) {
             TaskId taskId = taskInfo.getTaskStatus().getTaskId();
             try {
                 DateTime endTime = taskInfo.getStats().getEndTime();
                 if (endTime != null && endTime.isBefore(oldestAllowedTask)) {
                     tasks.asMap().remove(taskId);
+                    removedQueries.add(taskId.getQueryId());
                 }
             }
             catch (RuntimeException e) {
                 log.warn(e, "Error while inspecting age of complete task %s", taskId);
             }
         }
+
+        // drop the cached dynamic filter state of the queries without any task left
+        for (TaskId taskId : tasks.asMap().keySet()) {
+            removedQueries.remove(taskId.getQueryId());
+        }
+        for (QueryId queryId : removedQueries) {
+            dynamicFilterCacheManager.removeQuery(queryId.getId());
+        }
     }
 
     public void failAbandonedTasks()
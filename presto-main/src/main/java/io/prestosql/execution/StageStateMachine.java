@@ -88,6 +88,7 @@ public class StageStateMachine
 
     private final AtomicReference<DateTime> schedulingComplete = new AtomicReference<>();
     private final Distribution getSplitDistribution = new Distribution();
+    private final Distribution splitFilterDistribution = new Distribution();
 
     private final AtomicLong peakUserMemory = new AtomicLong();
     private final AtomicLong peakRevocableMemory = new AtomicLong();
@@ -496,6 +497,7 @@ public class StageStateMachine
         StageStats stageStats = new StageStats(
                 schedulingComplete.get(),
                 getSplitDistribution.snapshot(),
+                splitFilterDistribution.snapshot(),
 
                 totalTasks,
                 runningTasks,
@@ -569,6 +571,11 @@ public class StageStateMachine
         scheduledStats.getGetSplitTime().add(elapsedNanos, NANOSECONDS);
     }
 
+    public void recordSplitFilterTime(long startNanos)
+    {
+        splitFilterDistribution.add(System.nanoTime() - startNanos);
+    }
+
     @Override
     public String toString()
     {
@@ -42,6 +42,7 @@ public class StageStats
     private final DateTime schedulingComplete;
 
     private final DistributionSnapshot getSplitDistribution;
+    private final DistributionSnapshot splitFilterDistribution;
 
     private final int totalTasks;
     private final int runningTasks;
@@ -93,6 +94,7 @@ public class StageStats
             @JsonProperty("schedulingComplete") DateTime schedulingComplete,
 
             @JsonProperty("getSplitDistribution") DistributionSnapshot getSplitDistribution,
+            @JsonProperty("splitFilterDistribution") DistributionSnapshot splitFilterDistribution,
 
             @JsonProperty("totalTasks") int totalTasks,
             @JsonProperty("runningTasks") int runningTasks,
@@ -141,6 +143,7 @@ public class StageStats
     {
         this.schedulingComplete = schedulingComplete;
         this.getSplitDistribution = requireNonNull(getSplitDistribution, "getSplitDistribution is null");
+        this.splitFilterDistribution = requireNonNull(splitFilterDistribution, "splitFilterDistribution is null");
 
         checkArgument(totalTasks >= 0, "totalTasks is negative");
         this.totalTasks = totalTasks;
@@ -213,6 +216,12 @@ public class StageStats
         return getSplitDistribution;
     }
 
+    @JsonProperty
+    public DistributionSnapshot getSplitFilterDistribution()
+    {
+        return splitFilterDistribution;
+    }
+
     @JsonProperty
     public int getTotalTasks()
     {
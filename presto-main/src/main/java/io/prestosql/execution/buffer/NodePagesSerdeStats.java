@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import io.hetu.core.transport.execution.buffer.PagesSerdeStats;
+import org.weakref.jmx.Managed;
+
+/**
+ * Pages serde counters of all the exchanges and spills of this node
+ */
+public class NodePagesSerdeStats
+{
+    private final PagesSerdeStats stats = new PagesSerdeStats();
+
+    /**
+     * Stats to be passed to the serde factories, as the parent of their own stats
+     */
+    public PagesSerdeStats getStats()
+    {
+        return stats;
+    }
+
+    @Managed
+    public long getSerializedPages()
+    {
+        return stats.getSerializedPages();
+    }
+
+    @Managed
+    public long getSerializedBytes()
+    {
+        return stats.getSerializedBytes();
+    }
+
+    @Managed
+    public long getSerializedOutputBytes()
+    {
+        return stats.getSerializedOutputBytes();
+    }
+
+    @Managed
+    public long getSerializationTimeNanos()
+    {
+        return stats.getSerializationTimeNanos();
+    }
+
+    @Managed
+    public long getDeserializedPages()
+    {
+        return stats.getDeserializedPages();
+    }
+
+    @Managed
+    public long getDeserializedBytes()
+    {
+        return stats.getDeserializedBytes();
+    }
+
+    @Managed
+    public long getDeserializationTimeNanos()
+    {
+        return stats.getDeserializationTimeNanos();
+    }
+
+    @Managed
+    public long getAllocatedBytes()
+    {
+        return stats.getAllocatedBytes();
+    }
+}
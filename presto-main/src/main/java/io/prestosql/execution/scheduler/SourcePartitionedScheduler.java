@@ -240,7 +240,12 @@ public class SourcePartitionedScheduler
                     scheduleGroup.nextSplitBatchFuture = null;
 
                     //add split filter to filter out split has no valid rows
-                    List<Split> filteredSplit = applyFilter ? SplitUtils.getFilteredSplit(PredicateExtractor.buildPredicates(stage), nextSplits) : nextSplits.getSplits();
+                    List<Split> filteredSplit = nextSplits.getSplits();
+                    if (applyFilter) {
+                        long start = System.nanoTime();
+                        filteredSplit = SplitUtils.getFilteredSplit(PredicateExtractor.buildPredicates(stage), nextSplits);
+                        stage.recordSplitFilterTime(start);
+                    }
 
                     pendingSplits.addAll(filteredSplit);
                     if (nextSplits.isLastBatch()) {
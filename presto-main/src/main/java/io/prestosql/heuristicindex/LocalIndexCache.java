@@ -17,6 +17,7 @@ package io.prestosql.heuristicindex;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.airlift.log.Logger;
@@ -26,12 +27,15 @@ import io.hetu.core.spi.heuristicindex.SplitIndexMetadata;
 import io.prestosql.metadata.Split;
 import io.prestosql.spi.service.PropertyService;
 import io.prestosql.utils.HetuConstant;
+import org.weakref.jmx.Managed;
 
 import javax.inject.Inject;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -42,7 +46,12 @@ public class LocalIndexCache
         implements IndexCache
 {
     private static final Logger LOG = Logger.get(LocalIndexCache.class);
-    private final int loadDelay = 5 * 1000; // ms
+    private static final long DEFAULT_LOAD_DELAY = 5 * 1000; // ms
+    private static final long DEFAULT_TTL = 10 * 60 * 1000; // ms
+    private static final String[] INDEX_TYPES = {MinMaxIndex.ID, BloomIndex.ID};
+
+    private final long loadDelay; // ms
+    private final CacheLoader loader;
 
     private boolean loadAsync = true;
     private static LoadingCache<IndexCacheKey, List<SplitIndexMetadata>> cache;
@@ -58,14 +67,55 @@ public class LocalIndexCache
 
     public LocalIndexCache(CacheLoader loader, boolean loadAsync)
     {
+        this.loader = loader;
+        this.loadAsync = loadAsync;
+        this.loadDelay = PropertyService.containsProperty(HetuConstant.FILTER_CACHE_LOADING_DELAY)
+                ? PropertyService.getDurationProperty(HetuConstant.FILTER_CACHE_LOADING_DELAY).toMillis()
+                : DEFAULT_LOAD_DELAY;
+
+        // the cache is shared by all the instances, it is loaded by the loader of the instance creating it
+        // so only this instance preloads the indices
         if (cache == null && PropertyService.getBooleanProperty(HetuConstant.FILTER_ENABLED)) {
-            cache = CacheBuilder.newBuilder()
-                    .expireAfterWrite(10, TimeUnit.MINUTES)
-                    .maximumSize(PropertyService.getLongProperty(HetuConstant.FILTER_MAX_INDICES_IN_CACHE))
+            cache = createCache(loader);
+            if (PropertyService.containsProperty(HetuConstant.FILTER_CACHE_PRELOAD_INDICES)) {
+                for (String table : PropertyService.getCommaSeparatedList(HetuConstant.FILTER_CACHE_PRELOAD_INDICES)) {
+                    if (!table.trim().isEmpty()) {
+                        executor.submit(() -> preloadTable(table.trim()));
+                    }
+                }
+            }
+        }
+    }
+
+    private static LoadingCache<IndexCacheKey, List<SplitIndexMetadata>> createCache(CacheLoader loader)
+    {
+        long ttl = PropertyService.containsProperty(HetuConstant.FILTER_CACHE_TTL)
+                ? PropertyService.getDurationProperty(HetuConstant.FILTER_CACHE_TTL).toMillis()
+                : DEFAULT_TTL;
+
+        // bound the cache by the memory used by the indices when configured, by their number otherwise
+        if (PropertyService.containsProperty(HetuConstant.FILTER_CACHE_MAX_MEMORY)) {
+            return CacheBuilder.newBuilder()
+                    .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                    .maximumWeight(PropertyService.getLongProperty(HetuConstant.FILTER_CACHE_MAX_MEMORY))
+                    .<IndexCacheKey, List<SplitIndexMetadata>>weigher(LocalIndexCache::getWeight)
+                    .recordStats()
                     .build(loader);
         }
+        return CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .maximumSize(PropertyService.getLongProperty(HetuConstant.FILTER_MAX_INDICES_IN_CACHE))
+                .recordStats()
+                .build(loader);
+    }
 
-        this.loadAsync = loadAsync;
+    private static int getWeight(IndexCacheKey key, List<SplitIndexMetadata> indices)
+    {
+        long weight = key.getPath().length();
+        for (SplitIndexMetadata index : indices) {
+            weight += index.getIndex().getMemorySize();
+        }
+        return Ints.saturatedCast(weight);
     }
 
     @Override
@@ -78,7 +128,7 @@ public class LocalIndexCache
         URI splitUri = URI.create(split.getConnectorSplit().getFilePath());
         String filterKeyPath = getCacheKey(table, column, splitUri.getPath());
         long lastModifiedTime = split.getConnectorSplit().getLastModifiedTime();
-        IndexCacheKey filterKey = new IndexCacheKey(filterKeyPath, lastModifiedTime, MinMaxIndex.ID, BloomIndex.ID);
+        IndexCacheKey filterKey = new IndexCacheKey(filterKeyPath, lastModifiedTime, INDEX_TYPES);
         //it is possible to return multiple SplitIndexMetadata due to the range mismatch, especially in the case
         //where the split has a wider range than the original splits used for index creation
         // check if cache contains the key
@@ -129,6 +179,67 @@ public class LocalIndexCache
         return indices == null ? Collections.emptyList() : indices;
     }
 
+    /**
+     * Load the indices of all the files of a table into cache, so the first queries on the table can already use them
+     *
+     * @param table name of the table the indices were created for, e.g. catalog.schema.table
+     * @return number of files whose indices were loaded
+     */
+    @Managed(description = "Preload the indices of a table into cache")
+    public int preloadTable(String table)
+    {
+        if (cache == null || !(loader instanceof LocalIndexCacheLoader)) {
+            return 0;
+        }
+
+        try {
+            Map<IndexCacheKey, List<SplitIndexMetadata>> indices = ((LocalIndexCacheLoader) loader).loadTable(table, INDEX_TYPES);
+            cache.putAll(indices);
+            LOG.info("Preloaded indices of %s files of table %s.", indices.size(), table);
+            return indices.size();
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.warn(e, "Unable to preload indices of table %s.", table);
+            return 0;
+        }
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache == null ? 0 : cache.size();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache == null ? 0 : cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache == null ? 0 : cache.stats().missCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache == null ? 0 : cache.stats().hitRate();
+    }
+
+    @Managed
+    public long getLoadFailureCount()
+    {
+        return cache == null ? 0 : cache.stats().loadExceptionCount();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache == null ? 0 : cache.stats().evictionCount();
+    }
+
     private String getCacheKey(String tableName, String columnName, String filePath)
     {
         return String.format("%s/%s%s", tableName, columnName, filePath);
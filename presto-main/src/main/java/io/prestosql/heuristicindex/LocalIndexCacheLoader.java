@@ -15,6 +15,8 @@
 package io.prestosql.heuristicindex;
 
 import com.google.common.cache.CacheLoader;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
 import io.hetu.core.heuristicindex.IndexClient;
 import io.hetu.core.heuristicindex.IndexFactory;
 import io.hetu.core.spi.heuristicindex.SplitIndexMetadata;
@@ -22,21 +24,34 @@ import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.StandardErrorCode;
 import io.prestosql.spi.service.PropertyService;
 import io.prestosql.utils.HetuConstant;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
 import static java.util.Comparator.comparingLong;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.groupingBy;
 
 public class LocalIndexCacheLoader
         extends CacheLoader<IndexCacheKey, List<SplitIndexMetadata>>
 {
     private static IndexClient indexClient;
 
+    private final Optional<LocalIndexFileCache> fileCache;
+    private final TimeStat loadTime = new TimeStat(MILLISECONDS);
+    private final CounterStat localFileHits = new CounterStat();
+    private final CounterStat localFileMisses = new CounterStat();
+
     // Initialize indexClient in a static block to ensure it only gets initialized once
     // Also, this ensures the correct thread loads in the plugins for the indexer
     // As only the thread that injected this class is able to load the plugins
@@ -57,11 +72,27 @@ public class LocalIndexCacheLoader
 
     public LocalIndexCacheLoader()
     {
+        this.fileCache = createFileCache();
     }
 
     public LocalIndexCacheLoader(IndexClient client)
     {
         indexClient = client;
+        this.fileCache = createFileCache();
+    }
+
+    public LocalIndexCacheLoader(IndexClient client, LocalIndexFileCache fileCache)
+    {
+        indexClient = client;
+        this.fileCache = Optional.of(requireNonNull(fileCache, "fileCache is null"));
+    }
+
+    private static Optional<LocalIndexFileCache> createFileCache()
+    {
+        if (indexClient == null || !PropertyService.containsProperty(HetuConstant.FILTER_CACHE_LOCAL_DIRECTORY)) {
+            return Optional.empty();
+        }
+        return Optional.of(new LocalIndexFileCache(Paths.get(PropertyService.getStringProperty(HetuConstant.FILTER_CACHE_LOCAL_DIRECTORY)), indexClient));
     }
 
     @Override
@@ -71,6 +102,88 @@ public class LocalIndexCacheLoader
         requireNonNull(key);
         requireNonNull(indexClient);
 
+        try (TimeStat.BlockTimer ignored = loadTime.time()) {
+            // the local copy is only kept for the lastModifiedTime of the key, so it is still valid
+            if (fileCache.isPresent()) {
+                Optional<List<SplitIndexMetadata>> indices = fileCache.get().read(key);
+                if (indices.isPresent() && !indices.get().isEmpty()) {
+                    localFileHits.update(1);
+                    return indices.get();
+                }
+                localFileMisses.update(1);
+            }
+
+            List<SplitIndexMetadata> indices = loadFromIndexStore(key);
+            fileCache.ifPresent(cache -> cache.write(key, indices));
+            return indices;
+        }
+    }
+
+    /**
+     * Load the indices of all the files of a table, to preload them into cache.
+     * The indices are read from the local copies if any were kept for the table, from the index store otherwise.
+     *
+     * @param table name of the table the indices were created for
+     * @param indexTypes only load these index types
+     * @return indices of each file of the table
+     * @throws IOException thrown when reading the indices from the index store
+     */
+    public Map<IndexCacheKey, List<SplitIndexMetadata>> loadTable(String table, String... indexTypes)
+            throws IOException
+    {
+        requireNonNull(table);
+        requireNonNull(indexClient);
+
+        Map<IndexCacheKey, List<SplitIndexMetadata>> result = new HashMap<>();
+        if (fileCache.isPresent()) {
+            for (IndexCacheKey key : fileCache.get().listKeys(table + "/", indexTypes)) {
+                fileCache.get().read(key)
+                        .filter(indices -> !indices.isEmpty())
+                        .ifPresent(indices -> result.put(key, indices));
+            }
+            if (!result.isEmpty()) {
+                return result;
+            }
+        }
+
+        // the cache keys are built from the table, column and path of the indexed file, see LocalIndexCache
+        Map<String, List<SplitIndexMetadata>> indicesByPath = indexClient.readSplitIndex(table, indexTypes).stream()
+                .collect(groupingBy(index -> index.getTable() + "/" + index.getColumn() + index.getUri()));
+        for (Map.Entry<String, List<SplitIndexMetadata>> entry : indicesByPath.entrySet()) {
+            List<SplitIndexMetadata> indices = entry.getValue().stream()
+                    .sorted(comparingLong(SplitIndexMetadata::getSplitStart))
+                    .collect(Collectors.toList());
+            IndexCacheKey key = new IndexCacheKey(entry.getKey(), indices.get(0).getLastUpdated(), indexTypes);
+            fileCache.ifPresent(cache -> cache.write(key, indices));
+            result.put(key, indices);
+        }
+        return result;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getLoadTime()
+    {
+        return loadTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getLocalFileHits()
+    {
+        return localFileHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getLocalFileMisses()
+    {
+        return localFileMisses;
+    }
+
+    private List<SplitIndexMetadata> loadFromIndexStore(IndexCacheKey key)
+            throws Exception
+    {
         // only load index files if index lastModified matches key lastModified
         long lastModified;
 
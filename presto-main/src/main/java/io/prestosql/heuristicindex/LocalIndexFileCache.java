@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.heuristicindex;
+
+import com.google.common.hash.Hashing;
+import io.airlift.log.Logger;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import io.hetu.core.heuristicindex.IndexClient;
+import io.hetu.core.spi.heuristicindex.Index;
+import io.hetu.core.spi.heuristicindex.SplitIndexMetadata;
+import io.hetu.core.spi.heuristicindex.SplitMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Local copy of the indices loaded by {@link LocalIndexCacheLoader}, one file per cache key.
+ * The files are memory-mapped when read and are kept across restarts, so the indices of a split
+ * can be reloaded without reading the index store again as long as the split has not been modified.
+ */
+public class LocalIndexFileCache
+{
+    private static final Logger LOG = Logger.get(LocalIndexFileCache.class);
+
+    private static final int MAGIC = 0x48494458;
+    private static final int VERSION = 1;
+    private static final String FILE_SUFFIX = ".index";
+
+    private final Path directory;
+    private final IndexClient indexClient;
+
+    public LocalIndexFileCache(Path directory, IndexClient indexClient)
+    {
+        this.directory = requireNonNull(directory, "directory is null");
+        this.indexClient = requireNonNull(indexClient, "indexClient is null");
+        try {
+            Files.createDirectories(directory);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to create index cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * Read the indices kept for the key, a copy made for another lastModifiedTime is stale and deleted
+     *
+     * @param key key of the indices
+     * @return indices of the requested types, empty if no valid copy is kept
+     */
+    public Optional<List<SplitIndexMetadata>> read(IndexCacheKey key)
+    {
+        Path file = getFile(key.getPath());
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        try {
+            Slice slice = Slices.mapFileReadOnly(file.toFile());
+            SliceInput input = slice.getInput();
+            Optional<IndexCacheKey> storedKey = readHeader(input);
+            if (!storedKey.isPresent()
+                    || !storedKey.get().getPath().equals(key.getPath())
+                    || storedKey.get().getLastModifiedTime() != key.getLastModifiedTime()) {
+                delete(file);
+                return Optional.empty();
+            }
+
+            int count = input.readInt();
+            List<SplitIndexMetadata> indices = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String indexType = readString(input);
+                SplitMetadata splitMetadata = new SplitMetadata(readString(input), readString(input), readString(input), readString(input), input.readLong());
+                long lastUpdated = input.readLong();
+                int length = input.readInt();
+                Slice payload = slice.slice((int) input.position(), length);
+                input.setPosition(input.position() + length);
+
+                if (!isRequested(indexType, key.getIndexTypes())) {
+                    continue;
+                }
+                Index index = indexClient.newIndex(indexType);
+                if (index == null) {
+                    // the plugin of the index type is no longer installed
+                    return Optional.empty();
+                }
+                // indices able to read the mapped file in place, e.g. bitmaps, do not copy it to the heap
+                index.load(payload.toByteBuffer());
+                indices.add(new SplitIndexMetadata(index, splitMetadata, lastUpdated));
+            }
+            return Optional.of(indices);
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.warn(e, "Failed to read cached index file %s", file);
+            delete(file);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Keep a copy of the indices of the key, replacing any previous copy.
+     * Failures are only logged, the indices can still be read from the index store.
+     *
+     * @param key key of the indices
+     * @param indices indices loaded for the key
+     */
+    public void write(IndexCacheKey key, List<SplitIndexMetadata> indices)
+    {
+        Path file = getFile(key.getPath());
+        Path temporary = directory.resolve(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (SliceOutput output = new OutputStreamSliceOutput(Files.newOutputStream(temporary))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                writeString(output, key.getPath());
+                output.writeLong(key.getLastModifiedTime());
+                output.writeInt(indices.size());
+                for (SplitIndexMetadata index : indices) {
+                    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+                    index.getIndex().persist(payload);
+
+                    writeString(output, index.getIndex().getId());
+                    writeString(output, index.getTable());
+                    writeString(output, index.getColumn());
+                    writeString(output, index.getRootUri());
+                    writeString(output, index.getUri());
+                    output.writeLong(index.getSplitStart());
+                    output.writeLong(index.getLastUpdated());
+                    output.writeInt(payload.size());
+                    output.writeBytes(payload.toByteArray());
+                }
+            }
+            Files.move(temporary, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.warn(e, "Failed to write cached index file %s", file);
+            delete(temporary);
+        }
+    }
+
+    /**
+     * List the keys of the indices kept for paths starting with the prefix, e.g. all the indices of a table
+     *
+     * @param pathPrefix prefix of the paths of the keys
+     * @param indexTypes index types of the returned keys
+     * @return keys of the indices
+     */
+    public List<IndexCacheKey> listKeys(String pathPrefix, String... indexTypes)
+    {
+        List<IndexCacheKey> keys = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    readHeader(Slices.mapFileReadOnly(file.toFile()).getInput())
+                            .filter(key -> key.getPath().startsWith(pathPrefix))
+                            .ifPresent(key -> keys.add(new IndexCacheKey(key.getPath(), key.getLastModifiedTime(), indexTypes)));
+                }
+                catch (IOException | RuntimeException e) {
+                    LOG.warn(e, "Failed to read cached index file %s", file);
+                }
+            }
+        }
+        catch (IOException e) {
+            LOG.warn(e, "Failed to list cached index files in %s", directory);
+        }
+        return keys;
+    }
+
+    private Path getFile(String path)
+    {
+        return directory.resolve(Hashing.sha256().hashString(path, UTF_8).toString() + FILE_SUFFIX);
+    }
+
+    private static Optional<IndexCacheKey> readHeader(SliceInput input)
+    {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            return Optional.empty();
+        }
+        String path = readString(input);
+        return Optional.of(new IndexCacheKey(path, input.readLong()));
+    }
+
+    private static boolean isRequested(String indexType, String[] indexTypes)
+    {
+        if (indexTypes == null || indexTypes.length == 0) {
+            return true;
+        }
+        for (String requested : indexTypes) {
+            if (requested.equalsIgnoreCase(indexType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeString(SliceOutput output, String value)
+    {
+        byte[] bytes = value.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.writeBytes(bytes);
+    }
+
+    private static String readString(SliceInput input)
+    {
+        return input.readSlice(input.readInt()).toStringUtf8();
+    }
+
+    private static void delete(Path file)
+    {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            LOG.warn(e, "Failed to delete cached index file %s", file);
+        }
+    }
+}
@@ -15,23 +15,14 @@
 package io.prestosql.heuristicindex;
 
 import io.airlift.log.Logger;
-import io.hetu.core.heuristicindex.base.BloomIndex;
-import io.hetu.core.heuristicindex.base.MinMaxIndex;
 import io.hetu.core.spi.heuristicindex.Operator;
 import io.hetu.core.spi.heuristicindex.SplitIndexMetadata;
 import io.prestosql.metadata.Split;
-import io.prestosql.sql.tree.ComparisonExpression;
-import io.prestosql.utils.RangeUtil;
+import io.prestosql.utils.Predicate;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import static io.prestosql.utils.SplitUtils.getSplitKey;
 
@@ -39,121 +30,47 @@ public class SplitFilter
         implements Filter<Split, Object>
 {
     private static final Logger LOG = Logger.get(SplitFilter.class);
-    private static final List<String> INDEX_ORDER = new ArrayList<String>(2)
-    {
-        {
-            add(MinMaxIndex.ID);
-            add(BloomIndex.ID);
-        }
-    };
-
-    private final Map<String, List<SplitIndexMetadata>> indices;
-    private ComparisonExpression.Operator operator;
-
-    public SplitFilter(Map<String, List<SplitIndexMetadata>> indices, ComparisonExpression.Operator operator)
-    {
-        this.indices = indices;
-        this.operator = operator;
-    }
-
-    @Override
-    public List<Split> filter(List<Split> splits, Object value)
-    {
-        Set<Split> validSplits = Collections.synchronizedSet(new HashSet<>());
-
-        splits.parallelStream().forEach(split -> {
-            List<SplitIndexMetadata> splitIndices = indices.get(getSplitKey(split));
-
-            if (splitIndices == null || splitIndices.size() == 0) {
-                validSplits.add(split);
-                return;
-            }
-
-            // Group each type of index together and make sure they are sorted in ascending order
-            // with respect to their SplitStart
-            Map<String, List<SplitIndexMetadata>> indexGroupMap = new HashMap<>();
-            for (SplitIndexMetadata splitIndex : splitIndices) {
-                List<SplitIndexMetadata> indexGroup = indexGroupMap.get(splitIndex.getIndex().getId());
-                if (indexGroup == null) {
-                    indexGroup = new ArrayList<>();
-                    indexGroupMap.put(splitIndex.getIndex().getId(), indexGroup);
-                }
 
-                insert(indexGroup, splitIndex);
-            }
-
-            List<String> sortedIndexTypeKeys = new LinkedList<>(indexGroupMap.keySet());
-            sortedIndexTypeKeys.sort(Comparator.comparingInt(e -> INDEX_ORDER.contains(e) ? INDEX_ORDER.indexOf(e) : Integer.MAX_VALUE));
-
-            for (String indexTypeKey : sortedIndexTypeKeys) {
-                List<SplitIndexMetadata> validIndices = indexGroupMap.get(indexTypeKey);
-                if (validIndices != null) {
-                    validIndices = RangeUtil.subArray(validIndices, split.getConnectorSplit().getStartIndex(), split.getConnectorSplit().getEndIndex());
-                    // If any index groups returns false, then the value is definitely not in split.
-                    // But if they return true, it still could just be false-positive result
-                    // So we'll go through all the indices and only include the split if all indices can match the result
-                    if (!isMatched(validIndices, value)) {
-                        LOG.debug("Split %s is filtered by %s", split.toString(), indexTypeKey);
-                        return;
-                    }
-                }
-            }
-            // At this point all indices shows "match" with the predicate value, so we cannot filter out the split
-            // We'll add the current split as a valid split
-            validSplits.add(split);
-        });
+    private final SplitIndexSummary indices;
+    private final Predicate predicate;
 
-        return new ArrayList<>(validSplits);
-    }
-
-    private boolean isMatched(List<SplitIndexMetadata> indices, Object value)
+    public SplitFilter(Map<String, List<SplitIndexMetadata>> indices, Predicate predicate)
     {
-        for (SplitIndexMetadata splitIndexMetadata : indices) {
-            // if there was no valid split index data, then we the whole indices are incomplete/invalid
-            if (splitIndexMetadata == null || splitIndexMetadata.getIndex() == null) {
-                return true;
-            }
-
-            // Since each split might be composed of several splitIndices,
-            // if one splitIndex returns true, that means the value can still be found in the split
-            // Only when all the splitIndices return false, can we conclude the split does not contain the value
-            // that we are searching for
-            try {
-                if (splitIndexMetadata.getIndex().matches(value, Operator.fromValue(operator.getValue()))) {
-                    return true;
-                }
-            }
-            catch (IllegalArgumentException e) {
-                // unable to apply the operator with the given value
-                // return true since we don't want this split filtered out
-                return true;
-            }
-        }
-        return false;
+        this.indices = SplitIndexSummary.create(indices);
+        this.predicate = predicate;
     }
 
     /**
-     * Performs list insertion that guarantees SplitStart are sorted in ascending order
-     * Cannot assure order when two SplitStarts are the same
+     * Filter out the splits whose indices prove that no row matches the predicate.
+     * The splits are evaluated in a single pass against all the comparisons of the predicate.
      *
-     * @param list List to be inserted element obj
-     * @param obj  SplitIndexMetadata to be inserted to the list
+     * @param splits splits to filter
+     * @param value value compared by a single comparison predicate, the comparisons of a disjunction have their own values
+     * @return the splits that can contain matching rows, in their original order
      */
-    private void insert(List<SplitIndexMetadata> list, SplitIndexMetadata obj)
+    @Override
+    public List<Split> filter(List<Split> splits, Object value)
     {
-        int listSize = list.size();
-        // If there's no element, just insert it
-        if (listSize == 0) {
-            list.add(obj);
-            return;
+        List<Predicate> comparisons = predicate.getComparisons();
+        Operator[] operators = new Operator[comparisons.size()];
+        Object[] values = new Object[comparisons.size()];
+        for (int i = 0; i < operators.length; i++) {
+            Predicate comparison = comparisons.get(i);
+            operators[i] = Operator.fromValue(comparison.getOperator().getValue());
+            values[i] = comparison == predicate ? value : comparison.getValue();
         }
 
-        long splitStart = obj.getSplitStart();
-        for (int i = list.size() - 1; i >= 0; i--) {
-            if (list.get(i).getSplitStart() <= splitStart) {
-                list.add(i + 1, obj);
-                return;
+        List<Split> validSplits = new ArrayList<>(splits.size());
+        for (Split split : splits) {
+            // If any index group returns false, then the value is definitely not in split.
+            // But if they return true, it still could just be false-positive result
+            if (indices.mightMatch(getSplitKey(split), split.getConnectorSplit().getStartIndex(), split.getConnectorSplit().getEndIndex(), operators, values)) {
+                validSplits.add(split);
+            }
+            else {
+                LOG.debug("Split %s is filtered", split.toString());
             }
         }
+        return validSplits;
     }
 }
@@ -20,10 +20,11 @@ import io.hetu.core.spi.heuristicindex.SplitIndexMetadata;
 import io.prestosql.metadata.Split;
 import io.prestosql.utils.Predicate;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import static io.prestosql.utils.SplitUtils.getSplitKey;
 
@@ -49,15 +50,20 @@ public class SplitFilterFactory
      */
     public SplitFilter getFilter(Predicate predicate, List<Split> splits)
     {
+        // an index can only be used if it can evaluate all the comparisons of the predicate
+        List<Operator> operators = predicate.getComparisons().stream()
+                .map(comparison -> Operator.fromValue(comparison.getOperator().getValue()))
+                .distinct()
+                .collect(Collectors.toList());
         Map<String, List<SplitIndexMetadata>> indices = new ConcurrentHashMap<>();
         splits.stream().parallel().forEach(split -> {
             String splitKey = getSplitKey(split);
             if (!indices.containsKey(splitKey)) {
                 List<SplitIndexMetadata> allIndices = indexManager.getIndices(predicate.getTableName(), predicate.getColumnName(), split);
-                List<SplitIndexMetadata> matchingIndices = new LinkedList<>();
+                List<SplitIndexMetadata> matchingIndices = new ArrayList<>(allIndices.size());
 
                 for (SplitIndexMetadata i : allIndices) {
-                    if (i.getIndex().supports(Operator.fromValue(predicate.getOperator().getValue()))) {
+                    if (operators.stream().allMatch(i.getIndex()::supports)) {
                         matchingIndices.add(i);
                     }
                 }
@@ -67,6 +73,6 @@ public class SplitFilterFactory
                 }
             }
         });
-        return new SplitFilter(indices, predicate.getOperator());
+        return new SplitFilter(indices, predicate);
     }
 }
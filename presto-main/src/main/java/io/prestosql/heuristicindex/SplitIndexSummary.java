@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.heuristicindex;
+
+import com.google.common.collect.ImmutableList;
+import io.hetu.core.heuristicindex.base.BloomIndex;
+import io.hetu.core.heuristicindex.base.MinMaxIndex;
+import io.hetu.core.spi.heuristicindex.Index;
+import io.hetu.core.spi.heuristicindex.Operator;
+import io.hetu.core.spi.heuristicindex.SplitIndexMetadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.Comparator.comparingLong;
+
+/**
+ * Columnar form of the indices of the files read by a batch of splits, built once per split filter.
+ * The indices of each file are grouped by index type, cheapest type first, and kept in arrays sorted
+ * by split start, with the bounds of the min/max indices unpacked. A split is then evaluated with a binary
+ * search and a few comparisons per index, without regrouping or sorting the indices of every split.
+ */
+class SplitIndexSummary
+{
+    private static final List<String> INDEX_ORDER = ImmutableList.of(MinMaxIndex.ID, BloomIndex.ID);
+
+    private final Map<String, IndexGroup[]> files;
+
+    private SplitIndexSummary(Map<String, IndexGroup[]> files)
+    {
+        this.files = files;
+    }
+
+    /**
+     * @param indices indices of each file, keyed by split key
+     */
+    static SplitIndexSummary create(Map<String, List<SplitIndexMetadata>> indices)
+    {
+        Map<String, IndexGroup[]> files = new HashMap<>(indices.size());
+        for (Map.Entry<String, List<SplitIndexMetadata>> entry : indices.entrySet()) {
+            Map<String, List<SplitIndexMetadata>> indexGroups = new LinkedHashMap<>();
+            boolean complete = true;
+            for (SplitIndexMetadata splitIndex : entry.getValue()) {
+                if (splitIndex == null || splitIndex.getIndex() == null) {
+                    // incomplete indices cannot filter out the splits of the file
+                    complete = false;
+                    break;
+                }
+                indexGroups.computeIfAbsent(splitIndex.getIndex().getId(), id -> new ArrayList<>()).add(splitIndex);
+            }
+            if (!complete || indexGroups.isEmpty()) {
+                continue;
+            }
+
+            List<String> indexTypes = new ArrayList<>(indexGroups.keySet());
+            indexTypes.sort(comparingInt(indexType -> INDEX_ORDER.contains(indexType) ? INDEX_ORDER.indexOf(indexType) : Integer.MAX_VALUE));
+            IndexGroup[] groups = new IndexGroup[indexTypes.size()];
+            for (int i = 0; i < groups.length; i++) {
+                groups[i] = new IndexGroup(indexGroups.get(indexTypes.get(i)));
+            }
+            files.put(entry.getKey(), groups);
+        }
+        return new SplitIndexSummary(files);
+    }
+
+    /**
+     * Check whether the rows of a split can match any of the comparisons
+     *
+     * @param splitKey split key of the file read by the split
+     * @param start start index of the split in the file
+     * @param end end index of the split in the file
+     * @param operators operators of the comparisons
+     * @param values values of the comparisons
+     * @return false if the indices prove no row of the split matches, true otherwise
+     */
+    boolean mightMatch(String splitKey, long start, long end, Operator[] operators, Object[] values)
+    {
+        IndexGroup[] groups = files.get(splitKey);
+        if (groups == null) {
+            return true;
+        }
+        for (IndexGroup group : groups) {
+            if (!group.mightMatch(start, end, operators, values)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class IndexGroup
+    {
+        private final long[] splitStarts;
+        private final Index[] indices;
+        // bounds of min/max indices, null for other index types
+        private final Comparable[] mins;
+        private final Comparable[] maxs;
+
+        IndexGroup(List<SplitIndexMetadata> splitIndices)
+        {
+            splitIndices.sort(comparingLong(SplitIndexMetadata::getSplitStart));
+            int count = splitIndices.size();
+            splitStarts = new long[count];
+            indices = new Index[count];
+            for (int i = 0; i < count; i++) {
+                splitStarts[i] = splitIndices.get(i).getSplitStart();
+                indices[i] = splitIndices.get(i).getIndex();
+            }
+
+            if (Arrays.stream(indices).allMatch(MinMaxIndex.class::isInstance)) {
+                mins = new Comparable[count];
+                maxs = new Comparable[count];
+                for (int i = 0; i < count; i++) {
+                    mins[i] = ((MinMaxIndex) indices[i]).getMin();
+                    maxs[i] = ((MinMaxIndex) indices[i]).getMax();
+                }
+            }
+            else {
+                mins = null;
+                maxs = null;
+            }
+        }
+
+        /**
+         * The indices covering the split are those from the last one starting at or before the split start
+         * to the first one starting at or after the split end. All the indices are used when the split start
+         * is not covered. The split can match if any comparison matches any of these indices.
+         */
+        boolean mightMatch(long start, long end, Operator[] operators, Object[] values)
+        {
+            int first = upperBound(splitStarts, start) - 1;
+            int last = lowerBound(splitStarts, end);
+            if (first < 0 || last < first) {
+                first = 0;
+                last = splitStarts.length - 1;
+            }
+            else if (last == splitStarts.length) {
+                last = splitStarts.length - 1;
+            }
+
+            for (int i = first; i <= last; i++) {
+                for (int j = 0; j < operators.length; j++) {
+                    if (matches(i, operators[j], values[j])) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean matches(int position, Operator operator, Object value)
+        {
+            try {
+                if (mins == null) {
+                    return indices[position].matches(value, operator);
+                }
+
+                Comparable comparable = (Comparable) value;
+                switch (operator) {
+                    case EQUAL:
+                        return comparable.compareTo(mins[position]) >= 0 && comparable.compareTo(maxs[position]) <= 0;
+                    case LESS_THAN:
+                        return comparable.compareTo(mins[position]) > 0;
+                    case LESS_THAN_OR_EQUAL:
+                        return comparable.compareTo(mins[position]) >= 0;
+                    case GREATER_THAN:
+                        return comparable.compareTo(maxs[position]) < 0;
+                    case GREATER_THAN_OR_EQUAL:
+                        return comparable.compareTo(maxs[position]) <= 0;
+                    default:
+                        return true;
+                }
+            }
+            catch (RuntimeException e) {
+                // unable to apply the operator with the given value
+                // return true since we don't want this split filtered out
+                return true;
+            }
+        }
+
+        private static int lowerBound(long[] values, long value)
+        {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < value) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int upperBound(long[] values, long value)
+        {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= value) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -358,6 +358,17 @@ public final class SessionPropertyManager
             requireNonNull(hetuConfig.getMaxIndicesInCache(), String.format(Locale.ENGLISH,
                     "%s is required when %s is true", HetuConstant.FILTER_MAX_INDICES_IN_CACHE, HetuConstant.FILTER_ENABLED));
             PropertyService.setProperty(HetuConstant.FILTER_MAX_INDICES_IN_CACHE, hetuConfig.getMaxIndicesInCache());
+            if (hetuConfig.getIndexCacheMaxMemory() != null) {
+                PropertyService.setProperty(HetuConstant.FILTER_CACHE_MAX_MEMORY, hetuConfig.getIndexCacheMaxMemory().toBytes());
+            }
+            PropertyService.setProperty(HetuConstant.FILTER_CACHE_TTL, hetuConfig.getIndexCacheTtl());
+            PropertyService.setProperty(HetuConstant.FILTER_CACHE_LOADING_DELAY, hetuConfig.getIndexCacheLoadingDelay());
+            if (hetuConfig.getIndexCacheLocalDirectory() != null) {
+                PropertyService.setProperty(HetuConstant.FILTER_CACHE_LOCAL_DIRECTORY, hetuConfig.getIndexCacheLocalDirectory());
+            }
+            if (hetuConfig.getIndexCachePreloadTables() != null) {
+                PropertyService.setProperty(HetuConstant.FILTER_CACHE_PRELOAD_INDICES, hetuConfig.getIndexCachePreloadTables());
+            }
 
             requireNonNull(hetuConfig.getFilterPlugins(), String.format(Locale.ENGLISH,
                     "%s is required when %s is true", HetuConstant.FILTER_PLUGINS, HetuConstant.FILTER_ENABLED));
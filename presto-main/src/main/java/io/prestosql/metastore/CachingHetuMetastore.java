@@ -0,0 +1,548 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.metastore;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.metastore.HetuMetastore;
+import io.prestosql.spi.metastore.model.CatalogEntity;
+import io.prestosql.spi.metastore.model.DatabaseEntity;
+import io.prestosql.spi.metastore.model.TableEntity;
+import io.prestosql.spi.statestore.StateCollection;
+import io.prestosql.spi.statestore.StateMap;
+import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.spi.statestore.listener.EntryAddedListener;
+import io.prestosql.spi.statestore.listener.EntryEvent;
+import io.prestosql.spi.statestore.listener.EntryUpdatedListener;
+import io.prestosql.sql.gen.CacheStatsMBean;
+import io.prestosql.statestore.StateStoreProvider;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.cache.CacheLoader.asyncReloading;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * HetuMetastore caching the entities of a delegate metastore.
+ * Missing entities are cached as well, and listing the databases or tables of a parent also caches each of them.
+ * Writes invalidate the entities locally and publish the invalidation to the other coordinators through the state store.
+ *
+ * @since 2020-04-26
+ */
+public class CachingHetuMetastore
+        implements HetuMetastore
+{
+    private static final Logger LOG = Logger.get(CachingHetuMetastore.class);
+    private static final String INVALIDATION_COLLECTION_NAME = "hetu-metastore-invalidations";
+    private static final char NAME_SEPARATOR = '\u0000';
+
+    private final HetuMetastore delegate;
+    private final Optional<StateStoreProvider> stateStoreProvider;
+    private final LoadingCache<String, Optional<CatalogEntity>> catalogCache;
+    private final LoadingCache<String, List<CatalogEntity>> catalogsCache;
+    private final LoadingCache<EntityName, Optional<DatabaseEntity>> databaseCache;
+    private final LoadingCache<String, List<DatabaseEntity>> databasesCache;
+    private final LoadingCache<EntityName, Optional<TableEntity>> tableCache;
+    private final LoadingCache<EntityName, List<TableEntity>> tablesCache;
+    private final CounterStat invalidations = new CounterStat();
+    private final CounterStat remoteInvalidations = new CounterStat();
+    private volatile StateMap<String, String> invalidationMap;
+
+    public CachingHetuMetastore(HetuMetastore delegate, Optional<StateStoreProvider> stateStoreProvider, Executor executor,
+            OptionalLong expiresAfterWriteMillis, OptionalLong refreshMillis, long maximumSize)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.stateStoreProvider = requireNonNull(stateStoreProvider, "stateStoreProvider is null");
+        requireNonNull(executor, "executor is null");
+
+        catalogCache = newCacheBuilder(expiresAfterWriteMillis, refreshMillis, maximumSize)
+                .build(asyncReloading(CacheLoader.from(delegate::getCatalog), executor));
+
+        catalogsCache = newCacheBuilder(expiresAfterWriteMillis, refreshMillis, maximumSize)
+                .build(asyncReloading(CacheLoader.from(this::loadCatalogs), executor));
+
+        databaseCache = newCacheBuilder(expiresAfterWriteMillis, refreshMillis, maximumSize)
+                .build(asyncReloading(CacheLoader.from(this::loadDatabase), executor));
+
+        databasesCache = newCacheBuilder(expiresAfterWriteMillis, refreshMillis, maximumSize)
+                .build(asyncReloading(CacheLoader.from(this::loadAllDatabases), executor));
+
+        tableCache = newCacheBuilder(expiresAfterWriteMillis, refreshMillis, maximumSize)
+                .build(asyncReloading(CacheLoader.from(this::loadTable), executor));
+
+        tablesCache = newCacheBuilder(expiresAfterWriteMillis, refreshMillis, maximumSize)
+                .build(asyncReloading(CacheLoader.from(this::loadAllTables), executor));
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        catalogCache.invalidateAll();
+        catalogsCache.invalidateAll();
+        databaseCache.invalidateAll();
+        databasesCache.invalidateAll();
+        tableCache.invalidateAll();
+        tablesCache.invalidateAll();
+    }
+
+    private static <K, V> V get(LoadingCache<K, V> cache, K key)
+    {
+        try {
+            return cache.getUnchecked(key);
+        }
+        catch (UncheckedExecutionException e) {
+            throwIfInstanceOf(e.getCause(), PrestoException.class);
+            throw e;
+        }
+    }
+
+    @Override
+    public void createCatalog(CatalogEntity catalog)
+    {
+        try {
+            delegate.createCatalog(catalog);
+        }
+        finally {
+            invalidate(new EntityName(catalog.getName()));
+        }
+    }
+
+    @Override
+    public void alterCatalog(String catalogName, CatalogEntity newCatalog)
+    {
+        try {
+            delegate.alterCatalog(catalogName, newCatalog);
+        }
+        finally {
+            invalidate(new EntityName(catalogName));
+            invalidate(new EntityName(newCatalog.getName()));
+        }
+    }
+
+    @Override
+    public void dropCatalog(String catalogName)
+    {
+        try {
+            delegate.dropCatalog(catalogName);
+        }
+        finally {
+            invalidate(new EntityName(catalogName));
+        }
+    }
+
+    @Override
+    public Optional<CatalogEntity> getCatalog(String catalogName)
+    {
+        listenToInvalidations();
+        return get(catalogCache, catalogName);
+    }
+
+    @Override
+    public List<CatalogEntity> getCatalogs()
+    {
+        listenToInvalidations();
+        return get(catalogsCache, "");
+    }
+
+    private List<CatalogEntity> loadCatalogs()
+    {
+        List<CatalogEntity> catalogs = ImmutableList.copyOf(delegate.getCatalogs());
+        for (CatalogEntity catalog : catalogs) {
+            catalogCache.put(catalog.getName(), Optional.of(catalog));
+        }
+        return catalogs;
+    }
+
+    @Override
+    public void createDatabase(DatabaseEntity database)
+    {
+        try {
+            delegate.createDatabase(database);
+        }
+        finally {
+            invalidate(new EntityName(database.getCatalogName(), database.getName()));
+        }
+    }
+
+    @Override
+    public void alterDatabase(String catalogName, String databaseName, DatabaseEntity newDatabase)
+    {
+        try {
+            delegate.alterDatabase(catalogName, databaseName, newDatabase);
+        }
+        finally {
+            invalidate(new EntityName(catalogName, databaseName));
+            invalidate(new EntityName(newDatabase.getCatalogName(), newDatabase.getName()));
+        }
+    }
+
+    @Override
+    public void dropDatabase(String catalogName, String databaseName)
+    {
+        try {
+            delegate.dropDatabase(catalogName, databaseName);
+        }
+        finally {
+            invalidate(new EntityName(catalogName, databaseName));
+        }
+    }
+
+    @Override
+    public Optional<DatabaseEntity> getDatabase(String catalogName, String databaseName)
+    {
+        listenToInvalidations();
+        return get(databaseCache, new EntityName(catalogName, databaseName));
+    }
+
+    private Optional<DatabaseEntity> loadDatabase(EntityName name)
+    {
+        return delegate.getDatabase(name.catalog, name.database);
+    }
+
+    @Override
+    public List<DatabaseEntity> getAllDatabases(String catalogName)
+    {
+        listenToInvalidations();
+        return get(databasesCache, catalogName);
+    }
+
+    private List<DatabaseEntity> loadAllDatabases(String catalogName)
+    {
+        List<DatabaseEntity> databases = ImmutableList.copyOf(delegate.getAllDatabases(catalogName));
+        for (DatabaseEntity database : databases) {
+            databaseCache.put(new EntityName(catalogName, database.getName()), Optional.of(database));
+        }
+        return databases;
+    }
+
+    @Override
+    public void createTable(TableEntity table)
+    {
+        try {
+            delegate.createTable(table);
+        }
+        finally {
+            invalidate(new EntityName(table.getCatalogName(), table.getDatabaseName(), table.getName()));
+        }
+    }
+
+    @Override
+    public void dropTable(String catalogName, String databaseName, String tableName)
+    {
+        try {
+            delegate.dropTable(catalogName, databaseName, tableName);
+        }
+        finally {
+            invalidate(new EntityName(catalogName, databaseName, tableName));
+        }
+    }
+
+    @Override
+    public void alterTable(String catalogName, String databaseName, String oldTableName, TableEntity newTable)
+    {
+        try {
+            delegate.alterTable(catalogName, databaseName, oldTableName, newTable);
+        }
+        finally {
+            invalidate(new EntityName(catalogName, databaseName, oldTableName));
+            invalidate(new EntityName(newTable.getCatalogName(), newTable.getDatabaseName(), newTable.getName()));
+        }
+    }
+
+    @Override
+    public Optional<TableEntity> getTable(String catalogName, String databaseName, String table)
+    {
+        listenToInvalidations();
+        return get(tableCache, new EntityName(catalogName, databaseName, table));
+    }
+
+    private Optional<TableEntity> loadTable(EntityName name)
+    {
+        return delegate.getTable(name.catalog, name.database, name.table);
+    }
+
+    @Override
+    public List<TableEntity> getAllTables(String catalogName, String databaseName)
+    {
+        listenToInvalidations();
+        return get(tablesCache, new EntityName(catalogName, databaseName));
+    }
+
+    private List<TableEntity> loadAllTables(EntityName name)
+    {
+        List<TableEntity> tables = ImmutableList.copyOf(delegate.getAllTables(name.catalog, name.database));
+        for (TableEntity table : tables) {
+            tableCache.put(new EntityName(name.catalog, name.database, table.getName()), Optional.of(table));
+        }
+        return tables;
+    }
+
+    private void invalidate(EntityName name)
+    {
+        invalidateLocally(name);
+        invalidations.update(1);
+
+        StateMap<String, String> map = listenToInvalidations();
+        if (map != null) {
+            try {
+                // a new value on each invalidation, so that the other coordinators are always notified
+                map.put(name.encode(), UUID.randomUUID().toString());
+            }
+            catch (RuntimeException e) {
+                LOG.warn(e, "Failed to publish the invalidation of %s to the other coordinators", name);
+            }
+        }
+    }
+
+    /**
+     * Invalidate the entity, its parent listing and all its children
+     */
+    private void invalidateLocally(EntityName name)
+    {
+        if (name.database == null) {
+            catalogCache.invalidate(name.catalog);
+            catalogsCache.invalidateAll();
+            databaseCache.asMap().keySet().removeIf(key -> key.catalog.equals(name.catalog));
+            databasesCache.invalidate(name.catalog);
+            tableCache.asMap().keySet().removeIf(key -> key.catalog.equals(name.catalog));
+            tablesCache.asMap().keySet().removeIf(key -> key.catalog.equals(name.catalog));
+        }
+        else if (name.table == null) {
+            databaseCache.invalidate(name);
+            databasesCache.invalidate(name.catalog);
+            tableCache.asMap().keySet().removeIf(key -> key.isInDatabase(name));
+            tablesCache.invalidate(name);
+        }
+        else {
+            tableCache.invalidate(name);
+            tablesCache.invalidate(new EntityName(name.catalog, name.database));
+        }
+    }
+
+    /**
+     * Listen to the invalidations of the other coordinators once the state store is loaded
+     *
+     * @return the state map of the invalidations, or null if there is no state store
+     */
+    private StateMap<String, String> listenToInvalidations()
+    {
+        StateMap<String, String> map = invalidationMap;
+        if (map != null || !stateStoreProvider.isPresent()) {
+            return map;
+        }
+        synchronized (this) {
+            if (invalidationMap == null) {
+                StateStore stateStore = stateStoreProvider.get().getStateStore();
+                if (stateStore == null) {
+                    return null;
+                }
+                map = (StateMap<String, String>) stateStore.getStateCollection(INVALIDATION_COLLECTION_NAME);
+                if (map == null) {
+                    map = (StateMap<String, String>) stateStore.createStateCollection(INVALIDATION_COLLECTION_NAME, StateCollection.Type.MAP);
+                }
+                if (!map.addEntryListener(new InvalidationListener()).isPresent()) {
+                    LOG.warn("State store does not notify changes, the metastore cache of other coordinators expires after its TTL");
+                }
+                invalidationMap = map;
+            }
+            return invalidationMap;
+        }
+    }
+
+    private void onRemoteInvalidation(String key)
+    {
+        remoteInvalidations.update(1);
+        invalidateLocally(EntityName.decode(key));
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getInvalidations()
+    {
+        return invalidations;
+    }
+
+    /**
+     * Invalidations received from the other coordinators, including the ones of this coordinator
+     */
+    @Managed
+    @Nested
+    public CounterStat getRemoteInvalidations()
+    {
+        return remoteInvalidations;
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getCatalogCacheStats()
+    {
+        return new CacheStatsMBean(catalogCache);
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getCatalogsCacheStats()
+    {
+        return new CacheStatsMBean(catalogsCache);
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getDatabaseCacheStats()
+    {
+        return new CacheStatsMBean(databaseCache);
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getDatabasesCacheStats()
+    {
+        return new CacheStatsMBean(databasesCache);
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getTableCacheStats()
+    {
+        return new CacheStatsMBean(tableCache);
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getTablesCacheStats()
+    {
+        return new CacheStatsMBean(tablesCache);
+    }
+
+    private static CacheBuilder<Object, Object> newCacheBuilder(OptionalLong expiresAfterWriteMillis, OptionalLong refreshMillis, long maximumSize)
+    {
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+        if (expiresAfterWriteMillis.isPresent()) {
+            cacheBuilder = cacheBuilder.expireAfterWrite(expiresAfterWriteMillis.getAsLong(), MILLISECONDS);
+        }
+        if (refreshMillis.isPresent() && (!expiresAfterWriteMillis.isPresent() || expiresAfterWriteMillis.getAsLong() > refreshMillis.getAsLong())) {
+            cacheBuilder = cacheBuilder.refreshAfterWrite(refreshMillis.getAsLong(), MILLISECONDS);
+        }
+        cacheBuilder = cacheBuilder.maximumSize(maximumSize).recordStats();
+        return cacheBuilder;
+    }
+
+    private class InvalidationListener
+            implements EntryAddedListener<String, String>, EntryUpdatedListener<String, String>
+    {
+        @Override
+        public void entryAdded(EntryEvent<String, String> event)
+        {
+            onRemoteInvalidation(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, String> event)
+        {
+            onRemoteInvalidation(event.getKey());
+        }
+    }
+
+    /**
+     * Name of a catalog, a database or a table
+     */
+    private static final class EntityName
+    {
+        private final String catalog;
+        private final String database;
+        private final String table;
+
+        EntityName(String catalog)
+        {
+            this(catalog, null, null);
+        }
+
+        EntityName(String catalog, String database)
+        {
+            this(catalog, database, null);
+        }
+
+        EntityName(String catalog, String database, String table)
+        {
+            this.catalog = requireNonNull(catalog, "catalog is null");
+            this.database = database;
+            this.table = table;
+        }
+
+        boolean isInDatabase(EntityName databaseName)
+        {
+            return catalog.equals(databaseName.catalog) && Objects.equals(database, databaseName.database);
+        }
+
+        String encode()
+        {
+            return Joiner.on(NAME_SEPARATOR).skipNulls().join(catalog, database, table);
+        }
+
+        static EntityName decode(String key)
+        {
+            List<String> parts = Splitter.on(NAME_SEPARATOR).splitToList(key);
+            return new EntityName(parts.get(0), parts.size() > 1 ? parts.get(1) : null, parts.size() > 2 ? parts.get(2) : null);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            EntityName other = (EntityName) o;
+            return catalog.equals(other.catalog) && Objects.equals(database, other.database) && Objects.equals(table, other.table);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(catalog, database, table);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("catalog", catalog)
+                    .add("database", database)
+                    .add("table", table)
+                    .omitNullValues()
+                    .toString();
+        }
+    }
+}
@@ -16,19 +16,28 @@ package io.prestosql.metastore;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.log.Logger;
+import io.airlift.units.Duration;
 import io.prestosql.spi.classloader.ThreadContextClassLoader;
 import io.prestosql.spi.metastore.HetuMetaStoreFactory;
 import io.prestosql.spi.metastore.HetuMetastore;
+import io.prestosql.statestore.StateStoreProvider;
+import org.weakref.jmx.MBeanExporter;
+
+import javax.inject.Inject;
 
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.prestosql.util.PropertiesUtil.loadProperties;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 
 /**
  * HetuMetaStoreManager manages the lifecycle of HetuMetaStores
@@ -43,11 +52,32 @@ public class HetuMetaStoreManager
     private static final String HETU_METASTORE_TYPE_PROPERTY_NAME = "hetu.metastore.type";
     // properties default type value
     private static final String HETU_METASTORE_TYPE_DEFAULT_VALUE = "jdbc";
+    // cache properties, the cache is disabled with a zero TTL
+    private static final String HETU_METASTORE_CACHE_TTL = "hetu.metastore.cache.ttl";
+    private static final String HETU_METASTORE_CACHE_REFRESH_INTERVAL = "hetu.metastore.cache.refresh-interval";
+    private static final String HETU_METASTORE_CACHE_MAXIMUM_SIZE = "hetu.metastore.cache.maximum-size";
+    private static final String HETU_METASTORE_CACHE_TTL_DEFAULT_VALUE = "0s";
+    private static final String HETU_METASTORE_CACHE_MAXIMUM_SIZE_DEFAULT_VALUE = "10000";
 
     private final Map<String, HetuMetaStoreFactory> hetuMetastoreFactories = new ConcurrentHashMap<>();
+    private final Optional<StateStoreProvider> stateStoreProvider;
+    private final Optional<MBeanExporter> exporter;
     private HetuMetastore hetuMetastore;
     private String hetuMetastoreType;
 
+    public HetuMetaStoreManager()
+    {
+        this.stateStoreProvider = Optional.empty();
+        this.exporter = Optional.empty();
+    }
+
+    @Inject
+    public HetuMetaStoreManager(StateStoreProvider stateStoreProvider, MBeanExporter exporter)
+    {
+        this.stateStoreProvider = Optional.of(requireNonNull(stateStoreProvider, "stateStoreProvider is null"));
+        this.exporter = Optional.of(requireNonNull(exporter, "exporter is null"));
+    }
+
     public void addHetuMetaStoreFactory(HetuMetaStoreFactory hetuMetaStoreFactory)
     {
         requireNonNull(hetuMetaStoreFactory, "hetuMetaStoreFactory is null");
@@ -67,11 +97,28 @@ public class HetuMetaStoreManager
             // create hetu metastore
             hetuMetastoreType = config.getOrDefault(HETU_METASTORE_TYPE_PROPERTY_NAME, HETU_METASTORE_TYPE_DEFAULT_VALUE);
             config.remove(HETU_METASTORE_TYPE_PROPERTY_NAME);
+            Duration cacheTtl = Duration.valueOf(config.getOrDefault(HETU_METASTORE_CACHE_TTL, HETU_METASTORE_CACHE_TTL_DEFAULT_VALUE));
+            Optional<Duration> cacheRefreshInterval = Optional.ofNullable(config.get(HETU_METASTORE_CACHE_REFRESH_INTERVAL)).map(Duration::valueOf);
+            long cacheMaximumSize = Long.parseLong(config.getOrDefault(HETU_METASTORE_CACHE_MAXIMUM_SIZE, HETU_METASTORE_CACHE_MAXIMUM_SIZE_DEFAULT_VALUE));
+            config.remove(HETU_METASTORE_CACHE_TTL);
+            config.remove(HETU_METASTORE_CACHE_REFRESH_INTERVAL);
+            config.remove(HETU_METASTORE_CACHE_MAXIMUM_SIZE);
             HetuMetaStoreFactory hetuMetaStoreFactory = hetuMetastoreFactories.get(hetuMetastoreType);
             checkState(hetuMetaStoreFactory != null, "hetuMetaStoreFactory %s is not registered", hetuMetaStoreFactory);
             try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(HetuMetaStoreFactory.class.getClassLoader())) {
                 hetuMetastore = hetuMetaStoreFactory.create(hetuMetastoreType, ImmutableMap.copyOf(config));
             }
+            if (cacheTtl.toMillis() > 0) {
+                CachingHetuMetastore cachingHetuMetastore = new CachingHetuMetastore(
+                        hetuMetastore,
+                        stateStoreProvider,
+                        newCachedThreadPool(daemonThreadsNamed("hetu-metastore-cache-%s")),
+                        OptionalLong.of(cacheTtl.toMillis()),
+                        cacheRefreshInterval.map(interval -> OptionalLong.of(interval.toMillis())).orElse(OptionalLong.empty()),
+                        cacheMaximumSize);
+                exporter.ifPresent(mbeanExporter -> mbeanExporter.exportWithGeneratedName(cachingHetuMetastore, HetuMetastore.class));
+                hetuMetastore = cachingHetuMetastore;
+            }
 
             LOG.info("-- Loaded Hetu Metastore %s --", hetuMetastoreType);
         }
@@ -15,21 +15,27 @@ package io.prestosql.operator;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
-import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.PartitioningSpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static io.prestosql.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static io.prestosql.operator.GroupByHash.createGroupByHash;
 import static java.util.Objects.requireNonNull;
@@ -48,6 +54,8 @@ public class DistinctLimitOperator
         private final Optional<Integer> hashChannel;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public DistinctLimitOperatorFactory(
                 int operatorId,
@@ -56,7 +64,9 @@ public class DistinctLimitOperator
                 List<Integer> distinctChannels,
                 long limit,
                 Optional<Integer> hashChannel,
-                JoinCompiler joinCompiler)
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -67,6 +77,8 @@ public class DistinctLimitOperator
             this.limit = limit;
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -77,7 +89,7 @@ public class DistinctLimitOperator
             List<Type> distinctTypes = distinctChannels.stream()
                     .map(sourceTypes::get)
                     .collect(toImmutableList());
-            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler);
+            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -89,30 +101,54 @@ public class DistinctLimitOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler);
+            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
     private Page inputPage;
     private long remainingLimit;
 
     private boolean finishing;
 
+    // the distinct channels followed by the hash channel, which the input pages are projected to
     private final List<Integer> outputChannels;
-    private final GroupByHash groupByHash;
+    private final List<Type> distinctTypes;
+    private final Optional<Integer> hashChannel;
+    private final long limit;
+    private final JoinCompiler joinCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private GroupByHash groupByHash;
     private long nextDistinctId;
 
     // for yield when memory is not available
     private GroupByIdBlock groupByIds;
     private Work<GroupByIdBlock> unfinishedWork;
 
-    public DistinctLimitOperator(OperatorContext operatorContext, List<Integer> distinctChannels, List<Type> distinctTypes, long limit, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
+    private DistinctSpiller spiller;
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+    private int unspilledPartitionCount;
+    private Iterator<Page> spilledDistinctValues;
+    private Iterator<Page> spilledRows;
+
+    public DistinctLimitOperator(
+            OperatorContext operatorContext,
+            List<Integer> distinctChannels,
+            List<Type> distinctTypes,
+            long limit,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
         requireNonNull(distinctChannels, "distinctChannels is null");
         checkArgument(limit >= 0, "limit must be at least zero");
         requireNonNull(hashChannel, "hashChannel is null");
@@ -122,14 +158,13 @@ public class DistinctLimitOperator
                 .addAll(hashChannel.map(ImmutableList::of).orElse(ImmutableList.of()))
                 .build();
 
-        this.groupByHash = createGroupByHash(
-                distinctTypes,
-                Ints.toArray(distinctChannels),
-                hashChannel,
-                Math.min((int) limit, 10_000),
-                isDictionaryAggregationEnabled(operatorContext.getSession()),
-                joinCompiler,
-                this::updateMemoryReservation);
+        this.distinctTypes = ImmutableList.copyOf(requireNonNull(distinctTypes, "distinctTypes is null"));
+        this.hashChannel = hashChannel;
+        this.limit = limit;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.groupByHash = newGroupByHash();
         remainingLimit = limit;
     }
 
@@ -142,28 +177,45 @@ public class DistinctLimitOperator
     @Override
     public void finish()
     {
-        finishing = true;
+        if (!finishing) {
+            finishing = true;
+            updateMemoryReservation();
+        }
     }
 
     @Override
     public boolean isFinished()
     {
-        return !hasUnfinishedInput() && (finishing || remainingLimit == 0);
+        return !hasUnfinishedInput() && spillInProgress.isDone() && ((finishing && !hasSpilledPages()) || remainingLimit == 0);
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress.isDone() ? NOT_BLOCKED : spillInProgress;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && remainingLimit > 0 && !hasUnfinishedInput();
+        return !finishing && remainingLimit > 0 && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
     public void addInput(Page page)
     {
         checkState(needsInput());
+        checkSuccess(spillInProgress, "spilling failed");
+
+        Page distinctValues = toDistinctValues(page);
+        if (spiller != null) {
+            // the hash was spilled, so the distinct rows can only be found once the input is finished
+            spillInProgress = spiller.spillRows(distinctValues);
+            return;
+        }
 
-        inputPage = page;
-        unfinishedWork = groupByHash.getGroupIds(page);
+        inputPage = distinctValues;
+        unfinishedWork = groupByHash.getGroupIds(distinctValues);
         processUnfinishedWork();
         updateMemoryReservation();
     }
@@ -171,6 +223,11 @@ public class DistinctLimitOperator
     @Override
     public Page getOutput()
     {
+        checkSuccess(spillInProgress, "spilling failed");
+        if (unfinishedWork == null && groupByIds == null && !unspillNextPage()) {
+            return null;
+        }
+
         if (unfinishedWork != null && !processUnfinishedWork()) {
             return null;
         }
@@ -179,7 +236,14 @@ public class DistinctLimitOperator
             return null;
         }
 
-        verify(inputPage != null);
+        if (inputPage == null) {
+            // spilled distinct values were added back to the hash
+            groupByIds = null;
+            nextDistinctId = groupByHash.getGroupCount();
+            updateMemoryReservation();
+            return null;
+        }
+
         int distinctCount = 0;
         int[] distinctPositions = new int[inputPage.getPositionCount()];
         for (int position = 0; position < groupByIds.getPositionCount(); position++) {
@@ -203,14 +267,114 @@ public class DistinctLimitOperator
         return result;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (finishing || spiller != null || hasUnfinishedInput() || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+
+        spiller = new DistinctSpiller(operatorContext, partitioningSpillerFactory, groupByHash.getTypes(), IntStream.range(0, distinctTypes.size()).boxed().collect(toImmutableList()), getDistinctValuesHashChannel());
+        spillInProgress = spiller.spillDistinctValues(groupByHash);
+        finishMemoryRevoke = () -> {
+            groupByHash = null;
+            updateMemoryReservation();
+        };
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        groupByHash = null;
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
+    /**
+     * Starts looking up the next spilled page, once the input is finished. The distinct values spilled from the hash
+     * are added back to a new hash before the rows of their partition are looked up in it.
+     *
+     * @return false if there is no spilled page to look up
+     */
+    private boolean unspillNextPage()
+    {
+        if (!finishing || spiller == null || !spillInProgress.isDone() || remainingLimit == 0) {
+            return false;
+        }
+        while (true) {
+            if (spilledDistinctValues != null && spilledDistinctValues.hasNext()) {
+                unfinishedWork = groupByHash.getGroupIds(spilledDistinctValues.next());
+                return true;
+            }
+            if (spilledRows != null && spilledRows.hasNext()) {
+                inputPage = spilledRows.next();
+                unfinishedWork = groupByHash.getGroupIds(inputPage);
+                return true;
+            }
+            if (unspilledPartitionCount == spiller.getPartitionCount()) {
+                spilledDistinctValues = null;
+                spilledRows = null;
+                groupByHash = null;
+                updateMemoryReservation();
+                return false;
+            }
+            groupByHash = newGroupByHash();
+            nextDistinctId = 0;
+            spilledDistinctValues = spiller.getSpilledDistinctValues(unspilledPartitionCount);
+            spilledRows = spiller.getSpilledRows(unspilledPartitionCount);
+            unspilledPartitionCount++;
+        }
+    }
+
+    private boolean hasSpilledPages()
+    {
+        return spiller != null && (unspilledPartitionCount < spiller.getPartitionCount() || spilledDistinctValues != null);
+    }
+
+    private GroupByHash newGroupByHash()
+    {
+        return createGroupByHash(
+                distinctTypes,
+                IntStream.range(0, distinctTypes.size()).toArray(),
+                getDistinctValuesHashChannel(),
+                Math.min((int) limit, 10_000),
+                isDictionaryAggregationEnabled(operatorContext.getSession()),
+                joinCompiler,
+                this::updateMemoryReservation);
+    }
+
+    private Optional<Integer> getDistinctValuesHashChannel()
+    {
+        return hashChannel.map(channel -> distinctTypes.size());
+    }
+
+    private Page toDistinctValues(Page page)
+    {
+        Block[] blocks = outputChannels.stream()
+                .map(page::getBlock)
+                .toArray(Block[]::new);
+        return new Page(page.getPositionCount(), blocks);
+    }
+
     private Page maskToDistinctOutputPositions(int distinctCount, int[] distinctPositions)
     {
         Page result = null;
         if (distinctCount > 0) {
-            Block[] blocks = outputChannels.stream()
-                    .map(inputPage::getBlock)
-                    .map(block -> block.getPositions(distinctPositions, 0, distinctCount))
-                    .toArray(Block[]::new);
+            Block[] blocks = new Block[inputPage.getChannelCount()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                blocks[channel] = inputPage.getBlock(channel).getPositions(distinctPositions, 0, distinctCount);
+            }
             result = new Page(distinctCount, blocks);
         }
         return result;
@@ -244,7 +408,15 @@ public class DistinctLimitOperator
     {
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(groupByHash.getEstimatedSize());
+        long bytes = groupByHash == null ? 0 : groupByHash.getEstimatedSize();
+        if (spillEnabled && !finishing) {
+            // the hash can be spilled until the input is finished
+            localRevocableMemoryContext.setBytes(bytes);
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(bytes);
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
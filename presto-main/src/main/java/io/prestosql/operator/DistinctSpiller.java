@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.operator.exchange.LocalPartitionGenerator;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PageBuilder;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.PartitioningSpiller;
+import io.prestosql.spiller.PartitioningSpillerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterators.singletonIterator;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spills the distinct values of a {@link GroupByHash} and the input rows coming after them, partitioned on
+ * the distinct channels, so that the rows can be deduplicated against the values one partition at a time.
+ * The values are spilled in the layout of the hash, that is the distinct channels followed by the hash channel if any.
+ */
+class DistinctSpiller
+        implements Closeable
+{
+    private static final int SPILL_PARTITIONS = 16;
+
+    private final PartitioningSpiller valuesSpiller;
+    private final PartitioningSpiller rowsSpiller;
+
+    DistinctSpiller(
+            OperatorContext operatorContext,
+            PartitioningSpillerFactory partitioningSpillerFactory,
+            List<Type> rowTypes,
+            List<Integer> distinctChannels,
+            Optional<Integer> hashChannel)
+    {
+        requireNonNull(operatorContext, "operatorContext is null");
+        requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        List<Type> distinctTypes = distinctChannels.stream()
+                .map(rowTypes::get)
+                .collect(toImmutableList());
+        ImmutableList.Builder<Type> valueTypes = ImmutableList.<Type>builder().addAll(distinctTypes);
+        hashChannel.ifPresent(channel -> valueTypes.add(BIGINT));
+
+        // both partition on the same values with the same hash function, so that equal values end up in the same partition
+        List<Integer> valueChannels = IntStream.range(0, distinctChannels.size()).boxed().collect(toImmutableList());
+        this.valuesSpiller = partitioningSpillerFactory.create(
+                valueTypes.build(),
+                new LocalPartitionGenerator(new InterpretedHashGenerator(distinctTypes, valueChannels), SPILL_PARTITIONS),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.newAggregateSystemMemoryContext());
+        this.rowsSpiller = partitioningSpillerFactory.create(
+                rowTypes,
+                new LocalPartitionGenerator(new InterpretedHashGenerator(distinctTypes, distinctChannels), SPILL_PARTITIONS),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.newAggregateSystemMemoryContext());
+    }
+
+    /**
+     * Spills the distinct values of the hash, which may not be modified until the returned future is done.
+     */
+    ListenableFuture<?> spillDistinctValues(GroupByHash groupByHash)
+    {
+        return valuesSpiller.partitionAndSpill(new AbstractIterator<Page>()
+        {
+            private final PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+            private int groupId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (groupId == groupByHash.getGroupCount()) {
+                    return endOfData();
+                }
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && groupId < groupByHash.getGroupCount()) {
+                    groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+                    pageBuilder.declarePosition();
+                    groupId++;
+                }
+                return pageBuilder.build();
+            }
+        });
+    }
+
+    ListenableFuture<?> spillRows(Page page)
+    {
+        return rowsSpiller.partitionAndSpill(singletonIterator(page));
+    }
+
+    int getPartitionCount()
+    {
+        return SPILL_PARTITIONS;
+    }
+
+    Iterator<Page> getSpilledDistinctValues(int partition)
+    {
+        return valuesSpiller.getSpilledPages(partition);
+    }
+
+    Iterator<Page> getSpilledRows(int partition)
+    {
+        return rowsSpiller.getSpilledPages(partition);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        try (Closer closer = Closer.create()) {
+            closer.register(valuesSpiller);
+            closer.register(rowsSpiller);
+        }
+    }
+}
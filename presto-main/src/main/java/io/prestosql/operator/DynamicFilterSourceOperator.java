@@ -15,16 +15,20 @@ package io.prestosql.operator;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.hash.BloomFilter;
-import com.google.common.hash.Funnels;
 import io.airlift.log.Logger;
 import io.airlift.node.NodeInfo;
 import io.airlift.units.DataSize;
+import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.operator.aggregation.TypedSet;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.DynamicFilterRange;
+import io.prestosql.spi.dynamicfilter.TypedBloomFilterDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedHashSetDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedRangeDynamicFilter;
 import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.predicate.ValueSet;
@@ -35,22 +39,22 @@ import io.prestosql.spi.type.Type;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.statestore.StateStoreProvider;
 import io.prestosql.utils.DynamicFilterUtils;
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
 import javax.annotation.Nullable;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static io.airlift.slice.SizeOf.sizeOfLongArray;
+import static io.prestosql.SystemSessionProperties.getDynamicFilteringBloomFilterFpp;
 import static io.prestosql.spi.type.TypeUtils.readNativeValue;
-import static io.prestosql.spi.type.TypeUtils.readNativeValueForDynamicFilter;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toSet;
 
@@ -64,6 +68,10 @@ public class DynamicFilterSourceOperator
 {
     private static final int EXPECTED_BLOCK_BUILDER_SIZE = 8;
     private static final int DEFAULT_DYNAMIC_FILTER_SIZE = 1024 * 1024;
+    private static final int HASH_SET_DATA_STRUCTURE = 1;
+    // the representation is chosen from the collected values, see createAdaptiveFilter
+    private static final int ADAPTIVE_DATA_STRUCTURE = 2;
+    private static final byte[] ABANDONED_FILTER = new byte[0];
     public static final Logger log = Logger.get(DynamicFilterSourceOperator.class);
 
     public static class Channel
@@ -172,6 +180,7 @@ public class DynamicFilterSourceOperator
     }
 
     private final OperatorContext context;
+    private final LocalMemoryContext memoryContext;
     private boolean finished;
     private Page current;
     private final Consumer<TupleDomain<String>> dynamicPredicateConsumer;
@@ -192,7 +201,13 @@ public class DynamicFilterSourceOperator
     private final StateStoreProvider stateStoreProvider;
     private long driverId;
     private boolean haveRegistered;
-    private Set<String>[] stringValueSets;
+    // Hashes of the collected values, null when the predicate became too large
+    @Nullable
+    private LongOpenHashSet[] valueHashSets;
+    // Empty for channels whose type can not be used for typed dynamic filters
+    private final Optional<TypedDynamicFilter.ValueKind>[] valueKinds;
+    // Min/max and the first few distinct values, null for channels whose type has no usable ordering
+    private final DynamicFilterRange[] valueRanges;
 
     /**
      * Constructor for the Dynamic Filter Source Operator
@@ -211,6 +226,7 @@ public class DynamicFilterSourceOperator
             StateStoreProvider stateStoreProvider)
     {
         this.context = requireNonNull(context, "context is null");
+        this.memoryContext = context.localUserMemoryContext();
         this.maxFilterPositionsCount = maxFilterPositionsCount;
         this.maxFilterSizeInBytes = maxFilterSize.toBytes();
         this.dynamicFilterDataStructure = dynamicFilterDataStructure;
@@ -221,9 +237,15 @@ public class DynamicFilterSourceOperator
 
         this.blockBuilders = new BlockBuilder[channels.size()];
         this.valueSets = new TypedSet[channels.size()];
-        this.stringValueSets = new Set[channels.size()];
-        for (int i = 0; i < stringValueSets.length; i++) {
-            stringValueSets[i] = new HashSet<>();
+        this.valueHashSets = new LongOpenHashSet[channels.size()];
+        this.valueKinds = new Optional[channels.size()];
+        this.valueRanges = new DynamicFilterRange[channels.size()];
+        for (int i = 0; i < valueHashSets.length; i++) {
+            valueHashSets[i] = new LongOpenHashSet();
+            valueKinds[i] = TypedDynamicFilter.ValueKind.of(channels.get(i).type);
+            if (valueKinds[i].isPresent() && TypedDynamicFilter.isRangeSupported(channels.get(i).type)) {
+                valueRanges[i] = new DynamicFilterRange(valueKinds[i].get());
+            }
         }
 
         for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
@@ -267,51 +289,69 @@ public class DynamicFilterSourceOperator
             return;  // the predicate became too large.
         }
 
-        // TODO: we should account for the memory used for collecting build-side values using MemoryContext
         long filterSizeInBytes = 0;
+        long hashSetsSizeInBytes = 0;
         int filterPositionsCount = 0;
         // Collect only the columns which are relevant for the JOIN.
-        outer:
         for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
             Block block = page.getBlock(channels.get(channelIndex).index);
             TypedSet valueSet = valueSets[channelIndex];
             Type columnType = channels.get(channelIndex).type;
+            if (!valueKinds[channelIndex].isPresent()) {
+                handleTooLargePredicate();  // TODO: 1/7/20 rename this method as reset bloom filter etc
+                return;
+            }
+            TypedDynamicFilter.ValueKind valueKind = valueKinds[channelIndex].get();
+            LongOpenHashSet valueHashSet = valueHashSets[channelIndex];
+            DynamicFilterRange valueRange = valueRanges[channelIndex];
             for (int position = 0; position < block.getPositionCount(); ++position) {
-                String value = readNativeValueForDynamicFilter(columnType, block, position);
-                if (value == null) {
-                    handleTooLargePredicate();  // TODO: 1/7/20 rename this method as reset bloom filter etc
-                    break outer;
+                // Inner and right join doesn't match rows with null key column values.
+                if (!block.isNull(position)) {
+                    valueHashSet.add(TypedDynamicFilter.hash(columnType, valueKind, block, position));
+                    if (valueRange != null) {
+                        valueRange.add(columnType, block, position);
+                    }
                 }
-                stringValueSets[channelIndex].add(value);
                 if (filterType == DynamicFilter.Type.LOCAL) {
                     valueSet.add(block, position);
                 }
             }
 
+            hashSetsSizeInBytes += getEstimatedSizeInBytes(valueHashSet);
             if (filterType == DynamicFilter.Type.LOCAL) {
                 filterSizeInBytes += valueSet.getRetainedSizeInBytes();
                 filterPositionsCount += valueSet.size();
             }
-            else {
-                filterPositionsCount += stringValueSets[channelIndex].size();
+            else if (dynamicFilterDataStructure != ADAPTIVE_DATA_STRUCTURE) {
+                filterPositionsCount += valueHashSet.size();
             }
         }
+        memoryContext.setBytes(filterSizeInBytes + hashSetsSizeInBytes);
         if (filterPositionsCount > maxFilterPositionsCount || filterSizeInBytes > maxFilterSizeInBytes) {
             // The whole filter (summed over all columns) contains too much values or exceeds maxFilterSizeInBytes.
-            //log.info("filter positions count too large");
             handleTooLargePredicate();
         }
+        else if (dynamicFilterDataStructure == ADAPTIVE_DATA_STRUCTURE && hashSetsSizeInBytes > maxFilterSizeInBytes) {
+            // The collected hashes exceed the memory budget, give up early instead of building a filter that is unlikely to be selective.
+            handleTooLargePredicate();
+        }
+    }
+
+    private static long getEstimatedSizeInBytes(LongOpenHashSet valueHashSet)
+    {
+        return sizeOfLongArray(HashCommon.arraySize(valueHashSet.size(), Hash.DEFAULT_LOAD_FACTOR));
     }
 
     private void handleTooLargePredicate()
     {
-        stringValueSets = null;
+        valueHashSets = null;
         // The resulting predicate is too large, allow all probe-side values to be read.
         dynamicPredicateConsumer.accept(TupleDomain.all());
 
         // Drop references to collected values.
         valueSets = null;
         blockBuilders = null;
+        memoryContext.setBytes(0);
     }
 
     @Override
@@ -331,10 +371,13 @@ public class DynamicFilterSourceOperator
         }
         finished = true;
         if (valueSets == null) {
-            return; // the predicate became too large.
+            // the predicate became too large, let the coordinator drop the dynamic filters right away
+            abandonDynamicFilterTask();
+            return;
         }
 
         finishDynamicFilterTask();
+        memoryContext.setBytes(0);
         if (filterType == DynamicFilter.Type.GLOBAL) {
             valueSets = null;
             blockBuilders = null;
@@ -383,6 +426,7 @@ public class DynamicFilterSourceOperator
                 stateStoreProvider.getStateStore().createStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.PARTIALPREFIX, channel.filterId, queryId), StateCollection.Type.SET);
                 stateStoreProvider.getStateStore().createStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.FINISHREFIX, channel.filterId, queryId), StateCollection.Type.SET);
                 stateStoreProvider.getStateStore().createStateCollection(DynamicFilterUtils.DFTYPEMAP, StateCollection.Type.MAP);
+                stateStoreProvider.getStateStore().createStateCollection(DynamicFilterUtils.FINISHMAP, StateCollection.Type.MAP);
                 ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.REGISTERPREFIX, channel.filterId, queryId))).add(driverId);
                 this.haveRegistered = true;
             }
@@ -399,6 +443,11 @@ public class DynamicFilterSourceOperator
         }
         for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
             Channel channel = channels.get(channelIndex);
+            if (!valueKinds[channelIndex].isPresent()) {
+                // values of this channel can not be collected, same as a too large predicate
+                publishPartialResult(channel, ABANDONED_FILTER);
+                continue;
+            }
             String id = channel.filterId;
             String key = DynamicFilterUtils.createKey(DynamicFilterUtils.PARTIALPREFIX, id, channel.queryId);
             String typeKey = DynamicFilterUtils.createKey(DynamicFilterUtils.TYPEPREFIX, id, channel.queryId);
@@ -406,38 +455,74 @@ public class DynamicFilterSourceOperator
             String dynamicFilterType = "";
             dynamicFilterType = getSetType(typeKey);
 
+            TypedDynamicFilter.ValueKind valueKind = valueKinds[channelIndex].get();
+            LongOpenHashSet valueHashSet = valueHashSets[channelIndex];
             if (dynamicFilterType.equals(DynamicFilterUtils.BLOOMFILTERTYPEGLOBAL) || dynamicFilterType.equals(DynamicFilterUtils.BLOOMFILTERTYPELOCAL)) {
-                log.debug("creating new bloomfilter dynamic filter for size of: " + stringValueSets[channelIndex].size() + key + "     " + driverId);
-                byte[] finalOutput = createBloomFilter(stringValueSets[channelIndex]);
-                if (finalOutput != null) {
-                    ((StateSet) stateStoreProvider.getStateStore().getStateCollection(key)).add(finalOutput);
-                }
+                log.debug("creating new bloomfilter dynamic filter for size of: " + valueHashSet.size() + key + "     " + driverId);
+                publishPartialResult(channel, createBloomFilter(id, valueKind, valueHashSet, valueRanges[channelIndex]));
+            }
+            else if (dynamicFilterType.equals(DynamicFilterUtils.ADAPTIVETYPEGLOBAL) || dynamicFilterType.equals(DynamicFilterUtils.ADAPTIVETYPELOCAL)) {
+                log.debug("creating new adaptive dynamic filter for size of: " + valueHashSet.size() + key + "     " + driverId);
+                publishPartialResult(channel, createAdaptiveFilter(id, valueKind, valueHashSet, valueRanges[channelIndex]));
             }
             else {
-                log.debug("creating new string set dynamic filter for size of: " + stringValueSets[channelIndex].size() + key + "     " + driverId);
-                ((StateSet) stateStoreProvider.getStateStore().getStateCollection(key))
-                        .add(stringValueSets[channelIndex]);
+                log.debug("creating new hash set dynamic filter for size of: " + valueHashSet.size() + key + "     " + driverId);
+                TypedHashSetDynamicFilter hashSetFilter = new TypedHashSetDynamicFilter(id, null, valueKind, valueHashSet.toLongArray(), filterType);
+                hashSetFilter.setValueRange(valueRanges[channelIndex]);
+                publishPartialResult(channel, hashSetFilter.serialize());
             }
-            ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.FINISHREFIX, channel.filterId, channel.queryId))).add(driverId);
-            ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.WORKERSPREFIX, channel.filterId, channel.queryId))).add(nodeInfo.getNodeId());
         }
     }
 
-    public byte[] createBloomFilter(Set<String> stringValueSet)
+    /**
+     * Publish an empty partial result for every dynamic filter, the coordinator drops a dynamic filter
+     * as soon as one of its build side drivers gave up collecting the values
+     */
+    private void abandonDynamicFilterTask()
     {
-        byte[] finalOutput = null;
-        BloomFilter bloomFilter = BloomFilter.create(Funnels.stringFunnel(Charset.defaultCharset()), DEFAULT_DYNAMIC_FILTER_SIZE, 0.1);
-        for (String value : stringValueSet) {
-            bloomFilter.put(value);
+        if (!haveRegistered) {
+            return;
         }
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            bloomFilter.writeTo(out);
-            finalOutput = out.toByteArray();
+        for (Channel channel : channels) {
+            publishPartialResult(channel, ABANDONED_FILTER);
+        }
+    }
+
+    private void publishPartialResult(Channel channel, byte[] partialResult)
+    {
+        ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.PARTIALPREFIX, channel.filterId, channel.queryId)))
+                .add(partialResult);
+        ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.FINISHREFIX, channel.filterId, channel.queryId))).add(driverId);
+        ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.WORKERSPREFIX, channel.filterId, channel.queryId))).add(nodeInfo.getNodeId());
+        // notify the coordinator, which merges the filter as soon as the last driver has finished
+        ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.FINISHMAP))
+                .put(DynamicFilterUtils.createKey(DynamicFilterUtils.FINISHREFIX, channel.filterId, channel.queryId), String.valueOf(driverId));
+    }
+
+    /**
+     * Dense integer values are published as their range, other values as their exact hashes. The coordinator
+     * turns the merged hashes into a bloom filter sized from the total number of values when there are many of them.
+     */
+    private byte[] createAdaptiveFilter(String filterId, TypedDynamicFilter.ValueKind valueKind, LongOpenHashSet valueHashSet, @Nullable DynamicFilterRange valueRange)
+    {
+        if (valueRange != null && TypedRangeDynamicFilter.isDense(valueRange, valueHashSet.size())) {
+            return new TypedRangeDynamicFilter(filterId, null, valueRange, filterType).serialize();
         }
-        catch (IOException e) {
-            log.error("could not  finish filter, Exception happened:" + e.getMessage());
+        TypedHashSetDynamicFilter hashSetFilter = new TypedHashSetDynamicFilter(filterId, null, valueKind, valueHashSet.toLongArray(), filterType);
+        hashSetFilter.setValueRange(valueRange);
+        return hashSetFilter.serialize();
+    }
+
+    public byte[] createBloomFilter(String filterId, TypedDynamicFilter.ValueKind valueKind, LongOpenHashSet valueHashSet, @Nullable DynamicFilterRange valueRange)
+    {
+        TypedBloomFilterDynamicFilter bloomFilter = TypedBloomFilterDynamicFilter.create(filterId, null, valueKind, DEFAULT_DYNAMIC_FILTER_SIZE,
+                getDynamicFilteringBloomFilterFpp(context.getSession()), filterType);
+        LongIterator iterator = valueHashSet.iterator();
+        while (iterator.hasNext()) {
+            bloomFilter.put(iterator.nextLong());
         }
-        return finalOutput;
+        bloomFilter.setValueRange(valueRange);
+        return bloomFilter.serialize();
     }
 
     public String getSetType(String key)
@@ -446,12 +531,18 @@ public class DynamicFilterSourceOperator
         if (filterType == DynamicFilter.Type.LOCAL) {
             type = DynamicFilterUtils.BLOOMFILTERTYPELOCAL;
         }
-        if (dynamicFilterDataStructure == 1) {
+        if (dynamicFilterDataStructure == HASH_SET_DATA_STRUCTURE) {
             type = DynamicFilterUtils.HASHSETTYPEGLOBAL;
             if (filterType == DynamicFilter.Type.LOCAL) {
                 type = DynamicFilterUtils.HASHSETTYPELOCAL;
             }
         }
+        else if (dynamicFilterDataStructure == ADAPTIVE_DATA_STRUCTURE) {
+            type = DynamicFilterUtils.ADAPTIVETYPEGLOBAL;
+            if (filterType == DynamicFilter.Type.LOCAL) {
+                type = DynamicFilterUtils.ADAPTIVETYPELOCAL;
+            }
+        }
         ((StateMap) stateStoreProvider.getStateStore()
                 .getStateCollection(DynamicFilterUtils.DFTYPEMAP)).put(key, type);
         return type;
@@ -13,7 +13,6 @@
  */
 package io.prestosql.operator;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
@@ -117,7 +116,6 @@ public class GroupedTopNBuilder
                 emptyPageReferenceSlots.getEstimatedSizeInBytes();
     }
 
-    @VisibleForTesting
     List<Page> getBufferedPages()
     {
         return IntStream.range(0, currentPageCount)
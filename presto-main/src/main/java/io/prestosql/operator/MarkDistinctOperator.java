@@ -16,19 +16,26 @@ package io.prestosql.operator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.type.Type;
+import io.prestosql.spiller.PartitioningSpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static java.util.Objects.requireNonNull;
 
@@ -44,6 +51,8 @@ public class MarkDistinctOperator
         private final List<Integer> markDistinctChannels;
         private final List<Type> types;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
         private boolean closed;
 
         public MarkDistinctOperatorFactory(
@@ -52,7 +61,9 @@ public class MarkDistinctOperator
                 List<? extends Type> sourceTypes,
                 Collection<Integer> markDistinctChannels,
                 Optional<Integer> hashChannel,
-                JoinCompiler joinCompiler)
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -60,6 +71,8 @@ public class MarkDistinctOperator
             checkArgument(!markDistinctChannels.isEmpty(), "markDistinctChannels is empty");
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
             this.types = ImmutableList.<Type>builder()
                     .addAll(sourceTypes)
                     .add(BOOLEAN)
@@ -71,7 +84,7 @@ public class MarkDistinctOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MarkDistinctOperator.class.getSimpleName());
-            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -83,13 +96,25 @@ public class MarkDistinctOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
-    private final MarkDistinctHash markDistinctHash;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+
+    private final List<Type> sourceTypes;
+    private final List<Type> distinctTypes;
+    private final List<Integer> markDistinctChannels;
+    private final Optional<Integer> hashChannel;
+    // the distinct channels followed by the hash channel, which the hash is built on
+    private final int[] distinctValueChannels;
+    private final JoinCompiler joinCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+
+    private MarkDistinctHash markDistinctHash;
 
     private Page inputPage;
     private boolean finishing;
@@ -97,19 +122,44 @@ public class MarkDistinctOperator
     // for yield when memory is not available
     private Work<Block> unfinishedWork;
 
-    public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, List<Integer> markDistinctChannels, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
+    private DistinctSpiller spiller;
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+    private int unspilledPartitionCount;
+    private Iterator<Page> spilledDistinctValues;
+    private Iterator<Page> spilledRows;
+
+    public MarkDistinctOperator(
+            OperatorContext operatorContext,
+            List<Type> types,
+            List<Integer> markDistinctChannels,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
 
-        requireNonNull(hashChannel, "hashChannel is null");
-        requireNonNull(markDistinctChannels, "markDistinctChannels is null");
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.markDistinctChannels = ImmutableList.copyOf(requireNonNull(markDistinctChannels, "markDistinctChannels is null"));
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
 
+        // the types of the input rows, without the marker column
+        this.sourceTypes = ImmutableList.copyOf(types.subList(0, types.size() - 1));
         ImmutableList.Builder<Type> distinctTypes = ImmutableList.builder();
+        ImmutableList.Builder<Integer> distinctValueChannels = ImmutableList.builder();
         for (int channel : markDistinctChannels) {
             distinctTypes.add(types.get(channel));
+            distinctValueChannels.add(channel);
         }
-        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), distinctTypes.build(), Ints.toArray(markDistinctChannels), hashChannel, joinCompiler, this::updateMemoryReservation);
-        this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        hashChannel.ifPresent(distinctValueChannels::add);
+        this.distinctTypes = distinctTypes.build();
+        this.distinctValueChannels = Ints.toArray(distinctValueChannels.build());
+        this.markDistinctHash = createMarkDistinctHash();
     }
 
     @Override
@@ -121,19 +171,28 @@ public class MarkDistinctOperator
     @Override
     public void finish()
     {
-        finishing = true;
+        if (!finishing) {
+            finishing = true;
+            updateMemoryReservation();
+        }
     }
 
     @Override
     public boolean isFinished()
     {
-        return finishing && !hasUnfinishedInput();
+        return finishing && !hasUnfinishedInput() && spillInProgress.isDone() && !hasSpilledPages();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return spillInProgress.isDone() ? NOT_BLOCKED : spillInProgress;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
@@ -141,34 +200,139 @@ public class MarkDistinctOperator
     {
         requireNonNull(page, "page is null");
         checkState(needsInput());
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (spiller != null) {
+            // the hash was spilled, so the rows can only be marked against it once the input is finished
+            spillInProgress = spiller.spillRows(page);
+            return;
+        }
 
         inputPage = page;
 
-        unfinishedWork = markDistinctHash.markDistinctRows(page);
+        unfinishedWork = markDistinctHash.markDistinctRows(toDistinctValues(page));
         updateMemoryReservation();
     }
 
     @Override
     public Page getOutput()
     {
-        if (unfinishedWork == null) {
+        checkSuccess(spillInProgress, "spilling failed");
+        if (unfinishedWork == null && !unspillNextPage()) {
             return null;
         }
 
         if (!unfinishedWork.process()) {
             return null;
         }
+        Block marks = unfinishedWork.getResult();
+        unfinishedWork = null;
+
+        if (inputPage == null) {
+            // spilled distinct values were added back to the hash
+            updateMemoryReservation();
+            return null;
+        }
 
         // add the new boolean column to the page
-        Page outputPage = inputPage.appendColumn(unfinishedWork.getResult());
+        Page outputPage = inputPage.appendColumn(marks);
 
-        unfinishedWork = null;
         inputPage = null;
 
         updateMemoryReservation();
         return outputPage;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (finishing || spiller != null || hasUnfinishedInput() || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+
+        spiller = new DistinctSpiller(operatorContext, partitioningSpillerFactory, sourceTypes, markDistinctChannels, hashChannel);
+        spillInProgress = spiller.spillDistinctValues(markDistinctHash.getGroupByHash());
+        finishMemoryRevoke = () -> {
+            markDistinctHash = null;
+            updateMemoryReservation();
+        };
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        markDistinctHash = null;
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
+    /**
+     * Starts marking the next spilled page, once the input is finished. The distinct values spilled from the hash
+     * are added back to a new hash before the rows of their partition are marked against them.
+     *
+     * @return false if there is no spilled page to mark
+     */
+    private boolean unspillNextPage()
+    {
+        if (!finishing || spiller == null || !spillInProgress.isDone()) {
+            return false;
+        }
+        while (true) {
+            if (spilledDistinctValues != null && spilledDistinctValues.hasNext()) {
+                unfinishedWork = markDistinctHash.markDistinctRows(spilledDistinctValues.next());
+                return true;
+            }
+            if (spilledRows != null && spilledRows.hasNext()) {
+                inputPage = spilledRows.next();
+                unfinishedWork = markDistinctHash.markDistinctRows(toDistinctValues(inputPage));
+                return true;
+            }
+            if (unspilledPartitionCount == spiller.getPartitionCount()) {
+                spilledDistinctValues = null;
+                spilledRows = null;
+                markDistinctHash = null;
+                updateMemoryReservation();
+                return false;
+            }
+            markDistinctHash = createMarkDistinctHash();
+            spilledDistinctValues = spiller.getSpilledDistinctValues(unspilledPartitionCount);
+            spilledRows = spiller.getSpilledRows(unspilledPartitionCount);
+            unspilledPartitionCount++;
+        }
+    }
+
+    private boolean hasSpilledPages()
+    {
+        return spiller != null && (unspilledPartitionCount < spiller.getPartitionCount() || spilledDistinctValues != null);
+    }
+
+    private MarkDistinctHash createMarkDistinctHash()
+    {
+        int[] channels = IntStream.range(0, distinctTypes.size()).toArray();
+        Optional<Integer> valuesHashChannel = hashChannel.map(channel -> distinctTypes.size());
+        return new MarkDistinctHash(operatorContext.getSession(), distinctTypes, channels, valuesHashChannel, joinCompiler, this::updateMemoryReservation);
+    }
+
+    private Page toDistinctValues(Page page)
+    {
+        Block[] blocks = new Block[distinctValueChannels.length];
+        for (int i = 0; i < distinctValueChannels.length; i++) {
+            blocks[i] = page.getBlock(distinctValueChannels[i]);
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
@@ -186,7 +350,15 @@ public class MarkDistinctOperator
     {
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+        long bytes = markDistinctHash == null ? 0 : markDistinctHash.getEstimatedSize();
+        if (spillEnabled && !finishing) {
+            // the hash can be spilled until the input is finished
+            localRevocableMemoryContext.setBytes(bytes);
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(bytes);
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
@@ -17,6 +17,7 @@ import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import io.prestosql.operator.PartitionedOutputOperator.PartitionedOutputInfo;
 import io.prestosql.operator.TableWriterOperator.TableWriterInfo;
+import io.prestosql.operator.dynamicfilter.CrossRegionDynamicFilterInfo;
 import io.prestosql.operator.exchange.LocalExchangeBufferInfo;
 
 @JsonTypeInfo(
@@ -32,7 +33,8 @@ import io.prestosql.operator.exchange.LocalExchangeBufferInfo;
         @JsonSubTypes.Type(value = PartitionedOutputInfo.class, name = "partitionedOutput"),
         @JsonSubTypes.Type(value = JoinOperatorInfo.class, name = "joinOperatorInfo"),
         @JsonSubTypes.Type(value = WindowInfo.class, name = "windowInfo"),
-        @JsonSubTypes.Type(value = TableWriterInfo.class, name = "tableWriter")})
+        @JsonSubTypes.Type(value = TableWriterInfo.class, name = "tableWriter"),
+        @JsonSubTypes.Type(value = CrossRegionDynamicFilterInfo.class, name = "crossRegionDynamicFilter")})
 public interface OperatorInfo
 {
     /**
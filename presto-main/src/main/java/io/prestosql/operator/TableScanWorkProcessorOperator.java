@@ -28,11 +28,13 @@ import io.prestosql.spi.Page;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.UpdatablePageSource;
+import io.prestosql.spi.dynamicfilter.DynamicFilter;
 import io.prestosql.split.PageSourceProvider;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
@@ -57,12 +59,25 @@ public class TableScanWorkProcessorOperator
             PageSourceProvider pageSourceProvider,
             TableHandle table,
             Iterable<ColumnHandle> columns)
+    {
+        this(session, memoryTrackingContext, splits, pageSourceProvider, table, columns, null);
+    }
+
+    public TableScanWorkProcessorOperator(
+            Session session,
+            MemoryTrackingContext memoryTrackingContext,
+            WorkProcessor<Split> splits,
+            PageSourceProvider pageSourceProvider,
+            TableHandle table,
+            Iterable<ColumnHandle> columns,
+            Supplier<Map<ColumnHandle, DynamicFilter>> dynamicFilterSupplier)
     {
         this.splitToPages = new SplitToPages(
                 session,
                 pageSourceProvider,
                 table,
                 columns,
+                dynamicFilterSupplier,
                 memoryTrackingContext.aggregateSystemMemoryContext());
         this.pages = splits.flatTransform(splitToPages);
     }
@@ -123,6 +138,7 @@ public class TableScanWorkProcessorOperator
         final PageSourceProvider pageSourceProvider;
         final TableHandle table;
         final List<ColumnHandle> columns;
+        final Supplier<Map<ColumnHandle, DynamicFilter>> dynamicFilterSupplier;
         final AggregatedMemoryContext aggregatedMemoryContext;
 
         long processedBytes;
@@ -135,12 +151,14 @@ public class TableScanWorkProcessorOperator
                 PageSourceProvider pageSourceProvider,
                 TableHandle table,
                 Iterable<ColumnHandle> columns,
+                Supplier<Map<ColumnHandle, DynamicFilter>> dynamicFilterSupplier,
                 AggregatedMemoryContext aggregatedMemoryContext)
         {
             this.session = requireNonNull(session, "session is null");
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.table = requireNonNull(table, "table is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+            this.dynamicFilterSupplier = dynamicFilterSupplier;
             this.aggregatedMemoryContext = requireNonNull(aggregatedMemoryContext, "aggregatedMemoryContext is null");
         }
 
@@ -152,7 +170,7 @@ public class TableScanWorkProcessorOperator
             }
 
             checkState(source == null, "Table scan split already set");
-            source = pageSourceProvider.createPageSource(session, split, table, columns, null);
+            source = pageSourceProvider.createPageSource(session, split, table, columns, dynamicFilterSupplier);
             return TransformationState.ofResult(
                     WorkProcessor.create(new ConnectorPageSourceToPages(aggregatedMemoryContext, source))
                             .map(page -> {
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.dynamicfilter;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.operator.OperatorInfo;
+import io.prestosql.util.Mergeable;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Rows and estimated bytes which were not sent to the other data center thanks to each of its dynamic filters,
+ * keyed by output column name
+ */
+@Immutable
+public class CrossRegionDynamicFilterInfo
+        implements Mergeable<CrossRegionDynamicFilterInfo>, OperatorInfo
+{
+    private final Map<String, Long> filteredPositions;
+    private final Map<String, Long> filteredBytes;
+
+    @JsonCreator
+    public CrossRegionDynamicFilterInfo(
+            @JsonProperty("filteredPositions") Map<String, Long> filteredPositions,
+            @JsonProperty("filteredBytes") Map<String, Long> filteredBytes)
+    {
+        this.filteredPositions = ImmutableMap.copyOf(requireNonNull(filteredPositions, "filteredPositions is null"));
+        this.filteredBytes = ImmutableMap.copyOf(requireNonNull(filteredBytes, "filteredBytes is null"));
+    }
+
+    @JsonProperty
+    public Map<String, Long> getFilteredPositions()
+    {
+        return filteredPositions;
+    }
+
+    @JsonProperty
+    public Map<String, Long> getFilteredBytes()
+    {
+        return filteredBytes;
+    }
+
+    @Override
+    public CrossRegionDynamicFilterInfo mergeWith(CrossRegionDynamicFilterInfo other)
+    {
+        return new CrossRegionDynamicFilterInfo(merge(filteredPositions, other.filteredPositions), merge(filteredBytes, other.filteredBytes));
+    }
+
+    @Override
+    public boolean isFinal()
+    {
+        return true;
+    }
+
+    private static Map<String, Long> merge(Map<String, Long> first, Map<String, Long> second)
+    {
+        Map<String, Long> merged = new HashMap<>(first);
+        second.forEach((column, value) -> merged.merge(column, value, Long::sum));
+        return merged;
+    }
+}
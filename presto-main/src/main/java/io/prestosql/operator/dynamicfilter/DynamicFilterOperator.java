@@ -14,8 +14,7 @@
  */
 package io.prestosql.operator.dynamicfilter;
 
-import com.google.common.hash.BloomFilter;
-import com.google.common.hash.Funnels;
+import com.google.common.collect.ImmutableMap;
 import io.prestosql.operator.DriverContext;
 import io.prestosql.operator.Operator;
 import io.prestosql.operator.OperatorContext;
@@ -24,26 +23,31 @@ import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.LazyBlock;
 import io.prestosql.spi.block.LazyBlockLoader;
+import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.DynamicFilterFactory;
 import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.type.Type;
-import io.prestosql.spi.type.TypeUtils;
 import io.prestosql.sql.planner.Symbol;
 import io.prestosql.sql.planner.TypeProvider;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.statestore.StateStoreProvider;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.prestosql.statestore.StateStoreConstants.CROSS_REGION_DYNAMIC_FILTER_COLLECTION;
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Applies the dynamic filters sent by another data center to the output of a query.
+ * The filters are keyed by the output column names, which are the column names known to the other data center.
+ */
 public class DynamicFilterOperator
         implements Operator
 {
@@ -55,14 +59,22 @@ public class DynamicFilterOperator
         private final String queryId;
         private final StateStoreProvider stateStoreProvider;
         private final List<Symbol> symbols;
+        private final List<String> columnNames;
         private final TypeProvider typeProvider;
 
         public DynamicFilterOperatorFactory(int operatorId, PlanNodeId planNodeId, String queryId, List<Symbol> symbols, TypeProvider typeProvider, StateStoreProvider stateStoreProvider)
+        {
+            this(operatorId, planNodeId, queryId, symbols, symbols.stream().map(Symbol::getName).collect(toImmutableList()), typeProvider, stateStoreProvider);
+        }
+
+        public DynamicFilterOperatorFactory(int operatorId, PlanNodeId planNodeId, String queryId, List<Symbol> symbols, List<String> columnNames, TypeProvider typeProvider, StateStoreProvider stateStoreProvider)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
             this.queryId = requireNonNull(queryId, "queryId is null");
             this.symbols = requireNonNull(symbols, "symbols is null");
+            this.columnNames = requireNonNull(columnNames, "columnNames is null");
+            checkArgument(symbols.size() == columnNames.size(), "symbols and columnNames sizes don't match");
             this.typeProvider = requireNonNull(typeProvider, "typeProvider is null");
             this.stateStoreProvider = stateStoreProvider;
         }
@@ -71,7 +83,7 @@ public class DynamicFilterOperator
         public Operator createOperator(DriverContext driverContext)
         {
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, DynamicFilterOperator.class.getSimpleName());
-            return new DynamicFilterOperator(operatorContext, queryId, symbols, typeProvider, stateStoreProvider);
+            return new DynamicFilterOperator(operatorContext, queryId, symbols, columnNames, typeProvider, stateStoreProvider);
         }
 
         @Override
@@ -82,7 +94,7 @@ public class DynamicFilterOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new DynamicFilterOperatorFactory(operatorId, planNodeId, queryId, symbols, typeProvider, stateStoreProvider);
+            return new DynamicFilterOperatorFactory(operatorId, planNodeId, queryId, symbols, columnNames, typeProvider, stateStoreProvider);
         }
     }
 
@@ -90,17 +102,20 @@ public class DynamicFilterOperator
     private boolean finished;
     private Page currentPage;
     private final String queryId;
-    private final List<Symbol> symbols;
+    private final List<String> columnNames;
     private final StateStoreProvider stateStoreProvider;
     private final Map<Integer, Type> columnTypes = new HashMap<>();
-    private Map<Integer, BloomFilter> bloomFilterMap = new HashMap<>();
+    private Map<Integer, DynamicFilter> bloomFilterMap = new HashMap<>();
+    private final Map<String, Long> filteredPositions = new ConcurrentHashMap<>();
+    private final Map<String, Long> filteredBytes = new ConcurrentHashMap<>();
 
-    public DynamicFilterOperator(OperatorContext operatorContext, String queryId, List<Symbol> symbols, TypeProvider typeProvider, StateStoreProvider stateStoreProvider)
+    public DynamicFilterOperator(OperatorContext operatorContext, String queryId, List<Symbol> symbols, List<String> columnNames, TypeProvider typeProvider, StateStoreProvider stateStoreProvider)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.queryId = queryId;
         this.stateStoreProvider = stateStoreProvider;
-        this.symbols = symbols;
+        this.columnNames = columnNames;
+        operatorContext.setInfoSupplier(this::getInfo);
 
         // Map column types to index
         for (int i = 0; i < symbols.size(); i++) {
@@ -138,14 +153,14 @@ public class DynamicFilterOperator
         if (stateStoreProvider.getStateStore() != null) {
             StateMap<String, byte[]> bloomFilters = (StateMap<String, byte[]>) stateStoreProvider.getStateStore().getStateCollection(queryId + CROSS_REGION_DYNAMIC_FILTER_COLLECTION);
             if (bloomFilters != null && bloomFilters.size() > bloomFilterMap.size()) {
-                for (int i = 0; i < symbols.size(); i++) {
-                    Symbol symbol = symbols.get(i);
-                    if (bloomFilters.containsKey(symbol.getName()) && !bloomFilterMap.containsKey(i)) {
+                for (int i = 0; i < columnNames.size(); i++) {
+                    String columnName = columnNames.get(i);
+                    if (columnName != null && !bloomFilterMap.containsKey(i) && bloomFilters.containsKey(columnName)) {
                         // Deserialize new bloomfilters
-                        try (ByteArrayInputStream input = new ByteArrayInputStream(bloomFilters.get(symbol.getName()))) {
-                            bloomFilterMap.put(i, BloomFilter.readFrom(input, Funnels.stringFunnel(Charset.defaultCharset())));
+                        try {
+                            bloomFilterMap.put(i, DynamicFilterFactory.createTyped(columnName, null, bloomFilters.get(columnName), DynamicFilter.Type.GLOBAL));
                         }
-                        catch (IOException e) {
+                        catch (RuntimeException e) {
                             // ignore the bloomfilter if broken
                         }
                     }
@@ -194,32 +209,56 @@ public class DynamicFilterOperator
 
     private IntArrayList filterRows(Page page)
     {
-        IntArrayList ids = new IntArrayList(page.getPositionCount());
-
-        for (int position = 0; position < page.getPositionCount(); position++) {
-            boolean shouldKeep = true;
-            for (Map.Entry<Integer, BloomFilter> entry : bloomFilterMap.entrySet()) {
-                int columnIndex = entry.getKey();
+        int[] positions = new int[page.getPositionCount()];
+        int positionCount = page.getPositionCount();
+        for (int position = 0; position < positionCount; position++) {
+            positions[position] = position;
+        }
 
-                if (columnIndex >= page.getChannelCount()) {
-                    // Index out of array range
-                    continue;
-                }
+        Map<Integer, Integer> filteredByColumn = new HashMap<>();
+        for (Map.Entry<Integer, DynamicFilter> entry : bloomFilterMap.entrySet()) {
+            int columnIndex = entry.getKey();
 
-                Block block = page.getBlock(columnIndex).getLoadedBlock();
-                String nativeValue = TypeUtils.readNativeValueForDynamicFilter(columnTypes.get(columnIndex), block, position);
+            if (columnIndex >= page.getChannelCount()) {
+                // Index out of array range
+                continue;
+            }
 
-                if (nativeValue != null && !entry.getValue().mightContain(nativeValue)) {
-                    shouldKeep = false;
-                    break;
-                }
+            Block block = page.getBlock(columnIndex).getLoadedBlock();
+            int previousCount = positionCount;
+            positionCount = entry.getValue().filter(columnTypes.get(columnIndex), block, positions, positionCount, positions);
+            filteredByColumn.put(columnIndex, previousCount - positionCount);
+            if (positionCount == 0) {
+                break;
             }
-            if (shouldKeep) {
-                ids.add(position);
+        }
+
+        // the rows filtered out are not sent to the other data center, estimate their size from the loaded columns
+        double bytesPerPosition = (double) getLoadedSizeInBytes(page) / page.getPositionCount();
+        for (Map.Entry<Integer, Integer> entry : filteredByColumn.entrySet()) {
+            String columnName = columnNames.get(entry.getKey());
+            filteredPositions.merge(columnName, (long) entry.getValue(), Long::sum);
+            filteredBytes.merge(columnName, (long) (entry.getValue() * bytesPerPosition), Long::sum);
+        }
+
+        return IntArrayList.wrap(positions, positionCount);
+    }
+
+    private static long getLoadedSizeInBytes(Page page)
+    {
+        long sizeInBytes = 0;
+        for (int i = 0; i < page.getChannelCount(); i++) {
+            Block block = page.getBlock(i);
+            if (!(block instanceof LazyBlock) || ((LazyBlock) block).isLoaded()) {
+                sizeInBytes += block.getSizeInBytes();
             }
         }
+        return sizeInBytes;
+    }
 
-        return ids;
+    public CrossRegionDynamicFilterInfo getInfo()
+    {
+        return new CrossRegionDynamicFilterInfo(ImmutableMap.copyOf(filteredPositions), ImmutableMap.copyOf(filteredBytes));
     }
 
     private final class RowFilterLazyBlockLoader
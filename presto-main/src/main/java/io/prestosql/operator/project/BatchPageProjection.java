@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.project;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.operator.DriverYieldSignal;
+import io.prestosql.operator.Work;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.function.BatchScalarFunction;
+import io.prestosql.spi.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Projects a function call on input columns, evaluating the function over batches of the selected positions
+ */
+public class BatchPageProjection
+        implements PageProjection
+{
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final BatchScalarFunction function;
+    private final Type type;
+    private final boolean deterministic;
+    private final InputChannels inputChannels;
+    private final int[] argumentChannels;
+
+    /**
+     * @param function the function
+     * @param type the return type of the function
+     * @param deterministic whether the function is deterministic
+     * @param inputChannels the distinct input channels of the arguments
+     * @param argumentChannels the index in the input channels of each argument
+     */
+    public BatchPageProjection(BatchScalarFunction function, Type type, boolean deterministic, InputChannels inputChannels, int[] argumentChannels)
+    {
+        this.function = requireNonNull(function, "function is null");
+        this.type = requireNonNull(type, "type is null");
+        this.deterministic = deterministic;
+        this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+        this.argumentChannels = requireNonNull(argumentChannels, "argumentChannels is null");
+    }
+
+    @Override
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return deterministic;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public Work<Block> project(ConnectorSession session, DriverYieldSignal yieldSignal, Page page, SelectedPositions selectedPositions)
+    {
+        requireNonNull(yieldSignal, "yieldSignal is null");
+        requireNonNull(page, "page is null");
+        requireNonNull(selectedPositions, "selectedPositions is null");
+
+        ImmutableList.Builder<Block> arguments = ImmutableList.builder();
+        for (int channel : argumentChannels) {
+            arguments.add(page.getBlock(channel).getLoadedBlock());
+        }
+        return new BatchProjectionWork(yieldSignal, arguments.build(), selectedPositions);
+    }
+
+    private class BatchProjectionWork
+            implements Work<Block>
+    {
+        private final DriverYieldSignal yieldSignal;
+        private final List<Block> arguments;
+        private final SelectedPositions selectedPositions;
+        private final List<Block> results = new ArrayList<>();
+        private int nextIndex;
+        private Block result;
+
+        BatchProjectionWork(DriverYieldSignal yieldSignal, List<Block> arguments, SelectedPositions selectedPositions)
+        {
+            this.yieldSignal = yieldSignal;
+            this.arguments = arguments;
+            this.selectedPositions = selectedPositions;
+        }
+
+        @Override
+        public boolean process()
+        {
+            checkState(result == null, "result has been generated");
+            // the function is evaluated a chunk of positions at a time, so that a long running evaluation can yield
+            while (nextIndex < selectedPositions.size()) {
+                int length = Math.min(MAX_BATCH_SIZE, selectedPositions.size() - nextIndex);
+                int offset = selectedPositions.getOffset() + nextIndex;
+                if (selectedPositions.isList()) {
+                    results.add(function.evaluate(arguments, selectedPositions.getPositions(), offset, length));
+                }
+                else {
+                    results.add(function.evaluate(arguments, null, offset, length));
+                }
+                nextIndex += length;
+                if (nextIndex < selectedPositions.size() && yieldSignal.isSet()) {
+                    return false;
+                }
+            }
+            result = concat(results, selectedPositions.size());
+            return true;
+        }
+
+        @Override
+        public Block getResult()
+        {
+            checkState(result != null, "result has not been generated");
+            return result;
+        }
+    }
+
+    private Block concat(List<Block> blocks, int positionCount)
+    {
+        if (blocks.size() == 1) {
+            return blocks.get(0);
+        }
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, positionCount);
+        for (Block block : blocks) {
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                type.appendTo(block, position, blockBuilder);
+            }
+        }
+        return blockBuilder.build();
+    }
+}
@@ -15,12 +15,14 @@
 package io.prestosql.query;
 
 import com.google.common.cache.Cache;
+import com.google.common.hash.HashCode;
 import io.prestosql.Session;
 import io.prestosql.SystemSessionProperties;
 import io.prestosql.connector.informationschema.InformationSchemaTransactionHandle;
 import io.prestosql.connector.system.GlobalSystemTransactionHandle;
 import io.prestosql.connector.system.SystemTransactionHandle;
 import io.prestosql.cost.CostCalculator;
+import io.prestosql.cost.StatsAndCosts;
 import io.prestosql.cost.StatsCalculator;
 import io.prestosql.dynamicfilter.DynamicFilterService;
 import io.prestosql.execution.LocationFactory;
@@ -36,6 +38,7 @@ import io.prestosql.execution.warnings.WarningCollector;
 import io.prestosql.failuredetector.FailureDetector;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.TableHandle;
+import io.prestosql.query.CachedSqlQueryExecutionPlan.RebindState;
 import io.prestosql.security.AccessControl;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.connector.ColumnHandle;
@@ -48,6 +51,8 @@ import io.prestosql.spi.type.Type;
 import io.prestosql.split.SplitManager;
 import io.prestosql.sql.analyzer.Analysis;
 import io.prestosql.sql.analyzer.QueryExplainer;
+import io.prestosql.sql.parser.LiteralNormalizer;
+import io.prestosql.sql.parser.LiteralNormalizer.NormalizedSql;
 import io.prestosql.sql.parser.SqlParser;
 import io.prestosql.sql.planner.LogicalPlanner;
 import io.prestosql.sql.planner.NodePartitioningManager;
@@ -64,20 +69,36 @@ import io.prestosql.sql.planner.iterative.Rule;
 import io.prestosql.sql.planner.optimizations.BeginTableWrite;
 import io.prestosql.sql.planner.optimizations.PlanOptimizer;
 import io.prestosql.sql.planner.plan.ExchangeNode;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.ProjectNode;
 import io.prestosql.sql.planner.plan.SimplePlanRewriter;
 import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.planner.plan.ValuesNode;
+import io.prestosql.sql.planner.planprinter.PlanPrinter;
+import io.prestosql.sql.tree.CharLiteral;
 import io.prestosql.sql.tree.CreateTable;
 import io.prestosql.sql.tree.CreateTableAsSelect;
 import io.prestosql.sql.tree.CurrentPath;
 import io.prestosql.sql.tree.CurrentTime;
 import io.prestosql.sql.tree.CurrentUser;
+import io.prestosql.sql.tree.DecimalLiteral;
 import io.prestosql.sql.tree.DefaultTraversalVisitor;
+import io.prestosql.sql.tree.DoubleLiteral;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.ExpressionRewriter;
+import io.prestosql.sql.tree.ExpressionTreeRewriter;
+import io.prestosql.sql.tree.GenericLiteral;
+import io.prestosql.sql.tree.Literal;
+import io.prestosql.sql.tree.LongLiteral;
 import io.prestosql.sql.tree.Query;
 import io.prestosql.sql.tree.Statement;
+import io.prestosql.sql.tree.StringLiteral;
 import io.prestosql.transaction.TransactionId;
 import io.prestosql.utils.OptimizerUtils;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -85,16 +106,26 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 
 import static io.prestosql.SystemSessionProperties.isExecutionPlanCacheEnabled;
+import static io.prestosql.query.CachedSqlQueryExecutionPlan.RebindState.INVALID;
+import static io.prestosql.query.CachedSqlQueryExecutionPlan.RebindState.UNVALIDATED;
+import static io.prestosql.query.CachedSqlQueryExecutionPlan.RebindState.VALIDATED;
+import static io.prestosql.sql.SqlFormatter.formatSql;
+import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static java.util.Locale.ENGLISH;
 
 public class CachedSqlQueryExecution
         extends SqlQueryExecution
 {
-    private final Optional<Cache<Integer, CachedSqlQueryExecutionPlan>> cache; // cache key is generated by SqlQueryExecutionCacheKeyGenerator
+    private final Optional<Cache<HashCode, CachedSqlQueryExecutionPlan>> cache; // cache key is generated by SqlQueryExecutionCacheKeyGenerator
+    private final Optional<SharedPlanCache> sharedCache;
+    private final ExecutionPlanCacheStats planStats;
+    private final QueryStateMachine stateMachine;
     private final BeginTableWrite beginTableWrite;
 
     public CachedSqlQueryExecution(QueryPreparer.PreparedQuery preparedQuery, QueryStateMachine stateMachine,
@@ -105,13 +136,17 @@ public class CachedSqlQueryExecution
                                    ScheduledExecutorService schedulerExecutor, FailureDetector failureDetector, NodeTaskMap nodeTaskMap,
                                    QueryExplainer queryExplainer, ExecutionPolicy executionPolicy, SplitSchedulerStats schedulerStats,
                                    StatsCalculator statsCalculator, CostCalculator costCalculator, WarningCollector warningCollector,
-                                   DynamicFilterService dynamicFilterService, Optional<Cache<Integer, CachedSqlQueryExecutionPlan>> cache)
+                                   DynamicFilterService dynamicFilterService, Optional<Cache<HashCode, CachedSqlQueryExecutionPlan>> cache,
+                                   Optional<SharedPlanCache> sharedCache, ExecutionPlanCacheStats planStats)
     {
         super(preparedQuery, stateMachine, slug, metadata, accessControl, sqlParser, splitManager,
                 nodePartitioningManager, nodeScheduler, planOptimizers, planFragmenter, remoteTaskFactory, locationFactory,
                 scheduleSplitBatchSize, queryExecutor, schedulerExecutor, failureDetector, nodeTaskMap, queryExplainer,
                 executionPolicy, schedulerStats, statsCalculator, costCalculator, warningCollector, dynamicFilterService);
         this.cache = cache;
+        this.sharedCache = sharedCache;
+        this.planStats = planStats;
+        this.stateMachine = stateMachine;
         this.beginTableWrite = new BeginTableWrite(metadata);
     }
 
@@ -137,18 +172,18 @@ public class CachedSqlQueryExecution
         // Cacheable conditions:
         // 1. Caching must be enabled globally
         // 2. Caching must be enabled in the session
-        // 3. There must not be any parameters in the query
-        //      TODO: remove requirement for empty params and implement parameter rewrite
-        // 4. Methods in ConnectorTableHandle and ConnectorMetadata must be
+        // 3. Methods in ConnectorTableHandle and ConnectorMetadata must be
         //     overwritten to allow access to fully qualified table names and column names
-        // 5. Statement must be an instance of Query and not contain CurrentX functions
+        // 4. Statement must be an instance of Query and not contain CurrentX functions
+        // 5. Statement must be formattable, its parameters being replaced by their values
         boolean cacheable = this.cache.isPresent() &&
                 isExecutionPlanCacheEnabled(session) &&
-                analysis.getParameters().isEmpty() &&
                 validateAndExtractTableAndColumns(analysis, metadata, session, tableNames, tableStatistics, columnTypes) &&
                 isCacheable(statement);
 
         cacheable = cacheable && !tableNames.isEmpty();
+        Optional<String> sql = cacheable ? formatStatement(statement, analysis) : Optional.empty();
+        cacheable = cacheable && sql.isPresent();
         if (!cacheable) {
             return super.createPlan(analysis, session, planOptimizers, idAllocator, metadata, typeAnalyzer,
                     statsCalculator, costCalculator, warningCollector);
@@ -173,58 +208,138 @@ public class CachedSqlQueryExecution
             }
         }
 
-        Plan plan;
-        // TODO: Traverse the statement to build the key then combine tables/optimizers.. etc
-        int key = SqlQueryExecutionCacheKeyGenerator.buildKey((Query) statement, tableNames, optimizers, columnTypes, session.getTimeZoneKey(), systemSessionProperties);
+        // Literals are normalized so that statements only differing by their literal values share a cached plan
+        NormalizedSql normalizedSql = LiteralNormalizer.normalize(sql.get());
+        HashCode key = SqlQueryExecutionCacheKeyGenerator.buildKey(normalizedSql.getSql(), tableNames, optimizers, columnTypes, session.getTimeZoneKey(), systemSessionProperties);
         CachedSqlQueryExecutionPlan cachedPlan = this.cache.get().getIfPresent(key);
+        if (cachedPlan == null && sharedCache.isPresent()) {
+            // The plan may have been cached by another coordinator
+            cachedPlan = loadSharedPlan(key, statement, tableNames, tableStatistics, optimizers, analysis, columnTypes, systemSessionProperties, session).orElse(null);
+        }
 
         HetuLogicalPlanner logicalPlanner = new HetuLogicalPlanner(session, planOptimizers, idAllocator,
                 metadata, typeAnalyzer, statsCalculator, costCalculator, warningCollector);
 
+        Plan plan;
         PlanNode root;
-        plan = cachedPlan != null ? cachedPlan.getPlan() : null;
-        // To handle the chance of cache key collision, the timezone and the statement between
+        // To handle the chance of cache key collision, the timezone and the normalized statement between
         // the cached plan and the session are verified for greater confidence.
         // Timezone must be matched in order to preserve the correctness for queries containing functions
         // that rely on system time
-        if (plan != null && cachedPlan.getTimeZoneKey().equals(session.getTimeZoneKey()) &&
-                cachedPlan.getStatement().equals(statement) && session.getTransactionId().isPresent() && cachedPlan.getIdentity().getUser().equals(session.getIdentity().getUser())) { // TODO: traverse the statement and accept partial match
-            root = plan.getRoot();
+        if (cachedPlan != null && cachedPlan.getTimeZoneKey().equals(session.getTimeZoneKey()) &&
+                cachedPlan.getNormalizedSql().getSql().equals(normalizedSql.getSql()) && session.getTransactionId().isPresent() && cachedPlan.getIdentity().getUser().equals(session.getIdentity().getUser())) {
             try {
                 if (!cachedPlan.getTableStatistics().equals(tableStatistics)) {
                     // TableStatistics have changed, therefore the cached plan may no longer be applicable
                     throw new NoSuchElementException();
                 }
-                // TableScanNode may contain the old transaction id.
-                // The following logic rewrites the logical plan by replacing the TableScanNode with a new TableScanNode which
-                // contains the new transaction id from session.
-                root = SimplePlanRewriter.rewriteWith(new TableHandleRewriter(session, analysis, metadata), root);
+                if (cachedPlan.getNormalizedSql().equals(normalizedSql)) {
+                    // Same literal values, the cached plan is used as is
+                    plan = reuse(cachedPlan, cachedPlan.getPlan().getRoot(), session, analysis, metadata, false);
+                }
+                else {
+                    plan = rebind(key, cachedPlan, logicalPlanner, statement, tableNames, tableStatistics, optimizers, analysis, columnTypes, systemSessionProperties, normalizedSql, session, metadata);
+                }
             }
             catch (NoSuchElementException e) {
                 // Cached plan is outdated
                 // invalidate cache
                 this.cache.get().invalidateAll();
                 // Build a new plan
-                plan = createAndCachePlan(key, logicalPlanner, statement, tableNames, tableStatistics, optimizers, analysis, columnTypes, systemSessionProperties);
-                root = plan.getRoot();
+                plan = createAndCachePlan(key, logicalPlanner, statement, tableNames, tableStatistics, optimizers, analysis, columnTypes, systemSessionProperties, normalizedSql, UNVALIDATED);
             }
         }
         else {
             // Build a new plan
-            plan = createAndCachePlan(key, logicalPlanner, statement, tableNames, tableStatistics, optimizers, analysis, columnTypes, systemSessionProperties);
-            root = plan.getRoot();
+            plan = createAndCachePlan(key, logicalPlanner, statement, tableNames, tableStatistics, optimizers, analysis, columnTypes, systemSessionProperties, normalizedSql, UNVALIDATED);
         }
         // BeginTableWrite optimizer must be run at the end as the last optimization
         // due to a hack Hetu community added which also serves to updates
         // metadata in the nodes
-        root = this.beginTableWrite.optimize(root, session, null, null, null, null);
+        root = this.beginTableWrite.optimize(plan.getRoot(), session, null, null, null, null);
         plan = update(plan, root);
 
         return plan;
     }
 
+    private Plan rebind(
+            HashCode key,
+            CachedSqlQueryExecutionPlan cachedPlan,
+            LogicalPlanner logicalPlanner,
+            Statement statement,
+            List<String> tableNames,
+            Map<String, TableStatistics> tableStatistics,
+            List<String> optimizers,
+            Analysis analysis,
+            Map<String, Type> columnTypes,
+            Map<String, Object> systemSessionProperties,
+            NormalizedSql normalizedSql,
+            Session session,
+            Metadata metadata)
+    {
+        switch (cachedPlan.getRebindState()) {
+            case VALIDATED: {
+                Optional<PlanNode> rebound = LiteralRebinder.rebind(cachedPlan.getPlan().getRoot(), cachedPlan.getNormalizedSql(), normalizedSql);
+                if (rebound.isPresent()) {
+                    return reuse(cachedPlan, rebound.get(), session, analysis, metadata, true);
+                }
+                planStats.recordMiss();
+                return logicalPlanner.plan(analysis);
+            }
+            case UNVALIDATED: {
+                // Plan the statement and check that rebinding the literals of the cached plan gives the same plan,
+                // the literals may have been folded or pushed into the table scans by the optimizers
+                Plan plan = logicalPlanner.plan(analysis);
+                Optional<PlanNode> rebound = LiteralRebinder.rebind(cachedPlan.getPlan().getRoot(), cachedPlan.getNormalizedSql(), normalizedSql)
+                        .map(root -> SimplePlanRewriter.rewriteWith(new TableHandleRewriter(session, analysis, metadata), root));
+                planStats.recordMiss();
+                if (rebound.isPresent() && isSamePlan(rebound.get(), plan, session, metadata)) {
+                    cachedPlan.setRebindState(VALIDATED);
+                }
+                else {
+                    cachedPlan.setRebindState(INVALID);
+                    planStats.recordInvalidTemplate();
+                }
+                sharedCache.ifPresent(shared -> shared.put(key, cachedPlan));
+                return plan;
+            }
+            default:
+                // The plan depends on the literal values, keep the plan of the latest values
+                return createAndCachePlan(key, logicalPlanner, statement, tableNames, tableStatistics, optimizers, analysis, columnTypes, systemSessionProperties, normalizedSql, INVALID);
+        }
+    }
+
+    private Plan reuse(CachedSqlQueryExecutionPlan cachedPlan, PlanNode root, Session session, Analysis analysis, Metadata metadata, boolean rebound)
+    {
+        // TableScanNode may contain the old transaction id.
+        // The following logic rewrites the logical plan by replacing the TableScanNode with a new TableScanNode which
+        // contains the new transaction id from session.
+        PlanNode newRoot = SimplePlanRewriter.rewriteWith(new TableHandleRewriter(session, analysis, metadata), root);
+        stateMachine.setPlanCacheHit(cachedPlan.getPlanningTimeNanos());
+        planStats.recordHit(rebound, cachedPlan.getPlanningTimeNanos());
+        return update(cachedPlan.getPlan(), newRoot);
+    }
+
+    private static boolean isSamePlan(PlanNode rebound, Plan plan, Session session, Metadata metadata)
+    {
+        List<TableScanNode> reboundScans = searchFrom(rebound).where(TableScanNode.class::isInstance).findAll();
+        List<TableScanNode> scans = searchFrom(plan.getRoot()).where(TableScanNode.class::isInstance).findAll();
+        if (reboundScans.size() != scans.size()) {
+            return false;
+        }
+        for (int i = 0; i < scans.size(); i++) {
+            if (!reboundScans.get(i).getTable().getConnectorHandle().equals(scans.get(i).getTable().getConnectorHandle()) ||
+                    !reboundScans.get(i).getEnforcedConstraint().equals(scans.get(i).getEnforcedConstraint())) {
+                return false;
+            }
+        }
+        String reboundText = PlanPrinter.textLogicalPlan(rebound, plan.getTypes(), metadata, StatsAndCosts.empty(), session, 0, false);
+        String text = PlanPrinter.textLogicalPlan(plan.getRoot(), plan.getTypes(), metadata, StatsAndCosts.empty(), session, 0, false);
+        return reboundText.equals(text);
+    }
+
     private Plan createAndCachePlan(
-            int key,
+            HashCode key,
             LogicalPlanner logicalPlanner,
             Statement statement,
             List<String> tableNames,
@@ -232,17 +347,54 @@ public class CachedSqlQueryExecution
             List<String> planOptimizers,
             Analysis analysis,
             Map<String, Type> columnTypes,
-            Map<String, Object> systemSessionProperties)
+            Map<String, Object> systemSessionProperties,
+            NormalizedSql normalizedSql,
+            RebindState rebindState)
     {
+        planStats.recordMiss();
         // build a new plan
+        long start = System.nanoTime();
         Plan plan = logicalPlanner.plan(analysis);
+        long planningTimeNanos = System.nanoTime() - start;
         // Cache the plan
         CachedSqlQueryExecutionPlan newCachedPlan = new CachedSqlQueryExecutionPlan(statement, tableNames, tableStatistics, planOptimizers, plan,
-                analysis.getParameters(), columnTypes, getSession().getTimeZoneKey(), getSession().getIdentity(), systemSessionProperties);
+                analysis.getParameters(), columnTypes, getSession().getTimeZoneKey(), getSession().getIdentity(), systemSessionProperties,
+                normalizedSql, planningTimeNanos, rebindState);
         this.cache.get().put(key, newCachedPlan);
+        sharedCache.ifPresent(shared -> shared.put(key, newCachedPlan));
         return plan;
     }
 
+    private Optional<CachedSqlQueryExecutionPlan> loadSharedPlan(
+            HashCode key,
+            Statement statement,
+            List<String> tableNames,
+            Map<String, TableStatistics> tableStatistics,
+            List<String> planOptimizers,
+            Analysis analysis,
+            Map<String, Type> columnTypes,
+            Map<String, Object> systemSessionProperties,
+            Session session)
+    {
+        Optional<SharedCachedPlan> sharedPlan = sharedCache.get().get(key);
+        if (!sharedPlan.isPresent() ||
+                !sharedPlan.get().getUser().equals(session.getIdentity().getUser()) ||
+                !sharedPlan.get().getTimeZoneId().equals(session.getTimeZoneKey().getId())) {
+            return Optional.empty();
+        }
+        if (!sharedPlan.get().getStatisticsFingerprint().equals(SharedPlanCache.fingerprint(tableStatistics))) {
+            // The plan was built with other table statistics, or the tables were changed since
+            sharedCache.get().invalidate(key);
+            return Optional.empty();
+        }
+        // The other fields of the cached plan are part of the key, so they are taken from the current query
+        CachedSqlQueryExecutionPlan cachedPlan = new CachedSqlQueryExecutionPlan(statement, tableNames, tableStatistics, planOptimizers,
+                sharedPlan.get().toPlan(), analysis.getParameters(), columnTypes, session.getTimeZoneKey(), session.getIdentity(),
+                systemSessionProperties, sharedPlan.get().toNormalizedSql(), sharedPlan.get().getPlanningTimeNanos(), sharedPlan.get().getRebindState());
+        this.cache.get().put(key, cachedPlan);
+        return Optional.of(cachedPlan);
+    }
+
     private boolean validateAndExtractTableAndColumns(
             Analysis analysis,
             Metadata metadata,
@@ -293,10 +445,21 @@ public class CachedSqlQueryExecution
         return true;
     }
 
+    private static Optional<String> formatStatement(Statement statement, Analysis analysis)
+    {
+        try {
+            return Optional.of(formatSql(statement, Optional.of(analysis.getParameters())));
+        }
+        catch (UnsupportedOperationException e) {
+            return Optional.empty();
+        }
+    }
+
     private static Plan update(Plan currentPlan, PlanNode root)
     {
         // Rebuild Plan object to get a new plan ID
-        return new Plan(root, currentPlan.getTypes(), currentPlan.getStatsAndCosts()); // TODO: need to update Types for parameter rewrite
+        // Literals are only rebound to values of the same shape, so the types of the symbols are unchanged
+        return new Plan(root, currentPlan.getTypes(), currentPlan.getStatsAndCosts());
     }
 
     private static class StatementChecker
@@ -436,4 +599,142 @@ public class CachedSqlQueryExecution
             }
         }
     }
+
+    /**
+     * Rebinds the literals of a cached plan to the literal values of another statement with the same normalized text.
+     * The literals of the plan are matched by value, so rebinding requires the literal values of the cached plan
+     * to be distinct.
+     */
+    private static class LiteralRebinder
+            extends SimplePlanRewriter<Void>
+    {
+        private final Map<String, String> strings;
+        private final Map<BigDecimal, String> numbers;
+        private boolean failed;
+
+        private LiteralRebinder(Map<String, String> strings, Map<BigDecimal, String> numbers)
+        {
+            this.strings = strings;
+            this.numbers = numbers;
+        }
+
+        static Optional<PlanNode> rebind(PlanNode root, NormalizedSql cached, NormalizedSql current)
+        {
+            Map<String, String> strings = new HashMap<>();
+            for (int i = 0; i < cached.getStringLiterals().size(); i++) {
+                if (strings.put(cached.getStringLiterals().get(i), current.getStringLiterals().get(i)) != null) {
+                    return Optional.empty();
+                }
+            }
+            // numbers are compared by value, since the optimizers may have changed the type of the literals
+            Map<BigDecimal, String> numbers = new TreeMap<>();
+            for (int i = 0; i < cached.getNumericLiterals().size(); i++) {
+                if (numbers.put(new BigDecimal(cached.getNumericLiterals().get(i)), current.getNumericLiterals().get(i)) != null) {
+                    return Optional.empty();
+                }
+            }
+
+            LiteralRebinder rebinder = new LiteralRebinder(strings, numbers);
+            PlanNode rebound = SimplePlanRewriter.rewriteWith(rebinder, root);
+            return rebinder.failed ? Optional.empty() : Optional.of(rebound);
+        }
+
+        @Override
+        public PlanNode visitFilter(FilterNode node, RewriteContext<Void> context)
+        {
+            PlanNode source = context.rewrite(node.getSource());
+            return new FilterNode(node.getId(), source, rewrite(node.getPredicate()));
+        }
+
+        @Override
+        public PlanNode visitProject(ProjectNode node, RewriteContext<Void> context)
+        {
+            PlanNode source = context.rewrite(node.getSource());
+            return new ProjectNode(node.getId(), source, node.getAssignments().rewrite(this::rewrite));
+        }
+
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Void> context)
+        {
+            PlanNode left = context.rewrite(node.getLeft());
+            PlanNode right = context.rewrite(node.getRight());
+            return new JoinNode(node.getId(), node.getType(), left, right, node.getCriteria(), node.getOutputSymbols(),
+                    node.getFilter().map(this::rewrite), node.getLeftHashSymbol(), node.getRightHashSymbol(),
+                    node.getDistributionType(), node.isSpillable(), node.getDynamicFilters());
+        }
+
+        @Override
+        public PlanNode visitValues(ValuesNode node, RewriteContext<Void> context)
+        {
+            List<List<Expression>> rows = node.getRows().stream()
+                    .map(row -> row.stream().map(this::rewrite).collect(Collectors.toList()))
+                    .collect(Collectors.toList());
+            return new ValuesNode(node.getId(), node.getOutputSymbols(), rows);
+        }
+
+        private Expression rewrite(Expression expression)
+        {
+            return ExpressionTreeRewriter.rewriteWith(new ExpressionRewriter<Void>()
+            {
+                @Override
+                public Expression rewriteLiteral(Literal node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+                {
+                    return rebindLiteral(node);
+                }
+            }, expression);
+        }
+
+        private Expression rebindLiteral(Literal node)
+        {
+            if (node instanceof StringLiteral) {
+                String value = strings.get(((StringLiteral) node).getValue());
+                return value == null ? node : new StringLiteral(value);
+            }
+            if (node instanceof CharLiteral) {
+                String value = strings.get(((CharLiteral) node).getValue());
+                return value == null ? node : new CharLiteral(value);
+            }
+            if (node instanceof GenericLiteral) {
+                GenericLiteral literal = (GenericLiteral) node;
+                if (isNumericType(literal.getType())) {
+                    String value = numbers.get(new BigDecimal(literal.getValue()));
+                    return value == null ? node : new GenericLiteral(literal.getType(), value);
+                }
+                String value = strings.get(literal.getValue());
+                return value == null ? node : new GenericLiteral(literal.getType(), value);
+            }
+            if (node instanceof LongLiteral) {
+                String value = numbers.get(BigDecimal.valueOf(((LongLiteral) node).getValue()));
+                if (value == null) {
+                    return node;
+                }
+                try {
+                    return new LongLiteral(String.valueOf(new BigDecimal(value).longValueExact()));
+                }
+                catch (ArithmeticException e) {
+                    failed = true;
+                    return node;
+                }
+            }
+            if (node instanceof DecimalLiteral) {
+                String value = numbers.get(new BigDecimal(((DecimalLiteral) node).getValue()));
+                return value == null ? node : new DecimalLiteral(value);
+            }
+            if (node instanceof DoubleLiteral) {
+                double doubleValue = ((DoubleLiteral) node).getValue();
+                if (Double.isFinite(doubleValue)) {
+                    String value = numbers.get(BigDecimal.valueOf(doubleValue));
+                    return value == null ? node : new DoubleLiteral(value);
+                }
+            }
+            return node;
+        }
+
+        private static boolean isNumericType(String type)
+        {
+            String name = type.toLowerCase(ENGLISH);
+            return name.equals("bigint") || name.equals("integer") || name.equals("smallint") || name.equals("tinyint") ||
+                    name.equals("double") || name.equals("real") || name.startsWith("decimal");
+        }
+    }
 }
@@ -18,6 +18,7 @@ import io.prestosql.spi.security.Identity;
 import io.prestosql.spi.statistics.TableStatistics;
 import io.prestosql.spi.type.TimeZoneKey;
 import io.prestosql.spi.type.Type;
+import io.prestosql.sql.parser.LiteralNormalizer.NormalizedSql;
 import io.prestosql.sql.planner.Plan;
 import io.prestosql.sql.tree.Expression;
 import io.prestosql.sql.tree.Statement;
@@ -37,6 +38,9 @@ public class CachedSqlQueryExecutionPlan
     private final TimeZoneKey timeZoneKey;
     private final Identity identity;
     private final Map<String, Object> systemSessionProperties;
+    private final NormalizedSql normalizedSql;
+    private final long planningTimeNanos;
+    private volatile RebindState rebindState;
 
     CachedSqlQueryExecutionPlan(
             Statement statement,
@@ -47,7 +51,10 @@ public class CachedSqlQueryExecutionPlan
             Map<String, Type> columnTypes,
             TimeZoneKey timeZoneKey,
             Identity identity,
-            Map<String, Object> systemSessionProperties)
+            Map<String, Object> systemSessionProperties,
+            NormalizedSql normalizedSql,
+            long planningTimeNanos,
+            RebindState rebindState)
     {
         this.statement = statement;
         this.tableNames = tableNames;
@@ -59,6 +66,9 @@ public class CachedSqlQueryExecutionPlan
         this.timeZoneKey = timeZoneKey;
         this.identity = identity;
         this.systemSessionProperties = systemSessionProperties;
+        this.normalizedSql = normalizedSql;
+        this.planningTimeNanos = planningTimeNanos;
+        this.rebindState = rebindState;
     }
 
     public Plan getPlan()
@@ -110,4 +120,40 @@ public class CachedSqlQueryExecutionPlan
     {
         return systemSessionProperties;
     }
+
+    /**
+     * Text of the statement with its literals replaced by placeholders, and the values of the literals the plan was built with
+     */
+    public NormalizedSql getNormalizedSql()
+    {
+        return normalizedSql;
+    }
+
+    public long getPlanningTimeNanos()
+    {
+        return planningTimeNanos;
+    }
+
+    public RebindState getRebindState()
+    {
+        return rebindState;
+    }
+
+    public void setRebindState(RebindState rebindState)
+    {
+        this.rebindState = rebindState;
+    }
+
+    /**
+     * Whether the plan can be reused for other values of its literals
+     */
+    public enum RebindState
+    {
+        // not yet compared with a plan built for other literal values
+        UNVALIDATED,
+        // rebinding the literals gives the same plan as planning the statement again
+        VALIDATED,
+        // the literals change the plan, it can only be reused for the same literal values
+        INVALID
+    }
 }
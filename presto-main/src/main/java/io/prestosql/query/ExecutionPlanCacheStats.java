@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.query;
+
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Statistics of the execution plan cache of the CachedSqlQueryExecution
+ */
+public class ExecutionPlanCacheStats
+{
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat rebindHits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat invalidTemplates = new CounterStat();
+    private final TimeStat planningTimeSaved = new TimeStat();
+    private final CounterStat sharedHits = new CounterStat();
+    private final CounterStat sharedMisses = new CounterStat();
+
+    public void recordHit(boolean rebound, long savedPlanningNanos)
+    {
+        hits.update(1);
+        if (rebound) {
+            rebindHits.update(1);
+        }
+        planningTimeSaved.add(savedPlanningNanos, NANOSECONDS);
+    }
+
+    public void recordMiss()
+    {
+        misses.update(1);
+    }
+
+    public void recordInvalidTemplate()
+    {
+        invalidTemplates.update(1);
+    }
+
+    public void recordSharedHit()
+    {
+        sharedHits.update(1);
+    }
+
+    public void recordSharedMiss()
+    {
+        sharedMisses.update(1);
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Hits of plans cached for other literal values, whose literals were rebound
+     */
+    @Managed
+    @Nested
+    public CounterStat getRebindHits()
+    {
+        return rebindHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Cached plans whose literals were found to change the plan, and so cannot be rebound
+     */
+    @Managed
+    @Nested
+    public CounterStat getInvalidTemplates()
+    {
+        return invalidTemplates;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getPlanningTimeSaved()
+    {
+        return planningTimeSaved;
+    }
+
+    /**
+     * Plans missing from the local cache found in the cache shared between coordinators
+     */
+    @Managed
+    @Nested
+    public CounterStat getSharedHits()
+    {
+        return sharedHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSharedMisses()
+    {
+        return sharedMisses;
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        long hitCount = hits.getTotalCount();
+        long total = hitCount + misses.getTotalCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.query;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.cost.StatsAndCosts;
+import io.prestosql.query.CachedSqlQueryExecutionPlan.RebindState;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.parser.LiteralNormalizer.NormalizedSql;
+import io.prestosql.sql.planner.Plan;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.TypeProvider;
+import io.prestosql.sql.planner.plan.PlanNode;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A cached execution plan as stored in the state store, to be shared between coordinators.
+ * Only the fields which are not part of the cache key are stored.
+ */
+public class SharedCachedPlan
+{
+    private final String normalizedSql;
+    private final List<String> stringLiterals;
+    private final List<String> numericLiterals;
+    private final String user;
+    private final String timeZoneId;
+    private final String statisticsFingerprint;
+    private final long planningTimeNanos;
+    private final RebindState rebindState;
+    private final PlanNode root;
+    private final Map<Symbol, Type> types;
+    private final StatsAndCosts statsAndCosts;
+    private final long createTimeMillis;
+
+    @JsonCreator
+    public SharedCachedPlan(
+            @JsonProperty("normalizedSql") String normalizedSql,
+            @JsonProperty("stringLiterals") List<String> stringLiterals,
+            @JsonProperty("numericLiterals") List<String> numericLiterals,
+            @JsonProperty("user") String user,
+            @JsonProperty("timeZoneId") String timeZoneId,
+            @JsonProperty("statisticsFingerprint") String statisticsFingerprint,
+            @JsonProperty("planningTimeNanos") long planningTimeNanos,
+            @JsonProperty("rebindState") RebindState rebindState,
+            @JsonProperty("root") PlanNode root,
+            @JsonProperty("types") Map<Symbol, Type> types,
+            @JsonProperty("statsAndCosts") StatsAndCosts statsAndCosts,
+            @JsonProperty("createTimeMillis") long createTimeMillis)
+    {
+        this.normalizedSql = requireNonNull(normalizedSql, "normalizedSql is null");
+        this.stringLiterals = ImmutableList.copyOf(requireNonNull(stringLiterals, "stringLiterals is null"));
+        this.numericLiterals = ImmutableList.copyOf(requireNonNull(numericLiterals, "numericLiterals is null"));
+        this.user = requireNonNull(user, "user is null");
+        this.timeZoneId = requireNonNull(timeZoneId, "timeZoneId is null");
+        this.statisticsFingerprint = requireNonNull(statisticsFingerprint, "statisticsFingerprint is null");
+        this.planningTimeNanos = planningTimeNanos;
+        this.rebindState = requireNonNull(rebindState, "rebindState is null");
+        this.root = requireNonNull(root, "root is null");
+        this.types = ImmutableMap.copyOf(requireNonNull(types, "types is null"));
+        this.statsAndCosts = requireNonNull(statsAndCosts, "statsAndCosts is null");
+        this.createTimeMillis = createTimeMillis;
+    }
+
+    public static SharedCachedPlan from(CachedSqlQueryExecutionPlan cachedPlan, String statisticsFingerprint)
+    {
+        Plan plan = cachedPlan.getPlan();
+        NormalizedSql normalizedSql = cachedPlan.getNormalizedSql();
+        return new SharedCachedPlan(
+                normalizedSql.getSql(),
+                normalizedSql.getStringLiterals(),
+                normalizedSql.getNumericLiterals(),
+                cachedPlan.getIdentity().getUser(),
+                cachedPlan.getTimeZoneKey().getId(),
+                statisticsFingerprint,
+                cachedPlan.getPlanningTimeNanos(),
+                cachedPlan.getRebindState(),
+                plan.getRoot(),
+                plan.getTypes().allTypes(),
+                plan.getStatsAndCosts(),
+                System.currentTimeMillis());
+    }
+
+    public NormalizedSql toNormalizedSql()
+    {
+        return new NormalizedSql(normalizedSql, stringLiterals, numericLiterals);
+    }
+
+    public Plan toPlan()
+    {
+        return new Plan(root, TypeProvider.copyOf(types), statsAndCosts);
+    }
+
+    @JsonProperty
+    public String getNormalizedSql()
+    {
+        return normalizedSql;
+    }
+
+    @JsonProperty
+    public List<String> getStringLiterals()
+    {
+        return stringLiterals;
+    }
+
+    @JsonProperty
+    public List<String> getNumericLiterals()
+    {
+        return numericLiterals;
+    }
+
+    @JsonProperty
+    public String getUser()
+    {
+        return user;
+    }
+
+    @JsonProperty
+    public String getTimeZoneId()
+    {
+        return timeZoneId;
+    }
+
+    /**
+     * Fingerprint of the statistics of the tables the plan was built with, see {@link SharedPlanCache#fingerprint}
+     */
+    @JsonProperty
+    public String getStatisticsFingerprint()
+    {
+        return statisticsFingerprint;
+    }
+
+    @JsonProperty
+    public long getPlanningTimeNanos()
+    {
+        return planningTimeNanos;
+    }
+
+    @JsonProperty
+    public RebindState getRebindState()
+    {
+        return rebindState;
+    }
+
+    @JsonProperty
+    public PlanNode getRoot()
+    {
+        return root;
+    }
+
+    @JsonProperty
+    public Map<Symbol, Type> getTypes()
+    {
+        return types;
+    }
+
+    @JsonProperty
+    public StatsAndCosts getStatsAndCosts()
+    {
+        return statsAndCosts;
+    }
+
+    @JsonProperty
+    public long getCreateTimeMillis()
+    {
+        return createTimeMillis;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.query;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.airlift.json.JsonCodec;
+import io.airlift.log.Logger;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.statestore.StateCollection;
+import io.prestosql.spi.statestore.StateMap;
+import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.spi.statistics.TableStatistics;
+import io.prestosql.statestore.StateStoreConstants;
+import io.prestosql.statestore.StateStoreProvider;
+import io.prestosql.utils.HetuConfig;
+
+import javax.inject.Inject;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Second level of the execution plan cache, shared between the coordinators through the state store,
+ * so that a coordinator taking over the queries of another one does not start with a cold plan cache.
+ * Any failure to read or write the shared plans only falls back to local planning.
+ */
+public class SharedPlanCache
+{
+    private static final Logger log = Logger.get(SharedPlanCache.class);
+
+    private final StateStoreProvider stateStoreProvider;
+    private final JsonCodec<SharedCachedPlan> codec;
+    private final ExecutionPlanCacheStats stats;
+    private final long maxItems;
+    private final long timeoutMillis;
+
+    @Inject
+    public SharedPlanCache(StateStoreProvider stateStoreProvider, JsonCodec<SharedCachedPlan> codec, ExecutionPlanCacheStats stats, HetuConfig hetuConfig)
+    {
+        this.stateStoreProvider = requireNonNull(stateStoreProvider, "stateStoreProvider is null");
+        this.codec = requireNonNull(codec, "codec is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.maxItems = hetuConfig.getExecutionPlanCacheMaxItems();
+        this.timeoutMillis = hetuConfig.getExecutionPlanCacheTimeout();
+    }
+
+    public Optional<SharedCachedPlan> get(HashCode key)
+    {
+        Optional<StateMap<String, String>> plans = getPlans();
+        if (!plans.isPresent()) {
+            return Optional.empty();
+        }
+        String value = plans.get().get(key.toString());
+        if (value == null) {
+            stats.recordSharedMiss();
+            return Optional.empty();
+        }
+        try {
+            SharedCachedPlan plan = codec.fromJson(value);
+            if (isExpired(plan.getCreateTimeMillis())) {
+                invalidate(key);
+                stats.recordSharedMiss();
+                return Optional.empty();
+            }
+            stats.recordSharedHit();
+            return Optional.of(plan);
+        }
+        catch (IllegalArgumentException e) {
+            // the plan may refer to a connector not loaded by this coordinator
+            log.warn(e, "Failed to decode the shared execution plan %s", key);
+            stats.recordSharedMiss();
+            return Optional.empty();
+        }
+    }
+
+    public void put(HashCode key, CachedSqlQueryExecutionPlan cachedPlan)
+    {
+        Optional<StateMap<String, String>> plans = getPlans();
+        if (!plans.isPresent()) {
+            return;
+        }
+        SharedCachedPlan sharedPlan = SharedCachedPlan.from(cachedPlan, fingerprint(cachedPlan.getTableStatistics()));
+        String json;
+        try {
+            json = codec.toJson(sharedPlan);
+        }
+        catch (IllegalArgumentException e) {
+            log.warn(e, "Failed to encode the execution plan %s", key);
+            return;
+        }
+        StateMap<String, Long> createTimes = getCreateTimes().get();
+        if (plans.get().size() >= maxItems && !plans.get().containsKey(key.toString()) && !removeExpired(plans.get(), createTimes)) {
+            return;
+        }
+        createTimes.put(key.toString(), sharedPlan.getCreateTimeMillis());
+        plans.get().put(key.toString(), json);
+    }
+
+    public void invalidate(HashCode key)
+    {
+        getPlans().ifPresent(plans -> plans.remove(key.toString()));
+        getCreateTimes().ifPresent(createTimes -> createTimes.remove(key.toString()));
+    }
+
+    /**
+     * Fingerprint of the statistics of the tables a plan was built with, to detect the plans built with outdated
+     * statistics on another coordinator
+     *
+     * @param tableStatistics table name to table statistics mapping
+     * @return the fingerprint
+     */
+    public static String fingerprint(Map<String, TableStatistics> tableStatistics)
+    {
+        Hasher hasher = Hashing.sha256().newHasher();
+        new TreeMap<>(tableStatistics).forEach((table, statistics) -> {
+            hasher.putString(table, UTF_8).putString(statistics.getRowCount().toString(), UTF_8);
+            // the column handles have no stable order between coordinators, the columns without a name are left out
+            // as they can't be matched between coordinators
+            statistics.getColumnStatistics().entrySet().stream()
+                    .filter(entry -> getColumnName(entry.getKey()).isPresent())
+                    .map(entry -> getColumnName(entry.getKey()).get() + "=" + entry.getValue())
+                    .sorted()
+                    .forEach(column -> hasher.putString(column, UTF_8));
+        });
+        return hasher.hash().toString();
+    }
+
+    private static Optional<String> getColumnName(ColumnHandle column)
+    {
+        try {
+            return Optional.ofNullable(column.getColumnName());
+        }
+        catch (RuntimeException e) {
+            // not every connector provides the column name
+            return Optional.empty();
+        }
+    }
+
+    private boolean isExpired(long createTimeMillis)
+    {
+        return System.currentTimeMillis() - createTimeMillis > timeoutMillis;
+    }
+
+    /**
+     * Remove the expired plans, found from their creation times so that the plans are not read and decoded.
+     * A plan without a creation time, e.g. shared by an older coordinator, is removed as well.
+     */
+    private boolean removeExpired(StateMap<String, String> plans, StateMap<String, Long> createTimes)
+    {
+        Map<String, Long> times = createTimes.getAll();
+        Set<String> expired = Stream.concat(plans.keySet().stream(), times.keySet().stream())
+                .filter(key -> !times.containsKey(key) || isExpired(times.get(key)))
+                .collect(Collectors.toSet());
+        plans.removeAll(expired);
+        createTimes.removeAll(expired);
+        return !expired.isEmpty();
+    }
+
+    private Optional<StateMap<String, String>> getPlans()
+    {
+        return getMap(StateStoreConstants.EXECUTION_PLAN_CACHE_NAME);
+    }
+
+    private Optional<StateMap<String, Long>> getCreateTimes()
+    {
+        return getMap(StateStoreConstants.EXECUTION_PLAN_CREATE_TIMES_NAME);
+    }
+
+    private <V> Optional<StateMap<String, V>> getMap(String name)
+    {
+        StateStore stateStore = stateStoreProvider.getStateStore();
+        if (stateStore == null) {
+            return Optional.empty();
+        }
+        StateCollection collection = stateStore.getStateCollection(name);
+        if (collection == null) {
+            collection = stateStore.createStateCollection(name, StateCollection.Type.MAP);
+        }
+        return Optional.of((StateMap<String, V>) collection);
+    }
+}
@@ -14,13 +14,17 @@
  */
 package io.prestosql.query;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import io.prestosql.spi.type.TimeZoneKey;
 import io.prestosql.spi.type.Type;
-import io.prestosql.sql.tree.Query;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class SqlQueryExecutionCacheKeyGenerator
 {
@@ -28,8 +32,43 @@ public class SqlQueryExecutionCacheKeyGenerator
     {
     }
 
-    public static int buildKey(Query statement, List<String> tableNames, List<String> planOptimizers, Map<String, Type> columnTypes, TimeZoneKey timeZoneKey, Map<String, Object> systemSessionProperties)
+    /**
+     * Build the key of a cached plan, a SHA-256 hash so that distinct statements practically never collide
+     *
+     * @param normalizedSql text of the statement with its literals replaced by placeholders
+     * @param tableNames fully qualified names of the tables read by the statement
+     * @param planOptimizers names of the enabled optimizers and rules
+     * @param columnTypes types of the columns of the tables
+     * @param timeZoneKey time zone of the session
+     * @param systemSessionProperties values of the system session properties
+     * @return the key of the plan
+     */
+    public static HashCode buildKey(String normalizedSql, List<String> tableNames, List<String> planOptimizers, Map<String, Type> columnTypes, TimeZoneKey timeZoneKey, Map<String, Object> systemSessionProperties)
+    {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, normalizedSql);
+        hasher.putInt(tableNames.size());
+        tableNames.forEach(name -> putString(hasher, name));
+        hasher.putInt(planOptimizers.size());
+        planOptimizers.forEach(name -> putString(hasher, name));
+        // sort the maps so that the key does not depend on their iteration order
+        hasher.putInt(columnTypes.size());
+        new TreeMap<>(columnTypes).forEach((name, type) -> {
+            putString(hasher, name);
+            putString(hasher, type.getTypeSignature().toString());
+        });
+        putString(hasher, timeZoneKey.getId());
+        hasher.putInt(systemSessionProperties.size());
+        new TreeMap<>(systemSessionProperties).forEach((name, value) -> {
+            putString(hasher, name);
+            putString(hasher, String.valueOf(value));
+        });
+        return hasher.hash();
+    }
+
+    private static void putString(Hasher hasher, String value)
     {
-        return Objects.hash(statement, planOptimizers, tableNames, columnTypes, timeZoneKey.hashCode(), systemSessionProperties);
+        // prefix with the length so that consecutive strings cannot be confused
+        hasher.putInt(value.length()).putString(value, UTF_8);
     }
 }
@@ -35,6 +35,7 @@ import io.prestosql.cost.CostComparator;
 import io.prestosql.cost.StatsAndCosts;
 import io.prestosql.cost.StatsCalculatorModule;
 import io.prestosql.cost.TaskCountEstimator;
+import io.prestosql.datacenter.DataCenterStreamingStats;
 import io.prestosql.discovery.server.HetuEmbeddedDiscoveryModule;
 import io.prestosql.dispatcher.DispatchExecutor;
 import io.prestosql.dispatcher.DispatchManager;
@@ -108,6 +109,9 @@ import io.prestosql.memory.TotalReservationLowMemoryKiller;
 import io.prestosql.memory.TotalReservationOnBlockedNodesLowMemoryKiller;
 import io.prestosql.metadata.CatalogManager;
 import io.prestosql.operator.ForScheduler;
+import io.prestosql.query.ExecutionPlanCacheStats;
+import io.prestosql.query.SharedCachedPlan;
+import io.prestosql.query.SharedPlanCache;
 import io.prestosql.server.remotetask.RemoteTaskStats;
 import io.prestosql.spi.memory.ClusterMemoryPoolManager;
 import io.prestosql.spi.resourcegroups.QueryType;
@@ -149,6 +153,7 @@ import io.prestosql.sql.tree.Use;
 import io.prestosql.statestore.EmbeddedStateStoreLauncher;
 import io.prestosql.statestore.StateStoreLauncher;
 import io.prestosql.statestore.StateStoreProvider;
+import io.prestosql.statestore.StateSyncStats;
 import io.prestosql.transaction.ForTransactionManager;
 import io.prestosql.transaction.InMemoryTransactionManager;
 import io.prestosql.transaction.TransactionManager;
@@ -206,6 +211,8 @@ public class CoordinatorModule
         jsonCodecBinder(binder).bindJsonCodec(SelectedRole.class);
         jaxrsBinder(binder).bind(io.prestosql.dispatcher.QueuedStatementResource.class);
         jaxrsBinder(binder).bind(io.prestosql.datacenter.DataCenterStatementResource.class);
+        binder.bind(DataCenterStreamingStats.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(DataCenterStreamingStats.class).withGeneratedName();
         jaxrsBinder(binder).bind(io.prestosql.server.protocol.ExecutingStatementResource.class);
         binder.bind(StatementHttpExecutionMBean.class).in(Scopes.SINGLETON);
         newExporter(binder).export(StatementHttpExecutionMBean.class).withGeneratedName();
@@ -247,6 +254,8 @@ public class CoordinatorModule
 
         // dispatcher
         binder.bind(DispatchManager.class).in(Scopes.SINGLETON);
+        binder.bind(StateSyncStats.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(StateSyncStats.class).withGeneratedName();
         binder.bind(FailedDispatchQueryFactory.class).in(Scopes.SINGLETON);
         binder.bind(DispatchExecutor.class).in(Scopes.SINGLETON);
 
@@ -288,6 +297,7 @@ public class CoordinatorModule
 
         // dynamic filtering service
         binder.bind(DynamicFilterService.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(DynamicFilterService.class).withGeneratedName();
 
         // query explainer
         binder.bind(QueryExplainer.class).in(Scopes.SINGLETON);
@@ -328,6 +338,10 @@ public class CoordinatorModule
 
         binder.bind(SplitSchedulerStats.class).in(Scopes.SINGLETON);
         newExporter(binder).export(SplitSchedulerStats.class).withGeneratedName();
+        binder.bind(ExecutionPlanCacheStats.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ExecutionPlanCacheStats.class).withGeneratedName();
+        binder.bind(SharedPlanCache.class).in(Scopes.SINGLETON);
+        jsonCodecBinder(binder).bindJsonCodec(SharedCachedPlan.class);
         binder.bind(SqlQueryExecutionFactory.class).in(Scopes.SINGLETON);
         getAllQueryTypes().entrySet().stream()
                 .filter(entry -> entry.getValue() != QueryType.DATA_DEFINITION)
@@ -182,6 +182,8 @@ public class QueryResource
                 ZERO_MILLIS,
                 ZERO_MILLIS,
                 ZERO_MILLIS,
+                false,
+                ZERO_MILLIS,
                 ZERO_MILLIS,
                 0,
                 0,
@@ -205,6 +207,7 @@ public class QueryResource
                 ZERO_MILLIS,
                 ZERO_MILLIS,
                 ZERO_MILLIS,
+                ZERO_MILLIS,
                 false,
                 ImmutableSet.of(),
                 ZERO_BYTES,
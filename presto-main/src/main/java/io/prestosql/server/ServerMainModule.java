@@ -42,6 +42,7 @@ import io.prestosql.connector.CatalogConnectorStore;
 import io.prestosql.connector.ConnectorManager;
 import io.prestosql.connector.DataCenterConnectorManager;
 import io.prestosql.connector.system.SystemConnectorModule;
+import io.prestosql.dynamicfilter.DynamicFilterCacheManager;
 import io.prestosql.event.SplitMonitor;
 import io.prestosql.execution.ExecutionFailureInfo;
 import io.prestosql.execution.ExplainAnalyzeContext;
@@ -56,6 +57,7 @@ import io.prestosql.execution.TaskManagementExecutor;
 import io.prestosql.execution.TaskManager;
 import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.TaskStatus;
+import io.prestosql.execution.buffer.NodePagesSerdeStats;
 import io.prestosql.execution.executor.MultilevelSplitQueue;
 import io.prestosql.execution.executor.TaskExecutor;
 import io.prestosql.execution.scheduler.FlatNetworkTopology;
@@ -360,6 +362,8 @@ public class ServerMainModule
 
         // exchange client
         binder.bind(ExchangeClientSupplier.class).to(ExchangeClientFactory.class).in(Scopes.SINGLETON);
+        binder.bind(NodePagesSerdeStats.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(NodePagesSerdeStats.class).withGeneratedName();
         httpClientBinder(binder).bindHttpClient("exchange", ForExchange.class)
                 .withTracing()
                 .withFilter(GenerateTraceTokenRequestFilter.class)
@@ -504,6 +508,7 @@ public class ServerMainModule
 
         // State store
         binder.bind(StateStoreProvider.class).to(LocalStateStoreProvider.class).in(Scopes.SINGLETON);
+        binder.bind(DynamicFilterCacheManager.class).in(Scopes.SINGLETON);
     }
 
     public static class ExecutorCleanup
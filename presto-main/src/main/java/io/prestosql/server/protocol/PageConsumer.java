@@ -14,12 +14,16 @@
  */
 package io.prestosql.server.protocol;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.Duration;
 import io.prestosql.client.DataCenterQueryResults;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+
 public class PageConsumer
 {
     enum State
@@ -40,6 +44,7 @@ public class PageConsumer
     private boolean expectNoMoreRequests;
     private boolean stopped;
     private long lastSubscriberTime;
+    private SettableFuture<?> resultsChanged = SettableFuture.create();
 
     public PageConsumer(DataCenterQueryResults standardRunning, DataCenterQueryResults standardFinished, DataCenterQueryResults standardFailed, Duration pageConsumerTimeout)
     {
@@ -55,12 +60,31 @@ public class PageConsumer
         if (this.currentResult == null) {
             this.query = query;
             this.currentResult = result;
+            notifyResultsChanged();
         }
         else {
             throw new IllegalStateException("lastResult is not consumed yet");
         }
     }
 
+    /**
+     * Get a future that completes once there are results the subscribers did not get yet, or the consumer is stopped
+     */
+    public synchronized ListenableFuture<?> whenResultsChanged()
+    {
+        if (this.currentResult != null || this.state != State.RUNNING) {
+            return immediateFuture(null);
+        }
+        return this.resultsChanged;
+    }
+
+    private void notifyResultsChanged()
+    {
+        SettableFuture<?> future = this.resultsChanged;
+        this.resultsChanged = SettableFuture.create();
+        future.set(null);
+    }
+
     public synchronized boolean hasRoom()
     {
         return this.currentResult == null;
@@ -146,6 +170,7 @@ public class PageConsumer
     public synchronized void stop()
     {
         this.stopped = true;
+        notifyResultsChanged();
     }
 
     public synchronized void setState(Query query, State state)
@@ -153,6 +178,7 @@ public class PageConsumer
         this.query = query;
         if (this.state == State.RUNNING) {
             this.state = state;
+            notifyResultsChanged();
         }
     }
 }
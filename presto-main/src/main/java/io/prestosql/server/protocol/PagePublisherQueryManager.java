@@ -14,6 +14,7 @@
  */
 package io.prestosql.server.protocol;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.BoundedExecutor;
 import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
@@ -42,6 +43,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.concurrent.Threads.threadsNamed;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.prestosql.statestore.StateStoreConstants.CROSS_REGION_DYNAMIC_FILTER_COLLECTION;
@@ -186,6 +188,20 @@ public class PagePublisherQueryManager
         runner.add(clientId, subscriber);
     }
 
+    /**
+     * Get a future that completes once the next results of a client of the query are available
+     */
+    public synchronized ListenableFuture<?> whenResultsChanged(String globalQueryId, String clientId)
+    {
+        PagePublisherQueryRunner runner = this.queryRunners.get(globalQueryId);
+        PageConsumer consumer = runner == null ? null : runner.getConsumer(clientId);
+        if (consumer == null) {
+            // the results of the client are already final
+            return immediateFuture(null);
+        }
+        return consumer.whenResultsChanged();
+    }
+
     public synchronized void cancel(String globalQueryId, String slug)
     {
         PagePublisherQueryRunner runner = this.queryRunners.get(globalQueryId);
@@ -14,6 +14,7 @@
  */
 package io.prestosql.server.protocol;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.log.Logger;
@@ -54,6 +55,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.prestosql.statestore.StateStoreConstants.CROSS_REGION_DYNAMIC_FILTER_COLLECTION;
+import static io.prestosql.statestore.StateStoreConstants.CROSS_REGION_DYNAMIC_FILTER_SCAN_COLUMNS;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.UUID.randomUUID;
@@ -247,9 +249,11 @@ public class PagePublisherQueryRunner
 
         // try to remove bloomFilter and columns type from hazelcast
         if (stateStoreProvider.getStateStore() != null) {
-            StateCollection collection = stateStoreProvider.getStateStore().getStateCollection(queryId + CROSS_REGION_DYNAMIC_FILTER_COLLECTION);
-            if (collection != null) {
-                collection.destroy();
+            for (String suffix : ImmutableList.of(CROSS_REGION_DYNAMIC_FILTER_COLLECTION, CROSS_REGION_DYNAMIC_FILTER_SCAN_COLUMNS)) {
+                StateCollection collection = stateStoreProvider.getStateStore().getStateCollection(queryId + suffix);
+                if (collection != null) {
+                    collection.destroy();
+                }
             }
         }
     }
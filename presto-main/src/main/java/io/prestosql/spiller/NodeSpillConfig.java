@@ -25,6 +25,7 @@ public class NodeSpillConfig
 
     private boolean spillCompressionEnabled;
     private boolean spillEncryptionEnabled;
+    private boolean spillBlockEncodingEnabled;
 
     @NotNull
     public DataSize getMaxSpillPerNode()
@@ -75,4 +76,16 @@ public class NodeSpillConfig
         this.spillEncryptionEnabled = spillEncryptionEnabled;
         return this;
     }
+
+    public boolean isSpillBlockEncodingEnabled()
+    {
+        return spillBlockEncodingEnabled;
+    }
+
+    @Config("experimental.spill-block-encoding-enabled")
+    public NodeSpillConfig setSpillBlockEncodingEnabled(boolean spillBlockEncodingEnabled)
+    {
+        this.spillBlockEncodingEnabled = spillBlockEncodingEnabled;
+        return this;
+    }
 }
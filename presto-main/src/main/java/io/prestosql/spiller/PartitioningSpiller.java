@@ -21,6 +21,10 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.function.IntPredicate;
 
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static java.util.Objects.requireNonNull;
 
 public interface PartitioningSpiller
@@ -34,6 +38,22 @@ public interface PartitioningSpiller
      */
     PartitioningSpillResult partitionAndSpill(Page page, IntPredicate spillPartitionMask);
 
+    /**
+     * Partition and spill all the pages to their partitions, a page being spilled once the previous one is.
+     * The pages may be taken from the iterator by the spilling threads.
+     */
+    default ListenableFuture<Void> partitionAndSpill(Iterator<Page> pages)
+    {
+        while (pages.hasNext()) {
+            ListenableFuture<?> spillingFuture = partitionAndSpill(pages.next(), partition -> true).getSpillingFuture();
+            if (!spillingFuture.isDone()) {
+                return transformAsync(spillingFuture, ignored -> partitionAndSpill(pages), directExecutor());
+            }
+            checkSuccess(spillingFuture, "spilling failed");
+        }
+        return immediateFuture(null);
+    }
+
     /**
      * Returns iterator of previously spilled pages from given partition. Callers are expected to call
      * this method once. Calling multiple times can results in undefined behavior.
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.split;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.execution.Lifespan;
+import io.prestosql.spi.connector.ConnectorPartitionHandle;
+
+import javax.annotation.Nullable;
+
+import java.util.function.Supplier;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Holds back the splits of a probe side scan until the dynamic filters of the scan are available,
+ * so the connector can already prune splits with them. The wait starts with the first batch request.
+ */
+public class DynamicFilterAwaitingSplitSource
+        implements SplitSource
+{
+    private final SplitSource splitSource;
+    private final Supplier<ListenableFuture<?>> dynamicFiltersReadySupplier;
+
+    private ListenableFuture<?> dynamicFiltersReady;
+
+    public DynamicFilterAwaitingSplitSource(SplitSource splitSource, Supplier<ListenableFuture<?>> dynamicFiltersReadySupplier)
+    {
+        this.splitSource = requireNonNull(splitSource, "splitSource is null");
+        this.dynamicFiltersReadySupplier = requireNonNull(dynamicFiltersReadySupplier, "dynamicFiltersReadySupplier is null");
+    }
+
+    @Nullable
+    @Override
+    public CatalogName getCatalogName()
+    {
+        return splitSource.getCatalogName();
+    }
+
+    @Override
+    public synchronized ListenableFuture<SplitBatch> getNextBatch(ConnectorPartitionHandle partitionHandle, Lifespan lifespan, int maxSize)
+    {
+        if (dynamicFiltersReady == null) {
+            dynamicFiltersReady = dynamicFiltersReadySupplier.get();
+        }
+        if (dynamicFiltersReady.isDone()) {
+            return splitSource.getNextBatch(partitionHandle, lifespan, maxSize);
+        }
+        return Futures.transformAsync(dynamicFiltersReady, ignored -> splitSource.getNextBatch(partitionHandle, lifespan, maxSize), directExecutor());
+    }
+
+    @Override
+    public void close()
+    {
+        splitSource.close();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return splitSource.isFinished();
+    }
+}
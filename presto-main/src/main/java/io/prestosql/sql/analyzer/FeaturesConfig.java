@@ -43,6 +43,7 @@ import static io.prestosql.sql.analyzer.FeaturesConfig.JoinReorderingStrategy.EL
 import static io.prestosql.sql.analyzer.FeaturesConfig.RedistributeWritesType.RANDOM;
 import static io.prestosql.sql.analyzer.RegexLibrary.JONI;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 @DefunctConfig({
@@ -92,6 +93,7 @@ public class FeaturesConfig
     private boolean pushLimitThroughSemiJoin = true;
     private boolean pushLimitThroughOuterJoin = true;
     private boolean exchangeCompressionEnabled;
+    private boolean exchangeBlockEncodingEnabled;
     private boolean legacyTimestamp = true;
     private boolean optimizeMixedDistinctAggregations;
     private boolean unwrapCasts = true;
@@ -135,8 +137,10 @@ public class FeaturesConfig
     private Duration iterativeOptimizerTimeout = new Duration(3, MINUTES); // by default let optimizer wait a long time in case it retrieves some data from ConnectorMetadata
     private boolean enableDynamicFiltering;
     private int dynamicFilteringMaxPerDriverRowCount = 100;
-    private int dynamicFilteringDataStructure;
+    private int dynamicFilteringDataStructure = 2;
     private DataSize dynamicFilteringMaxPerDriverSize = new DataSize(10, KILOBYTE);
+    private double dynamicFilteringBloomFilterFpp = 0.1;
+    private Duration dynamicFilteringSplitSchedulingWaitTime = new Duration(0, MILLISECONDS);
     // enable or disable execution plan cache functionality via Session properties
     private boolean enableExecutionPlanCache;
 
@@ -825,6 +829,7 @@ public class FeaturesConfig
     }
 
     @Config("experimental.dynamic_filtering_data_structure")
+    @ConfigDescription("Data structure of dynamic filters: 0 for bloom filter, 1 for hash set, 2 for choosing it from the build side values")
     public FeaturesConfig setDynamicFilteringDataStructure(int dynamicFilteringDataStructure)
     {
         this.dynamicFilteringDataStructure = dynamicFilteringDataStructure;
@@ -856,6 +861,34 @@ public class FeaturesConfig
         return this;
     }
 
+    @DecimalMin(value = "0.0", inclusive = false)
+    @DecimalMax(value = "1.0", inclusive = false)
+    public double getDynamicFilteringBloomFilterFpp()
+    {
+        return dynamicFilteringBloomFilterFpp;
+    }
+
+    @Config("experimental.dynamic-filtering-bloom-filter-fpp")
+    @ConfigDescription("Expected false positive probability of bloom filter dynamic filters")
+    public FeaturesConfig setDynamicFilteringBloomFilterFpp(double dynamicFilteringBloomFilterFpp)
+    {
+        this.dynamicFilteringBloomFilterFpp = dynamicFilteringBloomFilterFpp;
+        return this;
+    }
+
+    public Duration getDynamicFilteringSplitSchedulingWaitTime()
+    {
+        return dynamicFilteringSplitSchedulingWaitTime;
+    }
+
+    @Config("experimental.dynamic-filtering-split-scheduling-wait-time")
+    @ConfigDescription("Maximum time the split scheduling of a probe side scan waits for its dynamic filters, 0 disables waiting")
+    public FeaturesConfig setDynamicFilteringSplitSchedulingWaitTime(Duration dynamicFilteringSplitSchedulingWaitTime)
+    {
+        this.dynamicFilteringSplitSchedulingWaitTime = dynamicFilteringSplitSchedulingWaitTime;
+        return this;
+    }
+
     /**
      * Presto can only cache execution plans for supported connectors.
      * This method checks if the session property for enabled execution plan caching
@@ -909,6 +942,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isExchangeBlockEncodingEnabled()
+    {
+        return exchangeBlockEncodingEnabled;
+    }
+
+    @Config("exchange.block-encoding-enabled")
+    @ConfigDescription("Encode the blocks of exchanged pages with codecs chosen by their data, such as bit-packing and dictionaries")
+    public FeaturesConfig setExchangeBlockEncodingEnabled(boolean exchangeBlockEncodingEnabled)
+    {
+        this.exchangeBlockEncodingEnabled = exchangeBlockEncodingEnabled;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -32,6 +32,7 @@ import io.airlift.bytecode.control.ForLoop;
 import io.airlift.bytecode.control.IfStatement;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.operator.Work;
+import io.prestosql.operator.project.BatchPageProjection;
 import io.prestosql.operator.project.ConstantPageProjection;
 import io.prestosql.operator.project.GeneratedPageProjection;
 import io.prestosql.operator.project.InputChannels;
@@ -45,8 +46,10 @@ import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.function.BatchScalarFunction;
 import io.prestosql.sql.gen.LambdaBytecodeGenerator.CompiledLambda;
 import io.prestosql.sql.planner.CompilerConfig;
+import io.prestosql.sql.relational.CallExpression;
 import io.prestosql.sql.relational.ConstantExpression;
 import io.prestosql.sql.relational.DeterminismEvaluator;
 import io.prestosql.sql.relational.Expressions;
@@ -60,6 +63,7 @@ import org.weakref.jmx.Nested;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -87,6 +91,7 @@ import static io.airlift.bytecode.expression.BytecodeExpressions.newArray;
 import static io.airlift.bytecode.expression.BytecodeExpressions.not;
 import static io.prestosql.operator.project.PageFieldsToInputParametersRewriter.rewritePageFieldsToInputParameters;
 import static io.prestosql.spi.StandardErrorCode.COMPILER_ERROR;
+import static io.prestosql.spi.function.FunctionKind.SCALAR;
 import static io.prestosql.spi.util.Reflection.constructorMethodHandle;
 import static io.prestosql.sql.gen.BytecodeUtils.generateWrite;
 import static io.prestosql.sql.gen.BytecodeUtils.invoke;
@@ -182,6 +187,11 @@ public class PageFunctionCompiler
             return () -> projectionFunction;
         }
 
+        Optional<Supplier<PageProjection>> batchProjection = compileBatchProjection(projection);
+        if (batchProjection.isPresent()) {
+            return batchProjection.get();
+        }
+
         PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(projection);
 
         CallSiteBinder callSiteBinder = new CallSiteBinder();
@@ -204,6 +214,44 @@ public class PageFunctionCompiler
                 constructorMethodHandle(pageProjectionWorkClass, BlockBuilder.class, ConnectorSession.class, Page.class, SelectedPositions.class));
     }
 
+    /**
+     * Calls of functions which can be evaluated over batches of positions, with only input columns as arguments,
+     * are projected a batch at a time instead of through generated code evaluating each position.
+     */
+    private Optional<Supplier<PageProjection>> compileBatchProjection(RowExpression projection)
+    {
+        if (!(projection instanceof CallExpression)) {
+            return Optional.empty();
+        }
+        CallExpression call = (CallExpression) projection;
+        if (call.getSignature().getKind() != SCALAR
+                || call.getArguments().isEmpty()
+                || !call.getArguments().stream().allMatch(InputReferenceExpression.class::isInstance)) {
+            return Optional.empty();
+        }
+        Optional<BatchScalarFunction> batchFunction = metadata.getScalarFunctionImplementation(call.getSignature()).getBatchFunction();
+        if (!batchFunction.isPresent()) {
+            return Optional.empty();
+        }
+
+        List<Integer> inputChannels = new ArrayList<>();
+        int[] argumentChannels = new int[call.getArguments().size()];
+        for (int i = 0; i < argumentChannels.length; i++) {
+            int field = ((InputReferenceExpression) call.getArguments().get(i)).getField();
+            if (!inputChannels.contains(field)) {
+                inputChannels.add(field);
+            }
+            argumentChannels[i] = inputChannels.indexOf(field);
+        }
+        BatchPageProjection projectionFunction = new BatchPageProjection(
+                batchFunction.get(),
+                call.getType(),
+                determinismEvaluator.isDeterministic(call),
+                new InputChannels(inputChannels),
+                argumentChannels);
+        return Optional.of(() -> projectionFunction);
+    }
+
     private static ParameterizedType generateProjectionWorkClassName(Optional<String> classNameSuffix)
     {
         return makeClassName("PageProjectionWork", classNameSuffix);
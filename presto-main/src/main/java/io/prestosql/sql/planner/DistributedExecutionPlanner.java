@@ -17,7 +17,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.log.Logger;
+import io.airlift.units.Duration;
 import io.prestosql.Session;
+import io.prestosql.dynamicfilter.CrossRegionDynamicFilters;
 import io.prestosql.dynamicfilter.DynamicFilterService;
 import io.prestosql.execution.SplitCacheMap;
 import io.prestosql.execution.TableInfo;
@@ -33,6 +35,7 @@ import io.prestosql.spi.dynamicfilter.DynamicFilter;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.resourcegroups.QueryType;
 import io.prestosql.spi.service.PropertyService;
+import io.prestosql.split.DynamicFilterAwaitingSplitSource;
 import io.prestosql.split.SampledSplitSource;
 import io.prestosql.split.SplitManager;
 import io.prestosql.split.SplitSource;
@@ -86,7 +89,10 @@ import java.util.Set;
 import java.util.function.Supplier;
 
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.prestosql.SystemSessionProperties.getDynamicFilteringSplitSchedulingWaitTime;
+import static io.prestosql.SystemSessionProperties.isCrossRegionDynamicFilterEnabled;
 import static io.prestosql.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.GROUPED_SCHEDULING;
 import static io.prestosql.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.UNGROUPED_SCHEDULING;
 import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
@@ -98,19 +104,24 @@ public class DistributedExecutionPlanner
 
     private final SplitManager splitManager;
     private final Metadata metadata;
+    private final DynamicFilterService dynamicFilterService;
 
     @Inject
-    public DistributedExecutionPlanner(SplitManager splitManager, Metadata metadata)
+    public DistributedExecutionPlanner(SplitManager splitManager, Metadata metadata, DynamicFilterService dynamicFilterService)
     {
         this.splitManager = requireNonNull(splitManager, "splitManager is null");
         this.metadata = requireNonNull(metadata, "metadata is null");
+        this.dynamicFilterService = requireNonNull(dynamicFilterService, "dynamicFilterService is null");
     }
 
     public StageExecutionPlan plan(SubPlan root, Session session)
     {
         ImmutableList.Builder<SplitSource> allSplitSources = ImmutableList.builder();
         try {
-            return doPlan(root, session, allSplitSources);
+            Map<PlanNodeId, CrossRegionDynamicFilters> crossRegionDynamicFilters = isCrossRegionDynamicFilterEnabled(session)
+                    ? dynamicFilterService.registerCrossRegionDynamicFilters(session.getQueryId(), root)
+                    : ImmutableMap.of();
+            return doPlan(root, session, allSplitSources, crossRegionDynamicFilters);
         }
         catch (Throwable t) {
             allSplitSources.build().forEach(DistributedExecutionPlanner::closeSplitSource);
@@ -128,17 +139,17 @@ public class DistributedExecutionPlanner
         }
     }
 
-    private StageExecutionPlan doPlan(SubPlan root, Session session, ImmutableList.Builder<SplitSource> allSplitSources)
+    private StageExecutionPlan doPlan(SubPlan root, Session session, ImmutableList.Builder<SplitSource> allSplitSources, Map<PlanNodeId, CrossRegionDynamicFilters> crossRegionDynamicFilters)
     {
         PlanFragment currentFragment = root.getFragment();
 
         // get splits for this fragment, this is lazy so split assignments aren't actually calculated here
-        Map<PlanNodeId, SplitSource> splitSources = currentFragment.getRoot().accept(new Visitor(session, currentFragment.getStageExecutionDescriptor(), allSplitSources), null);
+        Map<PlanNodeId, SplitSource> splitSources = currentFragment.getRoot().accept(new Visitor(session, currentFragment, allSplitSources, crossRegionDynamicFilters), null);
 
         // create child stages
         ImmutableList.Builder<StageExecutionPlan> dependencies = ImmutableList.builder();
         for (SubPlan childPlan : root.getChildren()) {
-            dependencies.add(doPlan(childPlan, session, allSplitSources));
+            dependencies.add(doPlan(childPlan, session, allSplitSources, crossRegionDynamicFilters));
         }
 
         // extract TableInfo
@@ -169,12 +180,22 @@ public class DistributedExecutionPlanner
         private final Session session;
         private final StageExecutionDescriptor stageExecutionDescriptor;
         private final ImmutableList.Builder<SplitSource> splitSources;
+        // dynamic filters built in the same stage as the scan are only collected once its splits run
+        private final Set<String> stageDynamicFilters;
+        private final Map<PlanNodeId, CrossRegionDynamicFilters> crossRegionDynamicFilters;
 
-        private Visitor(Session session, StageExecutionDescriptor stageExecutionDescriptor, ImmutableList.Builder<SplitSource> allSplitSources)
+        private Visitor(Session session, PlanFragment fragment, ImmutableList.Builder<SplitSource> allSplitSources, Map<PlanNodeId, CrossRegionDynamicFilters> crossRegionDynamicFilters)
         {
             this.session = session;
-            this.stageExecutionDescriptor = stageExecutionDescriptor;
+            this.crossRegionDynamicFilters = crossRegionDynamicFilters;
+            this.stageExecutionDescriptor = fragment.getStageExecutionDescriptor();
             this.splitSources = allSplitSources;
+            this.stageDynamicFilters = searchFrom(fragment.getRoot())
+                    .where(JoinNode.class::isInstance)
+                    .findAll()
+                    .stream()
+                    .flatMap(node -> ((JoinNode) node).getDynamicFilters().keySet().stream())
+                    .collect(toImmutableSet());
         }
 
         @Override
@@ -219,6 +240,15 @@ public class DistributedExecutionPlanner
                 dynamicFilterSupplier = DynamicFilterService.getDynamicFilterSupplier(session.getQueryId(), dynamicFilters, assignments);
             }
 
+            // filters sent by another data center for the output of the query let the connector prune splits and partitions
+            CrossRegionDynamicFilters crossRegionFilters = crossRegionDynamicFilters.get(nodeId);
+            if (crossRegionFilters != null && !stageExecutionDescriptor.isScanGroupedExecution(nodeId)) {
+                Supplier<Set<DynamicFilter>> localSupplier = dynamicFilterSupplier;
+                dynamicFilterSupplier = localSupplier == null
+                        ? crossRegionFilters::getDynamicFilterSet
+                        : () -> ImmutableSet.<DynamicFilter>builder().addAll(localSupplier.get()).addAll(crossRegionFilters.getDynamicFilterSet()).build();
+            }
+
             //TODO: Find a better to wrap the Cache Predicates
             //How would this change when we add support to cache  small tables entirely without the need to provide predicates
             Set<TupleDomain<ColumnMetadata>> userDefinedCachePredicates = ImmutableSet.of();
@@ -236,6 +266,19 @@ public class DistributedExecutionPlanner
                     queryInfo,
                     userDefinedCachePredicates);
 
+            Duration dynamicFilterWaitTime = getDynamicFilteringSplitSchedulingWaitTime(session);
+            if (dynamicFilterSupplier != null && dynamicFilterWaitTime.toMillis() > 0) {
+                Set<String> awaitedFilterIds = dynamicFilters.stream()
+                        .map(DynamicFilters.Descriptor::getId)
+                        .filter(filterId -> !stageDynamicFilters.contains(filterId))
+                        .collect(toImmutableSet());
+                if (!awaitedFilterIds.isEmpty()) {
+                    String queryId = session.getQueryId().getId();
+                    splitSource = new DynamicFilterAwaitingSplitSource(splitSource,
+                            () -> dynamicFilterService.waitForDynamicFilters(queryId, awaitedFilterIds, dynamicFilterWaitTime));
+                }
+            }
+
             splitSources.add(splitSource);
 
             return ImmutableMap.of(nodeId, splitSource);
@@ -19,8 +19,10 @@ import com.google.common.collect.MultimapBuilder;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.log.Logger;
-import io.airlift.slice.Slice;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.DynamicFilterRange;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedHashSetDynamicFilter;
 import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.Range;
 import io.prestosql.spi.predicate.TupleDomain;
@@ -35,9 +37,9 @@ import io.prestosql.sql.planner.plan.TableScanNode;
 import io.prestosql.sql.tree.Expression;
 import io.prestosql.sql.tree.SymbolReference;
 import io.prestosql.statestore.StateStoreProvider;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -65,12 +67,16 @@ public class LocalDynamicFilter
     // The resulting predicate for local dynamic filtering.
     private TupleDomain<String> result;
 
-    private SettableFuture<Map<Symbol, Set<String>>> bloomFilterResultFuture;
+    private SettableFuture<Map<Symbol, TypedDynamicFilter>> bloomFilterResultFuture;
 
     // Number of partitions left to be processed.
     private int partitionsLeft;
 
-    private Map<String, Set<String>> domainResult = new HashMap<>();
+    // Mapping from dynamic filter ID to hashes of the collected values.
+    private Map<String, LongOpenHashSet> domainResult = new HashMap<>();
+    private Map<String, TypedDynamicFilter.ValueKind> domainValueKinds = new HashMap<>();
+    // Mapping from dynamic filter ID to the range of the collected values, only for types with a usable ordering
+    private Map<String, DynamicFilterRange> domainRanges = new HashMap<>();
 
     private final StateStoreProvider stateStoreProvider;
     private final DynamicFilter.Type type;
@@ -96,7 +102,7 @@ public class LocalDynamicFilter
     private synchronized void addPartition(TupleDomain<String> tupleDomain)
     {
         if (type == DynamicFilter.Type.GLOBAL) {
-            Map<Symbol, Set<String>> bloomFilterResult = new HashMap<>();
+            Map<Symbol, TypedDynamicFilter> bloomFilterResult = new HashMap<>();
             if (isIncomplete) {
                 bloomFilterResultFuture.set(bloomFilterResult);
                 return;
@@ -117,20 +123,25 @@ public class LocalDynamicFilter
 
         Map<String, Domain> domains = tupleDomain.getDomains().get();
         domains.forEach((key, value) -> {
-            if (!domainResult.containsKey(key)) {
-                domainResult.put(key, new HashSet<>());
+            Optional<TypedDynamicFilter.ValueKind> valueKind = TypedDynamicFilter.ValueKind.of(value.getType());
+            if (!valueKind.isPresent()) {
+                // values of this type can not be used for dynamic filtering
+                return;
+            }
+            domainValueKinds.put(key, valueKind.get());
+            LongOpenHashSet hashes = domainResult.computeIfAbsent(key, ignored -> new LongOpenHashSet());
+            DynamicFilterRange valueRange = null;
+            if (TypedDynamicFilter.isRangeSupported(value.getType())) {
+                valueRange = domainRanges.computeIfAbsent(key, ignored -> new DynamicFilterRange(valueKind.get()));
             }
-            Set<String> set = domainResult.get(key);
             for (Range range : value.getValues().getRanges().getOrderedRanges()) {
-                Object obj = range.getSingleValue();
-                String val;
-                if (obj instanceof Slice) {
-                    val = new String(((Slice) obj).getBytes());
-                }
-                else {
-                    val = String.valueOf(obj);
+                Optional<Long> hash = TypedDynamicFilter.hashNativeValue(valueKind.get(), range.getSingleValue());
+                if (hash.isPresent()) {
+                    hashes.add(hash.get().longValue());
+                    if (valueRange != null) {
+                        valueRange.addNativeValue(range.getSingleValue());
+                    }
                 }
-                set.add(val);
             }
         });
 
@@ -140,17 +151,17 @@ public class LocalDynamicFilter
         if (partitionsLeft == 0) {
             // No more partitions are left to be processed.
 //            verify(resultFuture.set(convertTupleDomain(result)), "dynamic filter result is provided more than once");
-            Map<Symbol, Set<String>> bloomFilterResult = new HashMap<>();
+            Map<Symbol, TypedDynamicFilter> bloomFilterResult = new HashMap<>();
             if (isIncomplete) {
                 bloomFilterResultFuture.set(bloomFilterResult);
                 return;
             }
-            for (Map.Entry<String, Set<String>> entry : domainResult.entrySet()) {
+            for (Map.Entry<String, LongOpenHashSet> entry : domainResult.entrySet()) {
+                long[] hashes = entry.getValue().toLongArray();
                 for (Symbol probeSymbol : probeSymbols.get(entry.getKey())) {
-                    if (!bloomFilterResult.containsKey(probeSymbol)) {
-                        bloomFilterResult.put(probeSymbol, new HashSet<>());
-                    }
-                    bloomFilterResult.put(probeSymbol, entry.getValue());
+                    TypedHashSetDynamicFilter filter = new TypedHashSetDynamicFilter(entry.getKey(), null, domainValueKinds.get(entry.getKey()), hashes, DynamicFilter.Type.LOCAL);
+                    filter.setValueRange(domainRanges.get(entry.getKey()));
+                    bloomFilterResult.put(probeSymbol, filter);
                 }
             }
             bloomFilterResultFuture.set(bloomFilterResult);
@@ -278,7 +289,7 @@ public class LocalDynamicFilter
         return resultFuture;
     }
 
-    public ListenableFuture<Map<Symbol, Set<String>>> getBloomFilterResultFuture()
+    public ListenableFuture<Map<Symbol, TypedDynamicFilter>> getBloomFilterResultFuture()
     {
         return bloomFilterResultFuture;
     }
@@ -14,10 +14,11 @@
 package io.prestosql.sql.planner;
 
 import io.airlift.log.Logger;
-import io.airlift.slice.Slice;
+import io.prestosql.dynamicfilter.DynamicFilterCacheManager;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
 import io.prestosql.spi.dynamicfilter.DynamicFilterFactory;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
@@ -28,10 +29,8 @@ import io.prestosql.statestore.StateStoreProvider;
 import io.prestosql.utils.DynamicFilterUtils;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 public class LocalDynamicFiltersCollector
 {
@@ -41,9 +40,9 @@ public class LocalDynamicFiltersCollector
      */
     private TupleDomain<Symbol> predicate;
     private Map<Symbol, DynamicFilter> localFilters = new HashMap<>();
-    private Map<Symbol, Set<String>> predicates = new HashMap<>();
-    private Set<Symbol> globalFilters = new HashSet<>();
+    private Map<Symbol, TypedDynamicFilter> predicates = new HashMap<>();
     private StateStoreProvider stateStoreProvider;
+    private DynamicFilterCacheManager dynamicFilterCacheManager;
     private static final Logger LOG = Logger.get(LocalDynamicFiltersCollector.class);
     private Map<String, DynamicFilter> cachedGlobalDynamicFilters = new HashMap<>();
     private boolean initialized;
@@ -56,24 +55,19 @@ public class LocalDynamicFiltersCollector
         this.predicate = TupleDomain.all();
     }
 
-    synchronized void intersectBloomFilter(Map<Symbol, Set<String>> predicate)
+    synchronized void intersectBloomFilter(Map<Symbol, TypedDynamicFilter> predicate)
     {
-        for (Map.Entry<Symbol, Set<String>> entry : predicate.entrySet()) {
-            if (entry.getValue().size() == 1 && entry.getValue().contains("GLOBAL")) {
-                globalFilters.add(entry.getKey());
-                continue;
-            }
-
-            if (!predicates.containsKey(entry.getKey())) {
+        for (Map.Entry<Symbol, TypedDynamicFilter> entry : predicate.entrySet()) {
+            TypedDynamicFilter existing = predicates.get(entry.getKey());
+            if (existing == null) {
                 predicates.put(entry.getKey(), entry.getValue());
                 continue;
             }
 
-            Set<String> predicateSet = predicates.get(entry.getKey());
-            Set<String> newValues = entry.getValue();
-            for (String value : newValues) {
-                predicateSet.add(value);
-            }
+            // the existing filter may already be shared with table scans, merge into a copy
+            TypedDynamicFilter merged = TypedDynamicFilter.deserialize(existing.getFilterId(), null, existing.serialize(), existing.getType());
+            merged.union(entry.getValue());
+            predicates.put(entry.getKey(), merged);
         }
     }
 
@@ -113,28 +107,19 @@ public class LocalDynamicFiltersCollector
             }
             else {
                 boolean readFromStateStore = false;
-                if (filterId != null && stateStoreProvider.getStateStore() != null) {
+                // only read from the state store once the merged filter has been published
+                if (filterId != null && stateStoreProvider.getStateStore() != null && dynamicFilterCacheManager.isMergedFilterAvailable(filterId, queryId)) {
+                    String filterKey = DynamicFilterUtils.createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId);
                     String typeKey = DynamicFilterUtils.createKey(DynamicFilterUtils.TYPEPREFIX, filterId, queryId);
                     String type = (String) ((StateMap) stateStoreProvider.getStateStore()
                             .getStateCollection(DynamicFilterUtils.DFTYPEMAP)).get(typeKey);
                     if (type != null) {
-                        if (type.equals(DynamicFilterUtils.HASHSETTYPEGLOBAL)) {
-                            Set filter = (Set) ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGEMAP))
-                                    .get(DynamicFilterUtils.createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId));
-                            if (filter != null) {
-                                DynamicFilter dynamicFilter = DynamicFilterFactory.create(filterId, entry.getValue(), filter, DynamicFilter.Type.GLOBAL);
-                                LOG.info("got new HSDF from state store: " + filterId + " " + filter.size());
-                                cachedGlobalDynamicFilters.putIfAbsent(key, dynamicFilter);
-                                result.put(entry.getValue(), dynamicFilter);
-                                readFromStateStore = true;
-                            }
-                        }
-                        else if (type.equals(DynamicFilterUtils.BLOOMFILTERTYPEGLOBAL)) {
-                            byte[] serializedBloomFilter = (byte[]) ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGEMAP))
-                                    .get(DynamicFilterUtils.createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId));
-                            if (serializedBloomFilter != null) {
-                                DynamicFilter dynamicFilter = DynamicFilterFactory.create(filterId, entry.getValue(), serializedBloomFilter, DynamicFilter.Type.GLOBAL);
-                                LOG.info("got new BFDF from state store: " + filterId + " " + dynamicFilter.getSize());
+                        if (type.equals(DynamicFilterUtils.HASHSETTYPEGLOBAL) || type.equals(DynamicFilterUtils.BLOOMFILTERTYPEGLOBAL) || type.equals(DynamicFilterUtils.ADAPTIVETYPEGLOBAL)) {
+                            byte[] serializedFilter = (byte[]) ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGEMAP))
+                                    .get(filterKey);
+                            if (serializedFilter != null) {
+                                DynamicFilter dynamicFilter = DynamicFilterFactory.createTyped(filterId, entry.getValue(), serializedFilter, DynamicFilter.Type.GLOBAL);
+                                LOG.info("got new " + type + " dynamic filter from state store: " + filterId + " " + dynamicFilter.getSize());
                                 cachedGlobalDynamicFilters.putIfAbsent(key, dynamicFilter);
                                 result.put(entry.getValue(), dynamicFilter);
                                 readFromStateStore = true;
@@ -144,18 +129,8 @@ public class LocalDynamicFiltersCollector
                 }
                 if (!readFromStateStore) {
                     if (!localFilters.containsKey(entry.getKey()) && predicates.containsKey(entry.getKey())) {
-                        HashSet<String> valueSet = new HashSet<>();
-                        for (Object value : predicates.get(entry.getKey())) {
-                            String val;
-                            if (value instanceof Slice) {
-                                val = new String(((Slice) value).getBytes());
-                            }
-                            else {
-                                val = String.valueOf(value);
-                            }
-                            valueSet.add(val);
-                        }
-                        DynamicFilter dynamicFilter = DynamicFilterFactory.create(filterId, entry.getValue(), valueSet, DynamicFilter.Type.LOCAL);
+                        DynamicFilter dynamicFilter = predicates.get(entry.getKey()).clone();
+                        dynamicFilter.setColumnHandle(entry.getValue());
                         localFilters.put(entry.getKey(), dynamicFilter);
                     }
 
@@ -192,4 +167,9 @@ public class LocalDynamicFiltersCollector
     {
         this.stateStoreProvider = stateStoreProvider;
     }
+
+    public void setDynamicFilterCacheManager(DynamicFilterCacheManager dynamicFilterCacheManager)
+    {
+        this.dynamicFilterCacheManager = dynamicFilterCacheManager;
+    }
 }
@@ -30,12 +30,16 @@ import io.airlift.log.Logger;
 import io.airlift.node.NodeInfo;
 import io.airlift.units.DataSize;
 import io.hetu.core.transport.execution.buffer.PagesSerdeFactory;
+import io.hetu.core.transport.execution.buffer.PagesSerdeStats;
 import io.prestosql.Session;
 import io.prestosql.SystemSessionProperties;
+import io.prestosql.dynamicfilter.CrossRegionDynamicFilters;
+import io.prestosql.dynamicfilter.DynamicFilterCacheManager;
 import io.prestosql.execution.ExplainAnalyzeContext;
 import io.prestosql.execution.StageId;
 import io.prestosql.execution.TaskId;
 import io.prestosql.execution.TaskManagerConfig;
+import io.prestosql.execution.buffer.NodePagesSerdeStats;
 import io.prestosql.execution.buffer.OutputBuffer;
 import io.prestosql.index.IndexManager;
 import io.prestosql.metadata.Metadata;
@@ -241,6 +245,7 @@ import static io.prestosql.SystemSessionProperties.getTaskConcurrency;
 import static io.prestosql.SystemSessionProperties.getTaskWriterCount;
 import static io.prestosql.SystemSessionProperties.isCrossRegionDynamicFilterEnabled;
 import static io.prestosql.SystemSessionProperties.isEnableDynamicFiltering;
+import static io.prestosql.SystemSessionProperties.isExchangeBlockEncodingEnabled;
 import static io.prestosql.SystemSessionProperties.isExchangeCompressionEnabled;
 import static io.prestosql.SystemSessionProperties.isSpillEnabled;
 import static io.prestosql.SystemSessionProperties.isSpillOrderBy;
@@ -323,7 +328,9 @@ public class LocalExecutionPlanner
     private final LookupJoinOperators lookupJoinOperators;
     private final OrderingCompiler orderingCompiler;
     private final StateStoreProvider stateStoreProvider;
+    private final DynamicFilterCacheManager dynamicFilterCacheManager;
     private final NodeInfo nodeInfo;
+    private final PagesSerdeStats pagesSerdeStats;
 
     @Inject
     public LocalExecutionPlanner(
@@ -348,7 +355,9 @@ public class LocalExecutionPlanner
             LookupJoinOperators lookupJoinOperators,
             OrderingCompiler orderingCompiler,
             NodeInfo nodeInfo,
-            StateStoreProvider stateStoreProvider)
+            StateStoreProvider stateStoreProvider,
+            DynamicFilterCacheManager dynamicFilterCacheManager,
+            NodePagesSerdeStats nodePagesSerdeStats)
     {
         this.explainAnalyzeContext = requireNonNull(explainAnalyzeContext, "explainAnalyzeContext is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
@@ -374,7 +383,9 @@ public class LocalExecutionPlanner
         this.lookupJoinOperators = requireNonNull(lookupJoinOperators, "lookupJoinOperators is null");
         this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
         this.stateStoreProvider = requireNonNull(stateStoreProvider, "stateStore is null");
+        this.dynamicFilterCacheManager = requireNonNull(dynamicFilterCacheManager, "dynamicFilterCacheManager is null");
         this.nodeInfo = nodeInfo;
+        this.pagesSerdeStats = requireNonNull(nodePagesSerdeStats, "nodePagesSerdeStats is null").getStats();
     }
 
     public LocalExecutionPlan plan(
@@ -473,6 +484,7 @@ public class LocalExecutionPlanner
 
         LocalDynamicFiltersCollector collector = context.getDynamicFiltersCollector();
         collector.setStateStoreProvider(stateStoreProvider);
+        collector.setDynamicFilterCacheManager(dynamicFilterCacheManager);
 
         PhysicalOperation physicalOperation = plan.accept(new Visitor(session, stageExecutionDescriptor), context);
 
@@ -492,7 +504,7 @@ public class LocalExecutionPlanner
                                 plan.getId(),
                                 outputTypes,
                                 pagePreprocessor,
-                                new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session))))
+                                new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session), isExchangeBlockEncodingEnabled(session), pagesSerdeStats)))
                         .build(),
                 context.getDriverInstanceCount(),
                 physicalOperation.getPipelineExecutionStrategy());
@@ -766,7 +778,7 @@ public class LocalExecutionPlanner
                     context.getNextOperatorId(),
                     node.getId(),
                     exchangeClientSupplier,
-                    new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session)),
+                    new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session), isExchangeBlockEncodingEnabled(session), pagesSerdeStats),
                     orderingCompiler,
                     types,
                     outputChannels,
@@ -786,7 +798,7 @@ public class LocalExecutionPlanner
                     context.getNextOperatorId(),
                     node.getId(),
                     exchangeClientSupplier,
-                    new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session)));
+                    new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session), isExchangeBlockEncodingEnabled(session), pagesSerdeStats));
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, UNGROUPED_EXECUTION);
         }
@@ -815,7 +827,13 @@ public class LocalExecutionPlanner
             if (isCrossRegionDynamicFilterEnabled(session)) {
                 String queryId = context.getSession().getQueryId().getId();
                 List<Symbol> inputSymbols = node.getSource().getOutputSymbols();
-                OperatorFactory operatorFactory = new DynamicFilterOperator.DynamicFilterOperatorFactory(context.getNextOperatorId(), node.getId(), queryId, inputSymbols, context.getTypes(), stateStoreProvider);
+                // the filters are keyed by the output column names, null for the inputs which are not output
+                List<String> columnNames = new ArrayList<>();
+                for (Symbol symbol : inputSymbols) {
+                    int index = node.getOutputSymbols().indexOf(symbol);
+                    columnNames.add(index >= 0 ? node.getColumnNames().get(index) : null);
+                }
+                OperatorFactory operatorFactory = new DynamicFilterOperator.DynamicFilterOperatorFactory(context.getNextOperatorId(), node.getId(), queryId, inputSymbols, columnNames, context.getTypes(), stateStoreProvider);
                 return new PhysicalOperation(operatorFactory, makeLayout(node.getSource()), context, source);
             }
 
@@ -908,7 +926,9 @@ public class LocalExecutionPlanner
                     node.isPartial(),
                     hashChannel,
                     1000,
-                    joinCompiler);
+                    joinCompiler,
+                    isSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, source);
         }
@@ -1086,7 +1106,9 @@ public class LocalExecutionPlanner
                     distinctChannels,
                     node.getLimit(),
                     hashChannel,
-                    joinCompiler);
+                    joinCompiler,
+                    isSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, source);
         }
 
@@ -1162,7 +1184,15 @@ public class LocalExecutionPlanner
 
             List<Integer> channels = getChannelsForSymbols(node.getDistinctSymbols(), source.getLayout());
             Optional<Integer> hashChannel = node.getHashSymbol().map(channelGetter(source));
-            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), node.getId(), source.getTypes(), channels, hashChannel, joinCompiler);
+            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    source.getTypes(),
+                    channels,
+                    hashChannel,
+                    joinCompiler,
+                    isSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operator, makeLayout(node), context, source);
         }
 
@@ -1283,6 +1313,20 @@ public class LocalExecutionPlanner
                     dynamicFilterSupplier = () -> collector.getBloomFilters(tableScanNode, dynamicFilters.get(), queryId);
                 }
             }
+            if (sourceNode instanceof TableScanNode) {
+                Supplier<Map<ColumnHandle, DynamicFilter>> crossRegionSupplier = getCrossRegionDynamicFilterSupplier((TableScanNode) sourceNode, context);
+                if (crossRegionSupplier != null) {
+                    Supplier<Map<ColumnHandle, DynamicFilter>> localSupplier = dynamicFilterSupplier;
+                    dynamicFilterSupplier = localSupplier == null ? crossRegionSupplier : () -> {
+                        Map<ColumnHandle, DynamicFilter> filters = new HashMap<>(crossRegionSupplier.get());
+                        Map<ColumnHandle, DynamicFilter> localFilters = localSupplier.get();
+                        if (localFilters != null) {
+                            filters.putAll(localFilters);
+                        }
+                        return filters;
+                    };
+                }
+            }
 
             List<Expression> projections = new ArrayList<>();
             for (Symbol symbol : outputSymbols) {
@@ -1352,10 +1396,21 @@ public class LocalExecutionPlanner
                 columns.add(node.getAssignments().get(symbol));
             }
 
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, node.getTable(), columns);
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, node.getTable(), columns, getCrossRegionDynamicFilterSupplier(node, context));
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, stageExecutionDescriptor.isScanGroupedExecution(node.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
         }
 
+        private Supplier<Map<ColumnHandle, DynamicFilter>> getCrossRegionDynamicFilterSupplier(TableScanNode node, LocalExecutionPlanContext context)
+        {
+            // the filters sent by another data center for the output columns produced by the scan
+            if (!isCrossRegionDynamicFilterEnabled(session)) {
+                return null;
+            }
+            return CrossRegionDynamicFilters.forTableScan(stateStoreProvider, context.getSession().getQueryId().getId(), node)
+                    .<Supplier<Map<ColumnHandle, DynamicFilter>>>map(filters -> filters::getDynamicFilters)
+                    .orElse(null);
+        }
+
         @Override
         public PhysicalOperation visitValues(ValuesNode node, LocalExecutionPlanContext context)
         {
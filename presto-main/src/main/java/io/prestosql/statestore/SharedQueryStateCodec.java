@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.statestore;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.json.ObjectMapperProvider;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.SessionRepresentation;
+import io.prestosql.execution.QueryState;
+import io.prestosql.memory.MemoryPoolId;
+import io.prestosql.server.BasicQueryInfo;
+import io.prestosql.server.BasicQueryStats;
+import io.prestosql.spi.ErrorCode;
+import io.prestosql.spi.ErrorType;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spi.resourcegroups.ResourceGroupId;
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Encodes the {@link SharedQueryState} values stored in the state store. An encoded state is the version of the
+ * state, followed by the LZ4 compressed JSON of its fields, with the session written once rather than in both the
+ * state and its {@link BasicQueryInfo}. The bytes are Base64 encoded since the state store values are strings.
+ * <p>
+ * Plain JSON values, written by previous versions, are still decoded, with version 0.
+ */
+public final class SharedQueryStateCodec
+{
+    private static final ObjectMapper MAPPER = new ObjectMapperProvider().get();
+    private static final byte FORMAT = 1;
+    private static final int HEADER_SIZE = Byte.BYTES + Long.BYTES + Integer.BYTES;
+    // Base64 characters encoding the format and the version, 3 bytes are encoded by 4 characters
+    private static final int VERSION_PREFIX_LENGTH = 12;
+
+    private SharedQueryStateCodec()
+    {
+    }
+
+    /**
+     * Encode a query state
+     *
+     * @param state the query state
+     * @param version version of the state, increasing with each update of the query
+     * @return the encoded state
+     * @throws JsonProcessingException exception when fail to serialize the state to json
+     */
+    public static String encode(SharedQueryState state, long version)
+            throws JsonProcessingException
+    {
+        byte[] json = MAPPER.writeValueAsBytes(EncodedQueryState.from(state));
+        Lz4Compressor compressor = new Lz4Compressor();
+        byte[] encoded = new byte[HEADER_SIZE + compressor.maxCompressedLength(json.length)];
+        ByteBuffer.wrap(encoded)
+                .put(FORMAT)
+                .putLong(version)
+                .putInt(json.length);
+        int compressedSize = compressor.compress(json, 0, json.length, encoded, HEADER_SIZE, encoded.length - HEADER_SIZE);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(encoded, HEADER_SIZE + compressedSize));
+    }
+
+    /**
+     * Decode a query state
+     *
+     * @param value the encoded state or its plain JSON
+     * @return the query state
+     * @throws IOException exception when fail to deserialize the state
+     */
+    public static SharedQueryState decode(String value)
+            throws IOException
+    {
+        if (isJson(value)) {
+            return MAPPER.readerFor(SharedQueryState.class).readValue(value);
+        }
+
+        byte[] encoded = Base64.getDecoder().decode(value);
+        ByteBuffer header = ByteBuffer.wrap(encoded);
+        checkArgument(header.get() == FORMAT, "Unknown query state format");
+        header.getLong();
+        int jsonLength = header.getInt();
+        byte[] json = new byte[jsonLength];
+        int decompressedSize = new Lz4Decompressor().decompress(encoded, HEADER_SIZE, encoded.length - HEADER_SIZE, json, 0, jsonLength);
+        checkArgument(decompressedSize == jsonLength, "Corrupted query state");
+        EncodedQueryState state = MAPPER.readerFor(EncodedQueryState.class).readValue(json);
+        return state.toSharedQueryState();
+    }
+
+    /**
+     * Get the version of an encoded state without decoding it
+     *
+     * @param value the encoded state or its plain JSON
+     * @return the version of the state, 0 for plain JSON
+     */
+    public static long decodeVersion(String value)
+    {
+        if (isJson(value) || value.length() < VERSION_PREFIX_LENGTH) {
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.wrap(Base64.getDecoder().decode(value.substring(0, VERSION_PREFIX_LENGTH)));
+        if (header.get() != FORMAT) {
+            return 0;
+        }
+        return header.getLong();
+    }
+
+    private static boolean isJson(String value)
+    {
+        // Base64 encoded values never start with a brace
+        return value.startsWith("{");
+    }
+
+    /**
+     * Fields of a SharedQueryState and of its BasicQueryInfo, the session being shared by both
+     */
+    public static class EncodedQueryState
+    {
+        private final QueryId queryId;
+        private final SessionRepresentation session;
+        private final Optional<ResourceGroupId> resourceGroupId;
+        private final QueryState state;
+        private final MemoryPoolId memoryPool;
+        private final boolean scheduled;
+        private final URI self;
+        private final String query;
+        private final Optional<String> preparedQuery;
+        private final BasicQueryStats queryStats;
+        private final ErrorType errorType;
+        private final ErrorCode queryErrorCode;
+        private final Optional<ErrorCode> errorCode;
+        private final DataSize userMemoryReservation;
+        private final DataSize totalMemoryReservation;
+        private final Duration totalCpuTime;
+        private final DateTime stateUpdateTime;
+        private final Optional<DateTime> executionStartTime;
+
+        @JsonCreator
+        public EncodedQueryState(
+                @JsonProperty("queryId") QueryId queryId,
+                @JsonProperty("session") SessionRepresentation session,
+                @JsonProperty("resourceGroupId") Optional<ResourceGroupId> resourceGroupId,
+                @JsonProperty("state") QueryState state,
+                @JsonProperty("memoryPool") MemoryPoolId memoryPool,
+                @JsonProperty("scheduled") boolean scheduled,
+                @JsonProperty("self") URI self,
+                @JsonProperty("query") String query,
+                @JsonProperty("preparedQuery") Optional<String> preparedQuery,
+                @JsonProperty("queryStats") BasicQueryStats queryStats,
+                @JsonProperty("errorType") ErrorType errorType,
+                @JsonProperty("queryErrorCode") ErrorCode queryErrorCode,
+                @JsonProperty("errorCode") Optional<ErrorCode> errorCode,
+                @JsonProperty("userMemoryReservation") DataSize userMemoryReservation,
+                @JsonProperty("totalMemoryReservation") DataSize totalMemoryReservation,
+                @JsonProperty("totalCpuTime") Duration totalCpuTime,
+                @JsonProperty("stateUpdateTime") DateTime stateUpdateTime,
+                @JsonProperty("executionStartTime") Optional<DateTime> executionStartTime)
+        {
+            this.queryId = queryId;
+            this.session = session;
+            this.resourceGroupId = resourceGroupId;
+            this.state = state;
+            this.memoryPool = memoryPool;
+            this.scheduled = scheduled;
+            this.self = self;
+            this.query = query;
+            this.preparedQuery = preparedQuery;
+            this.queryStats = queryStats;
+            this.errorType = errorType;
+            this.queryErrorCode = queryErrorCode;
+            this.errorCode = errorCode;
+            this.userMemoryReservation = userMemoryReservation;
+            this.totalMemoryReservation = totalMemoryReservation;
+            this.totalCpuTime = totalCpuTime;
+            this.stateUpdateTime = stateUpdateTime;
+            this.executionStartTime = executionStartTime;
+        }
+
+        static EncodedQueryState from(SharedQueryState state)
+        {
+            BasicQueryInfo info = state.getBasicQueryInfo();
+            return new EncodedQueryState(
+                    info.getQueryId(),
+                    state.getSession(),
+                    info.getResourceGroupId(),
+                    info.getState(),
+                    info.getMemoryPool(),
+                    info.isScheduled(),
+                    info.getSelf(),
+                    info.getQuery(),
+                    info.getPreparedQuery(),
+                    info.getQueryStats(),
+                    info.getErrorType(),
+                    info.getErrorCode(),
+                    state.getErrorCode(),
+                    state.getUserMemoryReservation(),
+                    state.getTotalMemoryReservation(),
+                    state.getTotalCpuTime(),
+                    state.getStateUpdateTime(),
+                    state.getExecutionStartTime());
+        }
+
+        SharedQueryState toSharedQueryState()
+        {
+            BasicQueryInfo info = new BasicQueryInfo(
+                    queryId,
+                    session,
+                    resourceGroupId,
+                    state,
+                    memoryPool,
+                    scheduled,
+                    self,
+                    query,
+                    preparedQuery,
+                    queryStats,
+                    errorType,
+                    queryErrorCode);
+            return new SharedQueryState(
+                    info,
+                    session,
+                    errorCode,
+                    userMemoryReservation,
+                    totalMemoryReservation,
+                    totalCpuTime,
+                    stateUpdateTime,
+                    executionStartTime);
+        }
+
+        @JsonProperty
+        public QueryId getQueryId()
+        {
+            return queryId;
+        }
+
+        @JsonProperty
+        public SessionRepresentation getSession()
+        {
+            return session;
+        }
+
+        @JsonProperty
+        public Optional<ResourceGroupId> getResourceGroupId()
+        {
+            return resourceGroupId;
+        }
+
+        @JsonProperty
+        public QueryState getState()
+        {
+            return state;
+        }
+
+        @JsonProperty
+        public MemoryPoolId getMemoryPool()
+        {
+            return memoryPool;
+        }
+
+        @JsonProperty
+        public boolean isScheduled()
+        {
+            return scheduled;
+        }
+
+        @JsonProperty
+        public URI getSelf()
+        {
+            return self;
+        }
+
+        @JsonProperty
+        public String getQuery()
+        {
+            return query;
+        }
+
+        @JsonProperty
+        public Optional<String> getPreparedQuery()
+        {
+            return preparedQuery;
+        }
+
+        @JsonProperty
+        public BasicQueryStats getQueryStats()
+        {
+            return queryStats;
+        }
+
+        @JsonProperty
+        public ErrorType getErrorType()
+        {
+            return errorType;
+        }
+
+        @JsonProperty
+        public ErrorCode getQueryErrorCode()
+        {
+            return queryErrorCode;
+        }
+
+        @JsonProperty
+        public Optional<ErrorCode> getErrorCode()
+        {
+            return errorCode;
+        }
+
+        @JsonProperty
+        public DataSize getUserMemoryReservation()
+        {
+            return userMemoryReservation;
+        }
+
+        @JsonProperty
+        public DataSize getTotalMemoryReservation()
+        {
+            return totalMemoryReservation;
+        }
+
+        @JsonProperty
+        public Duration getTotalCpuTime()
+        {
+            return totalCpuTime;
+        }
+
+        @JsonProperty
+        public DateTime getStateUpdateTime()
+        {
+            return stateUpdateTime;
+        }
+
+        @JsonProperty
+        public Optional<DateTime> getExecutionStartTime()
+        {
+            return executionStartTime;
+        }
+    }
+}
@@ -14,9 +14,7 @@
  */
 package io.prestosql.statestore;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
-import io.airlift.json.ObjectMapperProvider;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.prestosql.execution.QueryState;
@@ -24,14 +22,20 @@ import io.prestosql.server.BasicQueryInfo;
 import io.prestosql.spi.ErrorType;
 import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
+import io.prestosql.spi.statestore.listener.EntryAddedListener;
+import io.prestosql.spi.statestore.listener.EntryEvent;
+import io.prestosql.spi.statestore.listener.EntryRemovedListener;
+import io.prestosql.spi.statestore.listener.EntryUpdatedListener;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -42,9 +46,14 @@ import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.concurrent.Threads.threadsNamed;
 import static io.prestosql.spi.StandardErrorCode.SERVER_SHUTTING_DOWN;
 import static io.prestosql.utils.StateUtils.removeState;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
 
 /**
  * State fetcher service used to fetch externalized query states from external state store
+ * <p>
+ * The background task only fetches the states changed since the previous fetch when the state map notifies
+ * its changes, and all the states otherwise or once in a while. Only the changed states are decoded again.
  *
  * @since 2019-11-29
  */
@@ -55,18 +64,28 @@ public class StateFetcher
     private final StateStoreProvider stateStoreProvider;
     private final Duration fetchInterval;
     private final Duration stateExpireTime;
+    private final StateSyncStats stats;
+    private final long fullSyncIntervalMillis;
     private final Set<String> stateCollections = new HashSet<>();
+    private final Map<String, CachedCollection> cachedCollections = new HashMap<>();
     private final ScheduledExecutorService stateUpdateExecutor;
     private ScheduledFuture<?> backgroundTask;
 
-    private static final ObjectMapper MAPPER = new ObjectMapperProvider().get();
     private static final int THREAD_POOL_SIZE = 2;
 
     public StateFetcher(StateStoreProvider stateStoreProvider, Duration fetchInterval, Duration stateExpireTime)
+    {
+        this(stateStoreProvider, fetchInterval, stateExpireTime, new StateSyncStats());
+    }
+
+    public StateFetcher(StateStoreProvider stateStoreProvider, Duration fetchInterval, Duration stateExpireTime, StateSyncStats stats)
     {
         this.stateStoreProvider = stateStoreProvider;
         this.fetchInterval = fetchInterval;
         this.stateExpireTime = stateExpireTime;
+        this.stats = requireNonNull(stats, "stats is null");
+        // missed notifications are recovered before the states could expire
+        this.fullSyncIntervalMillis = max(fetchInterval.toMillis(), stateExpireTime.toMillis() / 2);
         this.stateUpdateExecutor = Executors.newScheduledThreadPool(THREAD_POOL_SIZE, threadsNamed("state-fetcher-%s"));
     }
 
@@ -78,7 +97,9 @@ public class StateFetcher
         checkState(backgroundTask == null, "StateFetcher already started");
         backgroundTask = stateUpdateExecutor.scheduleWithFixedDelay(() -> {
             try {
-                fetchStates();
+                synchronized (this) {
+                    fetchStates(false);
+                }
             }
             catch (Exception e) {
                 log.error("Error fetching query states: " + e.getMessage());
@@ -95,6 +116,8 @@ public class StateFetcher
             if (backgroundTask != null) {
                 backgroundTask.cancel(true);
                 stateCollections.clear();
+                cachedCollections.values().forEach(CachedCollection::close);
+                cachedCollections.clear();
             }
         }
     }
@@ -118,10 +141,16 @@ public class StateFetcher
     public void unregisterStateCollection(String stateCollectionName)
     {
         stateCollections.remove(stateCollectionName);
+        synchronized (this) {
+            CachedCollection cachedCollection = cachedCollections.remove(stateCollectionName);
+            if (cachedCollection != null) {
+                cachedCollection.close();
+            }
+        }
     }
 
     /**
-     * Update local queued query states to state store
+     * Fetch all the query states from state store
      *
      * @throws IOException exception when failed to deserialize states
      */
@@ -129,40 +158,122 @@ public class StateFetcher
             throws IOException
     {
         synchronized (this) {
-            // State store hasn't been loaded yet
-            if (stateStoreProvider.getStateStore() == null) {
-                return;
+            fetchStates(true);
+        }
+    }
+
+    private void fetchStates(boolean forceFullSync)
+            throws IOException
+    {
+        // State store hasn't been loaded yet
+        if (stateStoreProvider.getStateStore() == null) {
+            return;
+        }
+
+        DateTime currentTime = new DateTime(DateTimeZone.UTC);
+        for (String stateCollectionName : stateCollections) {
+            StateCollection stateCollection = stateStoreProvider.getStateStore().getStateCollection(stateCollectionName);
+            if (stateCollection == null) {
+                continue;
+            }
+            if (stateCollectionName.equals(StateStoreConstants.CPU_USAGE_STATE_COLLECTION_NAME)) {
+                StateCacheStore.get().setCachedStates(stateCollectionName, ((StateMap) stateCollection).getAll());
+                continue;
             }
 
-            DateTime currentTime = new DateTime(DateTimeZone.UTC);
-            for (String stateCollectionName : stateCollections) {
-                StateCollection stateCollection = stateStoreProvider.getStateStore().getStateCollection(stateCollectionName);
-                if (stateCollection == null) {
-                    continue;
-                }
-                if (stateCollectionName.equals(StateStoreConstants.CPU_USAGE_STATE_COLLECTION_NAME)) {
-                    StateCacheStore.get().setCachedStates(stateCollectionName, ((StateMap) stateCollection).getAll());
-                    continue;
+            if (stateCollection.getType() == StateCollection.Type.MAP) {
+                StateMap<String, String> stateMap = (StateMap<String, String>) stateCollection;
+                CachedCollection cachedCollection = cachedCollections.get(stateCollectionName);
+                if (cachedCollection == null || cachedCollection.stateMap != stateMap) {
+                    if (cachedCollection != null) {
+                        // the collection was created again, stop listening to the previous one
+                        cachedCollection.close();
+                    }
+                    cachedCollection = new CachedCollection(stateMap);
+                    cachedCollections.put(stateCollectionName, cachedCollection);
                 }
 
-                if (stateCollection.getType() == StateCollection.Type.MAP) {
-                    Map<String, String> states = ((StateMap<String, String>) stateCollection).getAll();
-
-                    ImmutableMap.Builder<String, SharedQueryState> queryStatesBuilder = ImmutableMap.builder();
-                    for (Map.Entry<String, String> entry : states.entrySet()) {
-                        SharedQueryState state = MAPPER.readerFor(SharedQueryState.class).readValue(entry.getValue());
-                        if (isStateExpired(state, currentTime)) {
-                            handleExpiredQueryState(state);
-                        }
-                        queryStatesBuilder.put(entry.getKey(), state);
+                boolean fullSync = forceFullSync || !cachedCollection.listenerId.isPresent()
+                        || currentTime.getMillis() - cachedCollection.lastFullSyncMillis >= fullSyncIntervalMillis;
+                if (!fullSync) {
+                    try {
+                        incrementalSync(cachedCollection, currentTime);
+                    }
+                    catch (IOException | RuntimeException e) {
+                        // the changes already taken from the notifications are recovered by fetching all the states
+                        log.warn(e, "Failed to decode the changed states of %s, fetching all the states", stateCollectionName);
+                        fullSync = true;
                     }
-                    StateCacheStore.get().setCachedStates(stateCollectionName, queryStatesBuilder.build());
                 }
-                else {
-                    log.warn("Unsupported state collection type: %s", stateCollection.getType());
+                if (fullSync) {
+                    // the changes notified while fetching all the states are applied again by the next fetch
+                    cachedCollection.changes.clear();
+                    fullSync(cachedCollection, stateMap.getAll(), currentTime);
+                }
+
+                ImmutableMap.Builder<String, SharedQueryState> queryStatesBuilder = ImmutableMap.builder();
+                for (Map.Entry<String, CachedState> entry : cachedCollection.states.entrySet()) {
+                    SharedQueryState state = entry.getValue().state;
+                    if (isStateExpired(state, currentTime)) {
+                        handleExpiredQueryState(state);
+                    }
+                    queryStatesBuilder.put(entry.getKey(), state);
                 }
+                StateCacheStore.get().setCachedStates(stateCollectionName, queryStatesBuilder.build());
+            }
+            else {
+                log.warn("Unsupported state collection type: %s", stateCollection.getType());
+            }
+        }
+    }
+
+    private void fullSync(CachedCollection cachedCollection, Map<String, String> values, DateTime currentTime)
+            throws IOException
+    {
+        long bytes = 0;
+        int decoded = 0;
+        Map<String, CachedState> states = new HashMap<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            CachedState cachedState = cachedCollection.states.get(entry.getKey());
+            if (cachedState == null || !cachedState.value.equals(entry.getValue())) {
+                cachedState = decode(entry.getValue(), currentTime);
+                decoded++;
             }
+            bytes += entry.getValue().length();
+            states.put(entry.getKey(), cachedState);
         }
+        cachedCollection.states = states;
+        cachedCollection.lastFullSyncMillis = currentTime.getMillis();
+        stats.fetchCycle(bytes, decoded, true);
+    }
+
+    private void incrementalSync(CachedCollection cachedCollection, DateTime currentTime)
+            throws IOException
+    {
+        long bytes = 0;
+        int decoded = 0;
+        for (String key : cachedCollection.changes.keySet()) {
+            Optional<String> value = cachedCollection.changes.remove(key);
+            if (!value.isPresent()) {
+                cachedCollection.states.remove(key);
+                continue;
+            }
+            CachedState cachedState = cachedCollection.states.get(key);
+            if (cachedState == null || !cachedState.value.equals(value.get())) {
+                cachedCollection.states.put(key, decode(value.get(), currentTime));
+                decoded++;
+            }
+            bytes += value.get().length();
+        }
+        stats.fetchCycle(bytes, decoded, false);
+    }
+
+    private CachedState decode(String value, DateTime currentTime)
+            throws IOException
+    {
+        SharedQueryState state = SharedQueryStateCodec.decode(value);
+        stats.syncLag(currentTime.getMillis() - state.getStateUpdateTime().getMillis());
+        return new CachedState(value, state);
     }
 
     /**
@@ -209,12 +320,13 @@ public class StateFetcher
                 stateCollection = stateStoreProvider.getStateStore().getStateCollection(StateStoreConstants.QUERY_STATE_COLLECTION_NAME);
                 if (stateCollection != null && stateCollection.getType().equals(StateCollection.Type.MAP)) {
                     Map<String, String> queryStateMap = ((StateMap<String, String>) stateCollection).getAll();
-                    if (queryStateMap.get(state.getBasicQueryInfo().getQueryId().getId()) != null) {
+                    String oldValue = queryStateMap.get(state.getBasicQueryInfo().getQueryId().getId());
+                    if (oldValue != null) {
                         BasicQueryInfo oldQueryInfo = state.getBasicQueryInfo();
                         SharedQueryState newState = createNewState(oldQueryInfo, state);
 
-                        String stateJson = MAPPER.writeValueAsString(newState);
-                        ((StateMap) stateCollection).put(newState.getBasicQueryInfo().getQueryId().getId(), stateJson);
+                        String encodedState = SharedQueryStateCodec.encode(newState, SharedQueryStateCodec.decodeVersion(oldValue) + 1);
+                        ((StateMap) stateCollection).put(newState.getBasicQueryInfo().getQueryId().getId(), encodedState);
                     }
                 }
             }
@@ -257,4 +369,59 @@ public class StateFetcher
 
         return newState;
     }
+
+    private static class CachedState
+    {
+        private final String value;
+        private final SharedQueryState state;
+
+        CachedState(String value, SharedQueryState state)
+        {
+            this.value = value;
+            this.state = state;
+        }
+    }
+
+    /**
+     * Decoded states of a state map, and the changes of the map notified since the previous fetch
+     */
+    private static class CachedCollection
+            implements EntryAddedListener<String, String>, EntryUpdatedListener<String, String>, EntryRemovedListener<String, String>
+    {
+        private final StateMap<String, String> stateMap;
+        private final Optional<String> listenerId;
+        // empty value for removed states
+        private final Map<String, Optional<String>> changes = new ConcurrentHashMap<>();
+        private Map<String, CachedState> states = new HashMap<>();
+        private long lastFullSyncMillis;
+
+        CachedCollection(StateMap<String, String> stateMap)
+        {
+            this.stateMap = stateMap;
+            this.listenerId = stateMap.addEntryListener(this);
+        }
+
+        void close()
+        {
+            listenerId.ifPresent(stateMap::removeEntryListener);
+        }
+
+        @Override
+        public void entryAdded(EntryEvent<String, String> event)
+        {
+            changes.put(event.getKey(), Optional.ofNullable(event.getValue()));
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, String> event)
+        {
+            changes.put(event.getKey(), Optional.ofNullable(event.getValue()));
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<String, String> event)
+        {
+            changes.put(event.getKey(), Optional.empty());
+        }
+    }
 }
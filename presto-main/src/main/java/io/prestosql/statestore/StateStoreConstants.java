@@ -80,6 +80,16 @@ public class StateStoreConstants
      */
     public static final String SPLIT_CACHE_METADATA_NAME = "split-cache-metadata-map";
 
+    /**
+     * State store map name for the execution plans shared between coordinators
+     */
+    public static final String EXECUTION_PLAN_CACHE_NAME = "execution-plan-cache";
+
+    /**
+     * State store map name for the creation times of the shared execution plans, by plan key
+     */
+    public static final String EXECUTION_PLAN_CREATE_TIMES_NAME = "execution-plan-cache-create-times";
+
     /**
      * Lock name for submitting new query
      */
@@ -124,4 +134,9 @@ public class StateStoreConstants
      * Cross region dynamic filter collection columns
      */
     public static final String CROSS_REGION_DYNAMIC_FILTER_COLLECTION_COLUMNS_TYPE = "-dynamic-filters-columns-type";
+
+    /**
+     * Cross region dynamic filter collection of the table scan columns producing the output columns
+     */
+    public static final String CROSS_REGION_DYNAMIC_FILTER_SCAN_COLUMNS = "-dynamic-filters-scan-columns";
 }
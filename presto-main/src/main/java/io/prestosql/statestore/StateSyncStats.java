@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.statestore;
+
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.DistributionStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+/**
+ * Statistics of the query states synchronized between coordinators by the StateUpdater and the StateFetcher
+ */
+public class StateSyncStats
+{
+    private final DistributionStat updatedBytes = new DistributionStat();
+    private final CounterStat updatedStates = new CounterStat();
+    private final CounterStat unchangedStates = new CounterStat();
+    private final DistributionStat fetchedBytes = new DistributionStat();
+    private final CounterStat decodedStates = new CounterStat();
+    private final CounterStat fullSyncs = new CounterStat();
+    private final CounterStat incrementalSyncs = new CounterStat();
+    private final DistributionStat syncLagMillis = new DistributionStat();
+
+    public void updateCycle(long bytes, int updated, int unchanged)
+    {
+        updatedBytes.add(bytes);
+        updatedStates.update(updated);
+        unchangedStates.update(unchanged);
+    }
+
+    public void fetchCycle(long bytes, int decoded, boolean fullSync)
+    {
+        fetchedBytes.add(bytes);
+        decodedStates.update(decoded);
+        if (fullSync) {
+            fullSyncs.update(1);
+        }
+        else {
+            incrementalSyncs.update(1);
+        }
+    }
+
+    public void syncLag(long millis)
+    {
+        syncLagMillis.add(millis);
+    }
+
+    /**
+     * Bytes of the query states written to the state store by each update cycle
+     */
+    @Managed
+    @Nested
+    public DistributionStat getUpdatedBytes()
+    {
+        return updatedBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getUpdatedStates()
+    {
+        return updatedStates;
+    }
+
+    /**
+     * Query states not written since they did not change since the previous update
+     */
+    @Managed
+    @Nested
+    public CounterStat getUnchangedStates()
+    {
+        return unchangedStates;
+    }
+
+    /**
+     * Bytes of the query states read from the state store by each fetch cycle
+     */
+    @Managed
+    @Nested
+    public DistributionStat getFetchedBytes()
+    {
+        return fetchedBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getDecodedStates()
+    {
+        return decodedStates;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getFullSyncs()
+    {
+        return fullSyncs;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getIncrementalSyncs()
+    {
+        return incrementalSyncs;
+    }
+
+    /**
+     * Time between the update of a query state by its coordinator and its decoding by this coordinator
+     */
+    @Managed
+    @Nested
+    public DistributionStat getSyncLagMillis()
+    {
+        return syncLagMillis;
+    }
+}
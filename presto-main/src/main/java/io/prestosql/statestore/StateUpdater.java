@@ -15,21 +15,24 @@
 package io.prestosql.statestore;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
-import io.airlift.json.ObjectMapperProvider;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.prestosql.dispatcher.DispatchQuery;
 import io.prestosql.execution.ManagedQueryExecution;
 import io.prestosql.execution.QueryState;
+import io.prestosql.server.BasicQueryInfo;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Executors;
@@ -42,9 +45,13 @@ import static io.airlift.concurrent.Threads.threadsNamed;
 import static io.prestosql.spi.StandardErrorCode.CLUSTER_OUT_OF_MEMORY;
 import static io.prestosql.spi.StandardErrorCode.EXCEEDED_GLOBAL_MEMORY_LIMIT;
 import static io.prestosql.utils.StateUtils.removeState;
+import static java.util.Objects.requireNonNull;
 
 /**
  * State updater service used to update locally registered query states to external state store
+ * <p>
+ * A query state is only written when one of the fields used by the other coordinators changed,
+ * or when it wasn't written for the heartbeat interval, so that it doesn't expire
  *
  * @since 2019-11-29
  */
@@ -54,17 +61,35 @@ public class StateUpdater
 
     private final StateStoreProvider stateStoreProvider;
     private final Duration updateInterval;
+    private final Duration heartbeatInterval;
+    private final StateSyncStats stats;
     private final Multimap<String, DispatchQuery> states = ArrayListMultimap.create();
+    private final Map<String, Map<QueryId, WrittenState>> writtenStates = new HashMap<>();
     private final ScheduledExecutorService stateUpdateExecutor;
     private ScheduledFuture<?> backgroundTask;
 
-    private static final ObjectMapper MAPPER = new ObjectMapperProvider().get();
     private static final int THREAD_POOL_SIZE = 2;
 
     public StateUpdater(StateStoreProvider stateStoreProvider, Duration updateInterval)
+    {
+        // unchanged states are written again after each update interval
+        this(stateStoreProvider, updateInterval, updateInterval, new StateSyncStats());
+    }
+
+    /**
+     * Create a StateUpdater
+     *
+     * @param stateStoreProvider state store provider
+     * @param updateInterval interval between two updates of the states
+     * @param heartbeatInterval maximum interval between two writes of an unchanged state
+     * @param stats state synchronization statistics
+     */
+    public StateUpdater(StateStoreProvider stateStoreProvider, Duration updateInterval, Duration heartbeatInterval, StateSyncStats stats)
     {
         this.stateStoreProvider = stateStoreProvider;
         this.updateInterval = updateInterval;
+        this.heartbeatInterval = requireNonNull(heartbeatInterval, "heartbeatInterval is null");
+        this.stats = requireNonNull(stats, "stats is null");
         this.stateUpdateExecutor = Executors.newScheduledThreadPool(THREAD_POOL_SIZE, threadsNamed("state-updater-%s"));
     }
 
@@ -93,6 +118,7 @@ public class StateUpdater
             if (backgroundTask != null) {
                 backgroundTask.cancel(true);
                 states.clear();
+                writtenStates.clear();
             }
         }
     }
@@ -143,32 +169,76 @@ public class StateUpdater
                 return;
             }
 
+            long updatedBytes = 0;
+            int updatedStates = 0;
+            int unchangedStates = 0;
+            long currentTime = System.currentTimeMillis();
             for (String stateCollectionName : states.keySet()) {
                 StateCollection stateCollection = stateStoreProvider.getStateStore().getStateCollection(stateCollectionName);
+                Map<QueryId, WrittenState> collectionWrittenStates = writtenStates.computeIfAbsent(stateCollectionName, name -> new HashMap<>());
+                Set<QueryId> registeredQueries = new HashSet<>();
                 Set<QueryId> finishedQueries = new HashSet<>();
                 for (DispatchQuery query : states.get(stateCollectionName)) {
                     SharedQueryState state = SharedQueryState.create(query);
-                    String stateJson = MAPPER.writeValueAsString(state);
-
-                    switch (stateCollection.getType()) {
-                        case MAP:
-                            ((StateMap) stateCollection).put(state.getBasicQueryInfo().getQueryId().getId(), stateJson);
-                            break;
-                        default:
-                            log.error("Unsupported state collection type: %s", stateCollection.getType());
+                    QueryId queryId = state.getBasicQueryInfo().getQueryId();
+                    registeredQueries.add(queryId);
+                    List<Object> fingerprint = fingerprint(state);
+                    WrittenState writtenState = collectionWrittenStates.get(queryId);
+
+                    if (writtenState != null && writtenState.fingerprint.equals(fingerprint)
+                            && currentTime - writtenState.writeTimeMillis < heartbeatInterval.toMillis()) {
+                        unchangedStates++;
+                    }
+                    else {
+                        long version = writtenState == null ? 1 : writtenState.version + 1;
+                        String encodedState = SharedQueryStateCodec.encode(state, version);
+
+                        switch (stateCollection.getType()) {
+                            case MAP:
+                                ((StateMap) stateCollection).put(queryId.getId(), encodedState);
+                                collectionWrittenStates.put(queryId, new WrittenState(version, fingerprint, currentTime));
+                                updatedBytes += encodedState.length();
+                                updatedStates++;
+                                break;
+                            default:
+                                log.error("Unsupported state collection type: %s", stateCollection.getType());
+                        }
                     }
 
                     if (state.getBasicQueryInfo().getState() == QueryState.FINISHED || state.getBasicQueryInfo().getState() == QueryState.FAILED) {
-                        finishedQueries.add(state.getBasicQueryInfo().getQueryId());
+                        finishedQueries.add(queryId);
                     }
                 }
 
                 // No need to update states for finished queries
                 unregisterFinishedQueries(stateCollectionName, finishedQueries);
+                registeredQueries.removeAll(finishedQueries);
+                collectionWrittenStates.keySet().retainAll(registeredQueries);
             }
+            writtenStates.keySet().retainAll(states.keySet());
+            stats.updateCycle(updatedBytes, updatedStates, unchangedStates);
         }
     }
 
+    /**
+     * Fields of a query state read by the other coordinators, a state is written again when one of them changes
+     */
+    private static List<Object> fingerprint(SharedQueryState state)
+    {
+        BasicQueryInfo info = state.getBasicQueryInfo();
+        return Arrays.asList(
+                info.getState(),
+                info.isScheduled(),
+                info.getResourceGroupId(),
+                info.getMemoryPool(),
+                info.getErrorCode(),
+                state.getErrorCode(),
+                state.getUserMemoryReservation(),
+                state.getTotalMemoryReservation(),
+                state.getTotalCpuTime(),
+                state.getExecutionStartTime());
+    }
+
     private void queryFinished(ManagedQueryExecution query)
     {
         // If query killed by OOM remove the query from OOM query state store
@@ -221,4 +291,18 @@ public class StateUpdater
             }
         }
     }
+
+    private static class WrittenState
+    {
+        private final long version;
+        private final List<Object> fingerprint;
+        private final long writeTimeMillis;
+
+        WrittenState(long version, List<Object> fingerprint, long writeTimeMillis)
+        {
+            this.version = version;
+            this.fingerprint = fingerprint;
+            this.writeTimeMillis = writeTimeMillis;
+        }
+    }
 }
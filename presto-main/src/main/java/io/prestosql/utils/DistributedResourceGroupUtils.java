@@ -14,8 +14,6 @@
  */
 package io.prestosql.utils;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import io.airlift.json.ObjectMapperProvider;
 import io.airlift.log.Logger;
 import io.prestosql.execution.QueryState;
 import io.prestosql.execution.resourcegroups.BaseResourceGroup;
@@ -24,6 +22,7 @@ import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.StateStore;
 import io.prestosql.statestore.SharedQueryState;
+import io.prestosql.statestore.SharedQueryStateCodec;
 import io.prestosql.statestore.SharedResourceGroupState;
 import io.prestosql.statestore.StateCacheStore;
 import io.prestosql.statestore.StateStoreConstants;
@@ -49,7 +48,6 @@ public class DistributedResourceGroupUtils
 {
     private static Logger log = Logger.get(StateCacheStore.class);
     private static DateTime lastUpdateTime = new DateTime();
-    private static final ObjectMapper MAPPER = new ObjectMapperProvider().get();
     private static final AtomicLong LAST_CPU_QUOTA_GENERATION_NANOS = new AtomicLong(System.nanoTime());
 
     private static final Long NANO_SECONDS_PER_SECOND = 1_000_000_000L;
@@ -96,7 +94,7 @@ public class DistributedResourceGroupUtils
         Map<String, String> queryStates = ((StateMap<String, String>) queryStateCollection).getAll();
         for (Map.Entry<String, String> entry : queryStates.entrySet()) {
             try {
-                SharedQueryState queryState = MAPPER.readerFor(SharedQueryState.class).readValue(entry.getValue());
+                SharedQueryState queryState = SharedQueryStateCodec.decode(entry.getValue());
                 if (queryEligibleForCpuUpdate(queryState)) {
                     String id = queryState.getBasicQueryInfo().getResourceGroupId().get().toString();
                     long cpuUsageMillis = cpuUsageCollection.get(id) == null ? 0 : (long) cpuUsageCollection.get(id);
@@ -31,7 +31,10 @@ public class DynamicFilterUtils
     public static final String BLOOMFILTERTYPELOCAL = "BLOOMFILTERTYPELOCAL";
     public static final String HASHSETTYPEGLOBAL = "HASHSETTYPEGLOBAL";
     public static final String BLOOMFILTERTYPEGLOBAL = "BLOOMFILTERTYPEGLOBAL";
+    public static final String ADAPTIVETYPELOCAL = "ADAPTIVETYPELOCAL";
+    public static final String ADAPTIVETYPEGLOBAL = "ADAPTIVETYPEGLOBAL";
     public static final String DFTYPEMAP = "dftypemap";
+    public static final String FINISHMAP = "dffinishmap";
 
     private DynamicFilterUtils()
     {
@@ -22,14 +22,20 @@ import io.prestosql.heuristicindex.IndexManager;
 import io.prestosql.heuristicindex.LocalIndexCache;
 import io.prestosql.heuristicindex.LocalIndexCacheLoader;
 
+import static org.weakref.jmx.guice.ExportBinder.newExporter;
+
 public class FilterModule
         extends AbstractModule
 {
     @Override
     protected void configure()
     {
-        bind(CacheLoader.class).to(LocalIndexCacheLoader.class).in(Scopes.SINGLETON);
-        bind(IndexCache.class).to(LocalIndexCache.class).in(Scopes.SINGLETON);
+        bind(LocalIndexCacheLoader.class).in(Scopes.SINGLETON);
+        bind(CacheLoader.class).to(LocalIndexCacheLoader.class);
+        newExporter(binder()).export(LocalIndexCacheLoader.class).withGeneratedName();
+        bind(LocalIndexCache.class).in(Scopes.SINGLETON);
+        bind(IndexCache.class).to(LocalIndexCache.class);
+        newExporter(binder()).export(LocalIndexCache.class).withGeneratedName();
         bind(IndexManager.class).in(Scopes.SINGLETON);
     }
 }
@@ -16,6 +16,7 @@ package io.prestosql.utils;
 
 import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.airlift.units.MinDuration;
 
@@ -32,6 +33,11 @@ public class HetuConfig
 {
     private Boolean enableFilter = Boolean.FALSE;
     private Long maxIndicesInCache = Long.valueOf(10000000);
+    private DataSize indexCacheMaxMemory;
+    private Duration indexCacheTtl = new Duration(10, TimeUnit.MINUTES);
+    private Duration indexCacheLoadingDelay = new Duration(5, TimeUnit.SECONDS);
+    private String indexCacheLocalDirectory;
+    private String indexCachePreloadTables;
     private String filterPlugins;
     private String indexStoreUri = "/opt/hetu/indices/";
     private String indexStoreType = "local";
@@ -52,6 +58,7 @@ public class HetuConfig
     private boolean executionPlanCacheEnabled;
     private long executionPlanCacheMaxItems = 1000L;
     private long executionPlanCacheTimeout = 60000L;
+    private boolean executionPlanCacheSharedEnabled;
     private boolean splitCacheMapEnabled = Boolean.FALSE;
     private Duration splitCacheStateUpdateInterval = new Duration(2, TimeUnit.SECONDS);
 
@@ -114,6 +121,74 @@ public class HetuConfig
         return this;
     }
 
+    public DataSize getIndexCacheMaxMemory()
+    {
+        return indexCacheMaxMemory;
+    }
+
+    @Config("hetu.filter.cache.max-memory")
+    @ConfigDescription("The maximum memory used by the indices in cache, replaces the limit on the number of indices when set")
+    public HetuConfig setIndexCacheMaxMemory(DataSize indexCacheMaxMemory)
+    {
+        this.indexCacheMaxMemory = indexCacheMaxMemory;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getIndexCacheTtl()
+    {
+        return indexCacheTtl;
+    }
+
+    @Config("hetu.filter.cache.ttl")
+    @ConfigDescription("Time after which loaded indices are evicted from cache")
+    public HetuConfig setIndexCacheTtl(Duration indexCacheTtl)
+    {
+        this.indexCacheTtl = indexCacheTtl;
+        return this;
+    }
+
+    @NotNull
+    public Duration getIndexCacheLoadingDelay()
+    {
+        return indexCacheLoadingDelay;
+    }
+
+    @Config("hetu.filter.cache.loading-delay")
+    @ConfigDescription("Delay before indices missing from cache are loaded asynchronously")
+    public HetuConfig setIndexCacheLoadingDelay(Duration indexCacheLoadingDelay)
+    {
+        this.indexCacheLoadingDelay = indexCacheLoadingDelay;
+        return this;
+    }
+
+    public String getIndexCacheLocalDirectory()
+    {
+        return indexCacheLocalDirectory;
+    }
+
+    @Config("hetu.filter.cache.local-directory")
+    @ConfigDescription("Local directory keeping a copy of the loaded indices, the indices are reloaded from it after a restart")
+    public HetuConfig setIndexCacheLocalDirectory(String indexCacheLocalDirectory)
+    {
+        this.indexCacheLocalDirectory = indexCacheLocalDirectory;
+        return this;
+    }
+
+    public String getIndexCachePreloadTables()
+    {
+        return indexCachePreloadTables;
+    }
+
+    @Config("hetu.filter.cache.preload-indices")
+    @ConfigDescription("Comma separated list of tables whose indices are loaded into cache at startup")
+    public HetuConfig setIndexCachePreloadTables(String indexCachePreloadTables)
+    {
+        this.indexCachePreloadTables = indexCachePreloadTables;
+        return this;
+    }
+
     /**
      * Getter for enableEmbeddedStateStore
      *
@@ -363,6 +438,19 @@ public class HetuConfig
         return this;
     }
 
+    public boolean isExecutionPlanCacheSharedEnabled()
+    {
+        return executionPlanCacheSharedEnabled;
+    }
+
+    @Config("hetu.executionplan.cache.shared.enabled")
+    @ConfigDescription("Share the cached execution plans between coordinators through the state store, requires multiple coordinators")
+    public HetuConfig setExecutionPlanCacheSharedEnabled(boolean executionPlanCacheSharedEnabled)
+    {
+        this.executionPlanCacheSharedEnabled = executionPlanCacheSharedEnabled;
+        return this;
+    }
+
     public boolean isSplitCacheMapEnabled()
     {
         return splitCacheMapEnabled;
@@ -24,6 +24,11 @@ public class HetuConstant
 
     public static final String FILTER_ENABLED = "hetu.filter.enabled";
     public static final String FILTER_MAX_INDICES_IN_CACHE = "hetu.filter.cache.max-indices-number";
+    public static final String FILTER_CACHE_MAX_MEMORY = "hetu.filter.cache.max-memory";
+    public static final String FILTER_CACHE_TTL = "hetu.filter.cache.ttl";
+    public static final String FILTER_CACHE_LOADING_DELAY = "hetu.filter.cache.loading-delay";
+    public static final String FILTER_CACHE_LOCAL_DIRECTORY = "hetu.filter.cache.local-directory";
+    public static final String FILTER_CACHE_PRELOAD_INDICES = "hetu.filter.cache.preload-indices";
     public static final String FILTER_PLUGINS = "hetu.filter.plugins";
     public static final String INDEXSTORE_KEYS_PREFIX = "hetu.filter.indexstore.";
     public static final String INDEXSTORE_URI = "hetu.filter.indexstore.uri";
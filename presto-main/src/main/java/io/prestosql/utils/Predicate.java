@@ -16,11 +16,16 @@ package io.prestosql.utils;
 
 import io.prestosql.sql.tree.ComparisonExpression;
 
+import java.util.Collections;
+import java.util.List;
+
 public class Predicate
 {
     String tableName;
     String columnName;
     Object value;
+    // comparisons on the column joined by OR, e.g. from an IN list, each with its own operator and value
+    List<Predicate> disjuncts = Collections.emptyList();
 
     public ComparisonExpression.Operator getOperator()
     {
@@ -63,4 +68,24 @@ public class Predicate
     {
         this.value = value;
     }
+
+    public List<Predicate> getDisjuncts()
+    {
+        return disjuncts;
+    }
+
+    public void setDisjuncts(List<Predicate> disjuncts)
+    {
+        this.disjuncts = disjuncts;
+    }
+
+    /**
+     * Comparisons of the predicate, the predicate matches if any of them matches
+     *
+     * @return the disjuncts of a disjunction, the predicate itself otherwise
+     */
+    public List<Predicate> getComparisons()
+    {
+        return disjuncts.isEmpty() ? Collections.singletonList(this) : disjuncts;
+    }
 }
@@ -28,6 +28,8 @@ import io.prestosql.sql.tree.DecimalLiteral;
 import io.prestosql.sql.tree.DoubleLiteral;
 import io.prestosql.sql.tree.Expression;
 import io.prestosql.sql.tree.GenericLiteral;
+import io.prestosql.sql.tree.InListExpression;
+import io.prestosql.sql.tree.InPredicate;
 import io.prestosql.sql.tree.LogicalBinaryExpression;
 import io.prestosql.sql.tree.LongLiteral;
 import io.prestosql.sql.tree.StringLiteral;
@@ -40,10 +42,12 @@ import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 
 public class PredicateExtractor
 {
@@ -109,6 +113,16 @@ public class PredicateExtractor
             if (lbExpression.getOperator() == LogicalBinaryExpression.Operator.AND) {
                 return isSupportedExpression(lbExpression.getRight()) && isSupportedExpression(lbExpression.getLeft());
             }
+            if (lbExpression.getOperator() == LogicalBinaryExpression.Operator.OR) {
+                return isSupportedDisjunction(lbExpression);
+            }
+        }
+        if (predicate instanceof InPredicate) {
+            InPredicate inPredicate = (InPredicate) predicate;
+            if (!(inPredicate.getValue() instanceof SymbolReference) || !(inPredicate.getValueList() instanceof InListExpression)) {
+                return false;
+            }
+            return ((InListExpression) inPredicate.getValueList()).getValues().stream().allMatch(PredicateExtractor::isSupportedLiteral);
         }
         if (predicate instanceof ComparisonExpression) {
             ComparisonExpression comparisonExpression = (ComparisonExpression) predicate;
@@ -126,25 +140,71 @@ public class PredicateExtractor
         return false;
     }
 
-    private static List<ComparisonExpression> getComparisonExpressions(LogicalBinaryExpression logicalBinaryExpression)
+    /**
+     * Literals whose values can be extracted to compare against the indices, possibly under a cast
+     */
+    private static boolean isSupportedLiteral(Expression expression)
     {
-        List<ComparisonExpression> comparisonExpressions = new ArrayList<>();
-        Expression left = logicalBinaryExpression.getLeft();
-        Expression right = logicalBinaryExpression.getRight();
-        if (left instanceof ComparisonExpression) {
-            comparisonExpressions.add((ComparisonExpression) left);
+        if (expression instanceof Cast) {
+            return isSupportedLiteral(((Cast) expression).getExpression());
         }
-        else {
-            comparisonExpressions.addAll(getComparisonExpressions((LogicalBinaryExpression) left));
+        return expression instanceof BooleanLiteral
+                || expression instanceof DecimalLiteral
+                || expression instanceof DoubleLiteral
+                || expression instanceof LongLiteral
+                || expression instanceof StringLiteral
+                || expression instanceof TimeLiteral
+                || expression instanceof TimestampLiteral
+                || expression instanceof GenericLiteral;
+    }
+
+    /**
+     * A disjunction can prune splits when all its disjuncts are supported comparisons or IN lists on the same column
+     */
+    private static boolean isSupportedDisjunction(Expression predicate)
+    {
+        Set<String> columns = new HashSet<>();
+        for (Expression disjunct : getDisjuncts(predicate)) {
+            Expression column;
+            if (disjunct instanceof ComparisonExpression) {
+                column = ((ComparisonExpression) disjunct).getLeft();
+            }
+            else if (disjunct instanceof InPredicate) {
+                column = ((InPredicate) disjunct).getValue();
+            }
+            else {
+                return false;
+            }
+            if (!(column instanceof SymbolReference) || !isSupportedExpression(disjunct)) {
+                return false;
+            }
+            columns.add(((SymbolReference) column).getName());
         }
+        return columns.size() == 1;
+    }
+
+    private static List<Expression> getConjuncts(Expression expression)
+    {
+        return getTerms(expression, LogicalBinaryExpression.Operator.AND);
+    }
 
-        if (right instanceof ComparisonExpression) {
-            comparisonExpressions.add((ComparisonExpression) right);
+    private static List<Expression> getDisjuncts(Expression expression)
+    {
+        return getTerms(expression, LogicalBinaryExpression.Operator.OR);
+    }
+
+    private static List<Expression> getTerms(Expression expression, LogicalBinaryExpression.Operator operator)
+    {
+        List<Expression> terms = new ArrayList<>();
+        if (expression instanceof LogicalBinaryExpression && ((LogicalBinaryExpression) expression).getOperator() == operator) {
+            LogicalBinaryExpression logicalBinaryExpression = (LogicalBinaryExpression) expression;
+            terms.addAll(getTerms(logicalBinaryExpression.getLeft(), operator));
+            terms.addAll(getTerms(logicalBinaryExpression.getRight(), operator));
         }
         else {
-            comparisonExpressions.addAll(getComparisonExpressions((LogicalBinaryExpression) right));
+            terms.add(expression);
         }
-        return comparisonExpressions;
+        return terms;
     }
 
     public static List<Predicate> buildPredicates(SqlStageExecution stage)
@@ -160,21 +220,53 @@ public class PredicateExtractor
         String fullQualifiedTableName = tableScanNode.getTable().getFullyQualifiedName();
 
         List<Predicate> predicateList = new ArrayList<>();
-        Expression predicate = filterNode.getPredicate();
-        if (predicate instanceof ComparisonExpression) {
-            ComparisonExpression comparisonExpression = (ComparisonExpression) predicate;
-            processComparisonExpression(predicateList, comparisonExpression, fullQualifiedTableName);
+        for (Expression conjunct : getConjuncts(filterNode.getPredicate())) {
+            if (conjunct instanceof ComparisonExpression) {
+                processComparisonExpression(predicateList, (ComparisonExpression) conjunct, fullQualifiedTableName);
+            }
+            else if (conjunct instanceof InPredicate || conjunct instanceof LogicalBinaryExpression) {
+                processDisjunction(predicateList, conjunct, fullQualifiedTableName);
+            }
         }
-        else if (predicate instanceof LogicalBinaryExpression) {
-            LogicalBinaryExpression lbExpression = (LogicalBinaryExpression) predicate;
-            if (lbExpression.getOperator() == LogicalBinaryExpression.Operator.AND) {
-                List<ComparisonExpression> comparisonExpressions = getComparisonExpressions(lbExpression);
-                for (ComparisonExpression comparisonExpression : comparisonExpressions) {
-                    processComparisonExpression(predicateList, comparisonExpression, fullQualifiedTableName);
+        return predicateList;
+    }
+
+    /**
+     * Build a single predicate for a disjunction of comparisons on a column, each value of an IN list
+     * becomes an equality comparison. The disjunction is skipped if any of its comparisons cannot be used.
+     */
+    private static void processDisjunction(List<Predicate> predicateList, Expression expression, String fullQualifiedTableName)
+    {
+        if (!isSupportedDisjunction(expression)) {
+            LOG.warn("Expression %s, not supported", expression.toString());
+            return;
+        }
+
+        List<Predicate> disjuncts = new ArrayList<>();
+        for (Expression disjunct : getDisjuncts(expression)) {
+            if (disjunct instanceof InPredicate) {
+                InPredicate inPredicate = (InPredicate) disjunct;
+                for (Expression value : ((InListExpression) inPredicate.getValueList()).getValues()) {
+                    disjuncts.add(buildPredicate(new ComparisonExpression(ComparisonExpression.Operator.EQUAL, inPredicate.getValue(), value), fullQualifiedTableName));
                 }
             }
+            else {
+                disjuncts.add(buildPredicate((ComparisonExpression) disjunct, fullQualifiedTableName));
+            }
         }
-        return predicateList;
+        if (disjuncts.isEmpty() || disjuncts.contains(null)) {
+            return;
+        }
+        if (disjuncts.size() == 1) {
+            predicateList.add(disjuncts.get(0));
+            return;
+        }
+
+        Predicate predicate = new Predicate();
+        predicate.setTableName(fullQualifiedTableName);
+        predicate.setColumnName(disjuncts.get(0).getColumnName());
+        predicate.setDisjuncts(disjuncts);
+        predicateList.add(predicate);
     }
 
     private static void processComparisonExpression(List<Predicate> predicateList, ComparisonExpression comparisonExpression,
@@ -20,11 +20,18 @@ import io.prestosql.heuristicindex.SplitFilter;
 import io.prestosql.heuristicindex.SplitFilterFactory;
 import io.prestosql.metadata.Split;
 import io.prestosql.split.SplitSource;
+import org.weakref.jmx.guice.MBeanModule;
 
+import javax.management.MBeanServer;
+
+import java.lang.management.ManagementFactory;
 import java.util.List;
 
 public class SplitUtils
 {
+    // created once, so that the index cache singletons are shared by all the queries and exported once
+    private static Injector filterInjector;
+
     private SplitUtils()
     {
     }
@@ -39,8 +46,7 @@ public class SplitUtils
         List<Split> filteredSplits = nextSplits.getSplits();
         //hetu: build splitFilter according to the predicate
         //hetu: careful! the same thread that injects the module should load the plugins
-        Injector injector = Guice.createInjector(new FilterModule());
-        SplitFilterFactory splitFilterFactory = injector.getInstance(SplitFilterFactory.class);
+        SplitFilterFactory splitFilterFactory = getFilterInjector().getInstance(SplitFilterFactory.class);
         for (Predicate predicate : predicateList) {
             //hetu: get filter for each predicate
             // the SplitFilterFactory will return a SplitFilter that has the applicable indexes
@@ -52,6 +58,17 @@ public class SplitUtils
         return filteredSplits;
     }
 
+    private static synchronized Injector getFilterInjector()
+    {
+        if (filterInjector == null) {
+            filterInjector = Guice.createInjector(
+                    new MBeanModule(),
+                    binder -> binder.bind(MBeanServer.class).toInstance(ManagementFactory.getPlatformMBeanServer()),
+                    new FilterModule());
+        }
+        return filterInjector;
+    }
+
     public static String getSplitKey(Split split)
     {
         return String.format("%s:%s", split.getCatalogName(), split.getConnectorSplit().getFilePath());
@@ -16,16 +16,15 @@ package io.prestosql;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.hash.BloomFilter;
-import com.google.common.hash.Funnels;
 import io.prestosql.dynamicfilter.DynamicFilterService;
 import io.prestosql.execution.StageStateMachine;
 import io.prestosql.execution.TaskId;
 import io.prestosql.metadata.InternalNode;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.connector.ColumnHandle;
-import io.prestosql.spi.dynamicfilter.BloomFilterDynamicFilter;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedBloomFilterDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
 import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.StateSet;
@@ -41,9 +40,6 @@ import io.prestosql.utils.DynamicFilterUtils;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -54,6 +50,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
 
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.prestosql.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
 import static io.prestosql.testing.TestingSession.testSessionBuilder;
 import static org.mockito.Matchers.any;
@@ -112,11 +109,11 @@ public class TestDynamicFilterServiceWithBloomFilter
                 .getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.REGISTERPREFIX, filterId, session.getQueryId().toString())).size(), 4);
 
         Thread.sleep(2000);
-        BloomFilter bf = fetchDynamicFilter(filterId, session.getQueryId().toString());
+        TypedDynamicFilter bf = fetchDynamicFilter(filterId, session.getQueryId().toString());
         for (int i = 1; i < 9; i++) {
-            Assert.assertEquals(true, bf.mightContain(i + ""));
+            Assert.assertEquals(true, bf.contains(i + ""));
         }
-        Assert.assertEquals(false, bf.mightContain("10"));
+        Assert.assertEquals(false, bf.contains("10"));
 
         // Test getDynamicFilterSupplier
         dynamicFilterSupplier = DynamicFilterService.getDynamicFilterSupplier(session.getQueryId(),
@@ -126,8 +123,8 @@ public class TestDynamicFilterServiceWithBloomFilter
         assertFalse(dynamicFilters == null, "dynamic filters should be ready");
         assertEquals(dynamicFilters.size(), 1, "there should be 1 dynamic filter in supplier");
 
-        BloomFilter bloomFilter = ((BloomFilterDynamicFilter) dynamicFilters.toArray()[0]).getBloomFilterDeserialized();
-        assertEquals(bf, bloomFilter, "dynamic filter in supplier should be the same as the one merged");
+        TypedDynamicFilter bloomFilter = (TypedDynamicFilter) dynamicFilters.toArray()[0];
+        assertEquals(bf.serialize(), bloomFilter.serialize(), "dynamic filter in supplier should be the same as the one merged");
 
         dynamicFilterSupplier = DynamicFilterService.getDynamicFilterSupplier(new QueryId("invalid"),
                 ImmutableList.of(new DynamicFilters.Descriptor(filterId, mockExpression)),
@@ -170,33 +167,22 @@ public class TestDynamicFilterServiceWithBloomFilter
         dynamicFilterService.registerTasks(node, tasks, workers, stateMachine);
     }
 
-    private BloomFilter fetchDynamicFilter(String filterId, String queryId)
+    private TypedDynamicFilter fetchDynamicFilter(String filterId, String queryId)
     {
         byte[] bloomFilter = (byte[]) ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGEMAP))
                 .get(DynamicFilterUtils.createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId));
         Assert.assertNotNull(bloomFilter);
 
-        return deserializeBloomFilter(bloomFilter);
-    }
-
-    private BloomFilter deserializeBloomFilter(byte[] serializedBloomFilter)
-    {
-        try (java.io.ByteArrayInputStream bis = new java.io.ByteArrayInputStream(serializedBloomFilter)) {
-            return BloomFilter.readFrom(bis, Funnels.stringFunnel(Charset.defaultCharset()));
-        }
-        catch (IOException e) {
-            Assert.fail("Dynamic Filter cannot be created from byte array");
-        }
-        return null;
+        return TypedDynamicFilter.deserialize(filterId, null, bloomFilter, DynamicFilter.Type.GLOBAL);
     }
 
     private void mockDynamicFilterSourceOperator(String workerId, String driverId, String filterId, String queryId, List<String> values)
     {
         ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.REGISTERPREFIX, filterId, queryId))).add(driverId);
 
-        BloomFilter bloomFilter = BloomFilter.create(Funnels.stringFunnel(Charset.defaultCharset()), 1024 * 1024, 0.1);
+        TypedBloomFilterDynamicFilter bloomFilter = TypedBloomFilterDynamicFilter.create(filterId, null, TypedDynamicFilter.ValueKind.SLICE, 1024 * 1024, 0.1, DynamicFilter.Type.GLOBAL);
         for (String val : values) {
-            bloomFilter.put(val);
+            bloomFilter.put(TypedDynamicFilter.hashSlice(utf8Slice(val)));
         }
 
         String key = DynamicFilterUtils.createKey(DynamicFilterUtils.PARTIALPREFIX, filterId, queryId);
@@ -204,15 +190,13 @@ public class TestDynamicFilterServiceWithBloomFilter
         ((StateMap) stateStoreProvider.getStateStore()
                 .getStateCollection(DynamicFilterUtils.DFTYPEMAP)).put(typeKey, DynamicFilterUtils.BLOOMFILTERTYPEGLOBAL);
 
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            bloomFilter.writeTo(out);
-            byte[] finalOutput = out.toByteArray();
-            ((StateSet) stateStoreProvider.getStateStore().getStateCollection(key)).add(finalOutput);
+        try {
+            ((StateSet) stateStoreProvider.getStateStore().getStateCollection(key)).add(bloomFilter.serialize());
             ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.FINISHREFIX, filterId, queryId))).add(driverId);
             ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.WORKERSPREFIX, filterId, queryId))).add(workerId);
         }
 
-        catch (IOException e) {
+        catch (Exception e) {
             Assert.fail("could not register finish filter, Exception happened:" + e.getMessage());
         }
     }
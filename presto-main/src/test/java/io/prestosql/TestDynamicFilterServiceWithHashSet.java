@@ -23,7 +23,8 @@ import io.prestosql.metadata.InternalNode;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
-import io.prestosql.spi.dynamicfilter.HashSetDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedHashSetDynamicFilter;
 import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.StateSet;
@@ -48,6 +49,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
 
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.prestosql.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
 import static io.prestosql.testing.TestingSession.testSessionBuilder;
 import static org.mockito.Matchers.any;
@@ -107,11 +109,12 @@ public class TestDynamicFilterServiceWithHashSet
                 .getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.REGISTERPREFIX, filterId, session.getQueryId().toString())).size(), 4);
 
         Thread.sleep(2000);
-        Set hs = fetchDynamicFilterHashSet(filterId, session.getQueryId().toString());
+        TypedDynamicFilter hs = fetchDynamicFilterHashSet(filterId, session.getQueryId().toString());
         for (int i = 11; i < 19; i++) {
             Assert.assertEquals(true, hs.contains(i + ""));
         }
         Assert.assertEquals(false, hs.contains("10"));
+        assertEquals(dynamicFilterService.getTimeToFilterAvailability().getAllTime().getCount(), 1.0, "availability time of the merged filter should be recorded");
 
         // Test getDynamicFilterSupplier
         dynamicFilterSupplier = DynamicFilterService.getDynamicFilterSupplier(session.getQueryId(),
@@ -121,8 +124,9 @@ public class TestDynamicFilterServiceWithHashSet
         assertFalse(dynamicFilters == null, "dynamic filters should be ready");
         assertEquals(dynamicFilters.size(), 1, "there should be 1 dynamic filter in supplier");
 
-        HashSetDynamicFilter hsDF = ((HashSetDynamicFilter) dynamicFilters.toArray()[0]);
-        assertEquals(hs, hsDF.getSetValues(), "dynamic filter in supplier should be the same as the one merged");
+        TypedDynamicFilter hsDF = ((TypedDynamicFilter) dynamicFilters.toArray()[0]);
+        assertEquals(hsDF.getSize(), 8);
+        assertEquals(hs.serialize(), hsDF.serialize(), "dynamic filter in supplier should be the same as the one merged");
 
         dynamicFilterSupplier = DynamicFilterService.getDynamicFilterSupplier(new QueryId("invalid"),
                 ImmutableList.of(new DynamicFilters.Descriptor(filterId, mockExpression)),
@@ -165,23 +169,23 @@ public class TestDynamicFilterServiceWithHashSet
         dynamicFilterService.registerTasks(node, tasks, workers, stateMachine);
     }
 
-    private Set fetchDynamicFilterHashSet(String filterId, String queryId)
+    private TypedDynamicFilter fetchDynamicFilterHashSet(String filterId, String queryId)
     {
-        Set hashSet = (Set) ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGEMAP))
+        byte[] hashSet = (byte[]) ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGEMAP))
                 .get(DynamicFilterUtils.createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId));
         Assert.assertNotNull(hashSet);
 
-        return hashSet;
+        return TypedDynamicFilter.deserialize(filterId, null, hashSet, DynamicFilter.Type.GLOBAL);
     }
 
     private void mockDynamicFilterSourceOperatorHashSet(String workerId, String driverId, String filterId, String queryId, List<String> values)
     {
         ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.REGISTERPREFIX, filterId, queryId))).add(driverId);
 
-        HashSet filter = new HashSet();
-        for (String val : values) {
-            filter.add(val);
-        }
+        long[] hashes = values.stream()
+                .mapToLong(val -> TypedDynamicFilter.hashSlice(utf8Slice(val)))
+                .toArray();
+        TypedHashSetDynamicFilter filter = new TypedHashSetDynamicFilter(filterId, null, TypedDynamicFilter.ValueKind.SLICE, hashes, DynamicFilter.Type.GLOBAL);
 
         String key = DynamicFilterUtils.createKey(DynamicFilterUtils.PARTIALPREFIX, filterId, queryId);
         String typeKey = DynamicFilterUtils.createKey(DynamicFilterUtils.TYPEPREFIX, filterId, queryId);
@@ -189,7 +193,7 @@ public class TestDynamicFilterServiceWithHashSet
                 .getStateCollection(DynamicFilterUtils.DFTYPEMAP)).put(typeKey, DynamicFilterUtils.HASHSETTYPEGLOBAL);
 
         try {
-            ((StateSet) stateStoreProvider.getStateStore().getStateCollection(key)).add(filter);
+            ((StateSet) stateStoreProvider.getStateStore().getStateCollection(key)).add(filter.serialize());
             ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.FINISHREFIX, filterId, queryId))).add(driverId);
             ((StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.WORKERSPREFIX, filterId, queryId))).add(workerId);
         }
@@ -199,7 +203,7 @@ public class TestDynamicFilterServiceWithHashSet
         }
     }
 
-    private StateStore setupMockStateStoreHashSet(Map<String, Set> mergeMap, Map<String, String> dfTypeMap, Set<String> registerSet, Set<String> finishSet, Set<String> workers, Set<Set> partial, String queryId, String filterId)
+    private StateStore setupMockStateStoreHashSet(Map<String, byte[]> mergeMap, Map<String, String> dfTypeMap, Set<String> registerSet, Set<String> finishSet, Set<String> workers, Set<byte[]> partial, String queryId, String filterId)
     {
         StateMap mockMergeMap = mock(StateMap.class);
         StateMap mockDFTypeMap = mock(StateMap.class);
@@ -209,12 +213,12 @@ public class TestDynamicFilterServiceWithHashSet
         StateSet mockFinishSet = mock(StateSet.class);
         StateStore stateStore = mock(StateStore.class);
 
-        when(mockMergeMap.put(anyString(), any(Set.class))).thenAnswer(i -> mergeMap.put((String) i.getArguments()[0], (Set) i.getArguments()[1]));
+        when(mockMergeMap.put(anyString(), any(byte[].class))).thenAnswer(i -> mergeMap.put((String) i.getArguments()[0], (byte[]) i.getArguments()[1]));
         when(mockDFTypeMap.put(anyString(), anyString())).thenAnswer(i -> dfTypeMap.put((String) i.getArguments()[0], (String) i.getArguments()[1]));
         when(mockWorkersSet.add(anyString())).thenAnswer(i -> workers.add((String) i.getArguments()[0]));
         when(mockRegisterSet.add(anyString())).thenAnswer(i -> registerSet.add((String) i.getArguments()[0]));
         when(mockFinishSet.add(anyString())).thenAnswer(i -> finishSet.add((String) i.getArguments()[0]));
-        when(mockPartialSet.add(any(Set.class))).thenAnswer(i -> partial.add((Set) i.getArguments()[0]));
+        when(mockPartialSet.add(any(byte[].class))).thenAnswer(i -> partial.add((byte[]) i.getArguments()[0]));
 
         when(mockMergeMap.get(anyString())).thenAnswer(i -> mergeMap.get(i.getArguments()[0]));
         when(mockDFTypeMap.get(anyString())).thenAnswer(i -> dfTypeMap.get(i.getArguments()[0]));
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.dynamicfilter;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.prestosql.cost.StatsAndCosts;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.statestore.StateCollection;
+import io.prestosql.spi.statestore.StateMap;
+import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.sql.planner.Partitioning;
+import io.prestosql.sql.planner.PartitioningScheme;
+import io.prestosql.sql.planner.PlanFragment;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.SubPlan;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.PlanFragmentId;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.statestore.MockStateMap;
+import io.prestosql.statestore.StateStoreProvider;
+import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.operator.StageExecutionDescriptor.ungroupedExecution;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
+import static io.prestosql.sql.planner.iterative.rule.test.PlanBuilder.expression;
+import static io.prestosql.statestore.StateStoreConstants.CROSS_REGION_DYNAMIC_FILTER_SCAN_COLUMNS;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestCrossRegionDynamicFilters
+{
+    private static final String QUERY_ID = "20200101_000000_00000_abcde";
+    private static final String SCAN_COLUMNS = QUERY_ID + CROSS_REGION_DYNAMIC_FILTER_SCAN_COLUMNS;
+    private static final ColumnHandle COLUMN_A = new TestingColumnHandle("col_a", 0, BIGINT);
+    private static final ColumnHandle COLUMN_B = new TestingColumnHandle("col_b", 1, BIGINT);
+
+    private final Metadata metadata = createTestMetadataManager();
+    private Map<String, StateCollection> collections;
+    private StateStoreProvider stateStoreProvider;
+    private PlanBuilder planBuilder;
+    private Symbol a;
+    private Symbol b;
+    private TableScanNode scan;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        collections = new HashMap<>();
+        StateStore stateStore = mock(StateStore.class);
+        when(stateStore.getStateCollection(anyString())).thenAnswer(invocation -> collections.get((String) invocation.getArguments()[0]));
+        when(stateStore.createStateCollection(anyString(), any(StateCollection.Type.class))).thenAnswer(invocation -> {
+            String name = (String) invocation.getArguments()[0];
+            return collections.computeIfAbsent(name, key -> new MockStateMap<>(key, new HashMap<>()));
+        });
+        doAnswer(invocation -> collections.remove((String) invocation.getArguments()[0])).when(stateStore).removeStateCollection(anyString());
+        stateStoreProvider = mock(StateStoreProvider.class);
+        when(stateStoreProvider.getStateStore()).thenReturn(stateStore);
+
+        planBuilder = new PlanBuilder(new PlanNodeIdAllocator(), metadata);
+        a = planBuilder.symbol("a", BIGINT);
+        b = planBuilder.symbol("b", BIGINT);
+        scan = planBuilder.tableScan(ImmutableList.of(a, b), ImmutableMap.of(a, COLUMN_A, b, COLUMN_B));
+    }
+
+    @Test
+    public void testTraceThroughProjectAndFilter()
+    {
+        Symbol renamed = planBuilder.symbol("renamed", BIGINT);
+        Symbol computed = planBuilder.symbol("computed", BIGINT);
+        PlanNode project = planBuilder.project(
+                Assignments.builder()
+                        .put(renamed, a.toSymbolReference())
+                        .put(b, b.toSymbolReference())
+                        .put(computed, expression("a + 1"))
+                        .build(),
+                planBuilder.filter(expression("b > 0"), scan));
+        PlanNode root = planBuilder.output(ImmutableList.of("x", "y", "z"), ImmutableList.of(renamed, b, computed), project);
+
+        Map<PlanNodeId, CrossRegionDynamicFilters> filters = CrossRegionDynamicFilters.register(stateStoreProvider, QUERY_ID, subPlan(root));
+
+        // the computed column is not traced, the filter on it would not apply to the scan column
+        assertEquals(filters.keySet(), ImmutableSet.of(scan.getId()));
+        assertEquals(getPublishedColumns(), ImmutableMap.of(scan.getId() + "/a", "x", scan.getId() + "/b", "y"));
+        assertTrue(CrossRegionDynamicFilters.forTableScan(stateStoreProvider, QUERY_ID, scan).isPresent());
+    }
+
+    @Test
+    public void testNoTraceThroughLimit()
+    {
+        PlanNode root = planBuilder.output(ImmutableList.of("x"), ImmutableList.of(a), planBuilder.limit(10, scan));
+
+        assertTrue(CrossRegionDynamicFilters.register(stateStoreProvider, QUERY_ID, subPlan(root)).isEmpty());
+        assertNull(collections.get(SCAN_COLUMNS));
+        assertFalse(CrossRegionDynamicFilters.forTableScan(stateStoreProvider, QUERY_ID, scan).isPresent());
+    }
+
+    @Test
+    public void testNoTraceThroughAggregation()
+    {
+        PlanNode aggregation = planBuilder.aggregation(builder -> builder
+                .singleGroupingSet(a)
+                .source(scan));
+        PlanNode root = planBuilder.output(ImmutableList.of("x"), ImmutableList.of(a), aggregation);
+
+        assertTrue(CrossRegionDynamicFilters.register(stateStoreProvider, QUERY_ID, subPlan(root)).isEmpty());
+        assertNull(collections.get(SCAN_COLUMNS));
+    }
+
+    @Test
+    public void testScanColumnsRemovedWhenQueryDone()
+    {
+        PlanNode root = planBuilder.output(ImmutableList.of("x"), ImmutableList.of(a), planBuilder.filter(expression("a > 0"), scan));
+        DynamicFilterService dynamicFilterService = new DynamicFilterService(stateStoreProvider);
+
+        assertEquals(dynamicFilterService.registerCrossRegionDynamicFilters(new QueryId(QUERY_ID), subPlan(root)).size(), 1);
+        assertEquals(getPublishedColumns(), ImmutableMap.of(scan.getId() + "/a", "x"));
+
+        dynamicFilterService.clearDynamicFiltersForQuery(QUERY_ID);
+        assertNull(collections.get(SCAN_COLUMNS));
+        assertFalse(CrossRegionDynamicFilters.forTableScan(stateStoreProvider, QUERY_ID, scan).isPresent());
+    }
+
+    private Map<String, String> getPublishedColumns()
+    {
+        return ((StateMap<String, String>) collections.get(SCAN_COLUMNS)).getAll();
+    }
+
+    private SubPlan subPlan(PlanNode root)
+    {
+        PlanFragment fragment = new PlanFragment(
+                new PlanFragmentId("0"),
+                root,
+                planBuilder.getTypes().allTypes(),
+                SOURCE_DISTRIBUTION,
+                ImmutableList.of(scan.getId()),
+                new PartitioningScheme(Partitioning.create(SINGLE_DISTRIBUTION, ImmutableList.of()), root.getOutputSymbols()),
+                ungroupedExecution(),
+                StatsAndCosts.empty(),
+                Optional.empty());
+        return new SubPlan(fragment, ImmutableList.of());
+    }
+}
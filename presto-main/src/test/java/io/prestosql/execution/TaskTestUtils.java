@@ -19,9 +19,11 @@ import io.airlift.json.ObjectMapperProvider;
 import io.airlift.node.NodeInfo;
 import io.prestosql.connector.CatalogName;
 import io.prestosql.cost.StatsAndCosts;
+import io.prestosql.dynamicfilter.DynamicFilterCacheManager;
 import io.prestosql.event.SplitMonitor;
 import io.prestosql.eventlistener.EventListenerManager;
 import io.prestosql.execution.TestSqlTaskManager.MockExchangeClientSupplier;
+import io.prestosql.execution.buffer.NodePagesSerdeStats;
 import io.prestosql.execution.buffer.OutputBuffers;
 import io.prestosql.execution.scheduler.LegacyNetworkTopology;
 import io.prestosql.execution.scheduler.NodeScheduler;
@@ -55,6 +57,7 @@ import io.prestosql.sql.planner.plan.PlanFragmentId;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.sql.planner.plan.TableScanNode;
 import io.prestosql.statestore.LocalStateStoreProvider;
+import io.prestosql.statestore.StateStoreProvider;
 import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
 import io.prestosql.testing.TestingSplit;
 import io.prestosql.util.FinalizerService;
@@ -125,6 +128,7 @@ public final class TaskTestUtils
         NodeInfo nodeInfo = new NodeInfo("test");
 
         SeedStoreManager seedStoreManager = new SeedStoreManager(new FileSystemClientManager());
+        StateStoreProvider stateStoreProvider = new LocalStateStoreProvider(seedStoreManager);
 
         return new LocalExecutionPlanner(
                 metadata,
@@ -154,7 +158,9 @@ public final class TaskTestUtils
                 new LookupJoinOperators(),
                 new OrderingCompiler(),
                 nodeInfo,
-                new LocalStateStoreProvider(seedStoreManager));
+                stateStoreProvider,
+                new DynamicFilterCacheManager(stateStoreProvider),
+                new NodePagesSerdeStats());
     }
 
     public static TaskInfo updateTask(SqlTask sqlTask, List<TaskSource> taskSources, OutputBuffers outputBuffers)
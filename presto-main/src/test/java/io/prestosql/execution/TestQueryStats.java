@@ -34,6 +34,7 @@ import static io.airlift.units.DataSize.succinctBytes;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.joda.time.DateTimeZone.UTC;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestQueryStats
 {
@@ -167,6 +168,8 @@ public class TestQueryStats
             new Duration(8, NANOSECONDS),
 
             new Duration(100, NANOSECONDS),
+            true,
+            new Duration(50, NANOSECONDS),
             new Duration(200, NANOSECONDS),
 
             9,
@@ -194,6 +197,7 @@ public class TestQueryStats
             new Duration(20, NANOSECONDS),
             new Duration(21, NANOSECONDS),
             new Duration(23, NANOSECONDS),
+            new Duration(24, NANOSECONDS),
             false,
             ImmutableSet.of(),
 
@@ -252,6 +256,8 @@ public class TestQueryStats
         assertEquals(actual.getDistributedPlanningTime(), new Duration(8, NANOSECONDS));
 
         assertEquals(actual.getTotalPlanningTime(), new Duration(100, NANOSECONDS));
+        assertTrue(actual.isPlanCacheHit());
+        assertEquals(actual.getPlanningTimeSaved(), new Duration(50, NANOSECONDS));
         assertEquals(actual.getFinishingTime(), new Duration(200, NANOSECONDS));
 
         assertEquals(actual.getTotalTasks(), 9);
@@ -279,6 +285,7 @@ public class TestQueryStats
         assertEquals(actual.getTotalScheduledTime(), new Duration(20, NANOSECONDS));
         assertEquals(actual.getTotalCpuTime(), new Duration(21, NANOSECONDS));
         assertEquals(actual.getTotalBlockedTime(), new Duration(23, NANOSECONDS));
+        assertEquals(actual.getTotalSplitFilterTime(), new Duration(24, NANOSECONDS));
 
         assertEquals(actual.getPhysicalInputDataSize(), new DataSize(241, BYTE));
         assertEquals(actual.getPhysicalInputPositions(), 251);
@@ -34,6 +34,7 @@ public class TestStageStats
             new DateTime(0),
 
             getTestDistribution(1),
+            getTestDistribution(2),
 
             4,
             5,
@@ -103,6 +104,7 @@ public class TestStageStats
         assertEquals(actual.getSchedulingComplete().getMillis(), 0);
 
         assertEquals(actual.getGetSplitDistribution().getCount(), 1.0);
+        assertEquals(actual.getSplitFilterDistribution().getCount(), 2.0);
 
         assertEquals(actual.getTotalTasks(), 4);
         assertEquals(actual.getRunningTasks(), 5);
@@ -17,22 +17,31 @@ import com.google.common.collect.ImmutableList;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import io.hetu.core.transport.execution.buffer.PagesSerde;
+import io.hetu.core.transport.execution.buffer.PagesSerdeFactory;
+import io.hetu.core.transport.execution.buffer.SerializedPage;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
 import io.prestosql.spi.type.Type;
 import org.testng.annotations.Test;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.readPages;
 import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.writePages;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
 import static io.prestosql.operator.PageAssertions.assertPageEquals;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.lang.String.format;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -60,6 +69,131 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testScratchBufferReuse()
+    {
+        PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
+        BlockBuilder bigintBuilder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(bigintBuilder, 42);
+        }
+        Page bigintPage = new Page(bigintBuilder.build());
+        BlockBuilder varcharBuilder = VARCHAR.createBlockBuilder(null, 100);
+        for (int i = 0; i < 100; i++) {
+            VARCHAR.writeString(varcharBuilder, "value" + i);
+        }
+        Page varcharPage = new Page(varcharBuilder.build());
+
+        SerializedPage first = serde.serialize(bigintPage);
+        SerializedPage second = serde.serialize(varcharPage);
+        long allocatedBytes = serde.getStats().getAllocatedBytes();
+        SerializedPage third = serde.serialize(bigintPage);
+
+        // once the scratch buffers are large enough, only the content of the serialized page is allocated
+        assertEquals(serde.getStats().getAllocatedBytes() - allocatedBytes, third.getSizeInBytes());
+        assertTrue(first.isCompressed());
+        assertEquals(first.getSlice(), third.getSlice());
+
+        // serializing the following pages did not overwrite the previous ones
+        assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(first), bigintPage);
+        assertPageEquals(ImmutableList.of(VARCHAR), serde.deserialize(second), varcharPage);
+        assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(third), bigintPage);
+
+        assertEquals(serde.getStats().getSerializedPages(), 3);
+        assertEquals(serde.getStats().getDeserializedPages(), 3);
+        assertEquals(serde.getStats().getSerializedBytes(), 2L * first.getUncompressedSizeInBytes() + second.getUncompressedSizeInBytes());
+        assertEquals(serde.getStats().getSerializedOutputBytes(), 2L * first.getSizeInBytes() + second.getSizeInBytes());
+    }
+
+    @Test
+    public void testNodeStats()
+    {
+        NodePagesSerdeStats nodeStats = new NodePagesSerdeStats();
+        PagesSerdeFactory firstFactory = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), true, false, nodeStats.getStats());
+        PagesSerdeFactory secondFactory = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), false, false, nodeStats.getStats());
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, 100);
+        for (int i = 0; i < 100; i++) {
+            BIGINT.writeLong(builder, i);
+        }
+        Page page = new Page(builder.build());
+
+        PagesSerde firstSerde = firstFactory.createPagesSerde();
+        firstSerde.deserialize(firstSerde.serialize(page));
+        secondFactory.createPagesSerde().serialize(page);
+
+        assertEquals(firstFactory.getStats().getSerializedPages(), 1);
+        assertEquals(secondFactory.getStats().getSerializedPages(), 1);
+        assertEquals(nodeStats.getSerializedPages(), 2);
+        assertEquals(nodeStats.getDeserializedPages(), 1);
+        assertEquals(nodeStats.getSerializedBytes(), firstFactory.getStats().getSerializedBytes() + secondFactory.getStats().getSerializedBytes());
+        assertEquals(nodeStats.getAllocatedBytes(), firstFactory.getStats().getAllocatedBytes() + secondFactory.getStats().getAllocatedBytes());
+    }
+
+    @Test
+    public void testBlockEncoding()
+    {
+        int positionCount = 1000;
+        BlockBuilder sequence = BIGINT.createBlockBuilder(null, positionCount);
+        BlockBuilder smallValues = BIGINT.createBlockBuilder(null, positionCount);
+        BlockBuilder randomValues = BIGINT.createBlockBuilder(null, positionCount);
+        BlockBuilder strings = VARCHAR.createBlockBuilder(null, positionCount);
+        BlockBuilder dictionary = VARCHAR.createBlockBuilder(null, 3);
+        VARCHAR.writeString(dictionary, "alice");
+        VARCHAR.writeString(dictionary, "bob");
+        VARCHAR.writeString(dictionary, "charlie");
+        int[] ids = new int[positionCount];
+        int[] otherIds = new int[positionCount];
+        Random random = new Random(0);
+        for (int i = 0; i < positionCount; i++) {
+            BIGINT.writeLong(sequence, 1_000_000_000_000L + i * 3);
+            if (i % 7 == 0) {
+                smallValues.appendNull();
+                strings.appendNull();
+            }
+            else {
+                BIGINT.writeLong(smallValues, -500 + random.nextInt(1000));
+                VARCHAR.writeString(strings, "value_" + random.nextInt(100));
+            }
+            BIGINT.writeLong(randomValues, random.nextLong());
+            ids[i] = i % 3;
+            otherIds[i] = random.nextInt(3);
+        }
+        Block sharedDictionary = dictionary.build();
+        Block constant = RunLengthEncodedBlock.create(BIGINT, 42L, positionCount);
+        Page page = new Page(
+                sequence.build(),
+                smallValues.build(),
+                randomValues.build(),
+                strings.build(),
+                new DictionaryBlock(sharedDictionary, ids),
+                new DictionaryBlock(sharedDictionary, otherIds),
+                constant);
+        List<Type> types = ImmutableList.of(BIGINT, BIGINT, BIGINT, VARCHAR, VARCHAR, VARCHAR, BIGINT);
+
+        PagesSerde rawSerde = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), false).createPagesSerde();
+        PagesSerde encodingSerde = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), false, true).createPagesSerde();
+        SerializedPage raw = rawSerde.serialize(page);
+        SerializedPage encoded = encodingSerde.serialize(page);
+
+        assertFalse(raw.isBlockEncoded());
+        assertTrue(encoded.isBlockEncoded());
+        assertTrue(encoded.getSizeInBytes() < raw.getSizeInBytes() / 2, format("encoded size %s, raw size %s", encoded.getSizeInBytes(), raw.getSizeInBytes()));
+
+        Page decoded = encodingSerde.deserialize(encoded);
+        assertPageEquals(types, decoded, page);
+        assertTrue(decoded.getBlock(4) instanceof DictionaryBlock);
+        assertSame(((DictionaryBlock) decoded.getBlock(4)).getDictionary(), ((DictionaryBlock) decoded.getBlock(5)).getDictionary());
+        assertTrue(decoded.getBlock(6) instanceof RunLengthEncodedBlock);
+
+        // pages are read in both formats, whichever format the serde writes
+        assertPageEquals(types, rawSerde.deserialize(encoded), page);
+        assertPageEquals(types, encodingSerde.deserialize(raw), page);
+
+        // block encoding is combined with compression
+        PagesSerde compressingSerde = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), true, true).createPagesSerde();
+        assertPageEquals(types, compressingSerde.deserialize(compressingSerde.serialize(page)), page);
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
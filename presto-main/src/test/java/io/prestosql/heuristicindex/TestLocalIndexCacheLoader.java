@@ -14,21 +14,33 @@
  */
 package io.prestosql.heuristicindex;
 
+import com.google.common.collect.ImmutableList;
 import io.hetu.core.heuristicindex.IndexClient;
+import io.hetu.core.heuristicindex.base.BloomIndex;
 import io.hetu.core.spi.heuristicindex.SplitIndexMetadata;
+import io.hetu.core.spi.heuristicindex.SplitMetadata;
 import io.prestosql.spi.service.PropertyService;
 import io.prestosql.utils.HetuConstant;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
 
 public class TestLocalIndexCacheLoader
 {
@@ -115,6 +127,61 @@ public class TestLocalIndexCacheLoader
         assertEquals(expectedSplitIndexes.size(), actualSplitIndexes.size());
     }
 
+    @Test
+    public void testLocalFileCache() throws Exception
+    {
+        Path directory = Files.createTempDirectory("index-cache");
+        try {
+            long lastModifiedTime = 1L;
+            IndexCacheKey indexCacheKey = new IndexCacheKey("table/column/path/to/split", lastModifiedTime, BloomIndex.ID);
+            BloomIndex<String> bloomIndex = new BloomIndex<>();
+            bloomIndex.addValues(new String[] {"a", "b"});
+            List<SplitIndexMetadata> expectedSplitIndexes = ImmutableList.of(new SplitIndexMetadata(bloomIndex,
+                    new SplitMetadata("table", "column", "/tmp/indices", "/path/to/split", 0), lastModifiedTime));
+
+            IndexClient indexclient = mockIndexClient();
+            when(indexclient.getLastModified(indexCacheKey.getPath())).thenReturn(lastModifiedTime);
+            when(indexclient.readSplitIndex(indexCacheKey.getPath(), BloomIndex.ID)).thenReturn(expectedSplitIndexes);
+            LocalIndexCacheLoader localIndexCacheLoader = new LocalIndexCacheLoader(indexclient, new LocalIndexFileCache(directory, indexclient));
+            assertEquals(localIndexCacheLoader.load(indexCacheKey).size(), 1);
+            assertEquals(localIndexCacheLoader.getLocalFileMisses().getTotalCount(), 1);
+
+            // after a restart the indices are read from the local copy, without accessing the index store
+            IndexClient restartedIndexclient = mockIndexClient();
+            when(restartedIndexclient.getLastModified(indexCacheKey.getPath())).thenThrow(IOException.class);
+            localIndexCacheLoader = new LocalIndexCacheLoader(restartedIndexclient, new LocalIndexFileCache(directory, restartedIndexclient));
+            List<SplitIndexMetadata> actualSplitIndexes = localIndexCacheLoader.load(indexCacheKey);
+            assertEquals(actualSplitIndexes.size(), 1);
+            assertEquals(actualSplitIndexes.get(0).getUri(), "/path/to/split");
+            assertEquals(actualSplitIndexes.get(0).getLastUpdated(), lastModifiedTime);
+            BloomIndex<String> actualBloomIndex = (BloomIndex<String>) actualSplitIndexes.get(0).getIndex();
+            assertTrue(actualBloomIndex.mightContain("a"));
+            assertTrue(actualBloomIndex.mightContain("b"));
+            assertEquals(localIndexCacheLoader.getLocalFileHits().getTotalCount(), 1);
+
+            Map<IndexCacheKey, List<SplitIndexMetadata>> tableIndexes = localIndexCacheLoader.loadTable("table", BloomIndex.ID);
+            assertEquals(tableIndexes.size(), 1);
+            assertEquals(tableIndexes.get(indexCacheKey).size(), 1);
+            assertTrue(localIndexCacheLoader.loadTable("other", BloomIndex.ID).isEmpty());
+
+            // the local copy is stale once the split is modified
+            IndexCacheKey modifiedKey = new IndexCacheKey(indexCacheKey.getPath(), lastModifiedTime + 1, BloomIndex.ID);
+            LocalIndexCacheLoader loader = localIndexCacheLoader;
+            expectThrows(Exception.class, () -> loader.load(modifiedKey));
+            assertFalse(new LocalIndexFileCache(directory, restartedIndexclient).read(indexCacheKey).isPresent());
+        }
+        finally {
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    private static IndexClient mockIndexClient() throws IOException
+    {
+        IndexClient indexclient = mock(IndexClient.class);
+        when(indexclient.newIndex(BloomIndex.ID)).thenAnswer(invocation -> new BloomIndex<>());
+        return indexclient;
+    }
+
     @Test
     public void testGetIndexStoreProperties()
     {
@@ -40,6 +40,7 @@ import org.testng.annotations.Test;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -182,6 +183,73 @@ public class TestSplitFilterFactory
         checkFilteredResult(splitUri, splitIndices, -1, splits, ComparisonExpression.Operator.EQUAL, 0);
     }
 
+    /**
+     * 1 hetu split with two minmax index splits, [1, 3] and [20, 30]
+     * <p>
+     * predicate: test_column IN (...) OR test_column > ...
+     */
+    @Test
+    public void testDisjunction() throws IOException
+    {
+        List<Split> splits = new ArrayList<>();
+
+        String splitUri = "/user/hive/warehouse/test_schema.db/test_table/testDisjunction";
+        MockSplit split = new MockSplit(splitUri, 0, 10, 100);
+        splits.add(new Split(new CatalogName("test"), split, Lifespan.taskWide()));
+
+        List<SplitIndexMetadata> splitIndices = new LinkedList<>();
+        Index first = new MinMaxIndex();
+        first.addValues(new Integer[]{1, 3});
+        Index second = new MinMaxIndex();
+        second.addValues(new Integer[]{20, 30});
+        splitIndices.add(new SplitIndexMetadata(second, new SplitMetadata(TABLE, COLUMN, null, splitUri, 5), 100));
+        splitIndices.add(new SplitIndexMetadata(first, new SplitMetadata(TABLE, COLUMN, null, splitUri, 0), 100));
+
+        // IN (5, 10, 15)
+        checkDisjunctionResult(splitUri, splitIndices, splits, 0,
+                comparison(ComparisonExpression.Operator.EQUAL, 5),
+                comparison(ComparisonExpression.Operator.EQUAL, 10),
+                comparison(ComparisonExpression.Operator.EQUAL, 15));
+
+        // IN (5, 25)
+        checkDisjunctionResult(splitUri, splitIndices, splits, 1,
+                comparison(ComparisonExpression.Operator.EQUAL, 5),
+                comparison(ComparisonExpression.Operator.EQUAL, 25));
+
+        // < 1 OR > 30
+        checkDisjunctionResult(splitUri, splitIndices, splits, 0,
+                comparison(ComparisonExpression.Operator.LESS_THAN, 1),
+                comparison(ComparisonExpression.Operator.GREATER_THAN, 30));
+
+        // = 0 OR >= 30
+        checkDisjunctionResult(splitUri, splitIndices, splits, 1,
+                comparison(ComparisonExpression.Operator.EQUAL, 0),
+                comparison(ComparisonExpression.Operator.GREATER_THAN_OR_EQUAL, 30));
+    }
+
+    private static Predicate comparison(ComparisonExpression.Operator operator, Object value)
+    {
+        Predicate predicate = new Predicate();
+        predicate.setTableName(TABLE);
+        predicate.setColumnName(COLUMN);
+        predicate.setValue(value);
+        predicate.setOperator(operator);
+        return predicate;
+    }
+
+    private synchronized void checkDisjunctionResult(String splitUri, List<SplitIndexMetadata> splitIndices, List<Split> splits, int remainedSplitsCount, Predicate... comparisons) throws IOException
+    {
+        Map<String, List<SplitIndexMetadata>> indices = new HashMap<>();
+        indices.put(Paths.get(TABLE, COLUMN, splitUri).toString(), splitIndices);
+        Predicate predicate = new Predicate();
+        predicate.setTableName(TABLE);
+        predicate.setColumnName(COLUMN);
+        predicate.setDisjuncts(Arrays.asList(comparisons));
+        SplitFilter splitFilter = getFactory(indices).getFilter(predicate, splits);
+        List<Split> filteredSplits = splitFilter.filter(splits, predicate.getValue());
+        assertEquals(filteredSplits.size(), remainedSplitsCount);
+    }
+
     @Test
     public void testEqualsNoValidIndex() throws IOException
     {
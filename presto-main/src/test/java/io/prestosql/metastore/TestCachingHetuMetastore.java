@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.metastore;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.metastore.HetuMetastore;
+import io.prestosql.spi.metastore.model.CatalogEntity;
+import io.prestosql.spi.metastore.model.DatabaseEntity;
+import io.prestosql.spi.metastore.model.TableEntity;
+import io.prestosql.spi.statestore.StateCollection;
+import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.spi.statestore.listener.EntryAddedListener;
+import io.prestosql.spi.statestore.listener.EntryEvent;
+import io.prestosql.spi.statestore.listener.EntryUpdatedListener;
+import io.prestosql.spi.statestore.listener.MapListener;
+import io.prestosql.statestore.MockStateMap;
+import io.prestosql.statestore.StateStoreProvider;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.prestosql.spi.statestore.listener.EntryEventType.ADDED;
+import static io.prestosql.spi.statestore.listener.EntryEventType.UPDATED;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestCachingHetuMetastore
+{
+    private static final String CATALOG = "catalog1";
+    private static final String DATABASE = "db1";
+
+    private InMemoryHetuMetastore delegate;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        delegate = new InMemoryHetuMetastore();
+        delegate.createCatalog(CatalogEntity.builder().setCatalogName(CATALOG).build());
+        delegate.createDatabase(DatabaseEntity.builder().setCatalogName(CATALOG).setDatabaseName(DATABASE).build());
+        delegate.createTable(table("t1"));
+        delegate.createTable(table("t2"));
+    }
+
+    @Test
+    public void testCaching()
+    {
+        CachingHetuMetastore metastore = createMetastore(Optional.empty());
+
+        assertTrue(metastore.getTable(CATALOG, DATABASE, "t1").isPresent());
+        assertTrue(metastore.getTable(CATALOG, DATABASE, "t1").isPresent());
+        assertEquals(delegate.loads.get(), 1);
+
+        // missing entities are cached too
+        assertFalse(metastore.getTable(CATALOG, DATABASE, "missing").isPresent());
+        assertFalse(metastore.getTable(CATALOG, DATABASE, "missing").isPresent());
+        assertFalse(metastore.getDatabase(CATALOG, "missing").isPresent());
+        assertFalse(metastore.getDatabase(CATALOG, "missing").isPresent());
+        assertEquals(delegate.loads.get(), 3);
+        assertEquals(metastore.getTableCacheStats().getHitRate(), 0.5);
+    }
+
+    @Test
+    public void testBulkLoading()
+    {
+        CachingHetuMetastore metastore = createMetastore(Optional.empty());
+
+        assertEquals(metastore.getAllTables(CATALOG, DATABASE).size(), 2);
+        assertEquals(metastore.getAllDatabases(CATALOG).size(), 1);
+        assertEquals(metastore.getCatalogs().size(), 1);
+        assertEquals(delegate.loads.get(), 3);
+
+        assertTrue(metastore.getTable(CATALOG, DATABASE, "t1").isPresent());
+        assertTrue(metastore.getTable(CATALOG, DATABASE, "t2").isPresent());
+        assertTrue(metastore.getDatabase(CATALOG, DATABASE).isPresent());
+        assertTrue(metastore.getCatalog(CATALOG).isPresent());
+        assertEquals(delegate.loads.get(), 3);
+    }
+
+    @Test
+    public void testWriteInvalidation()
+    {
+        CachingHetuMetastore metastore = createMetastore(Optional.empty());
+
+        assertFalse(metastore.getTable(CATALOG, DATABASE, "t3").isPresent());
+        assertEquals(metastore.getAllTables(CATALOG, DATABASE).size(), 2);
+
+        metastore.createTable(table("t3"));
+        assertTrue(metastore.getTable(CATALOG, DATABASE, "t3").isPresent());
+        assertEquals(metastore.getAllTables(CATALOG, DATABASE).size(), 3);
+
+        metastore.dropTable(CATALOG, DATABASE, "t1");
+        assertFalse(metastore.getTable(CATALOG, DATABASE, "t1").isPresent());
+        assertEquals(metastore.getAllTables(CATALOG, DATABASE).size(), 2);
+
+        // dropping a database invalidates its tables
+        metastore.dropDatabase(CATALOG, DATABASE);
+        assertFalse(metastore.getDatabase(CATALOG, DATABASE).isPresent());
+        assertFalse(metastore.getTable(CATALOG, DATABASE, "t2").isPresent());
+        assertEquals(metastore.getInvalidations().getTotalCount(), 3);
+    }
+
+    @Test
+    public void testRemoteInvalidation()
+    {
+        NotifyingStateMap stateMap = new NotifyingStateMap();
+        StateStore stateStore = mock(StateStore.class);
+        when(stateStore.getStateCollection(anyString())).thenReturn(stateMap);
+        when(stateStore.createStateCollection(anyString(), any(StateCollection.Type.class))).thenReturn(stateMap);
+        StateStoreProvider stateStoreProvider = mock(StateStoreProvider.class);
+        when(stateStoreProvider.getStateStore()).thenReturn(stateStore);
+
+        CachingHetuMetastore coordinator1 = createMetastore(Optional.of(stateStoreProvider));
+        CachingHetuMetastore coordinator2 = createMetastore(Optional.of(stateStoreProvider));
+
+        assertEquals(coordinator2.getAllTables(CATALOG, DATABASE).size(), 2);
+        coordinator1.dropTable(CATALOG, DATABASE, "t1");
+        assertFalse(coordinator2.getTable(CATALOG, DATABASE, "t1").isPresent());
+        assertEquals(coordinator2.getAllTables(CATALOG, DATABASE).size(), 1);
+        assertEquals(coordinator2.getRemoteInvalidations().getTotalCount(), 1);
+
+        coordinator1.dropTable(CATALOG, DATABASE, "t2");
+        assertEquals(coordinator2.getAllTables(CATALOG, DATABASE).size(), 0);
+    }
+
+    private CachingHetuMetastore createMetastore(Optional<StateStoreProvider> stateStoreProvider)
+    {
+        return new CachingHetuMetastore(delegate, stateStoreProvider, directExecutor(), OptionalLong.of(60_000), OptionalLong.empty(), 1000);
+    }
+
+    private static TableEntity table(String name)
+    {
+        return TableEntity.builder()
+                .setCatalogName(CATALOG)
+                .setDatabaseName(DATABASE)
+                .setTableName(name)
+                .setTableType("VIRTUAL_VIEW")
+                .build();
+    }
+
+    private static class NotifyingStateMap
+            extends MockStateMap<String, String>
+    {
+        private final List<MapListener> listeners = new ArrayList<>();
+
+        NotifyingStateMap()
+        {
+            super("invalidations", new HashMap<>());
+        }
+
+        @Override
+        public Optional<String> addEntryListener(MapListener listener)
+        {
+            listeners.add(listener);
+            return Optional.of(String.valueOf(listeners.size()));
+        }
+
+        @Override
+        public String put(String key, String value)
+        {
+            String previous = super.put(key, value);
+            for (MapListener listener : listeners) {
+                if (previous == null) {
+                    ((EntryAddedListener<String, String>) listener).entryAdded(new EntryEvent<>(null, ADDED.getTypeId(), key, value));
+                }
+                else {
+                    ((EntryUpdatedListener<String, String>) listener).entryUpdated(new EntryEvent<>(null, UPDATED.getTypeId(), key, previous, value));
+                }
+            }
+            return previous;
+        }
+    }
+
+    private static class InMemoryHetuMetastore
+            implements HetuMetastore
+    {
+        private final Map<String, CatalogEntity> catalogs = new ConcurrentHashMap<>();
+        private final Map<List<String>, DatabaseEntity> databases = new ConcurrentHashMap<>();
+        private final Map<List<String>, TableEntity> tables = new ConcurrentHashMap<>();
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public void createCatalog(CatalogEntity catalog)
+        {
+            catalogs.put(catalog.getName(), catalog);
+        }
+
+        @Override
+        public void alterCatalog(String catalogName, CatalogEntity newCatalog)
+        {
+            catalogs.put(catalogName, newCatalog);
+        }
+
+        @Override
+        public void dropCatalog(String catalogName)
+        {
+            catalogs.remove(catalogName);
+        }
+
+        @Override
+        public Optional<CatalogEntity> getCatalog(String catalogName)
+        {
+            loads.incrementAndGet();
+            return Optional.ofNullable(catalogs.get(catalogName));
+        }
+
+        @Override
+        public List<CatalogEntity> getCatalogs()
+        {
+            loads.incrementAndGet();
+            return ImmutableList.copyOf(catalogs.values());
+        }
+
+        @Override
+        public void createDatabase(DatabaseEntity database)
+        {
+            databases.put(ImmutableList.of(database.getCatalogName(), database.getName()), database);
+        }
+
+        @Override
+        public void alterDatabase(String catalogName, String databaseName, DatabaseEntity newDatabase)
+        {
+            dropDatabase(catalogName, databaseName);
+            createDatabase(newDatabase);
+        }
+
+        @Override
+        public void dropDatabase(String catalogName, String databaseName)
+        {
+            databases.remove(ImmutableList.of(catalogName, databaseName));
+            tables.keySet().removeIf(key -> key.get(0).equals(catalogName) && key.get(1).equals(databaseName));
+        }
+
+        @Override
+        public Optional<DatabaseEntity> getDatabase(String catalogName, String databaseName)
+        {
+            loads.incrementAndGet();
+            return Optional.ofNullable(databases.get(ImmutableList.of(catalogName, databaseName)));
+        }
+
+        @Override
+        public List<DatabaseEntity> getAllDatabases(String catalogName)
+        {
+            loads.incrementAndGet();
+            return databases.values().stream()
+                    .filter(database -> database.getCatalogName().equals(catalogName))
+                    .collect(ImmutableList.toImmutableList());
+        }
+
+        @Override
+        public void createTable(TableEntity table)
+        {
+            tables.put(ImmutableList.of(table.getCatalogName(), table.getDatabaseName(), table.getName()), table);
+        }
+
+        @Override
+        public void dropTable(String catalogName, String databaseName, String tableName)
+        {
+            tables.remove(ImmutableList.of(catalogName, databaseName, tableName));
+        }
+
+        @Override
+        public void alterTable(String catalogName, String databaseName, String oldTableName, TableEntity newTable)
+        {
+            dropTable(catalogName, databaseName, oldTableName);
+            createTable(newTable);
+        }
+
+        @Override
+        public Optional<TableEntity> getTable(String catalogName, String databaseName, String table)
+        {
+            loads.incrementAndGet();
+            return Optional.ofNullable(tables.get(ImmutableList.of(catalogName, databaseName, table)));
+        }
+
+        @Override
+        public List<TableEntity> getAllTables(String catalogName, String databaseName)
+        {
+            loads.incrementAndGet();
+            return tables.values().stream()
+                    .filter(table -> table.getCatalogName().equals(catalogName) && table.getDatabaseName().equals(databaseName))
+                    .collect(ImmutableList.toImmutableList());
+        }
+    }
+}
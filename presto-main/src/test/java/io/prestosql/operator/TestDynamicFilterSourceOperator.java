@@ -22,9 +22,10 @@ import io.hetu.core.statestore.hazelcast.HazelcastStateStoreFactory;
 import io.prestosql.seedstore.SeedStoreManager;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
-import io.prestosql.spi.dynamicfilter.BloomFilterDynamicFilter;
 import io.prestosql.spi.dynamicfilter.DynamicFilter;
-import io.prestosql.spi.dynamicfilter.HashSetDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedHashSetDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedRangeDynamicFilter;
 import io.prestosql.spi.predicate.Domain;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.predicate.ValueSet;
@@ -256,7 +257,7 @@ public class TestDynamicFilterSourceOperator
                 .getStateCollection(DynamicFilterUtils.DFTYPEMAP)).get(typeKey);
         StateSet states = ((StateSet) stateStoreProvider.getStateStore().getStateCollection(key));
         for (Object bfSerialized : states.getAll()) {
-            BloomFilterDynamicFilter bfdf = new BloomFilterDynamicFilter(filterId, null, (byte[]) bfSerialized, DynamicFilter.Type.GLOBAL);
+            TypedDynamicFilter bfdf = TypedDynamicFilter.deserialize(filterId, null, (byte[]) bfSerialized, DynamicFilter.Type.GLOBAL);
             assertEquals(bfdf.contains("101"), true);
             assertEquals(bfdf.getSize(), 6);
         }
@@ -289,7 +290,7 @@ public class TestDynamicFilterSourceOperator
                 .getStateCollection(DynamicFilterUtils.DFTYPEMAP)).get(typeKey);
         StateSet states = ((StateSet) stateStoreProvider.getStateStore().getStateCollection(key));
         for (Object bfSerialized : states.getAll()) {
-            HashSetDynamicFilter bfdf = new HashSetDynamicFilter(filterId, null, (Set) bfSerialized, DynamicFilter.Type.GLOBAL);
+            TypedDynamicFilter bfdf = TypedDynamicFilter.deserialize(filterId, null, (byte[]) bfSerialized, DynamicFilter.Type.GLOBAL);
             assertEquals(bfdf.contains("22"), true);
             assertEquals(bfdf.getSize(), 8);
         }
@@ -300,6 +301,42 @@ public class TestDynamicFilterSourceOperator
                 .createKey(DynamicFilterUtils.WORKERSPREFIX, filterId, TEST_SESSION.getQueryId().toString()))).size(), 1);
     }
 
+    @Test
+    public void testGlobalDynamicFilterSourceOperatorAdaptive()
+    {
+        String denseFilterId = "33";
+        String sparseFilterId = "34";
+        DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory operatorFactory = createOperatorFactory
+                (DynamicFilter.Type.GLOBAL, 2, channel(0, BIGINT, denseFilterId), channel(1, BIGINT, sparseFilterId));
+
+        verifyPassthrough(createOperator(operatorFactory),
+                ImmutableList.of(BIGINT, BIGINT),
+                new Page(createLongsBlock(3, 1), createLongsBlock(10, 1000)),
+                new Page(createLongsBlock(2, 4), createLongsBlock(20, 10)));
+
+        String queryId = TEST_SESSION.getQueryId().toString();
+        String resultType = (String) ((StateMap) stateStoreProvider.getStateStore()
+                .getStateCollection(DynamicFilterUtils.DFTYPEMAP)).get(DynamicFilterUtils.createKey(DynamicFilterUtils.TYPEPREFIX, denseFilterId, queryId));
+        assertEquals(resultType, DynamicFilterUtils.ADAPTIVETYPEGLOBAL);
+
+        // dense integers are published as their range
+        StateSet states = (StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.PARTIALPREFIX, denseFilterId, queryId));
+        for (Object serialized : states.getAll()) {
+            TypedDynamicFilter filter = TypedDynamicFilter.deserialize(denseFilterId, null, (byte[]) serialized, DynamicFilter.Type.GLOBAL);
+            assertEquals(filter instanceof TypedRangeDynamicFilter, true);
+            assertEquals(filter.getSize(), 4);
+        }
+
+        // other values are published as their exact hashes
+        states = (StateSet) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.createKey(DynamicFilterUtils.PARTIALPREFIX, sparseFilterId, queryId));
+        for (Object serialized : states.getAll()) {
+            TypedDynamicFilter filter = TypedDynamicFilter.deserialize(sparseFilterId, null, (byte[]) serialized, DynamicFilter.Type.GLOBAL);
+            assertEquals(filter instanceof TypedHashSetDynamicFilter, true);
+            assertEquals(filter.getSize(), 3);
+            assertEquals(filter.contains("1000"), true);
+        }
+    }
+
     @Test
     public void testCollectMultipleColumns()
     {
@@ -15,11 +15,13 @@
 package io.prestosql.operator.dynamicfilter;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.hash.BloomFilter;
-import com.google.common.hash.Funnels;
+import com.google.common.collect.ImmutableMap;
 import io.prestosql.operator.DriverContext;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
+import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedBloomFilterDynamicFilter;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter;
 import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.StateStore;
@@ -33,9 +35,6 @@ import io.prestosql.statestore.MockStateMap;
 import io.prestosql.statestore.StateStoreProvider;
 import org.testng.annotations.Test;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +43,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
 import static io.prestosql.statestore.StateStoreConstants.CROSS_REGION_DYNAMIC_FILTER_COLLECTION;
@@ -143,6 +143,35 @@ public class TestDynamicFilterOperator
         assertEquals(page.getPositionCount(), 0);
     }
 
+    @Test
+    public void testFilteredStats()
+    {
+        List<Type> types = ImmutableList.of(VarcharType.VARCHAR, VarcharType.VARCHAR);
+        StateStoreProvider stateStoreProvider = createStateStore();
+        DynamicFilterOperator operator = createBloomFilterOperator(stateStoreProvider);
+
+        StateMap<String, byte[]> mockStateMap = (StateMap<String, byte[]>) stateStoreProvider.getStateStore().createStateCollection(queryId + CROSS_REGION_DYNAMIC_FILTER_COLLECTION, StateCollection.Type.MAP);
+        addBloomFilter("orderId", ImmutableList.of("10001", "10002"), mockStateMap);
+
+        List<Page> pages = rowPagesBuilder(types)
+                .row("10001", "0001")
+                .row("10002", "0002")
+                .row("10003", "0003")
+                .build();
+
+        operator.addInput(pages.get(0));
+        assertEquals(operator.getOutput().getPositionCount(), 2);
+
+        CrossRegionDynamicFilterInfo info = operator.getInfo();
+        assertEquals(info.getFilteredPositions(), ImmutableMap.of("orderId", 1L));
+        assertTrue(info.getFilteredBytes().get("orderId") > 0);
+        assertFalse(info.getFilteredPositions().containsKey("custKey"));
+
+        CrossRegionDynamicFilterInfo merged = info.mergeWith(info);
+        assertEquals(merged.getFilteredPositions(), ImmutableMap.of("orderId", 2L));
+        assertEquals((long) merged.getFilteredBytes().get("orderId"), 2 * info.getFilteredBytes().get("orderId"));
+    }
+
     private DynamicFilterOperator createBloomFilterOperator(StateStoreProvider stateStoreProvider)
     {
         int filterOperatorId = operatorId.getAndIncrement();
@@ -195,15 +224,8 @@ public class TestDynamicFilterOperator
 
     private static void addBloomFilter(String column, List<Object> values, StateMap map)
     {
-        BloomFilter bloomFilter = BloomFilter.create(Funnels.stringFunnel(Charset.defaultCharset()), 1024 * 1024, 0.005);
-        values.forEach(value -> bloomFilter.put(value));
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        try {
-            bloomFilter.writeTo(out);
-            map.put(column, out.toByteArray());
-        }
-        catch (IOException e) {
-            throw new RuntimeException("error to write bloom filter into byte");
-        }
+        TypedBloomFilterDynamicFilter bloomFilter = TypedBloomFilterDynamicFilter.create(column, null, TypedDynamicFilter.ValueKind.SLICE, 1024 * 1024, 0.005, DynamicFilter.Type.GLOBAL);
+        values.forEach(value -> bloomFilter.put(TypedDynamicFilter.hashSlice(utf8Slice((String) value))));
+        map.put(column, bloomFilter.serialize());
     }
 }
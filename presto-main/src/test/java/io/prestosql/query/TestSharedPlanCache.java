@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.query;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.JsonCodecFactory;
+import io.airlift.json.ObjectMapperProvider;
+import io.prestosql.cost.StatsAndCosts;
+import io.prestosql.query.CachedSqlQueryExecutionPlan.RebindState;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.security.Identity;
+import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.spi.statistics.ColumnStatistics;
+import io.prestosql.spi.statistics.Estimate;
+import io.prestosql.spi.statistics.TableStatistics;
+import io.prestosql.spi.type.TimeZoneKey;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.parser.LiteralNormalizer.NormalizedSql;
+import io.prestosql.sql.planner.Plan;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.TypeProvider;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.sql.planner.plan.ValuesNode;
+import io.prestosql.statestore.MockStateMap;
+import io.prestosql.statestore.StateStoreConstants;
+import io.prestosql.statestore.StateStoreProvider;
+import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
+import io.prestosql.type.TypeDeserializer;
+import io.prestosql.utils.HetuConfig;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSharedPlanCache
+{
+    private static final HashCode KEY_1 = Hashing.sha256().hashString("select a from t where a = 1", UTF_8);
+    private static final HashCode KEY_2 = Hashing.sha256().hashString("select a from t where a = 2", UTF_8);
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    private final JsonCodec<SharedCachedPlan> codec;
+    private MockStateMap<String, String> plans;
+    private MockStateMap<String, Long> createTimes;
+    private ExecutionPlanCacheStats stats;
+
+    public TestSharedPlanCache()
+    {
+        ObjectMapperProvider provider = new ObjectMapperProvider();
+        provider.setJsonDeserializers(ImmutableMap.of(Type.class, new TypeDeserializer(createTestMetadataManager())));
+        codec = new JsonCodecFactory(provider).jsonCodec(SharedCachedPlan.class);
+    }
+
+    @BeforeMethod
+    public void setUp()
+    {
+        plans = new MockStateMap<>(StateStoreConstants.EXECUTION_PLAN_CACHE_NAME, new HashMap<>());
+        createTimes = new MockStateMap<>(StateStoreConstants.EXECUTION_PLAN_CREATE_TIMES_NAME, new HashMap<>());
+        stats = new ExecutionPlanCacheStats();
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        SharedPlanCache cache = createCache(10);
+        CachedSqlQueryExecutionPlan cachedPlan = createCachedPlan(statistics(10, "a", 5));
+        cache.put(KEY_1, cachedPlan);
+
+        Optional<SharedCachedPlan> sharedPlan = cache.get(KEY_1);
+        assertTrue(sharedPlan.isPresent());
+        assertEquals(sharedPlan.get().toNormalizedSql(), cachedPlan.getNormalizedSql());
+        assertEquals(sharedPlan.get().getUser(), "user");
+        assertEquals(sharedPlan.get().getTimeZoneId(), TimeZoneKey.UTC_KEY.getId());
+        assertEquals(sharedPlan.get().getPlanningTimeNanos(), cachedPlan.getPlanningTimeNanos());
+        assertEquals(sharedPlan.get().getRebindState(), RebindState.VALIDATED);
+        assertEquals(sharedPlan.get().getStatisticsFingerprint(), SharedPlanCache.fingerprint(cachedPlan.getTableStatistics()));
+
+        Plan plan = sharedPlan.get().toPlan();
+        assertTrue(plan.getRoot() instanceof ValuesNode);
+        assertEquals(plan.getRoot().getId(), cachedPlan.getPlan().getRoot().getId());
+        assertEquals(plan.getRoot().getOutputSymbols(), cachedPlan.getPlan().getRoot().getOutputSymbols());
+        assertEquals(plan.getTypes().allTypes(), cachedPlan.getPlan().getTypes().allTypes());
+
+        assertEquals(stats.getSharedHits().getTotalCount(), 1);
+        assertEquals(stats.getSharedMisses().getTotalCount(), 0);
+        assertFalse(cache.get(KEY_2).isPresent());
+        assertEquals(stats.getSharedMisses().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testFingerprint()
+    {
+        Map<String, TableStatistics> statistics = statistics(10, "a", 5);
+        assertEquals(SharedPlanCache.fingerprint(statistics), SharedPlanCache.fingerprint(statistics(10, "a", 5)));
+        assertNotEquals(SharedPlanCache.fingerprint(statistics), SharedPlanCache.fingerprint(statistics(11, "a", 5)));
+        assertNotEquals(SharedPlanCache.fingerprint(statistics), SharedPlanCache.fingerprint(statistics(10, "a", 6)));
+        assertNotEquals(SharedPlanCache.fingerprint(statistics), SharedPlanCache.fingerprint(statistics(10, "b", 5)));
+
+        // the columns without a name differ between coordinators, they are not part of the fingerprint
+        TableStatistics withUnnamedColumn = TableStatistics.builder()
+                .setRowCount(Estimate.of(10))
+                .setColumnStatistics(new TestingColumnHandle("a"), columnStatistics(5))
+                .setColumnStatistics(new UnnamedColumnHandle(), columnStatistics(7))
+                .build();
+        assertEquals(SharedPlanCache.fingerprint(ImmutableMap.of("catalog.schema.t", withUnnamedColumn)), SharedPlanCache.fingerprint(statistics));
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        SharedPlanCache cache = createCache(10);
+        cache.put(KEY_1, createCachedPlan(statistics(10, "a", 5)));
+        SharedCachedPlan sharedPlan = cache.get(KEY_1).get();
+
+        // the statistics of the table changed since the plan was cached
+        assertNotEquals(sharedPlan.getStatisticsFingerprint(), SharedPlanCache.fingerprint(statistics(20, "a", 5)));
+        cache.invalidate(KEY_1);
+        assertFalse(plans.containsKey(KEY_1.toString()));
+        assertFalse(createTimes.containsKey(KEY_1.toString()));
+        assertFalse(cache.get(KEY_1).isPresent());
+    }
+
+    @Test
+    public void testExpiredPlan()
+    {
+        SharedPlanCache cache = createCache(10);
+        plans.put(KEY_1.toString(), codec.toJson(expired(createCachedPlan(statistics(10, "a", 5)))));
+
+        assertFalse(cache.get(KEY_1).isPresent());
+        assertFalse(plans.containsKey(KEY_1.toString()));
+        assertEquals(stats.getSharedMisses().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testMaxItems()
+    {
+        SharedPlanCache cache = createCache(1);
+        cache.put(KEY_1, createCachedPlan(statistics(10, "a", 5)));
+        cache.put(KEY_2, createCachedPlan(statistics(10, "a", 5)));
+        assertTrue(plans.containsKey(KEY_1.toString()));
+        assertFalse(plans.containsKey(KEY_2.toString()));
+
+        // a full cache makes room by removing the expired plans only
+        createTimes.put(KEY_1.toString(), expiredTime());
+        cache.put(KEY_2, createCachedPlan(statistics(10, "a", 5)));
+        assertFalse(plans.containsKey(KEY_1.toString()));
+        assertTrue(plans.containsKey(KEY_2.toString()));
+        assertEquals(plans.size(), 1);
+        assertEquals(createTimes.getAll().keySet(), ImmutableSet.of(KEY_2.toString()));
+    }
+
+    @Test
+    public void testMaxItemsWithoutDecodingPlans()
+    {
+        SharedPlanCache cache = createCache(2);
+        // the expired plans are found from their creation times, the plans themselves are not decoded
+        plans.put(KEY_1.toString(), "not a plan");
+        createTimes.put(KEY_1.toString(), System.currentTimeMillis());
+        plans.put(KEY_2.toString(), "not a plan either");
+        createTimes.put(KEY_2.toString(), expiredTime());
+
+        HashCode key3 = Hashing.sha256().hashString("select a from t where a = 3", UTF_8);
+        cache.put(key3, createCachedPlan(statistics(10, "a", 5)));
+        assertEquals(plans.getAll().keySet(), ImmutableSet.of(KEY_1.toString(), key3.toString()));
+        assertEquals(createTimes.getAll().keySet(), ImmutableSet.of(KEY_1.toString(), key3.toString()));
+    }
+
+    @Test
+    public void testUndecodablePlan()
+    {
+        SharedPlanCache cache = createCache(10);
+        // e.g. a plan referring to a connector which is not loaded by this coordinator
+        plans.put(KEY_1.toString(), "{\"normalizedSql\":\"select 1\",\"root\":{\"@type\":\"unknown\"}}");
+
+        assertFalse(cache.get(KEY_1).isPresent());
+        assertEquals(stats.getSharedMisses().getTotalCount(), 1);
+        assertEquals(stats.getSharedHits().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testNoStateStore()
+    {
+        StateStoreProvider stateStoreProvider = mock(StateStoreProvider.class);
+        SharedPlanCache cache = new SharedPlanCache(stateStoreProvider, codec, stats, new HetuConfig());
+        cache.put(KEY_1, createCachedPlan(statistics(10, "a", 5)));
+        assertFalse(cache.get(KEY_1).isPresent());
+    }
+
+    private SharedPlanCache createCache(long maxItems)
+    {
+        StateStore stateStore = mock(StateStore.class);
+        when(stateStore.getStateCollection(StateStoreConstants.EXECUTION_PLAN_CACHE_NAME)).thenReturn(plans);
+        when(stateStore.getStateCollection(StateStoreConstants.EXECUTION_PLAN_CREATE_TIMES_NAME)).thenReturn(createTimes);
+        StateStoreProvider stateStoreProvider = mock(StateStoreProvider.class);
+        when(stateStoreProvider.getStateStore()).thenReturn(stateStore);
+        HetuConfig hetuConfig = new HetuConfig()
+                .setExecutionPlanCacheMaxItems(maxItems)
+                .setExecutionPlanCacheTimeout(TIMEOUT_MILLIS);
+        return new SharedPlanCache(stateStoreProvider, codec, stats, hetuConfig);
+    }
+
+    private static CachedSqlQueryExecutionPlan createCachedPlan(Map<String, TableStatistics> tableStatistics)
+    {
+        Symbol symbol = new Symbol("a");
+        Plan plan = new Plan(
+                new ValuesNode(new PlanNodeId("values"), ImmutableList.of(symbol), ImmutableList.of()),
+                TypeProvider.copyOf(ImmutableMap.of(symbol, BIGINT)),
+                StatsAndCosts.empty());
+        return new CachedSqlQueryExecutionPlan(
+                null,
+                ImmutableList.copyOf(tableStatistics.keySet()),
+                tableStatistics,
+                ImmutableList.of(),
+                plan,
+                ImmutableList.of(),
+                ImmutableMap.of(),
+                TimeZoneKey.UTC_KEY,
+                new Identity("user", Optional.empty()),
+                ImmutableMap.of(),
+                new NormalizedSql("select a from t where a = ?", ImmutableList.of(), ImmutableList.of("1")),
+                1_000_000L,
+                RebindState.VALIDATED);
+    }
+
+    private static SharedCachedPlan expired(CachedSqlQueryExecutionPlan cachedPlan)
+    {
+        SharedCachedPlan plan = SharedCachedPlan.from(cachedPlan, SharedPlanCache.fingerprint(cachedPlan.getTableStatistics()));
+        return new SharedCachedPlan(
+                plan.getNormalizedSql(),
+                plan.getStringLiterals(),
+                plan.getNumericLiterals(),
+                plan.getUser(),
+                plan.getTimeZoneId(),
+                plan.getStatisticsFingerprint(),
+                plan.getPlanningTimeNanos(),
+                plan.getRebindState(),
+                plan.getRoot(),
+                plan.getTypes(),
+                plan.getStatsAndCosts(),
+                expiredTime());
+    }
+
+    private static long expiredTime()
+    {
+        return System.currentTimeMillis() - TIMEOUT_MILLIS - 1_000;
+    }
+
+    private static Map<String, TableStatistics> statistics(long rowCount, String column, long distinctValues)
+    {
+        return ImmutableMap.of("catalog.schema.t", TableStatistics.builder()
+                .setRowCount(Estimate.of(rowCount))
+                .setColumnStatistics(new TestingColumnHandle(column), columnStatistics(distinctValues))
+                .build());
+    }
+
+    private static ColumnStatistics columnStatistics(long distinctValues)
+    {
+        return ColumnStatistics.builder()
+                .setDistinctValuesCount(Estimate.of(distinctValues))
+                .build();
+    }
+
+    private static class UnnamedColumnHandle
+            implements ColumnHandle
+    {
+    }
+}
@@ -65,6 +65,8 @@ public class TestBasicQueryInfo
                                 Duration.valueOf("9m"),
                                 Duration.valueOf("10m"),
                                 Duration.valueOf("11m"),
+                                true,
+                                Duration.valueOf("3m"),
                                 Duration.valueOf("12m"),
                                 13,
                                 14,
@@ -88,6 +90,7 @@ public class TestBasicQueryInfo
                                 Duration.valueOf("23m"),
                                 Duration.valueOf("24m"),
                                 Duration.valueOf("26m"),
+                                Duration.valueOf("27m"),
                                 true,
                                 ImmutableSet.of(BlockedReason.WAITING_FOR_MEMORY),
                                 DataSize.valueOf("271GB"),
@@ -116,6 +116,8 @@ public class TestQueryStateInfo
                         Duration.valueOf("9m"),
                         Duration.valueOf("10m"),
                         Duration.valueOf("11m"),
+                        true,
+                        Duration.valueOf("3m"),
                         Duration.valueOf("12m"),
                         13,
                         14,
@@ -139,6 +141,7 @@ public class TestQueryStateInfo
                         Duration.valueOf("23m"),
                         Duration.valueOf("24m"),
                         Duration.valueOf("26m"),
+                        Duration.valueOf("27m"),
                         true,
                         ImmutableSet.of(WAITING_FOR_MEMORY),
                         DataSize.valueOf("271GB"),
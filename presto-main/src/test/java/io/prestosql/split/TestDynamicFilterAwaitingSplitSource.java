@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.split;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.prestosql.execution.Lifespan;
+import io.prestosql.split.SplitSource.SplitBatch;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.prestosql.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static io.prestosql.split.MockSplitSource.Action.FINISH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicFilterAwaitingSplitSource
+{
+    @Test
+    public void testWaitForDynamicFilters()
+    {
+        MockSplitSource mockSource = new MockSplitSource()
+                .setBatchSize(10)
+                .increaseAvailableSplits(15)
+                .atSplitCompletion(FINISH);
+        SettableFuture<?> dynamicFiltersReady = SettableFuture.create();
+        AtomicInteger waitCount = new AtomicInteger();
+        try (SplitSource source = new DynamicFilterAwaitingSplitSource(mockSource, () -> {
+            waitCount.incrementAndGet();
+            return dynamicFiltersReady;
+        })) {
+            assertEquals(waitCount.get(), 0);
+            ListenableFuture<SplitBatch> batch = source.getNextBatch(NOT_PARTITIONED, Lifespan.taskWide(), 10);
+            assertFalse(batch.isDone());
+            assertEquals(mockSource.getNextBatchInvocationCount(), 0);
+
+            dynamicFiltersReady.set(null);
+            assertTrue(batch.isDone());
+            assertEquals(getFutureValue(batch).getSplits().size(), 10);
+
+            batch = source.getNextBatch(NOT_PARTITIONED, Lifespan.taskWide(), 10);
+            assertEquals(getFutureValue(batch).getSplits().size(), 5);
+            assertTrue(getFutureValue(batch).isLastBatch());
+            assertEquals(waitCount.get(), 1);
+            assertEquals(mockSource.getNextBatchInvocationCount(), 2);
+        }
+    }
+}
@@ -39,6 +39,7 @@ import static io.prestosql.sql.analyzer.FeaturesConfig.SPILLER_SPILL_PATH;
 import static io.prestosql.sql.analyzer.FeaturesConfig.SPILL_ENABLED;
 import static io.prestosql.sql.analyzer.RegexLibrary.JONI;
 import static io.prestosql.sql.analyzer.RegexLibrary.RE2J;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -92,6 +93,7 @@ public class TestFeaturesConfig
                 .setDefaultFilterFactorEnabled(false)
                 .setEnableForcedExchangeBelowGroupId(true)
                 .setExchangeCompressionEnabled(false)
+                .setExchangeBlockEncodingEnabled(false)
                 .setLegacyTimestamp(true)
                 .setEnableIntermediateAggregations(false)
                 .setPushAggregationThroughJoin(true)
@@ -112,8 +114,10 @@ public class TestFeaturesConfig
                 .setSkipRedundantSort(true)
                 .setEnableDynamicFiltering(false)
                 .setDynamicFilteringMaxPerDriverRowCount(100)
-                .setDynamicFilteringDataStructure(0)
+                .setDynamicFilteringDataStructure(2)
                 .setDynamicFilteringMaxPerDriverSize(new DataSize(10, KILOBYTE))
+                .setDynamicFilteringBloomFilterFpp(0.1)
+                .setDynamicFilteringSplitSchedulingWaitTime(new Duration(0, MILLISECONDS))
                 .setQueryPushDown(true)
                 .setPushLimitDown(true)
                 .setPushLimitThroughOuterJoin(true)
@@ -172,6 +176,7 @@ public class TestFeaturesConfig
                 .put("experimental.memory-revoking-threshold", "0.2")
                 .put("experimental.memory-revoking-target", "0.8")
                 .put("exchange.compression-enabled", "true")
+                .put("exchange.block-encoding-enabled", "true")
                 .put("deprecated.legacy-timestamp", "false")
                 .put("optimizer.enable-intermediate-aggregations", "true")
                 .put("parse-decimal-literals-as-double", "true")
@@ -199,6 +204,8 @@ public class TestFeaturesConfig
                 .put("experimental.dynamic-filtering-max-per-driver-row-count", "256")
                 .put("experimental.dynamic_filtering_data_structure", "1")
                 .put("experimental.dynamic-filtering-max-per-driver-size", "64kB")
+                .put("experimental.dynamic-filtering-bloom-filter-fpp", "0.05")
+                .put("experimental.dynamic-filtering-split-scheduling-wait-time", "2s")
                 .put("implicit-conversion", "true")
                 .build();
 
@@ -247,6 +254,7 @@ public class TestFeaturesConfig
                 .setMemoryRevokingThreshold(0.2)
                 .setMemoryRevokingTarget(0.8)
                 .setExchangeCompressionEnabled(true)
+                .setExchangeBlockEncodingEnabled(true)
                 .setLegacyTimestamp(false)
                 .setEnableIntermediateAggregations(true)
                 .setParseDecimalLiteralsAsDouble(true)
@@ -275,7 +283,9 @@ public class TestFeaturesConfig
                 .setEnableExecutionPlanCache(true)
                 .setDynamicFilteringMaxPerDriverRowCount(256)
                 .setDynamicFilteringDataStructure(1)
-                .setDynamicFilteringMaxPerDriverSize(new DataSize(64, KILOBYTE));
+                .setDynamicFilteringMaxPerDriverSize(new DataSize(64, KILOBYTE))
+                .setDynamicFilteringBloomFilterFpp(0.05)
+                .setDynamicFilteringSplitSchedulingWaitTime(new Duration(2, SECONDS));
         assertFullMapping(properties, expected);
     }
 
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.metadata.BoundVariables;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.SqlScalarFunction;
+import io.prestosql.operator.DriverYieldSignal;
+import io.prestosql.operator.Work;
+import io.prestosql.operator.project.BatchPageProjection;
+import io.prestosql.operator.project.PageProjection;
+import io.prestosql.operator.project.SelectedPositions;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.function.BatchScalarFunction;
+import io.prestosql.spi.function.ScalarFunctionImplementation;
+import io.prestosql.spi.function.ScalarFunctionImplementation.ScalarImplementationChoice;
+import io.prestosql.spi.function.Signature;
+import io.prestosql.sql.relational.CallExpression;
+import io.prestosql.sql.relational.RowExpression;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.spi.function.OperatorType.ADD;
+import static io.prestosql.spi.function.ScalarFunctionImplementation.ArgumentProperty.valueTypeArgumentProperty;
+import static io.prestosql.spi.function.ScalarFunctionImplementation.NullConvention.RETURN_NULL_ON_NULL;
+import static io.prestosql.spi.function.Signature.internalScalarFunction;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.util.Reflection.methodHandle;
+import static io.prestosql.sql.relational.Expressions.call;
+import static io.prestosql.sql.relational.Expressions.constant;
+import static io.prestosql.sql.relational.Expressions.field;
+import static io.prestosql.testing.TestingConnectorSession.SESSION;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestBatchPageProjection
+{
+    private static final Signature ADD_ONE_SIGNATURE = internalScalarFunction("batch_add_one", BIGINT.getTypeSignature(), BIGINT.getTypeSignature());
+    private static final AtomicInteger BATCH_CALLS = new AtomicInteger();
+    private static final AtomicInteger ROW_CALLS = new AtomicInteger();
+
+    private final PageFunctionCompiler functionCompiler;
+
+    public TestBatchPageProjection()
+    {
+        Metadata metadata = createTestMetadataManager();
+        metadata.addFunctions(ImmutableList.of(new BatchAddOneFunction()));
+        functionCompiler = new PageFunctionCompiler(metadata, 0);
+    }
+
+    @BeforeMethod
+    public void setUp()
+    {
+        BATCH_CALLS.set(0);
+        ROW_CALLS.set(0);
+    }
+
+    @Test
+    public void testBatchProjection()
+    {
+        PageProjection projection = compile(call(ADD_ONE_SIGNATURE, BIGINT, field(0, BIGINT)));
+        assertTrue(projection instanceof BatchPageProjection);
+
+        Page page = createLongBlockPage(0L, null, 2L, 3L, null, 5L);
+        assertBlockEquals(project(projection, page, SelectedPositions.positionsRange(0, page.getPositionCount())), 1L, null, 3L, 4L, null, 6L);
+        assertBlockEquals(project(projection, page, SelectedPositions.positionsRange(2, 3)), 3L, 4L, null);
+        assertBlockEquals(project(projection, page, SelectedPositions.positionsList(new int[] {0, 1, 5}, 1, 2)), null, 6L);
+        assertEquals(BATCH_CALLS.get(), 3);
+        assertEquals(ROW_CALLS.get(), 0);
+    }
+
+    @Test
+    public void testYield()
+    {
+        PageProjection projection = compile(call(ADD_ONE_SIGNATURE, BIGINT, field(0, BIGINT)));
+        Long[] values = new Long[3000];
+        Long[] expected = new Long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) i;
+            expected[i] = i + 1L;
+        }
+        Page page = createLongBlockPage(values);
+
+        DriverYieldSignal yieldSignal = new DriverYieldSignal();
+        Work<Block> work = projection.project(SESSION, yieldSignal, page, SelectedPositions.positionsRange(0, page.getPositionCount()));
+        yieldSignal.forceYieldForTesting();
+        int yields = 0;
+        while (!work.process()) {
+            yields++;
+            assertEquals(BATCH_CALLS.get(), yields);
+        }
+        yieldSignal.resetYieldForTesting();
+        assertTrue(yields > 0);
+        assertBlockEquals(work.getResult(), expected);
+    }
+
+    @Test
+    public void testRowProjectionFallback()
+    {
+        // the arguments which are not input columns are evaluated by the generated code
+        Signature add = Signature.internalOperator(ADD, BIGINT.getTypeSignature(), ImmutableList.of(BIGINT.getTypeSignature(), BIGINT.getTypeSignature()));
+        List<RowExpression> projections = ImmutableList.of(
+                call(ADD_ONE_SIGNATURE, BIGINT, call(add, BIGINT, field(0, BIGINT), constant(10L, BIGINT))),
+                call(ADD_ONE_SIGNATURE, BIGINT, constant(10L, BIGINT)));
+        Page page = createLongBlockPage(0L, null, 2L);
+
+        PageProjection projection = compile(projections.get(0));
+        assertFalse(projection instanceof BatchPageProjection);
+        assertBlockEquals(project(projection, page, SelectedPositions.positionsRange(0, page.getPositionCount())), 11L, null, 13L);
+        assertEquals(ROW_CALLS.get(), 2);
+
+        projection = compile(projections.get(1));
+        assertFalse(projection instanceof BatchPageProjection);
+        assertBlockEquals(project(projection, page, SelectedPositions.positionsRange(0, page.getPositionCount())), 11L, 11L, 11L);
+        assertEquals(BATCH_CALLS.get(), 0);
+    }
+
+    private PageProjection compile(RowExpression projection)
+    {
+        return functionCompiler.compileProjection(projection, Optional.empty()).get();
+    }
+
+    private static Block project(PageProjection projection, Page page, SelectedPositions selectedPositions)
+    {
+        Work<Block> work = projection.project(SESSION, new DriverYieldSignal(), page, selectedPositions);
+        assertTrue(work.process());
+        return work.getResult();
+    }
+
+    private static void assertBlockEquals(Block block, Long... expected)
+    {
+        assertEquals(block.getPositionCount(), expected.length);
+        for (int position = 0; position < expected.length; position++) {
+            if (expected[position] == null) {
+                assertTrue(block.isNull(position));
+            }
+            else {
+                assertEquals(BIGINT.getLong(block, position), (long) expected[position]);
+            }
+        }
+    }
+
+    private static Page createLongBlockPage(Long... values)
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, values.length);
+        for (Long value : values) {
+            if (value == null) {
+                builder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(builder, value);
+            }
+        }
+        return new Page(builder.build());
+    }
+
+    public static final class BatchAddOneFunction
+            extends SqlScalarFunction
+    {
+        private static final MethodHandle METHOD_HANDLE = methodHandle(BatchAddOneFunction.class, "addOne", long.class);
+
+        BatchAddOneFunction()
+        {
+            super(ADD_ONE_SIGNATURE);
+        }
+
+        @Override
+        public boolean isHidden()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean isDeterministic()
+        {
+            return true;
+        }
+
+        @Override
+        public String getDescription()
+        {
+            return "add one, a batch of positions at a time";
+        }
+
+        @Override
+        public ScalarFunctionImplementation specialize(BoundVariables boundVariables, int arity, Metadata metadata)
+        {
+            return new ScalarFunctionImplementation(
+                    ImmutableList.of(new ScalarImplementationChoice(false, ImmutableList.of(valueTypeArgumentProperty(RETURN_NULL_ON_NULL)), METHOD_HANDLE, Optional.empty())),
+                    isDeterministic(),
+                    Optional.of(new BatchAddOne()));
+        }
+
+        public static long addOne(long value)
+        {
+            ROW_CALLS.incrementAndGet();
+            return value + 1;
+        }
+    }
+
+    private static class BatchAddOne
+            implements BatchScalarFunction
+    {
+        @Override
+        public Block evaluate(List<Block> arguments, int[] positions, int offset, int length)
+        {
+            BATCH_CALLS.incrementAndGet();
+            Block argument = arguments.get(0);
+            BlockBuilder builder = BIGINT.createBlockBuilder(null, length);
+            for (int i = offset; i < offset + length; i++) {
+                int position = positions == null ? i : positions[i];
+                if (argument.isNull(position)) {
+                    builder.appendNull();
+                }
+                else {
+                    BIGINT.writeLong(builder, BIGINT.getLong(argument, position) + 1);
+                }
+            }
+            return builder.build();
+        }
+    }
+}
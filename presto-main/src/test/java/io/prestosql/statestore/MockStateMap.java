@@ -17,6 +17,7 @@ package io.prestosql.statestore;
 
 import io.prestosql.spi.statestore.StateMap;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -41,7 +42,9 @@ public class MockStateMap<K, V>
     @Override
     public Map<K, V> getAll(Set<K> keys)
     {
-        return null;
+        Map<K, V> values = new HashMap<>();
+        keys.stream().filter(map::containsKey).forEach(key -> values.put(key, map.get(key)));
+        return values;
     }
 
     @Override
@@ -65,7 +68,7 @@ public class MockStateMap<K, V>
     @Override
     public void putAll(Map<K, V> map)
     {
-        map.putAll(map);
+        this.map.putAll(map);
     }
 
     @Override
@@ -77,6 +80,7 @@ public class MockStateMap<K, V>
     @Override
     public void removeAll(Set<K> keys)
     {
+        keys.forEach(map::remove);
     }
 
     @Override
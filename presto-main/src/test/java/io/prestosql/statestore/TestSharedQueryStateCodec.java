@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.statestore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.Resources;
+import io.airlift.json.ObjectMapperProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestSharedQueryStateCodec
+{
+    private static final ObjectMapper MAPPER = new ObjectMapperProvider().get();
+
+    @Test
+    public void testRoundTrip()
+            throws IOException
+    {
+        String json = loadState();
+        SharedQueryState state = MAPPER.readerFor(SharedQueryState.class).readValue(json);
+
+        String encoded = SharedQueryStateCodec.encode(state, 42);
+        assertTrue(encoded.length() < json.length());
+        assertEquals(SharedQueryStateCodec.decodeVersion(encoded), 42);
+
+        SharedQueryState decoded = SharedQueryStateCodec.decode(encoded);
+        assertEquals(MAPPER.writeValueAsString(decoded), MAPPER.writeValueAsString(state));
+        assertSame(decoded.getBasicQueryInfo().getSession(), decoded.getSession());
+    }
+
+    @Test
+    public void testLegacyJson()
+            throws IOException
+    {
+        String json = loadState();
+        SharedQueryState state = MAPPER.readerFor(SharedQueryState.class).readValue(json);
+
+        assertEquals(SharedQueryStateCodec.decodeVersion(json), 0);
+        assertEquals(MAPPER.writeValueAsString(SharedQueryStateCodec.decode(json)), MAPPER.writeValueAsString(state));
+    }
+
+    private static String loadState()
+            throws IOException
+    {
+        return Resources.toString(Resources.getResource("test_data_state_fetcher.json"), UTF_8);
+    }
+}
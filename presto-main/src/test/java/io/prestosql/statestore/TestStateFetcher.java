@@ -22,6 +22,9 @@ import io.prestosql.spi.statestore.StateCollection;
 import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.StateStore;
 import io.prestosql.spi.statestore.StateStoreFactory;
+import io.prestosql.spi.statestore.listener.EntryEvent;
+import io.prestosql.spi.statestore.listener.EntryUpdatedListener;
+import io.prestosql.spi.statestore.listener.MapListener;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.mockito.Mockito;
@@ -36,12 +39,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.mockito.Matchers.any;
+import static io.prestosql.spi.statestore.listener.EntryEventType.UPDATED;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
@@ -74,6 +82,7 @@ public class TestStateFetcher
     private static final String QUERY_STRING_MOCK_DATA = "select * from tpch.tiny.customer";
     private static final String STATE_UPDATE_TIME_KEY = "\"stateUpdateTime\":\"";
     private static final String STRING_NULL = null;
+    private static final String LISTENER_ID = "listener";
     private Duration fetchInterval = new Duration(MINIMUM_FETCH_INTERVAL, MILLISECONDS);
     private Duration stateExpireTime = new Duration(MINIMUM_STATE_EXPIRE_TIME, SECONDS);
 
@@ -94,6 +103,7 @@ public class TestStateFetcher
         when(stateStore.getName()).then(new Returns(STATE_COLLECTION_QUERY));
         when(stateStoreFactory.create(any(), any(), any())).then(new Returns(stateStore));
         stateCollection = Mockito.mock(StateMap.class);
+        when(stateCollection.addEntryListener(any())).then(new Returns(Optional.empty()));
         when(stateStoreProvider.getStateStore()).then(new Returns(stateStore));
     }
 
@@ -271,4 +281,36 @@ public class TestStateFetcher
         Thread.sleep(300);
         verify(stateCollection, atLeastOnce()).getAll();
     }
+
+    @Test
+    public void testRemoveListenerOnStop()
+            throws Exception
+    {
+        supportCollectionTypeMAP(true);
+        when(stateCollection.addEntryListener(any())).then(new Returns(Optional.of(LISTENER_ID)));
+        stateFetcher.start();
+        stateFetcher.fetchStates();
+        stateFetcher.stop();
+        verify(stateCollection).removeEntryListener(LISTENER_ID);
+    }
+
+    @Test
+    public void testFullFetchOnInvalidChange()
+            throws Exception
+    {
+        supportCollectionTypeMAP(true);
+        AtomicReference<MapListener> listener = new AtomicReference<>();
+        when(stateCollection.addEntryListener(any())).then(invocation -> {
+            listener.set((MapListener) invocation.getArguments()[0]);
+            return Optional.of(LISTENER_ID);
+        });
+        stateFetcher.start();
+        verify(stateCollection, timeout(1000).atLeastOnce()).getAll();
+
+        // the state which can't be decoded is fetched again with all the states
+        ((EntryUpdatedListener<String, String>) listener.get()).entryUpdated(new EntryEvent<>(null, UPDATED.getTypeId(), STATES_KEY, "invalid"));
+        verify(stateCollection, timeout(1000).atLeast(2)).getAll();
+        assertEquals(StateCacheStore.get().getCachedStates(STATE_COLLECTION_QUERY).size(), CACHED_STATES_MAP_SIZE);
+        stateFetcher.stop();
+    }
 }
@@ -50,10 +50,13 @@ import java.util.Set;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
 import static io.prestosql.spi.ErrorType.USER_ERROR;
 import static io.prestosql.spi.StandardErrorCode.CLUSTER_OUT_OF_MEMORY;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
@@ -133,6 +136,11 @@ public class TestStateUpdater
     }
 
     private BasicQueryInfo createBasicQueryInfo()
+    {
+        return createBasicQueryInfo(QueryState.FINISHED);
+    }
+
+    private BasicQueryInfo createBasicQueryInfo(QueryState queryState)
     {
         QueryInfo queryInfo = Mockito.mock(QueryInfo.class);
         when(queryInfo.getQueryStats()).then(new Returns(Mockito.mock(QueryStats.class)));
@@ -149,7 +157,7 @@ public class TestStateUpdater
         ResourceGroupId resourceGroupId = new ResourceGroupId(GLOBAL_RESOURCE_ID);
         Optional<ResourceGroupId> optionalResourceGroupId = Optional.of(resourceGroupId);
         when(queryInfo.getResourceGroupId()).then(new Returns(optionalResourceGroupId));
-        when(queryInfo.getState()).then(new Returns(QueryState.FINISHED));
+        when(queryInfo.getState()).then(new Returns(queryState));
         URI mockURI = URI.create(URI_LOCALHOST);
         when(queryInfo.getSelf()).then(new Returns(mockURI));
         String mockQuery = QUERY_STRING;
@@ -167,9 +175,14 @@ public class TestStateUpdater
     }
 
     private DispatchQuery mockDispatchQueryData(boolean userError)
+    {
+        return mockDispatchQueryData(userError, QueryState.FINISHED);
+    }
+
+    private DispatchQuery mockDispatchQueryData(boolean userError, QueryState queryState)
     {
         DispatchQuery dispatchQuery = Mockito.mock(LocalDispatchQuery.class);
-        BasicQueryInfo basicQueryInfo = createBasicQueryInfo();
+        BasicQueryInfo basicQueryInfo = createBasicQueryInfo(queryState);
         when(dispatchQuery.getBasicQueryInfo()).then(new Returns(basicQueryInfo));
         when(dispatchQuery.getSession()).then(new Returns(TEST_SESSION));
         ErrorCode errorCode;
@@ -231,4 +244,29 @@ public class TestStateUpdater
         int numberOfCalls = mockingDetails(stateStoreProvider.getStateStore().getStateCollection(any())).getInvocations().size();
         assertNotEquals(numberOfCalls, ERROR_CODE_VALUE_INDEX_TIME_NO_INVOCATION);
     }
+
+    @Test
+    public void testUnchangedStatesNotUpdated() throws JsonProcessingException
+    {
+        DispatchQuery dispatchQuery = mockDispatchQueryData(false, QueryState.RUNNING);
+        StateStoreProvider stateStoreProvider = Mockito.mock(LocalStateStoreProvider.class);
+        StateMap stateMap = Mockito.mock(StateMap.class);
+        when(stateMap.getType()).then(new Returns(StateCollection.Type.MAP));
+        when(stateStoreProvider.getStateStore()).then(new Returns(stateStore));
+        when(stateStore.getStateCollection(any())).then(new Returns(stateMap));
+        StateSyncStats stats = new StateSyncStats();
+        StateUpdater stateUpdater = new StateUpdater(stateStoreProvider, updateInterval, new Duration(1, HOURS), stats);
+        stateUpdater.registerQuery(STATE_COLLECTION_QUERY, dispatchQuery);
+
+        stateUpdater.updateStates();
+        stateUpdater.updateStates();
+        verify(stateMap, times(1)).put(any(), any());
+        assertEquals(stats.getUpdatedStates().getTotalCount(), 1);
+        assertEquals(stats.getUnchangedStates().getTotalCount(), 1);
+
+        // a change of the memory reservation is written
+        when(dispatchQuery.getUserMemoryReservation()).then(new Returns(new DataSize(2 * USER_DATA_SIZE, DataSize.Unit.BYTE)));
+        stateUpdater.updateStates();
+        verify(stateMap, times(2)).put(any(), any());
+    }
 }
@@ -16,6 +16,7 @@ package io.prestosql.utils;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
@@ -32,6 +33,11 @@ public class TestHetuConfig
                 .setIndexStoreUri("/opt/hetu/indices/")
                 .setIndexStoreType("local")
                 .setMaxIndicesInCache(10000000L)
+                .setIndexCacheMaxMemory(null)
+                .setIndexCacheTtl(new Duration(10, TimeUnit.MINUTES))
+                .setIndexCacheLoadingDelay(new Duration(5, TimeUnit.SECONDS))
+                .setIndexCacheLocalDirectory(null)
+                .setIndexCachePreloadTables(null)
                 .setIndexStoreHdfsConfigResources("/opt/hetu/config/core-site.xml,/opt/hetu/config/hdfs-site.xml")
                 .setIndexStoreHdfsAuthenticationType("KERBEROS")
                 .setIndexStoreHdfsKrb5ConfigPath("/etc/krb5.conf")
@@ -41,6 +47,7 @@ public class TestHetuConfig
                 .setExecutionPlanCacheEnabled(false)
                 .setExecutionPlanCacheTimeout(60000L)
                 .setExecutionPlanCacheMaxItems(1000L)
+                .setExecutionPlanCacheSharedEnabled(false)
                 .setEmbeddedStateStoreEnabled(false)
                 .setMultipleCoordinatorEnabled(false)
                 .setStateFetchInterval(new Duration(100, TimeUnit.MILLISECONDS))
@@ -62,6 +69,11 @@ public class TestHetuConfig
                 .put("hetu.filter.indexstore.uri", "/tmp")
                 .put("hetu.filter.indexstore.type", "HDFS")
                 .put("hetu.filter.cache.max-indices-number", "10")
+                .put("hetu.filter.cache.max-memory", "1GB")
+                .put("hetu.filter.cache.ttl", "1h")
+                .put("hetu.filter.cache.loading-delay", "1s")
+                .put("hetu.filter.cache.local-directory", "/tmp/hetu/index-cache")
+                .put("hetu.filter.cache.preload-indices", "hive.schema.table1,hive.schema.table2")
                 .put("hetu.filter.indexstore.hdfs.config.resources", "/tmp/core-site.xml,/tmp/hdfs-site.xml")
                 .put("hetu.filter.indexstore.hdfs.authentication.type", "NONE")
                 .put("hetu.filter.indexstore.hdfs.krb5.conf.path", "/tmp/krb5.conf")
@@ -71,6 +83,7 @@ public class TestHetuConfig
                 .put("hetu.executionplan.cache.enabled", "true")
                 .put("hetu.executionplan.cache.timeout", "6000")
                 .put("hetu.executionplan.cache.limit", "10000")
+                .put("hetu.executionplan.cache.shared.enabled", "true")
                 .put("hetu.embedded-state-store.enabled", "true")
                 .put("hetu.multiple-coordinator.enabled", "true")
                 .put("hetu.multiple-coordinator.query-submit-timeout", "20s")
@@ -89,6 +102,11 @@ public class TestHetuConfig
                 .setIndexStoreUri("/tmp")
                 .setIndexStoreType("HDFS")
                 .setMaxIndicesInCache(10L)
+                .setIndexCacheMaxMemory(new DataSize(1, DataSize.Unit.GIGABYTE))
+                .setIndexCacheTtl(new Duration(1, TimeUnit.HOURS))
+                .setIndexCacheLoadingDelay(new Duration(1, TimeUnit.SECONDS))
+                .setIndexCacheLocalDirectory("/tmp/hetu/index-cache")
+                .setIndexCachePreloadTables("hive.schema.table1,hive.schema.table2")
                 .setIndexStoreHdfsConfigResources("/tmp/core-site.xml,/tmp/hdfs-site.xml")
                 .setIndexStoreHdfsAuthenticationType("NONE")
                 .setIndexStoreHdfsKrb5ConfigPath("/tmp/krb5.conf")
@@ -98,6 +116,7 @@ public class TestHetuConfig
                 .setExecutionPlanCacheEnabled(true)
                 .setExecutionPlanCacheTimeout(6000L)
                 .setExecutionPlanCacheMaxItems(10000L)
+                .setExecutionPlanCacheSharedEnabled(true)
                 .setEmbeddedStateStoreEnabled(true)
                 .setMultipleCoordinatorEnabled(true)
                 .setQuerySubmitTimeout(new Duration(20, TimeUnit.SECONDS))
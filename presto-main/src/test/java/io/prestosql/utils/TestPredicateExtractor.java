@@ -24,6 +24,8 @@ import io.prestosql.sql.tree.DoubleLiteral;
 import io.prestosql.sql.tree.Expression;
 import io.prestosql.sql.tree.FunctionCall;
 import io.prestosql.sql.tree.GenericLiteral;
+import io.prestosql.sql.tree.InListExpression;
+import io.prestosql.sql.tree.InPredicate;
 import io.prestosql.sql.tree.Literal;
 import io.prestosql.sql.tree.LogicalBinaryExpression;
 import io.prestosql.sql.tree.LongLiteral;
@@ -87,11 +89,40 @@ public class TestPredicateExtractor
                 andLbExpression,
                 true);
 
-        // OR is not supported
+        // OR on different columns is not supported
         LogicalBinaryExpression orLbExpression = new LogicalBinaryExpression(LogicalBinaryExpression.Operator.OR, expr1, expr2);
         testIsSplitFilterApplicableForOperator(
                 orLbExpression,
                 false);
+
+        // OR on the same column is supported
+        ComparisonExpression expr3 = new ComparisonExpression(ComparisonExpression.Operator.LESS_THAN, new SymbolReference("a"), new StringLiteral("c"));
+        testIsSplitFilterApplicableForOperator(
+                new LogicalBinaryExpression(LogicalBinaryExpression.Operator.OR, expr1, expr3),
+                true);
+
+        // IN is supported
+        InPredicate inPredicate = new InPredicate(new SymbolReference("a"), new InListExpression(ImmutableList.of(new StringLiteral("a"), new StringLiteral("b"))));
+        testIsSplitFilterApplicableForOperator(
+                inPredicate,
+                true);
+        testIsSplitFilterApplicableForOperator(
+                new LogicalBinaryExpression(LogicalBinaryExpression.Operator.OR, inPredicate, expr3),
+                true);
+        testIsSplitFilterApplicableForOperator(
+                new LogicalBinaryExpression(LogicalBinaryExpression.Operator.AND, inPredicate, expr2),
+                true);
+
+        // IN with values other than literals is not supported
+        testIsSplitFilterApplicableForOperator(
+                new InPredicate(new SymbolReference("a"), new InListExpression(ImmutableList.of(new StringLiteral("a"), new SymbolReference("b")))),
+                false);
+        testIsSplitFilterApplicableForOperator(
+                new InPredicate(new SymbolReference("a"), new InListExpression(ImmutableList.of(new Cast(new StringLiteral("a"), "A"), new FunctionCall(QualifiedName.of("lower"), ImmutableList.of(new StringLiteral("B")))))),
+                false);
+        testIsSplitFilterApplicableForOperator(
+                new InPredicate(new SymbolReference("a"), new InListExpression(ImmutableList.of(new Cast(new StringLiteral("a"), "A"), new LongLiteral("1")))),
+                true);
     }
 
     private void testIsSplitFilterApplicableForOperator(Expression expression, boolean expected)
@@ -114,6 +145,35 @@ public class TestPredicateExtractor
         assertEquals(predicate.getTableName(), "test.null");
     }
 
+    @Test
+    public void testBuildDisjunctionPredicate()
+    {
+        InPredicate inPredicate = new InPredicate(new SymbolReference("a"), new InListExpression(ImmutableList.of(new LongLiteral("1"), new LongLiteral("5"))));
+        ComparisonExpression comparison = new ComparisonExpression(ComparisonExpression.Operator.GREATER_THAN, new SymbolReference("a"), new LongLiteral("10"));
+        ComparisonExpression other = new ComparisonExpression(ComparisonExpression.Operator.EQUAL, new SymbolReference("b"), new StringLiteral("b"));
+        Expression expr = new LogicalBinaryExpression(LogicalBinaryExpression.Operator.AND,
+                new LogicalBinaryExpression(LogicalBinaryExpression.Operator.OR, inPredicate, comparison),
+                other);
+
+        List<Predicate> predicateList = PredicateExtractor.buildPredicates(TestUtil.getTestStage(expr));
+        assertEquals(predicateList.size(), 2);
+
+        Predicate predicate = predicateList.get(0);
+        assertEquals(predicate.getColumnName(), "a");
+        assertEquals(predicate.getTableName(), "test.null");
+        List<Predicate> comparisons = predicate.getComparisons();
+        assertEquals(comparisons.size(), 3);
+        assertEquals(comparisons.get(0).getOperator(), ComparisonExpression.Operator.EQUAL);
+        assertEquals(comparisons.get(0).getValue(), 1L);
+        assertEquals(comparisons.get(1).getOperator(), ComparisonExpression.Operator.EQUAL);
+        assertEquals(comparisons.get(1).getValue(), 5L);
+        assertEquals(comparisons.get(2).getOperator(), ComparisonExpression.Operator.GREATER_THAN);
+        assertEquals(comparisons.get(2).getValue(), 10L);
+
+        assertEquals(predicateList.get(1).getColumnName(), "b");
+        assertEquals(predicateList.get(1).getComparisons().size(), 1);
+    }
+
     @Test
     public void testBuildPredicates()
     {
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Approximate access frequency of the keys of a cache (TinyLFU). The frequencies are kept in a count-min sketch
+ * of 4-bit counters, 16 counters per long, and all the counters are halved once the number of recorded accesses
+ * reaches the sample size, so that the frequencies reflect the recent accesses.
+ * <p>
+ * The sketch is not thread safe, callers must synchronize.
+ */
+public class FrequencySketch
+{
+    private static final int HASH_COUNT = 4;
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAXIMUM_COUNTER = 15;
+    private static final int MINIMUM_TABLE_SIZE = 64;
+    private static final int MAXIMUM_TABLE_SIZE = 1 << 24;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedEntries number of entries the cache is expected to hold
+     */
+    public FrequencySketch(long expectedEntries)
+    {
+        checkArgument(expectedEntries > 0, "expectedEntries must be positive");
+        int tableSize = (int) Math.min(MAXIMUM_TABLE_SIZE, Long.highestOneBit(Math.max(expectedEntries - 1, MINIMUM_TABLE_SIZE)) << 1);
+        this.table = new long[tableSize];
+        this.tableMask = tableSize - 1;
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * tableSize);
+    }
+
+    /**
+     * Estimated number of recent accesses of the key, at most 15
+     */
+    public int frequency(Object key)
+    {
+        int hash = spread(key.hashCode());
+        int frequency = MAXIMUM_COUNTER;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int index = indexOf(hash, i);
+            int offset = counterOffset(hash, i);
+            frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+        }
+        return frequency;
+    }
+
+    /**
+     * Record an access of the key
+     */
+    public void increment(Object key)
+    {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            added |= incrementAt(indexOf(hash, i), counterOffset(hash, i));
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int offset)
+    {
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset()
+    {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int i)
+    {
+        long value = (hash + SEEDS[i]) * SEEDS[i];
+        value += value >>> 32;
+        return ((int) value) & tableMask;
+    }
+
+    private static int counterOffset(int hash, int i)
+    {
+        // one of the 16 counters of the long, each hash function uses a different quarter of the hash
+        return ((hash >>> (i << 3)) & 0xf) << 2;
+    }
+
+    private static int spread(int hash)
+    {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
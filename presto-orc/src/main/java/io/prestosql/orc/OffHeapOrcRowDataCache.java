@@ -0,0 +1,605 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.log.Logger;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockEncodingSerde;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * ORC row data cache keeping the blocks serialized in direct memory, so that the cached row data is not
+ * scanned by the garbage collector. A block is deserialized on every hit, the deserialized copy is only
+ * referenced by the reader.
+ * <p>
+ * The cache is split in segments by key hash, each segment with its own lock, entries and frequency sketch,
+ * so that concurrent scans do not contend on a single monitor. A segment stores the serialized blocks in
+ * fixed size pages of direct memory slabs, allocated on demand up to its share of the maximum size and never
+ * released, pages of evicted entries are reused. The direct memory held by the cache is thus bounded by the
+ * maximum size, instead of depending on the garbage collector to free the buffers of the evicted entries.
+ * <p>
+ * Entries are evicted in least recently used order. When a segment is full, a loaded block is only admitted
+ * if it has been requested more often than the blocks it would evict (TinyLFU), so that a large scan
+ * does not flush the blocks read repeatedly.
+ */
+public class OffHeapOrcRowDataCache
+        extends AbstractCache<OrcRowDataCacheKey, Block>
+{
+    private static final Logger log = Logger.get(OffHeapOrcRowDataCache.class);
+
+    // used to size the frequency sketch, the cache holds row groups of a column
+    private static final long EXPECTED_ENTRY_SIZE = new DataSize(64, DataSize.Unit.KILOBYTE).toBytes();
+    // small caches use a single segment, so that the admission and eviction order is global
+    private static final long MIN_SEGMENT_BYTES = new DataSize(16, DataSize.Unit.MEGABYTE).toBytes();
+    private static final int MAX_SEGMENTS = 16;
+    // pages are as large as possible while keeping enough of them per segment to limit the rounding waste
+    private static final int MIN_PAGE_SIZE = 64;
+    private static final int MAX_PAGE_SIZE = 8192;
+    private static final int MIN_PAGES_PER_SEGMENT = 1024;
+    private static final int SLAB_SIZE = (int) new DataSize(4, DataSize.Unit.MEGABYTE).toBytes();
+
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final long maximumBytes;
+    private final long ttlNanos;
+    private final Ticker ticker;
+    private final Segment[] segments;
+
+    private final OrcRowDataCacheStats stats = new OrcRowDataCacheStats();
+    private final ConcurrentMap<String, OrcRowDataCacheStats> tableStats = new ConcurrentHashMap<>();
+    private final AtomicLong loadSuccessCount = new AtomicLong();
+    private final AtomicLong loadExceptionCount = new AtomicLong();
+    private final AtomicLong totalLoadTime = new AtomicLong();
+
+    public OffHeapOrcRowDataCache(BlockEncodingSerde blockEncodingSerde, DataSize maximumSize, Duration ttl)
+    {
+        this(blockEncodingSerde, maximumSize, ttl, Ticker.systemTicker());
+    }
+
+    public OffHeapOrcRowDataCache(BlockEncodingSerde blockEncodingSerde, DataSize maximumSize, Duration ttl, Ticker ticker)
+    {
+        this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.maximumBytes = requireNonNull(maximumSize, "maximumSize is null").toBytes();
+        checkArgument(maximumBytes > 0, "maximumSize must be positive");
+        this.ttlNanos = requireNonNull(ttl, "ttl is null").toNanos();
+        this.ticker = requireNonNull(ticker, "ticker is null");
+
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && maximumBytes / (segmentCount * 2L) >= MIN_SEGMENT_BYTES) {
+            segmentCount *= 2;
+        }
+        long segmentBytes = maximumBytes / segmentCount;
+        int pageSize = MIN_PAGE_SIZE;
+        while (pageSize < MAX_PAGE_SIZE && segmentBytes / (pageSize * 2L) >= MIN_PAGES_PER_SEGMENT) {
+            pageSize *= 2;
+        }
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentBytes, pageSize);
+        }
+    }
+
+    @Override
+    public Block getIfPresent(Object key)
+    {
+        Block block = lookup(key);
+        if (block == null) {
+            recordMiss(key);
+        }
+        return block;
+    }
+
+    @Override
+    public Block get(OrcRowDataCacheKey key, Callable<? extends Block> loader)
+            throws ExecutionException
+    {
+        Block cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        recordMiss(key);
+
+        long start = ticker.read();
+        Block block;
+        try {
+            block = requireNonNull(loader.call(), "loader returned null");
+        }
+        catch (Error e) {
+            loadExceptionCount.incrementAndGet();
+            throw new ExecutionError(e);
+        }
+        catch (RuntimeException e) {
+            loadExceptionCount.incrementAndGet();
+            throw new UncheckedExecutionException(e);
+        }
+        catch (Exception e) {
+            loadExceptionCount.incrementAndGet();
+            throw new ExecutionException(e);
+        }
+        finally {
+            totalLoadTime.addAndGet(ticker.read() - start);
+        }
+        loadSuccessCount.incrementAndGet();
+
+        put(key, block);
+        return block;
+    }
+
+    @Override
+    public void put(OrcRowDataCacheKey key, Block block)
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(block, "block is null");
+
+        Slice serialized;
+        try {
+            serialized = serialize(block);
+        }
+        catch (RuntimeException e) {
+            // blocks of an encoding unknown to the serde are not cached
+            log.debug(e, "Unable to cache block of %s", key);
+            recordRejection(key);
+            return;
+        }
+
+        Segment segment = segmentFor(key);
+        List<Map.Entry<OrcRowDataCacheKey, Entry>> evicted = new ArrayList<>();
+        synchronized (segment) {
+            segment.remove(key);
+
+            if (!makeRoom(segment, key, serialized.length(), evicted)) {
+                recordRejection(key);
+                return;
+            }
+            segment.add(key, serialized, key.getTableName(), ticker.read());
+        }
+
+        for (Map.Entry<OrcRowDataCacheKey, Entry> evictedEntry : evicted) {
+            recordEviction(evictedEntry.getValue().getTableName());
+        }
+    }
+
+    @Override
+    public void invalidate(Object key)
+    {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public long size()
+    {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void cleanUp()
+    {
+        List<Entry> expired = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                long now = ticker.read();
+                Iterator<Entry> iterator = segment.entries.values().iterator();
+                while (iterator.hasNext()) {
+                    Entry entry = iterator.next();
+                    if (isExpired(entry, now)) {
+                        iterator.remove();
+                        segment.release(entry);
+                        expired.add(entry);
+                    }
+                }
+            }
+        }
+        expired.forEach(entry -> recordEviction(entry.getTableName()));
+    }
+
+    @Override
+    public CacheStats stats()
+    {
+        return new CacheStats(
+                stats.getHitCount(),
+                stats.getMissCount(),
+                loadSuccessCount.get(),
+                loadExceptionCount.get(),
+                totalLoadTime.get(),
+                stats.getEvictionCount());
+    }
+
+    /**
+     * Total size of the serialized blocks held in the cache
+     */
+    public long getCachedBytes()
+    {
+        long cachedBytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                cachedBytes += segment.cachedBytes;
+            }
+        }
+        return cachedBytes;
+    }
+
+    /**
+     * Direct memory allocated for the pages of the cache, never more than the maximum size
+     */
+    public long getAllocatedBytes()
+    {
+        long allocatedBytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                allocatedBytes += segment.allocatedBytes;
+            }
+        }
+        return allocatedBytes;
+    }
+
+    public long getMaximumBytes()
+    {
+        return maximumBytes;
+    }
+
+    @VisibleForTesting
+    boolean contains(OrcRowDataCacheKey key)
+    {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.entries.containsKey(key);
+        }
+    }
+
+    @VisibleForTesting
+    int getSegmentCount()
+    {
+        return segments.length;
+    }
+
+    public OrcRowDataCacheStats getStats()
+    {
+        return stats;
+    }
+
+    /**
+     * @param tableName name of the table, as set in the cache keys
+     * @return statistics of the row data of the table, empty statistics if no row data of the table was requested
+     */
+    public OrcRowDataCacheStats getTableStats(String tableName)
+    {
+        OrcRowDataCacheStats table = tableStats.get(tableName);
+        return table == null ? new OrcRowDataCacheStats() : table;
+    }
+
+    private Segment segmentFor(Object key)
+    {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private Block lookup(Object key)
+    {
+        Segment segment = segmentFor(key);
+        Entry entry;
+        byte[] serialized = null;
+        synchronized (segment) {
+            segment.frequencySketch.increment(key);
+            entry = segment.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            long now = ticker.read();
+            if (isExpired(entry, now)) {
+                segment.remove(key);
+            }
+            else {
+                entry.setLastAccess(now);
+                // the pages may be reused as soon as the lock is released, copy them before deserializing
+                serialized = segment.read(entry);
+            }
+        }
+
+        if (serialized == null) {
+            recordEviction(entry.getTableName());
+            return null;
+        }
+
+        Block block = blockEncodingSerde.readBlock(Slices.wrappedBuffer(serialized).getInput());
+        stats.recordHit(entry.getSize());
+        if (entry.getTableName() != null) {
+            getOrCreateTableStats(entry.getTableName()).recordHit(entry.getSize());
+        }
+        return block;
+    }
+
+    /**
+     * Select the least recently used entries of the segment to evict for the candidate, expired entries are
+     * always evicted, other entries only if the candidate is requested more frequently
+     *
+     * @return false if the candidate must not be admitted, in which case no entry is evicted
+     */
+    private boolean makeRoom(Segment segment, OrcRowDataCacheKey candidate, int size, List<Map.Entry<OrcRowDataCacheKey, Entry>> evicted)
+    {
+        int pages = segment.pageCount(size);
+        if (pages > segment.capacityPages) {
+            return false;
+        }
+
+        long now = ticker.read();
+        int freed = 0;
+        int candidateFrequency = -1;
+        List<Map.Entry<OrcRowDataCacheKey, Entry>> victims = new ArrayList<>();
+        Iterator<Map.Entry<OrcRowDataCacheKey, Entry>> iterator = segment.entries.entrySet().iterator();
+        while (segment.freePageCount() + freed < pages && iterator.hasNext()) {
+            Map.Entry<OrcRowDataCacheKey, Entry> victim = iterator.next();
+            if (!isExpired(victim.getValue(), now)) {
+                if (candidateFrequency < 0) {
+                    candidateFrequency = segment.frequencySketch.frequency(candidate);
+                }
+                if (candidateFrequency <= segment.frequencySketch.frequency(victim.getKey())) {
+                    return false;
+                }
+            }
+            victims.add(victim);
+            freed += victim.getValue().getPages().length;
+        }
+
+        for (Map.Entry<OrcRowDataCacheKey, Entry> victim : victims) {
+            segment.remove(victim.getKey());
+        }
+        evicted.addAll(victims);
+        return true;
+    }
+
+    private boolean isExpired(Entry entry, long now)
+    {
+        return now - entry.getLastAccess() > ttlNanos;
+    }
+
+    private Slice serialize(Block block)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput((int) Math.min(Integer.MAX_VALUE, block.getSizeInBytes() + 64));
+        blockEncodingSerde.writeBlock(output, block);
+        return output.slice();
+    }
+
+    private void recordMiss(Object key)
+    {
+        stats.recordMiss();
+        String tableName = ((OrcRowDataCacheKey) key).getTableName();
+        if (tableName != null) {
+            getOrCreateTableStats(tableName).recordMiss();
+        }
+    }
+
+    private void recordEviction(String tableName)
+    {
+        stats.recordEviction();
+        if (tableName != null) {
+            getOrCreateTableStats(tableName).recordEviction();
+        }
+    }
+
+    private void recordRejection(OrcRowDataCacheKey key)
+    {
+        stats.recordRejection();
+        if (key.getTableName() != null) {
+            getOrCreateTableStats(key.getTableName()).recordRejection();
+        }
+    }
+
+    private OrcRowDataCacheStats getOrCreateTableStats(String tableName)
+    {
+        return tableStats.computeIfAbsent(tableName, name -> new OrcRowDataCacheStats());
+    }
+
+    /**
+     * Entries of the keys hashed to the segment and the direct memory pages holding them, all guarded by the segment
+     */
+    private static class Segment
+    {
+        // access ordered
+        private final LinkedHashMap<OrcRowDataCacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch frequencySketch;
+        private final int pageSize;
+        private final int pagesPerSlab;
+        private final int capacityPages;
+        private final List<ByteBuffer> slabs = new ArrayList<>();
+        private final IntArrayList freePages = new IntArrayList();
+        // pages below are either used or in the free list, pages above were never allocated
+        private int nextPage;
+        private int usedPages;
+        private long cachedBytes;
+        private long allocatedBytes;
+
+        Segment(long maximumBytes, int pageSize)
+        {
+            this.frequencySketch = new FrequencySketch(Math.max(1, maximumBytes / EXPECTED_ENTRY_SIZE));
+            this.pageSize = pageSize;
+            this.capacityPages = (int) Math.min(Integer.MAX_VALUE, maximumBytes / pageSize);
+            this.pagesPerSlab = Math.max(1, Math.min(capacityPages, SLAB_SIZE / pageSize));
+        }
+
+        int pageCount(int size)
+        {
+            return (size + pageSize - 1) / pageSize;
+        }
+
+        int freePageCount()
+        {
+            return capacityPages - usedPages;
+        }
+
+        void add(OrcRowDataCacheKey key, Slice serialized, String tableName, long now)
+        {
+            int[] pages = new int[pageCount(serialized.length())];
+            ByteBuffer source = serialized.toByteBuffer();
+            int end = source.limit();
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = allocatePage();
+                source.limit(Math.min(source.position() + pageSize, end));
+                pageBuffer(pages[i]).put(source);
+            }
+            usedPages += pages.length;
+            cachedBytes += serialized.length();
+            entries.put(key, new Entry(pages, serialized.length(), tableName, now));
+        }
+
+        byte[] read(Entry entry)
+        {
+            byte[] serialized = new byte[entry.getSize()];
+            int[] pages = entry.getPages();
+            for (int i = 0; i < pages.length; i++) {
+                int offset = i * pageSize;
+                pageBuffer(pages[i]).get(serialized, offset, Math.min(pageSize, serialized.length - offset));
+            }
+            return serialized;
+        }
+
+        void remove(Object key)
+        {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                release(entry);
+            }
+        }
+
+        void release(Entry entry)
+        {
+            for (int page : entry.getPages()) {
+                freePages.add(page);
+            }
+            usedPages -= entry.getPages().length;
+            cachedBytes -= entry.getSize();
+        }
+
+        void clear()
+        {
+            entries.clear();
+            freePages.clear();
+            for (int page = 0; page < nextPage; page++) {
+                freePages.add(page);
+            }
+            usedPages = 0;
+            cachedBytes = 0;
+        }
+
+        private int allocatePage()
+        {
+            if (!freePages.isEmpty()) {
+                return freePages.popInt();
+            }
+            int page = nextPage++;
+            if (page % pagesPerSlab == 0) {
+                int slabPages = Math.min(pagesPerSlab, capacityPages - page);
+                slabs.add(ByteBuffer.allocateDirect(slabPages * pageSize));
+                allocatedBytes += (long) slabPages * pageSize;
+            }
+            return page;
+        }
+
+        /**
+         * @return the slab of the page, positioned at the start of the page, only valid while the segment is locked
+         */
+        private ByteBuffer pageBuffer(int page)
+        {
+            ByteBuffer slab = slabs.get(page / pagesPerSlab);
+            slab.clear();
+            slab.position((page % pagesPerSlab) * pageSize);
+            return slab;
+        }
+    }
+
+    private static class Entry
+    {
+        private final int[] pages;
+        private final int size;
+        private final String tableName;
+        private long lastAccess;
+
+        Entry(int[] pages, int size, String tableName, long lastAccess)
+        {
+            this.pages = pages;
+            this.size = size;
+            this.tableName = tableName;
+            this.lastAccess = lastAccess;
+        }
+
+        int[] getPages()
+        {
+            return pages;
+        }
+
+        int getSize()
+        {
+            return size;
+        }
+
+        String getTableName()
+        {
+            return tableName;
+        }
+
+        long getLastAccess()
+        {
+            return lastAccess;
+        }
+
+        void setLastAccess(long lastAccess)
+        {
+            this.lastAccess = lastAccess;
+        }
+    }
+}
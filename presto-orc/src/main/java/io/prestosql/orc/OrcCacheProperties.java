@@ -21,6 +21,7 @@ public final class OrcCacheProperties
     private boolean rowIndexCacheEnabled;
     private boolean bloomFilterCacheEnabled;
     private boolean rowDataCacheEnabled;
+    private String tableName;
 
     public OrcCacheProperties()
     {
@@ -38,6 +39,14 @@ public final class OrcCacheProperties
         this.rowDataCacheEnabled = rowDataCacheEnabled;
     }
 
+    public OrcCacheProperties(boolean fileTailCacheEnabled, boolean stripeFooterCacheEnabled,
+                              boolean rowIndexCacheEnabled, boolean bloomFilterCacheEnabled,
+                              boolean rowDataCacheEnabled, String tableName)
+    {
+        this(fileTailCacheEnabled, stripeFooterCacheEnabled, rowIndexCacheEnabled, bloomFilterCacheEnabled, rowDataCacheEnabled);
+        this.tableName = tableName;
+    }
+
     public boolean isFileTailCacheEnabled()
     {
         return fileTailCacheEnabled;
@@ -63,6 +72,14 @@ public final class OrcCacheProperties
         return rowDataCacheEnabled;
     }
 
+    /**
+     * Name of the table the file belongs to, used to attribute the cache statistics, may be null
+     */
+    public String getTableName()
+    {
+        return tableName;
+    }
+
     @Override
     public String toString()
     {
@@ -72,6 +89,7 @@ public final class OrcCacheProperties
                 ", rowIndexCacheEnabled=" + rowIndexCacheEnabled +
                 ", bloomFilterCacheEnabled=" + bloomFilterCacheEnabled +
                 ", rowDataCacheEnabled=" + rowDataCacheEnabled +
+                ", tableName=" + tableName +
                 '}';
     }
 }
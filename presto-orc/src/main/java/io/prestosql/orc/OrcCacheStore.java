@@ -17,15 +17,19 @@ package io.prestosql.orc;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.Weigher;
+import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 import io.prestosql.orc.metadata.RowGroupIndex;
 import io.prestosql.orc.metadata.StripeFooter;
 import io.prestosql.orc.metadata.statistics.BloomFilter;
 import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockEncodingSerde;
 
 import java.time.Duration;
 import java.util.List;
 
+import static java.util.Objects.requireNonNull;
+
 public class OrcCacheStore
 {
     public static final OrcCacheStore CACHE_NOTHING = new OrcCacheStore(null,
@@ -100,13 +104,37 @@ public class OrcCacheStore
                                            long rowIndexMaximumSize, Duration rowIndexTtl,
                                            long bloomFiltersMaximumSize, Duration bloomFiltersTtl,
                                            DataSize rowDataMaximumWeight, Duration rowDataTtl)
+        {
+            return newCacheStore(fileTailMaximumSize, fileTailTtl,
+                    stripeFooterMaximumSize, stripeFooterTtl,
+                    rowIndexMaximumSize, rowIndexTtl,
+                    bloomFiltersMaximumSize, bloomFiltersTtl,
+                    rowDataMaximumWeight, rowDataTtl,
+                    false, null);
+        }
+
+        /**
+         * @param rowDataOffHeap keep the row data blocks serialized in direct memory instead of the heap
+         * @param blockEncodingSerde serde of the row data blocks, only required if rowDataOffHeap is set
+         */
+        public OrcCacheStore newCacheStore(long fileTailMaximumSize, Duration fileTailTtl,
+                                           long stripeFooterMaximumSize, Duration stripeFooterTtl,
+                                           long rowIndexMaximumSize, Duration rowIndexTtl,
+                                           long bloomFiltersMaximumSize, Duration bloomFiltersTtl,
+                                           DataSize rowDataMaximumWeight, Duration rowDataTtl,
+                                           boolean rowDataOffHeap, BlockEncodingSerde blockEncodingSerde)
         {
             OrcCacheStore store = new OrcCacheStore();
             store.fileTailCache = buildOrcFileTailCache(fileTailMaximumSize, fileTailTtl);
             store.stripeFooterCache = buildOrcStripeFooterCache(stripeFooterMaximumSize, stripeFooterTtl);
             store.rowIndexCache = buildOrcRowGroupIndexCache(rowIndexMaximumSize, rowIndexTtl);
             store.bloomFiltersCache = buildOrcBloomFilterCache(bloomFiltersMaximumSize, bloomFiltersTtl);
-            store.rowDataCache = buildOrcRowDataCache(rowDataMaximumWeight, rowDataTtl);
+            if (rowDataOffHeap) {
+                store.rowDataCache = new OffHeapOrcRowDataCache(requireNonNull(blockEncodingSerde, "blockEncodingSerde is null"), rowDataMaximumWeight, rowDataTtl);
+            }
+            else {
+                store.rowDataCache = buildOrcRowDataCache(rowDataMaximumWeight, rowDataTtl);
+            }
             return store;
         }
 
@@ -147,11 +175,13 @@ public class OrcCacheStore
 
         private Cache<OrcRowDataCacheKey, Block> buildOrcRowDataCache(DataSize maximumWeight, Duration ttl)
         {
+            // blocks larger than 2GB would overflow an int weight, they are weighed as 2GB
             return CacheBuilder.newBuilder()
                     .maximumWeight(maximumWeight.toBytes())
                     .weigher(
-                            (Weigher<OrcRowDataCacheKey, Block>) (orcRowDataCacheKey, block) -> (int) block.getSizeInBytes())
+                            (Weigher<OrcRowDataCacheKey, Block>) (orcRowDataCacheKey, block) -> Ints.saturatedCast(block.getRetainedSizeInBytes()))
                     .expireAfterAccess(ttl)
+                    .recordStats()
                     .build();
         }
     }
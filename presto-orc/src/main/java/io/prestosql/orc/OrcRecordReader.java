@@ -17,9 +17,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
-import com.google.common.collect.PeekingIterator;
 import com.google.common.io.Closer;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -62,10 +60,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PrimitiveIterator;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.prestosql.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
@@ -129,7 +127,7 @@ public class OrcRecordReader
     private final Optional<StatisticsValidation> stripeStatisticsValidation;
     private final Optional<StatisticsValidation> fileStatisticsValidation;
 
-    Map<StripeInformation, PeekingIterator<Integer>> stripeMatchingRows = new HashMap<>();
+    Map<StripeInformation, MatchingRows> stripeMatchingRows = new HashMap<>();
 
     public OrcRecordReader(
             List<OrcColumn> readColumns,
@@ -272,8 +270,7 @@ public class OrcRecordReader
                 Iterator<Integer> thisStripeMatchingRows = indexDomainMap.entrySet().iterator().next().getKey().getMatches(indexDomainMap);
 
                 if (thisStripeMatchingRows != null) {
-                    PeekingIterator<Integer> peekingIterator = Iterators.peekingIterator(thisStripeMatchingRows);
-                    stripeMatchingRows.put(stripeIndex.getKey(), peekingIterator);
+                    stripeMatchingRows.put(stripeIndex.getKey(), new MatchingRows(thisStripeMatchingRows));
                 }
             }
         });
@@ -511,27 +508,27 @@ public class OrcRecordReader
                 stripe) && block.getPositionCount() != 0) {
             long currentPositionInStripe = currentPosition - currentStripePosition;
 
-            PeekingIterator<Integer> matchingRows = stripeMatchingRows.get(stripe);
-            List<Integer> matchingRowsInBlock = new ArrayList<>();
+            MatchingRows matchingRows = stripeMatchingRows.get(stripe);
+            int[] matchingRowsInBlock = new int[currentBatchSize];
+            int matchingRowCount = 0;
 
+            // the rows are sorted, skip the rows of the previous batches and stop at the first row of the next batch
             while (matchingRows.hasNext()) {
-                Integer row = matchingRows.peek();
-                if (row >= currentPositionInStripe && row < currentPositionInStripe + currentBatchSize) {
-                    matchingRowsInBlock.add(toIntExact(Long.valueOf(row) - currentPositionInStripe));
-                    matchingRows.next();
-                }
-                else if (row >= currentPositionInStripe + currentBatchSize) {
+                int row = matchingRows.peek();
+                if (row >= currentPositionInStripe + currentBatchSize) {
                     break;
                 }
+                if (row >= currentPositionInStripe) {
+                    matchingRowsInBlock[matchingRowCount++] = toIntExact(row - currentPositionInStripe);
+                }
+                matchingRows.next();
             }
 
-            matchingRowsInBatchArray = new int[matchingRowsInBlock.size()];
-            IntStream.range(0, matchingRowsInBlock.size()).forEach(
-                    i -> matchingRowsInBatchArray[i] = matchingRowsInBlock.get(i));
+            matchingRowsInBatchArray = Arrays.copyOf(matchingRowsInBlock, matchingRowCount);
             log.debug("Find matching rows from stripe. Matching row count for the block = %d", matchingRowsInBatchArray.length);
         }
 
-        if (matchingRowsInBatchArray != null) {
+        if (matchingRowsInBatchArray != null && matchingRowsInBatchArray.length < block.getPositionCount()) {
             return block.copyPositions(matchingRowsInBatchArray, 0, matchingRowsInBatchArray.length);
         }
 
@@ -691,7 +688,7 @@ public class OrcRecordReader
                     systemMemoryContext,
                     blockFactory.createNestedBlockFactory(block -> blockLoaded(columnIndex, block)));
             if (orcCacheProperties.isRowDataCacheEnabled()) {
-                columnReader = ColumnReaders.wrapWithCachingStreamReader(columnReader, column, orcCacheStore.getRowDataCache());
+                columnReader = ColumnReaders.wrapWithCachingStreamReader(columnReader, column, orcCacheStore.getRowDataCache(), orcCacheProperties.getTableName());
             }
             columnReaders[columnIndex] = columnReader;
         }
@@ -763,6 +760,62 @@ public class OrcRecordReader
         }
     }
 
+    /**
+     * Sorted row numbers of a stripe matching the index predicates, the rows are read without boxing
+     * when the index returns a {@link PrimitiveIterator.OfInt}
+     */
+    private static class MatchingRows
+    {
+        private final PrimitiveIterator.OfInt rows;
+        private boolean hasPeeked;
+        private int peekedRow;
+
+        public MatchingRows(Iterator<Integer> rows)
+        {
+            requireNonNull(rows, "rows is null");
+            if (rows instanceof PrimitiveIterator.OfInt) {
+                this.rows = (PrimitiveIterator.OfInt) rows;
+            }
+            else {
+                this.rows = new PrimitiveIterator.OfInt()
+                {
+                    @Override
+                    public int nextInt()
+                    {
+                        return rows.next();
+                    }
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return rows.hasNext();
+                    }
+                };
+            }
+        }
+
+        public boolean hasNext()
+        {
+            return hasPeeked || rows.hasNext();
+        }
+
+        public int peek()
+        {
+            if (!hasPeeked) {
+                peekedRow = rows.nextInt();
+                hasPeeked = true;
+            }
+            return peekedRow;
+        }
+
+        public int next()
+        {
+            int row = peek();
+            hasPeeked = false;
+            return row;
+        }
+    }
+
     static class LinearProbeRangeFinder
             implements CachingOrcDataSource.RegionFinder
     {
@@ -24,6 +24,8 @@ public class OrcRowDataCacheKey
     private long stripeOffset;
     private long rowGroupOffset;
     private OrcColumnId columnId;
+    // only used to attribute the cache statistics, not part of the key identity
+    private String tableName;
 
     public OrcRowDataCacheKey()
     {
@@ -70,6 +72,16 @@ public class OrcRowDataCacheKey
         this.columnId = columnId;
     }
 
+    public String getTableName()
+    {
+        return tableName;
+    }
+
+    public void setTableName(String tableName)
+    {
+        this.tableName = tableName;
+    }
+
     @Override
     public String toString()
     {
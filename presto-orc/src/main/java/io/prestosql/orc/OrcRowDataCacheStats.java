@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import org.weakref.jmx.Managed;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Statistics of the ORC row data cache, for the whole cache or for the row data of one table
+ */
+public class OrcRowDataCacheStats
+{
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong rejectionCount = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    void recordHit(long bytes)
+    {
+        hitCount.incrementAndGet();
+        bytesSaved.addAndGet(bytes);
+    }
+
+    void recordMiss()
+    {
+        missCount.incrementAndGet();
+    }
+
+    void recordEviction()
+    {
+        evictionCount.incrementAndGet();
+    }
+
+    void recordRejection()
+    {
+        rejectionCount.incrementAndGet();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        long hits = hitCount.get();
+        long requests = hits + missCount.get();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
+    /**
+     * Number of loaded blocks not cached because the admission policy favored the cached blocks
+     */
+    @Managed
+    public long getRejectionCount()
+    {
+        return rejectionCount.get();
+    }
+
+    /**
+     * Size of the cached row data served instead of being read and decoded again
+     */
+    @Managed
+    public long getBytesSaved()
+    {
+        return bytesSaved.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("hitCount", getHitCount())
+                .add("missCount", getMissCount())
+                .add("evictionCount", getEvictionCount())
+                .add("rejectionCount", getRejectionCount())
+                .add("bytesSaved", getBytesSaved())
+                .toString();
+    }
+}
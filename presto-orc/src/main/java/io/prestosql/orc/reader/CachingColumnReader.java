@@ -39,6 +39,7 @@ public class CachingColumnReader
     private final ColumnReader delegate;
     private final OrcColumn column;
     private final OrcColumnId columnId;
+    private final String tableName;
 
     private OrcDataSourceId orcDataSourceId;
     private long stripeOffset;
@@ -49,11 +50,18 @@ public class CachingColumnReader
 
     public CachingColumnReader(ColumnReader delegate, OrcColumn column,
                                Cache<OrcRowDataCacheKey, Block> cache)
+    {
+        this(delegate, column, cache, null);
+    }
+
+    public CachingColumnReader(ColumnReader delegate, OrcColumn column,
+                               Cache<OrcRowDataCacheKey, Block> cache, String tableName)
     {
         this.delegate = delegate;
         this.column = column;
         this.columnId = column.getColumnId();
         this.cache = cache;
+        this.tableName = tableName;
     }
 
     @Override
@@ -102,6 +110,7 @@ public class CachingColumnReader
         cacheKey.setStripeOffset(stripeOffset);
         cacheKey.setRowGroupOffset(rowGroupOffset);
         cacheKey.setColumnId(columnId);
+        cacheKey.setTableName(tableName);
         try {
             return cache.get(cacheKey, () -> {
                 delegate.startRowGroup(dataStreamSources);
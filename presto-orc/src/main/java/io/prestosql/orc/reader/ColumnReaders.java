@@ -69,4 +69,10 @@ public final class ColumnReaders
     {
         return new CachingColumnReader(original, column, cache);
     }
+
+    public static ColumnReader wrapWithCachingStreamReader(ColumnReader original, OrcColumn column,
+                                                           Cache<OrcRowDataCacheKey, Block> cache, String tableName)
+    {
+        return new CachingColumnReader(original, column, cache, tableName);
+    }
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.DataSize;
+import io.prestosql.orc.metadata.OrcColumnId;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.type.InternalTypeManager;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.prestosql.block.BlockAssertions.assertBlockEquals;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestOffHeapOrcRowDataCache
+{
+    private static final OrcBlockEncodingSerde SERDE = new OrcBlockEncodingSerde(new InternalTypeManager(createTestMetadataManager()));
+
+    @Test
+    public void testRoundTrip()
+            throws Exception
+    {
+        OffHeapOrcRowDataCache cache = new OffHeapOrcRowDataCache(SERDE, new DataSize(1, KILOBYTE), Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+        Block varchars = createVarcharBlock("a", null, "bc");
+
+        Block loaded = cache.get(key(0, "t1"), () -> {
+            loads.incrementAndGet();
+            return varchars;
+        });
+        Block cached = cache.get(key(0, "t1"), () -> {
+            loads.incrementAndGet();
+            return varchars;
+        });
+
+        assertEquals(loads.get(), 1);
+        assertBlockEquals(VARCHAR, loaded, varchars);
+        assertBlockEquals(VARCHAR, cached, varchars);
+        assertEquals(cache.size(), 1);
+        assertTrue(cache.getCachedBytes() > 0);
+        assertEquals(cache.stats().hitCount(), 1);
+        assertEquals(cache.stats().missCount(), 1);
+        assertEquals(cache.getTableStats("t1").getHitCount(), 1);
+        assertEquals(cache.getTableStats("t1").getBytesSaved(), cache.getCachedBytes());
+        assertEquals(cache.getTableStats("t2").getHitCount(), 0);
+
+        cache.invalidate(key(0, "t1"));
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getCachedBytes(), 0);
+    }
+
+    @Test
+    public void testAdmission()
+            throws Exception
+    {
+        Block block = createLongBlock(100);
+        long entrySize = serializedSize(block);
+        // room for two entries but not three, whatever the rounding to pages
+        OffHeapOrcRowDataCache cache = new OffHeapOrcRowDataCache(SERDE, new DataSize(entrySize * 5 / 2, DataSize.Unit.BYTE), Duration.ofMinutes(10));
+        assertEquals(cache.getSegmentCount(), 1);
+
+        // the cached blocks are requested several times
+        for (int i = 0; i < 3; i++) {
+            cache.get(key(0, "t1"), () -> block);
+            cache.get(key(1000, "t1"), () -> block);
+        }
+        assertEquals(cache.size(), 2);
+
+        // a block requested once is not admitted
+        cache.get(key(2000, "t2"), () -> block);
+        assertFalse(cache.contains(key(2000, "t2")));
+        assertEquals(cache.getTableStats("t2").getRejectionCount(), 1);
+        assertTrue(cache.contains(key(0, "t1")));
+
+        // a block requested more often than the least recently used block replaces it
+        for (int i = 0; i < 5; i++) {
+            cache.get(key(3000, "t2"), () -> block);
+        }
+        assertTrue(cache.contains(key(3000, "t2")));
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.getTableStats("t1").getEvictionCount(), 1);
+        assertTrue(cache.getCachedBytes() <= cache.getMaximumBytes());
+    }
+
+    @Test
+    public void testExpiration()
+            throws Exception
+    {
+        TestingTicker ticker = new TestingTicker();
+        OffHeapOrcRowDataCache cache = new OffHeapOrcRowDataCache(SERDE, new DataSize(1, KILOBYTE), Duration.ofMinutes(10), ticker);
+        Block block = createLongBlock(10);
+
+        cache.get(key(0, "t1"), () -> block);
+        ticker.increment(5, TimeUnit.MINUTES);
+        assertNotNull(cache.getIfPresent(key(0, "t1")));
+        ticker.increment(11, TimeUnit.MINUTES);
+        assertNull(cache.getIfPresent(key(0, "t1")));
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.stats().evictionCount(), 1);
+    }
+
+    @Test
+    public void testOversizedBlock()
+            throws Exception
+    {
+        OffHeapOrcRowDataCache cache = new OffHeapOrcRowDataCache(SERDE, new DataSize(100, DataSize.Unit.BYTE), Duration.ofMinutes(10));
+        Block block = createLongBlock(1000);
+
+        assertBlockEquals(BIGINT, cache.get(key(0, "t1"), () -> block), block);
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getStats().getRejectionCount(), 1);
+    }
+
+    @Test
+    public void testAllocatedBytes()
+            throws Exception
+    {
+        TestingTicker ticker = new TestingTicker();
+        Block block = createLongBlock(100);
+        OffHeapOrcRowDataCache cache = new OffHeapOrcRowDataCache(SERDE, new DataSize(serializedSize(block) * 4, DataSize.Unit.BYTE), Duration.ofMinutes(10), ticker);
+
+        // the cached blocks expire before each put, so that each block replaces the least recently used
+        for (int i = 0; i < 100; i++) {
+            ticker.increment(11, TimeUnit.MINUTES);
+            cache.put(key(i, "t1"), block);
+            assertTrue(cache.getAllocatedBytes() <= cache.getMaximumBytes());
+        }
+        assertTrue(cache.contains(key(99, "t1")));
+        assertTrue(cache.getTableStats("t1").getEvictionCount() > 90);
+        long allocatedBytes = cache.getAllocatedBytes();
+        assertTrue(allocatedBytes > 0);
+
+        // the pages of the invalidated entries are reused
+        cache.invalidateAll();
+        assertEquals(cache.getCachedBytes(), 0);
+        for (int i = 0; i < 3; i++) {
+            cache.put(key(i, "t1"), block);
+        }
+        assertEquals(cache.size(), 3);
+        assertEquals(cache.getAllocatedBytes(), allocatedBytes);
+        assertBlockEquals(BIGINT, cache.getIfPresent(key(1, "t1")), block);
+    }
+
+    @Test
+    public void testSegments()
+            throws Exception
+    {
+        OffHeapOrcRowDataCache cache = new OffHeapOrcRowDataCache(SERDE, new DataSize(64, DataSize.Unit.MEGABYTE), Duration.ofMinutes(10));
+        assertEquals(cache.getSegmentCount(), 4);
+        assertEquals(cache.getAllocatedBytes(), 0);
+
+        Block block = createLongBlock(10);
+        for (int i = 0; i < 64; i++) {
+            cache.put(key(i, "t1"), block);
+        }
+        assertEquals(cache.size(), 64);
+        for (int i = 0; i < 64; i++) {
+            assertBlockEquals(BIGINT, cache.getIfPresent(key(i, "t1")), block);
+        }
+        assertTrue(cache.getAllocatedBytes() <= cache.getMaximumBytes());
+    }
+
+    private static OrcRowDataCacheKey key(long rowGroupOffset, String tableName)
+    {
+        OrcRowDataCacheKey key = new OrcRowDataCacheKey();
+        key.setOrcDataSourceId(new OrcDataSourceId("file"));
+        key.setStripeOffset(3);
+        key.setRowGroupOffset(rowGroupOffset);
+        key.setColumnId(new OrcColumnId(1));
+        key.setTableName(tableName);
+        return key;
+    }
+
+    private static long serializedSize(Block block)
+            throws Exception
+    {
+        OffHeapOrcRowDataCache cache = new OffHeapOrcRowDataCache(SERDE, new DataSize(1, DataSize.Unit.MEGABYTE), Duration.ofMinutes(10));
+        cache.get(key(0, null), () -> block);
+        return cache.getCachedBytes();
+    }
+
+    private static Block createLongBlock(int positionCount)
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            BIGINT.writeLong(builder, i);
+        }
+        return builder.build();
+    }
+
+    private static Block createVarcharBlock(String... values)
+    {
+        BlockBuilder builder = VARCHAR.createBlockBuilder(null, values.length);
+        for (String value : values) {
+            if (value == null) {
+                builder.appendNull();
+            }
+            else {
+                VARCHAR.writeString(builder, value);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.parser;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Replaces the string and numeric literals of a SQL text by placeholders, so that statements only differing
+ * by their literal values share the same normalized text. Each placeholder keeps the shape of its literal
+ * (length of a string, precision and scale of a decimal, range of an integer), since the shape decides the
+ * type of the literal and so the plan of the statement.
+ * <p>
+ * Literals which change the structure of the plan rather than a value in it, such as the count of a LIMIT
+ * or an ORDER BY ordinal, are kept in the normalized text.
+ */
+public final class LiteralNormalizer
+{
+    private static final Set<String> COUNT_KEYWORDS = ImmutableSet.of("LIMIT", "OFFSET", "FIRST", "NEXT");
+    private static final Set<String> ORDINAL_PREFIXES = ImmutableSet.of("BY", ",");
+    private static final Set<String> ORDINAL_SUFFIXES = ImmutableSet.of(",", ")", "ASC", "DESC", "NULLS", "LIMIT",
+            "OFFSET", "FETCH", "HAVING", "ORDER", "UNION", "INTERSECT", "EXCEPT", "MINUS");
+
+    private LiteralNormalizer()
+    {
+    }
+
+    public static NormalizedSql normalize(String sql)
+    {
+        requireNonNull(sql, "sql is null");
+        List<Token> tokens = getTokens(sql);
+        StringBuilder normalized = new StringBuilder();
+        ImmutableList.Builder<String> stringLiterals = ImmutableList.builder();
+        ImmutableList.Builder<String> numericLiterals = ImmutableList.builder();
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            switch (token.getType()) {
+                case SqlBaseLexer.STRING:
+                    String value = unquote(token.getText());
+                    stringLiterals.add(value);
+                    normalized.append("?s").append(value.length());
+                    break;
+                case SqlBaseLexer.INTEGER_VALUE:
+                    if (isStructural(tokens, i)) {
+                        normalized.append(token.getText());
+                    }
+                    else {
+                        numericLiterals.add(token.getText());
+                        normalized.append(integerShape(token.getText()));
+                    }
+                    break;
+                case SqlBaseLexer.DECIMAL_VALUE:
+                    BigDecimal decimal = new BigDecimal(token.getText());
+                    numericLiterals.add(token.getText());
+                    normalized.append("?d").append(decimal.precision()).append(',').append(decimal.scale());
+                    break;
+                case SqlBaseLexer.DOUBLE_VALUE:
+                    numericLiterals.add(token.getText());
+                    normalized.append("?e");
+                    break;
+                default:
+                    // keywords, identifiers, unicode and binary literals are kept as is
+                    normalized.append(token.getText());
+            }
+        }
+        return new NormalizedSql(normalized.toString(), stringLiterals.build(), numericLiterals.build());
+    }
+
+    private static List<Token> getTokens(String sql)
+    {
+        TokenSource lexer = new SqlBaseLexer(new CaseInsensitiveStream(new ANTLRInputStream(sql)));
+        List<Token> tokens = new ArrayList<>();
+        while (true) {
+            Token token = lexer.nextToken();
+            if (token.getType() == Token.EOF) {
+                return tokens;
+            }
+            if (token.getChannel() != Token.HIDDEN_CHANNEL) {
+                tokens.add(token);
+            }
+        }
+    }
+
+    private static boolean isStructural(List<Token> tokens, int index)
+    {
+        if (index == 0) {
+            return false;
+        }
+        String previous = tokens.get(index - 1).getText().toUpperCase(ENGLISH);
+        if (COUNT_KEYWORDS.contains(previous)) {
+            return true;
+        }
+        String next = index + 1 < tokens.size() ? tokens.get(index + 1).getText().toUpperCase(ENGLISH) : ")";
+        // ordinal in GROUP BY or ORDER BY
+        return ORDINAL_PREFIXES.contains(previous) && ORDINAL_SUFFIXES.contains(next) && isInOrderOrGroupBy(tokens, index);
+    }
+
+    private static boolean isInOrderOrGroupBy(List<Token> tokens, int index)
+    {
+        int depth = 0;
+        for (int i = index - 1; i >= 0; i--) {
+            String text = tokens.get(i).getText().toUpperCase(ENGLISH);
+            if (text.equals(")")) {
+                depth++;
+            }
+            else if (text.equals("(")) {
+                if (depth == 0) {
+                    return false;
+                }
+                depth--;
+            }
+            else if (depth == 0 && text.equals("BY")) {
+                return true;
+            }
+            else if (depth == 0 && (text.equals("SELECT") || text.equals("WHERE") || text.equals("ON") || text.equals("HAVING"))) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static String integerShape(String text)
+    {
+        try {
+            Integer.parseInt(text);
+            return "?i";
+        }
+        catch (NumberFormatException e) {
+            return "?l";
+        }
+    }
+
+    private static String unquote(String text)
+    {
+        return text.substring(1, text.length() - 1).replace("''", "'");
+    }
+
+    public static class NormalizedSql
+    {
+        private final String sql;
+        private final List<String> stringLiterals;
+        private final List<String> numericLiterals;
+
+        public NormalizedSql(String sql, List<String> stringLiterals, List<String> numericLiterals)
+        {
+            this.sql = requireNonNull(sql, "sql is null");
+            this.stringLiterals = ImmutableList.copyOf(requireNonNull(stringLiterals, "stringLiterals is null"));
+            this.numericLiterals = ImmutableList.copyOf(requireNonNull(numericLiterals, "numericLiterals is null"));
+        }
+
+        /**
+         * The SQL text with its literals replaced by placeholders
+         */
+        public String getSql()
+        {
+            return sql;
+        }
+
+        /**
+         * Values of the string literals, in the order of the text
+         */
+        public List<String> getStringLiterals()
+        {
+            return stringLiterals;
+        }
+
+        /**
+         * Texts of the numeric literals, in the order of the text
+         */
+        public List<String> getNumericLiterals()
+        {
+            return numericLiterals;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if ((obj == null) || (getClass() != obj.getClass())) {
+                return false;
+            }
+            NormalizedSql o = (NormalizedSql) obj;
+            return Objects.equals(sql, o.sql) &&
+                    Objects.equals(stringLiterals, o.stringLiterals) &&
+                    Objects.equals(numericLiterals, o.numericLiterals);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(sql, stringLiterals, numericLiterals);
+        }
+
+        @Override
+        public String toString()
+        {
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.parser;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static io.prestosql.sql.parser.LiteralNormalizer.NormalizedSql;
+import static io.prestosql.sql.parser.LiteralNormalizer.normalize;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+public class TestLiteralNormalizer
+{
+    @Test
+    public void testNormalize()
+    {
+        NormalizedSql normalized = normalize("SELECT a FROM t WHERE b = 'it''s' AND c > 10 AND d < 1.50 AND e = 3000000000 AND f < 1E3");
+        assertEquals(normalized.getSql(), "SELECT a FROM t WHERE b = ?s4 AND c > ?i AND d < ?d3,2 AND e = ?l AND f < ?e");
+        assertEquals(normalized.getStringLiterals(), ImmutableList.of("it's"));
+        assertEquals(normalized.getNumericLiterals(), ImmutableList.of("10", "1.50", "3000000000", "1E3"));
+    }
+
+    @Test
+    public void testSameTemplate()
+    {
+        NormalizedSql first = normalize("SELECT a FROM t WHERE b = 'abc' AND c IN (1, 2)");
+        NormalizedSql second = normalize("SELECT a FROM t\nWHERE b = 'xyz' AND c IN (3, 4) -- comment");
+        assertEquals(first.getSql(), second.getSql());
+        assertEquals(second.getStringLiterals(), ImmutableList.of("xyz"));
+        assertEquals(second.getNumericLiterals(), ImmutableList.of("3", "4"));
+
+        // the length of a string decides the type of the literal
+        assertNotEquals(normalize("SELECT a FROM t WHERE b = 'abcd'").getSql(), first.getSql());
+    }
+
+    @Test
+    public void testStructuralLiterals()
+    {
+        NormalizedSql normalized = normalize("SELECT a, count(*) FROM t WHERE b > 5 GROUP BY 1 ORDER BY 2 DESC, 1 LIMIT 10");
+        assertEquals(normalized.getSql(), "SELECT a , count ( * ) FROM t WHERE b > ?i GROUP BY 1 ORDER BY 2 DESC , 1 LIMIT 10");
+        assertEquals(normalized.getNumericLiterals(), ImmutableList.of("5"));
+
+        normalized = normalize("SELECT a FROM t ORDER BY a + 1 OFFSET 2 ROWS FETCH FIRST 3 ROWS ONLY");
+        assertEquals(normalized.getSql(), "SELECT a FROM t ORDER BY a + ?i OFFSET 2 ROWS FETCH FIRST 3 ROWS ONLY");
+    }
+}
@@ -14,10 +14,13 @@
  */
 package io.prestosql.spi.dynamicfilter;
 
+import io.prestosql.spi.block.Block;
 import io.prestosql.spi.connector.ColumnHandle;
 
 import java.util.Objects;
 
+import static io.prestosql.spi.type.TypeUtils.readNativeValueForDynamicFilter;
+
 /**
  * DynamicFilter contains dynamic filter information and
  * one of value set, bloom filter, min/max values for filtering
@@ -78,6 +81,54 @@ public abstract class DynamicFilter
      */
     public abstract boolean contains(Object value);
 
+    /**
+     * Filter all positions of the block, keeping the ones that might be contained in the current dynamic filter
+     *
+     * @param type type of the values in the block
+     * @param block block to be filtered
+     * @param positionsOut receives the positions that are kept, must be at least as large as the position count of the block
+     * @return number of positions written to positionsOut
+     */
+    public int filter(io.prestosql.spi.type.Type type, Block block, int[] positionsOut)
+    {
+        int count = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (containsValueAt(type, block, position)) {
+                positionsOut[count++] = position;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Filter the selected positions of the block, keeping the ones that might be contained in the current dynamic filter.
+     * positionsOut can be the same array as positions so that several dynamic filters can be applied one after another.
+     *
+     * @param type type of the values in the block
+     * @param block block to be filtered
+     * @param positions positions of the block to be checked
+     * @param positionCount number of valid entries in positions
+     * @param positionsOut receives the positions that are kept
+     * @return number of positions written to positionsOut
+     */
+    public int filter(io.prestosql.spi.type.Type type, Block block, int[] positions, int positionCount, int[] positionsOut)
+    {
+        int count = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (containsValueAt(type, block, position)) {
+                positionsOut[count++] = position;
+            }
+        }
+        return count;
+    }
+
+    private boolean containsValueAt(io.prestosql.spi.type.Type type, Block block, int position)
+    {
+        String value = readNativeValueForDynamicFilter(type, block, position);
+        return value == null || contains(value);
+    }
+
     /**
      * Get the size of the current DynamicFilter
      *
@@ -29,6 +29,11 @@ public class DynamicFilterFactory
         return new BloomFilterDynamicFilter(filterId, columnHandle, serializedBloomFilter, type);
     }
 
+    public static TypedDynamicFilter createTyped(String filterId, ColumnHandle columnHandle, byte[] serializedTypedFilter, DynamicFilter.Type type)
+    {
+        return TypedDynamicFilter.deserialize(filterId, columnHandle, serializedTypedFilter, type);
+    }
+
     public static HashSetDynamicFilter create(String filterId, ColumnHandle columnHandle, Set values, DynamicFilter.Type type)
     {
         return new HashSetDynamicFilter(filterId, columnHandle, values, type);
@@ -0,0 +1,512 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.dynamicfilter;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter.ValueKind;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.Range;
+import io.prestosql.spi.predicate.ValueSet;
+import io.prestosql.spi.type.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Range of the build side values of a typed dynamic filter: the min and max value, and the sorted distinct
+ * values as long as there are only a few of them. Unlike value hashes a range can be converted into a
+ * {@link Domain}, so connectors can skip files, stripes and row groups using their statistics.
+ * <p>
+ * Values are kept in their native representation, LONG and DOUBLE values are stored as long bits.
+ * NaN is never equal to any value and is not added to the range.
+ */
+public final class DynamicFilterRange
+{
+    public static final int MAX_DISCRETE_VALUES = 32;
+
+    private final ValueKind valueKind;
+    private boolean empty = true;
+    private long minLong;
+    private long maxLong;
+    private Slice minSlice;
+    private Slice maxSlice;
+    // distinct values, null once there are more than MAX_DISCRETE_VALUES of them
+    private long[] longValues;
+    private Slice[] sliceValues;
+    private int valueCount;
+
+    public DynamicFilterRange(ValueKind valueKind)
+    {
+        this.valueKind = requireNonNull(valueKind, "valueKind is null");
+        switch (valueKind) {
+            case LONG:
+            case DOUBLE:
+                longValues = new long[MAX_DISCRETE_VALUES];
+                break;
+            case SLICE:
+                sliceValues = new Slice[MAX_DISCRETE_VALUES];
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported value kind for a range: " + valueKind);
+        }
+    }
+
+    public ValueKind getValueKind()
+    {
+        return valueKind;
+    }
+
+    /**
+     * Add the value at the position of the block, the position must not be null
+     */
+    public void add(Type type, Block block, int position)
+    {
+        switch (valueKind) {
+            case LONG:
+                addLong(type.getLong(block, position));
+                return;
+            case DOUBLE:
+                addDouble(type.getDouble(block, position));
+                return;
+            case SLICE:
+                addSlice(block, position);
+                return;
+            default:
+                throw new IllegalArgumentException("Unsupported value kind: " + valueKind);
+        }
+    }
+
+    /**
+     * Add a native value (Long, Double or Slice) matching the kind of the range
+     */
+    public void addNativeValue(Object value)
+    {
+        switch (valueKind) {
+            case LONG:
+                addLong((Long) value);
+                return;
+            case DOUBLE:
+                addDouble((Double) value);
+                return;
+            case SLICE:
+                addSlice((Slice) value);
+                return;
+            default:
+                throw new IllegalArgumentException("Unsupported value kind: " + valueKind);
+        }
+    }
+
+    public void addLong(long value)
+    {
+        if (empty || value < minLong) {
+            minLong = value;
+        }
+        if (empty || value > maxLong) {
+            maxLong = value;
+        }
+        empty = false;
+        addDiscreteValue(value);
+    }
+
+    public void addDouble(double value)
+    {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value == 0) {
+            // 0.0 and -0.0 are equal join keys but are ordered differently, keep both in the range
+            updateDoubleBounds(-0.0, 0.0);
+            longValues = null;
+            return;
+        }
+        updateDoubleBounds(value, value);
+        addDiscreteValue(Double.doubleToLongBits(value));
+    }
+
+    public void addSlice(Slice value)
+    {
+        if (empty || value.compareTo(minSlice) < 0) {
+            minSlice = Slices.copyOf(value);
+        }
+        if (empty || value.compareTo(maxSlice) > 0) {
+            maxSlice = Slices.copyOf(value);
+        }
+        empty = false;
+        if (sliceValues == null) {
+            return;
+        }
+        for (int i = 0; i < valueCount; i++) {
+            if (sliceValues[i].equals(value)) {
+                return;
+            }
+        }
+        if (valueCount == MAX_DISCRETE_VALUES) {
+            sliceValues = null;
+            return;
+        }
+        sliceValues[valueCount++] = Slices.copyOf(value);
+    }
+
+    private void addSlice(Block block, int position)
+    {
+        int length = block.getSliceLength(position);
+        boolean lessThanMin = empty || block.bytesCompare(position, 0, length, minSlice, 0, minSlice.length()) < 0;
+        boolean greaterThanMax = empty || block.bytesCompare(position, 0, length, maxSlice, 0, maxSlice.length()) > 0;
+        boolean newValue = sliceValues != null && !containsSlice(block, position, length);
+        // only materialize the value when it changes the range
+        if (lessThanMin || greaterThanMax || newValue) {
+            addSlice(block.getSlice(position, 0, length));
+        }
+    }
+
+    private boolean containsSlice(Block block, int position, int length)
+    {
+        for (int i = 0; i < valueCount; i++) {
+            if (sliceValues[i].length() == length && block.bytesEqual(position, 0, sliceValues[i], 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateDoubleBounds(double low, double high)
+    {
+        if (empty || Double.compare(low, Double.longBitsToDouble(minLong)) < 0) {
+            minLong = Double.doubleToLongBits(low);
+        }
+        if (empty || Double.compare(high, Double.longBitsToDouble(maxLong)) > 0) {
+            maxLong = Double.doubleToLongBits(high);
+        }
+        empty = false;
+    }
+
+    private void addDiscreteValue(long value)
+    {
+        if (longValues == null) {
+            return;
+        }
+        for (int i = 0; i < valueCount; i++) {
+            if (longValues[i] == value) {
+                return;
+            }
+        }
+        if (valueCount == MAX_DISCRETE_VALUES) {
+            longValues = null;
+            return;
+        }
+        longValues[valueCount++] = value;
+    }
+
+    /**
+     * Add all values of another range of the same kind into the current one
+     */
+    public void union(DynamicFilterRange other)
+    {
+        if (other.valueKind != valueKind) {
+            throw new IllegalArgumentException("Dynamic filter ranges are not compatible: " + valueKind + ", " + other.valueKind);
+        }
+        if (other.empty) {
+            return;
+        }
+        if (valueKind == ValueKind.SLICE) {
+            addSlice(other.minSlice);
+            addSlice(other.maxSlice);
+            if (other.sliceValues == null) {
+                sliceValues = null;
+            }
+            else {
+                for (int i = 0; i < other.valueCount; i++) {
+                    addSlice(other.sliceValues[i]);
+                }
+            }
+            return;
+        }
+
+        if (valueKind == ValueKind.LONG) {
+            addLong(other.minLong);
+            addLong(other.maxLong);
+        }
+        else {
+            updateDoubleBounds(Double.longBitsToDouble(other.minLong), Double.longBitsToDouble(other.maxLong));
+        }
+        if (other.longValues == null) {
+            longValues = null;
+        }
+        else {
+            for (int i = 0; i < other.valueCount; i++) {
+                addDiscreteValue(other.longValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Check whether no value was added
+     */
+    public boolean isEmpty()
+    {
+        return empty;
+    }
+
+    /**
+     * Get the minimum value in its native representation
+     *
+     * @return minimum value, or null if the range is empty
+     */
+    public Object getMin()
+    {
+        return empty ? null : toNativeValue(minLong, minSlice);
+    }
+
+    /**
+     * Get the maximum value in its native representation
+     *
+     * @return maximum value, or null if the range is empty
+     */
+    public Object getMax()
+    {
+        return empty ? null : toNativeValue(maxLong, maxSlice);
+    }
+
+    /**
+     * Get the sorted distinct values in their native representation
+     *
+     * @return distinct values, or empty if there are too many of them
+     */
+    public Optional<List<Object>> getDiscreteValues()
+    {
+        if (longValues == null && sliceValues == null) {
+            return Optional.empty();
+        }
+        List<Object> values = new ArrayList<>(valueCount);
+        if (valueKind == ValueKind.SLICE) {
+            Slice[] sorted = Arrays.copyOf(sliceValues, valueCount);
+            Arrays.sort(sorted);
+            Collections.addAll(values, sorted);
+        }
+        else if (valueKind == ValueKind.LONG) {
+            long[] sorted = Arrays.copyOf(longValues, valueCount);
+            Arrays.sort(sorted);
+            for (long value : sorted) {
+                values.add(value);
+            }
+        }
+        else {
+            double[] sorted = new double[valueCount];
+            for (int i = 0; i < valueCount; i++) {
+                sorted[i] = Double.longBitsToDouble(longValues[i]);
+            }
+            Arrays.sort(sorted);
+            for (double value : sorted) {
+                values.add(value);
+            }
+        }
+        return Optional.of(values);
+    }
+
+    /**
+     * Check whether a native value of the kind of the current range might have been added
+     *
+     * @return false if the value is definitely not in the range
+     */
+    public boolean contains(Object value)
+    {
+        if (empty) {
+            return false;
+        }
+        switch (valueKind) {
+            case LONG: {
+                long longValue = (Long) value;
+                if (longValue < minLong || longValue > maxLong) {
+                    return false;
+                }
+                return longValues == null || containsDiscreteValue(longValue);
+            }
+            case DOUBLE: {
+                double doubleValue = (Double) value;
+                if (Double.isNaN(doubleValue)) {
+                    return false;
+                }
+                if (doubleValue < Double.longBitsToDouble(minLong) || doubleValue > Double.longBitsToDouble(maxLong)) {
+                    return false;
+                }
+                return longValues == null || containsDiscreteValue(Double.doubleToLongBits(doubleValue));
+            }
+            case SLICE: {
+                Slice sliceValue = (Slice) value;
+                if (sliceValue.compareTo(minSlice) < 0 || sliceValue.compareTo(maxSlice) > 0) {
+                    return false;
+                }
+                return sliceValues == null || Arrays.asList(sliceValues).subList(0, valueCount).contains(sliceValue);
+            }
+            default:
+                return true;
+        }
+    }
+
+    private boolean containsDiscreteValue(long value)
+    {
+        for (int i = 0; i < valueCount; i++) {
+            if (longValues[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Convert the current range into a domain of the given type, the native values of the type
+     * must be ordered the same way as the kind of the range, see {@link TypedDynamicFilter#isRangeSupported}
+     *
+     * @param type type of the probe side column
+     * @return domain containing all values that might match, nulls never match a join key
+     */
+    public Domain toDomain(Type type)
+    {
+        if (empty) {
+            return Domain.none(type);
+        }
+        Optional<List<Object>> discreteValues = getDiscreteValues();
+        if (discreteValues.isPresent()) {
+            return Domain.multipleValues(type, discreteValues.get());
+        }
+        return Domain.create(ValueSet.ofRanges(Range.range(type, getMin(), true, getMax(), true)), false);
+    }
+
+    private Object toNativeValue(long value, Slice slice)
+    {
+        switch (valueKind) {
+            case LONG:
+                return value;
+            case DOUBLE:
+                return Double.longBitsToDouble(value);
+            default:
+                return slice;
+        }
+    }
+
+    /**
+     * Serialized form: byte empty flag, min and max value, int number of distinct values (-1 if too many) followed by the values.
+     * Slice values are written as an int length followed by the bytes.
+     */
+    public int getSerializedSize()
+    {
+        if (empty) {
+            return SIZE_OF_BYTE;
+        }
+        int size = SIZE_OF_BYTE + SIZE_OF_INT;
+        if (valueKind == ValueKind.SLICE) {
+            size += 2 * SIZE_OF_INT + minSlice.length() + maxSlice.length();
+            if (sliceValues != null) {
+                for (int i = 0; i < valueCount; i++) {
+                    size += SIZE_OF_INT + sliceValues[i].length();
+                }
+            }
+            return size;
+        }
+        size += 2 * SIZE_OF_LONG;
+        if (longValues != null) {
+            size += valueCount * SIZE_OF_LONG;
+        }
+        return size;
+    }
+
+    public void writeTo(SliceOutput output)
+    {
+        output.writeBoolean(empty);
+        if (empty) {
+            return;
+        }
+        if (valueKind == ValueKind.SLICE) {
+            writeSlice(output, minSlice);
+            writeSlice(output, maxSlice);
+            output.writeInt(sliceValues == null ? -1 : valueCount);
+            if (sliceValues != null) {
+                for (int i = 0; i < valueCount; i++) {
+                    writeSlice(output, sliceValues[i]);
+                }
+            }
+            return;
+        }
+        output.writeLong(minLong);
+        output.writeLong(maxLong);
+        output.writeInt(longValues == null ? -1 : valueCount);
+        if (longValues != null) {
+            for (int i = 0; i < valueCount; i++) {
+                output.writeLong(longValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Read a range written by {@link #writeTo}
+     */
+    public static DynamicFilterRange readFrom(SliceInput input, ValueKind valueKind)
+    {
+        DynamicFilterRange range = new DynamicFilterRange(valueKind);
+        if (input.readBoolean()) {
+            return range;
+        }
+        range.empty = false;
+        if (valueKind == ValueKind.SLICE) {
+            range.minSlice = readSlice(input);
+            range.maxSlice = readSlice(input);
+            int count = input.readInt();
+            if (count < 0) {
+                range.sliceValues = null;
+            }
+            else {
+                for (int i = 0; i < count; i++) {
+                    range.sliceValues[range.valueCount++] = readSlice(input);
+                }
+            }
+            return range;
+        }
+        range.minLong = input.readLong();
+        range.maxLong = input.readLong();
+        int count = input.readInt();
+        if (count < 0) {
+            range.longValues = null;
+        }
+        else {
+            for (int i = 0; i < count; i++) {
+                range.longValues[range.valueCount++] = input.readLong();
+            }
+        }
+        return range;
+    }
+
+    private static void writeSlice(SliceOutput output, Slice slice)
+    {
+        output.writeInt(slice.length());
+        output.writeBytes(slice);
+    }
+
+    private static Slice readSlice(SliceInput input)
+    {
+        return input.readSlice(input.readInt());
+    }
+}
@@ -53,8 +53,8 @@ public class HashSetDynamicFilter
     public DynamicFilter clone()
     {
         DynamicFilter clone = new HashSetDynamicFilter(filterId, columnHandle, valueSet, type);
+        clone.setMin(min);
         clone.setMax(max);
-        clone.setMax(min);
         return clone;
     }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.dynamicfilter;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.util.SplitBlockBloomFilter;
+
+/**
+ * Bloom filter over value hashes, backed by a split block bloom filter so every probe touches a single cache line
+ */
+public class TypedBloomFilterDynamicFilter
+        extends TypedDynamicFilter
+{
+    private final SplitBlockBloomFilter bloomFilter;
+
+    private TypedBloomFilterDynamicFilter(String filterId, ColumnHandle columnHandle, ValueKind valueKind, SplitBlockBloomFilter bloomFilter, Type type)
+    {
+        super(filterId, columnHandle, valueKind, type);
+        this.bloomFilter = bloomFilter;
+    }
+
+    /**
+     * Create an empty bloom filter
+     *
+     * @param expectedInsertions number of values the bloom filter is sized for
+     * @param fpp expected false positive probability when expectedInsertions values are added
+     */
+    public static TypedBloomFilterDynamicFilter create(String filterId, ColumnHandle columnHandle, ValueKind valueKind, long expectedInsertions, double fpp, Type type)
+    {
+        return new TypedBloomFilterDynamicFilter(filterId, columnHandle, valueKind, SplitBlockBloomFilter.create(expectedInsertions, fpp), type);
+    }
+
+    static TypedBloomFilterDynamicFilter readFrom(String filterId, ColumnHandle columnHandle, ValueKind valueKind, Slice slice, Type type)
+    {
+        SplitBlockBloomFilter bloomFilter = SplitBlockBloomFilter.readFrom(slice, HEADER_SIZE);
+        TypedBloomFilterDynamicFilter filter = new TypedBloomFilterDynamicFilter(filterId, columnHandle, valueKind, bloomFilter, type);
+        filter.readValueRange(slice, HEADER_SIZE + bloomFilter.getSerializedSize());
+        return filter;
+    }
+
+    @Override
+    public byte[] serialize()
+    {
+        byte[] serialized = new byte[HEADER_SIZE + bloomFilter.getSerializedSize() + getValueRangeSerializedSize()];
+        Slice slice = Slices.wrappedBuffer(serialized);
+        writeHeader(slice, BLOOM_FILTER_FORMAT, valueKind);
+        bloomFilter.writeTo(slice, HEADER_SIZE);
+        writeValueRange(slice, HEADER_SIZE + bloomFilter.getSerializedSize());
+        return serialized;
+    }
+
+    /**
+     * Add a hashed value, only allowed before the filter is published
+     */
+    public void put(long hash)
+    {
+        bloomFilter.put(hash);
+    }
+
+    @Override
+    public boolean containsHash(long hash)
+    {
+        return bloomFilter.mightContain(hash);
+    }
+
+    public boolean isCompatible(TypedDynamicFilter other)
+    {
+        if (!(other instanceof TypedBloomFilterDynamicFilter)) {
+            return false;
+        }
+        TypedBloomFilterDynamicFilter otherBloomFilter = (TypedBloomFilterDynamicFilter) other;
+        return otherBloomFilter.valueKind == valueKind && bloomFilter.isCompatible(otherBloomFilter.bloomFilter);
+    }
+
+    /**
+     * Union is only allowed on a filter that is not shared with its clones
+     */
+    @Override
+    public void union(TypedDynamicFilter other)
+    {
+        if (!isCompatible(other)) {
+            throw new IllegalArgumentException("Dynamic filters are not compatible");
+        }
+        bloomFilter.union(((TypedBloomFilterDynamicFilter) other).bloomFilter);
+        unionValueRange(other);
+    }
+
+    /**
+     * Get the probability that a value which was never added is reported as contained
+     *
+     * @return expected false positive probability
+     */
+    public double expectedFpp()
+    {
+        return bloomFilter.expectedFpp();
+    }
+
+    @Override
+    public long getSize()
+    {
+        return bloomFilter.approximateElementCount();
+    }
+
+    /**
+     * The bloom filter and value range are shared with the clone, they are never modified once the filter is published
+     */
+    @Override
+    public DynamicFilter clone()
+    {
+        TypedBloomFilterDynamicFilter clone = new TypedBloomFilterDynamicFilter(filterId, columnHandle, valueKind, bloomFilter, type);
+        clone.setValueRange(valueRange);
+        return clone;
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.dynamicfilter;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.slice.XxHash64;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.type.BigintType;
+import io.prestosql.spi.type.CharType;
+import io.prestosql.spi.type.DateType;
+import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.DoubleType;
+import io.prestosql.spi.type.IntegerType;
+import io.prestosql.spi.type.SmallintType;
+import io.prestosql.spi.type.TinyintType;
+import io.prestosql.spi.type.VarcharType;
+
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * TypedDynamicFilter stores 64-bit hashes of the native values of the build side,
+ * the hashes are computed directly from the Block on both build and probe side
+ * so no intermediate object is created per row.
+ * <p>
+ * Filters of orderable types can also carry the range of the build side values,
+ * which is serialized after the hashes and can be converted into a {@link Domain}.
+ */
+public abstract class TypedDynamicFilter
+        extends DynamicFilter
+{
+    protected static final int HEADER_SIZE = 2;
+    protected static final byte HASH_SET_FORMAT = 0;
+    protected static final byte BLOOM_FILTER_FORMAT = 1;
+    protected static final byte RANGE_FORMAT = 2;
+
+    /**
+     * Native representation of the values hashed by a TypedDynamicFilter
+     */
+    public enum ValueKind
+    {
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        SLICE;
+
+        /**
+         * Get the value kind for a type
+         *
+         * @param type type of the values
+         * @return value kind, or empty if values of the type can not be used in a typed dynamic filter
+         */
+        public static Optional<ValueKind> of(io.prestosql.spi.type.Type type)
+        {
+            Class<?> javaType = type.getJavaType();
+            if (javaType == long.class) {
+                return Optional.of(LONG);
+            }
+            if (javaType == double.class) {
+                return Optional.of(DOUBLE);
+            }
+            if (javaType == boolean.class) {
+                return Optional.of(BOOLEAN);
+            }
+            if (javaType == Slice.class && (type instanceof VarcharType || type instanceof CharType)) {
+                return Optional.of(SLICE);
+            }
+            return Optional.empty();
+        }
+    }
+
+    protected final ValueKind valueKind;
+    // null when the range of the values is unknown
+    protected DynamicFilterRange valueRange;
+
+    protected TypedDynamicFilter(String filterId, ColumnHandle columnHandle, ValueKind valueKind, Type type)
+    {
+        this.filterId = filterId;
+        this.columnHandle = columnHandle;
+        this.valueKind = requireNonNull(valueKind, "valueKind is null");
+        this.type = type;
+    }
+
+    public ValueKind getValueKind()
+    {
+        return valueKind;
+    }
+
+    /**
+     * Get the range of the values of the current dynamic filter
+     *
+     * @return value range, or empty if it is unknown
+     */
+    public Optional<DynamicFilterRange> getValueRange()
+    {
+        return Optional.ofNullable(valueRange);
+    }
+
+    /**
+     * Set the range of the values, only allowed before the filter is published
+     *
+     * @param valueRange range of all values added to the current dynamic filter, or null if it is unknown
+     */
+    public void setValueRange(DynamicFilterRange valueRange)
+    {
+        if (valueRange != null && valueRange.getValueKind() != valueKind) {
+            throw new IllegalArgumentException("Value range kind " + valueRange.getValueKind() + " does not match " + valueKind);
+        }
+        this.valueRange = valueRange;
+        this.min = valueRange == null ? null : valueRange.getMin();
+        this.max = valueRange == null ? null : valueRange.getMax();
+    }
+
+    /**
+     * Convert the range of the values into a domain, so that connectors can skip data using their statistics
+     *
+     * @param type type of the probe side column
+     * @return domain of the values that might be contained, or empty if the range is unknown or can not be used for the type
+     */
+    public Optional<Domain> getDomain(io.prestosql.spi.type.Type type)
+    {
+        if (valueRange == null || !isRangeSupported(type) || !ValueKind.of(type).filter(valueKind::equals).isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(valueRange.toDomain(type));
+    }
+
+    /**
+     * Check whether the native values of a type are ordered the same way as their value kind,
+     * so that the min and max of the build side values form a valid range of the type
+     */
+    public static boolean isRangeSupported(io.prestosql.spi.type.Type type)
+    {
+        return type instanceof BigintType
+                || type instanceof IntegerType
+                || type instanceof SmallintType
+                || type instanceof TinyintType
+                || type instanceof DateType
+                || (type instanceof DecimalType && ((DecimalType) type).isShort())
+                || type instanceof DoubleType
+                || type instanceof VarcharType
+                || type instanceof CharType;
+    }
+
+    /**
+     * Merge the range of another dynamic filter into the current one, the range stays unknown if either of them is unknown
+     */
+    protected void unionValueRange(TypedDynamicFilter other)
+    {
+        if (valueRange == null || other.valueRange == null) {
+            setValueRange(null);
+            return;
+        }
+        valueRange.union(other.valueRange);
+        setValueRange(valueRange);
+    }
+
+    protected int getValueRangeSerializedSize()
+    {
+        return valueRange == null ? 0 : valueRange.getSerializedSize();
+    }
+
+    /**
+     * Write the range after the values, nothing is written when the range is unknown
+     */
+    protected void writeValueRange(Slice slice, int offset)
+    {
+        if (valueRange != null) {
+            valueRange.writeTo(slice.slice(offset, valueRange.getSerializedSize()).getOutput());
+        }
+    }
+
+    /**
+     * Read the range written by {@link #writeValueRange}, filters serialized without a range end before the offset
+     */
+    protected void readValueRange(Slice slice, int offset)
+    {
+        if (offset < slice.length()) {
+            setValueRange(DynamicFilterRange.readFrom(slice.slice(offset, slice.length() - offset).getInput(), valueKind));
+        }
+    }
+
+    /**
+     * Check whether a hashed value might be contained in the current dynamic filter
+     *
+     * @param hash hash of the value computed by one of the hash functions of this class
+     * @return false if the value is definitely not contained
+     */
+    public abstract boolean containsHash(long hash);
+
+    /**
+     * Add all values of another dynamic filter of the same kind into the current one
+     *
+     * @param other dynamic filter to be merged into the current one
+     */
+    public abstract void union(TypedDynamicFilter other);
+
+    /**
+     * Serialize the current dynamic filter, the result can be read by {@link #deserialize}
+     *
+     * @return serialized dynamic filter
+     */
+    public abstract byte[] serialize();
+
+    /**
+     * Create a typed dynamic filter from its serialized form
+     *
+     * @param filterId id of the dynamic filter
+     * @param columnHandle column information of the dynamic filter, can be null
+     * @param serialized serialized dynamic filter created by {@link #serialize}
+     * @param type type of the dynamic filter
+     * @return deserialized dynamic filter
+     */
+    public static TypedDynamicFilter deserialize(String filterId, ColumnHandle columnHandle, byte[] serialized, Type type)
+    {
+        Slice slice = Slices.wrappedBuffer(serialized);
+        byte format = slice.getByte(0);
+        ValueKind valueKind = ValueKind.values()[slice.getByte(1)];
+        if (format == HASH_SET_FORMAT) {
+            return TypedHashSetDynamicFilter.readFrom(filterId, columnHandle, valueKind, slice, type);
+        }
+        if (format == BLOOM_FILTER_FORMAT) {
+            return TypedBloomFilterDynamicFilter.readFrom(filterId, columnHandle, valueKind, slice, type);
+        }
+        if (format == RANGE_FORMAT) {
+            return TypedRangeDynamicFilter.readFrom(filterId, columnHandle, valueKind, slice, type);
+        }
+        throw new IllegalArgumentException("Unknown dynamic filter format: " + format);
+    }
+
+    protected static void writeHeader(Slice slice, byte format, ValueKind valueKind)
+    {
+        slice.setByte(0, format);
+        slice.setByte(1, valueKind.ordinal());
+    }
+
+    public static long hashLong(long value)
+    {
+        return XxHash64.hash(value);
+    }
+
+    public static long hashDouble(double value)
+    {
+        // 0.0 and -0.0 are equal join keys
+        double normalized = value == 0 ? 0 : value;
+        return XxHash64.hash(Double.doubleToLongBits(normalized));
+    }
+
+    public static long hashBoolean(boolean value)
+    {
+        return XxHash64.hash(value ? 1 : 0);
+    }
+
+    public static long hashSlice(Slice value)
+    {
+        return XxHash64.hash(value);
+    }
+
+    /**
+     * Hash the value at the position of the block, the position must not be null
+     */
+    public static long hash(io.prestosql.spi.type.Type type, ValueKind valueKind, Block block, int position)
+    {
+        switch (valueKind) {
+            case LONG:
+                return hashLong(type.getLong(block, position));
+            case DOUBLE:
+                return hashDouble(type.getDouble(block, position));
+            case BOOLEAN:
+                return hashBoolean(type.getBoolean(block, position));
+            case SLICE:
+                return block.hash(position, 0, block.getSliceLength(position));
+            default:
+                throw new IllegalArgumentException("Unsupported value kind: " + valueKind);
+        }
+    }
+
+    /**
+     * Hash a native value (Long, Double, Boolean or Slice) of the given kind
+     *
+     * @return hash of the value, or empty if the value does not match the kind
+     */
+    public static Optional<Long> hashNativeValue(ValueKind valueKind, Object value)
+    {
+        switch (valueKind) {
+            case LONG:
+                return value instanceof Long ? Optional.of(hashLong((Long) value)) : Optional.empty();
+            case DOUBLE:
+                return value instanceof Double ? Optional.of(hashDouble((Double) value)) : Optional.empty();
+            case BOOLEAN:
+                return value instanceof Boolean ? Optional.of(hashBoolean((Boolean) value)) : Optional.empty();
+            case SLICE:
+                return value instanceof Slice ? Optional.of(hashSlice((Slice) value)) : Optional.empty();
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Values are either native values or their String representations, e.g. partition values.
+     * Values that can not be interpreted as the kind of the current dynamic filter can not be filtered out.
+     */
+    @Override
+    public boolean contains(Object value)
+    {
+        if (value == null) {
+            return false;
+        }
+        Object nativeValue = value instanceof String ? parseNativeValue((String) value) : value;
+        if (nativeValue == null) {
+            return true;
+        }
+        Optional<Long> hash = hashNativeValue(valueKind, nativeValue);
+        if (!hash.isPresent()) {
+            return true;
+        }
+        // the range removes false positives of bloom filters, e.g. for partition values
+        return (valueRange == null || valueRange.contains(nativeValue)) && containsHash(hash.get());
+    }
+
+    private Object parseNativeValue(String value)
+    {
+        try {
+            switch (valueKind) {
+                case LONG:
+                    return Long.parseLong(value);
+                case DOUBLE:
+                    return Double.parseDouble(value);
+                case BOOLEAN:
+                    if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                        return Boolean.parseBoolean(value);
+                    }
+                    return null;
+                case SLICE:
+                    return Slices.utf8Slice(value);
+                default:
+                    return null;
+            }
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public int filter(io.prestosql.spi.type.Type type, Block block, int[] positionsOut)
+    {
+        return filterPositions(type, block, null, block.getPositionCount(), positionsOut);
+    }
+
+    @Override
+    public int filter(io.prestosql.spi.type.Type type, Block block, int[] positions, int positionCount, int[] positionsOut)
+    {
+        return filterPositions(type, block, positions, positionCount, positionsOut);
+    }
+
+    /**
+     * Type specialized filter loops, positions being null means all positions of the block
+     */
+    private int filterPositions(io.prestosql.spi.type.Type type, Block block, int[] positions, int positionCount, int[] positionsOut)
+    {
+        int count = 0;
+        if (!ValueKind.of(type).filter(valueKind::equals).isPresent()) {
+            // values of a different representation can not be probed, keep all of them
+            for (int i = 0; i < positionCount; i++) {
+                positionsOut[count++] = positions == null ? i : positions[i];
+            }
+            return count;
+        }
+
+        switch (valueKind) {
+            case LONG:
+                for (int i = 0; i < positionCount; i++) {
+                    int position = positions == null ? i : positions[i];
+                    if (!block.isNull(position) && containsHash(hashLong(type.getLong(block, position)))) {
+                        positionsOut[count++] = position;
+                    }
+                }
+                break;
+            case DOUBLE:
+                for (int i = 0; i < positionCount; i++) {
+                    int position = positions == null ? i : positions[i];
+                    if (!block.isNull(position) && containsHash(hashDouble(type.getDouble(block, position)))) {
+                        positionsOut[count++] = position;
+                    }
+                }
+                break;
+            case BOOLEAN:
+                for (int i = 0; i < positionCount; i++) {
+                    int position = positions == null ? i : positions[i];
+                    if (!block.isNull(position) && containsHash(hashBoolean(type.getBoolean(block, position)))) {
+                        positionsOut[count++] = position;
+                    }
+                }
+                break;
+            case SLICE:
+                for (int i = 0; i < positionCount; i++) {
+                    int position = positions == null ? i : positions[i];
+                    if (!block.isNull(position) && containsHash(block.hash(position, 0, block.getSliceLength(position)))) {
+                        positionsOut[count++] = position;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported value kind: " + valueKind);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.dynamicfilter;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.prestosql.spi.connector.ColumnHandle;
+
+import java.util.function.LongConsumer;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+
+/**
+ * Exact set of value hashes kept in an open addressing long array
+ */
+public class TypedHashSetDynamicFilter
+        extends TypedDynamicFilter
+{
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] hashTable;
+    private int mask;
+    // 0 marks an empty slot in the hash table
+    private boolean containsZero;
+    private int size;
+
+    public TypedHashSetDynamicFilter(String filterId, ColumnHandle columnHandle, ValueKind valueKind, long[] hashes, Type type)
+    {
+        super(filterId, columnHandle, valueKind, type);
+        int capacity = tableCapacity(hashes.length);
+        this.hashTable = new long[capacity];
+        this.mask = capacity - 1;
+        for (long hash : hashes) {
+            add(hash);
+        }
+    }
+
+    private TypedHashSetDynamicFilter(TypedHashSetDynamicFilter other)
+    {
+        super(other.filterId, other.columnHandle, other.valueKind, other.type);
+        this.hashTable = other.hashTable;
+        this.mask = other.mask;
+        this.containsZero = other.containsZero;
+        this.size = other.size;
+        setValueRange(other.valueRange);
+    }
+
+    static TypedHashSetDynamicFilter readFrom(String filterId, ColumnHandle columnHandle, ValueKind valueKind, Slice slice, Type type)
+    {
+        int count = slice.getInt(HEADER_SIZE);
+        long[] hashes = new long[count];
+        int offset = HEADER_SIZE + SIZE_OF_INT;
+        for (int i = 0; i < count; i++) {
+            hashes[i] = slice.getLong(offset);
+            offset += SIZE_OF_LONG;
+        }
+        TypedHashSetDynamicFilter filter = new TypedHashSetDynamicFilter(filterId, columnHandle, valueKind, hashes, type);
+        filter.readValueRange(slice, offset);
+        return filter;
+    }
+
+    @Override
+    public byte[] serialize()
+    {
+        byte[] serialized = new byte[HEADER_SIZE + SIZE_OF_INT + size * SIZE_OF_LONG + getValueRangeSerializedSize()];
+        Slice slice = Slices.wrappedBuffer(serialized);
+        writeHeader(slice, HASH_SET_FORMAT, valueKind);
+        slice.setInt(HEADER_SIZE, size);
+        int offset = HEADER_SIZE + SIZE_OF_INT;
+        if (containsZero) {
+            slice.setLong(offset, 0);
+            offset += SIZE_OF_LONG;
+        }
+        for (long hash : hashTable) {
+            if (hash != 0) {
+                slice.setLong(offset, hash);
+                offset += SIZE_OF_LONG;
+            }
+        }
+        writeValueRange(slice, offset);
+        return serialized;
+    }
+
+    @Override
+    public boolean containsHash(long hash)
+    {
+        if (hash == 0) {
+            return containsZero;
+        }
+        int index = bucket(hash);
+        long current;
+        while ((current = hashTable[index]) != 0) {
+            if (current == hash) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Union is only allowed on a filter that is not shared with its clones
+     */
+    @Override
+    public void union(TypedDynamicFilter other)
+    {
+        if (!(other instanceof TypedHashSetDynamicFilter) || other.getValueKind() != valueKind) {
+            throw new IllegalArgumentException("Dynamic filters are not compatible");
+        }
+        TypedHashSetDynamicFilter otherSet = (TypedHashSetDynamicFilter) other;
+        if (otherSet.containsZero) {
+            add(0);
+        }
+        for (long hash : otherSet.hashTable) {
+            if (hash != 0) {
+                add(hash);
+            }
+        }
+        unionValueRange(other);
+    }
+
+    /**
+     * Pass every hash of the set to the consumer, e.g. to build a bloom filter from the exact set
+     */
+    public void forEachHash(LongConsumer consumer)
+    {
+        if (containsZero) {
+            consumer.accept(0);
+        }
+        for (long hash : hashTable) {
+            if (hash != 0) {
+                consumer.accept(hash);
+            }
+        }
+    }
+
+    @Override
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * The hash table and value range are shared with the clone, they are never modified once the filter is published
+     */
+    @Override
+    public DynamicFilter clone()
+    {
+        return new TypedHashSetDynamicFilter(this);
+    }
+
+    private void add(long hash)
+    {
+        if (hash == 0) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            return;
+        }
+        if ((size + 1) * 2L > hashTable.length) {
+            rehash(hashTable.length * 2);
+        }
+        int index = bucket(hash);
+        long current;
+        while ((current = hashTable[index]) != 0) {
+            if (current == hash) {
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        hashTable[index] = hash;
+        size++;
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] oldTable = hashTable;
+        hashTable = new long[capacity];
+        mask = capacity - 1;
+        for (long hash : oldTable) {
+            if (hash != 0) {
+                int index = bucket(hash);
+                while (hashTable[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                hashTable[index] = hash;
+            }
+        }
+    }
+
+    private int bucket(long hash)
+    {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int tableCapacity(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2 - 1)) << 1;
+        return Math.max(MIN_CAPACITY, capacity);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.dynamicfilter;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.connector.ColumnHandle;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Range of integer values, used instead of the value hashes when the build side values are dense:
+ * the range is then as selective as the exact set of values while taking constant space.
+ * Probing only compares the values with the bounds of the range.
+ */
+public class TypedRangeDynamicFilter
+        extends TypedDynamicFilter
+{
+    public TypedRangeDynamicFilter(String filterId, ColumnHandle columnHandle, DynamicFilterRange valueRange, Type type)
+    {
+        super(filterId, columnHandle, ValueKind.LONG, type);
+        setValueRange(requireNonNull(valueRange, "valueRange is null"));
+    }
+
+    static TypedRangeDynamicFilter readFrom(String filterId, ColumnHandle columnHandle, ValueKind valueKind, Slice slice, Type type)
+    {
+        DynamicFilterRange valueRange = DynamicFilterRange.readFrom(slice.slice(HEADER_SIZE, slice.length() - HEADER_SIZE).getInput(), valueKind);
+        return new TypedRangeDynamicFilter(filterId, columnHandle, valueRange, type);
+    }
+
+    /**
+     * Check whether the distinct integer values of a range fill the whole range, so that the range is exact
+     *
+     * @param valueRange range of the values
+     * @param distinctValueCount number of distinct values added to the range
+     * @return true if every integer between the min and max value has been added
+     */
+    public static boolean isDense(DynamicFilterRange valueRange, long distinctValueCount)
+    {
+        if (valueRange.getValueKind() != ValueKind.LONG || valueRange.isEmpty()) {
+            return false;
+        }
+        long width = (Long) valueRange.getMax() - (Long) valueRange.getMin();
+        // width overflows for ranges wider than the long range, such ranges are never dense
+        return width >= 0 && width < distinctValueCount;
+    }
+
+    @Override
+    public byte[] serialize()
+    {
+        byte[] serialized = new byte[HEADER_SIZE + getValueRangeSerializedSize()];
+        Slice slice = Slices.wrappedBuffer(serialized);
+        writeHeader(slice, RANGE_FORMAT, valueKind);
+        writeValueRange(slice, HEADER_SIZE);
+        return serialized;
+    }
+
+    /**
+     * Hashes carry no information about the range, values are checked against the range by
+     * {@link #contains} and the filter methods
+     */
+    @Override
+    public boolean containsHash(long hash)
+    {
+        return !valueRange.isEmpty();
+    }
+
+    @Override
+    public int filter(io.prestosql.spi.type.Type type, Block block, int[] positionsOut)
+    {
+        if (!ValueKind.of(type).filter(valueKind::equals).isPresent()) {
+            return super.filter(type, block, positionsOut);
+        }
+        return filterRange(type, block, null, block.getPositionCount(), positionsOut);
+    }
+
+    @Override
+    public int filter(io.prestosql.spi.type.Type type, Block block, int[] positions, int positionCount, int[] positionsOut)
+    {
+        if (!ValueKind.of(type).filter(valueKind::equals).isPresent()) {
+            return super.filter(type, block, positions, positionCount, positionsOut);
+        }
+        return filterRange(type, block, positions, positionCount, positionsOut);
+    }
+
+    private int filterRange(io.prestosql.spi.type.Type type, Block block, int[] positions, int positionCount, int[] positionsOut)
+    {
+        if (valueRange.isEmpty()) {
+            return 0;
+        }
+        long min = (Long) valueRange.getMin();
+        long max = (Long) valueRange.getMax();
+        int count = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions == null ? i : positions[i];
+            if (!block.isNull(position)) {
+                long value = type.getLong(block, position);
+                if (value >= min && value <= max) {
+                    positionsOut[count++] = position;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Union is only allowed on a filter that is not shared with its clones,
+     * the other filter can have any representation as long as its range is known
+     */
+    @Override
+    public void union(TypedDynamicFilter other)
+    {
+        if (other.getValueKind() != valueKind || !other.getValueRange().isPresent()) {
+            throw new IllegalArgumentException("Dynamic filters are not compatible");
+        }
+        unionValueRange(other);
+    }
+
+    /**
+     * Convert the range into the exact set of its values, the range must be small
+     */
+    public TypedHashSetDynamicFilter toHashSet()
+    {
+        long[] hashes = new long[Math.toIntExact(getSize())];
+        if (hashes.length > 0) {
+            long min = (Long) valueRange.getMin();
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = hashLong(min + i);
+            }
+        }
+        TypedHashSetDynamicFilter hashSet = new TypedHashSetDynamicFilter(filterId, columnHandle, valueKind, hashes, type);
+        hashSet.setValueRange(valueRange);
+        return hashSet;
+    }
+
+    /**
+     * Number of integers in the range, saturated at Long.MAX_VALUE
+     */
+    @Override
+    public long getSize()
+    {
+        if (valueRange.isEmpty()) {
+            return 0;
+        }
+        long width = (Long) valueRange.getMax() - (Long) valueRange.getMin();
+        return width < 0 || width == Long.MAX_VALUE ? Long.MAX_VALUE : width + 1;
+    }
+
+    /**
+     * The value range is shared with the clone, it is never modified once the filter is published
+     */
+    @Override
+    public DynamicFilter clone()
+    {
+        return new TypedRangeDynamicFilter(filterId, columnHandle, valueRange, type);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.function;
+
+import io.prestosql.spi.block.Block;
+
+import java.util.List;
+
+/**
+ * Evaluation of a scalar function over a batch of positions of its argument blocks,
+ * for the functions whose invocation overhead is better paid once per batch than once per row.
+ */
+public interface BatchScalarFunction
+{
+    /**
+     * Evaluate the function at some positions of its arguments
+     *
+     * @param arguments the blocks of the arguments, with the same positions
+     * @param positions the positions to evaluate, or null to evaluate a range of positions
+     * @param offset the offset of the positions, or the first position of the range
+     * @param length the number of positions to evaluate
+     * @return the block of the results, one per evaluated position
+     */
+    Block evaluate(List<Block> arguments, int[] positions, int offset, int length);
+}
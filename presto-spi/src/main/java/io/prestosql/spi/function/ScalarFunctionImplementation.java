@@ -32,6 +32,7 @@ public final class ScalarFunctionImplementation
 {
     private final List<ScalarImplementationChoice> choices;
     private final boolean deterministic;
+    private final Optional<BatchScalarFunction> batchFunction;
 
     public ScalarFunctionImplementation(
             boolean nullable,
@@ -67,10 +68,22 @@ public final class ScalarFunctionImplementation
      * @param choices the list of choices, ordered from generic to specific
      */
     public ScalarFunctionImplementation(List<ScalarImplementationChoice> choices, boolean deterministic)
+    {
+        this(choices, deterministic, Optional.empty());
+    }
+
+    /**
+     * Creates a ScalarFunctionImplementation which may also be evaluated over batches of positions.
+     *
+     * @param choices the list of choices, ordered from generic to specific
+     * @param batchFunction the equivalent evaluation over batches of positions, used to project whole blocks
+     */
+    public ScalarFunctionImplementation(List<ScalarImplementationChoice> choices, boolean deterministic, Optional<BatchScalarFunction> batchFunction)
     {
         checkArgument(!choices.isEmpty(), "choices is an empty list");
         this.choices = ImmutableList.copyOf(choices);
         this.deterministic = deterministic;
+        this.batchFunction = requireNonNull(batchFunction, "batchFunction is null");
     }
 
     public boolean isNullable()
@@ -103,6 +116,11 @@ public final class ScalarFunctionImplementation
         return deterministic;
     }
 
+    public Optional<BatchScalarFunction> getBatchFunction()
+    {
+        return batchFunction;
+    }
+
     public static class ScalarImplementationChoice
     {
         private final boolean nullable;
@@ -14,7 +14,10 @@
  */
 package io.prestosql.spi.statestore;
 
+import io.prestosql.spi.statestore.listener.MapListener;
+
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -113,4 +116,25 @@ public interface StateMap<K, V>
      * @return set contains all the keys
      */
     Set<K> keySet();
+
+    /**
+     * Add a listener notified of the entries added, updated or removed after the registration,
+     * the events carry the new values of the entries
+     *
+     * @param listener entry listener
+     * @return id of the listener registration, or empty if the state map doesn't support listeners
+     */
+    default Optional<String> addEntryListener(MapListener listener)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Remove a listener added with {@link #addEntryListener}
+     *
+     * @param listenerId id of the listener registration
+     */
+    default void removeEntryListener(String listenerId)
+    {
+    }
 }
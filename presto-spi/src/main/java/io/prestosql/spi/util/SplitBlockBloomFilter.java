@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.util;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import org.openjdk.jol.info.ClassLayout;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.SizeOf.sizeOf;
+
+/**
+ * Split block Bloom filter over 64-bit value hashes.
+ * <p>
+ * The filter is divided into 256-bit blocks, a value selects a single block with the
+ * upper half of its hash and sets one bit in each of the eight 32-bit words of that block.
+ * Adding or probing a value therefore touches a single cache line.
+ * <p>
+ * Serialized form (little endian): int number of blocks, followed by the block words.
+ */
+public final class SplitBlockBloomFilter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(SplitBlockBloomFilter.class).instanceSize();
+
+    private static final int LONGS_PER_BLOCK = 4;
+    private static final int BITS_PER_BLOCK = LONGS_PER_BLOCK * Long.SIZE;
+    private static final int WORDS_PER_BLOCK = BITS_PER_BLOCK / Integer.SIZE;
+    private static final int MAX_BLOCKS = Integer.MAX_VALUE / (LONGS_PER_BLOCK * SIZE_OF_LONG);
+
+    // odd multipliers selecting the bit of each 32-bit word, same constants as the Parquet and Impala filters
+    private static final int[] SALT = {
+            0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d,
+            0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31};
+
+    private final long[] bits;
+    private final int numBlocks;
+    private long bitCount;
+
+    private SplitBlockBloomFilter(long[] bits, long bitCount)
+    {
+        this.bits = bits;
+        this.numBlocks = bits.length / LONGS_PER_BLOCK;
+        this.bitCount = bitCount;
+    }
+
+    /**
+     * Create an empty filter sized so that adding expectedInsertions values gives roughly the requested false positive probability
+     *
+     * @param expectedInsertions number of values the filter is sized for
+     * @param fpp expected false positive probability, between 0 and 1 exclusive
+     * @return empty filter
+     */
+    public static SplitBlockBloomFilter create(long expectedInsertions, double fpp)
+    {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Invalid bloom filter parameters: " + expectedInsertions + ", " + fpp);
+        }
+        double bitsPerValue = -WORDS_PER_BLOCK / Math.log(1 - Math.pow(fpp, 1.0 / WORDS_PER_BLOCK));
+        long numBits = (long) Math.ceil(expectedInsertions * bitsPerValue);
+        long numBlocks = Math.max(1, Math.min(MAX_BLOCKS, (numBits + BITS_PER_BLOCK - 1) / BITS_PER_BLOCK));
+        return new SplitBlockBloomFilter(new long[(int) numBlocks * LONGS_PER_BLOCK], 0);
+    }
+
+    /**
+     * Read a filter written by {@link #writeTo(Slice, int)}
+     */
+    public static SplitBlockBloomFilter readFrom(Slice slice, int offset)
+    {
+        long[] bits = new long[checkNumBlocks(slice.getInt(offset)) * LONGS_PER_BLOCK];
+        slice.getBytes(offset + SIZE_OF_INT, Slices.wrappedLongArray(bits));
+        return new SplitBlockBloomFilter(bits, countBits(bits));
+    }
+
+    /**
+     * Read a filter written by {@link #writeTo(SliceOutput)}
+     */
+    public static SplitBlockBloomFilter readFrom(SliceInput input)
+    {
+        long[] bits = new long[checkNumBlocks(input.readInt()) * LONGS_PER_BLOCK];
+        input.readBytes(Slices.wrappedLongArray(bits));
+        return new SplitBlockBloomFilter(bits, countBits(bits));
+    }
+
+    public int getSerializedSize()
+    {
+        return SIZE_OF_INT + bits.length * SIZE_OF_LONG;
+    }
+
+    public void writeTo(Slice slice, int offset)
+    {
+        slice.setInt(offset, numBlocks);
+        slice.setBytes(offset + SIZE_OF_INT, Slices.wrappedLongArray(bits));
+    }
+
+    public void writeTo(SliceOutput output)
+    {
+        output.writeInt(numBlocks);
+        output.writeBytes(Slices.wrappedLongArray(bits));
+    }
+
+    public void put(long hash)
+    {
+        int key = (int) hash;
+        int offset = blockOffset(hash);
+        for (int i = 0; i < LONGS_PER_BLOCK; i++) {
+            long word = bits[offset + i];
+            long updated = word | mask(key, i);
+            if (updated != word) {
+                bitCount += Long.bitCount(updated ^ word);
+                bits[offset + i] = updated;
+            }
+        }
+    }
+
+    public boolean mightContain(long hash)
+    {
+        int key = (int) hash;
+        int offset = blockOffset(hash);
+        for (int i = 0; i < LONGS_PER_BLOCK; i++) {
+            long mask = mask(key, i);
+            if ((bits[offset + i] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Filters can only be merged when they were created with the same size
+     */
+    public boolean isCompatible(SplitBlockBloomFilter other)
+    {
+        return other.bits.length == bits.length;
+    }
+
+    /**
+     * Add all values of another filter of the same size into the current one
+     */
+    public void union(SplitBlockBloomFilter other)
+    {
+        if (!isCompatible(other)) {
+            throw new IllegalArgumentException("Bloom filters have different sizes: " + bits.length + ", " + other.bits.length);
+        }
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other.bits[i];
+        }
+        bitCount = countBits(bits);
+    }
+
+    public long getBitSize()
+    {
+        return (long) bits.length * Long.SIZE;
+    }
+
+    public long getBitCount()
+    {
+        return bitCount;
+    }
+
+    /**
+     * Get the probability that a value which was never added is reported as contained, estimated from the set bits
+     */
+    public double expectedFpp()
+    {
+        return Math.pow((double) bitCount / getBitSize(), WORDS_PER_BLOCK);
+    }
+
+    /**
+     * Estimate the number of distinct values added, every value sets one of the 32 bits of each word of its block
+     */
+    public long approximateElementCount()
+    {
+        double fillRatio = (double) bitCount / getBitSize();
+        return Math.round(numBlocks * Math.log1p(-fillRatio) / Math.log1p(-1.0 / Integer.SIZE));
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(bits);
+    }
+
+    private int blockOffset(long hash)
+    {
+        return (int) (((hash >>> 32) * numBlocks) >>> 32) * LONGS_PER_BLOCK;
+    }
+
+    private static long mask(int key, int index)
+    {
+        return (1L << ((key * SALT[2 * index]) >>> 27)) | (1L << (Integer.SIZE + ((key * SALT[2 * index + 1]) >>> 27)));
+    }
+
+    private static int checkNumBlocks(int numBlocks)
+    {
+        if (numBlocks <= 0 || numBlocks > MAX_BLOCKS) {
+            throw new IllegalArgumentException("Invalid number of bloom filter blocks: " + numBlocks);
+        }
+        return numBlocks;
+    }
+
+    private static long countBits(long[] bits)
+    {
+        long count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
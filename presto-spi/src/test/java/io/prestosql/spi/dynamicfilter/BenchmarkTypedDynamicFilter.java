@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.dynamicfilter;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter.ValueKind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.prestosql.spi.dynamicfilter.DynamicFilter.Type.GLOBAL;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.TypeUtils.readNativeValueForDynamicFilter;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Compares probing a page worth of values against typed dynamic filters with
+ * the previous approach which converts every value to a String first
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 500, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkTypedDynamicFilter
+{
+    private static final int POSITIONS = 1024;
+
+    @Param({"1000", "100000"})
+    private int buildSize = 1000;
+
+    private Block block;
+    private int[] positions;
+
+    private TypedDynamicFilter typedHashSet;
+    private TypedDynamicFilter typedBloomFilter;
+    private Set<String> stringHashSet;
+    private BloomFilter<String> stringBloomFilter;
+
+    @Setup
+    public void setup()
+    {
+        long[] hashes = new long[buildSize];
+        stringHashSet = new HashSet<>();
+        stringBloomFilter = BloomFilter.create(Funnels.stringFunnel(Charset.defaultCharset()), 1024 * 1024, 0.1);
+        TypedBloomFilterDynamicFilter bloomFilter = TypedBloomFilterDynamicFilter.create("1", null, ValueKind.LONG, 1024 * 1024, 0.1, GLOBAL);
+        for (int i = 0; i < buildSize; i++) {
+            // every other value of the probe side matches
+            long value = i * 2L;
+            hashes[i] = TypedDynamicFilter.hashLong(value);
+            bloomFilter.put(hashes[i]);
+            stringHashSet.add(String.valueOf(value));
+            stringBloomFilter.put(String.valueOf(value));
+        }
+        typedHashSet = new TypedHashSetDynamicFilter("1", null, ValueKind.LONG, hashes, GLOBAL);
+        typedBloomFilter = bloomFilter;
+
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, POSITIONS);
+        for (int i = 0; i < POSITIONS; i++) {
+            BIGINT.writeLong(blockBuilder, ThreadLocalRandom.current().nextLong(buildSize * 4L));
+        }
+        block = blockBuilder.build();
+        positions = new int[POSITIONS];
+    }
+
+    @Benchmark
+    public int typedHashSet()
+    {
+        return typedHashSet.filter(BIGINT, block, positions);
+    }
+
+    @Benchmark
+    public int typedBloomFilter()
+    {
+        return typedBloomFilter.filter(BIGINT, block, positions);
+    }
+
+    @Benchmark
+    public int stringHashSet()
+    {
+        int count = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (stringHashSet.contains(readNativeValueForDynamicFilter(BIGINT, block, position))) {
+                positions[count++] = position;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int stringBloomFilter()
+    {
+        int count = 0;
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (stringBloomFilter.mightContain(readNativeValueForDynamicFilter(BIGINT, block, position))) {
+                positions[count++] = position;
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkTypedDynamicFilter.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.dynamicfilter;
+
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.dynamicfilter.TypedDynamicFilter.ValueKind;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.Range;
+import io.prestosql.spi.predicate.ValueSet;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.spi.dynamicfilter.DynamicFilter.Type.GLOBAL;
+import static io.prestosql.spi.dynamicfilter.DynamicFilter.Type.LOCAL;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestTypedDynamicFilter
+{
+    @Test
+    public void testValueKind()
+    {
+        assertEquals(ValueKind.of(BIGINT), Optional.of(ValueKind.LONG));
+        assertEquals(ValueKind.of(DOUBLE), Optional.of(ValueKind.DOUBLE));
+        assertEquals(ValueKind.of(VARCHAR), Optional.of(ValueKind.SLICE));
+        assertEquals(ValueKind.of(VARBINARY), Optional.empty());
+    }
+
+    @Test
+    public void testHashSetContains()
+    {
+        TypedDynamicFilter filter = longHashSet(0, 1, 5, 1000);
+        assertEquals(filter.getSize(), 4);
+        assertTrue(filter.contains(0L));
+        assertTrue(filter.contains(1000L));
+        assertTrue(filter.contains("5"));
+        assertFalse(filter.contains(2L));
+        assertFalse(filter.contains("2"));
+        assertFalse(filter.contains(null));
+        // values which can not be interpreted can not be filtered out
+        assertTrue(filter.contains("abc"));
+    }
+
+    @Test
+    public void testHashSetSerialization()
+    {
+        TypedHashSetDynamicFilter filter = longHashSet(-1, 3, 7, 1 << 20);
+        TypedDynamicFilter deserialized = TypedDynamicFilter.deserialize("1", null, filter.serialize(), GLOBAL);
+        assertTrue(deserialized instanceof TypedHashSetDynamicFilter);
+        assertEquals(deserialized.getValueKind(), ValueKind.LONG);
+        assertEquals(deserialized.getSize(), 4);
+        assertTrue(deserialized.contains(-1L));
+        assertTrue(deserialized.contains(1L << 20));
+        assertFalse(deserialized.contains(8L));
+    }
+
+    @Test
+    public void testHashSetUnion()
+    {
+        TypedHashSetDynamicFilter filter = longHashSet(1, 2);
+        filter.union(longHashSet(2, 3, 4));
+        assertEquals(filter.getSize(), 4);
+        for (long value = 1; value <= 4; value++) {
+            assertTrue(filter.contains(value));
+        }
+        assertFalse(filter.contains(5L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnionIncompatible()
+    {
+        TypedHashSetDynamicFilter filter = longHashSet(1, 2);
+        filter.union(new TypedHashSetDynamicFilter("1", null, ValueKind.SLICE, new long[0], GLOBAL));
+    }
+
+    @Test
+    public void testBloomFilter()
+    {
+        TypedBloomFilterDynamicFilter filter = TypedBloomFilterDynamicFilter.create("1", null, ValueKind.SLICE, 1000, 0.01, GLOBAL);
+        for (int i = 0; i < 500; i++) {
+            filter.put(TypedDynamicFilter.hashSlice(utf8Slice("value" + i)));
+        }
+        TypedBloomFilterDynamicFilter other = TypedBloomFilterDynamicFilter.create("1", null, ValueKind.SLICE, 1000, 0.01, GLOBAL);
+        for (int i = 500; i < 1000; i++) {
+            other.put(TypedDynamicFilter.hashSlice(utf8Slice("value" + i)));
+        }
+        assertTrue(filter.isCompatible(other));
+        filter.union(other);
+
+        TypedDynamicFilter deserialized = TypedDynamicFilter.deserialize("1", null, filter.serialize(), GLOBAL);
+        assertTrue(deserialized instanceof TypedBloomFilterDynamicFilter);
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(deserialized.contains("value" + i));
+            assertTrue(deserialized.contains(utf8Slice("value" + i)));
+            if (deserialized.contains("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 50, "too many false positives: " + falsePositives);
+        assertTrue(((TypedBloomFilterDynamicFilter) deserialized).expectedFpp() < 0.05);
+    }
+
+    @Test
+    public void testFilterLongBlock()
+    {
+        TypedDynamicFilter filter = longHashSet(2, 4, 6);
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, 8);
+        for (long value = 0; value < 7; value++) {
+            BIGINT.writeLong(blockBuilder, value);
+        }
+        blockBuilder.appendNull();
+        Block block = blockBuilder.build();
+
+        int[] positions = new int[block.getPositionCount()];
+        int count = filter.filter(BIGINT, block, positions);
+        assertEquals(Arrays.copyOf(positions, count), new int[] {2, 4, 6});
+
+        // positions and positionsOut can be the same array
+        int[] selected = {0, 4, 5, 6, 7};
+        count = filter.filter(BIGINT, block, selected, selected.length, selected);
+        assertEquals(Arrays.copyOf(selected, count), new int[] {4, 6});
+    }
+
+    @Test
+    public void testFilterSliceBlock()
+    {
+        TypedDynamicFilter filter = new TypedHashSetDynamicFilter("1", null, ValueKind.SLICE, new long[] {
+                TypedDynamicFilter.hashSlice(utf8Slice("a")),
+                TypedDynamicFilter.hashSlice(utf8Slice("ccc"))}, LOCAL);
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, 4);
+        VARCHAR.writeSlice(blockBuilder, utf8Slice("a"));
+        VARCHAR.writeSlice(blockBuilder, utf8Slice("bb"));
+        blockBuilder.appendNull();
+        VARCHAR.writeSlice(blockBuilder, utf8Slice("ccc"));
+        Block block = blockBuilder.build();
+
+        int[] positions = new int[block.getPositionCount()];
+        int count = filter.filter(VARCHAR, block, positions);
+        assertEquals(Arrays.copyOf(positions, count), new int[] {0, 3});
+
+        // probing with a type of a different representation keeps all positions
+        count = filter.filter(BIGINT, block, positions);
+        assertEquals(count, block.getPositionCount());
+    }
+
+    @Test
+    public void testLongValueRange()
+    {
+        TypedHashSetDynamicFilter filter = longHashSet(7, 3, 5);
+        filter.setValueRange(longRange(7, 3, 5));
+        assertEquals(filter.getMin(), 3L);
+        assertEquals(filter.getMax(), 7L);
+        assertEquals(filter.getDomain(BIGINT), Optional.of(Domain.multipleValues(BIGINT, Arrays.<Object>asList(3L, 5L, 7L))));
+        // the native values of REAL are not ordered like longs
+        assertEquals(filter.getDomain(REAL), Optional.empty());
+        assertEquals(longHashSet(1).getDomain(BIGINT), Optional.empty());
+
+        TypedDynamicFilter deserialized = TypedDynamicFilter.deserialize("1", null, filter.serialize(), GLOBAL);
+        assertEquals(deserialized.getDomain(BIGINT), filter.getDomain(BIGINT));
+        assertFalse(deserialized.contains("4"));
+        assertTrue(deserialized.contains("5"));
+
+        // once there are too many distinct values only the min and max are kept
+        TypedHashSetDynamicFilter other = longHashSet();
+        DynamicFilterRange otherRange = new DynamicFilterRange(ValueKind.LONG);
+        for (long value = 100; value < 100 + DynamicFilterRange.MAX_DISCRETE_VALUES; value++) {
+            otherRange.addLong(value);
+        }
+        other.setValueRange(otherRange);
+        filter.union(other);
+        assertEquals(filter.getDomain(BIGINT), Optional.of(Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 3L, true, 131L, true)), false)));
+        assertEquals(filter.getMax(), 131L);
+
+        // the range is unknown when it is unknown for one of the merged filters
+        filter.union(longHashSet(200));
+        assertEquals(filter.getValueRange(), Optional.empty());
+        assertEquals(filter.getDomain(BIGINT), Optional.empty());
+    }
+
+    @Test
+    public void testEmptyValueRange()
+    {
+        TypedHashSetDynamicFilter filter = longHashSet();
+        filter.setValueRange(new DynamicFilterRange(ValueKind.LONG));
+        assertEquals(filter.getDomain(BIGINT), Optional.of(Domain.none(BIGINT)));
+        assertNull(filter.getMin());
+
+        TypedDynamicFilter deserialized = TypedDynamicFilter.deserialize("1", null, filter.serialize(), GLOBAL);
+        assertTrue(deserialized.getValueRange().get().isEmpty());
+    }
+
+    @Test
+    public void testSliceValueRange()
+    {
+        TypedBloomFilterDynamicFilter filter = TypedBloomFilterDynamicFilter.create("1", null, ValueKind.SLICE, 1000, 0.01, GLOBAL);
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, DynamicFilterRange.MAX_DISCRETE_VALUES + 1);
+        for (int i = 10; i <= 10 + DynamicFilterRange.MAX_DISCRETE_VALUES; i++) {
+            VARCHAR.writeSlice(blockBuilder, utf8Slice("value" + i));
+        }
+        Block block = blockBuilder.build();
+        DynamicFilterRange range = new DynamicFilterRange(ValueKind.SLICE);
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            filter.put(TypedDynamicFilter.hash(VARCHAR, ValueKind.SLICE, block, position));
+            range.add(VARCHAR, block, position);
+        }
+        filter.setValueRange(range);
+        assertEquals(range.getDiscreteValues(), Optional.empty());
+
+        TypedDynamicFilter deserialized = TypedDynamicFilter.deserialize("1", null, filter.serialize(), GLOBAL);
+        assertTrue(deserialized instanceof TypedBloomFilterDynamicFilter);
+        assertEquals(deserialized.getMin(), utf8Slice("value10"));
+        assertEquals(deserialized.getMax(), utf8Slice("value42"));
+        assertEquals(deserialized.getDomain(VARCHAR), Optional.of(Domain.create(ValueSet.ofRanges(Range.range(VARCHAR, utf8Slice("value10"), true, utf8Slice("value42"), true)), false)));
+        assertTrue(deserialized.contains("value20"));
+        assertFalse(deserialized.contains("value50"));
+        assertFalse(deserialized.contains("abc"));
+    }
+
+    @Test
+    public void testDoubleValueRange()
+    {
+        DynamicFilterRange range = new DynamicFilterRange(ValueKind.DOUBLE);
+        range.addDouble(Double.NaN);
+        assertTrue(range.isEmpty());
+        range.addDouble(2.5);
+        range.addDouble(-1.5);
+        assertEquals(range.toDomain(DOUBLE), Domain.multipleValues(DOUBLE, Arrays.<Object>asList(-1.5, 2.5)));
+        assertFalse(range.contains(Double.NaN));
+
+        // 0.0 and -0.0 match each other
+        range.addDouble(0.0);
+        assertEquals(range.getDiscreteValues(), Optional.empty());
+        assertTrue(range.contains(-0.0));
+        Domain domain = range.toDomain(DOUBLE);
+        assertTrue(domain.includesNullableValue(-0.0));
+        assertTrue(domain.includesNullableValue(2.5));
+        assertFalse(domain.includesNullableValue(3.0));
+    }
+
+    @Test
+    public void testRangeFilter()
+    {
+        assertTrue(TypedRangeDynamicFilter.isDense(longRange(3, 5, 4), 3));
+        assertFalse(TypedRangeDynamicFilter.isDense(longRange(3, 6, 4), 3));
+        assertFalse(TypedRangeDynamicFilter.isDense(longRange(Long.MIN_VALUE, Long.MAX_VALUE), 2));
+        assertFalse(TypedRangeDynamicFilter.isDense(new DynamicFilterRange(ValueKind.LONG), 0));
+
+        TypedRangeDynamicFilter filter = new TypedRangeDynamicFilter("1", null, longRange(2, 3, 4), GLOBAL);
+        assertEquals(filter.getSize(), 3);
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, 7);
+        for (long value = 0; value < 6; value++) {
+            BIGINT.writeLong(blockBuilder, value);
+        }
+        blockBuilder.appendNull();
+        Block block = blockBuilder.build();
+        int[] positions = new int[block.getPositionCount()];
+        int count = filter.filter(BIGINT, block, positions);
+        assertEquals(Arrays.copyOf(positions, count), new int[] {2, 3, 4});
+
+        TypedDynamicFilter deserialized = TypedDynamicFilter.deserialize("1", null, filter.serialize(), GLOBAL);
+        assertTrue(deserialized instanceof TypedRangeDynamicFilter);
+        assertTrue(deserialized.contains("3"));
+        assertFalse(deserialized.contains("5"));
+        assertEquals(deserialized.getDomain(BIGINT), filter.getDomain(BIGINT));
+
+        // the exact hash set of a small range contains the same values
+        TypedHashSetDynamicFilter hashSet = filter.toHashSet();
+        assertEquals(hashSet.getSize(), 3);
+        assertTrue(hashSet.contains(4L));
+        assertFalse(hashSet.contains(1L));
+
+        // a range can be merged with any filter whose range is known
+        TypedHashSetDynamicFilter other = longHashSet(10);
+        other.setValueRange(longRange(10));
+        filter.union(other);
+        assertEquals(filter.getMax(), 10L);
+        assertTrue(filter.contains(10L));
+        // the few distinct values are still known
+        assertFalse(filter.contains(8L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRangeFilterUnionUnknownRange()
+    {
+        new TypedRangeDynamicFilter("1", null, longRange(1), GLOBAL).union(longHashSet(2));
+    }
+
+    private static DynamicFilterRange longRange(long... values)
+    {
+        DynamicFilterRange range = new DynamicFilterRange(ValueKind.LONG);
+        for (long value : values) {
+            range.addLong(value);
+        }
+        return range;
+    }
+
+    private static TypedHashSetDynamicFilter longHashSet(long... values)
+    {
+        long[] hashes = Arrays.stream(values)
+                .map(TypedDynamicFilter::hashLong)
+                .toArray();
+        return new TypedHashSetDynamicFilter("1", null, ValueKind.LONG, hashes, GLOBAL);
+    }
+}
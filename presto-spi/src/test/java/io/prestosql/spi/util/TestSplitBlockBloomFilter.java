@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2018-2020. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.util;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.slice.XxHash64;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestSplitBlockBloomFilter
+{
+    @Test
+    public void testMightContain()
+    {
+        SplitBlockBloomFilter filter = SplitBlockBloomFilter.create(10_000, 0.01);
+        for (long value = 0; value < 10_000; value++) {
+            filter.put(XxHash64.hash(value));
+        }
+        for (long value = 0; value < 10_000; value++) {
+            assertTrue(filter.mightContain(XxHash64.hash(value)));
+        }
+
+        int falsePositives = 0;
+        for (long value = 10_000; value < 110_000; value++) {
+            if (filter.mightContain(XxHash64.hash(value))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "too many false positives: " + falsePositives);
+        assertTrue(filter.expectedFpp() < 0.02);
+        assertTrue(Math.abs(filter.approximateElementCount() - 10_000) < 500);
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        SplitBlockBloomFilter filter = SplitBlockBloomFilter.create(100, 0.1);
+        assertFalse(filter.mightContain(XxHash64.hash(1L)));
+        assertEquals(filter.getBitCount(), 0);
+        assertEquals(filter.approximateElementCount(), 0);
+    }
+
+    @Test
+    public void testSerialization()
+    {
+        SplitBlockBloomFilter filter = SplitBlockBloomFilter.create(1000, 0.05);
+        for (long value = 0; value < 1000; value++) {
+            filter.put(XxHash64.hash(value));
+        }
+
+        Slice slice = Slices.allocate(filter.getSerializedSize() + 3);
+        filter.writeTo(slice, 3);
+        SplitBlockBloomFilter copy = SplitBlockBloomFilter.readFrom(slice, 3);
+        assertEquals(copy.getBitCount(), filter.getBitCount());
+        assertEquals(copy.getBitSize(), filter.getBitSize());
+        for (long value = 0; value < 1000; value++) {
+            assertTrue(copy.mightContain(XxHash64.hash(value)));
+        }
+
+        DynamicSliceOutput output = new DynamicSliceOutput(filter.getSerializedSize());
+        filter.writeTo(output);
+        assertEquals(output.size(), filter.getSerializedSize());
+        copy = SplitBlockBloomFilter.readFrom(output.slice().getInput());
+        assertEquals(copy.getBitCount(), filter.getBitCount());
+    }
+
+    @Test
+    public void testUnion()
+    {
+        SplitBlockBloomFilter filter = SplitBlockBloomFilter.create(1000, 0.05);
+        SplitBlockBloomFilter other = SplitBlockBloomFilter.create(1000, 0.05);
+        for (long value = 0; value < 500; value++) {
+            filter.put(XxHash64.hash(value));
+            other.put(XxHash64.hash(value + 500));
+        }
+        assertTrue(filter.isCompatible(other));
+        filter.union(other);
+        for (long value = 0; value < 1000; value++) {
+            assertTrue(filter.mightContain(XxHash64.hash(value)));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnionIncompatible()
+    {
+        SplitBlockBloomFilter.create(1000, 0.05).union(SplitBlockBloomFilter.create(100_000, 0.05));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidFpp()
+    {
+        SplitBlockBloomFilter.create(1000, 1.0);
+    }
+}
@@ -36,6 +36,7 @@ import javax.inject.Inject;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.UnaryOperator;
@@ -164,6 +165,13 @@ public class SqlServerClient
         return true;
     }
 
+    @Override
+    protected String toDateLiteral(LocalDate date)
+    {
+        // SQL Server has no DATE literal
+        return format("CAST('%s' AS DATE)", date);
+    }
+
     private static String singleQuote(String... objects)
     {
         return singleQuote(DOT_JOINER.join(objects));
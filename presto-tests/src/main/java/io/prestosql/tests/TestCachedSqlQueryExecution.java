@@ -65,6 +65,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
 public class TestCachedSqlQueryExecution
 {
@@ -629,6 +630,43 @@ public class TestCachedSqlQueryExecution
         assertSame(plan2.getStatsAndCosts(), plan3.getStatsAndCosts());
     }
 
+    @Test
+    public void testExecutionPlanCacheDifferentLiterals()
+            throws Exception
+    {
+        setupWithExecutionPlanCacheEnabled(TPCH_SESSION);
+
+        SqlQueryManager manager = (SqlQueryManager) queryRunner.getCoordinator().getQueryManager();
+        String testSql = "SELECT COUNT(*) FROM orders WHERE custkey > %s AND orderpriority <> '%s'";
+        Plan plan1 = getPlan(String.format(testSql, 10, "1-URGENT"), manager);
+        // the first plan for other literal values validates that the literals can be rebound
+        Plan plan2 = getPlan(String.format(testSql, 20, "3-MEDIUM"), manager);
+        assertNotSame(plan1.getStatsAndCosts(), plan2.getStatsAndCosts());
+
+        ResultWithQueryId<MaterializedResult> result = queryRunner.executeWithQueryId(queryRunner.getDefaultSession(), String.format(testSql, 30, "9-NOTSET"));
+        assertSame(manager.getQueryPlan(result.getQueryId()).getStatsAndCosts(), plan1.getStatsAndCosts());
+        assertTrue(manager.getFullQueryInfo(result.getQueryId()).getQueryStats().isPlanCacheHit());
+
+        // a differently shaped statement is planned again, and gives the same result
+        MaterializedResult expected = queryRunner.execute(TPCH_SESSION, "SELECT COUNT(*) FROM orders WHERE custkey > 30 AND orderpriority <> '9-NOTSET' AND 1 = 1");
+        assertEquals(result.getResult().getMaterializedRows(), expected.getMaterializedRows());
+    }
+
+    @Test
+    public void testExecutionPlanCacheDifferentLiteralShapes()
+            throws Exception
+    {
+        setupWithExecutionPlanCacheEnabled(TPCH_SESSION);
+
+        SqlQueryManager manager = (SqlQueryManager) queryRunner.getCoordinator().getQueryManager();
+        Plan plan1 = getPlan("SELECT COUNT(*) FROM orders WHERE orderpriority <> '1-URGENT'", manager);
+        Plan plan2 = getPlan("SELECT COUNT(*) FROM orders WHERE orderpriority <> '1-URGENT!'", manager);
+        Plan plan3 = getPlan("SELECT COUNT(*) FROM orders WHERE orderpriority <> '1-URGENT!'", manager);
+
+        assertNotSame(plan1.getStatsAndCosts(), plan2.getStatsAndCosts());
+        assertSame(plan2.getStatsAndCosts(), plan3.getStatsAndCosts());
+    }
+
     @AfterTest(alwaysRun = true)
     private void cleanup()
     {